@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmarks;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+
+import java.util.Date;
+
+/** The row layout and data shared by the benchmarks */
+public class BenchmarkRows {
+
+  private BenchmarkRows() {
+    // Utility class
+  }
+
+  /**
+   * @return a typical row layout: an id, a few descriptive strings, a number, a date and a flag
+   */
+  public static IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("code"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaString("city"));
+    rowMeta.addValueMeta(new ValueMetaNumber("amount"));
+    rowMeta.addValueMeta(new ValueMetaDate("updated"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("active"));
+    return rowMeta;
+  }
+
+  /**
+   * @param id the id of the row, the other values are derived from it
+   * @return a row for the layout of {@link #createRowMeta()}
+   */
+  public static Object[] createRow(long id) {
+    return new Object[] {
+      id,
+      "C" + (id % 1000),
+      "Customer name " + id,
+      "City " + (id % 50),
+      id * 1.25,
+      new Date(1666094400000L + id * 1000L),
+      id % 2 == 0
+    };
+  }
+}
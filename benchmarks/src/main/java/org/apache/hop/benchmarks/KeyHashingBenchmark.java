@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmarks;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.hash.ByteArrayHashIndex;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing and comparing of keys, as done by lookups, joins, sorting and grouping: hash codes and
+ * comparisons of the key fields of rows and lookups in a {@link ByteArrayHashIndex}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyHashingBenchmark {
+
+  @Param({"100000"})
+  public int nrKeys;
+
+  private IRowMeta rowMeta;
+  private IRowMeta keyRowMeta;
+  private int[] keyFields;
+  private Object[][] rows;
+  private Object[][] keys;
+  private byte[][] keyBytes;
+  private ByteArrayHashIndex hashIndex;
+  private int position;
+
+  @Setup
+  public void setUp() throws HopValueException {
+    rowMeta = BenchmarkRows.createRowMeta();
+    keyFields = new int[] {0, 1};
+    keyRowMeta = new RowMeta();
+    for (int keyField : keyFields) {
+      keyRowMeta.addValueMeta(rowMeta.getValueMeta(keyField));
+    }
+
+    rows = new Object[nrKeys][];
+    keys = new Object[nrKeys][];
+    keyBytes = new byte[nrKeys][];
+    hashIndex = new ByteArrayHashIndex(keyRowMeta, nrKeys);
+    for (int i = 0; i < nrKeys; i++) {
+      rows[i] = BenchmarkRows.createRow(i);
+      keys[i] = new Object[] {rows[i][0], rows[i][1]};
+      keyBytes[i] = RowMeta.extractData(keyRowMeta, keys[i]);
+      hashIndex.put(keyBytes[i], RowMeta.extractData(rowMeta, rows[i]));
+    }
+  }
+
+  private int next() {
+    position++;
+    if (position >= nrKeys) {
+      position = 0;
+    }
+    return position;
+  }
+
+  @Benchmark
+  public int rowHashCode() throws HopValueException {
+    return keyRowMeta.hashCode(keys[next()]);
+  }
+
+  @Benchmark
+  public int compareKeyFields() throws HopValueException {
+    int i = next();
+    return rowMeta.compare(rows[i], rows[nrKeys - 1 - i], keyFields);
+  }
+
+  @Benchmark
+  public byte[] extractKey() {
+    return RowMeta.extractData(keyRowMeta, keys[next()]);
+  }
+
+  @Benchmark
+  public byte[] hashIndexLookup() throws HopValueException {
+    return hashIndex.get(keyBytes[next()]);
+  }
+}
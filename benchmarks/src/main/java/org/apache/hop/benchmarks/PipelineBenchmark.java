@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmarks;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.plugins.PluginRegistry;
+import org.apache.hop.core.plugins.TransformPluginType;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineHopMeta;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.ITransformMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.calculator.CalculatorMeta;
+import org.apache.hop.pipeline.transforms.calculator.CalculatorMetaFunction;
+import org.apache.hop.pipeline.transforms.calculator.CalculatorMetaFunction.CalculationType;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.rowgenerator.GeneratorField;
+import org.apache.hop.pipeline.transforms.rowgenerator.RowGeneratorMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory pipeline executed end-to-end with the local pipeline engine: Row Generator,
+ * Calculator and Dummy. The score is expressed in rows per millisecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+  public static final int NR_ROWS = 1000000;
+
+  private PipelineMeta pipelineMeta;
+
+  @Setup
+  public void setUp() throws HopException {
+    HopEnvironment.init();
+
+    pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("Generate, calculate, dummy");
+
+    RowGeneratorMeta generatorMeta = new RowGeneratorMeta();
+    generatorMeta.setRowLimit(Integer.toString(NR_ROWS));
+    List<GeneratorField> fields = new ArrayList<>();
+    fields.add(new GeneratorField("a", "Integer", null, -1, -1, null, null, null, "12", false));
+    fields.add(new GeneratorField("b", "Integer", null, -1, -1, null, null, null, "34", false));
+    fields.add(new GeneratorField("c", "Number", null, -1, -1, null, ".", ",", "5.6", false));
+    fields.add(new GeneratorField("s", "String", null, -1, -1, null, null, null, "hop", false));
+    generatorMeta.setFields(fields);
+
+    CalculatorMeta calculatorMeta = new CalculatorMeta();
+    List<CalculatorMetaFunction> functions = calculatorMeta.getFunctions();
+    functions.add(function("sum", CalculationType.ADD, "a", "b", "Integer"));
+    functions.add(function("product", CalculationType.MULTIPLY, "c", "c", "Number"));
+    functions.add(function("upper", CalculationType.UPPER_CASE, "s", null, "String"));
+
+    TransformMeta generator = addTransform("generator", generatorMeta);
+    TransformMeta calculator = addTransform("calculator", calculatorMeta);
+    TransformMeta dummy = addTransform("dummy", new DummyMeta());
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(generator, calculator));
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(calculator, dummy));
+  }
+
+  private TransformMeta addTransform(String name, ITransformMeta transformMeta) {
+    TransformMeta meta =
+        new TransformMeta(
+            PluginRegistry.getInstance().getPluginId(TransformPluginType.class, transformMeta),
+            name,
+            transformMeta);
+    pipelineMeta.addTransform(meta);
+    return meta;
+  }
+
+  private static CalculatorMetaFunction function(
+      String name, CalculationType calcType, String fieldA, String fieldB, String valueType) {
+    return new CalculatorMetaFunction(
+        name, calcType, fieldA, fieldB, null, valueType, -1, -1, null, null, null, null, false);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NR_ROWS)
+  public long generateCalculateDummy() throws HopException {
+    Pipeline pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    pipeline.execute();
+    pipeline.waitUntilFinished();
+    if (pipeline.getErrors() > 0) {
+      throw new HopException("The benchmark pipeline failed");
+    }
+    return pipeline.getTransform("dummy", 0).getLinesRead();
+  }
+}
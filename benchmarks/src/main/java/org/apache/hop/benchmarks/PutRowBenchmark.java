@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmarks;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.QueueRowSet;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.plugins.PluginRegistry;
+import org.apache.hop.core.plugins.TransformPluginType;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of BaseTransform.putRow(): row listeners, counters and the distribution of the row
+ * over the output row sets. The row is taken back out of the output row set right away so no
+ * other thread is involved.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PutRowBenchmark {
+
+  private Pipeline pipeline;
+  private BaseTransform<?, ?> transform;
+  private IRowSet outputRowSet;
+  private IRowMeta rowMeta;
+  private Object[] row;
+
+  @Setup
+  public void setUp() throws HopException {
+    HopEnvironment.init();
+
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("putRow");
+    DummyMeta dummyMeta = new DummyMeta();
+    pipelineMeta.addTransform(
+        new TransformMeta(
+            PluginRegistry.getInstance().getPluginId(TransformPluginType.class, dummyMeta),
+            "dummy",
+            dummyMeta));
+
+    pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    pipeline.prepareExecution();
+    pipeline.setRunning(true);
+
+    transform = (BaseTransform<?, ?>) pipeline.getTransform("dummy", 0);
+    outputRowSet = new QueueRowSet();
+    transform.setOutputRowSets(Collections.singletonList(outputRowSet));
+
+    rowMeta = BenchmarkRows.createRowMeta();
+    row = BenchmarkRows.createRow(42L);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pipeline.setRunning(false);
+  }
+
+  @Benchmark
+  public Object[] putRow() throws HopException {
+    transform.putRow(rowMeta, row);
+    return outputRowSet.getRowImmediate();
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmarks;
+
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of rows with IRowMeta.writeData() and readData(), as used when sorting or
+ * grouping rows on disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RowSerializationBenchmark {
+
+  private IRowMeta rowMeta;
+  private Object[] row;
+  private ByteArrayOutputStream bytes;
+  private DataOutputStream outputStream;
+  private byte[] serializedRow;
+
+  @Setup
+  public void setUp() throws Exception {
+    rowMeta = BenchmarkRows.createRowMeta();
+    row = BenchmarkRows.createRow(42L);
+
+    bytes = new ByteArrayOutputStream(1024);
+    outputStream = new DataOutputStream(bytes);
+    rowMeta.writeData(outputStream, row);
+    outputStream.flush();
+    serializedRow = bytes.toByteArray();
+  }
+
+  @Benchmark
+  public int writeData() throws HopFileException {
+    bytes.reset();
+    rowMeta.writeData(outputStream, row);
+    return bytes.size();
+  }
+
+  @Benchmark
+  public Object[] readData() throws HopFileException, SocketTimeoutException {
+    DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(serializedRow));
+    return rowMeta.readData(inputStream);
+  }
+}
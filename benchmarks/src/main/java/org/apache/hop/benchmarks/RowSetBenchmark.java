@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmarks;
+
+import org.apache.hop.core.BlockingBatchingRowSet;
+import org.apache.hop.core.BlockingRowSet;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.RingBufferRowSet;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hand-off of rows between two transform threads: one thread puts rows into the row set while
+ * another one reads them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class RowSetBenchmark {
+
+  @Param({"Blocking", "BlockingBatching", "RingBuffer"})
+  public String rowSetType;
+
+  @Param({"10000"})
+  public int rowSetSize;
+
+  private IRowSet rowSet;
+  private IRowMeta rowMeta;
+  private Object[] row;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    switch (rowSetType) {
+      case "BlockingBatching":
+        rowSet = new BlockingBatchingRowSet(rowSetSize);
+        break;
+      case "RingBuffer":
+        rowSet = new RingBufferRowSet(rowSetSize);
+        break;
+      default:
+        rowSet = new BlockingRowSet(rowSetSize);
+        break;
+    }
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    row = new Object[] {1L};
+  }
+
+  // Short timeouts make sure that neither side hangs when the other one stops at the end of an
+  // iteration.
+  //
+  @Benchmark
+  @Group("handOff")
+  @GroupThreads(1)
+  public boolean putRow() {
+    return rowSet.putRowWait(rowMeta, row, 10, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Group("handOff")
+  @GroupThreads(1)
+  public Object[] getRow() {
+    return rowSet.getRowWait(10, TimeUnit.MILLISECONDS);
+  }
+}
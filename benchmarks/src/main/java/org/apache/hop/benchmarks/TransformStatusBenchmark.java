@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmarks;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.plugins.PluginRegistry;
+import org.apache.hop.core.plugins.TransformPluginType;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineHopMeta;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.RowProducer;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.ITransformMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
+import org.apache.hop.pipeline.transform.TransformStatus;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rows injected in a chain of Dummy transforms while another thread polls the status counters of
+ * the transforms every millisecond, just like the GUI or the status servlet do. Compare with
+ * pollStatus=false to see the cost of reading the counters. The score is expressed in rows per
+ * millisecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformStatusBenchmark {
+
+  public static final int NR_ROWS = 1000000;
+  public static final int NR_DUMMIES = 5;
+
+  @Param({"false", "true"})
+  public boolean pollStatus;
+
+  private PipelineMeta pipelineMeta;
+  private IRowMeta rowMeta;
+  private Object[] row;
+
+  @Setup
+  public void setUp() throws HopException {
+    HopEnvironment.init();
+
+    pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("Dummy chain");
+
+    TransformMeta previous = addTransform("injector", new InjectorMeta());
+    for (int i = 0; i < NR_DUMMIES; i++) {
+      TransformMeta dummy = addTransform("dummy" + i, new DummyMeta());
+      pipelineMeta.addPipelineHop(new PipelineHopMeta(previous, dummy));
+      previous = dummy;
+    }
+
+    rowMeta = BenchmarkRows.createRowMeta();
+    row = BenchmarkRows.createRow(42L);
+  }
+
+  private TransformMeta addTransform(String name, ITransformMeta transformMeta) {
+    TransformMeta meta =
+        new TransformMeta(
+            PluginRegistry.getInstance().getPluginId(TransformPluginType.class, transformMeta),
+            name,
+            transformMeta);
+    pipelineMeta.addTransform(meta);
+    return meta;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NR_ROWS)
+  public long injectWhilePollingStatus() throws Exception {
+    Pipeline pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    pipeline.prepareExecution();
+    RowProducer rowProducer = pipeline.addRowProducer("injector", 0);
+
+    AtomicBoolean polling = new AtomicBoolean(pollStatus);
+    Thread poller =
+        new Thread(
+            () -> {
+              while (polling.get()) {
+                for (TransformMetaDataCombi combi : pipeline.getTransforms()) {
+                  new TransformStatus(combi.transform);
+                }
+                try {
+                  Thread.sleep(1L);
+                } catch (InterruptedException e) {
+                  return;
+                }
+              }
+            });
+
+    poller.start();
+    pipeline.startThreads();
+    for (int i = 0; i < NR_ROWS; i++) {
+      rowProducer.putRow(rowMeta, row);
+    }
+    rowProducer.finished();
+    pipeline.waitUntilFinished();
+
+    polling.set(false);
+    poller.join();
+    if (pipeline.getErrors() > 0) {
+      throw new HopException("The benchmark pipeline failed");
+    }
+    return pipeline.getTransform("dummy" + (NR_DUMMIES - 1), 0).getLinesRead();
+  }
+}
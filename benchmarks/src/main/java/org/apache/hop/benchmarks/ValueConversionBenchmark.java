@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.benchmarks;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/** Conversions between String values and Number, Integer and Date values using conversion masks. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ValueConversionBenchmark {
+
+  private IValueMeta numberStringMeta;
+  private IValueMeta integerStringMeta;
+  private IValueMeta dateStringMeta;
+  private IValueMeta numberMeta;
+  private IValueMeta integerMeta;
+  private IValueMeta dateMeta;
+
+  private Double number;
+  private Long integer;
+  private Date date;
+
+  @Setup
+  public void setUp() {
+    numberStringMeta = new ValueMetaString("numberString");
+    numberStringMeta.setConversionMask("#,##0.00");
+    numberStringMeta.setDecimalSymbol(".");
+    numberStringMeta.setGroupingSymbol(",");
+    integerStringMeta = new ValueMetaString("integerString");
+    integerStringMeta.setConversionMask("#");
+    dateStringMeta = new ValueMetaString("dateString");
+    dateStringMeta.setConversionMask("yyyy/MM/dd HH:mm:ss.SSS");
+
+    numberMeta = new ValueMetaNumber("number");
+    numberMeta.setConversionMask("#,##0.00");
+    numberMeta.setDecimalSymbol(".");
+    numberMeta.setGroupingSymbol(",");
+    integerMeta = new ValueMetaInteger("integer");
+    integerMeta.setConversionMask("#");
+    dateMeta = new ValueMetaDate("date");
+    dateMeta.setConversionMask("yyyy/MM/dd HH:mm:ss.SSS");
+
+    number = 1234567.89;
+    integer = 1234567890L;
+    date = new Date(1666094400000L);
+  }
+
+  @Benchmark
+  public Object stringToNumber() throws HopValueException {
+    return numberMeta.convertData(numberStringMeta, "1,234,567.89");
+  }
+
+  @Benchmark
+  public Object stringToInteger() throws HopValueException {
+    return integerMeta.convertData(integerStringMeta, "1234567890");
+  }
+
+  @Benchmark
+  public Object stringToDate() throws HopValueException {
+    return dateMeta.convertData(dateStringMeta, "2022/10/18 12:00:00.000");
+  }
+
+  @Benchmark
+  public String numberToString() throws HopValueException {
+    return numberMeta.getString(number);
+  }
+
+  @Benchmark
+  public String integerToString() throws HopValueException {
+    return integerMeta.getString(integer);
+  }
+
+  @Benchmark
+  public String dateToString() throws HopValueException {
+    return dateMeta.getString(date);
+  }
+}
@@ -37,6 +37,9 @@ abstract class BaseRowSet implements Comparable<IRowSet>, IRowSet {
   protected AtomicInteger destinationTransformCopy;
 
   protected volatile String remoteHopServerName;
+
+  /** The selector of the transform reading from this row set, null if nobody is waiting yet */
+  protected volatile RowSetSelector selector;
   private ReadWriteLock lock;
 
   public BaseRowSet() {
@@ -133,6 +136,7 @@ abstract class BaseRowSet implements Comparable<IRowSet>, IRowSet {
   @Override
   public void setDone() {
     done.set(true);
+    notifySelector();
   }
 
   /*
@@ -288,6 +292,19 @@ abstract class BaseRowSet implements Comparable<IRowSet>, IRowSet {
     this.remoteHopServerName = remoteHopServerName;
   }
 
+  @Override
+  public void setSelector(RowSetSelector selector) {
+    this.selector = selector;
+  }
+
+  /** Wake up the transform waiting for rows from this row set, if any. */
+  protected void notifySelector() {
+    RowSetSelector rowSetSelector = selector;
+    if (rowSetSelector != null) {
+      rowSetSelector.wakeUp();
+    }
+  }
+
   /**
    * By default we don't report blocking, only for monitored pipelines.
    *
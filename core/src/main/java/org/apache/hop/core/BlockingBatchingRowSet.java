@@ -99,6 +99,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRo
       try {
         getArray.offer(inputBuffer, time, tu);
         inputBuffer = null;
+        notifySelector();
       } catch (InterruptedException e) {
         return false;
       }
@@ -126,8 +127,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRo
    */
   @Override
   public Object[] getRowImmediate() {
-
-    return getRow();
+    return getRowWait(0, TimeUnit.MILLISECONDS);
   }
 
   @Override
@@ -172,6 +172,7 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRo
       getArray.offer(inputBuffer);
     }
     putArray.clear();
+    notifySelector();
   }
 
   @Override
@@ -70,8 +70,11 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<IRowSet>, I
   public boolean putRowWait(IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu) {
     this.rowMeta = rowMeta;
     try {
-
-      return queArray.offer(rowData, time, tu);
+      if (queArray.offer(rowData, time, tu)) {
+        notifySelector();
+        return true;
+      }
+      return false;
     } catch (InterruptedException | NullPointerException e) {
       return false;
     }
@@ -21,7 +21,11 @@ import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.exception.HopXmlException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.ValueMetaAndData;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.xml.XmlHandler;
 import org.w3c.dom.Node;
@@ -534,6 +538,188 @@ public class Condition implements Cloneable {
     return retval;
   }
 
+  /**
+   * Evaluate the condition for all rows in a batch. Comparisons of Integer, Number and Date fields
+   * with a constant value (and combinations of these) are evaluated on the columnar values of the
+   * batch. All other conditions are evaluated row by row.
+   *
+   * @param batch the batch of rows
+   * @param result receives the outcome of the condition for every row in the batch
+   */
+  public void evaluate(RowBatch batch, boolean[] result) {
+    IRowMeta rowMeta = batch.getRowMeta();
+    if (isColumnar(rowMeta)) {
+      try {
+        evaluateColumnar(batch, result);
+      } catch (Exception e) {
+        throw new RuntimeException("Unexpected error evaluation condition [" + toString() + "]", e);
+      }
+    } else {
+      for (int i = 0; i < batch.size(); i++) {
+        result[i] = evaluate(rowMeta, batch.getRow(i));
+      }
+    }
+  }
+
+  /**
+   * @param rowMeta The row metadata
+   * @return true if this condition can be evaluated on the columnar values of a batch of rows
+   */
+  private boolean isColumnar(IRowMeta rowMeta) {
+    if (isComposite()) {
+      for (Condition condition : list) {
+        if (!condition.isColumnar(rowMeta)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    if (function == FUNC_TRUE) {
+      return true;
+    }
+    if (Utils.isEmpty(leftValuename) || rowMeta.indexOfValue(leftValuename) < 0) {
+      return false;
+    }
+    IValueMeta fieldMeta = rowMeta.searchValueMeta(leftValuename);
+    switch (function) {
+      case FUNC_NULL:
+      case FUNC_NOT_NULL:
+        return RowBatch.getColumnType(fieldMeta) != RowBatch.ColumnType.OBJECT;
+      case FUNC_EQUAL:
+      case FUNC_NOT_EQUAL:
+      case FUNC_SMALLER:
+      case FUNC_SMALLER_EQUAL:
+      case FUNC_LARGER:
+      case FUNC_LARGER_EQUAL:
+        break;
+      default:
+        return false;
+    }
+
+    // Only compare with a constant value of the same data type.
+    // We also stick to the standard comparison of these types.
+    //
+    if (!Utils.isEmpty(rightValuename)
+        || rightExact == null
+        || rightExact.getValueData() == null
+        || !rightExact.getValueMeta().isStorageNormal()
+        || rightExact.getValueMeta().getType() != fieldMeta.getType()
+        || !fieldMeta.isStorageNormal()
+        || fieldMeta.isSortedDescending()) {
+      return false;
+    }
+    Class<?> fieldMetaClass = fieldMeta.getClass();
+    return fieldMetaClass.equals(ValueMetaInteger.class)
+        || fieldMetaClass.equals(ValueMetaNumber.class)
+        || fieldMetaClass.equals(ValueMetaDate.class);
+  }
+
+  private void evaluateColumnar(RowBatch batch, boolean[] result) throws HopValueException {
+    int size = batch.size();
+
+    if (isComposite()) {
+      list.get(0).evaluateColumnar(batch, result);
+
+      boolean[] other = new boolean[size];
+      for (int c = 1; c < list.size(); c++) {
+        Condition cb = list.get(c);
+        cb.evaluateColumnar(batch, other);
+        switch (cb.getOperator()) {
+          case OPERATOR_OR:
+            for (int i = 0; i < size; i++) {
+              result[i] = result[i] || other[i];
+            }
+            break;
+          case OPERATOR_AND:
+            for (int i = 0; i < size; i++) {
+              result[i] = result[i] && other[i];
+            }
+            break;
+          case OPERATOR_OR_NOT:
+            for (int i = 0; i < size; i++) {
+              result[i] = result[i] || !other[i];
+            }
+            break;
+          case OPERATOR_AND_NOT:
+            for (int i = 0; i < size; i++) {
+              result[i] = result[i] && !other[i];
+            }
+            break;
+          case OPERATOR_XOR:
+            for (int i = 0; i < size; i++) {
+              result[i] = result[i] ^ other[i];
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    } else if (function == FUNC_TRUE) {
+      Arrays.fill(result, 0, size, true);
+    } else {
+      int index = batch.getRowMeta().indexOfValue(leftValuename);
+      boolean[] nulls = batch.getNulls(index);
+
+      if (function == FUNC_NULL || function == FUNC_NOT_NULL) {
+        boolean wanted = function == FUNC_NULL;
+        for (int i = 0; i < size; i++) {
+          result[i] = nulls[i] == wanted;
+        }
+      } else {
+        // Null values are smaller than any other value, just like in IValueMeta.compare()
+        //
+        int[] cmp = new int[size];
+        Object constant = rightExact.getValueData();
+        if (batch.getColumnType(index) == RowBatch.ColumnType.DOUBLE) {
+          double[] values = batch.getDoubles(index);
+          double right = ((Double) constant).doubleValue();
+          for (int i = 0; i < size; i++) {
+            cmp[i] = nulls[i] ? -1 : Double.compare(values[i], right);
+          }
+        } else {
+          long[] values = batch.getLongs(index);
+          long right =
+              constant instanceof Date ? ((Date) constant).getTime() : ((Long) constant).longValue();
+          for (int i = 0; i < size; i++) {
+            cmp[i] = nulls[i] ? -1 : Long.compare(values[i], right);
+          }
+        }
+
+        for (int i = 0; i < size; i++) {
+          switch (function) {
+            case FUNC_EQUAL:
+              result[i] = cmp[i] == 0;
+              break;
+            case FUNC_NOT_EQUAL:
+              result[i] = cmp[i] != 0;
+              break;
+            case FUNC_SMALLER:
+              result[i] = !nulls[i] && cmp[i] < 0;
+              break;
+            case FUNC_SMALLER_EQUAL:
+              result[i] = !nulls[i] && cmp[i] <= 0;
+              break;
+            case FUNC_LARGER:
+              result[i] = cmp[i] > 0;
+              break;
+            case FUNC_LARGER_EQUAL:
+              result[i] = cmp[i] >= 0;
+              break;
+            default:
+              break;
+          }
+        }
+      }
+    }
+
+    if (isNegated()) {
+      for (int i = 0; i < size; i++) {
+        result[i] = !result[i];
+      }
+    }
+  }
+
   public void addCondition(Condition cb) {
     if (isAtomic() && getLeftValuename() != null) {
       /*
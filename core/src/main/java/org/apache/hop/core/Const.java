@@ -91,6 +91,9 @@ public class Const {
   /** Size of rowset: bigger = faster for large amounts of data */
   public static final int ROWS_IN_ROWSET = 10000;
 
+  /** The maximum number of rows a transform reads at once when it processes batches of rows */
+  public static final int ROWS_IN_BATCH = 1000;
+
   /** Fetch size in rows when querying a database */
   public static final int FETCH_SIZE = 10000;
 
@@ -686,6 +689,19 @@ public class Const {
   public static final String HOP_AGGREGATION_ALL_NULLS_ARE_ZERO =
       "HOP_AGGREGATION_ALL_NULLS_ARE_ZERO";
 
+  @Variable(
+      value = "12",
+      description =
+          "The precision (4-18) of the sketches used by the approximate distinct count aggregations. Each sketch uses 2^precision bytes and has a standard error of about 1.04/sqrt(2^precision): 1.6% for the default of 12.")
+  public static final String HOP_AGGREGATION_HLL_PRECISION = "HOP_AGGREGATION_HLL_PRECISION";
+
+  @Variable(
+      value = "200",
+      description =
+          "The accuracy parameter k (8-65535) of the sketches used by the approximate median and percentile aggregations. A sketch keeps about 3k values and has a rank error of about 1.65/k: 0.8% for the default of 200.")
+  public static final String HOP_AGGREGATION_QUANTILE_SKETCH_K =
+      "HOP_AGGREGATION_QUANTILE_SKETCH_K";
+
   /** The name of the variable containing an alternative default timestamp format */
   @Variable(
       description = "The name of the variable containing an alternative default timestamp format")
@@ -895,8 +911,8 @@ public class Const {
   public static final String CONNECTION_GROUP = "CONNECTION_GROUP";
 
   /**
-   * This is the default wait time used for DynamicWaitTimes can be overwritten by a runtime
-   * configuration
+   * This is the default maximum time a transform waits for input rows before it checks its own
+   * state again. It can be overwritten by a runtime configuration.
    */
   @Variable(
       scope = VariableScope.ENGINE,
@@ -905,6 +921,32 @@ public class Const {
   public static final String HOP_DEFAULT_BUFFER_POLLING_WAITTIME =
       "HOP_DEFAULT_BUFFER_POLLING_WAITTIME";
 
+  /**
+   * The percentage of the maximum JVM heap which is shared between all the transforms which keep
+   * rows in memory and spill them to disk when they run out of their memory budget.
+   */
+  @Variable(
+      scope = VariableScope.SYSTEM,
+      value = "50",
+      description =
+          "The percentage of the maximum JVM heap shared by transforms which spill rows to disk"
+              + " when they run out of memory budget (Sort rows, Group by, ...)")
+  public static final String HOP_TRANSFORM_MEMORY_POOL_PERCENTAGE =
+      "HOP_TRANSFORM_MEMORY_POOL_PERCENTAGE";
+
+  /**
+   * The percentage of the maximum JVM heap which can be used by lookup data which is shared between
+   * transform copies and pipeline executions.
+   */
+  @Variable(
+      scope = VariableScope.SYSTEM,
+      value = "25",
+      description =
+          "The percentage of the maximum JVM heap which can be used by lookup caches which are shared"
+              + " between transforms and pipeline executions")
+  public static final String HOP_SHARED_CACHE_MEMORY_PERCENTAGE =
+      "HOP_SHARED_CACHE_MEMORY_PERCENTAGE";
+
   /**
    * rounds double f to any number of places after decimal point Does arithmetic using BigDecimal
    * class to avoid integer overflow while rounding
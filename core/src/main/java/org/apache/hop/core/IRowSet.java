@@ -113,4 +113,14 @@ public interface IRowSet {
 
   /** Clear this rowset: remove all rows and remove the "done" flag. */
   void clear();
+
+  /**
+   * Set the selector of the transform reading from this row set. The row set wakes up the selector
+   * when a row is added or when it's done.
+   *
+   * @param selector the selector to wake up
+   */
+  default void setSelector(RowSetSelector selector) {
+    // Row sets which don't notify are picked up after the wait time of the reading transform
+  }
 }
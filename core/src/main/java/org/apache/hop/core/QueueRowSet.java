@@ -54,6 +54,7 @@ public class QueueRowSet extends BaseRowSet implements Comparable<IRowSet>, IRow
   public boolean putRow(IRowMeta rowMeta, Object[] rowData) {
     this.rowMeta = rowMeta;
     buffer.add(rowData);
+    notifySelector();
     return true;
   }
 
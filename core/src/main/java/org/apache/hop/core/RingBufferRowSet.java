@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free buffer of rows for exactly one writing thread and one reading thread. The rows are
+ * kept in a ring buffer indexed by two sequence counters which are padded to their own cache line
+ * to prevent false sharing between the producer and the consumer.
+ *
+ * <p>When the buffer is full (or empty) the waiting thread first spins for a short while, then
+ * yields and finally parks until the other side signals progress or the timeout expires.
+ *
+ * <p>This row set is NOT safe to use when more than one thread puts rows into it or more than one
+ * thread reads from it.
+ */
+public class RingBufferRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
+
+  /** The number of times we busy-spin before yielding the CPU, spinning is useless on 1 CPU */
+  private static final int SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+  /** The number of times we yield before parking the thread */
+  private static final int YIELD_TRIES = 16;
+
+  private final Object[][] buffer;
+  private final int mask;
+  private final int capacity;
+
+  /** The sequence of the next row to read, only written by the consumer */
+  private final Sequence head;
+
+  /** The sequence of the next row to write, only written by the producer */
+  private final Sequence tail;
+
+  /** The last known value of the head, only used by the producer */
+  private long cachedHead;
+
+  /** The last known value of the tail, only used by the consumer */
+  private long cachedTail;
+
+  private volatile Thread waitingProducer;
+  private volatile Thread waitingConsumer;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new ring buffer row set holding at most maxSize rows.
+   *
+   * @param maxSize the maximum number of rows in the buffer
+   */
+  public RingBufferRowSet(int maxSize) {
+    super();
+
+    capacity = Math.max(1, maxSize);
+
+    // The ring buffer itself has a power of 2 size to allow for cheap index calculation
+    //
+    int bufferSize = Integer.highestOneBit(capacity);
+    if (bufferSize < capacity) {
+      bufferSize <<= 1;
+    }
+    buffer = new Object[bufferSize][];
+    mask = bufferSize - 1;
+
+    head = new Sequence();
+    tail = new Sequence();
+
+    timeoutGet =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_GET_TIMEOUT), Const.TIMEOUT_GET_MILLIS);
+    timeoutPut =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_PUT_TIMEOUT), Const.TIMEOUT_PUT_MILLIS);
+  }
+
+  @Override
+  public boolean putRow(IRowMeta rowMeta, Object[] rowData) {
+    return putRowWait(rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public boolean putRowWait(IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu) {
+    this.rowMeta = rowMeta;
+
+    long sequence = tail.value;
+    if (sequence - cachedHead >= capacity) {
+      cachedHead = head.value;
+      if (sequence - cachedHead >= capacity && !waitForRoom(sequence, tu.toNanos(time))) {
+        return false;
+      }
+    }
+
+    buffer[(int) sequence & mask] = rowData;
+    tail.value = sequence + 1;
+    notifySelector();
+
+    // Wake up the consumer if it's parked waiting for this row
+    //
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+    return true;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait(timeoutGet, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    long sequence = head.value;
+    if (sequence >= cachedTail) {
+      cachedTail = tail.value;
+      if (sequence >= cachedTail) {
+        return null;
+      }
+    }
+    return takeRow(sequence);
+  }
+
+  @Override
+  public Object[] getRowWait(long timeout, TimeUnit tu) {
+    long sequence = head.value;
+    if (sequence >= cachedTail) {
+      cachedTail = tail.value;
+      if (sequence >= cachedTail && !waitForRows(sequence, tu.toNanos(timeout))) {
+        return null;
+      }
+    }
+    return takeRow(sequence);
+  }
+
+  private Object[] takeRow(long sequence) {
+    int index = (int) sequence & mask;
+    Object[] row = buffer[index];
+    buffer[index] = null; // prevent any hold-up to GC
+    head.value = sequence + 1;
+
+    // Wake up the producer if it's parked waiting for room in the buffer
+    //
+    Thread producer = waitingProducer;
+    if (producer != null) {
+      LockSupport.unpark(producer);
+    }
+    return row;
+  }
+
+  /**
+   * Wait until the consumer made room in the buffer for the row with the given sequence.
+   *
+   * @return true if there is room, false if we timed out or got interrupted.
+   */
+  private boolean waitForRoom(long sequence, long timeoutNanos) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int tries = 0;
+    while (true) {
+      if (tries < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+        Thread.yield();
+      } else {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        waitingProducer = Thread.currentThread();
+        // Re-check after announcing ourselves so that we can't miss a wake-up
+        //
+        cachedHead = head.value;
+        if (sequence - cachedHead < capacity) {
+          waitingProducer = null;
+          return true;
+        }
+        LockSupport.parkNanos(this, remaining);
+        waitingProducer = null;
+        if (Thread.interrupted()) {
+          return false;
+        }
+      }
+      tries++;
+
+      cachedHead = head.value;
+      if (sequence - cachedHead < capacity) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Wait until the producer wrote the row with the given sequence. We stop waiting early when the
+   * producer signals that it is done.
+   *
+   * @return true if a row is available, false if we timed out, got interrupted or no more rows are
+   *     coming.
+   */
+  private boolean waitForRows(long sequence, long timeoutNanos) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int tries = 0;
+    while (true) {
+      if (done.get()) {
+        // The producer might have added a last row right before setting the done flag
+        //
+        cachedTail = tail.value;
+        return sequence < cachedTail;
+      }
+      if (tries < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+        Thread.yield();
+      } else {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        waitingConsumer = Thread.currentThread();
+        // Re-check after announcing ourselves so that we can't miss a wake-up
+        //
+        cachedTail = tail.value;
+        if (sequence < cachedTail) {
+          waitingConsumer = null;
+          return true;
+        }
+        if (done.get()) {
+          waitingConsumer = null;
+          continue;
+        }
+        LockSupport.parkNanos(this, remaining);
+        waitingConsumer = null;
+        if (Thread.interrupted()) {
+          return false;
+        }
+      }
+      tries++;
+
+      cachedTail = tail.value;
+      if (sequence < cachedTail) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public void setDone() {
+    super.setDone();
+
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  @Override
+  public int size() {
+    long size = tail.value - head.value;
+    return (int) Math.max(0, Math.min(size, capacity));
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < buffer.length; i++) {
+      buffer[i] = null;
+    }
+    head.value = tail.value;
+    cachedHead = head.value;
+    cachedTail = tail.value;
+    done.set(false);
+  }
+
+  /** Padding in front of the sequence value */
+  @SuppressWarnings("unused")
+  private static class LeftPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+  }
+
+  /** The sequence value itself */
+  private static class SequenceValue extends LeftPadding {
+    protected volatile long value;
+  }
+
+  /**
+   * A sequence counter which occupies a cache line on its own. Field layout follows the class
+   * hierarchy so the padding can't be re-ordered away by the JVM.
+   */
+  @SuppressWarnings("unused")
+  private static final class Sequence extends SequenceValue {
+    protected long p11, p12, p13, p14, p15, p16, p17;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lets the one thread reading from a number of row sets wait until any of them has rows or is done,
+ * instead of polling the row sets one after the other with a timeout. Row sets wake up their
+ * selector when a row is added or when they are done, see {@link
+ * IRowSet#setSelector(RowSetSelector)}.
+ *
+ * <p>Only a single thread can wait on a selector at any given time.
+ */
+public class RowSetSelector {
+
+  private volatile Thread waiter;
+
+  /** Wake up the waiting thread, if there is one. Called by the row sets. */
+  public void wakeUp() {
+    Thread thread = waiter;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * Wait until any of the given row sets has rows or is done. The row sets are attached to this
+   * selector.
+   *
+   * @param rowSets the row sets to wait for
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if a row set has rows or is done, false if we timed out or got interrupted
+   */
+  public boolean await(List<IRowSet> rowSets, long timeout, TimeUnit unit) {
+    if (isReady(rowSets)) {
+      return true;
+    }
+    for (int i = 0; i < rowSets.size(); i++) {
+      rowSets.get(i).setSelector(this);
+    }
+
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    waiter = Thread.currentThread();
+    try {
+      while (true) {
+        // Re-check after announcing ourselves so that we can't miss a wake-up
+        //
+        if (isReady(rowSets)) {
+          return true;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.interrupted()) {
+          return isReady(rowSets);
+        }
+      }
+    } finally {
+      waiter = null;
+    }
+  }
+
+  /**
+   * See if any of the given row sets has rows or is done.
+   *
+   * @param rowSets the row sets to check
+   * @return true if reading from one of the row sets will not block
+   */
+  public boolean isReady(List<IRowSet> rowSets) {
+    for (int i = 0; i < rowSets.size(); i++) {
+      IRowSet rowSet = rowSets.get(i);
+      if (rowSet.size() > 0 || rowSet.isDone()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.cache;
+
+import java.util.HashMap;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A cache holding at most a maximum number of entries which can expire after a time to live. When
+ * the cache is full an entry is evicted according to the {@link CacheEvictionPolicy}. The cache
+ * keeps count of the hits, misses, evictions and expirations.
+ *
+ * <p>The entries are linked in access queues so that every operation takes constant time. This
+ * class is not thread-safe, it's meant to be used by a single transform copy.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public abstract class BoundedCache<K, V> {
+
+  protected final int maxSize;
+  private final long timeToLive;
+  private final LongSupplier clock;
+  private final HashMap<K, Node<K, V>> data;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long expirations;
+
+  protected BoundedCache(int maxSize, long timeToLive, LongSupplier clock) {
+    this.maxSize = maxSize;
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+    this.data = new HashMap<>();
+  }
+
+  /**
+   * Create a new cache
+   *
+   * @param policy The eviction policy
+   * @param maxSize The maximum number of entries, 0 or less for an unbounded cache
+   * @param timeToLive The number of milliseconds after which an entry expires, 0 or less to never
+   *     expire
+   * @param <K> The type of the keys
+   * @param <V> The type of the values
+   * @return The new cache
+   */
+  public static <K, V> BoundedCache<K, V> create(
+      CacheEvictionPolicy policy, int maxSize, long timeToLive) {
+    return create(policy, maxSize, timeToLive, System::currentTimeMillis);
+  }
+
+  static <K, V> BoundedCache<K, V> create(
+      CacheEvictionPolicy policy, int maxSize, long timeToLive, LongSupplier clock) {
+    if (policy == CacheEvictionPolicy.TINY_LFU && maxSize > 0) {
+      return new TinyLfuCache<>(maxSize, timeToLive, clock);
+    }
+    return new LruCache<>(maxSize, timeToLive, clock);
+  }
+
+  /**
+   * Get the value of a key
+   *
+   * @param key The key
+   * @return The value or null if the key is not in the cache or if it expired
+   */
+  public V get(K key) {
+    recordAccess(key);
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      misses++;
+      return null;
+    }
+    if (isExpired(node)) {
+      remove(node);
+      expirations++;
+      misses++;
+      return null;
+    }
+    hits++;
+    onHit(node);
+    return node.value;
+  }
+
+  /**
+   * Add or replace the value of a key. If the cache is full this evicts an entry.
+   *
+   * @param key The key
+   * @param value The value
+   */
+  public void put(K key, V value) {
+    long now = timeToLive > 0 ? clock.getAsLong() : 0L;
+    Node<K, V> node = data.get(key);
+    if (node != null) {
+      node.value = value;
+      node.writeTime = now;
+      onHit(node);
+      return;
+    }
+    recordAccess(key);
+    node = new Node<>(key, value, now);
+    data.put(key, node);
+    onInsert(node);
+    while (maxSize > 0 && data.size() > maxSize) {
+      remove(selectVictim());
+      evictions++;
+    }
+  }
+
+  /**
+   * Remove a key from the cache
+   *
+   * @param key The key
+   */
+  public void invalidate(K key) {
+    Node<K, V> node = data.get(key);
+    if (node != null) {
+      remove(node);
+    }
+  }
+
+  /** Remove all the entries from the cache */
+  public void clear() {
+    data.clear();
+    onClear();
+  }
+
+  /**
+   * Pass all the entries which didn't expire to the given action, in no particular order. This
+   * doesn't count as an access of the entries.
+   *
+   * @param action The action to perform on every key and value
+   */
+  public void forEach(BiConsumer<K, V> action) {
+    for (Node<K, V> node : data.values()) {
+      if (!isExpired(node)) {
+        action.accept(node.key, node.value);
+      }
+    }
+  }
+
+  private boolean isExpired(Node<K, V> node) {
+    return timeToLive > 0 && clock.getAsLong() - node.writeTime >= timeToLive;
+  }
+
+  private void remove(Node<K, V> node) {
+    data.remove(node.key);
+    onRemove(node);
+  }
+
+  /** Called for every read and for every new key */
+  protected void recordAccess(K key) {}
+
+  /** Called when an existing entry is read or written */
+  protected abstract void onHit(Node<K, V> node);
+
+  /** Called when a new entry is added */
+  protected abstract void onInsert(Node<K, V> node);
+
+  /** Called when an entry is removed */
+  protected abstract void onRemove(Node<K, V> node);
+
+  /** Called when all the entries are removed */
+  protected abstract void onClear();
+
+  /** Select the entry to evict when the cache is over its maximum size */
+  protected abstract Node<K, V> selectVictim();
+
+  /**
+   * Gets the number of entries
+   *
+   * @return The number of entries, including the ones which expired but weren't removed yet
+   */
+  public int size() {
+    return data.size();
+  }
+
+  /**
+   * Gets maxSize
+   *
+   * @return value of maxSize, 0 or less for an unbounded cache
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Gets hits
+   *
+   * @return The number of reads which found a value
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets misses
+   *
+   * @return The number of reads which didn't find a value, including the expired ones
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Gets evictions
+   *
+   * @return The number of entries removed to make room for new ones
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Gets expirations
+   *
+   * @return The number of entries removed because they expired
+   */
+  public long getExpirations() {
+    return expirations;
+  }
+
+  /** An entry of the cache, linked in one of the access queues of the eviction policy */
+  protected static final class Node<K, V> {
+    final K key;
+    V value;
+    long writeTime;
+    int queue;
+    Node<K, V> previous;
+    Node<K, V> next;
+
+    Node(K key, V value, long writeTime) {
+      this.key = key;
+      this.value = value;
+      this.writeTime = writeTime;
+    }
+  }
+
+  /** A doubly linked list of nodes, from the least to the most recently used */
+  protected static final class AccessQueue<K, V> {
+    private final Node<K, V> head = new Node<>(null, null, 0L);
+    private int size;
+
+    AccessQueue() {
+      head.previous = head;
+      head.next = head;
+    }
+
+    void addLast(Node<K, V> node) {
+      node.previous = head.previous;
+      node.next = head;
+      head.previous.next = node;
+      head.previous = node;
+      size++;
+    }
+
+    void remove(Node<K, V> node) {
+      node.previous.next = node.next;
+      node.next.previous = node.previous;
+      node.previous = null;
+      node.next = null;
+      size--;
+    }
+
+    void moveToLast(Node<K, V> node) {
+      remove(node);
+      addLast(node);
+    }
+
+    Node<K, V> peekFirst() {
+      return size == 0 ? null : head.next;
+    }
+
+    Node<K, V> peekLast() {
+      return size == 0 ? null : head.previous;
+    }
+
+    void clear() {
+      head.previous = head;
+      head.next = head;
+      size = 0;
+    }
+
+    int size() {
+      return size;
+    }
+  }
+}
@@ -15,15 +15,17 @@
  * limitations under the License.
  */
 
-package org.apache.hop.pipeline.transforms.sort;
+package org.apache.hop.core.cache;
 
-/** Keeps track of which temporary file a row is coming from */
-public class RowTempFile {
-  public Object[] row;
-  public int fileNumber;
+/** The way a {@link BoundedCache} chooses which entry to remove when it's full. */
+public enum CacheEvictionPolicy {
+  /** Remove the least recently used entry */
+  LRU,
 
-  public RowTempFile(Object[] row, int fileNumber) {
-    this.row = row;
-    this.fileNumber = fileNumber;
-  }
+  /**
+   * Window TinyLFU: new entries enter a small LRU window, they're only admitted to the main cache
+   * if they were used more often recently than the entry they would replace. This keeps popular
+   * entries in the cache when a lot of keys are only used once.
+   */
+  TINY_LFU
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.cache;
+
+import org.apache.hop.core.exception.HopException;
+
+/**
+ * Loads the value of a shared cache when it's not in the {@link SharedCacheManager} yet or when it
+ * expired.
+ *
+ * @param <T> The type of the cached value
+ */
+public interface ISharedCacheLoader<T> {
+
+  /**
+   * Load the value to cache. The value is shared between threads so it must not be modified after
+   * it's returned.
+   *
+   * @return The value to cache
+   * @throws HopException In case the value can't be loaded
+   */
+  T load() throws HopException;
+
+  /**
+   * Estimate the memory used by a value returned by {@link #load()}.
+   *
+   * @param value The loaded value
+   * @return The estimated number of bytes the value takes on the heap
+   */
+  long estimateSize(T value);
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.cache;
+
+import java.util.function.LongSupplier;
+
+/** A cache which evicts the least recently used entry. */
+class LruCache<K, V> extends BoundedCache<K, V> {
+
+  private final AccessQueue<K, V> queue = new AccessQueue<>();
+
+  LruCache(int maxSize, long timeToLive, LongSupplier clock) {
+    super(maxSize, timeToLive, clock);
+  }
+
+  @Override
+  protected void onHit(Node<K, V> node) {
+    queue.moveToLast(node);
+  }
+
+  @Override
+  protected void onInsert(Node<K, V> node) {
+    queue.addLast(node);
+  }
+
+  @Override
+  protected void onRemove(Node<K, V> node) {
+    queue.remove(node);
+  }
+
+  @Override
+  protected void onClear() {
+    queue.clear();
+  }
+
+  @Override
+  protected Node<K, V> selectVictim() {
+    return queue.peekFirst();
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A named value in the {@link SharedCacheManager} together with the statistics about its use. Once
+ * loaded the value never changes: when it expires or gets invalidated a new entry is loaded and the
+ * users of the old entry keep on using the old value.
+ *
+ * @param <T> The type of the cached value
+ */
+public class SharedCacheEntry<T> {
+
+  private final String name;
+
+  private T value;
+  private long size;
+  private long loadTime;
+  private long expiryTime;
+  private volatile boolean loaded;
+  private volatile long lastAccessTime;
+
+  private final LongAdder nrAttached = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /** Held by the manager while the value is loaded, other users of the name wait for it */
+  final ReentrantLock loadLock = new ReentrantLock();
+
+  SharedCacheEntry(String name) {
+    this.name = name;
+  }
+
+  /** Called by the manager, holding the lock on this entry, once the value is loaded */
+  void loaded(T value, long size, long now, long timeToLive) {
+    this.value = value;
+    this.size = Math.max(0, size);
+    this.loadTime = now;
+    this.expiryTime = timeToLive > 0 ? now + timeToLive : 0;
+    this.lastAccessTime = now;
+    this.loaded = true;
+  }
+
+  /** Called by the manager when a user attaches to the loaded value */
+  void attached(long now) {
+    nrAttached.increment();
+    lastAccessTime = now;
+  }
+
+  boolean isExpired(long now) {
+    return expiryTime > 0 && now >= expiryTime;
+  }
+
+  /**
+   * Add the number of lookups in the cached value to the statistics of this entry.
+   *
+   * @param hits The number of lookups which found a value
+   * @param misses The number of lookups which didn't find a value
+   */
+  public void recordLookups(long hits, long misses) {
+    this.hits.add(hits);
+    this.misses.add(misses);
+  }
+
+  /**
+   * Gets name
+   *
+   * @return value of name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets value
+   *
+   * @return The cached value, null if it's not loaded yet
+   */
+  public T getValue() {
+    return loaded ? value : null;
+  }
+
+  /**
+   * Gets loaded
+   *
+   * @return true if the value is loaded
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Gets size
+   *
+   * @return The estimated number of bytes the cached value takes on the heap
+   */
+  public long getSize() {
+    return loaded ? size : 0;
+  }
+
+  /**
+   * Gets loadTime
+   *
+   * @return The time (in ms since the epoch) at which the value was loaded
+   */
+  public long getLoadTime() {
+    return loaded ? loadTime : 0;
+  }
+
+  /**
+   * Gets expiryTime
+   *
+   * @return The time (in ms since the epoch) at which the value expires, 0 if it never expires
+   */
+  public long getExpiryTime() {
+    return loaded ? expiryTime : 0;
+  }
+
+  /**
+   * Gets lastAccessTime
+   *
+   * @return The last time (in ms since the epoch) the value was loaded or attached to
+   */
+  public long getLastAccessTime() {
+    return lastAccessTime;
+  }
+
+  /**
+   * Gets nrAttached
+   *
+   * @return The number of times the loaded value was reused instead of loaded again
+   */
+  public long getNrAttached() {
+    return nrAttached.sum();
+  }
+
+  /**
+   * Gets hits
+   *
+   * @return The number of lookups in the cached value which found a value
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Gets misses
+   *
+   * @return The number of lookups in the cached value which didn't find a value
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the hit ratio
+   *
+   * @return The fraction of the lookups which found a value, 0 if there were no lookups
+   */
+  public double getHitRatio() {
+    long nrHits = hits.sum();
+    long total = nrHits + misses.sum();
+    return total == 0 ? 0.0 : (double) nrHits / total;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
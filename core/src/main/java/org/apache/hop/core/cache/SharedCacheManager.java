@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.cache;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.exception.HopException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps read-only lookup data like the rows of a lookup table in memory so that it can be shared
+ * by all the copies of a transform and by later executions of the same pipeline in this JVM.
+ *
+ * <p>Every value is stored under a name which should describe the data completely, for example the
+ * connection and the SQL used to read the data. The first user loads the value, concurrent users of
+ * the same name wait for it and later users attach to it. A value can expire after a time to live
+ * and it can be invalidated explicitly. The total estimated size of the values is limited (see
+ * {@link Const#HOP_SHARED_CACHE_MEMORY_PERCENTAGE}): when a new value doesn't fit, the least
+ * recently used values are removed from the manager. Users which are attached to a removed value
+ * keep on using it until they're done.
+ */
+public class SharedCacheManager {
+
+  private static SharedCacheManager instance;
+
+  private final long maxSize;
+  private final LongSupplier clock;
+  private final ConcurrentHashMap<String, SharedCacheEntry<?>> entries;
+
+  /**
+   * Create a shared cache manager.
+   *
+   * @param maxSize The maximum total estimated size of the cached values in bytes
+   */
+  public SharedCacheManager(long maxSize) {
+    this(maxSize, System::currentTimeMillis);
+  }
+
+  SharedCacheManager(long maxSize, LongSupplier clock) {
+    this.maxSize = maxSize;
+    this.clock = clock;
+    this.entries = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Get the shared cache manager of this JVM.
+   *
+   * @return The JVM-wide shared cache manager
+   */
+  public static synchronized SharedCacheManager getInstance() {
+    if (instance == null) {
+      int percentage =
+          Const.toInt(
+              Const.getEnvironmentVariable(Const.HOP_SHARED_CACHE_MEMORY_PERCENTAGE, null), 25);
+      percentage = Math.max(1, Math.min(100, percentage));
+      instance = new SharedCacheManager(Runtime.getRuntime().maxMemory() / 100 * percentage);
+    }
+    return instance;
+  }
+
+  /**
+   * Get the value cached under the given name. If there is no such value yet or if it expired, the
+   * value is loaded in the calling thread while other threads asking for the same name wait.
+   *
+   * @param name The name describing the cached data
+   * @param timeToLive The number of milliseconds after which a loaded value expires, 0 or less to
+   *     never expire
+   * @param loader The loader of the value
+   * @param <T> The type of the cached value
+   * @return The entry with the loaded value
+   * @throws HopException In case the value can't be loaded
+   */
+  @SuppressWarnings("unchecked")
+  public <T> SharedCacheEntry<T> getOrLoad(
+      String name, long timeToLive, ISharedCacheLoader<T> loader) throws HopException {
+    while (true) {
+      SharedCacheEntry<T> entry =
+          (SharedCacheEntry<T>) entries.computeIfAbsent(name, SharedCacheEntry::new);
+      lock(entry);
+      try {
+        if (entries.get(name) != entry) {
+          // Invalidated or evicted while we were waiting for the loader
+          //
+          continue;
+        }
+        long now = clock.getAsLong();
+        if (entry.isLoaded()) {
+          if (!entry.isExpired(now)) {
+            entry.attached(now);
+            return entry;
+          }
+          entries.remove(name, entry);
+          continue;
+        }
+        try {
+          T value = loader.load();
+          entry.loaded(value, loader.estimateSize(value), clock.getAsLong(), timeToLive);
+        } catch (HopException | RuntimeException e) {
+          entries.remove(name, entry);
+          throw e;
+        }
+      } finally {
+        entry.loadLock.unlock();
+      }
+      evict(entry);
+      return entry;
+    }
+  }
+
+  /**
+   * Take the load lock of an entry. Waiting for another thread loading the value is done through
+   * {@link ForkJoinPool#managedBlock} so that a worker pool can start another thread meanwhile.
+   */
+  private static void lock(SharedCacheEntry<?> entry) throws HopException {
+    LoadLockBlocker blocker = new LoadLockBlocker(entry);
+    if (blocker.isReleasable()) {
+      return;
+    }
+    try {
+      ForkJoinPool.managedBlock(blocker);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException(
+          "Interrupted while waiting for the shared cache '" + entry.getName() + "' to load", e);
+    }
+  }
+
+  private static class LoadLockBlocker implements ForkJoinPool.ManagedBlocker {
+    private final SharedCacheEntry<?> entry;
+    private boolean locked;
+
+    LoadLockBlocker(SharedCacheEntry<?> entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (!locked) {
+        entry.loadLock.lockInterruptibly();
+        locked = true;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (!locked) {
+        locked = entry.loadLock.tryLock();
+      }
+      return locked;
+    }
+  }
+
+  /**
+   * Remove expired values and, when the total size is over the limit, the least recently used
+   * values. The value which was just loaded is only removed if it doesn't fit on its own.
+   */
+  private synchronized void evict(SharedCacheEntry<?> loaded) {
+    long now = clock.getAsLong();
+    long total = 0;
+    List<SharedCacheEntry<?>> candidates = new ArrayList<>();
+    for (SharedCacheEntry<?> entry : entries.values()) {
+      if (!entry.isLoaded()) {
+        continue;
+      }
+      if (entry.isExpired(now)) {
+        entries.remove(entry.getName(), entry);
+        continue;
+      }
+      total += entry.getSize();
+      if (entry != loaded) {
+        candidates.add(entry);
+      }
+    }
+    candidates.sort((a, b) -> Long.compare(a.getLastAccessTime(), b.getLastAccessTime()));
+    for (SharedCacheEntry<?> entry : candidates) {
+      if (total <= maxSize) {
+        break;
+      }
+      if (entries.remove(entry.getName(), entry)) {
+        total -= entry.getSize();
+      }
+    }
+    if (total > maxSize) {
+      entries.remove(loaded.getName(), loaded);
+    }
+  }
+
+  /**
+   * Remove the value cached under the given name. Users attached to the value keep on using it,
+   * the next user loads it again.
+   *
+   * @param name The name of the cached value
+   * @return true if a value was removed
+   */
+  public boolean invalidate(String name) {
+    return entries.remove(name) != null;
+  }
+
+  /**
+   * Remove all the values of which the name starts with the given prefix.
+   *
+   * @param prefix The prefix of the names to remove, for example the name of a connection
+   * @return The number of removed values
+   */
+  public int invalidateAll(String prefix) {
+    int nrRemoved = 0;
+    for (String name : new ArrayList<>(entries.keySet())) {
+      if (name.startsWith(prefix) && entries.remove(name) != null) {
+        nrRemoved++;
+      }
+    }
+    return nrRemoved;
+  }
+
+  /** Remove all the cached values */
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  /**
+   * Get the entry cached under the given name without loading or attaching to it.
+   *
+   * @param name The name of the cached value
+   * @return The loaded entry or null if there is none
+   */
+  public SharedCacheEntry<?> getEntry(String name) {
+    SharedCacheEntry<?> entry = entries.get(name);
+    return entry != null && entry.isLoaded() ? entry : null;
+  }
+
+  /**
+   * Gets the entries, for example to report on the hit ratio and the memory of every cache.
+   *
+   * @return A snapshot of the loaded entries
+   */
+  public List<SharedCacheEntry<?>> getEntries() {
+    List<SharedCacheEntry<?>> list = new ArrayList<>();
+    for (SharedCacheEntry<?> entry : entries.values()) {
+      if (entry.isLoaded()) {
+        list.add(entry);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Gets the total size
+   *
+   * @return The total estimated size of the loaded values in bytes
+   */
+  public long getTotalSize() {
+    long total = 0;
+    for (SharedCacheEntry<?> entry : entries.values()) {
+      total += entry.getSize();
+    }
+    return total;
+  }
+
+  /**
+   * Gets maxSize
+   *
+   * @return value of maxSize
+   */
+  public long getMaxSize() {
+    return maxSize;
+  }
+}
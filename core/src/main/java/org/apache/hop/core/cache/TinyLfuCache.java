@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.cache;
+
+import org.apache.hop.core.sketch.FrequencySketch;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A Window TinyLFU cache. New entries go to a window which takes 1% of the cache and is evicted in
+ * LRU order. An entry leaving the window becomes a candidate for the main cache, a segmented LRU
+ * with a probation and a protected queue. The candidate only gets in if a frequency sketch says it
+ * was used more often than the victim it would replace. Entries which are read again while in
+ * probation are promoted to the protected queue which takes 80% of the main cache.
+ */
+class TinyLfuCache<K, V> extends BoundedCache<K, V> {
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final AccessQueue<K, V> window = new AccessQueue<>();
+  private final AccessQueue<K, V> probation = new AccessQueue<>();
+  private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+
+  private final int maxWindow;
+  private final int maxProtected;
+  private final FrequencySketch sketch;
+
+  TinyLfuCache(int maxSize, long timeToLive, LongSupplier clock) {
+    super(maxSize, timeToLive, clock);
+    maxWindow = Math.max(1, maxSize / 100);
+    maxProtected = Math.max(0, (maxSize - maxWindow) * 8 / 10);
+    sketch = new FrequencySketch(maxSize);
+  }
+
+  @Override
+  protected void recordAccess(K key) {
+    sketch.increment(key);
+  }
+
+  @Override
+  protected void onHit(Node<K, V> node) {
+    switch (node.queue) {
+      case WINDOW:
+        window.moveToLast(node);
+        break;
+      case PROBATION:
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedQueue.addLast(node);
+        // Demote the least recently used protected entry if there are too many now
+        //
+        if (protectedQueue.size() > maxProtected) {
+          Node<K, V> demoted = protectedQueue.peekFirst();
+          protectedQueue.remove(demoted);
+          demoted.queue = PROBATION;
+          probation.addLast(demoted);
+        }
+        break;
+      default:
+        protectedQueue.moveToLast(node);
+        break;
+    }
+  }
+
+  @Override
+  protected void onInsert(Node<K, V> node) {
+    node.queue = WINDOW;
+    window.addLast(node);
+    if (window.size() > maxWindow) {
+      Node<K, V> candidate = window.peekFirst();
+      window.remove(candidate);
+      candidate.queue = PROBATION;
+      probation.addLast(candidate);
+    }
+  }
+
+  @Override
+  protected void onRemove(Node<K, V> node) {
+    queueOf(node).remove(node);
+  }
+
+  @Override
+  protected void onClear() {
+    window.clear();
+    probation.clear();
+    protectedQueue.clear();
+  }
+
+  /**
+   * The candidate is the entry which just left the window, the victim the least recently used
+   * entry of the main cache. The one which was used least often according to the sketch goes.
+   */
+  @Override
+  protected Node<K, V> selectVictim() {
+    Node<K, V> candidate = probation.peekLast();
+    Node<K, V> victim = probation.peekFirst();
+    if (victim == null || victim == candidate) {
+      victim = protectedQueue.peekFirst();
+    }
+    if (victim == null) {
+      return candidate != null ? candidate : window.peekFirst();
+    }
+    if (candidate == null) {
+      return victim;
+    }
+    return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+  }
+
+  private AccessQueue<K, V> queueOf(Node<K, V> node) {
+    switch (node.queue) {
+      case WINDOW:
+        return window;
+      case PROBATION:
+        return probation;
+      default:
+        return protectedQueue;
+    }
+  }
+}
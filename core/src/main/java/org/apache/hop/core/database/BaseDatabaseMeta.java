@@ -68,6 +68,9 @@ public abstract class BaseDatabaseMeta implements Cloneable, IDatabase {
   /** The preferred schema to use if no other has been specified. */
   public static final String ATTRIBUTE_PREFERRED_SCHEMA_NAME = "PREFERRED_SCHEMA_NAME";
 
+  /** The number of rows the driver fetches per round trip when reading query results. */
+  public static final String ATTRIBUTE_FETCH_SIZE = "FETCH_SIZE";
+
   /**
    * Checkbox to allow you to configure if the database supports the boolean data type or not.
    * Defaults to "false" for backward compatibility!
@@ -1199,6 +1202,23 @@ public abstract class BaseDatabaseMeta implements Cloneable, IDatabase {
     attributes.put(ATTRIBUTE_PREFERRED_SCHEMA_NAME, preferredSchemaName);
   }
 
+  /**
+   * @return The number of rows to fetch per round trip when reading query results, empty or 0 to
+   *     use the default of Hop and the driver. Variables are allowed.
+   */
+  @Override
+  public String getFetchSize() {
+    return getAttributeProperty(ATTRIBUTE_FETCH_SIZE);
+  }
+
+  /**
+   * @param fetchSize The number of rows to fetch per round trip when reading query results.
+   */
+  @Override
+  public void setFetchSize(String fetchSize) {
+    attributes.put(ATTRIBUTE_FETCH_SIZE, fetchSize);
+  }
+
   /**
    * Verifies on the specified database connection if an index exists on the fields with the
    * specified name.
@@ -72,6 +72,10 @@ public class Database implements IVariables, ILoggingObject {
   private Statement selStmt;
   private PreparedStatement pstmt;
   private PreparedStatement prepStatementLookup;
+  private PreparedStatement prepStatementBatchLookup;
+  private int batchLookupSize;
+  private int batchLookupKeys;
+  private IRowMeta batchLookupRowMeta;
   private PreparedStatement prepStatementUpdate;
   private PreparedStatement prepStatementInsert;
   private PreparedStatement pstmtSeq;
@@ -462,6 +466,17 @@ public class Database implements IVariables, ILoggingObject {
       }
       prepStatementLookup = null;
     }
+    if (prepStatementBatchLookup != null) {
+      try {
+        prepStatementBatchLookup.close();
+      } catch (SQLException ex) {
+        // cannot do anything about this but log it
+        log.logError("Error closing batch lookup statement:" + Const.CR + ex.getMessage());
+        log.logError(Const.getStackTracker(ex));
+      }
+      prepStatementBatchLookup = null;
+      batchLookupRowMeta = null;
+    }
     if (prepStatementInsert != null) {
       try {
         prepStatementInsert.close();
@@ -987,6 +1002,37 @@ public class Database implements IVariables, ILoggingObject {
   }
 
   public String getInsertStatement(String schemaName, String tableName, IRowMeta fields) {
+    StringBuilder ins = getInsertStatementStart(schemaName, tableName, fields);
+    appendInsertPlaceholders(ins, fields);
+
+    return ins.toString();
+  }
+
+  /**
+   * Get an insert statement which inserts a number of rows at once: <code>INSERT INTO table (...)
+   * VALUES (?, ?), (?, ?), ...</code>
+   *
+   * @param schemaName The schema of the table
+   * @param tableName The name of the table
+   * @param fields The fields to insert
+   * @param nrRows The number of rows to insert with the statement
+   * @return The multi-row insert statement
+   */
+  public String getMultiRowInsertStatement(
+      String schemaName, String tableName, IRowMeta fields, int nrRows) {
+    StringBuilder ins = getInsertStatementStart(schemaName, tableName, fields);
+    for (int row = 0; row < nrRows; row++) {
+      if (row > 0) {
+        ins.append(",");
+      }
+      appendInsertPlaceholders(ins, fields);
+    }
+
+    return ins.toString();
+  }
+
+  private StringBuilder getInsertStatementStart(
+      String schemaName, String tableName, IRowMeta fields) {
     StringBuilder ins = new StringBuilder(128);
 
     String schemaTable = databaseMeta.getQuotedSchemaTableCombination(this, schemaName, tableName);
@@ -1010,9 +1056,13 @@ public class Database implements IVariables, ILoggingObject {
       ins.append(databaseMeta.quoteField(name));
     }
     ins.append(")");
-    ins.append(" VALUES (");
+    ins.append(" VALUES");
+    return ins;
+  }
 
+  private void appendInsertPlaceholders(StringBuilder ins, IRowMeta fields) {
     // Add placeholders...
+    ins.append(" (");
     for (int i = 0; i < fields.size(); i++) {
       if (i > 0) {
         ins.append(", ");
@@ -1020,8 +1070,40 @@ public class Database implements IVariables, ILoggingObject {
       ins.append(" ?");
     }
     ins.append(')');
+  }
 
-    return ins.toString();
+  /**
+   * Determine how many rows can be inserted with one multi-row insert statement. This depends on
+   * the limits of the database type and the number of fields.
+   *
+   * @param fields The fields to insert
+   * @return The number of rows per statement or 0 if multi-row inserts can't be used
+   */
+  public int getMultiRowInsertSize(IRowMeta fields) {
+    IDatabase iDatabase = databaseMeta.getIDatabase();
+    int nrRows = iDatabase.getMaxMultiRowInsertRows();
+    int maxParameters = iDatabase.getMaxPreparedStatementParameters();
+    if (maxParameters > 0 && fields.size() > 0) {
+      nrRows = Math.min(nrRows, maxParameters / fields.size());
+    }
+    return nrRows > 1 ? nrRows : 0;
+  }
+
+  /**
+   * Create a buffer which inserts rows into a table with multi-row insert statements, if the
+   * database type supports these.
+   *
+   * @param schemaName The schema of the table
+   * @param tableName The name of the table
+   * @param fields The fields to insert
+   * @return The multi-row insert or null if multi-row inserts can't be used
+   */
+  public MultiRowInsert createMultiRowInsert(String schemaName, String tableName, IRowMeta fields) {
+    int nrRows = getMultiRowInsertSize(fields);
+    if (nrRows <= 0) {
+      return null;
+    }
+    return new MultiRowInsert(this, schemaName, tableName, fields, nrRows);
   }
 
   public void insertRow() throws HopDatabaseException {
@@ -1488,7 +1570,7 @@ public class Database implements IVariables, ILoggingObject {
 
         if (canWeSetFetchSize(pstmt)) {
           int maxRows = pstmt.getMaxRows();
-          int fs = Const.FETCH_SIZE <= maxRows ? maxRows : Const.FETCH_SIZE;
+          int fs = getFetchSize(maxRows);
           if (databaseMeta.isMySqlVariant()) {
             setMysqlFetchSize(pstmt, fs, maxRows);
           } else {
@@ -1510,8 +1592,7 @@ public class Database implements IVariables, ILoggingObject {
         selStmt = connection.createStatement();
         log.snap(Metrics.METRIC_DATABASE_CREATE_SQL_STOP, databaseMeta.getName());
         if (canWeSetFetchSize(selStmt)) {
-          int fs =
-              Const.FETCH_SIZE <= selStmt.getMaxRows() ? selStmt.getMaxRows() : Const.FETCH_SIZE;
+          int fs = getFetchSize(selStmt.getMaxRows());
           if (databaseMeta.getIDatabase().isMySqlVariant() && databaseMeta.isStreamingResults()) {
             selStmt.setFetchSize(Integer.MIN_VALUE);
           } else {
@@ -1548,10 +1629,31 @@ public class Database implements IVariables, ILoggingObject {
   private boolean canWeSetFetchSize(Statement statement) throws SQLException {
     return databaseMeta.isFetchSizeSupported()
         && (statement.getMaxRows() > 0
+            || getConfiguredFetchSize() > 0
             || databaseMeta.getIDatabase().isPostgresVariant()
             || (databaseMeta.isMySqlVariant() && databaseMeta.isStreamingResults()));
   }
 
+  /**
+   * Get the fetch size to use on a statement. The fetch size configured on the connection takes
+   * precedence over the default of Hop.
+   *
+   * @param maxRows the maximum number of rows the statement returns, 0 if there is no limit
+   * @return the number of rows to fetch per round trip
+   */
+  int getFetchSize(int maxRows) {
+    int fetchSize = getConfiguredFetchSize();
+    if (fetchSize > 0) {
+      return fetchSize;
+    }
+    return Const.FETCH_SIZE <= maxRows ? maxRows : Const.FETCH_SIZE;
+  }
+
+  /** @return the fetch size configured on the connection or 0 if none is set */
+  private int getConfiguredFetchSize() {
+    return Const.toInt(resolve(databaseMeta.getFetchSize()), 0);
+  }
+
   public ResultSet openQuery(PreparedStatement ps, IRowMeta params, Object[] data)
       throws HopDatabaseException {
     ResultSet res;
@@ -1566,7 +1668,7 @@ public class Database implements IVariables, ILoggingObject {
 
       if (canWeSetFetchSize(ps)) {
         int maxRows = ps.getMaxRows();
-        int fs = Const.FETCH_SIZE <= maxRows ? maxRows : Const.FETCH_SIZE;
+        int fs = getFetchSize(maxRows);
         // mysql have some restriction on fetch size assignment
         if (databaseMeta.isMySqlVariant()) {
           setMysqlFetchSize(ps, fs, maxRows);
@@ -2530,6 +2632,90 @@ public class Database implements IVariables, ILoggingObject {
     }
   }
 
+  /**
+   * Prepare a statement to look up the rows of many keys at once. All the keys are compared for
+   * equality: with a single key field we use {@code key IN (?, ?, ...)}, otherwise {@code (key1 = ?
+   * AND key2 = ?) OR (...)}. The key fields are returned after the fields to get so that the
+   * returned rows can be matched with the keys that were looked up.
+   *
+   * @param schemaName The schema of the table
+   * @param tableName The table to look up rows in
+   * @param codes The key fields in the table
+   * @param gets The fields to return
+   * @param rename The new names of the returned fields or null
+   * @param orderby The order by clause or null
+   * @param batchSize The number of keys looked up in one statement
+   * @throws HopDatabaseException In case the statement couldn't be prepared
+   * @see #getBatchLookup(IRowMeta, List)
+   */
+  public void setBatchLookup(
+      String schemaName,
+      String tableName,
+      String[] codes,
+      String[] gets,
+      String[] rename,
+      String orderby,
+      int batchSize)
+      throws HopDatabaseException {
+    if (codes.length == 0 || batchSize < 1) {
+      throw new HopDatabaseException(
+          "A batch lookup needs at least one key field and a batch size of at least 1");
+    }
+    String table = databaseMeta.getQuotedSchemaTableCombination(this, schemaName, tableName);
+
+    StringBuilder sql = new StringBuilder("SELECT ");
+    for (int i = 0; i < gets.length; i++) {
+      sql.append(databaseMeta.quoteField(gets[i]));
+      if (rename != null && rename[i] != null && !gets[i].equalsIgnoreCase(rename[i])) {
+        sql.append(" AS ").append(databaseMeta.quoteField(rename[i]));
+      }
+      sql.append(", ");
+    }
+    for (int i = 0; i < codes.length; i++) {
+      if (i != 0) {
+        sql.append(", ");
+      }
+      sql.append(databaseMeta.quoteField(codes[i]));
+    }
+    sql.append(" FROM ").append(table).append(" WHERE ");
+
+    if (codes.length == 1) {
+      sql.append(databaseMeta.quoteField(codes[0])).append(" IN (");
+      for (int k = 0; k < batchSize; k++) {
+        sql.append(k == 0 ? "?" : ", ?");
+      }
+      sql.append(")");
+    } else {
+      for (int k = 0; k < batchSize; k++) {
+        sql.append(k == 0 ? "(" : " OR (");
+        for (int i = 0; i < codes.length; i++) {
+          if (i != 0) {
+            sql.append(" AND ");
+          }
+          sql.append(databaseMeta.quoteField(codes[i])).append(" = ?");
+        }
+        sql.append(")");
+      }
+    }
+
+    if (orderby != null && orderby.length() != 0) {
+      sql.append(" ORDER BY ").append(orderby);
+    }
+
+    try {
+      if (log.isDetailed()) {
+        log.logDetailed("Setting batch lookup preparedStatement to [" + sql + "]");
+      }
+      prepStatementBatchLookup = connection.prepareStatement(databaseMeta.stripCR(sql.toString()));
+      batchLookupSize = batchSize;
+      batchLookupKeys = codes.length;
+      batchLookupRowMeta = null;
+    } catch (SQLException ex) {
+      throw new HopDatabaseException(
+          "Unable to prepare statement for batch lookup [" + sql + "]", ex);
+    }
+  }
+
   public boolean prepareUpdate(String table, String[] codes, String[] condition, String[] sets) {
     return prepareUpdate(null, table, codes, condition, sets);
   }
@@ -2807,6 +2993,76 @@ public class Database implements IVariables, ILoggingObject {
     }
   }
 
+  /**
+   * Look up the rows of a number of keys with the statement prepared by {@link
+   * #setBatchLookup(String, String, String[], String[], String[], String, int)}. When there are
+   * fewer keys than the batch size, the last key is repeated to fill up the statement so that it
+   * can be reused.
+   *
+   * @param keyMeta The metadata of the keys
+   * @param keys The keys to look up, at most the batch size
+   * @return All the rows found: the returned fields followed by the key fields
+   * @throws HopDatabaseException In case something went wrong
+   */
+  public List<Object[]> getBatchLookup(IRowMeta keyMeta, List<Object[]> keys)
+      throws HopDatabaseException {
+    if (prepStatementBatchLookup == null) {
+      throw new HopDatabaseException("No batch lookup statement was prepared");
+    }
+    if (keys.isEmpty() || keys.size() > batchLookupSize || keyMeta.size() != batchLookupKeys) {
+      throw new HopDatabaseException(
+          "Expected between 1 and "
+              + batchLookupSize
+              + " keys of "
+              + batchLookupKeys
+              + " fields to look up, got "
+              + keys.size()
+              + " keys of "
+              + keyMeta.size()
+              + " fields");
+    }
+
+    ResultSet res = null;
+    try {
+      log.snap(Metrics.METRIC_DATABASE_GET_LOOKUP_START, databaseMeta.getName());
+
+      int pos = 1;
+      for (int k = 0; k < batchLookupSize; k++) {
+        Object[] key = keys.get(Math.min(k, keys.size() - 1));
+        for (int i = 0; i < keyMeta.size(); i++) {
+          setValue(prepStatementBatchLookup, keyMeta.getValueMeta(i), key[i], pos++);
+        }
+      }
+      res = prepStatementBatchLookup.executeQuery();
+
+      // The returned row metadata is the same for every batch
+      //
+      if (batchLookupRowMeta == null) {
+        batchLookupRowMeta = getRowInfo(res.getMetaData(), false, false);
+      }
+
+      List<Object[]> rows = new ArrayList<>();
+      Object[] row = getRow(res, null, batchLookupRowMeta);
+      while (row != null) {
+        rows.add(row);
+        row = getRow(res, null, batchLookupRowMeta);
+      }
+      return rows;
+    } catch (SQLException ex) {
+      throw new HopDatabaseException("Error looking up a batch of rows in database", ex);
+    } finally {
+      try {
+        if (res != null) {
+          res.close(); // close resultset!
+        }
+      } catch (SQLException e) {
+        throw new HopDatabaseException("Unable to close resultset after looking up data", e);
+      } finally {
+        log.snap(Metrics.METRIC_DATABASE_GET_LOOKUP_STOP, databaseMeta.getName());
+      }
+    }
+  }
+
   public DatabaseMetaData getDatabaseMetaData() throws HopDatabaseException {
     if (dbmd == null) {
       try {
@@ -3440,6 +3696,15 @@ public class Database implements IVariables, ILoggingObject {
     return rowMeta;
   }
 
+  /**
+   * Gets the metadata of the rows returned by the batch lookup
+   *
+   * @return The returned fields followed by the key fields or null if no batch was looked up yet
+   */
+  public IRowMeta getBatchLookupRowMeta() {
+    return batchLookupRowMeta;
+  }
+
   public String[] getTableTypes() throws HopDatabaseException {
     try {
       ArrayList<String> types = new ArrayList<>();
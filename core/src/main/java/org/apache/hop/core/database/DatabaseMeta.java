@@ -2087,6 +2087,38 @@ public class DatabaseMeta extends HopMetadataBase implements Cloneable, IHopMeta
     iDatabase.setPreferredSchemaName(preferredSchemaName);
   }
 
+  /**
+   * Gets fetchSize
+   *
+   * @return The number of rows to fetch per round trip when reading query results, empty or 0 to
+   *     use the default of Hop and the driver. Variables are allowed.
+   */
+  public String getFetchSize() {
+    return iDatabase.getFetchSize();
+  }
+
+  /** @param fetchSize The number of rows to fetch per round trip when reading query results */
+  public void setFetchSize(String fetchSize) {
+    iDatabase.setFetchSize(fetchSize);
+  }
+
+  /**
+   * @param expression The SQL expression to hash, usually a quoted column name
+   * @return The hashing SQL expression or null if the database has no suitable hash function
+   */
+  public String getSqlHashExpression(String expression) {
+    return iDatabase.getSqlHashExpression(expression);
+  }
+
+  /**
+   * @param dividend The SQL expression to divide
+   * @param divisor The SQL expression to divide by
+   * @return The SQL expression calculating the remainder of the division
+   */
+  public String getSqlModulo(String dividend, String divisor) {
+    return iDatabase.getSqlModulo(dividend, divisor);
+  }
+
   public boolean supportsSequenceNoMaxValueOption() {
     return iDatabase.isSupportsSequenceNoMaxValueOption();
   }
@@ -620,6 +620,15 @@ public interface IDatabase extends Cloneable {
   /** @param preferredSchemaName The preferred schema name of this database connection. */
   void setPreferredSchemaName(String preferredSchemaName);
 
+  /**
+   * @return The number of rows to fetch per round trip when reading query results, empty or 0 to
+   *     use the default of Hop and the driver. Variables are allowed.
+   */
+  String getFetchSize();
+
+  /** @param fetchSize The number of rows to fetch per round trip when reading query results. */
+  void setFetchSize(String fetchSize);
+
   /**
    * Verifies on the specified database connection if an index exists on the fields with the
    * specified name.
@@ -958,6 +967,46 @@ public interface IDatabase extends Cloneable {
     return "";
   }
 
+  /**
+   * Get the maximum number of rows to insert with a single multi-row <code>INSERT INTO ... VALUES
+   * (...), (...)</code> statement. Many JDBC drivers execute a batch of single row inserts one row
+   * at a time, sending all rows in one statement saves a round trip for every row.
+   *
+   * @return The maximum number of rows per insert statement or 0 if the database doesn't support
+   *     multi-row inserts. In that case the rows are inserted with JDBC batches.
+   */
+  default int getMaxMultiRowInsertRows() {
+    return 0;
+  }
+
+  /**
+   * @return The maximum number of parameters in a prepared statement or 0 if there is no limit
+   */
+  default int getMaxPreparedStatementParameters() {
+    return 0;
+  }
+
+  /**
+   * Get the SQL expression which hashes a value into an integer. It's used to split a query in a
+   * number of parts by the hash of a column, for example to read a table over parallel connections.
+   *
+   * @param expression The SQL expression to hash, usually a quoted column name
+   * @return The hashing SQL expression or null if the database has no suitable hash function. In
+   *     that case only integer values can be used to split on.
+   */
+  default String getSqlHashExpression(String expression) {
+    return null;
+  }
+
+  /**
+   * @param dividend The SQL expression to divide
+   * @param divisor The SQL expression to divide by
+   * @return The SQL expression calculating the remainder of the division
+   */
+  default String getSqlModulo(String dividend, String divisor) {
+    return "MOD(" + dividend + ", " + divisor + ")";
+  }
+
   /**
    * Allows to get the column name for JDBC drivers with different behavior for aliases depending on
    * the connector version.
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database;
+
+import org.apache.hop.core.exception.HopDatabaseException;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers rows and inserts them into a table with multi-row <code>INSERT INTO ... VALUES (...),
+ * (...)</code> statements. This sends many rows to the database in a single round trip, even with
+ * JDBC drivers which execute a batch of statements one by one.
+ *
+ * <p>A full buffer is inserted right away. Call {@link #flush()} to insert the remaining rows, for
+ * example before a commit. Since a statement inserts all its rows or none, the rows can't be
+ * checked one by one: use JDBC batches if you need to know which row failed.
+ *
+ * @see Database#createMultiRowInsert(String, String, IRowMeta)
+ */
+public class MultiRowInsert {
+  private final Database db;
+  private final String schemaName;
+  private final String tableName;
+  private final IRowMeta rowMeta;
+  private final int rowsPerStatement;
+
+  private final List<Object[]> buffer;
+
+  /** The statement inserting a full buffer */
+  private PreparedStatement fullStatement;
+
+  /** The statement used last to insert the rows left when flushing */
+  private PreparedStatement partialStatement;
+
+  private int partialStatementRows;
+
+  private long rowsInserted;
+
+  /**
+   * @param db The connected database
+   * @param schemaName The schema of the table
+   * @param tableName The name of the table
+   * @param rowMeta The fields to insert
+   * @param rowsPerStatement The maximum number of rows per statement
+   */
+  public MultiRowInsert(
+      Database db, String schemaName, String tableName, IRowMeta rowMeta, int rowsPerStatement) {
+    this.db = db;
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.rowMeta = rowMeta;
+    this.rowsPerStatement = rowsPerStatement;
+    this.buffer = new ArrayList<>(rowsPerStatement);
+  }
+
+  /**
+   * Add a row to insert. The buffered rows are inserted when the buffer is full.
+   *
+   * @param row The values to insert
+   * @throws HopDatabaseException In case the buffered rows couldn't be inserted
+   */
+  public void addRow(Object[] row) throws HopDatabaseException {
+    buffer.add(row);
+    if (buffer.size() >= rowsPerStatement) {
+      if (fullStatement == null) {
+        fullStatement = prepare(rowsPerStatement);
+      }
+      execute(fullStatement);
+    }
+  }
+
+  /**
+   * Insert all the buffered rows.
+   *
+   * @throws HopDatabaseException In case the rows couldn't be inserted
+   */
+  public void flush() throws HopDatabaseException {
+    if (buffer.isEmpty()) {
+      return;
+    }
+    if (buffer.size() == rowsPerStatement) {
+      if (fullStatement == null) {
+        fullStatement = prepare(rowsPerStatement);
+      }
+      execute(fullStatement);
+      return;
+    }
+
+    // The number of rows left over is usually the same every time
+    //
+    if (partialStatement == null || partialStatementRows != buffer.size()) {
+      PreparedStatement previous = partialStatement;
+      partialStatement = null;
+      db.closePreparedStatement(previous);
+      partialStatement = prepare(buffer.size());
+      partialStatementRows = buffer.size();
+    }
+    execute(partialStatement);
+  }
+
+  private PreparedStatement prepare(int nrRows) throws HopDatabaseException {
+    return db.prepareSql(db.getMultiRowInsertStatement(schemaName, tableName, rowMeta, nrRows));
+  }
+
+  private void execute(PreparedStatement statement) throws HopDatabaseException {
+    int nrRows = buffer.size();
+    try {
+      int position = 1;
+      for (Object[] row : buffer) {
+        for (int i = 0; i < rowMeta.size(); i++) {
+          db.setValue(statement, rowMeta.getValueMeta(i), row[i], position++);
+        }
+      }
+      statement.executeUpdate();
+    } catch (SQLException e) {
+      throw new HopDatabaseException(
+          "Error inserting " + nrRows + " rows into table [" + tableName + "]", e);
+    } finally {
+      // The rows are either inserted or the work is going to be rolled back
+      //
+      buffer.clear();
+    }
+    rowsInserted += nrRows;
+  }
+
+  /** Forget about the buffered rows, for example after a rollback. */
+  public void clear() {
+    buffer.clear();
+  }
+
+  /**
+   * Close the prepared statements.
+   *
+   * @throws HopDatabaseException In case a statement couldn't be closed
+   */
+  public void close() throws HopDatabaseException {
+    buffer.clear();
+    try {
+      db.closePreparedStatement(fullStatement);
+    } finally {
+      fullStatement = null;
+      db.closePreparedStatement(partialStatement);
+      partialStatement = null;
+    }
+  }
+
+  /**
+   * Gets the number of rows waiting in the buffer
+   *
+   * @return the number of buffered rows
+   */
+  public int getBufferedRows() {
+    return buffer.size();
+  }
+
+  /**
+   * Gets rowsPerStatement
+   *
+   * @return value of rowsPerStatement
+   */
+  public int getRowsPerStatement() {
+    return rowsPerStatement;
+  }
+
+  /**
+   * Gets the number of rows inserted so far
+   *
+   * @return value of rowsInserted
+   */
+  public long getRowsInserted() {
+    return rowsInserted;
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database.bulkload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growing byte buffer which bulk-load encoders write rows into. The buffer is re-used after its
+ * content is sent to the database so encoding rows doesn't allocate a byte array per value.
+ *
+ * <p>Numbers are written in network byte order (big-endian) as used by binary load formats.
+ */
+public class BulkLoadBuffer {
+  private static final byte[] LONG_MIN_VALUE =
+      Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+  private byte[] data;
+  private int size;
+
+  /**
+   * Create a new buffer
+   *
+   * @param initialCapacity The initial capacity in bytes, the buffer grows when needed
+   */
+  public BulkLoadBuffer(int initialCapacity) {
+    data = new byte[Math.max(16, initialCapacity)];
+    size = 0;
+  }
+
+  private void ensureCapacity(int extra) {
+    int needed = size + extra;
+    if (needed > data.length) {
+      data = Arrays.copyOf(data, Math.max(needed, data.length * 2));
+    }
+  }
+
+  /** Forget the content, keeping the allocated memory */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * @return The number of bytes in the buffer
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return true if the buffer holds no data
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Go back to an earlier size, for example to remove a partially encoded row.
+   *
+   * @param size The new size, not larger than the current size
+   */
+  public void truncate(int size) {
+    if (size < 0 || size > this.size) {
+      throw new IndexOutOfBoundsException("Can't truncate a buffer of " + this.size + " to " + size);
+    }
+    this.size = size;
+  }
+
+  public void write(int b) {
+    ensureCapacity(1);
+    data[size++] = (byte) b;
+  }
+
+  public void write(byte[] bytes) {
+    write(bytes, 0, bytes.length);
+  }
+
+  public void write(byte[] bytes, int offset, int length) {
+    ensureCapacity(length);
+    System.arraycopy(bytes, offset, data, size, length);
+    size += length;
+  }
+
+  public void writeShort(int value) {
+    ensureCapacity(2);
+    data[size++] = (byte) (value >>> 8);
+    data[size++] = (byte) value;
+  }
+
+  public void writeInt(int value) {
+    ensureCapacity(4);
+    data[size++] = (byte) (value >>> 24);
+    data[size++] = (byte) (value >>> 16);
+    data[size++] = (byte) (value >>> 8);
+    data[size++] = (byte) value;
+  }
+
+  public void writeLong(long value) {
+    ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      data[size++] = (byte) (value >>> shift);
+    }
+  }
+
+  public void writeDouble(double value) {
+    writeLong(Double.doubleToLongBits(value));
+  }
+
+  /**
+   * Overwrite an integer written earlier, for example a length which is only known after the value
+   * is written.
+   *
+   * @param position The position of the integer in the buffer
+   * @param value The new value
+   */
+  public void setInt(int position, int value) {
+    if (position < 0 || position + 4 > size) {
+      throw new IndexOutOfBoundsException("Can't set an integer at position " + position);
+    }
+    data[position] = (byte) (value >>> 24);
+    data[position + 1] = (byte) (value >>> 16);
+    data[position + 2] = (byte) (value >>> 8);
+    data[position + 3] = (byte) value;
+  }
+
+  /**
+   * Write the decimal digits of a long without creating a String.
+   *
+   * @param value The value to write
+   */
+  public void writeDecimal(long value) {
+    if (value == Long.MIN_VALUE) {
+      write(LONG_MIN_VALUE);
+      return;
+    }
+    ensureCapacity(20);
+    if (value < 0) {
+      data[size++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long rest = value / 10; rest > 0; rest /= 10) {
+      digits++;
+    }
+    int position = size + digits;
+    do {
+      data[--position] = (byte) ('0' + (value % 10));
+      value /= 10;
+    } while (value > 0);
+    size += digits;
+  }
+
+  /**
+   * Write a String in the given character set. ASCII characters are copied straight into the
+   * buffer when the character set is UTF-8 or ASCII compatible.
+   *
+   * @param string The string to write
+   * @param charset The character set to encode the string with
+   */
+  public void writeString(String string, Charset charset) {
+    int length = string.length();
+    if (isAsciiCompatible(charset)) {
+      ensureCapacity(length);
+      int i = 0;
+      while (i < length) {
+        char c = string.charAt(i);
+        if (c >= 0x80) {
+          break;
+        }
+        data[size++] = (byte) c;
+        i++;
+      }
+      if (i == length) {
+        return;
+      }
+      // Fall back to the regular encoder for the rest of the string
+      //
+      write(string.substring(i).getBytes(charset));
+      return;
+    }
+    write(string.getBytes(charset));
+  }
+
+  private static boolean isAsciiCompatible(Charset charset) {
+    return StandardCharsets.UTF_8.equals(charset)
+        || StandardCharsets.US_ASCII.equals(charset)
+        || StandardCharsets.ISO_8859_1.equals(charset);
+  }
+
+  /**
+   * Write the content of this buffer to a stream
+   *
+   * @param outputStream The stream to write to
+   * @throws IOException In case of a write error
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    outputStream.write(data, 0, size);
+  }
+
+  /**
+   * @return A copy of the content of the buffer
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(data, size);
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database.bulkload;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams encoded rows into one or more bulk-load channels, for example the output streams of
+ * <code>COPY ... FROM STDIN</code> commands on separate connections.
+ *
+ * <p>The rows are encoded into a buffer by the calling thread. A full buffer is handed to the first
+ * free channel which writes it in its own thread while the next rows are encoded. There is a fixed
+ * number of buffers: when all of them are waiting to be written, writing a row blocks until a
+ * channel is done with a buffer. This way a slow database slows down the pipeline instead of
+ * filling up the memory.
+ *
+ * <p>Every channel gets the header of the encoder before the rows and the trailer after them. A
+ * buffer only holds complete rows so the rows can be spread over several channels. The channels
+ * are flushed but not closed, ending the load (and closing the streams) is up to the caller after
+ * {@link #finish()}.
+ */
+public class BulkLoadStreamer {
+
+  /** Tells a channel thread to stop */
+  private static final BulkLoadBuffer END = new BulkLoadBuffer(0);
+
+  private final String name;
+  private final IBulkLoadEncoder encoder;
+  private final List<OutputStream> channels;
+  private final int bufferSize;
+
+  private final BlockingQueue<BulkLoadBuffer> freeBuffers;
+  private final BlockingQueue<BulkLoadBuffer> fullBuffers;
+  private final List<Thread> threads;
+
+  private final AtomicReference<Exception> error;
+  private final AtomicLong bytesWritten;
+  private long rowsWritten;
+
+  private BulkLoadBuffer current;
+
+  /**
+   * @param name The name of the streamer, used to name the threads
+   * @param encoder The encoder of the rows
+   * @param channels The streams to write the encoded rows to
+   * @param bufferSize The number of bytes to collect before a buffer is written to a channel
+   * @param bufferCount The number of buffers, at least one more than the number of channels
+   */
+  public BulkLoadStreamer(
+      String name,
+      IBulkLoadEncoder encoder,
+      List<OutputStream> channels,
+      int bufferSize,
+      int bufferCount) {
+    if (channels.isEmpty()) {
+      throw new IllegalArgumentException("Bulk loading needs at least one channel");
+    }
+    this.name = name;
+    this.encoder = encoder;
+    this.channels = new ArrayList<>(channels);
+    this.bufferSize = Math.max(1, bufferSize);
+
+    int count = Math.max(bufferCount, channels.size() + 1);
+    this.freeBuffers = new ArrayBlockingQueue<>(count);
+    for (int i = 0; i < count; i++) {
+      // A row can make the buffer a bit larger than the buffer size
+      //
+      freeBuffers.add(new BulkLoadBuffer(this.bufferSize + this.bufferSize / 8));
+    }
+    this.fullBuffers = new LinkedBlockingQueue<>();
+    this.threads = new ArrayList<>();
+    this.error = new AtomicReference<>();
+    this.bytesWritten = new AtomicLong();
+  }
+
+  /**
+   * Start the threads writing to the channels.
+   *
+   * @throws HopException In case we're interrupted
+   */
+  public void start() throws HopException {
+    int number = 1;
+    for (OutputStream channel : channels) {
+      Thread thread = new Thread(() -> writeChannel(channel), name + " - channel " + number++);
+      thread.setDaemon(true);
+      threads.add(thread);
+      thread.start();
+    }
+    current = takeFreeBuffer();
+  }
+
+  /**
+   * Encode a row and send the buffer to a channel when it's full.
+   *
+   * @param rowMeta The layout of the row
+   * @param row The row data
+   * @throws HopException In case the row can't be encoded or a channel failed
+   */
+  public void writeRow(IRowMeta rowMeta, Object[] row) throws HopException {
+    checkError();
+
+    int rowStart = current.size();
+    try {
+      encoder.encodeRow(rowMeta, row, current);
+    } catch (HopException | RuntimeException e) {
+      // Don't send half a row
+      //
+      current.truncate(rowStart);
+      throw e;
+    }
+    rowsWritten++;
+
+    if (current.size() >= bufferSize) {
+      fullBuffers.add(current);
+      current = takeFreeBuffer();
+    }
+  }
+
+  /**
+   * Send the last rows, write the trailers and wait until all channels are done.
+   *
+   * @throws HopException In case a channel failed or we're interrupted
+   */
+  public void finish() throws HopException {
+    if (current != null) {
+      if (current.isEmpty()) {
+        freeBuffers.add(current);
+      } else {
+        fullBuffers.add(current);
+      }
+      current = null;
+    }
+    stopThreads(false);
+    checkError();
+  }
+
+  /** Stop writing to the channels as soon as possible, without writing the trailers. */
+  public void abort() {
+    error.compareAndSet(null, new HopException("Bulk load aborted"));
+    current = null;
+    stopThreads(true);
+  }
+
+  private void stopThreads(boolean interrupt) {
+    for (int i = 0; i < threads.size(); i++) {
+      fullBuffers.add(END);
+    }
+    for (Thread thread : threads) {
+      if (interrupt) {
+        thread.interrupt();
+      }
+      try {
+        // A channel blocked in a database call might not react to the interrupt
+        //
+        thread.join(interrupt ? TimeUnit.MINUTES.toMillis(1) : 0L);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        error.compareAndSet(null, e);
+        return;
+      }
+    }
+    threads.clear();
+  }
+
+  private BulkLoadBuffer takeFreeBuffer() throws HopException {
+    try {
+      while (true) {
+        BulkLoadBuffer buffer = freeBuffers.poll(100, TimeUnit.MILLISECONDS);
+        if (buffer != null) {
+          return buffer;
+        }
+        // All buffers are waiting to be written: see if the channels are still alive
+        //
+        checkError();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException("Interrupted while waiting for a bulk load buffer", e);
+    }
+  }
+
+  private void checkError() throws HopException {
+    Exception exception = error.get();
+    if (exception != null) {
+      throw new HopException("Error writing to a bulk load channel", exception);
+    }
+  }
+
+  private void writeChannel(OutputStream channel) {
+    try {
+      BulkLoadBuffer header = new BulkLoadBuffer(64);
+      encoder.writeHeader(header);
+      header.writeTo(channel);
+
+      while (true) {
+        BulkLoadBuffer buffer = fullBuffers.take();
+        if (buffer == END) {
+          break;
+        }
+        try {
+          // After an error we only hand back the buffers to keep the rows flowing
+          //
+          if (error.get() == null) {
+            buffer.writeTo(channel);
+            bytesWritten.addAndGet(buffer.size());
+          }
+        } finally {
+          buffer.clear();
+          freeBuffers.add(buffer);
+        }
+      }
+
+      if (error.get() == null) {
+        BulkLoadBuffer trailer = new BulkLoadBuffer(64);
+        encoder.writeTrailer(trailer);
+        trailer.writeTo(channel);
+        channel.flush();
+      }
+    } catch (Exception e) {
+      error.compareAndSet(null, e);
+    }
+  }
+
+  /**
+   * Gets the number of rows encoded
+   *
+   * @return value of rowsWritten
+   */
+  public long getRowsWritten() {
+    return rowsWritten;
+  }
+
+  /**
+   * Gets the number of bytes written to the channels, without headers and trailers
+   *
+   * @return value of bytesWritten
+   */
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  /**
+   * Gets the number of channels
+   *
+   * @return the number of channels
+   */
+  public int getChannelCount() {
+    return channels.size();
+  }
+}
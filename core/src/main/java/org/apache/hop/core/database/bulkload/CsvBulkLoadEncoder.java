@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database.bulkload;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Encodes rows as delimited text. Strings are enclosed and enclosures in strings are doubled, null
+ * values are written as the null value (empty by default). Values stored as binary strings, for
+ * example by lazy conversion, are passed through as they are, except for strings.
+ */
+public class CsvBulkLoadEncoder implements IBulkLoadEncoder {
+
+  private final int[] fieldIndexes;
+  private final Charset charset;
+
+  private byte[] delimiter;
+  private byte[] enclosure;
+  private String enclosureString;
+  private String escapedEnclosureString;
+  private byte[] newline;
+  private byte[] nullValue;
+  private IValueMeta[] dateFormats;
+
+  /**
+   * @param fieldIndexes The indexes of the fields to write in the rows
+   * @param charset The character set of the strings
+   */
+  public CsvBulkLoadEncoder(int[] fieldIndexes, Charset charset) {
+    this.fieldIndexes = fieldIndexes;
+    this.charset = charset;
+    this.delimiter = ",".getBytes(StandardCharsets.US_ASCII);
+    this.newline = "\n".getBytes(StandardCharsets.US_ASCII);
+    this.nullValue = new byte[0];
+    this.dateFormats = new IValueMeta[fieldIndexes.length];
+    setEnclosure("\"");
+  }
+
+  @Override
+  public void encodeRow(IRowMeta rowMeta, Object[] row, BulkLoadBuffer buffer)
+      throws HopException {
+    for (int i = 0; i < fieldIndexes.length; i++) {
+      if (i > 0) {
+        buffer.write(delimiter);
+      }
+      int index = fieldIndexes[i];
+      encodeValue(rowMeta.getValueMeta(index), row[index], dateFormats[i], buffer);
+    }
+    buffer.write(newline);
+  }
+
+  private void encodeValue(
+      IValueMeta valueMeta, Object valueData, IValueMeta dateFormat, BulkLoadBuffer buffer)
+      throws HopException {
+    if (valueData == null) {
+      buffer.write(nullValue);
+      return;
+    }
+
+    if (valueMeta.getType() == IValueMeta.TYPE_STRING) {
+      String string = valueMeta.getString(valueData);
+      if (!enclosureString.isEmpty() && string.contains(enclosureString)) {
+        string = string.replace(enclosureString, escapedEnclosureString);
+      }
+      buffer.write(enclosure);
+      buffer.writeString(string, charset);
+      buffer.write(enclosure);
+      return;
+    }
+
+    if (valueMeta.isStorageBinaryString() && (dateFormat == null || !valueMeta.isDate())) {
+      buffer.write((byte[]) valueData);
+      return;
+    }
+
+    switch (valueMeta.getType()) {
+      case IValueMeta.TYPE_INTEGER:
+        buffer.writeDecimal(valueMeta.getInteger(valueData));
+        break;
+      case IValueMeta.TYPE_NUMBER:
+        buffer.writeString(Double.toString(valueMeta.getNumber(valueData)), charset);
+        break;
+      case IValueMeta.TYPE_BIGNUMBER:
+        BigDecimal bigNumber = valueMeta.getBigNumber(valueData);
+        buffer.writeString(bigNumber.toString(), charset);
+        break;
+      case IValueMeta.TYPE_BOOLEAN:
+        buffer.writeString(valueMeta.getBoolean(valueData) ? "true" : "false", charset);
+        break;
+      case IValueMeta.TYPE_DATE:
+      case IValueMeta.TYPE_TIMESTAMP:
+        if (dateFormat == null) {
+          buffer.writeString(valueMeta.getString(valueData), charset);
+        } else {
+          Date date = valueMeta.getDate(valueData);
+          buffer.writeString(dateFormat.getString(date), charset);
+        }
+        break;
+      default:
+        throw new HopException(
+            "Bulk loading doesn't handle the type "
+                + valueMeta.getTypeDesc()
+                + " of field "
+                + valueMeta.getName());
+    }
+  }
+
+  /**
+   * Gets fieldIndexes
+   *
+   * @return value of fieldIndexes
+   */
+  public int[] getFieldIndexes() {
+    return fieldIndexes;
+  }
+
+  /**
+   * Gets charset
+   *
+   * @return value of charset
+   */
+  public Charset getCharset() {
+    return charset;
+  }
+
+  /** @param delimiter The delimiter between the values of a row */
+  public void setDelimiter(String delimiter) {
+    this.delimiter = delimiter == null ? new byte[0] : delimiter.getBytes(charset);
+  }
+
+  /** @param enclosure The enclosure of string values, doubled when found in a string */
+  public void setEnclosure(String enclosure) {
+    this.enclosureString = enclosure == null ? "" : enclosure;
+    this.escapedEnclosureString = enclosureString + enclosureString;
+    this.enclosure = enclosureString.getBytes(charset);
+  }
+
+  /** @param newline The separator between rows */
+  public void setNewline(String newline) {
+    this.newline = newline.getBytes(charset);
+  }
+
+  /** @param nullValue What to write for null values */
+  public void setNullValue(String nullValue) {
+    this.nullValue = nullValue == null ? new byte[0] : nullValue.getBytes(charset);
+  }
+
+  /**
+   * Set the format of a date or timestamp field. Without a format the value is written as
+   * formatted by the value metadata of the row.
+   *
+   * @param fieldNr The number of the field, in the order of the field indexes
+   * @param dateFormat The value metadata formatting the date or null to pass the value through
+   */
+  public void setDateFormat(int fieldNr, IValueMeta dateFormat) {
+    dateFormats[fieldNr] = dateFormat;
+  }
+}
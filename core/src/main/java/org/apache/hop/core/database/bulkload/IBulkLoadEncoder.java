@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database.bulkload;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+
+/**
+ * Encodes rows in the format a database bulk-load endpoint like <code>COPY ... FROM STDIN</code>
+ * expects. The rows are written straight into a re-used {@link BulkLoadBuffer}.
+ */
+public interface IBulkLoadEncoder {
+
+  /**
+   * Write what the database expects at the start of every stream, for example the header of a
+   * binary format.
+   *
+   * @param buffer The buffer to write to
+   * @throws HopException In case of an encoding error
+   */
+  default void writeHeader(BulkLoadBuffer buffer) throws HopException {
+    // Nothing by default
+  }
+
+  /**
+   * Encode a row.
+   *
+   * @param rowMeta The layout of the row
+   * @param row The row data
+   * @param buffer The buffer to write to
+   * @throws HopException In case a value can't be encoded
+   */
+  void encodeRow(IRowMeta rowMeta, Object[] row, BulkLoadBuffer buffer) throws HopException;
+
+  /**
+   * Write what the database expects at the end of every stream.
+   *
+   * @param buffer The buffer to write to
+   * @throws HopException In case of an encoding error
+   */
+  default void writeTrailer(BulkLoadBuffer buffer) throws HopException {
+    // Nothing by default
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.exception.HopValueException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A hash index of serialized keys and values which is kept outside of the Java heap. It uses the
+ * same binary keys and values as {@link ByteArrayHashIndex} but doesn't create any objects per
+ * entry so it can hold many millions of entries without garbage collection overhead.
+ *
+ * <p>The entries are appended to data segments. An open addressing table with linear probing holds
+ * the address, hash code and key length of every entry. Keys are compared byte by byte so they
+ * need to be serialized in normal storage. Both the data and the table are allocated in direct
+ * memory or, when a directory is given, mapped in memory from temporary files in that directory.
+ *
+ * <p>This index is not thread safe. Close it to release the memory and remove the temporary files.
+ */
+public class OffHeapHashIndex implements Closeable {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.7f;
+
+  /** A slot holds the address of the entry, its hash code and the length of the key */
+  private static final int SLOT_SIZE = 16;
+
+  private static final int MAX_SLOTS_PER_SEGMENT = 1 << 22;
+
+  private static final int MIN_DATA_SEGMENT_SIZE = 1 << 16;
+
+  /** The maximum size of a data segment and as such of a single serialized key and value */
+  public static final int MAX_DATA_SEGMENT_SIZE = 1 << 26;
+
+  /** The size of the key and value lengths in front of every entry */
+  private static final int ENTRY_HEADER_SIZE = 8;
+
+  private final File directory;
+
+  private SlotTable table;
+  private long size;
+  private long resizeThreshold;
+
+  private final OffHeapSegments data;
+  private int dataSegment;
+  private int dataPosition;
+
+  /**
+   * Create a new off-heap hash index.
+   *
+   * @param size The expected number of entries
+   * @param directory The directory to store the temporary files in which are mapped in memory or
+   *     null to use direct memory
+   * @throws HopFileException In case the temporary files can't be created
+   */
+  public OffHeapHashIndex(long size, File directory) throws HopFileException {
+    this.directory = directory;
+
+    // Find a suitable capacity being a factor of 2:
+    long capacity = 1;
+    while (capacity * STANDARD_LOAD_FACTOR < size) {
+      capacity <<= 1; // Multiply by 2
+    }
+
+    try {
+      table = new SlotTable(capacity);
+      data = new OffHeapSegments(directory);
+    } catch (IOException e) {
+      close();
+      throw new HopFileException("Unable to allocate the off-heap hash index", e);
+    }
+    resizeThreshold = (long) (capacity * STANDARD_LOAD_FACTOR);
+    dataSegment = -1;
+  }
+
+  /**
+   * Create a new off-heap hash index.
+   *
+   * @param directory The directory to store the temporary files in which are mapped in memory or
+   *     null to use direct memory
+   * @throws HopFileException In case the temporary files can't be created
+   */
+  public OffHeapHashIndex(File directory) throws HopFileException {
+    this(STANDARD_INDEX_SIZE, directory);
+  }
+
+  /**
+   * Create a new off-heap hash index in direct memory.
+   *
+   * @throws HopFileException Never for direct memory
+   */
+  public OffHeapHashIndex() throws HopFileException {
+    this(STANDARD_INDEX_SIZE, null);
+  }
+
+  /**
+   * Gets size
+   *
+   * @return value of size: the number of entries in the index
+   */
+  public long getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Gets the number of bytes allocated outside of the heap
+   *
+   * @return the size of the table and the data segments in bytes
+   */
+  public long getAllocated() {
+    return table.segments.getAllocated() + data.getAllocated();
+  }
+
+  /**
+   * Look up the value of a key.
+   *
+   * @param key The serialized key
+   * @return The serialized value or null if the key is not in the index
+   */
+  public byte[] get(byte[] key) {
+    int hashCode = generateHashCode(key);
+    long slot = findSlot(key, hashCode);
+    long address = table.getAddress(slot);
+    if (address == 0) {
+      return null;
+    }
+    ByteBuffer buffer = data.get(getSegment(address));
+    int position = getPosition(address);
+    int keyLength = buffer.getInt(position);
+    byte[] value = new byte[buffer.getInt(position + 4)];
+    ByteBuffer view = buffer.duplicate();
+    view.position(position + ENTRY_HEADER_SIZE + keyLength);
+    view.get(value);
+    return value;
+  }
+
+  /**
+   * Add an entry to the index. The value of a key which is already in the index is replaced.
+   *
+   * @param key The serialized key
+   * @param value The serialized value
+   * @throws HopException In case the entry is too large or the memory can't be allocated
+   */
+  public void put(byte[] key, byte[] value) throws HopException {
+    int hashCode = generateHashCode(key);
+    long slot = findSlot(key, hashCode);
+    boolean replace = table.getAddress(slot) != 0;
+
+    // Replaced values are simply left behind in the data segments
+    //
+    table.set(slot, append(key, value), hashCode, key.length);
+
+    if (!replace && ++size > resizeThreshold) {
+      resize();
+    }
+  }
+
+  /** Let go of the memory and remove the temporary files */
+  @Override
+  public void close() {
+    if (table != null) {
+      table.segments.close();
+    }
+    if (data != null) {
+      data.close();
+    }
+    size = 0;
+  }
+
+  /**
+   * Find the slot holding the key or the empty slot where it should go.
+   *
+   * @return The slot
+   */
+  private long findSlot(byte[] key, int hashCode) {
+    long slot = hashCode & table.mask;
+    while (true) {
+      long address = table.getAddress(slot);
+      if (address == 0
+          || (table.getHashCode(slot) == hashCode
+              && table.getKeyLength(slot) == key.length
+              && equalsKey(address, key))) {
+        return slot;
+      }
+      slot = (slot + 1) & table.mask;
+    }
+  }
+
+  private boolean equalsKey(long address, byte[] key) {
+    ByteBuffer buffer = data.get(getSegment(address));
+    int position = getPosition(address) + ENTRY_HEADER_SIZE;
+    for (int i = 0; i < key.length; i++) {
+      if (buffer.get(position + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Append an entry to the data segments
+   *
+   * @return The address of the entry
+   */
+  private long append(byte[] key, byte[] value) throws HopException {
+    int length = ENTRY_HEADER_SIZE + key.length + value.length;
+    if (length > MAX_DATA_SEGMENT_SIZE) {
+      throw new HopValueException(
+          "The key and value of "
+              + length
+              + " bytes don't fit in an off-heap index segment of "
+              + MAX_DATA_SEGMENT_SIZE
+              + " bytes");
+    }
+
+    if (dataSegment < 0 || dataPosition + length > data.get(dataSegment).capacity()) {
+      // Every new segment is twice as large as the previous one
+      //
+      int segmentSize =
+          dataSegment < 0
+              ? MIN_DATA_SEGMENT_SIZE
+              : Math.min(MAX_DATA_SEGMENT_SIZE, data.get(dataSegment).capacity() * 2);
+      try {
+        dataSegment = data.allocate(Math.max(segmentSize, length));
+      } catch (IOException e) {
+        throw new HopFileException("Unable to extend the off-heap hash index", e);
+      }
+      dataPosition = 0;
+    }
+
+    ByteBuffer buffer = data.get(dataSegment);
+    buffer.putInt(dataPosition, key.length);
+    buffer.putInt(dataPosition + 4, value.length);
+    ByteBuffer view = buffer.duplicate();
+    view.position(dataPosition + ENTRY_HEADER_SIZE);
+    view.put(key);
+    view.put(value);
+
+    long address = ((long) (dataSegment + 1) << 32) | dataPosition;
+    dataPosition += length;
+    return address;
+  }
+
+  /** Double the size of the table and re-distribute the slots */
+  private void resize() throws HopException {
+    SlotTable oldTable = table;
+    SlotTable newTable;
+    try {
+      newTable = new SlotTable(oldTable.capacity * 2);
+    } catch (IOException e) {
+      throw new HopFileException("Unable to extend the off-heap hash index", e);
+    }
+
+    for (long slot = 0; slot < oldTable.capacity; slot++) {
+      long address = oldTable.getAddress(slot);
+      if (address != 0) {
+        int hashCode = oldTable.getHashCode(slot);
+        long newSlot = hashCode & newTable.mask;
+        while (newTable.getAddress(newSlot) != 0) {
+          newSlot = (newSlot + 1) & newTable.mask;
+        }
+        newTable.set(newSlot, address, hashCode, oldTable.getKeyLength(slot));
+      }
+    }
+
+    table = newTable;
+    resizeThreshold = (long) (newTable.capacity * STANDARD_LOAD_FACTOR);
+    oldTable.segments.close();
+  }
+
+  private static int getSegment(long address) {
+    return (int) (address >>> 32) - 1;
+  }
+
+  private static int getPosition(long address) {
+    return (int) address;
+  }
+
+  /**
+   * Calculate the hash code of a serialized key: FNV-1a spread with the murmur3 finalizer.
+   *
+   * @param key The serialized key
+   * @return The hash code
+   */
+  public static int generateHashCode(byte[] key) {
+    int hash = 0x811C9DC5;
+    for (byte b : key) {
+      hash ^= b;
+      hash *= 0x01000193;
+    }
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  /** The open addressing table, divided over segments of at most 64MB */
+  private final class SlotTable {
+    private final OffHeapSegments segments;
+    private final long capacity;
+    private final long mask;
+    private final int segmentBits;
+    private final int segmentMask;
+
+    private SlotTable(long capacity) throws IOException {
+      this.capacity = capacity;
+      this.mask = capacity - 1;
+      int slotsPerSegment = (int) Math.min(capacity, MAX_SLOTS_PER_SEGMENT);
+      this.segmentBits = Integer.numberOfTrailingZeros(slotsPerSegment);
+      this.segmentMask = slotsPerSegment - 1;
+      this.segments = new OffHeapSegments(directory);
+      try {
+        for (long i = 0; i < capacity; i += slotsPerSegment) {
+          segments.allocate(slotsPerSegment * SLOT_SIZE);
+        }
+      } catch (IOException e) {
+        segments.close();
+        throw e;
+      }
+    }
+
+    private ByteBuffer getBuffer(long slot) {
+      return segments.get((int) (slot >>> segmentBits));
+    }
+
+    private int getPosition(long slot) {
+      return ((int) slot & segmentMask) * SLOT_SIZE;
+    }
+
+    private long getAddress(long slot) {
+      return getBuffer(slot).getLong(getPosition(slot));
+    }
+
+    private int getHashCode(long slot) {
+      return getBuffer(slot).getInt(getPosition(slot) + 8);
+    }
+
+    private int getKeyLength(long slot) {
+      return getBuffer(slot).getInt(getPosition(slot) + 12);
+    }
+
+    private void set(long slot, long address, int hashCode, int keyLength) {
+      ByteBuffer buffer = getBuffer(slot);
+      int position = getPosition(slot);
+      buffer.putLong(position, address);
+      buffer.putInt(position + 8, hashCode);
+      buffer.putInt(position + 12, keyLength);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of buffers outside of the Java heap. The buffers are either allocated as direct memory or
+ * mapped in memory from a temporary file. In the latter case the operating system decides which
+ * parts are kept in memory so the total size can exceed the available memory.
+ *
+ * <p>The buffers are freed and the temporary file is removed when the segments are closed, so the
+ * buffers can't be used anymore after that. When the JVM doesn't allow freeing the buffers right
+ * away, they are released by the garbage collector once they are no longer referenced.
+ */
+class OffHeapSegments implements Closeable {
+
+  /** The unsafe instance and its invokeCleaner(ByteBuffer) method, null if not available */
+  private static final Object UNSAFE;
+
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (Exception e) {
+      // Leave the buffers to the garbage collector
+      //
+      unsafe = null;
+      invokeCleaner = null;
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  private final File file;
+  private RandomAccessFile randomAccessFile;
+  private FileChannel channel;
+  private long fileSize;
+
+  private final List<ByteBuffer> segments;
+  private long allocated;
+
+  /**
+   * Create a new list of segments.
+   *
+   * @param directory The directory to map the segments from a temporary file in or null to allocate
+   *     direct memory
+   * @throws IOException In case the temporary file can't be created
+   */
+  OffHeapSegments(File directory) throws IOException {
+    segments = new ArrayList<>();
+    if (directory == null) {
+      file = null;
+    } else {
+      file = File.createTempFile("hop-index", ".tmp", directory);
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      channel = randomAccessFile.getChannel();
+    }
+  }
+
+  /**
+   * Add a new segment.
+   *
+   * @param size The size of the segment in bytes
+   * @return The index of the segment
+   * @throws IOException In case the temporary file can't be extended
+   */
+  int allocate(int size) throws IOException {
+    ByteBuffer buffer;
+    if (channel == null) {
+      buffer = ByteBuffer.allocateDirect(size);
+    } else {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, size);
+      fileSize += size;
+    }
+    segments.add(buffer);
+    allocated += size;
+    return segments.size() - 1;
+  }
+
+  /**
+   * @param index The index of the segment
+   * @return The segment
+   */
+  ByteBuffer get(int index) {
+    return segments.get(index);
+  }
+
+  /**
+   * Gets allocated
+   *
+   * @return value of allocated: the total size of all segments in bytes
+   */
+  long getAllocated() {
+    return allocated;
+  }
+
+  /** Free all the segments and remove the temporary file */
+  @Override
+  public void close() {
+    for (ByteBuffer segment : segments) {
+      free(segment);
+    }
+    segments.clear();
+    allocated = 0;
+    try {
+      if (randomAccessFile != null) {
+        randomAccessFile.close();
+        randomAccessFile = null;
+        channel = null;
+      }
+    } catch (IOException e) {
+      // Ignore, we're removing the file anyway
+    }
+    if (file != null && !file.delete()) {
+      // Mapped files can't be removed on some platforms while the mapping is still around
+      //
+      file.deleteOnExit();
+    }
+  }
+
+  /** Free the memory of a direct buffer or unmap a mapped buffer right away */
+  private static void free(ByteBuffer buffer) {
+    if (INVOKE_CLEANER == null) {
+      return;
+    }
+    try {
+      INVOKE_CLEANER.invoke(UNSAFE, buffer);
+    } catch (Exception e) {
+      // Leave it to the garbage collector
+    }
+  }
+}
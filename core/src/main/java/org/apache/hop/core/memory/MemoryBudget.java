@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.memory;
+
+/**
+ * The memory a single transform can use to keep rows in memory. A transform reserves the estimated
+ * size of the rows it keeps (see {@link RowSizeEstimator}) and spills rows to disk when a
+ * reservation fails. Spilled rows are released again.
+ *
+ * <p>The budget takes memory from its {@link MemoryManager} in chunks. It is not thread-safe: use
+ * it from one thread at a time.
+ */
+public class MemoryBudget implements AutoCloseable {
+
+  private final MemoryManager manager;
+  private final String name;
+  private final long maxSize;
+
+  /** The number of bytes we got from the memory manager */
+  private long granted;
+
+  /** The number of bytes we're using out of the granted ones */
+  private long used;
+
+  private boolean closed;
+
+  MemoryBudget(MemoryManager manager, String name, long maxSize) {
+    this.manager = manager;
+    this.name = name;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Try to reserve memory.
+   *
+   * @param bytes the number of bytes to reserve
+   * @return true if the memory is reserved, false if the budget is exhausted and rows should be
+   *     spilled to disk
+   */
+  public boolean reserve(long bytes) {
+    if (used + bytes <= granted) {
+      used += bytes;
+      return true;
+    }
+    if (closed) {
+      return false;
+    }
+    long needed = used + bytes - granted;
+    long request = roundUp(needed);
+    if (maxSize > 0) {
+      request = Math.min(request, maxSize - granted);
+    }
+    if (request < needed) {
+      return false;
+    }
+    long extra = manager.grant(this, request);
+    if (extra == 0) {
+      return false;
+    }
+    granted += extra;
+    used += bytes;
+    return true;
+  }
+
+  /**
+   * Release memory, for example after rows are spilled to disk or passed on.
+   *
+   * @param bytes the number of bytes to release
+   */
+  public void release(long bytes) {
+    used = Math.max(0, used - bytes);
+
+    // Give the chunks we no longer need back to the pool
+    //
+    long surplus = granted - roundUp(used);
+    if (surplus > 0) {
+      manager.returnMemory(surplus);
+      granted -= surplus;
+    }
+  }
+
+  /** Release all the memory in use */
+  public void releaseAll() {
+    release(used);
+  }
+
+  /** Release all the memory and give up the budget */
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      used = 0;
+      manager.closeBudget(this);
+      granted = 0;
+    }
+  }
+
+  private static long roundUp(long bytes) {
+    long chunk = MemoryManager.CHUNK_SIZE;
+    return (bytes + chunk - 1) / chunk * chunk;
+  }
+
+  /**
+   * Gets name
+   *
+   * @return value of name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets maxSize
+   *
+   * @return the maximum size of the budget in bytes, 0 or less if only limited by the pool
+   */
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Gets granted
+   *
+   * @return the number of bytes this budget got from the memory manager
+   */
+  public long getGranted() {
+    return granted;
+  }
+
+  /**
+   * Gets used
+   *
+   * @return the number of bytes reserved in this budget
+   */
+  public long getUsed() {
+    return used;
+  }
+}
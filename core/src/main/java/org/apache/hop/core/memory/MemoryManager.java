@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.memory;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.apache.hop.core.Const;
+
+/**
+ * Arbitrates the heap memory used by transforms which keep rows in memory and spill them to disk
+ * when they run out of memory, like Sort rows or Group by.
+ *
+ * <p>All these transforms share a pool which is a percentage of the maximum heap (see {@link
+ * Const#HOP_TRANSFORM_MEMORY_POOL_PERCENTAGE}). Every transform gets its own {@link MemoryBudget}
+ * from the pool. The pool is never handed out beyond its size. A budget can grow beyond its fair
+ * share, the pool divided by the number of open budgets, while the pool still has room. When a
+ * budget below its fair share finds the pool in use, budgets over their fair share get refused
+ * until it got memory: they spill and give their memory back. This way a single sort can use the
+ * whole pool, while several concurrent sorts spill in time instead of running the JVM out of
+ * memory.
+ */
+public class MemoryManager {
+
+  /** Budgets take memory from the pool in chunks of this size to keep contention low */
+  public static final long CHUNK_SIZE = 1024L * 1024L;
+
+  private static MemoryManager instance;
+
+  private final long poolSize;
+  private long reserved;
+  private int nrBudgets;
+
+  /** The budgets below their fair share which were refused because the pool is in use */
+  private final Set<MemoryBudget> waiting = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * Create a memory manager with a pool of the given size.
+   *
+   * @param poolSize the size of the pool in bytes
+   */
+  public MemoryManager(long poolSize) {
+    this.poolSize = Math.max(CHUNK_SIZE, poolSize);
+  }
+
+  /**
+   * Get the memory manager shared by all transforms in this JVM.
+   *
+   * @return The JVM-wide memory manager
+   */
+  public static synchronized MemoryManager getInstance() {
+    if (instance == null) {
+      int percentage =
+          Const.toInt(
+              Const.getEnvironmentVariable(Const.HOP_TRANSFORM_MEMORY_POOL_PERCENTAGE, null), 50);
+      percentage = Math.max(1, Math.min(100, percentage));
+      instance = new MemoryManager(Runtime.getRuntime().maxMemory() / 100 * percentage);
+    }
+    return instance;
+  }
+
+  /**
+   * Open a new budget.
+   *
+   * @param name The name of the budget, usually the name of the transform
+   * @param maxSize The maximum size of the budget in bytes, 0 or less to only be limited by the
+   *     pool
+   * @return The new budget, close it when you're done
+   */
+  public synchronized MemoryBudget createBudget(String name, long maxSize) {
+    nrBudgets++;
+    return new MemoryBudget(this, name, maxSize);
+  }
+
+  /**
+   * Give a budget more memory.
+   *
+   * @return the number of bytes granted: the requested number or 0
+   */
+  synchronized long grant(MemoryBudget budget, long requested) {
+    long newSize = budget.getGranted() + requested;
+    if (budget.getMaxSize() > 0 && newSize > budget.getMaxSize()) {
+      return 0;
+    }
+    boolean withinFairShare = newSize <= getFairShare();
+    if (!withinFairShare && !waiting.isEmpty()) {
+      // Make this budget spill so the ones waiting for their fair share get memory
+      //
+      return 0;
+    }
+    if (reserved + requested > poolSize) {
+      if (withinFairShare) {
+        waiting.add(budget);
+      }
+      return 0;
+    }
+    waiting.remove(budget);
+    reserved += requested;
+    return requested;
+  }
+
+  /** Give memory of a budget back to the pool */
+  synchronized void returnMemory(long bytes) {
+    reserved = Math.max(0, reserved - bytes);
+  }
+
+  /** Give all the memory of a budget back to the pool and forget about it */
+  synchronized void closeBudget(MemoryBudget budget) {
+    waiting.remove(budget);
+    returnMemory(budget.getGranted());
+    nrBudgets = Math.max(0, nrBudgets - 1);
+  }
+
+  /**
+   * Gets poolSize
+   *
+   * @return value of poolSize
+   */
+  public long getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * Gets reserved
+   *
+   * @return the number of bytes which are currently given to budgets
+   */
+  public synchronized long getReserved() {
+    return reserved;
+  }
+
+  /**
+   * Gets the fair share
+   *
+   * @return the number of bytes a budget can always use: the pool divided by the number of budgets
+   */
+  public synchronized long getFairShare() {
+    return poolSize / Math.max(1, nrBudgets);
+  }
+
+  /**
+   * Gets nrBudgets
+   *
+   * @return the number of open budgets
+   */
+  public synchronized int getNrBudgets() {
+    return nrBudgets;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.memory;
+
+import org.apache.hop.core.row.IRowMeta;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Estimates the heap size of rows. The estimates assume a 64-bit JVM with compressed object
+ * pointers and compact strings. They are meant to be cheap and in the right ballpark, not exact.
+ */
+public final class RowSizeEstimator {
+
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+
+  private static final int BOXED_NUMBER = 16;
+  private static final int DATE = 24;
+  private static final int TIMESTAMP = 32;
+  private static final int STRING = 24 + ARRAY_HEADER;
+  private static final int BIG_DECIMAL = 40 + 40 + ARRAY_HEADER;
+  private static final int UNKNOWN = 64;
+
+  private RowSizeEstimator() {}
+
+  /**
+   * Estimate the number of bytes a row takes on the heap.
+   *
+   * @param rowMeta The metadata of the row
+   * @param row The row data
+   * @return The estimated number of bytes
+   */
+  public static long estimateRowSize(IRowMeta rowMeta, Object[] row) {
+    if (row == null) {
+      return 0;
+    }
+    long size = align(ARRAY_HEADER + (long) REFERENCE * row.length);
+    int nrValues = Math.min(rowMeta.size(), row.length);
+    for (int i = 0; i < nrValues; i++) {
+      size += estimateValueSize(row[i]);
+    }
+    return size;
+  }
+
+  /**
+   * Estimate the number of bytes a single value takes on the heap.
+   *
+   * @param value The value
+   * @return The estimated number of bytes, 0 for null and shared values
+   */
+  public static long estimateValueSize(Object value) {
+    if (value == null || value instanceof Boolean) {
+      return 0;
+    }
+    if (value instanceof String) {
+      return align(STRING + (long) ((String) value).length());
+    }
+    if (value instanceof Long || value instanceof Double || value instanceof Integer) {
+      return BOXED_NUMBER;
+    }
+    if (value instanceof byte[]) {
+      return align(ARRAY_HEADER + (long) ((byte[]) value).length);
+    }
+    if (value instanceof Timestamp) {
+      return TIMESTAMP;
+    }
+    if (value instanceof Date) {
+      return DATE;
+    }
+    if (value instanceof BigDecimal) {
+      return align(BIG_DECIMAL + ((BigDecimal) value).precision() / 2L);
+    }
+    return UNKNOWN;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+}
@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.exception.HopValueException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Keeps the state of numeric aggregations (sum, minimum, maximum) in primitive arrays, one slot per
+ * aggregation, so that aggregating a row doesn't allocate a new boxed value. Integers are summed
+ * in a long, numbers in a double with compensated (Kahan-Babuska) summation to limit the rounding
+ * error on large groups. Other data types like big numbers should be aggregated with {@link
+ * ValueDataUtil}.
+ */
+public class NumericAccumulator implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** The values can't be accumulated in primitives */
+  public static final int TYPE_NONE = 0;
+
+  /** The values are accumulated in a long */
+  public static final int TYPE_INTEGER = 1;
+
+  /** The values are accumulated in a double */
+  public static final int TYPE_NUMBER = 2;
+
+  private final long[] longs;
+  private final double[] doubles;
+  private final double[] compensations;
+  private final boolean[] hasValue;
+
+  /**
+   * Create a new accumulator
+   *
+   * @param size The number of slots
+   */
+  public NumericAccumulator(int size) {
+    longs = new long[size];
+    doubles = new double[size];
+    compensations = new double[size];
+    hasValue = new boolean[size];
+  }
+
+  /**
+   * Determine how the values of the given type can be accumulated.
+   *
+   * @param valueMeta The metadata of the values to accumulate
+   * @return {@link #TYPE_INTEGER}, {@link #TYPE_NUMBER} or {@link #TYPE_NONE}
+   */
+  public static int getAccumulatorType(IValueMeta valueMeta) {
+    if (valueMeta == null) {
+      return TYPE_NONE;
+    }
+    switch (valueMeta.getType()) {
+      case IValueMeta.TYPE_INTEGER:
+        return TYPE_INTEGER;
+      case IValueMeta.TYPE_NUMBER:
+        return TYPE_NUMBER;
+      default:
+        return TYPE_NONE;
+    }
+  }
+
+  /** Reset all the slots for a new group */
+  public void clear() {
+    Arrays.fill(longs, 0L);
+    Arrays.fill(doubles, 0.0);
+    Arrays.fill(compensations, 0.0);
+    Arrays.fill(hasValue, false);
+  }
+
+  /**
+   * Add a value to the sum in a slot. Null values are ignored.
+   *
+   * @param index The slot
+   * @param type The accumulator type of the slot
+   * @param valueMeta The metadata of the value
+   * @param value The value
+   * @throws HopValueException In case the value can't be converted
+   */
+  public void sum(int index, int type, IValueMeta valueMeta, Object value)
+      throws HopValueException {
+    if (type == TYPE_INTEGER) {
+      Long number = valueMeta.getInteger(value);
+      if (number != null) {
+        longs[index] += number;
+        hasValue[index] = true;
+      }
+    } else {
+      Double number = valueMeta.getNumber(value);
+      if (number != null) {
+        sum(index, number.doubleValue());
+      }
+    }
+  }
+
+  private void sum(int index, double number) {
+    double sum = doubles[index];
+    double total = sum + number;
+    if (Math.abs(sum) >= Math.abs(number)) {
+      compensations[index] += (sum - total) + number;
+    } else {
+      compensations[index] += (number - total) + sum;
+    }
+    doubles[index] = total;
+    hasValue[index] = true;
+  }
+
+  /**
+   * Keep the minimum value in a slot. Null values are ignored.
+   *
+   * @param index The slot
+   * @param type The accumulator type of the slot
+   * @param valueMeta The metadata of the value
+   * @param value The value
+   * @throws HopValueException In case the value can't be converted
+   */
+  public void min(int index, int type, IValueMeta valueMeta, Object value)
+      throws HopValueException {
+    if (type == TYPE_INTEGER) {
+      Long number = valueMeta.getInteger(value);
+      if (number != null && (!hasValue[index] || number < longs[index])) {
+        longs[index] = number;
+        hasValue[index] = true;
+      }
+    } else {
+      Double number = valueMeta.getNumber(value);
+      if (number != null && (!hasValue[index] || number < doubles[index])) {
+        doubles[index] = number;
+        hasValue[index] = true;
+      }
+    }
+  }
+
+  /**
+   * Keep the maximum value in a slot. Null values are ignored.
+   *
+   * @param index The slot
+   * @param type The accumulator type of the slot
+   * @param valueMeta The metadata of the value
+   * @param value The value
+   * @throws HopValueException In case the value can't be converted
+   */
+  public void max(int index, int type, IValueMeta valueMeta, Object value)
+      throws HopValueException {
+    if (type == TYPE_INTEGER) {
+      Long number = valueMeta.getInteger(value);
+      if (number != null && (!hasValue[index] || number > longs[index])) {
+        longs[index] = number;
+        hasValue[index] = true;
+      }
+    } else {
+      Double number = valueMeta.getNumber(value);
+      if (number != null && (!hasValue[index] || number > doubles[index])) {
+        doubles[index] = number;
+        hasValue[index] = true;
+      }
+    }
+  }
+
+  /**
+   * Add the sum of a slot of another accumulator to the sum in a slot of this accumulator.
+   *
+   * @param index The slot
+   * @param type The accumulator type of the slot
+   * @param other The accumulator holding a partial sum
+   * @param otherIndex The slot in the other accumulator
+   */
+  public void mergeSum(int index, int type, NumericAccumulator other, int otherIndex) {
+    if (!other.hasValue[otherIndex]) {
+      return;
+    }
+    if (type == TYPE_INTEGER) {
+      longs[index] += other.longs[otherIndex];
+      hasValue[index] = true;
+    } else {
+      sum(index, other.doubles[otherIndex]);
+      compensations[index] += other.compensations[otherIndex];
+    }
+  }
+
+  /**
+   * Keep the minimum of a slot of this accumulator and a slot of another accumulator.
+   *
+   * @param index The slot
+   * @param type The accumulator type of the slot
+   * @param other The accumulator holding a partial minimum
+   * @param otherIndex The slot in the other accumulator
+   */
+  public void mergeMin(int index, int type, NumericAccumulator other, int otherIndex) {
+    if (!other.hasValue[otherIndex]) {
+      return;
+    }
+    if (type == TYPE_INTEGER) {
+      long number = other.longs[otherIndex];
+      if (!hasValue[index] || number < longs[index]) {
+        longs[index] = number;
+      }
+    } else {
+      double number = other.doubles[otherIndex];
+      if (!hasValue[index] || number < doubles[index]) {
+        doubles[index] = number;
+      }
+    }
+    hasValue[index] = true;
+  }
+
+  /**
+   * Keep the maximum of a slot of this accumulator and a slot of another accumulator.
+   *
+   * @param index The slot
+   * @param type The accumulator type of the slot
+   * @param other The accumulator holding a partial maximum
+   * @param otherIndex The slot in the other accumulator
+   */
+  public void mergeMax(int index, int type, NumericAccumulator other, int otherIndex) {
+    if (!other.hasValue[otherIndex]) {
+      return;
+    }
+    if (type == TYPE_INTEGER) {
+      long number = other.longs[otherIndex];
+      if (!hasValue[index] || number > longs[index]) {
+        longs[index] = number;
+      }
+    } else {
+      double number = other.doubles[otherIndex];
+      if (!hasValue[index] || number > doubles[index]) {
+        doubles[index] = number;
+      }
+    }
+    hasValue[index] = true;
+  }
+
+  /**
+   * @param index The slot
+   * @return true if a non-null value was accumulated in the slot
+   */
+  public boolean hasValue(int index) {
+    return hasValue[index];
+  }
+
+  /**
+   * @param index The slot
+   * @return The accumulated long value of the slot
+   */
+  public long getLong(int index) {
+    return longs[index];
+  }
+
+  /**
+   * @param index The slot
+   * @return The accumulated double value of the slot, including the summation compensation
+   */
+  public double getDouble(int index) {
+    return doubles[index] + compensations[index];
+  }
+
+  /**
+   * Get the accumulated value of a slot as a value of the accumulator type.
+   *
+   * @param index The slot
+   * @param type The accumulator type of the slot
+   * @return a Long or Double value or null if no non-null value was accumulated
+   */
+  public Object getValue(int index, int type) {
+    if (!hasValue[index]) {
+      return null;
+    }
+    if (type == TYPE_INTEGER) {
+      return longs[index];
+    }
+    return getDouble(index);
+  }
+
+  /**
+   * Get the average of the accumulated sum in a slot.
+   *
+   * @param index The slot
+   * @param type The accumulator type of the slot
+   * @param count The number of values summed
+   * @return a Long or Double value or null if no non-null value was accumulated. Integers are
+   *     divided using integer division, like {@link ValueDataUtil#divide(IValueMeta, Object,
+   *     IValueMeta, Object)}.
+   */
+  public Object getAverage(int index, int type, long count) {
+    if (!hasValue[index] || count == 0) {
+      return null;
+    }
+    if (type == TYPE_INTEGER) {
+      return longs[index] / count;
+    }
+    return getDouble(index) / count;
+  }
+
+  /**
+   * Write the state of all the slots, for example to a temporary file.
+   *
+   * @param outputStream The stream to write to
+   * @throws IOException In case of an I/O error
+   */
+  public void write(DataOutputStream outputStream) throws IOException {
+    outputStream.writeInt(longs.length);
+    for (int i = 0; i < longs.length; i++) {
+      outputStream.writeBoolean(hasValue[i]);
+      if (hasValue[i]) {
+        outputStream.writeLong(longs[i]);
+        outputStream.writeDouble(doubles[i]);
+        outputStream.writeDouble(compensations[i]);
+      }
+    }
+  }
+
+  /**
+   * Read the state of an accumulator written with {@link #write(DataOutputStream)}
+   *
+   * @param inputStream The stream to read from
+   * @return The accumulator
+   * @throws IOException In case of an I/O error
+   */
+  public static NumericAccumulator read(DataInputStream inputStream) throws IOException {
+    NumericAccumulator accumulator = new NumericAccumulator(inputStream.readInt());
+    for (int i = 0; i < accumulator.longs.length; i++) {
+      accumulator.hasValue[i] = inputStream.readBoolean();
+      if (accumulator.hasValue[i]) {
+        accumulator.longs[i] = inputStream.readLong();
+        accumulator.doubles[i] = inputStream.readDouble();
+        accumulator.compensations[i] = inputStream.readDouble();
+      }
+    }
+    return accumulator;
+  }
+}
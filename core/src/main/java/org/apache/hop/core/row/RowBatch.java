@@ -0,0 +1,490 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.exception.HopValueException;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A reusable batch of rows with the same layout. Next to the rows themselves the batch offers a
+ * columnar view on the Integer, Number, Boolean and Date values in primitive arrays. That allows
+ * transforms to process a column in a tight loop without unboxing every value.
+ *
+ * <p>The columnar views are extracted from the rows when they're first asked for. When a transform
+ * changes the values in a primitive array it calls {@link #setColumnModified(int)} and the values
+ * are written back to the rows when these are retrieved with {@link #getRow(int)}. When a
+ * transform changes values in the rows directly it calls {@link #invalidateColumn(int)} to drop
+ * the columnar view.
+ *
+ * <p>Only values using normal storage get a primitive view, all other columns are {@link
+ * ColumnType#OBJECT} columns.
+ */
+public class RowBatch {
+
+  public enum ColumnType {
+    /** Integer values in a long[] */
+    LONG,
+    /** Number values in a double[] */
+    DOUBLE,
+    /** Boolean values in a boolean[] */
+    BOOLEAN,
+    /** Date values as milliseconds since the epoch in a long[] */
+    DATE,
+    /** Any other value, only available in the rows */
+    OBJECT;
+  }
+
+  private final IRowMeta rowMeta;
+  private final int capacity;
+  private final Object[][] rows;
+  private int size;
+
+  private final ColumnType[] columnTypes;
+  private final long[][] longColumns;
+  private final double[][] doubleColumns;
+  private final boolean[][] booleanColumns;
+  private final boolean[][] nullColumns;
+  private final boolean[] loaded;
+  private final boolean[] modified;
+  private boolean anyModified;
+
+  /**
+   * Create a new empty batch of rows
+   *
+   * @param rowMeta The layout of the rows in this batch
+   * @param capacity The maximum number of rows in this batch
+   */
+  public RowBatch(IRowMeta rowMeta, int capacity) {
+    this.rowMeta = rowMeta;
+    this.capacity = capacity;
+    this.rows = new Object[capacity][];
+    this.size = 0;
+
+    int nrColumns = rowMeta.size();
+    columnTypes = new ColumnType[nrColumns];
+    longColumns = new long[nrColumns][];
+    doubleColumns = new double[nrColumns][];
+    booleanColumns = new boolean[nrColumns][];
+    nullColumns = new boolean[nrColumns][];
+    loaded = new boolean[nrColumns];
+    modified = new boolean[nrColumns];
+
+    for (int i = 0; i < nrColumns; i++) {
+      columnTypes[i] = getColumnType(rowMeta.getValueMeta(i));
+    }
+  }
+
+  /**
+   * Determine how the values of the given value metadata are kept in a batch.
+   *
+   * @param valueMeta The value metadata
+   * @return the column type
+   */
+  public static ColumnType getColumnType(IValueMeta valueMeta) {
+    if (!valueMeta.isStorageNormal()) {
+      return ColumnType.OBJECT;
+    }
+    switch (valueMeta.getType()) {
+      case IValueMeta.TYPE_INTEGER:
+        return ColumnType.LONG;
+      case IValueMeta.TYPE_NUMBER:
+        return ColumnType.DOUBLE;
+      case IValueMeta.TYPE_BOOLEAN:
+        return ColumnType.BOOLEAN;
+      case IValueMeta.TYPE_DATE:
+        return ColumnType.DATE;
+      default:
+        return ColumnType.OBJECT;
+    }
+  }
+
+  /**
+   * Add a row to the end of this batch.
+   *
+   * @param row The row to add
+   */
+  public void addRow(Object[] row) {
+    if (size >= capacity) {
+      throw new IndexOutOfBoundsException(
+          "Unable to add a row to a batch which is full (capacity " + capacity + ")");
+    }
+    flush();
+    rows[size++] = row;
+
+    // The columnar views no longer cover all the rows
+    //
+    Arrays.fill(loaded, false);
+  }
+
+  /**
+   * Get a row from this batch. Modified column values are written back to the rows first.
+   *
+   * @param index The index of the row in this batch
+   * @return The row
+   */
+  public Object[] getRow(int index) {
+    flush();
+    return rows[index];
+  }
+
+  /** Remove all rows from this batch so it can be re-used. */
+  public void clear() {
+    Arrays.fill(rows, 0, size, null);
+    size = 0;
+    Arrays.fill(loaded, false);
+    Arrays.fill(modified, false);
+    anyModified = false;
+  }
+
+  /**
+   * Only keep the rows for which the corresponding flag is true. The order of the remaining rows
+   * is preserved.
+   *
+   * @param keep A flag for every row in this batch
+   * @return The new number of rows in the batch
+   */
+  public int retain(boolean[] keep) {
+    int target = 0;
+    for (int i = 0; i < size; i++) {
+      if (keep[i]) {
+        if (target != i) {
+          rows[target] = rows[i];
+          for (int c = 0; c < columnTypes.length; c++) {
+            if (loaded[c]) {
+              moveColumnValue(c, i, target);
+            }
+          }
+        }
+        target++;
+      }
+    }
+    Arrays.fill(rows, target, size, null);
+    size = target;
+    return size;
+  }
+
+  private void moveColumnValue(int column, int from, int to) {
+    nullColumns[column][to] = nullColumns[column][from];
+    switch (columnTypes[column]) {
+      case LONG:
+      case DATE:
+        longColumns[column][to] = longColumns[column][from];
+        break;
+      case DOUBLE:
+        doubleColumns[column][to] = doubleColumns[column][from];
+        break;
+      case BOOLEAN:
+        booleanColumns[column][to] = booleanColumns[column][from];
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Get the Integer or Date values of a column. Null values have a 0 value, see {@link
+   * #getNulls(int)}.
+   *
+   * @param column The index of the column
+   * @return The values of the column, one for every row in the batch
+   * @throws HopValueException In case the column is not an Integer or Date column.
+   */
+  public long[] getLongs(int column) throws HopValueException {
+    checkColumnType(column, ColumnType.LONG, ColumnType.DATE);
+    load(column);
+    return longColumns[column];
+  }
+
+  /**
+   * Get the Number values of a column. Null values have a 0 value, see {@link #getNulls(int)}.
+   *
+   * @param column The index of the column
+   * @return The values of the column, one for every row in the batch
+   * @throws HopValueException In case the column is not a Number column.
+   */
+  public double[] getDoubles(int column) throws HopValueException {
+    checkColumnType(column, ColumnType.DOUBLE);
+    load(column);
+    return doubleColumns[column];
+  }
+
+  /**
+   * Get the Boolean values of a column. Null values are false, see {@link #getNulls(int)}.
+   *
+   * @param column The index of the column
+   * @return The values of the column, one for every row in the batch
+   * @throws HopValueException In case the column is not a Boolean column.
+   */
+  public boolean[] getBooleans(int column) throws HopValueException {
+    checkColumnType(column, ColumnType.BOOLEAN);
+    load(column);
+    return booleanColumns[column];
+  }
+
+  /**
+   * Get the null indicators of a column.
+   *
+   * @param column The index of the column
+   * @return true for every row with a null value in the given column
+   * @throws HopValueException In case the null indicator can't be determined
+   */
+  public boolean[] getNulls(int column) throws HopValueException {
+    load(column);
+    return nullColumns[column];
+  }
+
+  /**
+   * Signal that the values in the primitive arrays of a column were changed. These values will be
+   * written back to the rows.
+   *
+   * @param column The index of the column
+   */
+  public void setColumnModified(int column) {
+    if (!loaded[column]) {
+      throw new IllegalStateException(
+          "Column " + column + " can't be modified without retrieving its values first");
+    }
+    modified[column] = true;
+    anyModified = true;
+  }
+
+  /**
+   * Start a columnar view of a column with only null values without looking at the rows. This is
+   * used for columns which are about to be calculated.
+   *
+   * @param column The index of the column
+   */
+  public void clearColumn(int column) {
+    boolean[] nulls = nullColumns[column];
+    if (nulls == null) {
+      nulls = new boolean[capacity];
+      nullColumns[column] = nulls;
+    }
+    Arrays.fill(nulls, 0, size, true);
+    switch (columnTypes[column]) {
+      case LONG:
+      case DATE:
+        Arrays.fill(longColumn(column), 0, size, 0L);
+        break;
+      case DOUBLE:
+        if (doubleColumns[column] == null) {
+          doubleColumns[column] = new double[capacity];
+        }
+        Arrays.fill(doubleColumns[column], 0, size, 0.0);
+        break;
+      case BOOLEAN:
+        if (booleanColumns[column] == null) {
+          booleanColumns[column] = new boolean[capacity];
+        }
+        Arrays.fill(booleanColumns[column], 0, size, false);
+        break;
+      default:
+        break;
+    }
+    loaded[column] = true;
+  }
+
+  /**
+   * Drop the columnar view of a column because the values in the rows were changed directly.
+   *
+   * @param column The index of the column
+   */
+  public void invalidateColumn(int column) {
+    flush();
+    loaded[column] = false;
+  }
+
+  private void checkColumnType(int column, ColumnType... types) throws HopValueException {
+    for (ColumnType type : types) {
+      if (columnTypes[column] == type) {
+        return;
+      }
+    }
+    throw new HopValueException(
+        "Column "
+            + rowMeta.getValueMeta(column).toStringMeta()
+            + " is not available as "
+            + Arrays.toString(types)
+            + " in a batch of rows");
+  }
+
+  /** Extract the values of a column from the rows. */
+  private void load(int column) throws HopValueException {
+    if (loaded[column]) {
+      return;
+    }
+    boolean[] nulls = nullColumns[column];
+    if (nulls == null) {
+      nulls = new boolean[capacity];
+      nullColumns[column] = nulls;
+    }
+
+    switch (columnTypes[column]) {
+      case LONG:
+        {
+          long[] values = longColumn(column);
+          for (int i = 0; i < size; i++) {
+            Object value = rows[i][column];
+            nulls[i] = value == null;
+            values[i] = value == null ? 0L : ((Long) value).longValue();
+          }
+        }
+        break;
+      case DATE:
+        {
+          long[] values = longColumn(column);
+          for (int i = 0; i < size; i++) {
+            Object value = rows[i][column];
+            nulls[i] = value == null;
+            values[i] = value == null ? 0L : ((Date) value).getTime();
+          }
+        }
+        break;
+      case DOUBLE:
+        {
+          double[] values = doubleColumns[column];
+          if (values == null) {
+            values = new double[capacity];
+            doubleColumns[column] = values;
+          }
+          for (int i = 0; i < size; i++) {
+            Object value = rows[i][column];
+            nulls[i] = value == null;
+            values[i] = value == null ? 0.0 : ((Double) value).doubleValue();
+          }
+        }
+        break;
+      case BOOLEAN:
+        {
+          boolean[] values = booleanColumns[column];
+          if (values == null) {
+            values = new boolean[capacity];
+            booleanColumns[column] = values;
+          }
+          for (int i = 0; i < size; i++) {
+            Object value = rows[i][column];
+            nulls[i] = value == null;
+            values[i] = value != null && ((Boolean) value).booleanValue();
+          }
+        }
+        break;
+      default:
+        {
+          IValueMeta valueMeta = rowMeta.getValueMeta(column);
+          for (int i = 0; i < size; i++) {
+            nulls[i] = valueMeta.isNull(rows[i][column]);
+          }
+        }
+        break;
+    }
+    loaded[column] = true;
+  }
+
+  private long[] longColumn(int column) {
+    long[] values = longColumns[column];
+    if (values == null) {
+      values = new long[capacity];
+      longColumns[column] = values;
+    }
+    return values;
+  }
+
+  /** Write the modified columns back to the rows */
+  private void flush() {
+    if (!anyModified) {
+      return;
+    }
+    for (int column = 0; column < modified.length; column++) {
+      if (!modified[column]) {
+        continue;
+      }
+      boolean[] nulls = nullColumns[column];
+      switch (columnTypes[column]) {
+        case LONG:
+          for (int i = 0; i < size; i++) {
+            rows[i][column] = nulls[i] ? null : Long.valueOf(longColumns[column][i]);
+          }
+          break;
+        case DATE:
+          for (int i = 0; i < size; i++) {
+            rows[i][column] = nulls[i] ? null : new Date(longColumns[column][i]);
+          }
+          break;
+        case DOUBLE:
+          for (int i = 0; i < size; i++) {
+            rows[i][column] = nulls[i] ? null : Double.valueOf(doubleColumns[column][i]);
+          }
+          break;
+        case BOOLEAN:
+          for (int i = 0; i < size; i++) {
+            rows[i][column] = nulls[i] ? null : Boolean.valueOf(booleanColumns[column][i]);
+          }
+          break;
+        default:
+          break;
+      }
+      modified[column] = false;
+    }
+    anyModified = false;
+  }
+
+  /**
+   * Gets rowMeta
+   *
+   * @return value of rowMeta
+   */
+  public IRowMeta getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * Gets the type of a column
+   *
+   * @param column The index of the column
+   * @return The way the values of the column are kept in this batch
+   */
+  public ColumnType getColumnType(int column) {
+    return columnTypes[column];
+  }
+
+  /**
+   * Gets capacity
+   *
+   * @return The maximum number of rows in this batch
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** @return The number of rows in this batch */
+  public int size() {
+    return size;
+  }
+
+  /** @return true if there are no rows in this batch */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** @return true if no more rows can be added to this batch */
+  public boolean isFull() {
+    return size >= capacity;
+  }
+}
@@ -0,0 +1,635 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.exception.HopEofException;
+import org.apache.hop.core.exception.HopFileException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of rows for temporary (spill) files and other streams which are
+ * written and read back with the same row metadata.
+ *
+ * <p>Compared to {@link IRowMeta#writeData(DataOutputStream, Object[])} the codec writes a null
+ * bitmap per row instead of a flag per value, variable length (zig-zag) integers and dates,
+ * length-prefixed UTF-8 strings and optionally replaces repeated strings by a reference into a
+ * dictionary which is built up while the stream is written. Every row is encoded into a buffer
+ * which is re-used from row to row and written to the stream in one go, preceded by its length.
+ *
+ * <p>A stream starts with a header containing a magic number and a version. When reading, streams
+ * without that header are read with {@link IRowMeta#readData(DataInputStream)} so that files
+ * written by older versions can still be read back. This requires an input stream which supports
+ * mark and reset, like a {@link java.io.BufferedInputStream}.
+ *
+ * <p>A codec keeps state about the stream it works on: use one instance per stream, and one
+ * thread per instance.
+ */
+public class RowCodec {
+
+  /** The first bytes of a stream written by this codec: "HopR" */
+  public static final int MAGIC = 0x486F7052;
+
+  /** The current version of the row encoding */
+  public static final int VERSION = 1;
+
+  /** Header flag indicating that strings are encoded using a dictionary */
+  private static final int FLAG_DICTIONARY = 0x01;
+
+  /** The maximum number of strings we keep in the dictionary of a stream */
+  private static final int MAX_DICTIONARY_SIZE = 65536;
+
+  /** Longer strings are never added to the dictionary */
+  private static final int MAX_DICTIONARY_STRING_LENGTH = 64;
+
+  private final IRowMeta rowMeta;
+  private final IValueMeta[] valueMetas;
+  private final int nullBitmapSize;
+
+  private boolean useDictionary;
+  private Map<String, Integer> writeDictionary;
+  private List<String> readDictionary;
+
+  /** True if the input stream didn't start with a header: read using the row metadata */
+  private boolean legacy;
+
+  private final byte[] prefix = new byte[5];
+  private byte[] buffer;
+  private int position;
+  private int limit;
+
+  private DataOutputStream bufferOutputStream;
+  private DataInputStream bufferInputStream;
+
+  /**
+   * Create a new codec without string dictionary for the given row metadata.
+   *
+   * @param rowMeta The metadata of the rows to write or read
+   */
+  public RowCodec(IRowMeta rowMeta) {
+    this(rowMeta, false);
+  }
+
+  /**
+   * Create a new codec for the given row metadata.
+   *
+   * @param rowMeta The metadata of the rows to write or read
+   * @param useDictionary true if repeated strings should be written as a dictionary reference.
+   *     This option is only used when writing: when reading, the header of the stream decides.
+   */
+  public RowCodec(IRowMeta rowMeta, boolean useDictionary) {
+    this.rowMeta = rowMeta;
+    this.valueMetas = rowMeta.getValueMetaList().toArray(new IValueMeta[0]);
+    this.nullBitmapSize = (valueMetas.length + 7) / 8;
+    this.useDictionary = useDictionary;
+    this.buffer = new byte[Math.max(64, valueMetas.length * 16)];
+  }
+
+  /**
+   * Write the header of the stream: the magic number, the version and the encoding flags.
+   *
+   * @param outputStream The stream to write to
+   * @throws HopFileException In case of an I/O error
+   */
+  public void writeHeader(OutputStream outputStream) throws HopFileException {
+    try {
+      outputStream.write(
+          new byte[] {
+            (byte) (MAGIC >>> 24),
+            (byte) (MAGIC >>> 16),
+            (byte) (MAGIC >>> 8),
+            (byte) MAGIC,
+            (byte) VERSION,
+            (byte) (useDictionary ? FLAG_DICTIONARY : 0)
+          });
+    } catch (IOException e) {
+      throw new HopFileException("Unable to write the row codec header", e);
+    }
+  }
+
+  /**
+   * Read the header of the stream. If the stream doesn't start with a header and supports mark and
+   * reset, it is considered to be written with {@link IRowMeta#writeData(DataOutputStream,
+   * Object[])} and the rows will be read accordingly.
+   *
+   * @param inputStream The stream to read from
+   * @throws HopFileException In case of an I/O error or an unsupported version
+   */
+  public void readHeader(InputStream inputStream) throws HopFileException {
+    try {
+      boolean markSupported = inputStream.markSupported();
+      if (markSupported) {
+        inputStream.mark(8);
+      }
+      byte[] magic = new byte[4];
+      int read = readFully(inputStream, magic, 0, magic.length);
+      int value =
+          ((magic[0] & 0xFF) << 24)
+              | ((magic[1] & 0xFF) << 16)
+              | ((magic[2] & 0xFF) << 8)
+              | (magic[3] & 0xFF);
+      if (read < magic.length || value != MAGIC) {
+        if (!markSupported) {
+          throw new HopFileException(
+              "The stream doesn't start with a row codec header and can't be reset to read it"
+                  + " as regular row data");
+        }
+        inputStream.reset();
+        legacy = true;
+        return;
+      }
+      int version = inputStream.read();
+      int flags = inputStream.read();
+      if (version < 0 || flags < 0) {
+        throw new HopEofException("End of file while reading the row codec header");
+      }
+      if (version > VERSION) {
+        throw new HopFileException(
+            "Row codec version " + version + " is not supported, the maximum is " + VERSION);
+      }
+      useDictionary = (flags & FLAG_DICTIONARY) != 0;
+      legacy = false;
+    } catch (IOException e) {
+      throw new HopFileException("Unable to read the row codec header", e);
+    }
+  }
+
+  /**
+   * Gets legacy
+   *
+   * @return true if the stream being read has no header and is read using the row metadata
+   */
+  public boolean isLegacy() {
+    return legacy;
+  }
+
+  /**
+   * Gets useDictionary
+   *
+   * @return value of useDictionary
+   */
+  public boolean isUseDictionary() {
+    return useDictionary;
+  }
+
+  /**
+   * Encode a row and write it to the given stream.
+   *
+   * @param outputStream The stream to write to
+   * @param row The row data to write
+   * @throws HopFileException In case of an I/O error or if a value can't be encoded
+   */
+  public void writeRow(OutputStream outputStream, Object[] row) throws HopFileException {
+    position = 0;
+    ensureCapacity(nullBitmapSize);
+    Arrays.fill(buffer, 0, nullBitmapSize, (byte) 0);
+    position = nullBitmapSize;
+
+    for (int i = 0; i < valueMetas.length; i++) {
+      Object object = i < row.length ? row[i] : null;
+      if (object == null) {
+        buffer[i >>> 3] |= (byte) (1 << (i & 7));
+      } else {
+        writeValue(valueMetas[i], object);
+      }
+    }
+
+    try {
+      // The length of the row first, then the encoded row itself
+      //
+      int length = position;
+      int prefixLength = 0;
+      int value = length;
+      while ((value & ~0x7F) != 0) {
+        prefix[prefixLength++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      prefix[prefixLength++] = (byte) value;
+      outputStream.write(prefix, 0, prefixLength);
+      outputStream.write(buffer, 0, length);
+    } catch (IOException e) {
+      throw new HopFileException(rowMeta.toString() + " : Unable to write row to output stream", e);
+    }
+  }
+
+  /**
+   * Read and decode a row from the given stream.
+   *
+   * @param inputStream The stream to read from
+   * @return The row data
+   * @throws HopEofException When the end of the stream is reached
+   * @throws HopFileException In case of an I/O error or a corrupt stream
+   * @throws SocketTimeoutException In case a socket read timed out
+   */
+  public Object[] readRow(DataInputStream inputStream)
+      throws HopFileException, SocketTimeoutException {
+    if (legacy) {
+      return rowMeta.readData(inputStream);
+    }
+    try {
+      int length = readLength(inputStream);
+      if (buffer.length < length) {
+        buffer = new byte[Math.max(length, buffer.length * 2)];
+      }
+      inputStream.readFully(buffer, 0, length);
+      position = nullBitmapSize;
+      limit = length;
+
+      Object[] row = RowDataUtil.allocateRowData(valueMetas.length);
+      for (int i = 0; i < valueMetas.length; i++) {
+        if ((buffer[i >>> 3] & (1 << (i & 7))) == 0) {
+          row[i] = readValue(valueMetas[i]);
+        }
+      }
+      if (position != limit) {
+        throw new HopFileException(
+            rowMeta.toString() + " : Row length mismatch reading from input stream");
+      }
+      return row;
+    } catch (EOFException e) {
+      throw new HopEofException(e);
+    } catch (SocketTimeoutException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new HopFileException(rowMeta.toString() + " : Unable to read row from input stream", e);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new HopFileException(rowMeta.toString() + " : Corrupt row found in input stream", e);
+    }
+  }
+
+  private int readLength(DataInputStream inputStream) throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = inputStream.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new IOException("Malformed row length");
+  }
+
+  private void writeValue(IValueMeta valueMeta, Object object) throws HopFileException {
+    try {
+      switch (valueMeta.getStorageType()) {
+        case IValueMeta.STORAGE_TYPE_NORMAL:
+          break;
+        case IValueMeta.STORAGE_TYPE_BINARY_STRING:
+          writeBytes((byte[]) object);
+          return;
+        case IValueMeta.STORAGE_TYPE_INDEXED:
+          writeVarLong((Integer) object);
+          return;
+        default:
+          throw new HopFileException(
+              valueMeta.toString() + " : Unknown storage type " + valueMeta.getStorageType());
+      }
+
+      switch (valueMeta.getType()) {
+        case IValueMeta.TYPE_STRING:
+          writeString((String) object);
+          break;
+        case IValueMeta.TYPE_INTEGER:
+          writeVarLong(zigZag((Long) object));
+          break;
+        case IValueMeta.TYPE_NUMBER:
+          writeFixedLong(Double.doubleToRawLongBits((Double) object));
+          break;
+        case IValueMeta.TYPE_DATE:
+          writeVarLong(zigZag(((Date) object).getTime()));
+          break;
+        case IValueMeta.TYPE_TIMESTAMP:
+          Date date = (Date) object;
+          writeVarLong(zigZag(date.getTime()));
+          writeVarLong(date instanceof Timestamp ? ((Timestamp) date).getNanos() : 0);
+          break;
+        case IValueMeta.TYPE_BOOLEAN:
+          ensureCapacity(1);
+          buffer[position++] = (byte) (((Boolean) object) ? 1 : 0);
+          break;
+        case IValueMeta.TYPE_BIGNUMBER:
+          writeString(((BigDecimal) object).toString(), false);
+          break;
+        case IValueMeta.TYPE_BINARY:
+          writeBytes((byte[]) object);
+          break;
+        case IValueMeta.TYPE_INET:
+          writeBytes(((InetAddress) object).getAddress());
+          break;
+        default:
+          // Let the value metadata take care of the other data types
+          //
+          valueMeta.writeData(getBufferOutputStream(), object);
+          break;
+      }
+    } catch (ClassCastException e) {
+      throw new HopFileException(
+          valueMeta.toString()
+              + " : There was a data type error: the data type of "
+              + object.getClass().getName()
+              + " object ["
+              + object
+              + "] does not correspond to value meta ["
+              + valueMeta.toStringMeta()
+              + "]",
+          e);
+    }
+  }
+
+  private Object readValue(IValueMeta valueMeta) throws IOException, HopFileException {
+    switch (valueMeta.getStorageType()) {
+      case IValueMeta.STORAGE_TYPE_NORMAL:
+        break;
+      case IValueMeta.STORAGE_TYPE_BINARY_STRING:
+        return readBytes();
+      case IValueMeta.STORAGE_TYPE_INDEXED:
+        return Integer.valueOf((int) readVarLong());
+      default:
+        throw new HopFileException(
+            valueMeta.toString() + " : Unknown storage type " + valueMeta.getStorageType());
+    }
+
+    switch (valueMeta.getType()) {
+      case IValueMeta.TYPE_STRING:
+        return readString(useDictionary);
+      case IValueMeta.TYPE_INTEGER:
+        return Long.valueOf(unZigZag(readVarLong()));
+      case IValueMeta.TYPE_NUMBER:
+        return Double.valueOf(Double.longBitsToDouble(readFixedLong()));
+      case IValueMeta.TYPE_DATE:
+        return new Date(unZigZag(readVarLong()));
+      case IValueMeta.TYPE_TIMESTAMP:
+        Timestamp timestamp = new Timestamp(unZigZag(readVarLong()));
+        timestamp.setNanos((int) readVarLong());
+        return timestamp;
+      case IValueMeta.TYPE_BOOLEAN:
+        checkAvailable(1);
+        return Boolean.valueOf(buffer[position++] != 0);
+      case IValueMeta.TYPE_BIGNUMBER:
+        return new BigDecimal(readString(false));
+      case IValueMeta.TYPE_BINARY:
+        return readBytes();
+      case IValueMeta.TYPE_INET:
+        return InetAddress.getByAddress(readBytes());
+      default:
+        return valueMeta.readData(getBufferInputStream());
+    }
+  }
+
+  private void writeString(String string) {
+    writeString(string, useDictionary);
+  }
+
+  /**
+   * Strings are written as their UTF-8 byte length followed by the bytes. With a dictionary the
+   * length is preceded by 0 for a new string or replaced by the dictionary index + 1 for a string
+   * we wrote before. Short new strings are added to the dictionary on both the writing and the
+   * reading side.
+   */
+  private void writeString(String string, boolean dictionary) {
+    if (dictionary) {
+      Integer index = writeDictionary == null ? null : writeDictionary.get(string);
+      if (index != null) {
+        writeVarLong(index + 1L);
+        return;
+      }
+      writeVarLong(0);
+    }
+
+    int length = string.length();
+    ensureCapacity(5 + length);
+    int end = position + 5;
+
+    // Fast path for plain ASCII strings: encode the characters directly into the buffer
+    //
+    int i = 0;
+    for (; i < length; i++) {
+      char c = string.charAt(i);
+      if (c >= 0x80) {
+        break;
+      }
+      buffer[end + i] = (byte) c;
+    }
+    int byteLength;
+    if (i == length) {
+      byteLength = length;
+    } else {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      byteLength = bytes.length;
+      ensureCapacity(5 + byteLength);
+      System.arraycopy(bytes, 0, buffer, end, byteLength);
+    }
+
+    // Now put the length in front, compacting the bytes if the length takes less than 5 bytes
+    //
+    writeVarLong(byteLength);
+    if (position != end) {
+      System.arraycopy(buffer, end, buffer, position, byteLength);
+    }
+    position += byteLength;
+
+    if (dictionary && byteLength <= MAX_DICTIONARY_STRING_LENGTH) {
+      if (writeDictionary == null) {
+        writeDictionary = new HashMap<>();
+      }
+      if (writeDictionary.size() < MAX_DICTIONARY_SIZE) {
+        writeDictionary.put(string, writeDictionary.size());
+      }
+    }
+  }
+
+  private String readString(boolean dictionary) throws IOException {
+    if (dictionary) {
+      int reference = (int) readVarLong();
+      if (reference > 0) {
+        if (readDictionary == null || reference > readDictionary.size()) {
+          throw new IOException("Invalid string dictionary reference " + reference);
+        }
+        return readDictionary.get(reference - 1);
+      }
+    }
+    int length = (int) readVarLong();
+    checkAvailable(length);
+    String string = new String(buffer, position, length, StandardCharsets.UTF_8);
+    position += length;
+
+    if (dictionary && length <= MAX_DICTIONARY_STRING_LENGTH) {
+      if (readDictionary == null) {
+        readDictionary = new ArrayList<>();
+      }
+      if (readDictionary.size() < MAX_DICTIONARY_SIZE) {
+        readDictionary.add(string);
+      }
+    }
+    return string;
+  }
+
+  private void writeBytes(byte[] bytes) {
+    writeVarLong(bytes.length);
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  private byte[] readBytes() throws IOException {
+    int length = (int) readVarLong();
+    checkAvailable(length);
+    byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+    position += length;
+    return bytes;
+  }
+
+  private void writeVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+  }
+
+  private long readVarLong() throws IOException {
+    long result = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      checkAvailable(1);
+      byte b = buffer[position++];
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new IOException("Malformed variable length integer");
+  }
+
+  private void writeFixedLong(long value) {
+    ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buffer[position++] = (byte) (value >>> shift);
+    }
+  }
+
+  private long readFixedLong() throws IOException {
+    checkAvailable(8);
+    long result = 0;
+    for (int i = 0; i < 8; i++) {
+      result = (result << 8) | (buffer[position++] & 0xFF);
+    }
+    return result;
+  }
+
+  private static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private void ensureCapacity(int extra) {
+    if (position + extra > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(position + extra, buffer.length * 2));
+    }
+  }
+
+  private void checkAvailable(int length) throws IOException {
+    if (length < 0 || position + length > limit) {
+      throw new IOException("Unexpected end of row data");
+    }
+  }
+
+  private static int readFully(InputStream inputStream, byte[] bytes, int offset, int length)
+      throws IOException {
+    int total = 0;
+    while (total < length) {
+      int read = inputStream.read(bytes, offset + total, length - total);
+      if (read < 0) {
+        break;
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  /** The fall-back for data types we don't encode ourselves: write into the row buffer */
+  private DataOutputStream getBufferOutputStream() {
+    if (bufferOutputStream == null) {
+      bufferOutputStream =
+          new DataOutputStream(
+              new OutputStream() {
+                @Override
+                public void write(int b) {
+                  ensureCapacity(1);
+                  buffer[position++] = (byte) b;
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) {
+                  ensureCapacity(length);
+                  System.arraycopy(bytes, offset, buffer, position, length);
+                  position += length;
+                }
+              });
+    }
+    return bufferOutputStream;
+  }
+
+  /** The fall-back for data types we don't decode ourselves: read from the row buffer */
+  private DataInputStream getBufferInputStream() {
+    if (bufferInputStream == null) {
+      bufferInputStream =
+          new DataInputStream(
+              new InputStream() {
+                @Override
+                public int read() {
+                  return position < limit ? buffer[position++] & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) {
+                  if (position >= limit) {
+                    return -1;
+                  }
+                  int count = Math.min(length, limit - position);
+                  System.arraycopy(buffer, position, bytes, offset, count);
+                  position += count;
+                  return count;
+                }
+              });
+    }
+    return bufferInputStream;
+  }
+}
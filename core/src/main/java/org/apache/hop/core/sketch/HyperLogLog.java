@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.sketch;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * A HyperLogLog sketch to estimate the number of distinct values in a stream in constant memory.
+ * The sketch keeps 2^precision registers of one byte each, the relative standard error of the
+ * estimate is about 1.04/sqrt(2^precision). A precision of 12 uses 4KB of memory and gives an
+ * error of about 1.6%.
+ *
+ * <p>Sketches can be merged, also when they have a different precision, and can be serialized to
+ * a byte array with {@link #toBytes()} to pass partial results on to another transform.
+ */
+public class HyperLogLog implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 18;
+  public static final int DEFAULT_PRECISION = 12;
+
+  private static final byte FORMAT = 'H';
+  private static final byte VERSION = 1;
+  private static final int HEADER_SIZE = 3;
+
+  private int precision;
+  private byte[] registers;
+
+  /**
+   * Create a new empty sketch
+   *
+   * @param precision The number of bits used to address the registers, between {@link
+   *     #MIN_PRECISION} and {@link #MAX_PRECISION}
+   */
+  public HyperLogLog(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(
+          "The precision of a HyperLogLog sketch needs to be between "
+              + MIN_PRECISION
+              + " and "
+              + MAX_PRECISION
+              + ", not "
+              + precision);
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  /**
+   * Add a hashed value to the sketch.
+   *
+   * @param hash A well distributed 64-bit hash of the value, see {@link #hash(IValueMeta, Object)}
+   */
+  public void add(long hash) {
+    int index = (int) (hash >>> (64 - precision));
+    // The guard bit limits the rank to the number of remaining bits
+    //
+    long remainder = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(remainder) + 1);
+    if (rank > registers[index]) {
+      registers[index] = rank;
+    }
+  }
+
+  /**
+   * Add a value to the sketch, null values are ignored. Binary values are taken to be sketches
+   * serialized with {@link #toBytes()}: these are merged into this sketch to combine partial
+   * results.
+   *
+   * @param valueMeta The metadata of the value
+   * @param value The value to add
+   * @throws HopValueException In case the value can't be converted or isn't a valid sketch
+   */
+  public void update(IValueMeta valueMeta, Object value) throws HopValueException {
+    if (valueMeta.isNull(value)) {
+      return;
+    }
+    if (valueMeta.isBinary()) {
+      merge(fromBytes(valueMeta.getBinary(value)));
+    } else {
+      add(hash(valueMeta, value));
+    }
+  }
+
+  /**
+   * Merge the registers of another sketch into this one. If the precision of the sketches is
+   * different the result has the lowest of both.
+   *
+   * @param other The sketch to merge
+   */
+  public void merge(HyperLogLog other) {
+    if (other.precision < precision) {
+      registers = fold(this, other.precision);
+      precision = other.precision;
+    }
+    byte[] source = other.precision == precision ? other.registers : fold(other, precision);
+    for (int i = 0; i < registers.length; i++) {
+      if (source[i] > registers[i]) {
+        registers[i] = source[i];
+      }
+    }
+  }
+
+  /**
+   * Lower the precision of a sketch. The bits that no longer address a register become the leading
+   * bits of the remainder which determines the rank.
+   */
+  private static byte[] fold(HyperLogLog sketch, int newPrecision) {
+    int shift = sketch.precision - newPrecision;
+    byte[] folded = new byte[1 << newPrecision];
+    for (int i = 0; i < sketch.registers.length; i++) {
+      int rank = sketch.registers[i];
+      if (rank == 0) {
+        continue;
+      }
+      int dropped = i & ((1 << shift) - 1);
+      int newRank =
+          dropped == 0 ? shift + rank : Integer.numberOfLeadingZeros(dropped) - (32 - shift) + 1;
+      int index = i >>> shift;
+      if (newRank > folded[index]) {
+        folded[index] = (byte) newRank;
+      }
+    }
+    return folded;
+  }
+
+  /**
+   * Estimate the number of distinct values added to this sketch.
+   *
+   * @return The estimated cardinality
+   */
+  public long estimate() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += Math.scalb(1.0, -register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = getAlpha(m) * m * m / sum;
+
+    // Use linear counting for small cardinalities where HyperLogLog is biased
+    //
+    if (estimate <= 2.5 * m && zeros > 0) {
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  private static double getAlpha(int m) {
+    switch (m) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1.0 + 1.079 / m);
+    }
+  }
+
+  /**
+   * Serialize the sketch so that it can be merged later on with {@link #fromBytes(byte[])}
+   *
+   * @return The serialized sketch
+   */
+  public byte[] toBytes() {
+    byte[] bytes = new byte[HEADER_SIZE + registers.length];
+    bytes[0] = FORMAT;
+    bytes[1] = VERSION;
+    bytes[2] = (byte) precision;
+    System.arraycopy(registers, 0, bytes, HEADER_SIZE, registers.length);
+    return bytes;
+  }
+
+  /**
+   * Read a sketch serialized with {@link #toBytes()}
+   *
+   * @param bytes The serialized sketch
+   * @return The sketch
+   * @throws HopValueException In case the bytes don't contain a valid sketch
+   */
+  public static HyperLogLog fromBytes(byte[] bytes) throws HopValueException {
+    if (bytes == null
+        || bytes.length <= HEADER_SIZE
+        || bytes[0] != FORMAT
+        || bytes[1] != VERSION
+        || bytes[2] < MIN_PRECISION
+        || bytes[2] > MAX_PRECISION
+        || bytes.length != HEADER_SIZE + (1 << bytes[2])) {
+      throw new HopValueException("The binary value is not a valid HyperLogLog sketch");
+    }
+    HyperLogLog sketch = new HyperLogLog(bytes[2]);
+    System.arraycopy(bytes, HEADER_SIZE, sketch.registers, 0, sketch.registers.length);
+    return sketch;
+  }
+
+  /**
+   * Calculate a 64-bit hash of a value. Equal values of the same data type give the same hash,
+   * regardless of their storage type.
+   *
+   * @param valueMeta The metadata of the value
+   * @param value The value to hash, not null
+   * @return The hash
+   * @throws HopValueException In case the value can't be converted to its normal storage type
+   */
+  public static long hash(IValueMeta valueMeta, Object value) throws HopValueException {
+    Object object = valueMeta.convertToNormalStorageType(value);
+    if (object instanceof String) {
+      return hash(((String) object).getBytes(StandardCharsets.UTF_8));
+    }
+    if (object instanceof Long) {
+      return mix((Long) object);
+    }
+    if (object instanceof Double) {
+      double number = (Double) object;
+      // Make sure that 0.0 and -0.0 count as the same value
+      //
+      return mix(number == 0.0 ? 0L : Double.doubleToLongBits(number));
+    }
+    if (object instanceof BigDecimal) {
+      BigDecimal bigNumber = (BigDecimal) object;
+      if (bigNumber.signum() == 0) {
+        return mix(0L);
+      }
+      return hash(bigNumber.stripTrailingZeros().toString().getBytes(StandardCharsets.UTF_8));
+    }
+    if (object instanceof Date) {
+      return mix(((Date) object).getTime());
+    }
+    if (object instanceof Boolean) {
+      return mix((Boolean) object ? 1L : 0L);
+    }
+    if (object instanceof byte[]) {
+      return hash((byte[]) object);
+    }
+    return hash(object.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** FNV-1a over the bytes, finished with a full avalanche */
+  private static long hash(byte[] bytes) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : bytes) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash ^ bytes.length);
+  }
+
+  /** The 64-bit finalizer of MurmurHash3 */
+  private static long mix(long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * Gets precision
+   *
+   * @return value of precision
+   */
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * Gets the amount of memory used by the registers
+   *
+   * @return The size in bytes
+   */
+  public int getSizeInBytes() {
+    return registers.length;
+  }
+}
@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.sketch;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A KLL sketch to estimate quantiles (median, percentiles) of a stream of numbers in constant
+ * memory. Values are kept in a hierarchy of compactors: when a level is full its values are sorted
+ * and every other value moves up one level where it counts double. Parameter k determines the
+ * size of the top compactor and the accuracy: the rank error is roughly 1.65/k, so about 0.8% for
+ * the default k of 200. As long as no compaction took place the results are exact.
+ *
+ * <p>Sketches can be merged and can be serialized to a byte array with {@link #toBytes()} to pass
+ * partial results on to another transform.
+ */
+public class QuantileSketch implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final int MIN_K = 8;
+  public static final int MAX_K = 65535;
+  public static final int DEFAULT_K = 200;
+
+  private static final double CAPACITY_RATIO = 2.0 / 3.0;
+  private static final int MIN_LEVEL_CAPACITY = 2;
+
+  private static final byte FORMAT = 'Q';
+  private static final byte VERSION = 1;
+
+  private final int k;
+  private double[][] levels;
+  private int[] sizes;
+  private long n;
+  private double min;
+  private double max;
+
+  /** Alternates between keeping the odd and the even values when compacting */
+  private boolean oddOffset;
+
+  /**
+   * Create a new empty sketch
+   *
+   * @param k The accuracy parameter, between {@link #MIN_K} and {@link #MAX_K}
+   */
+  public QuantileSketch(int k) {
+    if (k < MIN_K || k > MAX_K) {
+      throw new IllegalArgumentException(
+          "The k parameter of a quantile sketch needs to be between "
+              + MIN_K
+              + " and "
+              + MAX_K
+              + ", not "
+              + k);
+    }
+    this.k = k;
+    this.levels = new double[][] {new double[k]};
+    this.sizes = new int[1];
+    this.min = Double.NaN;
+    this.max = Double.NaN;
+  }
+
+  /**
+   * Add a value to the sketch, NaN is ignored.
+   *
+   * @param value The value to add
+   */
+  public void update(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    if (n == 0) {
+      min = value;
+      max = value;
+    } else {
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    n++;
+    append(0, value);
+    compress();
+  }
+
+  /**
+   * Add a value to the sketch, null values are ignored. Binary values are taken to be sketches
+   * serialized with {@link #toBytes()}: these are merged into this sketch to combine partial
+   * results.
+   *
+   * @param valueMeta The metadata of the value
+   * @param value The value to add
+   * @throws HopValueException In case the value isn't numeric or isn't a valid sketch
+   */
+  public void update(IValueMeta valueMeta, Object value) throws HopValueException {
+    if (valueMeta.isNull(value)) {
+      return;
+    }
+    if (valueMeta.isBinary()) {
+      merge(fromBytes(valueMeta.getBinary(value)));
+    } else {
+      update(valueMeta.getNumber(value));
+    }
+  }
+
+  /**
+   * Merge the values of another sketch into this one.
+   *
+   * @param other The sketch to merge
+   */
+  public void merge(QuantileSketch other) {
+    if (other.n == 0) {
+      return;
+    }
+    if (n == 0) {
+      min = other.min;
+      max = other.max;
+    } else {
+      min = Math.min(min, other.min);
+      max = Math.max(max, other.max);
+    }
+    n += other.n;
+    for (int level = 0; level < other.levels.length; level++) {
+      for (int i = 0; i < other.sizes[level]; i++) {
+        append(level, other.levels[level][i]);
+      }
+    }
+    compress();
+  }
+
+  private void append(int level, double value) {
+    if (level >= levels.length) {
+      int nrLevels = levels.length;
+      levels = Arrays.copyOf(levels, level + 1);
+      sizes = Arrays.copyOf(sizes, level + 1);
+      for (int i = nrLevels; i < levels.length; i++) {
+        levels[i] = new double[MIN_LEVEL_CAPACITY];
+      }
+    }
+    double[] values = levels[level];
+    if (sizes[level] == values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+      levels[level] = values;
+    }
+    values[sizes[level]++] = value;
+  }
+
+  /** The capacity of a level shrinks geometrically the further it is below the top level */
+  private int getCapacity(int level) {
+    int depth = levels.length - 1 - level;
+    return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+  }
+
+  private void compress() {
+    while (true) {
+      int retained = 0;
+      int capacity = 0;
+      for (int level = 0; level < levels.length; level++) {
+        retained += sizes[level];
+        capacity += getCapacity(level);
+      }
+      if (retained <= capacity) {
+        return;
+      }
+      for (int level = 0; level < levels.length; level++) {
+        if (sizes[level] >= getCapacity(level)) {
+          compact(level);
+          break;
+        }
+      }
+    }
+  }
+
+  /** Move every other value of the level one level up, where its weight doubles */
+  private void compact(int level) {
+    double[] values = levels[level];
+    int size = sizes[level];
+    Arrays.sort(values, 0, size);
+
+    // With an odd number of values the smallest one stays behind to keep the total weight exact
+    //
+    int start = size % 2;
+    int offset = oddOffset ? 1 : 0;
+    oddOffset = !oddOffset;
+    for (int i = start + offset; i < size; i += 2) {
+      append(level + 1, values[i]);
+    }
+    sizes[level] = start;
+
+    // Lower levels shrink when levels are added on top, release the memory they no longer need
+    //
+    int capacity = getCapacity(level);
+    if (values.length > 2 * capacity) {
+      levels[level] = Arrays.copyOf(values, capacity);
+    }
+  }
+
+  /**
+   * Estimate a quantile of the values added to this sketch.
+   *
+   * @param fraction The quantile to estimate, between 0 and 1. 0.5 is the median.
+   * @return The value with the requested (nearest) rank or NaN if the sketch is empty
+   */
+  public double getQuantile(double fraction) {
+    if (n == 0) {
+      return Double.NaN;
+    }
+    if (fraction <= 0) {
+      return min;
+    }
+    if (fraction >= 1) {
+      return max;
+    }
+    int retained = 0;
+    for (int size : sizes) {
+      retained += size;
+    }
+    double[] values = new double[retained];
+    long[] weights = new long[retained];
+    int index = 0;
+    for (int level = 0; level < levels.length; level++) {
+      for (int i = 0; i < sizes[level]; i++) {
+        values[index] = levels[level][i];
+        weights[index] = 1L << level;
+        index++;
+      }
+    }
+    sortByValue(values, weights);
+
+    double rank = Math.ceil(fraction * n);
+    long cumulative = 0;
+    for (int i = 0; i < retained; i++) {
+      cumulative += weights[i];
+      if (cumulative >= rank) {
+        return values[i];
+      }
+    }
+    return max;
+  }
+
+  /** Sort the values in ascending order, carrying the weights along */
+  private static void sortByValue(double[] values, long[] weights) {
+    Integer[] order = new Integer[values.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+    double[] sortedValues = new double[values.length];
+    long[] sortedWeights = new long[weights.length];
+    for (int i = 0; i < order.length; i++) {
+      sortedValues[i] = values[order[i]];
+      sortedWeights[i] = weights[order[i]];
+    }
+    System.arraycopy(sortedValues, 0, values, 0, values.length);
+    System.arraycopy(sortedWeights, 0, weights, 0, weights.length);
+  }
+
+  /**
+   * Serialize the sketch so that it can be merged later on with {@link #fromBytes(byte[])}
+   *
+   * @return The serialized sketch
+   */
+  public byte[] toBytes() {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(FORMAT);
+      out.writeByte(VERSION);
+      out.writeInt(k);
+      out.writeLong(n);
+      out.writeDouble(min);
+      out.writeDouble(max);
+      out.writeInt(levels.length);
+      for (int level = 0; level < levels.length; level++) {
+        out.writeInt(sizes[level]);
+        for (int i = 0; i < sizes[level]; i++) {
+          out.writeDouble(levels[level][i]);
+        }
+      }
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      // Can't happen on a byte array
+      //
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Read a sketch serialized with {@link #toBytes()}
+   *
+   * @param bytes The serialized sketch
+   * @return The sketch
+   * @throws HopValueException In case the bytes don't contain a valid sketch
+   */
+  public static QuantileSketch fromBytes(byte[] bytes) throws HopValueException {
+    if (bytes == null || bytes.length < 2 || bytes[0] != FORMAT || bytes[1] != VERSION) {
+      throw new HopValueException("The binary value is not a valid quantile sketch");
+    }
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length));
+      QuantileSketch sketch = new QuantileSketch(in.readInt());
+      sketch.n = in.readLong();
+      sketch.min = in.readDouble();
+      sketch.max = in.readDouble();
+      int nrLevels = in.readInt();
+      if (nrLevels < 1 || nrLevels > Long.SIZE) {
+        throw new HopValueException("The binary value is not a valid quantile sketch");
+      }
+      sketch.levels = new double[nrLevels][];
+      sketch.sizes = new int[nrLevels];
+      for (int level = 0; level < nrLevels; level++) {
+        int size = in.readInt();
+        if (size < 0 || size > in.available() / Double.BYTES) {
+          throw new HopValueException("The binary value is not a valid quantile sketch");
+        }
+        double[] values = new double[Math.max(MIN_LEVEL_CAPACITY, size)];
+        for (int i = 0; i < size; i++) {
+          values[i] = in.readDouble();
+        }
+        sketch.levels[level] = values;
+        sketch.sizes[level] = size;
+      }
+      return sketch;
+    } catch (IOException | IllegalArgumentException e) {
+      throw new HopValueException("The binary value is not a valid quantile sketch", e);
+    }
+  }
+
+  /**
+   * Gets k
+   *
+   * @return value of k
+   */
+  public int getK() {
+    return k;
+  }
+
+  /**
+   * Gets the number of values added to the sketch
+   *
+   * @return value of n
+   */
+  public long getN() {
+    return n;
+  }
+
+  /**
+   * Gets the amount of memory allocated to keep the values
+   *
+   * @return The size in bytes
+   */
+  public int getSizeInBytes() {
+    int size = 0;
+    for (double[] values : levels) {
+      size += values.length * Double.BYTES;
+    }
+    return size;
+  }
+}
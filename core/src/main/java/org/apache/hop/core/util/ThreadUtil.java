@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.util;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads transforms and workflow actions run in. Hop is built for Java 11, virtual
+ * threads are used when the JVM running Hop supports them (Java 21 or later) and requested.
+ * Otherwise a regular platform thread is created.
+ */
+public class ThreadUtil {
+
+  /** Thread.ofVirtual(), null if virtual threads are not available */
+  private static final Method OF_VIRTUAL;
+
+  /** Thread.Builder.unstarted(Runnable) */
+  private static final Method UNSTARTED;
+
+  static {
+    Method ofVirtual = null;
+    Method unstarted = null;
+    try {
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+      // Make sure we can really use them: preview features throw an exception here
+      //
+      unstarted.invoke(ofVirtual.invoke(null), (Runnable) () -> {});
+    } catch (Throwable e) {
+      ofVirtual = null;
+      unstarted = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    UNSTARTED = unstarted;
+  }
+
+  private ThreadUtil() {}
+
+  /**
+   * See if this JVM can create virtual threads.
+   *
+   * @return true if virtual threads are supported
+   */
+  public static boolean isVirtualThreadSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Create a new thread which is not started yet.
+   *
+   * @param runnable the code to run in the thread
+   * @param virtual true if a virtual thread is wanted, ignored if these are not supported
+   * @return the unstarted thread
+   */
+  public static Thread newThread(Runnable runnable, boolean virtual) {
+    if (virtual && OF_VIRTUAL != null) {
+      try {
+        return (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), runnable);
+      } catch (ReflectiveOperationException e) {
+        // Fall back to a platform thread below
+      }
+    }
+    return new Thread(runnable);
+  }
+}
@@ -18,6 +18,7 @@
 package org.apache.hop.core;
 
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.ValueMetaAndData;
 import org.apache.hop.core.row.value.ValueMetaInteger;
@@ -26,6 +27,7 @@ import org.apache.hop.junit.rules.RestoreHopEnvironment;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -78,4 +80,89 @@ public class ConditionTest {
     condition = new Condition(left, Condition.FUNC_SMALLER_EQUAL, null, rightExact);
     assertFalse(condition.evaluate(rowMeta1, new Object[] {null, "test"}));
   }
+
+  @Test
+  public void testBatchEvaluationMatchesRowEvaluation() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("int"));
+    rowMeta.addValueMeta(new ValueMetaNumber("num"));
+
+    RowBatch batch = new RowBatch(rowMeta, 7);
+    batch.addRow(new Object[] {-10L, -1.5});
+    batch.addRow(new Object[] {null, null});
+    batch.addRow(new Object[] {0L, 0.0});
+    batch.addRow(new Object[] {5L, 2.5});
+    batch.addRow(new Object[] {6L, 3.0});
+    batch.addRow(new Object[] {100L, Double.NaN});
+    batch.addRow(new Object[] {5L, null});
+
+    int[] functions = {
+      Condition.FUNC_EQUAL,
+      Condition.FUNC_NOT_EQUAL,
+      Condition.FUNC_SMALLER,
+      Condition.FUNC_SMALLER_EQUAL,
+      Condition.FUNC_LARGER,
+      Condition.FUNC_LARGER_EQUAL,
+      Condition.FUNC_NULL,
+      Condition.FUNC_NOT_NULL,
+      Condition.FUNC_TRUE,
+    };
+    for (int function : functions) {
+      for (boolean negate : new boolean[] {false, true}) {
+        assertBatchEvaluation(
+            new Condition(
+                negate,
+                "int",
+                function,
+                null,
+                new ValueMetaAndData(new ValueMetaInteger("constant"), 5L)),
+            batch);
+        assertBatchEvaluation(
+            new Condition(
+                negate,
+                "num",
+                function,
+                null,
+                new ValueMetaAndData(new ValueMetaNumber("constant"), 2.5)),
+            batch);
+      }
+    }
+
+    // A composite condition: int >= 0 AND NOT num < 3.0 OR num IS NULL
+    //
+    Condition composite = new Condition();
+    composite.addCondition(
+        new Condition(
+            "int",
+            Condition.FUNC_LARGER_EQUAL,
+            null,
+            new ValueMetaAndData(new ValueMetaInteger("constant"), 0L)));
+    Condition second =
+        new Condition(
+            "num",
+            Condition.FUNC_SMALLER,
+            null,
+            new ValueMetaAndData(new ValueMetaNumber("constant"), 3.0));
+    second.setOperator(Condition.OPERATOR_AND_NOT);
+    composite.addCondition(second);
+    Condition third = new Condition("num", Condition.FUNC_NULL, null, null);
+    third.setOperator(Condition.OPERATOR_OR);
+    composite.addCondition(third);
+    assertBatchEvaluation(composite, batch);
+
+    // Comparing two fields is evaluated row by row
+    //
+    assertBatchEvaluation(new Condition("int", Condition.FUNC_LARGER, "num", null), batch);
+  }
+
+  private void assertBatchEvaluation(Condition condition, RowBatch batch) {
+    boolean[] result = new boolean[batch.size()];
+    condition.evaluate(batch, result);
+    for (int i = 0; i < batch.size(); i++) {
+      assertEquals(
+          condition + " on row " + i,
+          condition.evaluate(batch.getRowMeta(), batch.getRow(i)),
+          result[i]);
+    }
+  }
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferRowSetTest {
+  IRowMeta rowMeta;
+  RingBufferRowSet rowSet;
+
+  @Before
+  public void setup() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("ROWNR"));
+    rowSet = new RingBufferRowSet(3);
+  }
+
+  @Test
+  public void testBasicCreation() {
+    assertFalse(rowSet.isDone());
+    assertEquals(0, rowSet.size());
+    assertNull(rowSet.getRowImmediate());
+  }
+
+  @Test
+  public void testPutAndGetInOrder() {
+    Object[] r1 = new Object[] {1L};
+    Object[] r2 = new Object[] {2L};
+    Object[] r3 = new Object[] {3L};
+    Object[] r4 = new Object[] {4L};
+
+    assertTrue(rowSet.putRow(rowMeta, r1));
+    assertTrue(rowSet.putRow(rowMeta, r2));
+    assertTrue(rowSet.putRow(rowMeta, r3));
+    assertEquals(3, rowSet.size());
+    assertSame(rowMeta, rowSet.getRowMeta());
+
+    // The row set is full: we time out
+    //
+    assertFalse(rowSet.putRowWait(rowMeta, r4, 10, TimeUnit.MILLISECONDS));
+    assertEquals(3, rowSet.size());
+
+    assertSame(r1, rowSet.getRow());
+    assertTrue(rowSet.putRow(rowMeta, r4));
+    assertSame(r2, rowSet.getRowImmediate());
+    assertSame(r3, rowSet.getRowWait(10, TimeUnit.MILLISECONDS));
+    assertSame(r4, rowSet.getRow());
+    assertEquals(0, rowSet.size());
+    assertNull(rowSet.getRowWait(10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testDoneStopsWaiting() {
+    rowSet.putRow(rowMeta, new Object[] {1L});
+    rowSet.setDone();
+    assertTrue(rowSet.isDone());
+
+    assertEquals(1L, rowSet.getRowWait(1, TimeUnit.MINUTES)[0]);
+
+    // No more rows are coming, we shouldn't wait for the timeout
+    //
+    long start = System.currentTimeMillis();
+    assertNull(rowSet.getRowWait(1, TimeUnit.MINUTES));
+    assertTrue(System.currentTimeMillis() - start < 30000);
+  }
+
+  @Test
+  public void testClear() {
+    rowSet.putRow(rowMeta, new Object[] {1L});
+    rowSet.putRow(rowMeta, new Object[] {2L});
+    rowSet.setDone();
+    rowSet.clear();
+
+    assertEquals(0, rowSet.size());
+    assertFalse(rowSet.isDone());
+    assertNull(rowSet.getRowImmediate());
+  }
+
+  @Test
+  public void testProducerConsumerThreads() throws Exception {
+    final int nrRows = 200000;
+    final AtomicReference<String> error = new AtomicReference<>();
+
+    Thread producer =
+        new Thread(
+            () -> {
+              for (long i = 0; i < nrRows; i++) {
+                Object[] row = new Object[] {i};
+                while (!rowSet.putRow(rowMeta, row)) {
+                  // The consumer is slow, try again
+                }
+              }
+              rowSet.setDone();
+            });
+
+    Thread consumer =
+        new Thread(
+            () -> {
+              long expected = 0;
+              while (true) {
+                Object[] row = rowSet.getRow();
+                if (row == null) {
+                  if (rowSet.isDone() && rowSet.size() == 0) {
+                    break;
+                  }
+                  continue;
+                }
+                if ((Long) row[0] != expected) {
+                  error.set("Expected row " + expected + " but got " + row[0]);
+                  return;
+                }
+                expected++;
+              }
+              if (expected != nrRows) {
+                error.set("Expected " + nrRows + " rows but got " + expected);
+              }
+            });
+
+    producer.start();
+    consumer.start();
+    producer.join(60000);
+    consumer.join(60000);
+
+    assertFalse(producer.isAlive());
+    assertFalse(consumer.isAlive());
+    assertNull(error.get());
+  }
+
+  @Test
+  public void testNames() {
+    rowSet.setThreadNameFromToCopy("from", 2, "to", 3);
+
+    assertEquals("from", rowSet.getOriginTransformName());
+    assertEquals(2, rowSet.getOriginTransformCopy());
+    assertEquals("to", rowSet.getDestinationTransformName());
+    assertEquals(3, rowSet.getDestinationTransformCopy());
+    assertEquals("from.2 - to.3", rowSet.toString());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RowSetSelectorTest {
+  IRowMeta rowMeta;
+  IRowSet first;
+  IRowSet second;
+  List<IRowSet> rowSets;
+  RowSetSelector selector;
+
+  @Before
+  public void setup() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("ROWNR"));
+    first = new BlockingRowSet(10);
+    second = new RingBufferRowSet(10);
+    rowSets = Arrays.asList(first, second);
+    selector = new RowSetSelector();
+  }
+
+  @Test
+  public void testTimeoutWithoutRows() {
+    assertFalse(selector.isReady(rowSets));
+    assertFalse(selector.await(rowSets, 10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testReadyWithoutWaiting() {
+    Object[] row = new Object[] {1L};
+    second.putRow(rowMeta, row);
+    assertTrue(selector.await(rowSets, 0, TimeUnit.MILLISECONDS));
+    assertSame(row, second.getRowImmediate());
+  }
+
+  @Test
+  public void testWokenUpByRow() throws Exception {
+    Thread producer =
+        new Thread(
+            () -> {
+              sleep(50);
+              first.putRow(rowMeta, new Object[] {1L});
+            });
+    producer.start();
+
+    // The row set has to wake us up long before the time-out expires
+    //
+    long start = System.nanoTime();
+    assertTrue(selector.await(rowSets, 60, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+    producer.join();
+  }
+
+  @Test
+  public void testWokenUpByDone() throws Exception {
+    Thread producer =
+        new Thread(
+            () -> {
+              sleep(50);
+              second.setDone();
+            });
+    producer.start();
+
+    long start = System.nanoTime();
+    assertTrue(selector.await(rowSets, 60, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+    assertTrue(second.isDone());
+    producer.join();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      // Ignore
+    }
+  }
+}
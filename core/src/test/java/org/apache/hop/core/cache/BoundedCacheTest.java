@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.cache;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedCacheTest {
+
+  private final AtomicLong now = new AtomicLong(1000L);
+
+  @Test
+  public void testLru() {
+    BoundedCache<String, Integer> cache =
+        BoundedCache.create(CacheEvictionPolicy.LRU, 2, 0, now::get);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    cache.put("c", 3);
+
+    assertNull(cache.get("b"));
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertEquals(Integer.valueOf(3), cache.get("c"));
+    assertEquals(2, cache.size());
+    assertEquals(3, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.getEvictions());
+  }
+
+  @Test
+  public void testUnbounded() {
+    BoundedCache<Integer, Integer> cache =
+        BoundedCache.create(CacheEvictionPolicy.TINY_LFU, 0, 0, now::get);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, i);
+    }
+    assertEquals(1000, cache.size());
+    assertEquals(0, cache.getEvictions());
+  }
+
+  @Test
+  public void testTimeToLive() {
+    BoundedCache<String, Integer> cache =
+        BoundedCache.create(CacheEvictionPolicy.LRU, 10, 100, now::get);
+    cache.put("a", 1);
+    now.addAndGet(99);
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    now.addAndGet(1);
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.getExpirations());
+
+    // Writing a key again resets its time to live
+    //
+    cache.put("b", 2);
+    now.addAndGet(50);
+    cache.put("b", 3);
+    now.addAndGet(50);
+    assertEquals(Integer.valueOf(3), cache.get("b"));
+  }
+
+  @Test
+  public void testInvalidateAndForEach() {
+    BoundedCache<String, Integer> cache =
+        BoundedCache.create(CacheEvictionPolicy.TINY_LFU, 10, 0, now::get);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.put("c", 3);
+    cache.invalidate("b");
+
+    Map<String, Integer> entries = new HashMap<>();
+    cache.forEach(entries::put);
+    assertEquals(2, entries.size());
+    assertEquals(Integer.valueOf(3), entries.get("c"));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNull(cache.get("a"));
+  }
+
+  /** Popular keys survive a scan of keys which are used only once */
+  @Test
+  public void testTinyLfuResistsScans() {
+    int size = 100;
+    BoundedCache<Integer, Integer> tinyLfu =
+        BoundedCache.create(CacheEvictionPolicy.TINY_LFU, size, 0, now::get);
+    BoundedCache<Integer, Integer> lru =
+        BoundedCache.create(CacheEvictionPolicy.LRU, size, 0, now::get);
+
+    for (BoundedCache<Integer, Integer> cache : new BoundedCache[] {tinyLfu, lru}) {
+      for (int round = 0; round < 5; round++) {
+        for (int key = 0; key < size / 2; key++) {
+          if (cache.get(key) == null) {
+            cache.put(key, key);
+          }
+        }
+      }
+      for (int key = 1000; key < 1000 + size * 10; key++) {
+        if (cache.get(key) == null) {
+          cache.put(key, key);
+        }
+      }
+      assertEquals(size, cache.size());
+    }
+
+    int popularInTinyLfu = 0;
+    int popularInLru = 0;
+    for (int key = 0; key < size / 2; key++) {
+      if (tinyLfu.get(key) != null) {
+        popularInTinyLfu++;
+      }
+      if (lru.get(key) != null) {
+        popularInLru++;
+      }
+    }
+    assertEquals(0, popularInLru);
+    assertTrue(popularInTinyLfu > size / 4);
+    assertNotNull(tinyLfu.get(0));
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.cache;
+
+import org.apache.hop.core.exception.HopException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SharedCacheManagerTest {
+
+  private final AtomicLong now = new AtomicLong(1000L);
+
+  private static class CountingLoader implements ISharedCacheLoader<String> {
+    private final String value;
+    private final long size;
+    private final AtomicInteger nrLoads = new AtomicInteger();
+
+    CountingLoader(String value, long size) {
+      this.value = value;
+      this.size = size;
+    }
+
+    @Override
+    public String load() {
+      nrLoads.incrementAndGet();
+      return value;
+    }
+
+    @Override
+    public long estimateSize(String value) {
+      return size;
+    }
+  }
+
+  @Test
+  public void testLoadOnceAndAttach() throws Exception {
+    SharedCacheManager manager = new SharedCacheManager(1000, now::get);
+    CountingLoader loader = new CountingLoader("a", 100);
+
+    SharedCacheEntry<String> first = manager.getOrLoad("cache", 0, loader);
+    SharedCacheEntry<String> second = manager.getOrLoad("cache", 0, loader);
+
+    assertSame(first, second);
+    assertEquals("a", second.getValue());
+    assertEquals(1, loader.nrLoads.get());
+    assertEquals(1, second.getNrAttached());
+    assertEquals(100, manager.getTotalSize());
+
+    second.recordLookups(3, 1);
+    assertEquals(3, second.getHits());
+    assertEquals(1, second.getMisses());
+    assertEquals(0.75, second.getHitRatio(), 0.0);
+  }
+
+  @Test
+  public void testTimeToLive() throws Exception {
+    SharedCacheManager manager = new SharedCacheManager(1000, now::get);
+    CountingLoader loader = new CountingLoader("a", 100);
+
+    SharedCacheEntry<String> first = manager.getOrLoad("cache", 500, loader);
+    now.addAndGet(499);
+    assertSame(first, manager.getOrLoad("cache", 500, loader));
+    now.addAndGet(1);
+    SharedCacheEntry<String> second = manager.getOrLoad("cache", 500, loader);
+
+    assertNotSame(first, second);
+    assertEquals(2, loader.nrLoads.get());
+    // Users of the expired entry can keep on using it
+    //
+    assertEquals("a", first.getValue());
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    SharedCacheManager manager = new SharedCacheManager(1000, now::get);
+    CountingLoader loader = new CountingLoader("a", 100);
+
+    manager.getOrLoad("db1|t1", 0, loader);
+    manager.getOrLoad("db1|t2", 0, loader);
+    manager.getOrLoad("db2|t1", 0, loader);
+    assertEquals(3, manager.getEntries().size());
+
+    assertTrue(manager.invalidate("db2|t1"));
+    assertNull(manager.getEntry("db2|t1"));
+    assertEquals(2, manager.invalidateAll("db1|"));
+    assertEquals(0, manager.getTotalSize());
+
+    manager.getOrLoad("db1|t1", 0, loader);
+    assertEquals(4, loader.nrLoads.get());
+    manager.invalidateAll();
+    assertTrue(manager.getEntries().isEmpty());
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed() throws Exception {
+    SharedCacheManager manager = new SharedCacheManager(250, now::get);
+
+    manager.getOrLoad("a", 0, new CountingLoader("a", 100));
+    now.incrementAndGet();
+    manager.getOrLoad("b", 0, new CountingLoader("b", 100));
+    now.incrementAndGet();
+    manager.getOrLoad("a", 0, new CountingLoader("a", 100));
+    now.incrementAndGet();
+    manager.getOrLoad("c", 0, new CountingLoader("c", 100));
+
+    assertEquals(200, manager.getTotalSize());
+    assertNull(manager.getEntry("b"));
+
+    // A value which doesn't fit on its own is returned but not kept
+    //
+    SharedCacheEntry<String> big = manager.getOrLoad("big", 0, new CountingLoader("big", 300));
+    assertEquals("big", big.getValue());
+    assertNull(manager.getEntry("big"));
+  }
+
+  @Test
+  public void testFailedLoad() throws Exception {
+    SharedCacheManager manager = new SharedCacheManager(1000, now::get);
+    try {
+      manager.getOrLoad(
+          "cache",
+          0,
+          new ISharedCacheLoader<String>() {
+            @Override
+            public String load() throws HopException {
+              throw new HopException("Unable to load");
+            }
+
+            @Override
+            public long estimateSize(String value) {
+              return 0;
+            }
+          });
+      fail("Expected the load to fail");
+    } catch (HopException e) {
+      // Expected
+    }
+    assertNull(manager.getEntry("cache"));
+    assertEquals("a", manager.getOrLoad("cache", 0, new CountingLoader("a", 1)).getValue());
+  }
+
+  @Test
+  public void testConcurrentUsersLoadOnce() throws Exception {
+    SharedCacheManager manager = new SharedCacheManager(1000, now::get);
+    CountingLoader loader = new CountingLoader("a", 100);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    List<Object> values = new ArrayList<>();
+
+    for (int i = 0; i < 8; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                  String value = manager.getOrLoad("cache", 0, loader).getValue();
+                  synchronized (values) {
+                    values.add(value);
+                  }
+                } catch (Exception e) {
+                  throw new RuntimeException(e);
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, loader.nrLoads.get());
+    assertEquals(8, values.size());
+    for (Object value : values) {
+      assertEquals("a", value);
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void testWaitingForTheLoaderFreesTheWorker() throws Exception {
+    SharedCacheManager manager = new SharedCacheManager(1000, now::get);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ISharedCacheLoader<String> slowLoader =
+        new CountingLoader("a", 100) {
+          @Override
+          public String load() {
+            loading.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return super.load();
+          }
+        };
+    Thread loader =
+        new Thread(
+            () -> {
+              try {
+                manager.getOrLoad("cache", 0, slowLoader);
+              } catch (HopException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    loader.start();
+    loading.await();
+
+    // The only worker waits for the loader, the task releasing the loader still gets to run
+    //
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      Future<String> waiting =
+          pool.submit(() -> manager.getOrLoad("cache", 0, new CountingLoader("b", 1)).getValue());
+      pool.submit(release::countDown);
+      assertEquals("a", waiting.get(20, TimeUnit.SECONDS));
+    } finally {
+      pool.shutdownNow();
+      loader.join();
+    }
+  }
+}
@@ -243,6 +243,8 @@ public class BaseDatabaseMetaTest {
     assertTrue(nativeMeta.isUsingDoubleDecimalAsSchemaTableSeparator());
     nativeMeta.setPreferredSchemaName("FOO");
     assertEquals("FOO", nativeMeta.getPreferredSchemaName());
+    nativeMeta.setFetchSize("5000");
+    assertEquals("5000", nativeMeta.getFetchSize());
   }
 
   private int rowCnt = 0;
@@ -17,6 +17,7 @@
 
 package org.apache.hop.core.database;
 
+import org.apache.hop.core.Const;
 import org.apache.hop.core.HopClientEnvironment;
 import org.apache.hop.core.exception.HopDatabaseBatchException;
 import org.apache.hop.core.exception.HopDatabaseException;
@@ -24,7 +25,9 @@ import org.apache.hop.core.logging.ILoggingObject;
 import org.apache.hop.core.logging.LogLevel;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.core.variables.Variables;
 import org.apache.hop.junit.rules.RestoreHopEnvironment;
@@ -32,6 +35,7 @@ import org.junit.*;
 
 import java.lang.reflect.Field;
 import java.sql.*;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -115,6 +119,21 @@ public class DatabaseTest {
     assertEquals(iRowMeta.getValueMeta(0).getLength(), columnSize);
   }
 
+  @Test
+  public void testGetFetchSize() {
+    variables.setVariable("FETCH_SIZE", "250");
+    Database db = new Database(log, variables, meta);
+
+    // Without a configured fetch size we keep the default of Hop
+    //
+    assertEquals(Const.FETCH_SIZE, db.getFetchSize(0));
+    assertEquals(Const.FETCH_SIZE * 2, db.getFetchSize(Const.FETCH_SIZE * 2));
+
+    when(meta.getFetchSize()).thenReturn("${FETCH_SIZE}");
+    assertEquals(250, db.getFetchSize(0));
+    assertEquals(250, db.getFetchSize(Const.FETCH_SIZE * 2));
+  }
+
   /**
    * When using getLookup calls there is no need to make attempt to retrieve row set metadata for
    * every call. That may bring performance penalty depends on jdbc driver implementation. For some
@@ -149,6 +168,61 @@ public class DatabaseTest {
     verify(rsMetaData, times(1)).getColumnCount();
   }
 
+  @Test
+  public void testBatchLookupFillsUpTheStatement() throws Exception {
+    when(meta.getQuotedSchemaTableCombination(
+            nullable(IVariables.class), nullable(String.class), nullable(String.class)))
+        .thenReturn("t");
+    when(meta.quoteField(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(meta.stripCR(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(ps.executeQuery()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsMetaData);
+    when(rsMetaData.getColumnCount()).thenReturn(0);
+    Database db = new Database(log, variables, meta);
+    Connection conn = mock(Connection.class);
+    when(conn.prepareStatement(any())).thenReturn(ps);
+    db.setConnection(conn);
+
+    db.setBatchLookup(
+        null, "t", new String[] {"k1", "k2"}, new String[] {"v"}, null, "v", 3);
+    verify(conn)
+        .prepareStatement(
+            "SELECT v, k1, k2 FROM t WHERE (k1 = ? AND k2 = ?) OR (k1 = ? AND k2 = ?)"
+                + " OR (k1 = ? AND k2 = ?) ORDER BY v");
+
+    IRowMeta keyMeta = new RowMeta();
+    keyMeta.addValueMeta(new ValueMetaString("k1"));
+    keyMeta.addValueMeta(new ValueMetaString("k2"));
+    List<Object[]> rows =
+        db.getBatchLookup(keyMeta, Arrays.asList(new Object[] {"a", "b"}, new Object[] {"c", "d"}));
+    assertTrue(rows.isEmpty());
+
+    // The last key is repeated in the unused parameters
+    //
+    verify(ps).setString(1, "a");
+    verify(ps).setString(2, "b");
+    verify(ps).setString(3, "c");
+    verify(ps).setString(4, "d");
+    verify(ps).setString(5, "c");
+    verify(ps).setString(6, "d");
+  }
+
+  @Test
+  public void testBatchLookupWithOneKeyUsesInList() throws Exception {
+    when(meta.getQuotedSchemaTableCombination(
+            nullable(IVariables.class), nullable(String.class), nullable(String.class)))
+        .thenReturn("t");
+    when(meta.quoteField(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(meta.stripCR(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    Database db = new Database(log, variables, meta);
+    Connection conn = mock(Connection.class);
+    db.setConnection(conn);
+
+    db.setBatchLookup(
+        null, "t", new String[] {"k"}, new String[] {"v"}, new String[] {"w"}, null, 3);
+    verify(conn).prepareStatement("SELECT v AS w, k FROM t WHERE k IN (?, ?, ?)");
+  }
+
   /**
    * Test that for every PreparedStatement passed into lookup signature we do reset and re-create
    * row meta.
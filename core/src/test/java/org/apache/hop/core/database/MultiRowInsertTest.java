@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database;
+
+import org.apache.hop.core.HopClientEnvironment;
+import org.apache.hop.core.exception.HopDatabaseException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MultiRowInsertTest {
+
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  private DatabaseMeta databaseMeta;
+  private IDatabase iDatabase;
+  private Connection connection;
+  private Map<String, PreparedStatement> statements;
+  private Database db;
+  private IRowMeta rowMeta;
+
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    HopClientEnvironment.init();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    iDatabase = mock(IDatabase.class);
+    when(iDatabase.getMaxMultiRowInsertRows()).thenReturn(3);
+
+    databaseMeta = mock(DatabaseMeta.class);
+    when(databaseMeta.getIDatabase()).thenReturn(iDatabase);
+    when(databaseMeta.getQuotedSchemaTableCombination(any(), anyString(), anyString()))
+        .thenAnswer(invocation -> invocation.getArgument(1) + "." + invocation.getArgument(2));
+    when(databaseMeta.quoteField(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(databaseMeta.stripCR(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(databaseMeta.supportsSetLong()).thenReturn(true);
+    when(databaseMeta.getMaxTextFieldLength()).thenReturn(Integer.MAX_VALUE);
+
+    // Hand out a new statement for every SQL we prepare
+    //
+    statements = new HashMap<>();
+    connection = mock(Connection.class);
+    when(connection.prepareStatement(anyString()))
+        .thenAnswer(
+            invocation ->
+                statements.computeIfAbsent(
+                    invocation.getArgument(0), sql -> mock(PreparedStatement.class)));
+
+    ILoggingObject log = mock(ILoggingObject.class);
+    when(log.getLogLevel()).thenReturn(LogLevel.NOTHING);
+    db = new Database(log, new Variables(), databaseMeta);
+    db.setConnection(connection);
+
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+  }
+
+  @Test
+  public void testMultiRowInsertStatement() {
+    assertEquals(
+        "INSERT INTO s.t (id, name) VALUES ( ?,  ?)", db.getInsertStatement("s", "t", rowMeta));
+    assertEquals(
+        "INSERT INTO s.t (id, name) VALUES ( ?,  ?), ( ?,  ?), ( ?,  ?)",
+        db.getMultiRowInsertStatement("s", "t", rowMeta, 3));
+  }
+
+  @Test
+  public void testMultiRowInsertSize() {
+    assertEquals(3, db.getMultiRowInsertSize(rowMeta));
+
+    // The rows per statement are limited by the number of parameters
+    //
+    when(iDatabase.getMaxMultiRowInsertRows()).thenReturn(1000);
+    when(iDatabase.getMaxPreparedStatementParameters()).thenReturn(100);
+    assertEquals(50, db.getMultiRowInsertSize(rowMeta));
+
+    // No use to insert a single row per statement
+    //
+    when(iDatabase.getMaxPreparedStatementParameters()).thenReturn(3);
+    assertEquals(0, db.getMultiRowInsertSize(rowMeta));
+    assertNull(db.createMultiRowInsert("s", "t", rowMeta));
+
+    when(iDatabase.getMaxMultiRowInsertRows()).thenReturn(0);
+    when(iDatabase.getMaxPreparedStatementParameters()).thenReturn(0);
+    assertEquals(0, db.getMultiRowInsertSize(rowMeta));
+  }
+
+  @Test
+  public void testInsertRows() throws Exception {
+    MultiRowInsert insert = db.createMultiRowInsert("s", "t", rowMeta);
+    assertEquals(3, insert.getRowsPerStatement());
+
+    for (long id = 1; id <= 7; id++) {
+      insert.addRow(new Object[] {id, "name" + id});
+    }
+    assertEquals(1, insert.getBufferedRows());
+    assertEquals(6L, insert.getRowsInserted());
+
+    PreparedStatement full = statements.get(db.getMultiRowInsertStatement("s", "t", rowMeta, 3));
+    verify(full, times(2)).executeUpdate();
+    verify(full).setLong(1, 1L);
+    verify(full).setString(2, "name1");
+    verify(full).setLong(5, 3L);
+    verify(full).setLong(5, 6L);
+
+    insert.flush();
+    insert.flush();
+    assertEquals(0, insert.getBufferedRows());
+    assertEquals(7L, insert.getRowsInserted());
+
+    PreparedStatement partial = statements.get(db.getInsertStatement("s", "t", rowMeta));
+    verify(partial).setLong(1, 7L);
+    verify(partial).setString(2, "name7");
+    verify(partial, times(1)).executeUpdate();
+
+    insert.close();
+    verify(full).close();
+    verify(partial).close();
+  }
+
+  @Test
+  public void testInsertError() throws Exception {
+    PreparedStatement failing = mock(PreparedStatement.class);
+    String sql = db.getMultiRowInsertStatement("s", "t", rowMeta, 2);
+    doReturn(failing).when(connection).prepareStatement(sql);
+    when(failing.executeUpdate()).thenThrow(new SQLException("duplicate key"));
+
+    MultiRowInsert insert = db.createMultiRowInsert("s", "t", rowMeta);
+    insert.addRow(new Object[] {1L, "a"});
+    insert.addRow(new Object[] {1L, "a"});
+    try {
+      insert.flush();
+      fail("The insert error should be thrown");
+    } catch (HopDatabaseException e) {
+      // Expected
+    }
+
+    // The failed rows are not inserted again
+    //
+    assertEquals(0, insert.getBufferedRows());
+    assertEquals(0L, insert.getRowsInserted());
+    insert.flush();
+    verify(failing, times(1)).executeUpdate();
+    verify(connection, never()).commit();
+  }
+}
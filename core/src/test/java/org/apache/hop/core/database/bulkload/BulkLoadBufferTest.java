@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database.bulkload;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BulkLoadBufferTest {
+
+  @Test
+  public void testWriteDecimal() {
+    long[] values = {0L, 7L, -7L, 10L, 1234567890L, -98765L, Long.MAX_VALUE, Long.MIN_VALUE};
+    for (long value : values) {
+      BulkLoadBuffer buffer = new BulkLoadBuffer(16);
+      buffer.writeDecimal(value);
+      assertEquals(Long.toString(value), new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void testWriteBinary() {
+    BulkLoadBuffer buffer = new BulkLoadBuffer(4);
+    buffer.writeShort(3);
+    buffer.writeInt(-1);
+    buffer.writeLong(1234567890123L);
+    buffer.writeDouble(1.5);
+    buffer.setInt(2, 42);
+
+    ByteBuffer expected = ByteBuffer.allocate(22);
+    expected.putShort((short) 3).putInt(42).putLong(1234567890123L).putDouble(1.5);
+    assertArrayEquals(expected.array(), buffer.toByteArray());
+  }
+
+  @Test
+  public void testWriteString() throws Exception {
+    BulkLoadBuffer buffer = new BulkLoadBuffer(2);
+    buffer.writeString("abc", StandardCharsets.UTF_8);
+    buffer.writeString("déf€", StandardCharsets.UTF_8);
+    buffer.writeString("é", Charset.forName("UTF-16BE"));
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write("abcdéf€".getBytes(StandardCharsets.UTF_8));
+    expected.write("é".getBytes("UTF-16BE"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    buffer.writeTo(out);
+    assertArrayEquals(expected.toByteArray(), out.toByteArray());
+  }
+
+  @Test
+  public void testTruncateAndClear() {
+    BulkLoadBuffer buffer = new BulkLoadBuffer(16);
+    buffer.writeString("first", StandardCharsets.US_ASCII);
+    int size = buffer.size();
+    buffer.writeString("second", StandardCharsets.US_ASCII);
+    buffer.truncate(size);
+    assertEquals("first", new String(buffer.toByteArray(), StandardCharsets.US_ASCII));
+
+    buffer.clear();
+    assertTrue(buffer.isEmpty());
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.database.bulkload;
+
+import org.apache.hop.core.HopClientEnvironment;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BulkLoadStreamerTest {
+
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopClientEnvironment.init();
+  }
+
+  @Test
+  public void testCsvEncoder() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaNumber("amount"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("flag"));
+    rowMeta.addValueMeta(new ValueMetaDate("date"));
+
+    CsvBulkLoadEncoder encoder =
+        new CsvBulkLoadEncoder(new int[] {1, 0, 2, 3, 4}, StandardCharsets.UTF_8);
+    encoder.setDelimiter(";");
+    ValueMetaDate dateFormat = new ValueMetaDate("date");
+    dateFormat.setConversionMask("yyyy-MM-dd");
+    encoder.setDateFormat(4, dateFormat);
+
+    BulkLoadBuffer buffer = new BulkLoadBuffer(16);
+    Date date = dateFormat.getDateFormat().parse("2022-05-17");
+    encoder.encodeRow(rowMeta, new Object[] {"a \"b\"", 12L, 1.5, true, date}, buffer);
+    encoder.encodeRow(rowMeta, new Object[] {null, -3L, null, false, null}, buffer);
+
+    assertEquals(
+        "12;\"a \"\"b\"\"\";1.5;true;2022-05-17\n-3;;;false;\n",
+        new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testStreamRowsOverChannels() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    CsvBulkLoadEncoder encoder = new CsvBulkLoadEncoder(new int[] {0}, StandardCharsets.UTF_8);
+
+    List<OutputStream> channels = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      channels.add(new ByteArrayOutputStream());
+    }
+    BulkLoadStreamer streamer = new BulkLoadStreamer("test", encoder, channels, 64, 4);
+    streamer.start();
+    for (long id = 0; id < 10000; id++) {
+      streamer.writeRow(rowMeta, new Object[] {id});
+    }
+    streamer.finish();
+
+    // Every row arrives exactly once, complete, on one of the channels
+    //
+    List<Long> ids = new ArrayList<>();
+    for (OutputStream channel : channels) {
+      String content = channel.toString();
+      if (!content.isEmpty()) {
+        assertTrue(content.endsWith("\n"));
+        for (String line : content.split("\n")) {
+          ids.add(Long.valueOf(line));
+        }
+      }
+    }
+    Collections.sort(ids);
+    assertEquals(10000, ids.size());
+    for (int i = 0; i < ids.size(); i++) {
+      assertEquals(Long.valueOf(i), ids.get(i));
+    }
+    assertEquals(10000L, streamer.getRowsWritten());
+    long bytes = 0;
+    for (OutputStream channel : channels) {
+      bytes += ((ByteArrayOutputStream) channel).size();
+    }
+    assertEquals(bytes, streamer.getBytesWritten());
+  }
+
+  @Test
+  public void testHeaderAndTrailer() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    IBulkLoadEncoder encoder =
+        new IBulkLoadEncoder() {
+          @Override
+          public void writeHeader(BulkLoadBuffer buffer) {
+            buffer.writeString("[", StandardCharsets.US_ASCII);
+          }
+
+          @Override
+          public void encodeRow(IRowMeta rowMeta, Object[] row, BulkLoadBuffer buffer) {
+            buffer.writeDecimal((Long) row[0]);
+          }
+
+          @Override
+          public void writeTrailer(BulkLoadBuffer buffer) {
+            buffer.writeString("]", StandardCharsets.US_ASCII);
+          }
+        };
+
+    ByteArrayOutputStream channel = new ByteArrayOutputStream();
+    BulkLoadStreamer streamer =
+        new BulkLoadStreamer("test", encoder, Arrays.asList(channel), 1024, 2);
+    streamer.start();
+    streamer.writeRow(rowMeta, new Object[] {1L});
+    streamer.writeRow(rowMeta, new Object[] {2L});
+    streamer.finish();
+
+    assertEquals("[12]", channel.toString());
+  }
+
+  @Test
+  public void testChannelError() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    CsvBulkLoadEncoder encoder = new CsvBulkLoadEncoder(new int[] {0}, StandardCharsets.UTF_8);
+
+    OutputStream failing =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("Connection lost");
+          }
+        };
+    BulkLoadStreamer streamer =
+        new BulkLoadStreamer("test", encoder, Arrays.asList(failing), 16, 2);
+    streamer.start();
+    try {
+      // The writer blocks on the buffers held by the failed channel and notices the error
+      //
+      for (long id = 0; id < 100000; id++) {
+        streamer.writeRow(rowMeta, new Object[] {id});
+      }
+      streamer.finish();
+      fail("The channel error should be reported");
+    } catch (HopException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    } finally {
+      streamer.abort();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OffHeapHashIndexTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testGetAndPut() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex()) {
+      assertTrue(index.isEmpty());
+      assertNull(index.get(new byte[] {10}));
+
+      index.put(new byte[] {10}, new byte[] {53, 12});
+      index.put(new byte[] {}, new byte[] {1});
+      assertArrayEquals(new byte[] {53, 12}, index.get(new byte[] {10}));
+      assertArrayEquals(new byte[] {1}, index.get(new byte[] {}));
+      assertNull(index.get(new byte[] {10, 0}));
+
+      // Replace a value
+      //
+      index.put(new byte[] {10}, new byte[] {});
+      assertArrayEquals(new byte[] {}, index.get(new byte[] {10}));
+      assertEquals(2, index.getSize());
+    }
+  }
+
+  @Test
+  public void testResizeInDirectMemory() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex(1, null)) {
+      putAndCheck(index, 100000);
+    }
+  }
+
+  @Test
+  public void testResizeMappedFromFile() throws Exception {
+    File directory = tempFolder.newFolder();
+    try (OffHeapHashIndex index = new OffHeapHashIndex(directory)) {
+      putAndCheck(index, 100000);
+
+      // The table and the data are stored in temporary files
+      //
+      assertEquals(2, directory.list().length);
+    }
+    assertEquals(0, directory.list().length);
+  }
+
+  @Test
+  public void testCloseFreesTheSegments() throws Exception {
+    BufferPoolMXBean directPool = getBufferPool("direct");
+    OffHeapSegments direct = new OffHeapSegments(null);
+    direct.allocate(16 * 1024 * 1024);
+    long used = directPool.getMemoryUsed();
+    direct.close();
+    assertTrue(directPool.getMemoryUsed() <= used - 16 * 1024 * 1024);
+
+    BufferPoolMXBean mappedPool = getBufferPool("mapped");
+    OffHeapSegments mapped = new OffHeapSegments(tempFolder.getRoot());
+    mapped.allocate(1024 * 1024);
+    long count = mappedPool.getCount();
+    mapped.close();
+    assertEquals(count - 1, mappedPool.getCount());
+    String[] files = tempFolder.getRoot().list();
+    assertEquals(0, files == null ? 0 : files.length);
+  }
+
+  private static BufferPoolMXBean getBufferPool(String name) {
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (pool.getName().equals(name)) {
+        return pool;
+      }
+    }
+    throw new IllegalStateException("No buffer pool " + name);
+  }
+
+  @Test
+  public void testEntryTooLarge() throws Exception {
+    try (OffHeapHashIndex index = new OffHeapHashIndex()) {
+      index.put(new byte[] {1}, new byte[OffHeapHashIndex.MAX_DATA_SEGMENT_SIZE - 9]);
+      try {
+        index.put(new byte[] {2}, new byte[OffHeapHashIndex.MAX_DATA_SEGMENT_SIZE - 8]);
+        fail("An entry larger than a segment can't be stored");
+      } catch (HopValueException e) {
+        // Expected
+      }
+      assertEquals(1, index.getSize());
+    }
+  }
+
+  private static void putAndCheck(OffHeapHashIndex index, int nrEntries) throws Exception {
+    for (int i = 0; i < nrEntries; i++) {
+      index.put(key(i), value(i));
+    }
+    assertEquals(nrEntries, index.getSize());
+    for (int i = 0; i < nrEntries; i++) {
+      assertArrayEquals(value(i), index.get(key(i)));
+    }
+    assertNull(index.get(key(nrEntries)));
+  }
+
+  private static byte[] key(int i) {
+    return ("key" + i).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] value(int i) {
+    return ("value of key " + i + " ".repeat(i % 7)).getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryManagerTest {
+
+  private static final long MB = MemoryManager.CHUNK_SIZE;
+
+  @Test
+  public void testSingleBudgetUsesWholePool() {
+    MemoryManager manager = new MemoryManager(10 * MB);
+    MemoryBudget budget = manager.createBudget("sort", 0);
+
+    assertTrue(budget.reserve(9 * MB));
+    assertTrue(budget.reserve(MB));
+    assertFalse(budget.reserve(1));
+    assertEquals(10 * MB, budget.getUsed());
+    assertEquals(10 * MB, manager.getReserved());
+
+    budget.releaseAll();
+    assertEquals(0, budget.getUsed());
+    assertEquals(0, manager.getReserved());
+    assertTrue(budget.reserve(MB));
+
+    budget.close();
+    assertEquals(0, manager.getReserved());
+    assertEquals(0, manager.getNrBudgets());
+  }
+
+  @Test
+  public void testMaxSize() {
+    MemoryManager manager = new MemoryManager(10 * MB);
+    MemoryBudget budget = manager.createBudget("sort", 2 * MB);
+
+    assertTrue(budget.reserve(MB + 1));
+    assertFalse(budget.reserve(MB));
+    assertEquals(2 * MB, manager.getReserved());
+    budget.close();
+  }
+
+  @Test
+  public void testFairShare() {
+    MemoryManager manager = new MemoryManager(10 * MB);
+    MemoryBudget greedy = manager.createBudget("greedy", 0);
+    assertTrue(greedy.reserve(10 * MB));
+
+    // A new budget has to wait while the pool is in use
+    //
+    MemoryBudget other = manager.createBudget("other", 0);
+    assertEquals(5 * MB, manager.getFairShare());
+    assertFalse(other.reserve(MB));
+    assertEquals(10 * MB, manager.getReserved());
+
+    // The greedy budget is over its fair share so it needs to spill
+    //
+    assertFalse(greedy.reserve(1));
+    greedy.releaseAll();
+    assertTrue(other.reserve(5 * MB));
+    assertTrue(greedy.reserve(5 * MB));
+    assertFalse(greedy.reserve(1));
+    assertFalse(other.reserve(1));
+    assertEquals(10 * MB, manager.getReserved());
+
+    other.close();
+    greedy.close();
+    assertEquals(0, manager.getReserved());
+  }
+
+  @Test
+  public void testBudgetsOpenedOneAfterAnother() {
+    MemoryManager manager = new MemoryManager(10 * MB);
+    List<MemoryBudget> budgets = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      budgets.add(manager.createBudget("sort " + i, 0));
+
+      // All open budgets keep on growing and spill when they're refused
+      //
+      for (int round = 0; round < 20; round++) {
+        for (MemoryBudget budget : budgets) {
+          if (!budget.reserve(MB)) {
+            budget.releaseAll();
+          }
+          assertTrue(manager.getReserved() <= manager.getPoolSize());
+        }
+      }
+    }
+
+    // Once spilled every budget gets its fair share back
+    //
+    budgets.forEach(MemoryBudget::releaseAll);
+    for (MemoryBudget budget : budgets) {
+      assertTrue(budget.reserve(manager.getFairShare() / MB * MB));
+    }
+    assertTrue(manager.getReserved() <= manager.getPoolSize());
+    budgets.forEach(MemoryBudget::close);
+    assertEquals(0, manager.getReserved());
+  }
+
+  @Test
+  public void testPartialRelease() {
+    MemoryManager manager = new MemoryManager(10 * MB);
+    MemoryBudget budget = manager.createBudget("group by", 0);
+
+    assertTrue(budget.reserve(3 * MB));
+    budget.release(2 * MB);
+    assertEquals(MB, budget.getUsed());
+    assertEquals(MB, manager.getReserved());
+    budget.close();
+  }
+
+  @Test
+  public void testRowSizeEstimate() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("flag"));
+
+    long empty = RowSizeEstimator.estimateRowSize(rowMeta, new Object[3]);
+    long small = RowSizeEstimator.estimateRowSize(rowMeta, new Object[] {"a", 1L, true});
+    long large =
+        RowSizeEstimator.estimateRowSize(
+            rowMeta, new Object[] {new String(new char[1000]), 1L, true});
+
+    assertEquals(0, empty % 8);
+    assertTrue(empty > 0);
+    assertTrue(small > empty);
+    assertTrue(large >= small + 1000 - 8);
+    assertEquals(0, RowSizeEstimator.estimateRowSize(rowMeta, null));
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NumericAccumulatorTest {
+
+  private static final int INTEGER = NumericAccumulator.TYPE_INTEGER;
+  private static final int NUMBER = NumericAccumulator.TYPE_NUMBER;
+
+  @Test
+  public void testAccumulatorType() {
+    assertEquals(INTEGER, NumericAccumulator.getAccumulatorType(new ValueMetaInteger("i")));
+    assertEquals(NUMBER, NumericAccumulator.getAccumulatorType(new ValueMetaNumber("n")));
+    assertEquals(
+        NumericAccumulator.TYPE_NONE,
+        NumericAccumulator.getAccumulatorType(new ValueMetaBigNumber("b")));
+    assertEquals(
+        NumericAccumulator.TYPE_NONE,
+        NumericAccumulator.getAccumulatorType(new ValueMetaString("s")));
+    assertEquals(NumericAccumulator.TYPE_NONE, NumericAccumulator.getAccumulatorType(null));
+  }
+
+  @Test
+  public void testSumIntegers() throws Exception {
+    IValueMeta valueMeta = new ValueMetaInteger("i");
+    NumericAccumulator accumulator = new NumericAccumulator(1);
+    assertNull(accumulator.getValue(0, INTEGER));
+
+    accumulator.sum(0, INTEGER, valueMeta, 5L);
+    accumulator.sum(0, INTEGER, valueMeta, null);
+    accumulator.sum(0, INTEGER, valueMeta, -2L);
+    assertEquals(3L, accumulator.getValue(0, INTEGER));
+    assertEquals(1L, accumulator.getAverage(0, INTEGER, 2));
+
+    accumulator.clear();
+    assertFalse(accumulator.hasValue(0));
+    assertNull(accumulator.getAverage(0, INTEGER, 0));
+  }
+
+  @Test
+  public void testCompensatedSum() throws Exception {
+    IValueMeta valueMeta = new ValueMetaNumber("n");
+    NumericAccumulator accumulator = new NumericAccumulator(1);
+    accumulator.sum(0, NUMBER, valueMeta, 1.0);
+    for (int i = 0; i < 10000; i++) {
+      accumulator.sum(0, NUMBER, valueMeta, 1e-16);
+    }
+    // A naive sum would lose every small value
+    //
+    assertEquals(1.0 + 1e-12, (Double) accumulator.getValue(0, NUMBER), 1e-15);
+    assertEquals(0.5 + 5e-13, (Double) accumulator.getAverage(0, NUMBER, 2), 1e-15);
+  }
+
+  @Test
+  public void testMinMax() throws Exception {
+    IValueMeta integerMeta = new ValueMetaInteger("i");
+    IValueMeta numberMeta = new ValueMetaNumber("n");
+    NumericAccumulator accumulator = new NumericAccumulator(4);
+    Object[][] values = {{3L, 2.5}, {null, null}, {-1L, -7.25}, {8L, 4.0}};
+    for (Object[] value : values) {
+      accumulator.min(0, INTEGER, integerMeta, value[0]);
+      accumulator.max(1, INTEGER, integerMeta, value[0]);
+      accumulator.min(2, NUMBER, numberMeta, value[1]);
+      accumulator.max(3, NUMBER, numberMeta, value[1]);
+    }
+    assertEquals(-1L, accumulator.getValue(0, INTEGER));
+    assertEquals(8L, accumulator.getValue(1, INTEGER));
+    assertEquals(-7.25, accumulator.getValue(2, NUMBER));
+    assertEquals(4.0, accumulator.getValue(3, NUMBER));
+    assertTrue(accumulator.hasValue(3));
+  }
+
+  @Test
+  public void testMerge() throws Exception {
+    IValueMeta integerMeta = new ValueMetaInteger("i");
+    IValueMeta numberMeta = new ValueMetaNumber("n");
+    NumericAccumulator target = new NumericAccumulator(4);
+    NumericAccumulator source = new NumericAccumulator(4);
+    target.sum(0, INTEGER, integerMeta, 4L);
+    source.sum(0, INTEGER, integerMeta, 3L);
+    target.sum(1, NUMBER, numberMeta, 1.0);
+    for (int i = 0; i < 10000; i++) {
+      source.sum(1, NUMBER, numberMeta, 1e-16);
+    }
+    source.min(2, NUMBER, numberMeta, -2.5);
+    target.max(3, INTEGER, integerMeta, 9L);
+    source.max(3, INTEGER, integerMeta, 7L);
+
+    target.mergeSum(0, INTEGER, source, 0);
+    target.mergeSum(1, NUMBER, source, 1);
+    target.mergeMin(2, NUMBER, source, 2);
+    target.mergeMax(3, INTEGER, source, 3);
+
+    assertEquals(7L, target.getValue(0, INTEGER));
+    assertEquals(1.0 + 1e-12, (Double) target.getValue(1, NUMBER), 1e-15);
+    assertEquals(-2.5, target.getValue(2, NUMBER));
+    assertEquals(9L, target.getValue(3, INTEGER));
+
+    // Merging an empty slot leaves the target untouched
+    //
+    target.mergeMin(0, INTEGER, new NumericAccumulator(1), 0);
+    assertEquals(7L, target.getValue(0, INTEGER));
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    NumericAccumulator accumulator = new NumericAccumulator(3);
+    accumulator.sum(0, INTEGER, new ValueMetaInteger("i"), 42L);
+    IValueMeta numberMeta = new ValueMetaNumber("n");
+    accumulator.sum(1, NUMBER, numberMeta, 1.0);
+    for (int i = 0; i < 10000; i++) {
+      accumulator.sum(1, NUMBER, numberMeta, 1e-16);
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    accumulator.write(new DataOutputStream(bytes));
+    NumericAccumulator read =
+        NumericAccumulator.read(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertEquals(42L, read.getValue(0, INTEGER));
+    assertEquals(accumulator.getValue(1, NUMBER), read.getValue(1, NUMBER));
+    assertFalse(read.hasValue(2));
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RowBatchTest {
+
+  private IRowMeta rowMeta;
+  private RowBatch batch;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("int"));
+    rowMeta.addValueMeta(new ValueMetaNumber("num"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("bool"));
+    rowMeta.addValueMeta(new ValueMetaDate("date"));
+    rowMeta.addValueMeta(new ValueMetaString("str"));
+
+    batch = new RowBatch(rowMeta, 3);
+    batch.addRow(new Object[] {1L, 1.5, true, new Date(1000L), "a"});
+    batch.addRow(new Object[] {null, null, null, null, null});
+    batch.addRow(new Object[] {3L, 3.5, false, new Date(3000L), "c"});
+  }
+
+  @Test
+  public void testColumnTypes() {
+    assertEquals(RowBatch.ColumnType.LONG, batch.getColumnType(0));
+    assertEquals(RowBatch.ColumnType.DOUBLE, batch.getColumnType(1));
+    assertEquals(RowBatch.ColumnType.BOOLEAN, batch.getColumnType(2));
+    assertEquals(RowBatch.ColumnType.DATE, batch.getColumnType(3));
+    assertEquals(RowBatch.ColumnType.OBJECT, batch.getColumnType(4));
+
+    IValueMeta binaryString = new ValueMetaInteger("lazy");
+    binaryString.setStorageType(IValueMeta.STORAGE_TYPE_BINARY_STRING);
+    assertEquals(RowBatch.ColumnType.OBJECT, RowBatch.getColumnType(binaryString));
+  }
+
+  @Test
+  public void testColumnValues() throws Exception {
+    assertTrue(batch.isFull());
+    assertEquals(3, batch.size());
+
+    long[] longs = batch.getLongs(0);
+    assertEquals(1L, longs[0]);
+    assertEquals(3L, longs[2]);
+    assertEquals(1.5, batch.getDoubles(1)[0], 0.0);
+    assertTrue(batch.getBooleans(2)[0]);
+    assertFalse(batch.getBooleans(2)[2]);
+    assertEquals(3000L, batch.getLongs(3)[2]);
+
+    for (int column = 0; column < rowMeta.size(); column++) {
+      boolean[] nulls = batch.getNulls(column);
+      assertFalse(nulls[0]);
+      assertTrue(nulls[1]);
+      assertFalse(nulls[2]);
+    }
+  }
+
+  @Test(expected = HopValueException.class)
+  public void testWrongColumnType() throws Exception {
+    batch.getDoubles(0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testAddToFullBatch() {
+    batch.addRow(new Object[] {4L, 4.5, true, new Date(4000L), "d"});
+  }
+
+  @Test
+  public void testModifiedColumnIsWrittenBack() throws Exception {
+    long[] longs = batch.getLongs(0);
+    boolean[] nulls = batch.getNulls(0);
+    longs[0] = 10L;
+    longs[1] = 20L;
+    nulls[1] = false;
+    nulls[2] = true;
+    batch.setColumnModified(0);
+
+    assertEquals(10L, batch.getRow(0)[0]);
+    assertEquals(20L, batch.getRow(1)[0]);
+    assertNull(batch.getRow(2)[0]);
+  }
+
+  @Test
+  public void testInvalidateColumn() throws Exception {
+    assertEquals(1L, batch.getLongs(0)[0]);
+    batch.getRow(0)[0] = 5L;
+    batch.invalidateColumn(0);
+    assertEquals(5L, batch.getLongs(0)[0]);
+  }
+
+  @Test
+  public void testClearColumn() throws Exception {
+    batch.clearColumn(1);
+    boolean[] nulls = batch.getNulls(1);
+    assertTrue(nulls[0]);
+    assertTrue(nulls[2]);
+    assertEquals(0.0, batch.getDoubles(1)[0], 0.0);
+
+    batch.getDoubles(1)[2] = 7.0;
+    nulls[2] = false;
+    batch.setColumnModified(1);
+    assertNull(batch.getRow(0)[1]);
+    assertEquals(7.0, batch.getRow(2)[1]);
+  }
+
+  @Test
+  public void testRetain() throws Exception {
+    Object[] lastRow = batch.getRow(2);
+    batch.getLongs(0);
+
+    assertEquals(1, batch.retain(new boolean[] {false, false, true}));
+    assertEquals(1, batch.size());
+    assertSame(lastRow, batch.getRow(0));
+    assertEquals(3L, batch.getLongs(0)[0]);
+    assertFalse(batch.getNulls(0)[0]);
+  }
+
+  @Test
+  public void testClear() throws Exception {
+    batch.getLongs(0);
+    batch.clear();
+    assertTrue(batch.isEmpty());
+
+    batch.addRow(new Object[] {9L, 9.5, true, new Date(9000L), "z"});
+    assertEquals(1, batch.size());
+    assertEquals(9L, batch.getLongs(0)[0]);
+  }
+}
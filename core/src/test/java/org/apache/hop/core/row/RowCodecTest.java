@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.exception.HopEofException;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaInternetAddress;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RowCodecTest {
+
+  private IRowMeta rowMeta;
+  private List<Object[]> rows;
+
+  @Before
+  public void setUp() throws Exception {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("str"));
+    rowMeta.addValueMeta(new ValueMetaInteger("int"));
+    rowMeta.addValueMeta(new ValueMetaNumber("num"));
+    rowMeta.addValueMeta(new ValueMetaDate("date"));
+    rowMeta.addValueMeta(new ValueMetaTimestamp("timestamp"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("bool"));
+    rowMeta.addValueMeta(new ValueMetaBigNumber("big"));
+    rowMeta.addValueMeta(new ValueMetaBinary("binary"));
+    rowMeta.addValueMeta(new ValueMetaInternetAddress("inet"));
+
+    Timestamp timestamp = new Timestamp(1234567890123L);
+    timestamp.setNanos(123456789);
+
+    rows = new ArrayList<>();
+    rows.add(
+        new Object[] {
+          "abc",
+          42L,
+          1.5,
+          new Date(-1000L),
+          timestamp,
+          true,
+          new BigDecimal("12345678901234567890.123"),
+          new byte[] {1, 2, 3},
+          InetAddress.getByName("127.0.0.1")
+        });
+    rows.add(new Object[] {null, null, null, null, null, null, null, null, null});
+    rows.add(
+        new Object[] {
+          "été 日本",
+          Long.MIN_VALUE,
+          -0.0,
+          new Date(Long.MAX_VALUE),
+          new Timestamp(0L),
+          false,
+          BigDecimal.ZERO,
+          new byte[0],
+          null
+        });
+    rows.add(new Object[] {"abc", Long.MAX_VALUE, Double.NaN, null, null, null, null, null, null});
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    assertRoundTrip(false);
+  }
+
+  @Test
+  public void testRoundTripWithDictionary() throws Exception {
+    assertRoundTrip(true);
+  }
+
+  @Test
+  public void testDictionaryIsSmaller() throws Exception {
+    IRowMeta stringMeta = new RowMeta();
+    stringMeta.addValueMeta(new ValueMetaString("country"));
+    List<Object[]> countries = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      countries.add(new Object[] {i % 2 == 0 ? "Belgium" : "Netherlands"});
+    }
+
+    byte[] plain = write(stringMeta, countries, false);
+    byte[] dictionary = write(stringMeta, countries, true);
+    assertTrue(dictionary.length < plain.length / 2);
+    assertRows(countries, read(stringMeta, dictionary));
+  }
+
+  @Test
+  public void testSmallerThanRowMeta() throws Exception {
+    ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+    DataOutputStream dos = new DataOutputStream(legacy);
+    for (Object[] row : rows) {
+      rowMeta.writeData(dos, row);
+    }
+    dos.flush();
+
+    assertTrue(write(rowMeta, rows, false).length < legacy.size());
+  }
+
+  @Test
+  public void testLegacyStream() throws Exception {
+    ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+    DataOutputStream dos = new DataOutputStream(legacy);
+    for (Object[] row : rows) {
+      rowMeta.writeData(dos, row);
+    }
+    dos.flush();
+
+    RowCodec codec = new RowCodec(rowMeta);
+    DataInputStream dis =
+        new DataInputStream(
+            new BufferedInputStream(new ByteArrayInputStream(legacy.toByteArray())));
+    codec.readHeader(dis);
+    assertTrue(codec.isLegacy());
+    assertRows(rows, readAll(codec, dis));
+  }
+
+  @Test
+  public void testEmptyRowMeta() throws Exception {
+    IRowMeta emptyMeta = new RowMeta();
+    List<Object[]> empty = new ArrayList<>();
+    empty.add(new Object[0]);
+    empty.add(new Object[0]);
+
+    assertEquals(2, read(emptyMeta, write(emptyMeta, empty, false)).size());
+  }
+
+  @Test
+  public void testBinaryStringStorage() throws Exception {
+    IRowMeta lazyMeta = new RowMeta();
+    IValueMeta lazy = new ValueMetaInteger("lazy");
+    lazy.setStorageType(IValueMeta.STORAGE_TYPE_BINARY_STRING);
+    lazy.setStorageMetadata(new ValueMetaString("lazy"));
+    lazyMeta.addValueMeta(lazy);
+
+    List<Object[]> lazyRows = new ArrayList<>();
+    lazyRows.add(new Object[] {"123".getBytes()});
+    lazyRows.add(new Object[] {null});
+
+    assertRows(lazyRows, read(lazyMeta, write(lazyMeta, lazyRows, true)));
+  }
+
+  private void assertRoundTrip(boolean useDictionary) throws Exception {
+    byte[] bytes = write(rowMeta, rows, useDictionary);
+    List<Object[]> result = read(rowMeta, bytes);
+    assertRows(rows, result);
+
+    Timestamp timestamp = (Timestamp) result.get(0)[4];
+    assertEquals(123456789, timestamp.getNanos());
+  }
+
+  private static void assertRows(List<Object[]> expected, List<Object[]> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int r = 0; r < expected.size(); r++) {
+      Object[] expectedRow = expected.get(r);
+      for (int i = 0; i < expectedRow.length; i++) {
+        Object value = actual.get(r)[i];
+        if (expectedRow[i] == null) {
+          assertNull(value);
+        } else if (expectedRow[i] instanceof byte[]) {
+          assertArrayEquals((byte[]) expectedRow[i], (byte[]) value);
+        } else {
+          assertEquals(expectedRow[i], value);
+        }
+      }
+    }
+  }
+
+  private static byte[] write(IRowMeta rowMeta, List<Object[]> rows, boolean useDictionary)
+      throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    RowCodec codec = new RowCodec(rowMeta, useDictionary);
+    codec.writeHeader(outputStream);
+    for (Object[] row : rows) {
+      codec.writeRow(outputStream, row);
+    }
+    return outputStream.toByteArray();
+  }
+
+  private static List<Object[]> read(IRowMeta rowMeta, byte[] bytes) throws Exception {
+    RowCodec codec = new RowCodec(rowMeta);
+    DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes));
+    codec.readHeader(dis);
+    assertFalse(codec.isLegacy());
+    return readAll(codec, dis);
+  }
+
+  private static List<Object[]> readAll(RowCodec codec, DataInputStream dis) throws Exception {
+    List<Object[]> result = new ArrayList<>();
+    while (true) {
+      try {
+        result.add(codec.readRow(dis));
+      } catch (HopEofException e) {
+        return result;
+      }
+      if (result.size() > 10000) {
+        fail("Expected the end of the stream");
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.sketch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrequencySketchTest {
+
+  @Test
+  public void testFrequency() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    assertEquals(0, sketch.frequency("a"));
+
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("a");
+    }
+    sketch.increment("b");
+    sketch.increment(null);
+
+    assertEquals(5, sketch.frequency("a"));
+    assertEquals(1, sketch.frequency("b"));
+    assertEquals(1, sketch.frequency(null));
+
+    for (int i = 0; i < 100; i++) {
+      sketch.increment("a");
+    }
+    assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency("a"));
+  }
+
+  @Test
+  public void testReset() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    for (int i = 0; i < 10; i++) {
+      sketch.increment("popular");
+    }
+    assertEquals(10, sketch.frequency("popular"));
+
+    // After enough other keys the counters are halved
+    //
+    for (long i = 0; i < 640; i++) {
+      sketch.increment(i);
+    }
+    assertTrue(sketch.frequency("popular") <= 5);
+  }
+}
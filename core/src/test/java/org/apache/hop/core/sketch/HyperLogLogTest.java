@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.sketch;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class HyperLogLogTest {
+
+  @Test
+  public void testSmallCardinalityIsNearlyExact() throws Exception {
+    IValueMeta valueMeta = new ValueMetaString("s");
+    HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+    assertEquals(0L, sketch.estimate());
+    for (int i = 0; i < 1000; i++) {
+      sketch.update(valueMeta, "value-" + (i % 50));
+      sketch.update(valueMeta, null);
+    }
+    assertEquals(50L, sketch.estimate());
+  }
+
+  @Test
+  public void testLargeCardinality() throws Exception {
+    IValueMeta valueMeta = new ValueMetaInteger("i");
+    HyperLogLog sketch = new HyperLogLog(14);
+    for (long i = 0; i < 1000000; i++) {
+      sketch.update(valueMeta, i);
+    }
+    // The standard error is 0.8% for precision 14, allow 4 times that
+    //
+    assertEquals(1000000.0, sketch.estimate(), 32000.0);
+  }
+
+  @Test
+  public void testMerge() throws Exception {
+    IValueMeta valueMeta = new ValueMetaInteger("i");
+    HyperLogLog first = new HyperLogLog(12);
+    HyperLogLog second = new HyperLogLog(12);
+    HyperLogLog all = new HyperLogLog(12);
+    for (long i = 0; i < 100000; i++) {
+      (i % 2 == 0 ? first : second).update(valueMeta, i);
+      all.update(valueMeta, i);
+    }
+
+    // Binary values are serialized sketches which get merged
+    //
+    HyperLogLog combined = new HyperLogLog(12);
+    IValueMeta binaryMeta = new ValueMetaBinary("b");
+    combined.update(binaryMeta, first.toBytes());
+    combined.update(binaryMeta, second.toBytes());
+    assertEquals(all.estimate(), combined.estimate());
+
+    first.merge(second);
+    assertEquals(all.estimate(), first.estimate());
+  }
+
+  @Test
+  public void testMergeDifferentPrecision() throws Exception {
+    IValueMeta valueMeta = new ValueMetaInteger("i");
+    HyperLogLog high = new HyperLogLog(14);
+    HyperLogLog low = new HyperLogLog(10);
+    HyperLogLog expected = new HyperLogLog(10);
+    for (long i = 0; i < 50000; i++) {
+      high.update(valueMeta, i);
+      expected.update(valueMeta, i);
+    }
+    low.merge(high);
+    assertEquals(10, low.getPrecision());
+    assertEquals(expected.estimate(), low.estimate());
+
+    // Merging a lower precision into a higher one lowers the precision
+    //
+    HyperLogLog other = new HyperLogLog(14);
+    other.merge(new HyperLogLog(10));
+    assertEquals(10, other.getPrecision());
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    IValueMeta valueMeta = new ValueMetaInteger("i");
+    HyperLogLog sketch = new HyperLogLog(8);
+    for (long i = 0; i < 5000; i++) {
+      sketch.update(valueMeta, i);
+    }
+    HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+    assertEquals(8, copy.getPrecision());
+    assertEquals(sketch.estimate(), copy.estimate());
+  }
+
+  @Test(expected = HopValueException.class)
+  public void testInvalidBytes() throws Exception {
+    HyperLogLog.fromBytes(new byte[] {1, 2, 3, 4});
+  }
+
+  @Test
+  public void testHashIgnoresStorageType() throws Exception {
+    ValueMetaString valueMeta = new ValueMetaString("s");
+    ValueMetaString binaryMeta = new ValueMetaString("s");
+    binaryMeta.setStorageType(IValueMeta.STORAGE_TYPE_BINARY_STRING);
+    binaryMeta.setStorageMetadata(new ValueMetaString("s"));
+    assertEquals(
+        HyperLogLog.hash(valueMeta, "abc"), HyperLogLog.hash(binaryMeta, "abc".getBytes()));
+    assertNotEquals(HyperLogLog.hash(valueMeta, "abc"), HyperLogLog.hash(valueMeta, "abd"));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.sketch;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuantileSketchTest {
+
+  @Test
+  public void testExactWhenSmall() {
+    QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_K);
+    assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+    for (int i = 10; i >= 1; i--) {
+      sketch.update(i);
+    }
+    sketch.update(Double.NaN);
+    assertEquals(10L, sketch.getN());
+    assertEquals(5.0, sketch.getQuantile(0.5), 0.0);
+    assertEquals(9.0, sketch.getQuantile(0.9), 0.0);
+    assertEquals(1.0, sketch.getQuantile(0.0), 0.0);
+    assertEquals(10.0, sketch.getQuantile(1.0), 0.0);
+  }
+
+  @Test
+  public void testRankErrorOnLargeStream() {
+    QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_K);
+    int n = 1000000;
+    for (int i = 0; i < n; i++) {
+      // Values 0..n-1 in scrambled order: the value is its own rank
+      //
+      sketch.update((i * 7919L) % n);
+    }
+    assertEquals(n, sketch.getN());
+    for (double fraction : new double[] {0.01, 0.25, 0.5, 0.75, 0.99}) {
+      assertEquals(fraction * n, sketch.getQuantile(fraction), 0.02 * n);
+    }
+    // Memory stays bounded by the accuracy parameter, not the number of values
+    //
+    assertTrue(sketch.getSizeInBytes() < 20 * QuantileSketch.DEFAULT_K * Double.BYTES);
+  }
+
+  @Test
+  public void testMergeAndSerialize() throws Exception {
+    QuantileSketch first = new QuantileSketch(100);
+    QuantileSketch second = new QuantileSketch(100);
+    for (int i = 0; i < 100000; i++) {
+      first.update(i);
+      second.update(100000 + i);
+    }
+    QuantileSketch merged = QuantileSketch.fromBytes(first.toBytes());
+    merged.update(new ValueMetaBinary("b"), second.toBytes());
+    assertEquals(200000L, merged.getN());
+    assertEquals(100000.0, merged.getQuantile(0.5), 4000.0);
+    assertEquals(0.0, merged.getQuantile(0.0), 0.0);
+    assertEquals(199999.0, merged.getQuantile(1.0), 0.0);
+
+    // Merging into an empty sketch adds all the levels at once
+    //
+    QuantileSketch empty = new QuantileSketch(100);
+    empty.merge(merged);
+    assertEquals(merged.getQuantile(0.5), empty.getQuantile(0.5), 4000.0);
+  }
+
+  @Test(expected = HopValueException.class)
+  public void testInvalidBytes() throws Exception {
+    QuantileSketch.fromBytes(new byte[] {'Q', 1, 0});
+  }
+}
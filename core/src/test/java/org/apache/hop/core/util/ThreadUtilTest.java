@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadUtilTest {
+
+  @Test
+  public void testPlatformThread() throws Exception {
+    AtomicBoolean ran = new AtomicBoolean(false);
+    Thread thread = ThreadUtil.newThread(() -> ran.set(true), false);
+    assertEquals(Thread.State.NEW, thread.getState());
+    assertEquals(false, isVirtual(thread));
+
+    thread.start();
+    thread.join();
+    assertTrue(ran.get());
+  }
+
+  @Test
+  public void testVirtualThreadOrFallback() throws Exception {
+    AtomicBoolean ran = new AtomicBoolean(false);
+    Thread thread = ThreadUtil.newThread(() -> ran.set(true), true);
+    thread.setName("virtual test");
+    assertEquals(Thread.State.NEW, thread.getState());
+    assertEquals(ThreadUtil.isVirtualThreadSupported(), isVirtual(thread));
+
+    thread.start();
+    thread.join();
+    assertTrue(ran.get());
+    assertEquals("virtual test", thread.getName());
+  }
+
+  private static boolean isVirtual(Thread thread) throws Exception {
+    try {
+      return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+}
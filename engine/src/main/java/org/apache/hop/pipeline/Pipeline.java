@@ -32,6 +32,7 @@ import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.RowBuffer;
 import org.apache.hop.core.row.value.ValueMetaString;
 import org.apache.hop.core.util.EnvUtil;
+import org.apache.hop.core.util.ThreadUtil;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.core.variables.Variables;
@@ -54,8 +55,8 @@ import org.apache.hop.workflow.engine.IWorkflowEngine;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.*;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -280,8 +281,8 @@ public abstract class Pipeline
   /** The transform performance snapshot size limit. */
   private int transformPerformanceSnapshotSizeLimit;
 
-  /** The wait until finished method need this blocking queue. */
-  private ArrayBlockingQueue<Object> pipelineWaitUntilFinishedBlockingQueue;
+  /** Counted down when the pipeline is finished, the wait until finished method waits for it. */
+  private CountDownLatch pipelineFinishedLatch;
 
   /** The name of the executing server */
   private String executingServer;
@@ -306,6 +307,24 @@ public abstract class Pipeline
 
   protected int rowSetSize;
 
+  /**
+   * Whether lock-free ring buffer row sets are used for hops between a single transform copy and a
+   * single target copy.
+   */
+  protected boolean ringBufferRowSetsEnabled;
+
+  /**
+   * Whether the transforms run as tasks on a bounded pool of worker threads instead of one thread
+   * per transform copy.
+   */
+  protected boolean workerPoolEnabled;
+
+  /** The number of worker threads when the worker pool is enabled, 0 means one per processor. */
+  protected int workerPoolSize;
+
+  /** Whether transforms are initialized and run in virtual threads, if the JVM supports these. */
+  protected boolean virtualThreadsEnabled;
+
   /** Whether the feedback is shown. */
   protected boolean feedbackShown;
 
@@ -651,6 +670,10 @@ public abstract class Pipeline
                         System.getProperty(Const.HOP_BATCHING_ROWSET));
                 if (batchingRowSet != null && batchingRowSet.booleanValue()) {
                   rowSet = new BlockingBatchingRowSet(rowSetSize);
+                } else if (ringBufferRowSetsEnabled && dispatchType == TYPE_DISP_1_1) {
+                  // Exactly one thread writes and one thread reads: no locking needed
+                  //
+                  rowSet = new RingBufferRowSet(rowSetSize);
                 } else {
                   rowSet = new BlockingRowSet(rowSetSize);
                 }
@@ -941,7 +964,7 @@ public abstract class Pipeline
 
       // Put it in a separate thread!
       //
-      threads[i] = new Thread(initThreads[i]);
+      threads[i] = ThreadUtil.newThread(initThreads[i], virtualThreadsEnabled);
       threads[i].setName(
           "init of " + sid.transformName + "." + sid.copy + " (" + threads[i].getName() + ")");
 
@@ -1160,7 +1183,7 @@ public abstract class Pipeline
     setPaused(false);
     setStopped(false);
 
-    pipelineWaitUntilFinishedBlockingQueue = new ArrayBlockingQueue<>(10);
+    pipelineFinishedLatch = new CountDownLatch(1);
 
     // Do all sorts of nifty things at the end of the pipeline execution
     ///
@@ -1200,12 +1223,19 @@ public abstract class Pipeline
     switch (pipelineMeta.getPipelineType()) {
       case Normal:
 
-        // Now start all the threads...
+        // Either start all the threads or hand the transforms to a scheduler...
         //
+        TransformScheduler scheduler = null;
+        if (workerPoolEnabled) {
+          scheduler = new TransformScheduler(getName(), workerPoolSize, rowSetSize);
+        }
         for (final TransformMetaDataCombi combi : transforms) {
-          RunThread runThread = new RunThread(combi);
-          Thread thread = new Thread(runThread);
-          thread.setName(getName() + " - " + combi.transformName);
+          Thread thread = null;
+          if (scheduler == null) {
+            RunThread runThread = new RunThread(combi);
+            thread = ThreadUtil.newThread(runThread, virtualThreadsEnabled);
+            thread.setName(getName() + " - " + combi.transformName);
+          }
           ExtensionPointHandler.callExtensionPoint(
               log, this, HopExtensionPoint.TransformBeforeStart.id, combi);
           // Call an extension point at the end of the transform
@@ -1221,7 +1251,14 @@ public abstract class Pipeline
                 }
               });
 
-          thread.start();
+          if (scheduler == null) {
+            thread.start();
+          } else {
+            scheduler.addTransform(combi);
+          }
+        }
+        if (scheduler != null) {
+          scheduler.start();
         }
         break;
 
@@ -1273,9 +1310,9 @@ public abstract class Pipeline
           badGuys.add(e);
         }
       }
-      if (pipelineWaitUntilFinishedBlockingQueue != null) {
+      if (pipelineFinishedLatch != null) {
         // Signal for the waitUntilFinished blocker...
-        pipelineWaitUntilFinishedBlockingQueue.add(new Object());
+        pipelineFinishedLatch.countDown();
       }
       if (!badGuys.isEmpty()) {
         // FIFO
@@ -1321,6 +1358,7 @@ public abstract class Pipeline
         ITransform transform =
             iTransformITransformMetaITransformDataTransformMetaDataCombi.transform;
 
+        TransformCounters counters = transform.getCounters();
         PerformanceSnapShot snapShot =
             new PerformanceSnapShot(
                 seqNr,
@@ -1328,13 +1366,13 @@ public abstract class Pipeline
                 getName(),
                 transformMeta.getName(),
                 transform.getCopy(),
-                transform.getLinesRead(),
-                transform.getLinesWritten(),
-                transform.getLinesInput(),
-                transform.getLinesOutput(),
-                transform.getLinesUpdated(),
-                transform.getLinesRejected(),
-                transform.getErrors());
+                counters.getLinesRead(),
+                counters.getLinesWritten(),
+                counters.getLinesInput(),
+                counters.getLinesOutput(),
+                counters.getLinesUpdated(),
+                counters.getLinesRejected(),
+                counters.getErrors());
 
         synchronized (transformPerformanceSnapShots) {
           List<PerformanceSnapShot> snapShotList =
@@ -1384,19 +1422,17 @@ public abstract class Pipeline
   @Override
   public void waitUntilFinished() {
     try {
-      if (pipelineWaitUntilFinishedBlockingQueue == null) {
+      CountDownLatch latch = pipelineFinishedLatch;
+      if (latch == null) {
         return;
       }
       boolean wait = true;
       while (wait) {
-        // Wait a little while
+        // We're woken up as soon as the pipeline finishes, the time-out is only there to keep an
+        // eye on the parent
         //
-        wait = pipelineWaitUntilFinishedBlockingQueue.poll(50, TimeUnit.MILLISECONDS) == null;
+        wait = !TransformScheduler.await(latch, 50, TimeUnit.MILLISECONDS);
         if (wait) {
-          // poll returns immediately - this was hammering the CPU with poll checks. Added
-          // a sleep to let the CPU breathe
-          Thread.sleep(1);
-
           // If a parent workflow or pipeline has a stopped state, stop this pipeline as well
           //
           if (parentWorkflow != null && parentWorkflow.isStopped() && !isStopped()) {
@@ -3251,6 +3287,10 @@ public abstract class Pipeline
             metrics.setComponentMetric(
                 combi.transform, METRIC_REJECTED, combi.transform.getLinesRejected());
             metrics.setComponentMetric(combi.transform, METRIC_ERROR, combi.transform.getErrors());
+            for (Map.Entry<IEngineMetric, Long> entry :
+                combi.transform.getComponentMetrics().entrySet()) {
+              metrics.setComponentMetric(combi.transform, entry.getKey(), entry.getValue());
+            }
 
             long inputBufferSize = 0;
             for (IRowSet rowSet : transform.getInputRowSets()) {
@@ -3437,6 +3477,70 @@ public abstract class Pipeline
     this.rowSetSize = rowSetSize;
   }
 
+  /**
+   * Gets ringBufferRowSetsEnabled
+   *
+   * @return value of ringBufferRowSetsEnabled
+   */
+  public boolean isRingBufferRowSetsEnabled() {
+    return ringBufferRowSetsEnabled;
+  }
+
+  /**
+   * @param ringBufferRowSetsEnabled The ringBufferRowSetsEnabled to set
+   */
+  public void setRingBufferRowSetsEnabled(boolean ringBufferRowSetsEnabled) {
+    this.ringBufferRowSetsEnabled = ringBufferRowSetsEnabled;
+  }
+
+  /**
+   * Gets workerPoolEnabled
+   *
+   * @return value of workerPoolEnabled
+   */
+  public boolean isWorkerPoolEnabled() {
+    return workerPoolEnabled;
+  }
+
+  /**
+   * @param workerPoolEnabled The workerPoolEnabled to set
+   */
+  public void setWorkerPoolEnabled(boolean workerPoolEnabled) {
+    this.workerPoolEnabled = workerPoolEnabled;
+  }
+
+  /**
+   * Gets workerPoolSize
+   *
+   * @return value of workerPoolSize
+   */
+  public int getWorkerPoolSize() {
+    return workerPoolSize;
+  }
+
+  /**
+   * @param workerPoolSize The workerPoolSize to set
+   */
+  public void setWorkerPoolSize(int workerPoolSize) {
+    this.workerPoolSize = workerPoolSize;
+  }
+
+  /**
+   * Gets virtualThreadsEnabled
+   *
+   * @return value of virtualThreadsEnabled
+   */
+  public boolean isVirtualThreadsEnabled() {
+    return virtualThreadsEnabled;
+  }
+
+  /**
+   * @param virtualThreadsEnabled The virtualThreadsEnabled to set
+   */
+  public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+    this.virtualThreadsEnabled = virtualThreadsEnabled;
+  }
+
   /**
    * Gets feedbackShown
    *
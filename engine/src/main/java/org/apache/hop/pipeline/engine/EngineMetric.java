@@ -37,6 +37,19 @@ public class EngineMetric implements IEngineMetric {
     this.numeric = numeric;
   }
 
+  /**
+   * Calculate the display priority of one of a series of numbered metrics, for example the rows of
+   * every writer connection of a transform. The number is padded with zeros so that the metrics
+   * are shown in the order of their numbers: the display priorities are sorted as text.
+   *
+   * @param prefix The display priority of the series, for example "12"
+   * @param nr The number of the metric in the series, from 0 to 99
+   * @return The display priority, for example "1203" for number 3
+   */
+  public static String getNumberedDisplayPriority(String prefix, int nr) {
+    return String.format("%s%02d", prefix, nr);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
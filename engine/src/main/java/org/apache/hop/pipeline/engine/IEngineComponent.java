@@ -20,8 +20,11 @@ package org.apache.hop.pipeline.engine;
 import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.core.logging.LogLevel;
 import org.apache.hop.pipeline.transform.IRowListener;
+import org.apache.hop.pipeline.transform.TransformCounters;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.Map;
 
 /**
  * An identifiable component of an execution engine {@link IPipelineEngine} In a pipeline engine
@@ -78,6 +81,26 @@ public interface IEngineComponent {
 
   long getLinesUpdated();
 
+  /**
+   * Get all the row counters of this component at once. Prefer this over the individual getters
+   * when the counters are compared with each other.
+   *
+   * @return A snapshot of the row counters of this component
+   */
+  default TransformCounters getCounters() {
+    return TransformCounters.of(this);
+  }
+
+  /**
+   * Get the metrics which are specific to this kind of component, like the hits and misses of a
+   * lookup cache. They are reported next to the row counters.
+   *
+   * @return The specific metrics of this component, empty by default
+   */
+  default Map<IEngineMetric, Long> getComponentMetrics() {
+    return Collections.emptyMap();
+  }
+
   String getStatusDescription();
 
   long getExecutionDuration();
@@ -28,6 +28,7 @@ import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.logging.ILoggingObject;
 import org.apache.hop.core.parameters.INamedParameters;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.util.ThreadUtil;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.execution.*;
 import org.apache.hop.execution.profiling.ExecutionDataProfile;
@@ -116,6 +117,20 @@ public class LocalPipelineEngine extends Pipeline implements IPipelineEngine<Pip
 
     int sizeRowsSet = Const.toInt(resolve(config.getRowSetSize()), Const.ROWS_IN_ROWSET);
     setRowSetSize(sizeRowsSet);
+    setRingBufferRowSetsEnabled(
+        LocalPipelineRunConfiguration.RowSetType.RingBuffer.name().equals(config.getRowSetType()));
+    setWorkerPoolEnabled(
+        LocalPipelineRunConfiguration.ExecutionMode.WorkerPool.name()
+            .equals(config.getExecutionMode()));
+    setWorkerPoolSize(Const.toInt(resolve(config.getWorkerPoolSize()), 0));
+    boolean virtualThreads =
+        LocalPipelineRunConfiguration.ExecutionMode.VirtualThreads.name()
+            .equals(config.getExecutionMode());
+    if (virtualThreads && !ThreadUtil.isVirtualThreadSupported()) {
+      log.logBasic(
+          "Virtual threads are not supported by this Java runtime, transforms run in regular threads");
+    }
+    setVirtualThreadsEnabled(virtualThreads);
     setSafeModeEnabled(config.isSafeModeEnabled());
     setSortingTransformsTopologically(config.isSortingTransformsTopologically());
     setGatheringMetrics(config.isGatheringMetrics());
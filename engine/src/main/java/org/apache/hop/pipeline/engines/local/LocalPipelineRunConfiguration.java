@@ -46,6 +46,44 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   @HopMetadataProperty(key = "rowset_size")
   protected String rowSetSize;
 
+  @GuiWidgetElement(
+      id = "rowSetType",
+      order = "015",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.COMBO,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.RowSetType.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.RowSetType.ToolTip",
+      comboValuesMethod = "getRowSetTypes")
+  @HopMetadataProperty(key = "rowset_type")
+  protected String rowSetType;
+
+  @GuiWidgetElement(
+      id = "executionMode",
+      order = "016",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.COMBO,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.ExecutionMode.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.ExecutionMode.ToolTip",
+      comboValuesMethod = "getExecutionModes")
+  @HopMetadataProperty(key = "execution_mode")
+  protected String executionMode;
+
+  @GuiWidgetElement(
+      id = "workerPoolSize",
+      order = "017",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.TEXT,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.WorkerPoolSize.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.WorkerPoolSize.ToolTip")
+  @HopMetadataProperty(key = "worker_pool_size")
+  protected String workerPoolSize;
+
   @GuiWidgetElement(
       id = "safeModeEnabled",
       order = "020",
@@ -151,9 +189,27 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     Random;
   }
 
+  public enum RowSetType {
+    /** Row sets guarded by a lock, safe for any number of threads */
+    Blocking,
+    /** Lock-free ring buffers for hops with exactly one writing and one reading transform copy */
+    RingBuffer;
+  }
+
+  public enum ExecutionMode {
+    /** Every transform copy runs in a thread of its own */
+    Threads,
+    /** Transforms run as tasks on a bounded pool of worker threads */
+    WorkerPool,
+    /** Every transform copy runs in a virtual thread of its own, if the JVM supports these */
+    VirtualThreads;
+  }
+
   public LocalPipelineRunConfiguration() {
     super();
     this.rowSetSize = Integer.toString(Const.ROWS_IN_ROWSET);
+    this.rowSetType = RowSetType.Blocking.name();
+    this.executionMode = ExecutionMode.Threads.name();
     this.feedbackShown = false;
     this.feedbackSize = Integer.toString(Const.ROWS_UPDATE);
     this.waitTime = EnvUtil.getSystemProperty(Const.HOP_DEFAULT_BUFFER_POLLING_WAITTIME, "20");
@@ -165,6 +221,9 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   public LocalPipelineRunConfiguration(LocalPipelineRunConfiguration config) {
     super(config);
     this.rowSetSize = config.rowSetSize;
+    this.rowSetType = config.rowSetType;
+    this.executionMode = config.executionMode;
+    this.workerPoolSize = config.workerPoolSize;
     this.feedbackShown = config.feedbackShown;
     this.feedbackSize = config.feedbackSize;
     this.waitTime = config.waitTime;
@@ -188,6 +247,23 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     }
     return list;
   }
+
+  public List<String> getRowSetTypes(ILogChannel log, IHopMetadataProvider metadataProvider) {
+    List<String> list = new ArrayList<>();
+    for (RowSetType type : RowSetType.values()) {
+      list.add(type.name());
+    }
+    return list;
+  }
+
+  public List<String> getExecutionModes(ILogChannel log, IHopMetadataProvider metadataProvider) {
+    List<String> list = new ArrayList<>();
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      list.add(mode.name());
+    }
+    return list;
+  }
+
   /**
    * Gets rowSetSize
    *
@@ -204,6 +280,54 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     this.rowSetSize = rowSetSize;
   }
 
+  /**
+   * Gets rowSetType
+   *
+   * @return value of rowSetType
+   */
+  public String getRowSetType() {
+    return rowSetType;
+  }
+
+  /**
+   * @param rowSetType The rowSetType to set
+   */
+  public void setRowSetType(String rowSetType) {
+    this.rowSetType = rowSetType;
+  }
+
+  /**
+   * Gets executionMode
+   *
+   * @return value of executionMode
+   */
+  public String getExecutionMode() {
+    return executionMode;
+  }
+
+  /**
+   * @param executionMode The executionMode to set
+   */
+  public void setExecutionMode(String executionMode) {
+    this.executionMode = executionMode;
+  }
+
+  /**
+   * Gets workerPoolSize
+   *
+   * @return value of workerPoolSize
+   */
+  public String getWorkerPoolSize() {
+    return workerPoolSize;
+  }
+
+  /**
+   * @param workerPoolSize The workerPoolSize to set
+   */
+  public void setWorkerPoolSize(String workerPoolSize) {
+    this.workerPoolSize = workerPoolSize;
+  }
+
   /**
    * Gets safeModeEnabled
    *
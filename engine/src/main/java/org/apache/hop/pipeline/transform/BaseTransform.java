@@ -29,6 +29,7 @@ import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.logging.*;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.value.ValueMetaBase;
 import org.apache.hop.core.row.value.ValueMetaString;
@@ -54,6 +55,7 @@ import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -136,34 +138,35 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private final IPipelineEngine<PipelineMeta> pipeline;
 
-  private final Object statusCountersLock = new Object();
-
   protected Date initStartDate;
   protected Date executionStartDate;
   protected Date firstRowReadDate;
   protected Date lastRowWrittenDate;
   protected Date executionEndDate;
 
+  // The status counters are updated for every row but only read once in a while by the GUI or the
+  // status servlet. LongAdder never blocks the row path, not even when the counters are read.
+  //
   /** Number of lines read from previous transform(s) */
-  private long linesRead;
+  private final LongAdder linesRead = new LongAdder();
 
   /** Number of lines written to next transform(s) */
-  private long linesWritten;
+  private final LongAdder linesWritten = new LongAdder();
 
   /** Number of lines read from file or database */
-  private long linesInput;
+  private final LongAdder linesInput = new LongAdder();
 
   /** Number of lines written to file or database */
-  private long linesOutput;
+  private final LongAdder linesOutput = new LongAdder();
 
   /** Number of updates in a database table or file */
-  private long linesUpdated;
+  private final LongAdder linesUpdated = new LongAdder();
 
   /** Number of lines skipped */
-  private long linesSkipped;
+  private final LongAdder linesSkipped = new LongAdder();
 
   /** Number of lines rejected to an error handling transform */
-  private long linesRejected;
+  private final LongAdder linesRejected = new LongAdder();
 
   private boolean distributed;
 
@@ -186,7 +189,11 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   /** the rowsets on the output, size() == nr of target transforms */
   private List<IRowSet> outputRowSets;
 
-  private DynamicWaitTimes.SingleStreamStatus waitingTime;
+  /** Wakes us up when any of the input row sets gets rows or is done */
+  private final RowSetSelector inputSelector = new RowSetSelector();
+
+  /** The maximum time to wait for input rows before checking the state of the transform again */
+  private Integer inputWaitTime;
 
   private final ReadWriteLock outputRowSetsLock = new ReentrantReadWriteLock();
 
@@ -316,6 +323,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   private IRowHandler rowHandler;
 
+  /** The maximum number of rows returned by {@link #getRowBatch()} */
+  private int rowBatchSize = Const.ROWS_IN_BATCH;
+
+  /** The re-usable batch of input rows */
+  private RowBatch inputRowBatch;
+
   private AtomicBoolean markStopped;
 
   /**
@@ -371,15 +384,13 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     init = false;
 
-    synchronized (statusCountersLock) {
-      linesRead = 0L;
-      linesWritten = 0L;
-      linesUpdated = 0L;
-      linesSkipped = 0L;
-      linesRejected = 0L;
-      linesInput = 0L;
-      linesOutput = 0L;
-    }
+    linesRead.reset();
+    linesWritten.reset();
+    linesUpdated.reset();
+    linesSkipped.reset();
+    linesRejected.reset();
+    linesInput.reset();
+    linesOutput.reset();
 
     inputRowSets = new ArrayList<>();
     outputRowSets = new ArrayList<>();
@@ -627,9 +638,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesRead() {
-    synchronized (statusCountersLock) {
-      return linesRead;
-    }
+    return linesRead.sum();
   }
 
   /**
@@ -639,9 +648,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long incrementLinesRead() {
-    synchronized (statusCountersLock) {
-      return ++linesRead;
-    }
+    linesRead.increment();
+    return linesRead.sum();
   }
 
   /**
@@ -650,9 +658,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long decrementLinesRead() {
-    synchronized (statusCountersLock) {
-      return --linesRead;
-    }
+    linesRead.decrement();
+    return linesRead.sum();
   }
 
   /**
@@ -660,9 +667,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesRead()}, {@link #incrementLinesRead()}, {@link #decrementLinesRead()}
    */
   public void setLinesRead(long newLinesReadValue) {
-    synchronized (statusCountersLock) {
-      linesRead = newLinesReadValue;
-    }
+    setCounter(linesRead, newLinesReadValue);
   }
 
   /**
@@ -671,9 +676,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesInput() {
-    synchronized (statusCountersLock) {
-      return linesInput;
-    }
+    return linesInput.sum();
   }
 
   /**
@@ -683,9 +686,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return the new incremented value
    */
   public long incrementLinesInput() {
-    synchronized (statusCountersLock) {
-      return ++linesInput;
-    }
+    linesInput.increment();
+    return linesInput.sum();
   }
 
   /**
@@ -694,9 +696,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesInput()} or {@link #incrementLinesInput()}
    */
   public void setLinesInput(long newLinesInputValue) {
-    synchronized (statusCountersLock) {
-      linesInput = newLinesInputValue;
-    }
+    setCounter(linesInput, newLinesInputValue);
   }
 
   /**
@@ -705,9 +705,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesOutput() {
-    synchronized (statusCountersLock) {
-      return linesOutput;
-    }
+    return linesOutput.sum();
   }
 
   /**
@@ -717,9 +715,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesOutput()}, {@link #setLinesOutput(long)}
    */
   public long incrementLinesOutput() {
-    synchronized (statusCountersLock) {
-      return ++linesOutput;
-    }
+    linesOutput.increment();
+    return linesOutput.sum();
   }
 
   /**
@@ -728,9 +725,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesOutput()} or {@link #incrementLinesOutput()}
    */
   public void setLinesOutput(long newLinesOutputValue) {
-    synchronized (statusCountersLock) {
-      linesOutput = newLinesOutputValue;
-    }
+    setCounter(linesOutput, newLinesOutputValue);
   }
 
   /**
@@ -741,9 +736,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesWritten() {
-    synchronized (statusCountersLock) {
-      return linesWritten;
-    }
+    return linesWritten.sum();
   }
 
   /**
@@ -753,9 +746,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long incrementLinesWritten() {
-    synchronized (statusCountersLock) {
-      return ++linesWritten;
-    }
+    linesWritten.increment();
+    return linesWritten.sum();
   }
 
   /**
@@ -765,9 +757,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long decrementLinesWritten() {
-    synchronized (statusCountersLock) {
-      return --linesWritten;
-    }
+    linesWritten.decrement();
+    return linesWritten.sum();
   }
 
   /**
@@ -778,9 +769,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    *     #decrementLinesWritten()}
    */
   public void setLinesWritten(long newLinesWrittenValue) {
-    synchronized (statusCountersLock) {
-      linesWritten = newLinesWrittenValue;
-    }
+    setCounter(linesWritten, newLinesWrittenValue);
   }
 
   /**
@@ -789,9 +778,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesUpdated() {
-    synchronized (statusCountersLock) {
-      return linesUpdated;
-    }
+    return linesUpdated.sum();
   }
 
   /**
@@ -801,9 +788,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesUpdated()}, {@link #setLinesUpdated(long)}
    */
   public long incrementLinesUpdated() {
-    synchronized (statusCountersLock) {
-      return ++linesUpdated;
-    }
+    linesUpdated.increment();
+    return linesUpdated.sum();
   }
 
   /**
@@ -812,9 +798,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesUpdated()}, {@link #incrementLinesUpdated()}
    */
   public void setLinesUpdated(long newLinesUpdatedValue) {
-    synchronized (statusCountersLock) {
-      linesUpdated = newLinesUpdatedValue;
-    }
+    setCounter(linesUpdated, newLinesUpdatedValue);
   }
 
   /**
@@ -825,9 +809,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesRejected() {
-    synchronized (statusCountersLock) {
-      return linesRejected;
-    }
+    return linesRejected.sum();
   }
 
   /**
@@ -837,9 +819,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return the new incremented value
    */
   public long incrementLinesRejected() {
-    synchronized (statusCountersLock) {
-      return ++linesRejected;
-    }
+    linesRejected.increment();
+    return linesRejected.sum();
   }
 
   /**
@@ -848,9 +829,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public void setLinesRejected(long newLinesRejectedValue) {
-    synchronized (statusCountersLock) {
-      linesRejected = newLinesRejectedValue;
-    }
+    setCounter(linesRejected, newLinesRejectedValue);
   }
 
   /**
@@ -858,9 +837,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #setLinesSkipped(long)}, {@link #incrementLinesSkipped()}
    */
   public long getLinesSkipped() {
-    synchronized (statusCountersLock) {
-      return linesSkipped;
-    }
+    return linesSkipped.sum();
   }
 
   /**
@@ -870,9 +847,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesSkipped()}, {@link #setLinesSkipped(long)}
    */
   public long incrementLinesSkipped() {
-    synchronized (statusCountersLock) {
-      return ++linesSkipped;
-    }
+    linesSkipped.increment();
+    return linesSkipped.sum();
   }
 
   /**
@@ -880,9 +856,15 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesSkipped()}, {@link #incrementLinesSkipped()}
    */
   public void setLinesSkipped(long newLinesSkippedValue) {
-    synchronized (statusCountersLock) {
-      linesSkipped = newLinesSkippedValue;
-    }
+    setCounter(linesSkipped, newLinesSkippedValue);
+  }
+
+  /**
+   * Set a counter to a new value. Increments which happen at the same time from another thread are
+   * not lost but added to the new value.
+   */
+  private static void setCounter(LongAdder counter, long newValue) {
+    counter.add(newValue - counter.sum());
   }
 
   @Override
@@ -1005,7 +987,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     //
     while (paused.get() && !stopped.get()) {
       try {
-        Thread.sleep(1);
+        TransformScheduler.sleep(1);
       } catch (InterruptedException e) {
         throw new HopTransformException(e);
       }
@@ -1030,7 +1012,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       int counter = 0;
       while (!pipeline.isRunning() && !stopped.get()) {
         try {
-          Thread.sleep(1000);
+          TransformScheduler.sleep(1000);
           counter++;
         } catch (InterruptedException e) {
           // Ignore
@@ -1182,8 +1164,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
         // To reduce stress on the locking system we are NOT going to allow
         // the buffer to grow to its full capacity.
+        // A scheduler worker only runs us when there's room.
 
-        if (!rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped()) {
+        if (!rs.isDone()
+            && rs.size() >= upperBufferBoundary
+            && !isStopped()
+            && !TransformScheduler.isWorkerThread()) {
           try {
             Thread.sleep(0, 1);
           } catch (InterruptedException e) {
@@ -1218,8 +1204,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
         // To reduce stress on the locking system we are NOT going to allow
         // the buffer to grow to its full capacity.
+        // A scheduler worker only runs us when there's room.
 
-        if (!rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped()) {
+        if (!rs.isDone()
+            && rs.size() >= upperBufferBoundary
+            && !isStopped()
+            && !TransformScheduler.isWorkerThread()) {
           try {
             Thread.sleep(0, 1);
           } catch (InterruptedException e) {
@@ -1257,13 +1247,52 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       toBeSent = metaFromRs;
     }
 
-    while (!rs.putRow(toBeSent, row)) {
+    while (!putRowWait(rs, toBeSent, row)) {
       if (isStopped() && !safeStopped.get()) {
         return;
       }
     }
   }
 
+  /**
+   * Put a row in a row set, waiting a while for room. On a scheduler worker the pool is told that
+   * we're blocked so that it can keep the other transforms running.
+   *
+   * @return true if the row was written, false if we timed out
+   */
+  private boolean putRowWait(IRowSet rowSet, IRowMeta rowMeta, Object[] row) {
+    if (TransformScheduler.isWorkerThread()) {
+      return TransformScheduler.putRow(rowSet, rowMeta, row);
+    }
+    return rowSet.putRow(rowMeta, row);
+  }
+
+  /**
+   * Wait until any of the given input row sets has rows or is done. The row sets wake us up, the
+   * wait time of the run configuration is only used to check the state of the transform now and
+   * then. On a scheduler worker the pool is told that we're blocked so that it can keep the other
+   * transforms running.
+   */
+  private void awaitInputRows(List<IRowSet> rowSets) {
+    if (inputWaitTime == null) {
+      int waitTime =
+          Const.toInt(EnvUtil.getSystemProperty(Const.HOP_DEFAULT_BUFFER_POLLING_WAITTIME), 20);
+      if (pipeline.getPipelineRunConfiguration().getEngineRunConfiguration()
+          instanceof LocalPipelineRunConfiguration) {
+        LocalPipelineRunConfiguration runconfig =
+            (LocalPipelineRunConfiguration)
+                pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
+        waitTime = Const.toInt(runconfig.getWaitTime(), waitTime);
+      }
+      inputWaitTime = waitTime;
+    }
+    if (TransformScheduler.isWorkerThread()) {
+      TransformScheduler.awaitRows(inputSelector, rowSets, inputWaitTime, TimeUnit.MILLISECONDS);
+    } else {
+      inputSelector.await(rowSets, inputWaitTime, TimeUnit.MILLISECONDS);
+    }
+  }
+
   /**
    * putRowTo is used to put a row in a certain specific IRowSet.
    *
@@ -1290,7 +1319,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     //
     while (paused.get() && !stopped.get()) {
       try {
-        Thread.sleep(1);
+        TransformScheduler.sleep(1);
       } catch (InterruptedException e) {
         throw new HopTransformException(e);
       }
@@ -1322,7 +1351,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     // Don't distribute or anything, only go to this rowset!
     //
-    while (!rowSet.putRow(rowMeta, row)) {
+    while (!putRowWait(rowSet, rowMeta, row)) {
       if (isStopped()) {
         break;
       }
@@ -1396,7 +1425,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     }
 
     if (errorRowSet != null) {
-      while (!errorRowSet.putRow(errorRowMeta, errorRowData)) {
+      while (!putRowWait(errorRowSet, errorRowMeta, errorRowData)) {
         if (isStopped()) {
           break;
         }
@@ -1491,7 +1520,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     if (this.checkPipelineRunning == false) {
       while (!pipeline.isRunning() && !stopped.get()) {
         try {
-          Thread.sleep(1);
+          TransformScheduler.sleep(1);
         } catch (InterruptedException e) {
           // Ignore sleep interruption exception
         }
@@ -1515,13 +1544,85 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     return row;
   }
 
+  /**
+   * Read a batch of rows from the input row sets. The first row is read the same way as {@link
+   * #getRow()} does. After that we only add rows which are already waiting in the input row sets so
+   * that we never hold back rows while waiting for more input.
+   *
+   * <p>The returned batch is re-used by the next call to this method.
+   *
+   * @return a batch of at least one row or null if there are no more input rows.
+   * @throws HopException In case something goes wrong reading the rows
+   */
+  public RowBatch getRowBatch() throws HopException {
+    Object[] row = getRow();
+    if (row == null) {
+      return null;
+    }
+
+    IRowMeta rowMeta = getInputRowMeta();
+    if (inputRowBatch == null || inputRowBatch.getRowMeta() != rowMeta) {
+      inputRowBatch = new RowBatch(rowMeta, rowBatchSize);
+    } else {
+      inputRowBatch.clear();
+    }
+    inputRowBatch.addRow(row);
+
+    while (!inputRowBatch.isFull() && hasWaitingInputRows()) {
+      row = getRow();
+      if (row == null) {
+        break;
+      }
+      inputRowBatch.addRow(row);
+    }
+    return inputRowBatch;
+  }
+
+  /**
+   * @return true if one of the input row sets has rows waiting to be read. This is always false if
+   *     a custom row handler is used.
+   */
+  private boolean hasWaitingInputRows() {
+    if (rowHandler != null && rowHandler.getClass() != DefaultRowHandler.class) {
+      return false;
+    }
+    if (isStopped()) {
+      return false;
+    }
+    inputRowSetsLock.readLock().lock();
+    try {
+      for (IRowSet rowSet : inputRowSets) {
+        if (rowSet.size() > 0) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Write all the rows in a batch to the output row sets, the same way as {@link #putRow(IRowMeta,
+   * Object[])} does.
+   *
+   * @param rowMeta The metadata of the rows in the batch
+   * @param batch The batch of rows to write
+   * @throws HopTransformException In case something goes wrong writing the rows
+   */
+  public void putRowBatch(IRowMeta rowMeta, RowBatch batch) throws HopTransformException {
+    for (int i = 0; i < batch.size(); i++) {
+      putRow(rowMeta, batch.getRow(i));
+    }
+  }
+
   private Object[] handleGetRow() throws HopException {
 
     // Are we pausing the transform? If so, stall forever...
     //
     while (paused.get() && !stopped.get()) {
       try {
-        Thread.sleep(100);
+        TransformScheduler.sleep(100);
       } catch (InterruptedException e) {
         throw new HopTransformException(e);
       }
@@ -1574,8 +1675,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       // To reduce stress on the locking system we are going to allow
       // The buffer to grow beyond "a few" entries.
       // We'll only do that if the previous transform has not ended...
+      // A scheduler worker only runs us when there are rows waiting.
 
-      if (!inputRowSet.isDone() && inputRowSet.size() <= lowerBufferBoundary && !isStopped()) {
+      if (!inputRowSet.isDone()
+          && inputRowSet.size() <= lowerBufferBoundary
+          && !isStopped()
+          && !TransformScheduler.isWorkerThread()) {
         try {
           Thread.sleep(0, 1);
         } catch (InterruptedException e) {
@@ -1593,32 +1698,16 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       // alternatively.
       // So in THIS particular case it is safe to just read 100 rows from one
       // rowset, then switch to another etc.
-      // We can use timeouts to switch from one to another...
+      // When none of the row sets has rows we wait until one of them gets rows or is done.
       //
-      if (waitingTime == null) {
-        Integer waitTime =
-            Const.toInt(EnvUtil.getSystemProperty(Const.HOP_DEFAULT_BUFFER_POLLING_WAITTIME), 20);
-        ;
-        if (pipeline.getPipelineRunConfiguration().getEngineRunConfiguration()
-            instanceof LocalPipelineRunConfiguration) {
-          LocalPipelineRunConfiguration runconfig =
-              (LocalPipelineRunConfiguration)
-                  pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
-          waitTime = Const.toInt(runconfig.getWaitTime(), waitTime);
-        }
-        waitingTime = DynamicWaitTimes.build(inputRowSets, this::getCurrentInputRowSetNr, waitTime);
-      }
       while (row == null && !isStopped()) {
         // Get a row from the input in row set ...
-        // Timeout immediately if nothing is there to read.
-        // We will then switch to the next row set to read from...
+        // If nothing is there to read we will switch to the next row set to read from...
         //
-        row = inputRowSet.getRowWait(waitingTime.get(), TimeUnit.MILLISECONDS);
-        boolean timeout = false;
+        row = inputRowSet.getRowImmediate();
         if (row != null) {
           incrementLinesRead();
           blockPointer++;
-          waitingTime.reset();
         } else {
           // Try once more...
           // If row is still empty and the row set is done, we remove the row
@@ -1626,7 +1715,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
           // the input stream and move on to the next one...
           //
           if (inputRowSet.isDone()) {
-            row = inputRowSet.getRowWait(1, TimeUnit.MILLISECONDS);
+            row = inputRowSet.getRowImmediate();
             if (row == null) {
 
               // Must release the read lock before acquisition of the write lock to prevent
@@ -1653,13 +1742,10 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
               incrementLinesRead();
             }
           } else {
-            timeout = true;
+            awaitInputRows(inputRowSets);
           }
           nextInputStream();
           inputRowSet = currentInputStream();
-          // only change delay time when input stream don't switch.
-          // else switch active stream and reset min delay time
-          waitingTime.adjust(timeout, inputRowSet);
         }
       }
 
@@ -1717,6 +1803,22 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     this.rowHandler = rowHandler;
   }
 
+  /**
+   * Gets rowBatchSize
+   *
+   * @return The maximum number of rows returned by {@link #getRowBatch()}
+   */
+  public int getRowBatchSize() {
+    return rowBatchSize;
+  }
+
+  /**
+   * @param rowBatchSize The maximum number of rows returned by {@link #getRowBatch()}
+   */
+  public void setRowBatchSize(int rowBatchSize) {
+    this.rowBatchSize = rowBatchSize;
+  }
+
   public IRowHandler getRowHandler() {
     if (rowHandler == null) {
       rowHandler = new DefaultRowHandler();
@@ -1862,7 +1964,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     //
     while (paused.get() && !stopped.get()) {
       try {
-        Thread.sleep(10);
+        TransformScheduler.sleep(10);
       } catch (InterruptedException e) {
         throw new HopTransformException(e);
       }
@@ -1874,7 +1976,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     if (this.checkPipelineRunning == false) {
       while (!pipeline.isRunning() && !stopped.get()) {
         try {
-          Thread.sleep(1);
+          TransformScheduler.sleep(1);
         } catch (InterruptedException e) {
           // Ignore sleep interruption exception
         }
@@ -1886,8 +1988,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     // To reduce stress on the locking system we are going to allow
     // The buffer to grow beyond "a few" entries.
     // We'll only do that if the previous transform has not ended...
+    // A scheduler worker only runs us when there are rows waiting.
 
-    if (!rowSet.isDone() && rowSet.size() <= lowerBufferBoundary && !isStopped()) {
+    if (!rowSet.isDone()
+        && rowSet.size() <= lowerBufferBoundary
+        && !isStopped()
+        && !TransformScheduler.isWorkerThread()) {
       try {
         Thread.sleep(0, 1);
       } catch (InterruptedException e) {
@@ -1895,11 +2001,12 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       }
     }
 
-    // Grab a row... If nothing received after a timeout, try again.
+    // Grab a row... If nothing is there, wait until a row arrives or the row set is done.
     //
-    rowData = rowSet.getRow();
+    rowData = rowSet.getRowImmediate();
     while (rowData == null && !rowSet.isDone() && !stopped.get()) {
-      rowData = rowSet.getRow();
+      awaitInputRows(Collections.singletonList(rowSet));
+      rowData = rowSet.getRowImmediate();
     }
 
     // Still nothing: no more rows to be had?
@@ -1908,7 +2015,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       // Try one more time to get a row to make sure we don't get a
       // race-condition between the get and the isDone()
       //
-      rowData = rowSet.getRow();
+      rowData = rowSet.getRowImmediate();
     }
 
     if (stopped.get()) {
@@ -1922,22 +2029,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     if (rowData == null && rowSet.isDone()) {
       // Try one more time...
       //
-      rowData = rowSet.getRow();
+      rowData = rowSet.getRowImmediate();
       if (rowData == null) {
-        Integer waitTime = 20;
-        if (pipeline.getPipelineRunConfiguration().getEngineRunConfiguration()
-            instanceof LocalPipelineRunConfiguration) {
-          LocalPipelineRunConfiguration runconfig =
-              (LocalPipelineRunConfiguration)
-                  pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
-          waitTime = Integer.parseInt(runconfig.getWaitTime());
-        }
-        if (waitTime == null) waitTime = 20;
-
-        if (waitingTime == null) {
-          waitingTime =
-              DynamicWaitTimes.build(inputRowSets, this::getCurrentInputRowSetNr, waitTime);
-        }
         // Must release the read lock before acquisition of the write lock to prevent deadlocks.
         //
         // But #handleGetRowFrom() can be called either from outside or from handleGetRow().
@@ -2604,6 +2697,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   @Override
   public void stopAll() {
     stopped.set(true);
+    inputSelector.wakeUp();
     pipeline.stopAll();
   }
 
@@ -2645,6 +2739,9 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
   @Override
   public void setStopped(boolean stopped) {
     this.stopped.set(stopped);
+    if (stopped) {
+      inputSelector.wakeUp();
+    }
   }
 
   @Override
@@ -2881,36 +2978,36 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   /** Log summary. */
   public void logSummary() {
-    synchronized (statusCountersLock) {
-      long li = getLinesInput();
-      long lo = getLinesOutput();
-      long lr = getLinesRead();
-      long lw = getLinesWritten();
-      long lu = getLinesUpdated();
-      long lj = getLinesRejected();
-      if (li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || errors > 0) {
-        logBasic(
-            BaseMessages.getString(
-                PKG,
-                "BaseTransform.Log.SummaryInfo",
-                String.valueOf(li),
-                String.valueOf(lo),
-                String.valueOf(lr),
-                String.valueOf(lw),
-                String.valueOf(lw),
-                String.valueOf(errors + lj)));
-      } else {
-        logDetailed(
-            BaseMessages.getString(
-                PKG,
-                "BaseTransform.Log.SummaryInfo",
-                String.valueOf(li),
-                String.valueOf(lo),
-                String.valueOf(lr),
-                String.valueOf(lw),
-                String.valueOf(lw),
-                String.valueOf(errors + lj)));
-      }
+    TransformCounters counters = getCounters();
+    long li = counters.getLinesInput();
+    long lo = counters.getLinesOutput();
+    long lr = counters.getLinesRead();
+    long lw = counters.getLinesWritten();
+    long lu = counters.getLinesUpdated();
+    long lj = counters.getLinesRejected();
+    long le = counters.getErrors();
+    if (li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || le > 0) {
+      logBasic(
+          BaseMessages.getString(
+              PKG,
+              "BaseTransform.Log.SummaryInfo",
+              String.valueOf(li),
+              String.valueOf(lo),
+              String.valueOf(lr),
+              String.valueOf(lw),
+              String.valueOf(lw),
+              String.valueOf(le + lj)));
+    } else {
+      logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "BaseTransform.Log.SummaryInfo",
+              String.valueOf(li),
+              String.valueOf(lo),
+              String.valueOf(lr),
+              String.valueOf(lw),
+              String.valueOf(lw),
+              String.valueOf(le + lj)));
     }
   }
 
@@ -2947,7 +3044,6 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private void removeRowSetFromInputRowSets(IRowSet rowSet) {
     inputRowSets.remove(rowSet);
-    waitingTime.remove(rowSet);
     if (currentInputRowSetNr > 0) {
       currentInputRowSetNr--;
     }
@@ -3245,6 +3341,21 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         && (lines % getPipeline().getFeedbackSize()) == 0;
   }
 
+  /**
+   * Check feedback after processing a batch of rows.
+   *
+   * @param lines the lines
+   * @param nrRows the number of rows in the batch that was just processed
+   * @return true if a multiple of the feedback size was passed while processing the batch
+   */
+  protected boolean checkFeedback(long lines, int nrRows) {
+    long feedbackSize = getPipeline().getFeedbackSize();
+    return getPipeline().isFeedbackShown()
+        && (lines > 0)
+        && (feedbackSize > 0)
+        && (lines / feedbackSize) != ((lines - nrRows) / feedbackSize);
+  }
+
   /**
    * @return the rowMeta
    */
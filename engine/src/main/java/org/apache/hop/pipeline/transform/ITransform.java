@@ -105,6 +105,17 @@ public interface ITransform
     return false;
   }
 
+  /**
+   * Transforms which wait inside processRow() for something other than rows, for example for a
+   * database, don't run on a shared worker of the pipeline worker pool but on a thread of their
+   * own.
+   *
+   * @return true if processRow() can block on something other than rows
+   */
+  default boolean isBlockingProcessRow() {
+    return false;
+  }
+
   /** @return True if the transform is paused */
   @Override
   boolean isPaused();
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transform;
+
+import org.apache.hop.pipeline.engine.IEngineComponent;
+
+/**
+ * An immutable snapshot of the row counters of a transform (or any other engine component). Use
+ * this instead of calling the individual getters when several counters need to be compared with
+ * each other, for example to calculate speeds or to log a summary.
+ *
+ * <p>The counters are sampled from the end of the row flow towards the start: rows written and
+ * rejected first, rows read last. Since a row is always counted as read before it's counted as
+ * written, a snapshot of a transform which passes rows on never shows more rows written than read.
+ */
+public class TransformCounters {
+
+  private final long linesRead;
+  private final long linesWritten;
+  private final long linesInput;
+  private final long linesOutput;
+  private final long linesUpdated;
+  private final long linesRejected;
+  private final long errors;
+
+  public TransformCounters(
+      long linesRead,
+      long linesWritten,
+      long linesInput,
+      long linesOutput,
+      long linesUpdated,
+      long linesRejected,
+      long errors) {
+    this.linesRead = linesRead;
+    this.linesWritten = linesWritten;
+    this.linesInput = linesInput;
+    this.linesOutput = linesOutput;
+    this.linesUpdated = linesUpdated;
+    this.linesRejected = linesRejected;
+    this.errors = errors;
+  }
+
+  /**
+   * Take a snapshot of the counters of the given component, in the order described above.
+   *
+   * @param component The component to sample
+   * @return The counters of the component
+   */
+  public static TransformCounters of(IEngineComponent component) {
+    long errors = component.getErrors();
+    long linesRejected = component.getLinesRejected();
+    long linesWritten = component.getLinesWritten();
+    long linesUpdated = component.getLinesUpdated();
+    long linesOutput = component.getLinesOutput();
+    long linesInput = component.getLinesInput();
+    long linesRead = component.getLinesRead();
+    return new TransformCounters(
+        linesRead, linesWritten, linesInput, linesOutput, linesUpdated, linesRejected, errors);
+  }
+
+  /**
+   * Gets linesRead
+   *
+   * @return value of linesRead
+   */
+  public long getLinesRead() {
+    return linesRead;
+  }
+
+  /**
+   * Gets linesWritten
+   *
+   * @return value of linesWritten
+   */
+  public long getLinesWritten() {
+    return linesWritten;
+  }
+
+  /**
+   * Gets linesInput
+   *
+   * @return value of linesInput
+   */
+  public long getLinesInput() {
+    return linesInput;
+  }
+
+  /**
+   * Gets linesOutput
+   *
+   * @return value of linesOutput
+   */
+  public long getLinesOutput() {
+    return linesOutput;
+  }
+
+  /**
+   * Gets linesUpdated
+   *
+   * @return value of linesUpdated
+   */
+  public long getLinesUpdated() {
+    return linesUpdated;
+  }
+
+  /**
+   * Gets linesRejected
+   *
+   * @return value of linesRejected
+   */
+  public long getLinesRejected() {
+    return linesRejected;
+  }
+
+  /**
+   * Gets errors
+   *
+   * @return value of errors
+   */
+  public long getErrors() {
+    return errors;
+  }
+}
@@ -0,0 +1,646 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transform;
+
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.RowSetSelector;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the transforms of a pipeline as tasks on a bounded work-stealing pool instead of giving
+ * every transform copy a thread of its own.
+ *
+ * <p>A transform task processes rows for a limited number of iterations and then hands the worker
+ * back to the pool. It is only scheduled again when it has something to do: rows (or the end of
+ * the stream) are waiting in one of its input row sets and all of its output row sets have room.
+ * Upstream and downstream tasks signal each other when they make progress, a periodic sweep picks
+ * up what can't be signalled (row producers, stopping, pausing, row sets added at runtime).
+ *
+ * <p>Transforms can still block inside processRow(), for example when a plugin reads more than one
+ * row per call. Waiting for rows, room or a state change in BaseTransform is done through {@link
+ * ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)} so the pool can start a spare worker for
+ * as long as a task is blocked. Transforms which wait on something else, like a database, flag
+ * this with {@link ITransform#isBlockingProcessRow()} and run on a thread of their own. Pools are
+ * shared between pipelines with the same pool size so that many small pipelines running at the
+ * same time don't each bring their own threads.
+ */
+public class TransformScheduler {
+
+  /** The maximum number of times processRow() is called before the worker is handed back */
+  private static final int QUANTUM = 1000;
+
+  /** How often idle transforms are checked for work they weren't signalled about */
+  private static final long SWEEP_INTERVAL_MILLIS = 10;
+
+  /** Every so many sweeps the row sets of idle transforms are refreshed */
+  private static final int SWEEPS_PER_REFRESH = 10;
+
+  private static final int IDLE = 0;
+  private static final int SCHEDULED = 1;
+  private static final int RUNNING = 2;
+  private static final int RESCHEDULE = 3;
+  private static final int FINISHED = 4;
+
+  private static final Map<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
+  private static volatile ScheduledExecutorService sweeper;
+
+  private final String name;
+  private final ForkJoinPool pool;
+  private final int rowSetSize;
+  private final List<TransformTask> tasks;
+  private final AtomicInteger nrFinished;
+  private ScheduledFuture<?> sweep;
+  private int nrSweeps;
+
+  /**
+   * Create a new scheduler for the transforms of a pipeline.
+   *
+   * @param name the name of the pipeline, used in log and thread names
+   * @param poolSize the number of worker threads, the number of processors when 0 or lower
+   * @param rowSetSize the size of the row sets between the transforms
+   */
+  public TransformScheduler(String name, int poolSize, int rowSetSize) {
+    this.name = name;
+    this.pool = getPool(poolSize <= 0 ? Runtime.getRuntime().availableProcessors() : poolSize);
+    this.rowSetSize = rowSetSize;
+    this.tasks = new ArrayList<>();
+    this.nrFinished = new AtomicInteger(0);
+  }
+
+  /**
+   * Add a transform to run on this scheduler. All transforms need to be added before calling
+   * {@link #start()}.
+   *
+   * @param combi the transform to run
+   */
+  public void addTransform(TransformMetaDataCombi combi) {
+    tasks.add(new TransformTask(combi));
+  }
+
+  /** Start running all the transforms that were added. */
+  public synchronized void start() {
+    // Link every task to the tasks on the other side of its row sets
+    //
+    Map<String, TransformTask> taskMap = new HashMap<>();
+    for (TransformTask task : tasks) {
+      taskMap.put(task.combi.transformName + "." + task.combi.copy, task);
+    }
+    for (TransformTask task : tasks) {
+      for (IRowSet rowSet : task.transform.getInputRowSets()) {
+        TransformTask origin =
+            taskMap.get(rowSet.getOriginTransformName() + "." + rowSet.getOriginTransformCopy());
+        if (origin != null && !task.upstream.contains(origin)) {
+          task.upstream.add(origin);
+        }
+      }
+      for (IRowSet rowSet : task.transform.getOutputRowSets()) {
+        TransformTask destination =
+            taskMap.get(
+                rowSet.getDestinationTransformName() + "." + rowSet.getDestinationTransformCopy());
+        if (destination != null && !task.downstream.contains(destination)) {
+          task.downstream.add(destination);
+        }
+      }
+    }
+
+    if (tasks.isEmpty()) {
+      return;
+    }
+    sweep =
+        getSweeper()
+            .scheduleWithFixedDelay(
+                this::sweep, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+    // Every transform gets to run at least once to flag itself as running
+    //
+    for (TransformTask task : tasks) {
+      if (task.blocking) {
+        task.startThread();
+      } else {
+        task.signal();
+      }
+    }
+  }
+
+  /**
+   * Gets the number of transforms that are not finished yet
+   *
+   * @return the number of unfinished transforms
+   */
+  public int getNrActive() {
+    return tasks.size() - nrFinished.get();
+  }
+
+  /**
+   * Gets the worker pool
+   *
+   * @return the pool the transforms run on
+   */
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  private void sweep() {
+    boolean refresh = ++nrSweeps % SWEEPS_PER_REFRESH == 0;
+    for (TransformTask task : tasks) {
+      if (task.state.get() == IDLE && task.isReady(refresh)) {
+        task.signal();
+      }
+    }
+  }
+
+  private void finished(TransformTask task) {
+    if (nrFinished.incrementAndGet() == tasks.size()) {
+      synchronized (this) {
+        sweep.cancel(false);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * Gets the shared pool for the given number of workers, created on first use. Idle workers are
+   * released by the pool after a while.
+   */
+  private static ForkJoinPool getPool(int parallelism) {
+    return pools.computeIfAbsent(
+        parallelism, p -> new ForkJoinPool(p, WorkerThread::new, null, true));
+  }
+
+  private static ScheduledExecutorService getSweeper() {
+    if (sweeper == null) {
+      synchronized (TransformScheduler.class) {
+        if (sweeper == null) {
+          sweeper =
+              Executors.newSingleThreadScheduledExecutor(
+                  runnable -> {
+                    Thread thread = new Thread(runnable, "Hop transform scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                  });
+        }
+      }
+    }
+    return sweeper;
+  }
+
+  /**
+   * See if the current thread is a worker of a transform scheduler pool. Transforms running on such
+   * a worker should wait through {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}.
+   *
+   * @return true if the current thread is a scheduler worker
+   */
+  public static boolean isWorkerThread() {
+    return Thread.currentThread() instanceof WorkerThread;
+  }
+
+  /**
+   * Wait until any of the given row sets has rows or is done. Use this on a scheduler worker
+   * instead of {@link RowSetSelector#await(List, long, TimeUnit)} so that the pool can compensate
+   * for the blocked worker.
+   *
+   * @param selector the selector of the reading transform
+   * @param rowSets the row sets to wait for
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if a row set has rows or is done, false if we timed out
+   */
+  public static boolean awaitRows(
+      RowSetSelector selector, List<IRowSet> rowSets, long timeout, TimeUnit unit) {
+    if (selector.isReady(rowSets)) {
+      return true;
+    }
+    SelectorBlocker blocker = new SelectorBlocker(selector, rowSets, timeout, unit);
+    managedBlock(blocker);
+    return blocker.ready;
+  }
+
+  /**
+   * Put a row in a row set, waiting at most the default put timeout of the row set. Use this on a
+   * scheduler worker instead of {@link IRowSet#putRow(IRowMeta, Object[])} so that the pool can
+   * compensate for the blocked worker.
+   *
+   * @param rowSet the row set to write to
+   * @param rowMeta the row metadata
+   * @param row the row to write
+   * @return true if the row was written, false if we timed out
+   */
+  public static boolean putRow(IRowSet rowSet, IRowMeta rowMeta, Object[] row) {
+    if (rowSet.putRowWait(rowMeta, row, 0, TimeUnit.MILLISECONDS)) {
+      return true;
+    }
+    PutRowBlocker blocker = new PutRowBlocker(rowSet, rowMeta, row);
+    managedBlock(blocker);
+    return blocker.written;
+  }
+
+  /**
+   * Wait for a latch to count down to zero, at most the given time. On a scheduler worker the pool
+   * can compensate for the blocked worker.
+   *
+   * @param latch the latch to wait for
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if the latch reached zero, false if we timed out
+   * @throws InterruptedException in case we got interrupted while waiting
+   */
+  public static boolean await(CountDownLatch latch, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    if (!isWorkerThread()) {
+      return latch.await(timeout, unit);
+    }
+    LatchBlocker blocker = new LatchBlocker(latch, timeout, unit);
+    ForkJoinPool.managedBlock(blocker);
+    return latch.getCount() == 0;
+  }
+
+  /**
+   * Sleep for the given time. On a scheduler worker the pool can compensate for the sleeping
+   * worker, use this instead of {@link Thread#sleep(long)} to wait for a state change.
+   *
+   * @param millis the time to sleep in milliseconds
+   * @throws InterruptedException in case we got interrupted while sleeping
+   */
+  public static void sleep(long millis) throws InterruptedException {
+    if (!isWorkerThread()) {
+      Thread.sleep(millis);
+      return;
+    }
+    ForkJoinPool.managedBlock(new SleepBlocker(millis));
+  }
+
+  private static void managedBlock(ForkJoinPool.ManagedBlocker blocker) {
+    try {
+      ForkJoinPool.managedBlock(blocker);
+    } catch (InterruptedException e) {
+      // Same as the row sets: give up waiting and keep the interrupted flag
+      //
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** A worker thread of a transform scheduler pool */
+  private static final class WorkerThread extends ForkJoinWorkerThread {
+    private WorkerThread(ForkJoinPool pool) {
+      super(pool);
+      setName("Hop transform worker " + getPoolIndex());
+      setDaemon(true);
+    }
+  }
+
+  /** Waits once for rows in any of the row sets, the caller decides what to do on a time-out */
+  private static final class SelectorBlocker implements ForkJoinPool.ManagedBlocker {
+    private final RowSetSelector selector;
+    private final List<IRowSet> rowSets;
+    private final long timeout;
+    private final TimeUnit unit;
+    private boolean ready;
+    private boolean waited;
+
+    private SelectorBlocker(
+        RowSetSelector selector, List<IRowSet> rowSets, long timeout, TimeUnit unit) {
+      this.selector = selector;
+      this.rowSets = rowSets;
+      this.timeout = timeout;
+      this.unit = unit;
+    }
+
+    @Override
+    public boolean block() {
+      ready = selector.await(rowSets, timeout, unit);
+      waited = true;
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (waited) {
+        return true;
+      }
+      ready = selector.isReady(rowSets);
+      return ready;
+    }
+  }
+
+  /** Waits once for room in a row set, the caller decides what to do after a time-out */
+  private static final class PutRowBlocker implements ForkJoinPool.ManagedBlocker {
+    private final IRowSet rowSet;
+    private final IRowMeta rowMeta;
+    private final Object[] row;
+    private boolean written;
+    private boolean waited;
+
+    private PutRowBlocker(IRowSet rowSet, IRowMeta rowMeta, Object[] row) {
+      this.rowSet = rowSet;
+      this.rowMeta = rowMeta;
+      this.row = row;
+    }
+
+    @Override
+    public boolean block() {
+      written = rowSet.putRow(rowMeta, row);
+      waited = true;
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (waited || written) {
+        return true;
+      }
+      written = rowSet.putRowWait(rowMeta, row, 0, TimeUnit.MILLISECONDS);
+      return written;
+    }
+  }
+
+  /** Waits once for a latch */
+  private static final class LatchBlocker implements ForkJoinPool.ManagedBlocker {
+    private final CountDownLatch latch;
+    private final long timeout;
+    private final TimeUnit unit;
+    private boolean waited;
+
+    private LatchBlocker(CountDownLatch latch, long timeout, TimeUnit unit) {
+      this.latch = latch;
+      this.timeout = timeout;
+      this.unit = unit;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      latch.await(timeout, unit);
+      waited = true;
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return waited || latch.getCount() == 0;
+    }
+  }
+
+  /** Sleeps once */
+  private static final class SleepBlocker implements ForkJoinPool.ManagedBlocker {
+    private final long millis;
+    private boolean waited;
+
+    private SleepBlocker(long millis) {
+      this.millis = millis;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      Thread.sleep(millis);
+      waited = true;
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return waited;
+    }
+  }
+
+  /**
+   * A transform copy which runs on the pool for one quantum at a time, or on a thread of its own
+   * when processRow() can block
+   */
+  private final class TransformTask implements Runnable {
+    private final TransformMetaDataCombi combi;
+    private final ITransform transform;
+    private final RunThread runThread;
+    private final AtomicInteger state;
+    private final List<TransformTask> upstream;
+    private final List<TransformTask> downstream;
+    private final boolean blocking;
+    private volatile List<IRowSet> inputRowSets;
+    private volatile List<IRowSet> outputRowSets;
+    private boolean started;
+
+    private TransformTask(TransformMetaDataCombi combi) {
+      this.combi = combi;
+      this.transform = combi.transform;
+      this.runThread = new RunThread(combi);
+      this.state = new AtomicInteger(IDLE);
+      this.upstream = new ArrayList<>();
+      this.downstream = new ArrayList<>();
+      this.blocking = transform.isBlockingProcessRow();
+    }
+
+    /** Make sure the task runs (again) soon, it doesn't matter how often this is called. */
+    private void signal() {
+      if (blocking) {
+        return; // Runs on its own thread
+      }
+      while (true) {
+        int current = state.get();
+        if (current == IDLE) {
+          if (state.compareAndSet(IDLE, SCHEDULED)) {
+            pool.execute(this);
+            return;
+          }
+        } else if (current == RUNNING) {
+          if (state.compareAndSet(RUNNING, RESCHEDULE)) {
+            return;
+          }
+        } else {
+          // Already scheduled or finished
+          return;
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      state.set(RUNNING);
+
+      // The row sets of a transform can change while running, refresh them once per quantum
+      //
+      refreshRowSets();
+
+      boolean finished = false;
+      boolean progress = false;
+      try {
+        if (!started) {
+          started = true;
+          runThread.startRunning();
+        }
+        // Only look at the row sets again once the rows we know we can process are done
+        //
+        int nrReady = readyRows(false);
+        for (int i = 0; i < QUANTUM && nrReady > 0; i++) {
+          progress = true;
+          if (!transform.processRow() || transform.isStopped()) {
+            finished = true;
+            break;
+          }
+          if (--nrReady == 0) {
+            nrReady = readyRows(false);
+          }
+        }
+      } catch (Throwable t) {
+        runThread.handleError(t);
+        finished = true;
+      }
+
+      if (finished) {
+        finish();
+        return;
+      }
+
+      if (progress) {
+        // Rows were read or written, the neighbours might be able to continue
+        //
+        signalAll(downstream);
+        signalAll(upstream);
+      }
+
+      if (state.compareAndSet(RUNNING, IDLE)) {
+        // Re-check after going idle so we can't miss a signal
+        //
+        if (isReady(false)) {
+          signal();
+        }
+      } else {
+        // We were signalled while running
+        //
+        state.set(SCHEDULED);
+        pool.execute(this);
+      }
+    }
+
+    /** Run the transform on a thread of its own, it doesn't hold up the workers when it blocks */
+    private void startThread() {
+      state.set(RUNNING);
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  runThread.startRunning();
+                  while (transform.processRow() && !transform.isStopped()) {
+                    // Rows were read or written, the neighbours might be able to continue
+                    //
+                    signalAll(downstream);
+                    signalAll(upstream);
+                  }
+                } catch (Throwable t) {
+                  runThread.handleError(t);
+                } finally {
+                  finish();
+                }
+              });
+      thread.setName(name + " - " + combi.transformName);
+      thread.start();
+    }
+
+    private void finish() {
+      try {
+        runThread.stopRunning();
+      } finally {
+        state.set(FINISHED);
+        signalAll(upstream);
+        signalAll(downstream);
+        finished(this);
+      }
+    }
+
+    private void refreshRowSets() {
+      inputRowSets = transform.getInputRowSets();
+      outputRowSets = transform.getOutputRowSets();
+    }
+
+    /**
+     * See if the transform can process rows without waiting: all output row sets have room and
+     * there is something to read.
+     *
+     * @param refresh true if the row sets of the transform need to be refreshed first
+     */
+    private boolean isReady(boolean refresh) {
+      return readyRows(refresh) > 0;
+    }
+
+    /**
+     * Count the rows the transform can process without waiting: the rows it can read, limited by
+     * the room in the fullest output row set.
+     *
+     * @param refresh true if the row sets of the transform need to be refreshed first
+     * @return The number of rows, 0 if the transform isn't ready to run
+     */
+    private int readyRows(boolean refresh) {
+      if (transform.isStopped()) {
+        return QUANTUM;
+      }
+      if (transform.isPaused()) {
+        return 0;
+      }
+      if (refresh || inputRowSets == null) {
+        refreshRowSets();
+      }
+      int room = QUANTUM;
+      List<IRowSet> outputs = outputRowSets;
+      for (int i = 0; i < outputs.size(); i++) {
+        room = Math.min(room, rowSetSize - outputs.get(i).size());
+        if (room <= 0) {
+          return 0;
+        }
+      }
+      List<IRowSet> inputs = inputRowSets;
+      if (inputs.isEmpty()) {
+        return room;
+      }
+      int available = 0;
+      for (int i = 0; i < inputs.size() && available < room; i++) {
+        IRowSet rowSet = inputs.get(i);
+        int size = rowSet.size();
+        if (size > 0) {
+          available += size;
+        } else if (rowSet.isDone()) {
+          // Let the transform see the end of the input
+          //
+          available++;
+        }
+      }
+      return Math.min(room, available);
+    }
+
+    private void signalAll(List<TransformTask> tasks) {
+      for (int i = 0; i < tasks.size(); i++) {
+        tasks.get(i).signal();
+      }
+    }
+  }
+}
@@ -72,13 +72,14 @@ public class TransformStatus {
 
     this.transformName = component.getName();
     this.copy = component.getCopyNr();
-    this.linesRead = linesRead + component.getLinesRead();
-    this.linesWritten = linesWritten + component.getLinesWritten();
-    this.linesInput = linesInput + component.getLinesInput();
-    this.linesOutput = linesOutput + component.getLinesOutput();
-    this.linesUpdated = linesUpdated + component.getLinesUpdated();
-    this.linesRejected = linesRejected + component.getLinesRejected();
-    this.errors = errors + component.getErrors();
+    TransformCounters counters = component.getCounters();
+    this.linesRead = linesRead + counters.getLinesRead();
+    this.linesWritten = linesWritten + counters.getLinesWritten();
+    this.linesInput = linesInput + counters.getLinesInput();
+    this.linesOutput = linesOutput + counters.getLinesOutput();
+    this.linesUpdated = linesUpdated + counters.getLinesUpdated();
+    this.linesRejected = linesRejected + counters.getLinesRejected();
+    this.errors = errors + counters.getErrors();
     this.accumulatedRuntime = accumulatedRuntime + component.getExecutionDuration();
     this.statusDescription = component.getStatusDescription();
 
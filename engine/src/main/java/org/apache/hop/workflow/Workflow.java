@@ -29,6 +29,7 @@ import org.apache.hop.core.gui.WorkflowTracker;
 import org.apache.hop.core.logging.*;
 import org.apache.hop.core.parameters.*;
 import org.apache.hop.core.util.EnvUtil;
+import org.apache.hop.core.util.ThreadUtil;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.core.variables.Variables;
@@ -118,6 +119,9 @@ public abstract class Workflow extends Variables
 
   protected boolean interactive;
 
+  /** Whether actions launched in parallel run in virtual threads, if the JVM supports these. */
+  protected boolean virtualThreadsEnabled;
+
   protected List<IExecutionFinishedListener<IWorkflowEngine<WorkflowMeta>>>
       workflowFinishedListeners;
   protected List<IExecutionStartedListener<IWorkflowEngine<WorkflowMeta>>> workflowStartedListeners;
@@ -754,7 +758,7 @@ public abstract class Workflow extends Variables
                   threadResults.add(threadResult);
                 }
               };
-          Thread thread = new Thread(runnable);
+          Thread thread = ThreadUtil.newThread(runnable, virtualThreadsEnabled);
           threads.add(thread);
           thread.start();
           if (log.isBasic()) {
@@ -1335,6 +1339,22 @@ public abstract class Workflow extends Variables
     }
   }
 
+  /**
+   * Gets virtualThreadsEnabled
+   *
+   * @return value of virtualThreadsEnabled
+   */
+  public boolean isVirtualThreadsEnabled() {
+    return virtualThreadsEnabled;
+  }
+
+  /**
+   * @param virtualThreadsEnabled The virtualThreadsEnabled to set
+   */
+  public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+    this.virtualThreadsEnabled = virtualThreadsEnabled;
+  }
+
   /**
    * Gets the boolean value of interactive.
    *
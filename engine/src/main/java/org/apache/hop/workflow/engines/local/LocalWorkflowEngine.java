@@ -96,6 +96,7 @@ public class LocalWorkflowEngine extends Workflow implements IWorkflowEngine<Wor
 
     LocalWorkflowRunConfiguration config =
         (LocalWorkflowRunConfiguration) workflowRunConfiguration.getEngineRunConfiguration();
+    setVirtualThreadsEnabled(config.isVirtualThreads());
 
     // See if we need to enable transactions...
     //
@@ -438,4 +438,58 @@ public class BaseTransformTest {
     verify(mockHelper.pipelineMeta, times(1))
         .checkRowMixingStatically(any(IVariables.class), any(TransformMeta.class), anyObject());
   }
+
+  @Test
+  public void testStatusCountersAreNotLostUnderConcurrentUpdates() throws Exception {
+    final BaseTransform baseTransform =
+        new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline);
+
+    final int nrThreads = 4;
+    final int nrIncrements = 10000;
+    Thread[] threads = new Thread[nrThreads];
+    for (int t = 0; t < nrThreads; t++) {
+      threads[t] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < nrIncrements; i++) {
+                  baseTransform.incrementLinesRead();
+                  baseTransform.incrementLinesWritten();
+                  baseTransform.incrementLinesRejected();
+                }
+              });
+      threads[t].start();
+    }
+
+    // Snapshots taken while rows are flowing never show more rows written than read
+    //
+    boolean running = true;
+    while (running) {
+      TransformCounters counters = baseTransform.getCounters();
+      assertTrue(counters.getLinesWritten() <= counters.getLinesRead());
+      running = false;
+      for (Thread thread : threads) {
+        running |= thread.isAlive();
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    TransformCounters counters = baseTransform.getCounters();
+    assertEquals(nrThreads * nrIncrements, counters.getLinesRead());
+    assertEquals(nrThreads * nrIncrements, counters.getLinesWritten());
+    assertEquals(nrThreads * nrIncrements, counters.getLinesRejected());
+    assertEquals(0L, counters.getLinesInput());
+
+    baseTransform.setLinesRead(5L);
+    assertEquals(6L, baseTransform.incrementLinesRead());
+    assertEquals(5L, baseTransform.decrementLinesRead());
+    assertEquals(5L, baseTransform.getCounters().getLinesRead());
+  }
 }
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transform;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.plugins.PluginRegistry;
+import org.apache.hop.core.plugins.TransformPluginType;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineHopMeta;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.RowProducer;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.engines.local.LocalPipelineRunConfiguration;
+import org.apache.hop.pipeline.transforms.dummy.Dummy;
+import org.apache.hop.pipeline.transforms.dummy.DummyData;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TransformSchedulerTest {
+
+  private static final int NR_DUMMIES = 20;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  @Test
+  public void testAllRowsArriveOnSmallPool() throws Exception {
+    runChain(100000, "10000", "2");
+  }
+
+  @Test
+  public void testAllRowsArriveWithFullRowSets() throws Exception {
+    // Row sets of 5 rows fill up all the time, transforms have to wait for room
+    //
+    runChain(20000, "5", "1");
+  }
+
+  @Test
+  public void testStopWakesUpIdleTransforms() throws Exception {
+    Pipeline pipeline = createChain("100", "2");
+    pipeline.prepareExecution();
+    RowProducer rowProducer = pipeline.addRowProducer("injector", 0);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+
+    pipeline.startThreads();
+    rowProducer.putRow(rowMeta, new Object[] {1L});
+
+    // All transforms are waiting for more rows, stopping has to finish them anyway
+    //
+    pipeline.stopAll();
+    pipeline.waitUntilFinished();
+    assertTrue(pipeline.isFinished());
+  }
+
+  @Test(timeout = 60000)
+  public void testBlockingTransformOnSingleWorker() throws Exception {
+    // The gate blocks without telling the pool, it has to run on a thread of its own
+    //
+    runGatedChain(true);
+  }
+
+  @Test(timeout = 60000)
+  public void testManagedWaitOnSingleWorker() throws Exception {
+    // The gate runs on the only worker, the pool has to compensate while it sleeps
+    //
+    runGatedChain(false);
+  }
+
+  /**
+   * Run injector, gate and a chain of dummies on a single worker. After passing on a row the gate
+   * waits in processRow() until the row went through the whole chain.
+   */
+  private void runGatedChain(boolean blocking) throws Exception {
+    int nrRows = 100;
+    Pipeline pipeline = createChain("100", "1");
+    PipelineMeta pipelineMeta = pipeline.getPipelineMeta();
+    TransformMeta injector = pipelineMeta.findTransform("injector");
+    TransformMeta dummy = pipelineMeta.findTransform("dummy0");
+    GateMeta gateMeta = new GateMeta(blocking);
+    TransformMeta gate = new TransformMeta(dummy.getTransformPluginId(), "gate", gateMeta);
+    pipelineMeta.addTransform(gate);
+    pipelineMeta.removePipelineHop(pipelineMeta.findPipelineHop(injector, dummy));
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(injector, gate));
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(gate, dummy));
+
+    pipeline.prepareExecution();
+    RowProducer rowProducer = pipeline.addRowProducer("injector", 0);
+    pipeline
+        .getTransform("dummy" + (NR_DUMMIES - 1), 0)
+        .addRowListener(
+            new RowAdapter() {
+              @Override
+              public void rowReadEvent(IRowMeta rowMeta, Object[] row) {
+                gateMeta.rowsArrived.incrementAndGet();
+              }
+            });
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+
+    pipeline.startThreads();
+    for (long i = 0; i < nrRows; i++) {
+      rowProducer.putRow(rowMeta, new Object[] {i});
+    }
+    rowProducer.finished();
+    pipeline.waitUntilFinished();
+
+    assertEquals(0, pipeline.getErrors());
+    assertEquals(nrRows, gateMeta.rowsArrived.get());
+  }
+
+  private void runChain(int nrRows, String rowSetSize, String poolSize) throws Exception {
+    Pipeline pipeline = createChain(rowSetSize, poolSize);
+    pipeline.prepareExecution();
+    assertTrue(pipeline.isWorkerPoolEnabled());
+
+    RowProducer rowProducer = pipeline.addRowProducer("injector", 0);
+    AtomicLong rowsRead = new AtomicLong();
+    pipeline
+        .getTransform("dummy" + (NR_DUMMIES - 1), 0)
+        .addRowListener(
+            new RowAdapter() {
+              @Override
+              public void rowReadEvent(IRowMeta rowMeta, Object[] row)
+                  throws HopTransformException {
+                assertEquals(rowsRead.getAndIncrement(), row[0]);
+              }
+            });
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+
+    pipeline.startThreads();
+    for (long i = 0; i < nrRows; i++) {
+      rowProducer.putRow(rowMeta, new Object[] {i});
+    }
+    rowProducer.finished();
+    pipeline.waitUntilFinished();
+
+    assertEquals(0, pipeline.getErrors());
+    assertEquals(nrRows, rowsRead.get());
+
+    // No thread was started for any of the transforms
+    //
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      assertTrue(thread.getName(), !thread.getName().startsWith("Scheduled chain - "));
+    }
+  }
+
+  private Pipeline createChain(String rowSetSize, String poolSize) throws Exception {
+    PluginRegistry registry = PluginRegistry.getInstance();
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("Scheduled chain");
+
+    InjectorMeta injectorMeta = new InjectorMeta();
+    TransformMeta previous =
+        new TransformMeta(
+            registry.getPluginId(TransformPluginType.class, injectorMeta), "injector", injectorMeta);
+    pipelineMeta.addTransform(previous);
+    for (int i = 0; i < NR_DUMMIES; i++) {
+      DummyMeta dummyMeta = new DummyMeta();
+      TransformMeta dummy =
+          new TransformMeta(
+              registry.getPluginId(TransformPluginType.class, dummyMeta), "dummy" + i, dummyMeta);
+      pipelineMeta.addTransform(dummy);
+      pipelineMeta.addPipelineHop(new PipelineHopMeta(previous, dummy));
+      previous = dummy;
+    }
+
+    Pipeline pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    LocalPipelineRunConfiguration config =
+        (LocalPipelineRunConfiguration)
+            pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
+    config.setExecutionMode(LocalPipelineRunConfiguration.ExecutionMode.WorkerPool.name());
+    config.setWorkerPoolSize(poolSize);
+    config.setRowSetSize(rowSetSize);
+    return pipeline;
+  }
+
+  /** Passes on one row at a time, waiting until it arrived at the end of the chain */
+  public static class Gate extends Dummy {
+    private final GateMeta gateMeta;
+
+    public Gate(
+        TransformMeta transformMeta,
+        GateMeta meta,
+        DummyData data,
+        int copyNr,
+        PipelineMeta pipelineMeta,
+        Pipeline pipeline) {
+      super(transformMeta, meta, data, copyNr, pipelineMeta, pipeline);
+      this.gateMeta = meta;
+    }
+
+    @Override
+    public boolean processRow() throws HopException {
+      if (!super.processRow()) {
+        return false;
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (gateMeta.rowsArrived.get() < getLinesWritten()) {
+        if (System.nanoTime() > deadline) {
+          throw new HopException("The row didn't arrive at the end of the chain");
+        }
+        try {
+          if (gateMeta.blocking) {
+            Thread.sleep(1);
+          } else {
+            TransformScheduler.sleep(1);
+          }
+        } catch (InterruptedException e) {
+          throw new HopException(e);
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isBlockingProcessRow() {
+      return gateMeta.blocking;
+    }
+  }
+
+  public static class GateMeta extends DummyMeta {
+    private final boolean blocking;
+    private final AtomicLong rowsArrived = new AtomicLong();
+
+    public GateMeta(boolean blocking) {
+      this.blocking = blocking;
+    }
+
+    @Override
+    public ITransform createTransform(
+        TransformMeta transformMeta,
+        ITransformData data,
+        int copyNr,
+        PipelineMeta pipelineMeta,
+        Pipeline pipeline) {
+      return new Gate(transformMeta, this, (DummyData) data, copyNr, pipelineMeta, pipeline);
+    }
+
+    @Override
+    public ITransformData createTransformData() {
+      return new DummyData();
+    }
+  }
+}
@@ -80,6 +80,7 @@ public class TransformMockHelper<Meta extends ITransformMeta, Data extends ITran
         };
     when(rowSet.getRowWait(anyLong(), any(TimeUnit.class))).thenAnswer(answer);
     when(rowSet.getRow()).thenAnswer(answer);
+    when(rowSet.getRowImmediate()).thenAnswer(answer);
     when(rowSet.isDone()).thenAnswer((Answer<Boolean>) invocation -> index.get() >= rows.size());
 
     IRowMeta rowMeta = mock(IRowMeta.class);
@@ -786,6 +786,22 @@ public class GenericDatabaseMeta extends BaseDatabaseMeta implements IDatabase {
     return super.isSupportsBatchUpdates();
   }
 
+  @Override
+  public int getMaxMultiRowInsertRows() {
+    if (databaseDialect != null) {
+      return databaseDialect.getMaxMultiRowInsertRows();
+    }
+    return super.getMaxMultiRowInsertRows();
+  }
+
+  @Override
+  public int getMaxPreparedStatementParameters() {
+    if (databaseDialect != null) {
+      return databaseDialect.getMaxPreparedStatementParameters();
+    }
+    return super.getMaxPreparedStatementParameters();
+  }
+
   @Override
   public String getSqlLockTables(String[] tableNames) {
     if (databaseDialect != null) {
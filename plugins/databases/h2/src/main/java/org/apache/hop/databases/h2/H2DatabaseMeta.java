@@ -280,4 +280,9 @@ public class H2DatabaseMeta extends BaseDatabaseMeta implements IDatabase {
   public boolean isSupportsPreparedStatementMetadataRetrieval() {
     return false;
   }
+
+  @Override
+  public int getMaxMultiRowInsertRows() {
+    return 1000;
+  }
 }
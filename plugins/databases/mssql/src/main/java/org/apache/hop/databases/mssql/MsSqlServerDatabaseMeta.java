@@ -898,4 +898,32 @@ public class MsSqlServerDatabaseMeta extends BaseDatabaseMeta implements IDataba
   public String getEndQuote() {
     return "";
   }
+
+  /**
+   * @return The maximum number of rows in a table value constructor
+   */
+  @Override
+  public int getMaxMultiRowInsertRows() {
+    return 1000;
+  }
+
+  /**
+   * @return The maximum number of parameters of a statement: SQL Server allows 2100 parameters, but
+   *     the driver runs prepared statements through a system procedure with parameters of its own
+   */
+  @Override
+  public int getMaxPreparedStatementParameters() {
+    return 2098;
+  }
+
+  /** CHECKSUM returns an int, we cast it to a bigint so that ABS() can't overflow */
+  @Override
+  public String getSqlHashExpression(String expression) {
+    return "CAST(CHECKSUM(" + expression + ") AS BIGINT)";
+  }
+
+  @Override
+  public String getSqlModulo(String dividend, String divisor) {
+    return "(" + dividend + " % " + divisor + ")";
+  }
 }
@@ -73,6 +73,10 @@ public class MsSqlServerDatabaseMetaTest {
   @Test
   public void testSettings() throws Exception {
     assertFalse(nativeMeta.isSupportsCatalogs());
+    assertEquals(1000, nativeMeta.getMaxMultiRowInsertRows());
+    assertEquals(2098, nativeMeta.getMaxPreparedStatementParameters());
+    assertEquals("CAST(CHECKSUM(id) AS BIGINT)", nativeMeta.getSqlHashExpression("id"));
+    assertEquals("(id % 4)", nativeMeta.getSqlModulo("id", "4"));
     assertArrayEquals(new int[] {DatabaseMeta.TYPE_ACCESS_NATIVE}, nativeMeta.getAccessTypeList());
     assertEquals(1433, nativeMeta.getDefaultDatabasePort());
     assertEquals("net.sourceforge.jtds.jdbc.Driver", nativeMeta.getDriverClass());
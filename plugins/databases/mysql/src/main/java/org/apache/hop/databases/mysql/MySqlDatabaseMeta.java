@@ -706,6 +706,8 @@ public class MySqlDatabaseMeta extends BaseDatabaseMeta implements IDatabase {
     addExtraOption(getPluginId(), "defaultFetchSize", "500");
     addExtraOption(getPluginId(), "useCursorFetch", "true");
     addExtraOption(getPluginId(), "zeroDateTimeBehaviorValue", "CONVERT_TO_NULL");
+    // Let the driver send batches of inserts as multi-row inserts
+    addExtraOption(getPluginId(), "rewriteBatchedStatements", "true");
 
   }
 
@@ -773,4 +775,19 @@ public class MySqlDatabaseMeta extends BaseDatabaseMeta implements IDatabase {
     names.add("Mysql 8+");
     return names;
   }
+
+  @Override
+  public int getMaxMultiRowInsertRows() {
+    return 1000;
+  }
+
+  @Override
+  public int getMaxPreparedStatementParameters() {
+    return 65535;
+  }
+
+  @Override
+  public String getSqlHashExpression(String expression) {
+    return "CRC32(" + expression + ")";
+  }
 }
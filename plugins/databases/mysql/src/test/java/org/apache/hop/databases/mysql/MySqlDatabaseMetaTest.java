@@ -74,6 +74,10 @@ public class MySqlDatabaseMetaTest {
     assertFalse(nativeMeta.isSupportsBitmapIndex());
     assertTrue(nativeMeta.isSupportsViews());
     assertFalse(nativeMeta.isSupportsSynonyms());
+    assertEquals(1000, nativeMeta.getMaxMultiRowInsertRows());
+    assertEquals(65535, nativeMeta.getMaxPreparedStatementParameters());
+    assertEquals("CRC32(id)", nativeMeta.getSqlHashExpression("id"));
+    assertEquals("MOD(id, 4)", nativeMeta.getSqlModulo("id", "4"));
     assertArrayEquals(
         new String[] {
           "ADD",
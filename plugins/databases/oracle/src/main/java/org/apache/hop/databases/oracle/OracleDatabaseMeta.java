@@ -750,4 +750,9 @@ public class OracleDatabaseMeta extends BaseDatabaseMeta implements IDatabase {
   public String getEndQuote() {
     return "\"";
   }
+
+  @Override
+  public String getSqlHashExpression(String expression) {
+    return "ORA_HASH(" + expression + ")";
+  }
 }
@@ -232,6 +232,7 @@ public class OracleDatabaseMetaTest {
   @Test
   public void testOverriddenSqlStatements() throws Exception {
     assertEquals(" WHERE ROWNUM <= 5", nativeMeta.getLimitClause(5));
+    assertEquals("ORA_HASH(ID)", nativeMeta.getSqlHashExpression("ID"));
     String reusedFieldsQuery = "SELECT * FROM FOO WHERE 1=0";
     assertEquals(reusedFieldsQuery, nativeMeta.getSqlQueryFields("FOO"));
     assertEquals(reusedFieldsQuery, nativeMeta.getSqlTableExists("FOO"));
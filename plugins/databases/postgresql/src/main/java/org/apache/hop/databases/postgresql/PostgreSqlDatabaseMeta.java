@@ -1100,4 +1100,26 @@ public class PostgreSqlDatabaseMeta extends BaseDatabaseMeta implements IDatabas
   public int getMaxTextFieldLength() {
     return GB_LIMIT;
   }
+
+  @Override
+  public void addDefaultOptions() {
+    // Let the driver send batches of inserts as multi-row inserts
+    addExtraOption(getPluginId(), "reWriteBatchedInserts", "true");
+  }
+
+  @Override
+  public int getMaxMultiRowInsertRows() {
+    return 1000;
+  }
+
+  @Override
+  public int getMaxPreparedStatementParameters() {
+    return 32767;
+  }
+
+  /** hashtext() returns an integer, we cast it to a bigint so that ABS() can't overflow */
+  @Override
+  public String getSqlHashExpression(String expression) {
+    return "CAST(hashtext(CAST(" + expression + " AS TEXT)) AS BIGINT)";
+  }
 }
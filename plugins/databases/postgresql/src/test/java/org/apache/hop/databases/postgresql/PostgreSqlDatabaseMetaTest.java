@@ -37,6 +37,10 @@ public class PostgreSqlDatabaseMetaTest {
   public void testSettings() throws Exception {
     assertEquals("&", nativeMeta.getExtraOptionSeparator());
     assertEquals("?", nativeMeta.getExtraOptionIndicator());
+    assertEquals(1000, nativeMeta.getMaxMultiRowInsertRows());
+    assertEquals(32767, nativeMeta.getMaxPreparedStatementParameters());
+    assertEquals(
+        "CAST(hashtext(CAST(id AS TEXT)) AS BIGINT)", nativeMeta.getSqlHashExpression("id"));
     assertArrayEquals(new int[] {DatabaseMeta.TYPE_ACCESS_NATIVE}, nativeMeta.getAccessTypeList());
     assertEquals(5432, nativeMeta.getDefaultDatabasePort());
     assertEquals("org.postgresql.Driver", nativeMeta.getDriverClass());
@@ -76,4 +76,10 @@ public class RedshiftDatabaseMeta extends PostgreSqlDatabaseMeta {
   public boolean isSupportsSetMaxRows() {
     return false;
   }
+
+  /** The Redshift driver doesn't know the batch rewriting option of the PostgreSQL driver */
+  @Override
+  public void addDefaultOptions() {
+    // No default options
+  }
 }
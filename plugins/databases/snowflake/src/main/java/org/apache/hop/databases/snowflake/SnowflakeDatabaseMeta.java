@@ -487,4 +487,9 @@ public class SnowflakeDatabaseMeta extends BaseDatabaseMeta implements IDatabase
   public boolean isRequiringTransactionsOnQueries() {
     return false;
   }
+
+  @Override
+  public int getMaxMultiRowInsertRows() {
+    return 1000;
+  }
 }
@@ -195,4 +195,17 @@ public class SqliteDatabaseMeta extends BaseDatabaseMeta implements IDatabase {
   public boolean isSqliteVariant() {
     return true;
   }
+
+  @Override
+  public int getMaxMultiRowInsertRows() {
+    return 500;
+  }
+
+  /**
+   * @return The default maximum number of host parameters of older SQLite versions
+   */
+  @Override
+  public int getMaxPreparedStatementParameters() {
+    return 999;
+  }
 }
@@ -37,6 +37,8 @@ public class SqliteDatabaseMetaTest {
   public void testSettings() throws Exception {
     assertArrayEquals(new int[] {DatabaseMeta.TYPE_ACCESS_NATIVE}, nativeMeta.getAccessTypeList());
     assertEquals(-1, nativeMeta.getDefaultDatabasePort());
+    assertEquals(500, nativeMeta.getMaxMultiRowInsertRows());
+    assertEquals(999, nativeMeta.getMaxPreparedStatementParameters());
     assertTrue(nativeMeta.isSupportsAutoInc());
     assertEquals(1, nativeMeta.getNotFoundTK(true));
     assertEquals(0, nativeMeta.getNotFoundTK(false));
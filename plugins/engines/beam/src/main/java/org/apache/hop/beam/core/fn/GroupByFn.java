@@ -29,6 +29,8 @@ import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
+import org.apache.hop.core.sketch.HyperLogLog;
+import org.apache.hop.core.sketch.QuantileSketch;
 import org.apache.hop.pipeline.Pipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -211,6 +213,22 @@ public class GroupByFn extends DoFn<KV<HopRow, Iterable<HopRow>>, HopRow> {
                 result = subject;
               }
               break;
+            case COUNT_DISTINCT_APPROX:
+            case DISTINCT_SKETCH:
+              // Binary subjects are sketches calculated upstream, these are merged
+              //
+              if (result == null) {
+                result = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+              }
+              ((HyperLogLog) result).update(subjectValueMeta, subject);
+              break;
+            case MEDIAN_APPROX:
+            case QUANTILE_SKETCH:
+              if (result == null) {
+                result = new QuantileSketch(QuantileSketch.DEFAULT_K);
+              }
+              ((QuantileSketch) result).update(subjectValueMeta, subject);
+              break;
             default:
               throw new HopException(
                   "Sorry, aggregation type yet: "
@@ -221,11 +239,26 @@ public class GroupByFn extends DoFn<KV<HopRow, Iterable<HopRow>>, HopRow> {
         }
       }
 
-      // Do a pass to correct average
+      // Do a pass to correct average and to evaluate the sketches
       //
       for (int i = 0; i < results.length; i++) {
         IValueMeta subjectValueMeta = subjectRowMeta.getValueMeta(i);
         switch (aggregationTypes[i]) {
+          case COUNT_DISTINCT_APPROX:
+            results[i] = results[i] == null ? null : ((HyperLogLog) results[i]).estimate();
+            break;
+          case DISTINCT_SKETCH:
+            results[i] = results[i] == null ? null : ((HyperLogLog) results[i]).toBytes();
+            break;
+          case MEDIAN_APPROX:
+            if (results[i] != null) {
+              double median = ((QuantileSketch) results[i]).getQuantile(0.5);
+              results[i] = Double.isNaN(median) ? null : median;
+            }
+            break;
+          case QUANTILE_SKETCH:
+            results[i] = results[i] == null ? null : ((QuantileSketch) results[i]).toBytes();
+            break;
           case AVERAGE:
             switch (subjectValueMeta.getType()) {
               case IValueMeta.TYPE_NUMBER:
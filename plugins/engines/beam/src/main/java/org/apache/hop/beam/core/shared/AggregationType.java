@@ -29,6 +29,10 @@ public enum AggregationType {
   LAST_INCL_NULL,
   FIRST,
   LAST,
+  COUNT_DISTINCT_APPROX,
+  DISTINCT_SKETCH,
+  MEDIAN_APPROX,
+  QUANTILE_SKETCH,
   ;
 
   public static final AggregationType getTypeFromName(String name) throws HopException {
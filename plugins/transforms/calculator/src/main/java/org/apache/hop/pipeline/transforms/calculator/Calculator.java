@@ -23,6 +23,7 @@ import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.ValueDataUtil;
 import org.apache.hop.core.util.StringUtil;
@@ -63,8 +64,8 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
   @Override
   public boolean processRow() throws HopException {
 
-    Object[] r = getRow(); // get row, set busy!
-    if (r == null) { // no more input to be expected...
+    RowBatch batch = getRowBatch(); // get rows, set busy!
+    if (batch == null) { // no more input to be expected...
       setOutputDone();
       data.clearValuesMetaMapping();
       return false;
@@ -163,34 +164,64 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
       for (int i = 0; i < data.getTempIndexes().length; i++) {
         data.getTempIndexes()[i] = tempIndexes.get(i);
       }
-    }
 
-    if (log.isRowLevel()) {
-      logRowlevel(
-          BaseMessages.getString(PKG, "Calculator.Log.ReadRow")
-              + getLinesRead()
-              + " : "
-              + getInputRowMeta().getString(r));
+      // See which calculations can be done on the columnar values of a batch of rows
+      //
+      data.setColumnarFunctions(new boolean[meta.getFunctions().size()]);
+      for (int i = 0; i < meta.getFunctions().size(); i++) {
+        data.getColumnarFunctions()[i] = isColumnar(i, getInputRowMeta().size() + i);
+      }
     }
 
+    int nrRowsRead = batch.size();
+
     try {
-      Object[] row = calcFields(getInputRowMeta(), r);
-      putRow(data.getOutputRowMeta(), row); // copy row to possible alternate rowset(s).
+      // Make room for the calculated fields in the rows
+      //
+      RowBatch calcBatch = data.getCalcBatch();
+      if (calcBatch == null || calcBatch.getCapacity() < batch.getCapacity()) {
+        calcBatch = new RowBatch(data.getCalcRowMeta(), batch.getCapacity());
+        data.setCalcBatch(calcBatch);
+        data.setSkippedRows(new boolean[batch.getCapacity()]);
+      } else {
+        calcBatch.clear();
+      }
+      boolean[] skippedRows = data.getSkippedRows();
+      for (int r = 0; r < nrRowsRead; r++) {
+        Object[] row = batch.getRow(r);
+        if (log.isRowLevel()) {
+          logRowlevel(
+              BaseMessages.getString(PKG, "Calculator.Log.ReadRow")
+                  + (getLinesRead() - nrRowsRead + r + 1)
+                  + " : "
+                  + getInputRowMeta().getString(row));
+        }
+        calcBatch.addRow(RowDataUtil.resizeArray(row, data.getCalcRowMeta().size()));
+        skippedRows[r] = false;
+      }
+
+      if (!calcFields(calcBatch, skippedRows)) {
+        return false;
+      }
 
-      if (log.isRowLevel()) {
-        logRowlevel("Wrote row #" + getLinesWritten() + " : " + getInputRowMeta().getString(r));
+      for (int r = 0; r < nrRowsRead; r++) {
+        if (skippedRows[r]) {
+          continue;
+        }
+        // Refrain from adding the temporary fields to the result.
+        //
+        Object[] row = RowDataUtil.removeItems(calcBatch.getRow(r), data.getTempIndexes());
+        putRow(data.getOutputRowMeta(), row); // copy row to possible alternate rowset(s).
+
+        if (log.isRowLevel()) {
+          logRowlevel("Wrote row #" + getLinesWritten() + " : " + getInputRowMeta().getString(row));
+        }
       }
-      if (checkFeedback(getLinesRead())) {
+      if (checkFeedback(getLinesRead(), nrRowsRead)) {
         if (log.isBasic()) {
           logBasic(BaseMessages.getString(PKG, "Calculator.Log.Linenr", "" + getLinesRead()));
         }
       }
-    } catch (HopFileNotFoundException e) {
-      if (meta.isFailIfNoFile()) {
-        logError(BaseMessages.getString(PKG, "Calculator.Log.NoFile") + " : " + e.getFilepath());
-        setErrors(getErrors() + 1);
-        return false;
-      }
     } catch (HopException e) {
       logError(
           BaseMessages.getString(
@@ -202,490 +233,636 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
   }
 
   /**
-   * @param inputRowMeta the input row metadata
-   * @param r the input row (data)
-   * @return A row including the calculations, excluding the temporary values
+   * Calculate all the fields for a batch of rows. The calculations are done one by one for all rows
+   * in the batch.
+   *
+   * @param calcBatch the rows (data) including room for the calculated fields
+   * @param skippedRows flags the rows which are not passed on because a file was not found
+   * @return false if the transform needs to stop because a file was not found
+   * @throws HopValueException in case there is a calculation error.
+   */
+  private boolean calcFields(RowBatch calcBatch, boolean[] skippedRows) throws HopValueException {
+    for (int i = 0, index = getInputRowMeta().size() + i;
+        i < meta.getFunctions().size();
+        i++, index++) {
+      if (data.getColumnarFunctions()[i]) {
+        calcFieldColumnar(i, index, calcBatch);
+        continue;
+      }
+
+      for (int r = 0; r < calcBatch.size(); r++) {
+        if (skippedRows[r]) {
+          continue;
+        }
+        try {
+          calcField(i, index, calcBatch.getRow(r));
+        } catch (HopFileNotFoundException e) {
+          if (meta.isFailIfNoFile()) {
+            logError(
+                BaseMessages.getString(PKG, "Calculator.Log.NoFile") + " : " + e.getFilepath());
+            setErrors(getErrors() + 1);
+            return false;
+          }
+          skippedRows[r] = true;
+        }
+      }
+      calcBatch.invalidateColumn(index);
+    }
+    return true;
+  }
+
+  /**
+   * See if a calculation can be done on the primitive values of a batch of rows: additions,
+   * subtractions and multiplications of Integer or Number fields resulting in the same data type.
+   *
+   * @param i the index of the calculation
+   * @param index the index of the calculated field in the calculation row
+   * @return true if the calculation can be done on the columnar values
+   */
+  private boolean isColumnar(int i, int index) {
+    CalculatorMetaFunction fn = meta.getFunctions().get(i);
+    if (Utils.isEmpty(fn.getFieldName())) {
+      return false;
+    }
+    Calculator.FieldIndexes indexes = data.getFieldIndexes()[i];
+    int indexB;
+    switch (fn.getCalcType()) {
+      case ADD:
+      case SUBTRACT:
+      case MULTIPLY:
+        indexB = indexes.indexB;
+        break;
+      case SQUARE:
+        indexB = indexes.indexA;
+        break;
+      default:
+        return false;
+    }
+    if (indexes.indexA < 0 || indexB < 0) {
+      return false;
+    }
+    IRowMeta calcRowMeta = data.getCalcRowMeta();
+    IValueMeta metaA = calcRowMeta.getValueMeta(indexes.indexA);
+    IValueMeta metaB = calcRowMeta.getValueMeta(indexB);
+    IValueMeta targetMeta = calcRowMeta.getValueMeta(index);
+
+    RowBatch.ColumnType columnType = RowBatch.getColumnType(metaA);
+    if (columnType != RowBatch.ColumnType.LONG && columnType != RowBatch.ColumnType.DOUBLE) {
+      return false;
+    }
+    return metaA.getType() == metaB.getType()
+        && metaA.getType() == targetMeta.getType()
+        && RowBatch.getColumnType(metaB) == columnType
+        && RowBatch.getColumnType(targetMeta) == columnType;
+  }
+
+  /**
+   * Calculate a field for all rows in a batch using the primitive values of the arguments. Just
+   * like in ValueDataUtil, the result is null if one of the arguments is null.
+   *
+   * @param i the index of the calculation
+   * @param index the index of the calculated field in the calculation row
+   * @param calcBatch the rows (data) including room for the calculated fields
+   * @throws HopValueException in case the columnar values can't be retrieved.
+   */
+  private void calcFieldColumnar(int i, int index, RowBatch calcBatch) throws HopValueException {
+    CalculationType calcType = meta.getFunctions().get(i).getCalcType();
+    Calculator.FieldIndexes indexes = data.getFieldIndexes()[i];
+    int indexA = indexes.indexA;
+    int indexB = calcType == CalculationType.SQUARE ? indexes.indexA : indexes.indexB;
+    int size = calcBatch.size();
+
+    calcBatch.clearColumn(index);
+    boolean[] nullsA = calcBatch.getNulls(indexA);
+    boolean[] nullsB = calcBatch.getNulls(indexB);
+    boolean[] nulls = calcBatch.getNulls(index);
+    for (int r = 0; r < size; r++) {
+      nulls[r] = nullsA[r] || nullsB[r];
+    }
+
+    if (calcBatch.getColumnType(index) == RowBatch.ColumnType.LONG) {
+      long[] a = calcBatch.getLongs(indexA);
+      long[] b = calcBatch.getLongs(indexB);
+      long[] result = calcBatch.getLongs(index);
+      switch (calcType) {
+        case ADD:
+          for (int r = 0; r < size; r++) {
+            result[r] = a[r] + b[r];
+          }
+          break;
+        case SUBTRACT:
+          for (int r = 0; r < size; r++) {
+            result[r] = a[r] - b[r];
+          }
+          break;
+        default: // MULTIPLY, SQUARE
+          for (int r = 0; r < size; r++) {
+            result[r] = a[r] * b[r];
+          }
+          break;
+      }
+    } else {
+      double[] a = calcBatch.getDoubles(indexA);
+      double[] b = calcBatch.getDoubles(indexB);
+      double[] result = calcBatch.getDoubles(index);
+      switch (calcType) {
+        case ADD:
+          for (int r = 0; r < size; r++) {
+            result[r] = a[r] + b[r];
+          }
+          break;
+        case SUBTRACT:
+          for (int r = 0; r < size; r++) {
+            result[r] = a[r] - b[r];
+          }
+          break;
+        default: // MULTIPLY, SQUARE
+          for (int r = 0; r < size; r++) {
+            result[r] = a[r] * b[r];
+          }
+          break;
+      }
+    }
+    calcBatch.setColumnModified(index);
+  }
+
+  /**
+   * Calculate a single field of a row.
+   *
+   * @param i the index of the calculation
+   * @param index the index of the calculated field in the calculation row
+   * @param calcData the calculation row (data) receiving the calculated value
    * @throws HopValueException in case there is a calculation error.
    */
-  private Object[] calcFields(IRowMeta inputRowMeta, Object[] r)
+  private void calcField(int i, int index, Object[] calcData)
       throws HopValueException, HopFileNotFoundException {
-    // First copy the input data to the new result...
-    Object[] calcData = RowDataUtil.resizeArray(r, data.getCalcRowMeta().size());
+    CalculatorMetaFunction fn = meta.getFunctions().get(i);
+    if (!Utils.isEmpty(fn.getFieldName())) {
+      IValueMeta targetMeta = data.getCalcRowMeta().getValueMeta(index);
 
-    for (int i = 0, index = inputRowMeta.size() + i; i < meta.getFunctions().size(); i++, index++) {
-      CalculatorMetaFunction fn = meta.getFunctions().get(i);
-      if (!Utils.isEmpty(fn.getFieldName())) {
-        IValueMeta targetMeta = data.getCalcRowMeta().getValueMeta(index);
+      IValueMeta metaA = null;
+      Object dataA = null;
 
-        IValueMeta metaA = null;
-        Object dataA = null;
+      if (data.getFieldIndexes()[i].indexA >= 0) {
+        metaA = data.getCalcRowMeta().getValueMeta(data.getFieldIndexes()[i].indexA);
+        dataA = calcData[data.getFieldIndexes()[i].indexA];
+      }
 
-        if (data.getFieldIndexes()[i].indexA >= 0) {
-          metaA = data.getCalcRowMeta().getValueMeta(data.getFieldIndexes()[i].indexA);
-          dataA = calcData[data.getFieldIndexes()[i].indexA];
-        }
+      IValueMeta metaB = null;
+      Object dataB = null;
 
-        IValueMeta metaB = null;
-        Object dataB = null;
+      if (data.getFieldIndexes()[i].indexB >= 0) {
+        metaB = data.getCalcRowMeta().getValueMeta(data.getFieldIndexes()[i].indexB);
+        dataB = calcData[data.getFieldIndexes()[i].indexB];
+      }
 
-        if (data.getFieldIndexes()[i].indexB >= 0) {
-          metaB = data.getCalcRowMeta().getValueMeta(data.getFieldIndexes()[i].indexB);
-          dataB = calcData[data.getFieldIndexes()[i].indexB];
-        }
+      IValueMeta metaC = null;
+      Object dataC = null;
 
-        IValueMeta metaC = null;
-        Object dataC = null;
+      if (data.getFieldIndexes()[i].indexC >= 0) {
+        metaC = data.getCalcRowMeta().getValueMeta(data.getFieldIndexes()[i].indexC);
+        dataC = calcData[data.getFieldIndexes()[i].indexC];
+      }
 
-        if (data.getFieldIndexes()[i].indexC >= 0) {
-          metaC = data.getCalcRowMeta().getValueMeta(data.getFieldIndexes()[i].indexC);
-          dataC = calcData[data.getFieldIndexes()[i].indexC];
-        }
+      CalculationType calcType = fn.getCalcType();
 
-        CalculationType calcType = fn.getCalcType();
+      // The data types are those of the first argument field, convert to the target field.
+      // Exceptions:
+      // - multiply can be string
+      // - constant is string
+      // - all date functions except add days/months
+      // - hex encode / decodes
 
-        // The data types are those of the first argument field, convert to the target field.
-        // Exceptions:
-        // - multiply can be string
-        // - constant is string
-        // - all date functions except add days/months
-        // - hex encode / decodes
+      int resultType;
+      if (metaA != null) {
+        resultType = metaA.getType();
+      } else {
+        resultType = IValueMeta.TYPE_NONE;
+      }
 
-        int resultType;
-        if (metaA != null) {
-          resultType = metaA.getType();
-        } else {
-          resultType = IValueMeta.TYPE_NONE;
-        }
+      switch (calcType) {
+        case NONE:
+          break;
+        case COPY_OF_FIELD: // Create a copy of field A
+          calcData[index] = dataA;
 
-        switch (calcType) {
-          case NONE:
-            break;
-          case COPY_OF_FIELD: // Create a copy of field A
-            calcData[index] = dataA;
-
-            break;
-          case ADD: // A + B
-            calcData[index] = ValueDataUtil.plus(metaA, dataA, metaB, dataB);
-            if (metaA.isString() || metaB.isString()) {
-              resultType = IValueMeta.TYPE_STRING;
-            }
-            break;
-          case SUBTRACT: // A - B
-            calcData[index] = ValueDataUtil.minus(metaA, dataA, metaB, dataB);
-            if (metaA.isDate()) {
-              resultType = IValueMeta.TYPE_INTEGER;
-            }
-            break;
-          case MULTIPLY: // A * B
-            calcData[index] = ValueDataUtil.multiply(metaA, dataA, metaB, dataB);
-            if (metaA.isString() || metaB.isString()) {
-              resultType = IValueMeta.TYPE_STRING;
-            }
-            break;
-          case DIVIDE: // A / B
-            calcData[index] = ValueDataUtil.divide(metaA, dataA, metaB, dataB);
-            break;
-          case SQUARE: // A * A
-            calcData[index] = ValueDataUtil.multiply(metaA, dataA, metaA, dataA);
-            break;
-          case SQUARE_ROOT: // SQRT( A )
-            calcData[index] = ValueDataUtil.sqrt(metaA, dataA);
-            break;
-          case PERCENT_1: // 100 * A / B
-            calcData[index] = ValueDataUtil.percent1(metaA, dataA, metaB, dataB);
-            break;
-          case PERCENT_2: // A - ( A * B / 100 )
-            calcData[index] = ValueDataUtil.percent2(metaA, dataA, metaB, dataB);
-            break;
-          case PERCENT_3: // A + ( A * B / 100 )
-            calcData[index] = ValueDataUtil.percent3(metaA, dataA, metaB, dataB);
-            break;
-          case COMBINATION_1: // A + B * C
-            calcData[index] = ValueDataUtil.combination1(metaA, dataA, metaB, dataB, metaC, dataC);
-            break;
-          case COMBINATION_2: // SQRT( A*A + B*B )
-            calcData[index] = ValueDataUtil.combination2(metaA, dataA, metaB, dataB);
-            break;
-          case ROUND_1: // ROUND( A )
-            calcData[index] = ValueDataUtil.round(metaA, dataA);
-            break;
-          case ROUND_2: // ROUND( A , B )
-            calcData[index] = ValueDataUtil.round(metaA, dataA, metaB, dataB);
-            break;
-          case ROUND_CUSTOM_1: // ROUND( A , B )
-            calcData[index] = ValueDataUtil.round(metaA, dataA, metaB.getNumber(dataB).intValue());
-            break;
-          case ROUND_CUSTOM_2: // ROUND( A , B, C )
-            calcData[index] =
-                ValueDataUtil.round(metaA, dataA, metaB, dataB, metaC.getNumber(dataC).intValue());
-            break;
-          case ROUND_STD_1: // ROUND( A )
-            calcData[index] = ValueDataUtil.round(metaA, dataA, java.math.BigDecimal.ROUND_HALF_UP);
-            break;
-          case ROUND_STD_2: // ROUND( A , B )
-            calcData[index] =
-                ValueDataUtil.round(metaA, dataA, metaB, dataB, java.math.BigDecimal.ROUND_HALF_UP);
-            break;
-          case CEIL: // CEIL( A )
-            calcData[index] = ValueDataUtil.ceil(metaA, dataA);
-            break;
-          case FLOOR: // FLOOR( A )
-            calcData[index] = ValueDataUtil.floor(metaA, dataA);
-            break;
-          case CONSTANT: // Set field to constant value...
-            calcData[index] = fn.getFieldA(); // A string
-            resultType = calcType.getDefaultResultType();
-            break;
-          case NVL: // Replace null values with another value
-            calcData[index] = ValueDataUtil.nvl(metaA, dataA, metaB, dataB);
-            break;
-          case ADD_DAYS: // Add B days to date field A
-            calcData[index] = ValueDataUtil.addDays(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ADD_HOURS: // Add B hours to date field A
-            calcData[index] = ValueDataUtil.addHours(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ADD_MINUTES: // Add B minutes to date field A
-            calcData[index] = ValueDataUtil.addMinutes(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case YEAR_OF_DATE: // What is the year (Integer) of a date?
-            calcData[index] = ValueDataUtil.yearOfDate(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case MONTH_OF_DATE: // What is the month (Integer) of a date?
-            calcData[index] = ValueDataUtil.monthOfDate(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DAY_OF_YEAR: // What is the day of year (Integer) of a date?
-            calcData[index] = ValueDataUtil.dayOfYear(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DAY_OF_MONTH: // What is the day of month (Integer) of a date?
-            calcData[index] = ValueDataUtil.dayOfMonth(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DAY_OF_WEEK: // What is the day of week (Integer) of a date?
-            calcData[index] = ValueDataUtil.dayOfWeek(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case WEEK_OF_YEAR: // What is the week of year (Integer) of a date?
-            calcData[index] = ValueDataUtil.weekOfYear(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case WEEK_OF_YEAR_ISO8601: // What is the week of year (Integer) of a date ISO8601
-            // style?
-            calcData[index] = ValueDataUtil.weekOfYearISO8601(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case YEAR_OF_DATE_ISO8601: // What is the year (Integer) of a date ISO8601 style?
-            calcData[index] = ValueDataUtil.yearOfDateISO8601(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case BYTE_TO_HEX_ENCODE: // Byte to Hex encode string field A
-            calcData[index] = ValueDataUtil.byteToHexEncode(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case HEX_TO_BYTE_DECODE: // Hex to Byte decode string field A
-            calcData[index] = ValueDataUtil.hexToByteDecode(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-
-          case CHAR_TO_HEX_ENCODE: // Char to Hex encode string field A
-            calcData[index] = ValueDataUtil.charToHexEncode(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case HEX_TO_CHAR_DECODE: // Hex to Char decode string field A
-            calcData[index] = ValueDataUtil.hexToCharDecode(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case CRC32: // CRC32
-            calcData[index] = ValueDataUtil.checksumCRC32(metaA, dataA, meta.isFailIfNoFile());
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ADLER32: // ADLER32
-            calcData[index] = ValueDataUtil.checksumAdler32(metaA, dataA, meta.isFailIfNoFile());
-            resultType = calcType.getDefaultResultType();
-            break;
-          case MD5: // MD5
-            calcData[index] =
-                ValueDataUtil.createChecksum(metaA, dataA, "MD5", meta.isFailIfNoFile());
-            resultType = calcType.getDefaultResultType();
-            break;
-          case SHA1: // SHA-1
-            calcData[index] =
-                ValueDataUtil.createChecksum(metaA, dataA, "SHA-1", meta.isFailIfNoFile());
-            resultType = calcType.getDefaultResultType();
-            break;
-          case LEVENSHTEIN_DISTANCE: // LEVENSHTEIN DISTANCE
-            calcData[index] = ValueDataUtil.getLevenshtein_Distance(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case METAPHONE: // METAPHONE
-            calcData[index] = ValueDataUtil.get_Metaphone(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DOUBLE_METAPHONE: // Double METAPHONE
-            calcData[index] = ValueDataUtil.get_Double_Metaphone(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ABS: // ABS( A )
-            calcData[index] = ValueDataUtil.abs(metaA, dataA);
-            break;
-          case REMOVE_TIME_FROM_DATE: // Remove Time from field A
-            calcData[index] = ValueDataUtil.removeTimeFromDate(metaA, dataA);
-            break;
-          case DATE_DIFF: // DateA - DateB
-            calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "d");
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ADD3: // A + B + C
-            calcData[index] = ValueDataUtil.plus3(metaA, dataA, metaB, dataB, metaC, dataC);
-            if (metaA.isString() || metaB.isString() || metaC.isString()) {
-              resultType = IValueMeta.TYPE_STRING;
-            }
-            break;
-          case INITCAP: // InitCap( A )
-            calcData[index] = ValueDataUtil.initCap(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case UPPER_CASE: // UpperCase( A )
-            calcData[index] = ValueDataUtil.upperCase(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case LOWER_CASE: // UpperCase( A )
-            calcData[index] = ValueDataUtil.lowerCase(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case MASK_XML: // escapeXML( A )
-            calcData[index] = ValueDataUtil.escapeXml(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case USE_CDATA: // CDATA( A )
-            calcData[index] = ValueDataUtil.useCDATA(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case REMOVE_CR: // REMOVE CR FROM A
-            calcData[index] = ValueDataUtil.removeCR(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case REMOVE_LF: // REMOVE LF FROM A
-            calcData[index] = ValueDataUtil.removeLF(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case REMOVE_CRLF: // REMOVE CRLF FROM A
-            calcData[index] = ValueDataUtil.removeCRLF(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case REMOVE_TAB: // REMOVE TAB FROM A
-            calcData[index] = ValueDataUtil.removeTAB(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case GET_ONLY_DIGITS: // GET ONLY DIGITS FROM A
-            calcData[index] = ValueDataUtil.getDigits(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case REMOVE_DIGITS: // REMOVE DIGITS FROM A
-            calcData[index] = ValueDataUtil.removeDigits(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case STRING_LEN: // RETURN THE LENGTH OF A
-            calcData[index] = ValueDataUtil.stringLen(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case LOAD_FILE_CONTENT_BINARY: // LOAD CONTENT OF A FILE A IN A BLOB
-            calcData[index] =
-                ValueDataUtil.loadFileContentInBinary(metaA, dataA, meta.isFailIfNoFile());
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ADD_TIME_TO_DATE: // Add time B to a date A
-            calcData[index] = ValueDataUtil.addTimeToDate(metaA, dataA, metaB, dataB, metaC, dataC);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case QUARTER_OF_DATE: // What is the quarter (Integer) of a date?
-            calcData[index] = ValueDataUtil.quarterOfDate(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case SUBSTITUTE_VARIABLE: // variable substitution in string
-            calcData[index] = resolve(dataA.toString());
-            resultType = calcType.getDefaultResultType();
-            break;
-          case UNESCAPE_XML: // UnescapeXML( A )
-            calcData[index] = ValueDataUtil.unEscapeXml(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ESCAPE_HTML: // EscapeHTML( A )
-            calcData[index] = ValueDataUtil.escapeHtml(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case UNESCAPE_HTML: // UnescapeHTML( A )
-            calcData[index] = ValueDataUtil.unEscapeHtml(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ESCAPE_SQL: // EscapeSQL( A )
-            calcData[index] = ValueDataUtil.escapeSql(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DATE_WORKING_DIFF: // DateWorkingDiff( A , B)
-            calcData[index] = ValueDataUtil.DateWorkingDiff(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ADD_MONTHS: // Add B months to date field A
-            calcData[index] = ValueDataUtil.addMonths(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case CHECK_XML_FILE_WELL_FORMED: // Check if file A is well formed
-            calcData[index] =
-                ValueDataUtil.isXmlFileWellFormed(metaA, dataA, meta.isFailIfNoFile());
-            resultType = calcType.getDefaultResultType();
-            break;
-          case CHECK_XML_WELL_FORMED: // Check if xml A is well formed
-            calcData[index] = ValueDataUtil.isXmlWellFormed(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case GET_FILE_ENCODING: // Get file encoding from a file A
-            calcData[index] = ValueDataUtil.getFileEncoding(metaA, dataA, meta.isFailIfNoFile());
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DAMERAU_LEVENSHTEIN: // DAMERAULEVENSHTEIN DISTANCE
-            calcData[index] =
-                ValueDataUtil.getDamerauLevenshtein_Distance(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case NEEDLEMAN_WUNSH: // NEEDLEMANWUNSH DISTANCE
-            calcData[index] = CalculatorValueDataUtil.getNeedlemanWunschDistance(dataA, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case JARO: // Jaro DISTANCE
-            calcData[index] = ValueDataUtil.getJaro_Similitude(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case JARO_WINKLER: // Jaro DISTANCE
-            calcData[index] = ValueDataUtil.getJaroWinkler_Similitude(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case SOUNDEX: // SOUNDEX
-            calcData[index] = ValueDataUtil.get_SoundEx(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case REFINED_SOUNDEX: // REFINEDSOUNDEX
-            calcData[index] = ValueDataUtil.get_RefinedSoundEx(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DATE_DIFF_MSEC: // DateA - DateB (ms)
-            calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "ms");
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DATE_DIFF_SEC: // DateA - DateB (s)
-            calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "s");
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DATE_DIFF_MN: // DateA - DateB (mn)
-            calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "mn");
-            resultType = calcType.getDefaultResultType();
-            break;
-          case DATE_DIFF_HR: // DateA - DateB (h)
-            calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "h");
-            resultType = calcType.getDefaultResultType();
-            break;
-          case HOUR_OF_DAY:
-            calcData[index] = ValueDataUtil.hourOfDay(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case MINUTE_OF_HOUR:
-            calcData[index] = ValueDataUtil.minuteOfHour(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case SECOND_OF_MINUTE:
-            calcData[index] = ValueDataUtil.secondOfMinute(metaA, dataA);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case ADD_SECONDS: // Add B seconds to date field A
-            calcData[index] = ValueDataUtil.addSeconds(metaA, dataA, metaB, dataB);
-            resultType = calcType.getDefaultResultType();
-            break;
-          case REMAINDER:
-            if (targetMeta.getType() != metaA.getType()
-                || targetMeta.getType() != metaB.getType()) {
-              dataA = targetMeta.convertData(metaA, dataA);
-              metaA = targetMeta.clone();
-              dataB = targetMeta.convertData(metaB, dataB);
-              metaB = targetMeta.clone();
-            }
-            calcData[index] = ValueDataUtil.remainder(metaA, dataA, metaB, dataB);
-            resultType = targetMeta.getType();
-            break;
-          case BASE64_ENCODE:
-            if(dataA != null){
-              calcData[index] = Base64.getEncoder().withoutPadding().encodeToString(dataA.toString().getBytes());
-            }else{
-              calcData[index] = null;
-            }
+          break;
+        case ADD: // A + B
+          calcData[index] = ValueDataUtil.plus(metaA, dataA, metaB, dataB);
+          if (metaA.isString() || metaB.isString()) {
             resultType = IValueMeta.TYPE_STRING;
-            break;
-          case BASE64_DECODE:
-            if(dataA != null){
-              byte[] tmpDecoded = Base64.getDecoder().decode(dataA.toString());
-              String tmpDecodedString = new String(tmpDecoded);
-              calcData[index] = targetMeta.convertData(metaA, tmpDecodedString);
-            }else{
-              calcData[index] = null;
-            }
-            resultType = targetMeta.getType();
-            break;
-          default:
-            throw new HopValueException(
-                BaseMessages.getString(PKG, "Calculator.Log.UnknownCalculationType")
-                    + fn.getCalcType());
-        }
-
-        // If we don't have a target data type, throw an error.
-        // Otherwise the result is non-deterministic.
-        //
-        if (targetMeta.getType() == IValueMeta.TYPE_NONE) {
+          }
+          break;
+        case SUBTRACT: // A - B
+          calcData[index] = ValueDataUtil.minus(metaA, dataA, metaB, dataB);
+          if (metaA.isDate()) {
+            resultType = IValueMeta.TYPE_INTEGER;
+          }
+          break;
+        case MULTIPLY: // A * B
+          calcData[index] = ValueDataUtil.multiply(metaA, dataA, metaB, dataB);
+          if (metaA.isString() || metaB.isString()) {
+            resultType = IValueMeta.TYPE_STRING;
+          }
+          break;
+        case DIVIDE: // A / B
+          calcData[index] = ValueDataUtil.divide(metaA, dataA, metaB, dataB);
+          break;
+        case SQUARE: // A * A
+          calcData[index] = ValueDataUtil.multiply(metaA, dataA, metaA, dataA);
+          break;
+        case SQUARE_ROOT: // SQRT( A )
+          calcData[index] = ValueDataUtil.sqrt(metaA, dataA);
+          break;
+        case PERCENT_1: // 100 * A / B
+          calcData[index] = ValueDataUtil.percent1(metaA, dataA, metaB, dataB);
+          break;
+        case PERCENT_2: // A - ( A * B / 100 )
+          calcData[index] = ValueDataUtil.percent2(metaA, dataA, metaB, dataB);
+          break;
+        case PERCENT_3: // A + ( A * B / 100 )
+          calcData[index] = ValueDataUtil.percent3(metaA, dataA, metaB, dataB);
+          break;
+        case COMBINATION_1: // A + B * C
+          calcData[index] = ValueDataUtil.combination1(metaA, dataA, metaB, dataB, metaC, dataC);
+          break;
+        case COMBINATION_2: // SQRT( A*A + B*B )
+          calcData[index] = ValueDataUtil.combination2(metaA, dataA, metaB, dataB);
+          break;
+        case ROUND_1: // ROUND( A )
+          calcData[index] = ValueDataUtil.round(metaA, dataA);
+          break;
+        case ROUND_2: // ROUND( A , B )
+          calcData[index] = ValueDataUtil.round(metaA, dataA, metaB, dataB);
+          break;
+        case ROUND_CUSTOM_1: // ROUND( A , B )
+          calcData[index] = ValueDataUtil.round(metaA, dataA, metaB.getNumber(dataB).intValue());
+          break;
+        case ROUND_CUSTOM_2: // ROUND( A , B, C )
+          calcData[index] =
+              ValueDataUtil.round(metaA, dataA, metaB, dataB, metaC.getNumber(dataC).intValue());
+          break;
+        case ROUND_STD_1: // ROUND( A )
+          calcData[index] = ValueDataUtil.round(metaA, dataA, java.math.BigDecimal.ROUND_HALF_UP);
+          break;
+        case ROUND_STD_2: // ROUND( A , B )
+          calcData[index] =
+              ValueDataUtil.round(metaA, dataA, metaB, dataB, java.math.BigDecimal.ROUND_HALF_UP);
+          break;
+        case CEIL: // CEIL( A )
+          calcData[index] = ValueDataUtil.ceil(metaA, dataA);
+          break;
+        case FLOOR: // FLOOR( A )
+          calcData[index] = ValueDataUtil.floor(metaA, dataA);
+          break;
+        case CONSTANT: // Set field to constant value...
+          calcData[index] = fn.getFieldA(); // A string
+          resultType = calcType.getDefaultResultType();
+          break;
+        case NVL: // Replace null values with another value
+          calcData[index] = ValueDataUtil.nvl(metaA, dataA, metaB, dataB);
+          break;
+        case ADD_DAYS: // Add B days to date field A
+          calcData[index] = ValueDataUtil.addDays(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ADD_HOURS: // Add B hours to date field A
+          calcData[index] = ValueDataUtil.addHours(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ADD_MINUTES: // Add B minutes to date field A
+          calcData[index] = ValueDataUtil.addMinutes(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case YEAR_OF_DATE: // What is the year (Integer) of a date?
+          calcData[index] = ValueDataUtil.yearOfDate(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case MONTH_OF_DATE: // What is the month (Integer) of a date?
+          calcData[index] = ValueDataUtil.monthOfDate(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DAY_OF_YEAR: // What is the day of year (Integer) of a date?
+          calcData[index] = ValueDataUtil.dayOfYear(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DAY_OF_MONTH: // What is the day of month (Integer) of a date?
+          calcData[index] = ValueDataUtil.dayOfMonth(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DAY_OF_WEEK: // What is the day of week (Integer) of a date?
+          calcData[index] = ValueDataUtil.dayOfWeek(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case WEEK_OF_YEAR: // What is the week of year (Integer) of a date?
+          calcData[index] = ValueDataUtil.weekOfYear(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case WEEK_OF_YEAR_ISO8601: // What is the week of year (Integer) of a date ISO8601
+          // style?
+          calcData[index] = ValueDataUtil.weekOfYearISO8601(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case YEAR_OF_DATE_ISO8601: // What is the year (Integer) of a date ISO8601 style?
+          calcData[index] = ValueDataUtil.yearOfDateISO8601(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case BYTE_TO_HEX_ENCODE: // Byte to Hex encode string field A
+          calcData[index] = ValueDataUtil.byteToHexEncode(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case HEX_TO_BYTE_DECODE: // Hex to Byte decode string field A
+          calcData[index] = ValueDataUtil.hexToByteDecode(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+
+        case CHAR_TO_HEX_ENCODE: // Char to Hex encode string field A
+          calcData[index] = ValueDataUtil.charToHexEncode(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case HEX_TO_CHAR_DECODE: // Hex to Char decode string field A
+          calcData[index] = ValueDataUtil.hexToCharDecode(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case CRC32: // CRC32
+          calcData[index] = ValueDataUtil.checksumCRC32(metaA, dataA, meta.isFailIfNoFile());
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ADLER32: // ADLER32
+          calcData[index] = ValueDataUtil.checksumAdler32(metaA, dataA, meta.isFailIfNoFile());
+          resultType = calcType.getDefaultResultType();
+          break;
+        case MD5: // MD5
+          calcData[index] =
+              ValueDataUtil.createChecksum(metaA, dataA, "MD5", meta.isFailIfNoFile());
+          resultType = calcType.getDefaultResultType();
+          break;
+        case SHA1: // SHA-1
+          calcData[index] =
+              ValueDataUtil.createChecksum(metaA, dataA, "SHA-1", meta.isFailIfNoFile());
+          resultType = calcType.getDefaultResultType();
+          break;
+        case LEVENSHTEIN_DISTANCE: // LEVENSHTEIN DISTANCE
+          calcData[index] = ValueDataUtil.getLevenshtein_Distance(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case METAPHONE: // METAPHONE
+          calcData[index] = ValueDataUtil.get_Metaphone(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DOUBLE_METAPHONE: // Double METAPHONE
+          calcData[index] = ValueDataUtil.get_Double_Metaphone(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ABS: // ABS( A )
+          calcData[index] = ValueDataUtil.abs(metaA, dataA);
+          break;
+        case REMOVE_TIME_FROM_DATE: // Remove Time from field A
+          calcData[index] = ValueDataUtil.removeTimeFromDate(metaA, dataA);
+          break;
+        case DATE_DIFF: // DateA - DateB
+          calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "d");
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ADD3: // A + B + C
+          calcData[index] = ValueDataUtil.plus3(metaA, dataA, metaB, dataB, metaC, dataC);
+          if (metaA.isString() || metaB.isString() || metaC.isString()) {
+            resultType = IValueMeta.TYPE_STRING;
+          }
+          break;
+        case INITCAP: // InitCap( A )
+          calcData[index] = ValueDataUtil.initCap(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case UPPER_CASE: // UpperCase( A )
+          calcData[index] = ValueDataUtil.upperCase(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case LOWER_CASE: // UpperCase( A )
+          calcData[index] = ValueDataUtil.lowerCase(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case MASK_XML: // escapeXML( A )
+          calcData[index] = ValueDataUtil.escapeXml(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case USE_CDATA: // CDATA( A )
+          calcData[index] = ValueDataUtil.useCDATA(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case REMOVE_CR: // REMOVE CR FROM A
+          calcData[index] = ValueDataUtil.removeCR(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case REMOVE_LF: // REMOVE LF FROM A
+          calcData[index] = ValueDataUtil.removeLF(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case REMOVE_CRLF: // REMOVE CRLF FROM A
+          calcData[index] = ValueDataUtil.removeCRLF(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case REMOVE_TAB: // REMOVE TAB FROM A
+          calcData[index] = ValueDataUtil.removeTAB(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case GET_ONLY_DIGITS: // GET ONLY DIGITS FROM A
+          calcData[index] = ValueDataUtil.getDigits(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case REMOVE_DIGITS: // REMOVE DIGITS FROM A
+          calcData[index] = ValueDataUtil.removeDigits(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case STRING_LEN: // RETURN THE LENGTH OF A
+          calcData[index] = ValueDataUtil.stringLen(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case LOAD_FILE_CONTENT_BINARY: // LOAD CONTENT OF A FILE A IN A BLOB
+          calcData[index] =
+              ValueDataUtil.loadFileContentInBinary(metaA, dataA, meta.isFailIfNoFile());
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ADD_TIME_TO_DATE: // Add time B to a date A
+          calcData[index] = ValueDataUtil.addTimeToDate(metaA, dataA, metaB, dataB, metaC, dataC);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case QUARTER_OF_DATE: // What is the quarter (Integer) of a date?
+          calcData[index] = ValueDataUtil.quarterOfDate(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case SUBSTITUTE_VARIABLE: // variable substitution in string
+          calcData[index] = resolve(dataA.toString());
+          resultType = calcType.getDefaultResultType();
+          break;
+        case UNESCAPE_XML: // UnescapeXML( A )
+          calcData[index] = ValueDataUtil.unEscapeXml(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ESCAPE_HTML: // EscapeHTML( A )
+          calcData[index] = ValueDataUtil.escapeHtml(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case UNESCAPE_HTML: // UnescapeHTML( A )
+          calcData[index] = ValueDataUtil.unEscapeHtml(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ESCAPE_SQL: // EscapeSQL( A )
+          calcData[index] = ValueDataUtil.escapeSql(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DATE_WORKING_DIFF: // DateWorkingDiff( A , B)
+          calcData[index] = ValueDataUtil.DateWorkingDiff(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ADD_MONTHS: // Add B months to date field A
+          calcData[index] = ValueDataUtil.addMonths(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case CHECK_XML_FILE_WELL_FORMED: // Check if file A is well formed
+          calcData[index] =
+              ValueDataUtil.isXmlFileWellFormed(metaA, dataA, meta.isFailIfNoFile());
+          resultType = calcType.getDefaultResultType();
+          break;
+        case CHECK_XML_WELL_FORMED: // Check if xml A is well formed
+          calcData[index] = ValueDataUtil.isXmlWellFormed(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case GET_FILE_ENCODING: // Get file encoding from a file A
+          calcData[index] = ValueDataUtil.getFileEncoding(metaA, dataA, meta.isFailIfNoFile());
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DAMERAU_LEVENSHTEIN: // DAMERAULEVENSHTEIN DISTANCE
+          calcData[index] =
+              ValueDataUtil.getDamerauLevenshtein_Distance(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case NEEDLEMAN_WUNSH: // NEEDLEMANWUNSH DISTANCE
+          calcData[index] = CalculatorValueDataUtil.getNeedlemanWunschDistance(dataA, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case JARO: // Jaro DISTANCE
+          calcData[index] = ValueDataUtil.getJaro_Similitude(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case JARO_WINKLER: // Jaro DISTANCE
+          calcData[index] = ValueDataUtil.getJaroWinkler_Similitude(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case SOUNDEX: // SOUNDEX
+          calcData[index] = ValueDataUtil.get_SoundEx(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case REFINED_SOUNDEX: // REFINEDSOUNDEX
+          calcData[index] = ValueDataUtil.get_RefinedSoundEx(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DATE_DIFF_MSEC: // DateA - DateB (ms)
+          calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "ms");
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DATE_DIFF_SEC: // DateA - DateB (s)
+          calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "s");
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DATE_DIFF_MN: // DateA - DateB (mn)
+          calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "mn");
+          resultType = calcType.getDefaultResultType();
+          break;
+        case DATE_DIFF_HR: // DateA - DateB (h)
+          calcData[index] = ValueDataUtil.DateDiff(metaA, dataA, metaB, dataB, "h");
+          resultType = calcType.getDefaultResultType();
+          break;
+        case HOUR_OF_DAY:
+          calcData[index] = ValueDataUtil.hourOfDay(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case MINUTE_OF_HOUR:
+          calcData[index] = ValueDataUtil.minuteOfHour(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case SECOND_OF_MINUTE:
+          calcData[index] = ValueDataUtil.secondOfMinute(metaA, dataA);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case ADD_SECONDS: // Add B seconds to date field A
+          calcData[index] = ValueDataUtil.addSeconds(metaA, dataA, metaB, dataB);
+          resultType = calcType.getDefaultResultType();
+          break;
+        case REMAINDER:
+          if (targetMeta.getType() != metaA.getType()
+              || targetMeta.getType() != metaB.getType()) {
+            dataA = targetMeta.convertData(metaA, dataA);
+            metaA = targetMeta.clone();
+            dataB = targetMeta.convertData(metaB, dataB);
+            metaB = targetMeta.clone();
+          }
+          calcData[index] = ValueDataUtil.remainder(metaA, dataA, metaB, dataB);
+          resultType = targetMeta.getType();
+          break;
+        case BASE64_ENCODE:
+          if(dataA != null){
+            calcData[index] = Base64.getEncoder().withoutPadding().encodeToString(dataA.toString().getBytes());
+          }else{
+            calcData[index] = null;
+          }
+          resultType = IValueMeta.TYPE_STRING;
+          break;
+        case BASE64_DECODE:
+          if(dataA != null){
+            byte[] tmpDecoded = Base64.getDecoder().decode(dataA.toString());
+            String tmpDecodedString = new String(tmpDecoded);
+            calcData[index] = targetMeta.convertData(metaA, tmpDecodedString);
+          }else{
+            calcData[index] = null;
+          }
+          resultType = targetMeta.getType();
+          break;
+        default:
           throw new HopValueException(
-              BaseMessages.getString(PKG, "Calculator.Log.NoType")
-                  + (i + 1)
-                  + " : "
-                  + fn.getFieldName()
-                  + " = "
-                  + fn.getCalcType().getCode()
-                  + " / "
-                  + fn.getCalcType().getDescription());
-        }
+              BaseMessages.getString(PKG, "Calculator.Log.UnknownCalculationType")
+                  + fn.getCalcType());
+      }
 
-        // Convert the data to the correct target data type.
-        //
-        if (calcData[index] != null) {
-          if (targetMeta.getType() != resultType) {
-            IValueMeta resultMeta;
-            try {
-              // clone() is not necessary as one data instance belongs to one transform instance and
-              // no race condition occurs
-              resultMeta = data.getValueMetaFor(resultType, "result");
-            } catch (Exception exception) {
-              throw new HopValueException("Error creating value");
-            }
-            resultMeta.setConversionMask(fn.getConversionMask());
-            resultMeta.setGroupingSymbol(fn.getGroupingSymbol());
-            resultMeta.setDecimalSymbol(fn.getDecimalSymbol());
-            resultMeta.setCurrencySymbol(fn.getCurrencySymbol());
-            try {
-              calcData[index] = targetMeta.convertData(resultMeta, calcData[index]);
-            } catch (Exception ex) {
-              throw new HopValueException(
-                  "resultType: " + resultType + "; targetMeta: " + targetMeta.getType(), ex);
-            }
+      // If we don't have a target data type, throw an error.
+      // Otherwise the result is non-deterministic.
+      //
+      if (targetMeta.getType() == IValueMeta.TYPE_NONE) {
+        throw new HopValueException(
+            BaseMessages.getString(PKG, "Calculator.Log.NoType")
+                + (i + 1)
+                + " : "
+                + fn.getFieldName()
+                + " = "
+                + fn.getCalcType().getCode()
+                + " / "
+                + fn.getCalcType().getDescription());
+      }
+
+      // Convert the data to the correct target data type.
+      //
+      if (calcData[index] != null) {
+        if (targetMeta.getType() != resultType) {
+          IValueMeta resultMeta;
+          try {
+            // clone() is not necessary as one data instance belongs to one transform instance and
+            // no race condition occurs
+            resultMeta = data.getValueMetaFor(resultType, "result");
+          } catch (Exception exception) {
+            throw new HopValueException("Error creating value");
+          }
+          resultMeta.setConversionMask(fn.getConversionMask());
+          resultMeta.setGroupingSymbol(fn.getGroupingSymbol());
+          resultMeta.setDecimalSymbol(fn.getDecimalSymbol());
+          resultMeta.setCurrencySymbol(fn.getCurrencySymbol());
+          try {
+            calcData[index] = targetMeta.convertData(resultMeta, calcData[index]);
+          } catch (Exception ex) {
+            throw new HopValueException(
+                "resultType: " + resultType + "; targetMeta: " + targetMeta.getType(), ex);
           }
         }
       }
     }
-
-    // OK, now we should refrain from adding the temporary fields to the result.
-    // So we remove them.
-    //
-    return RowDataUtil.removeItems(calcData, data.getTempIndexes());
   }
 }
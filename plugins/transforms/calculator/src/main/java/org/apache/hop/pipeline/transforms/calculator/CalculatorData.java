@@ -20,6 +20,7 @@ package org.apache.hop.pipeline.transforms.calculator;
 import org.apache.hop.core.exception.HopPluginException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.value.ValueMetaFactory;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
@@ -35,6 +36,12 @@ public class CalculatorData extends BaseTransformData implements ITransformData
 
   private int[] tempIndexes;
 
+  private boolean[] columnarFunctions;
+
+  private RowBatch calcBatch;
+
+  private boolean[] skippedRows;
+
   private final Map<Integer, IValueMeta> resultMetaMapping;
 
   public CalculatorData() {
@@ -74,6 +81,30 @@ public class CalculatorData extends BaseTransformData implements ITransformData
     this.tempIndexes = tempIndexes;
   }
 
+  public boolean[] getColumnarFunctions() {
+    return columnarFunctions;
+  }
+
+  public void setColumnarFunctions(boolean[] columnarFunctions) {
+    this.columnarFunctions = columnarFunctions;
+  }
+
+  public RowBatch getCalcBatch() {
+    return calcBatch;
+  }
+
+  public void setCalcBatch(RowBatch calcBatch) {
+    this.calcBatch = calcBatch;
+  }
+
+  public boolean[] getSkippedRows() {
+    return skippedRows;
+  }
+
+  public void setSkippedRows(boolean[] skippedRows) {
+    this.skippedRows = skippedRows;
+  }
+
   public IValueMeta getValueMetaFor(int resultType, String name) throws HopPluginException {
     // don't need any synchronization as data instance belongs only to one transform instance
     IValueMeta meta = resultMetaMapping.get(resultType);
@@ -21,6 +21,7 @@ import junit.framework.Assert;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.HopEnvironment;
 import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.QueueRowSet;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.logging.ILoggingObject;
@@ -251,6 +252,105 @@ public class CalculatorUnitTest {
     }
   }
 
+  @Test
+  public void testBatchOfRows() throws HopException {
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaInteger("A"));
+    inputRowMeta.addValueMeta(new ValueMetaInteger("B"));
+    inputRowMeta.addValueMeta(new ValueMetaNumber("C"));
+
+    // A real row set so that the transform reads all the rows in a single batch
+    //
+    IRowSet inputRowSet = new QueueRowSet();
+    inputRowSet.putRow(inputRowMeta, new Object[] {1L, 2L, 0.5});
+    inputRowSet.putRow(inputRowMeta, new Object[] {null, 2L, 1.5});
+    inputRowSet.putRow(inputRowMeta, new Object[] {-4L, 3L, null});
+    inputRowSet.setDone();
+
+    CalculatorMeta meta = new CalculatorMeta();
+    meta.getFunctions()
+        .add(
+            new CalculatorMetaFunction(
+                "sum",
+                CalculationType.ADD,
+                "A",
+                "B",
+                null,
+                "Integer",
+                0,
+                0,
+                "",
+                "",
+                "",
+                "",
+                false));
+    meta.getFunctions()
+        .add(
+            new CalculatorMetaFunction(
+                "square",
+                CalculationType.SQUARE,
+                "C",
+                null,
+                null,
+                "Number",
+                0,
+                0,
+                "",
+                "",
+                "",
+                "",
+                false));
+    // Not calculated on the columns, uses the result of the first calculation
+    //
+    meta.getFunctions()
+        .add(
+            new CalculatorMetaFunction(
+                "div",
+                CalculationType.DIVIDE,
+                "sum",
+                "B",
+                null,
+                "Integer",
+                0,
+                0,
+                "",
+                "",
+                "",
+                "",
+                false));
+
+    CalculatorData data = new CalculatorData();
+
+    Calculator calculator =
+        new Calculator(smh.transformMeta, meta, data, 0, smh.pipelineMeta, smh.pipeline);
+    calculator.addRowSetToInputRowSets(inputRowSet);
+    calculator.setInputRowMeta(inputRowMeta);
+    calculator.init();
+
+    final List<Object[]> rows = new ArrayList<>();
+    calculator.addRowListener(
+        new RowAdapter() {
+          @Override
+          public void rowWrittenEvent(IRowMeta rowMeta, Object[] row) {
+            rows.add(row);
+          }
+        });
+    Assert.assertTrue(calculator.processRow());
+    Assert.assertFalse(calculator.processRow());
+
+    Assert.assertEquals(3, rows.size());
+    Assert.assertEquals(3L, rows.get(0)[3]);
+    Assert.assertEquals(0.25, rows.get(0)[4]);
+    Assert.assertEquals(1L, rows.get(0)[5]);
+    Assert.assertNull(rows.get(1)[3]);
+    Assert.assertEquals(2.25, rows.get(1)[4]);
+    Assert.assertNull(rows.get(1)[5]);
+    Assert.assertEquals(-1L, rows.get(2)[3]);
+    Assert.assertNull(rows.get(2)[4]);
+    Assert.assertEquals(0L, rows.get(2)[5]);
+    Assert.assertEquals(3, calculator.getLinesRead());
+  }
+
   @Test
   public void calculatorShouldClearDataInstance() throws Exception {
     RowMeta inputRowMeta = new RowMeta();
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Compact key of the lookup cache. A single key value is used as the key itself, several values
+ * are wrapped together with their hash code. The values are normalized so that values which
+ * compare as equal are equal keys: big numbers ignore their scale and negative zero equals zero.
+ */
+final class CacheKey {
+
+  private final Object[] values;
+  private final int hash;
+
+  private CacheKey(Object[] values) {
+    this.values = values;
+    this.hash = Arrays.deepHashCode(values);
+  }
+
+  /**
+   * Create the key for the given lookup values
+   *
+   * @param values The lookup values, converted to the data types of the lookup key
+   * @return The key
+   */
+  static Object of(Object[] values) {
+    if (values.length == 1 && !(values[0] instanceof byte[])) {
+      return normalize(values[0]);
+    }
+    Object[] normalized = new Object[values.length];
+    for (int i = 0; i < values.length; i++) {
+      normalized[i] = normalize(values[i]);
+    }
+    return new CacheKey(normalized);
+  }
+
+  /**
+   * Get the (normalized) lookup values back from a key
+   *
+   * @param key The key created with {@link #of(Object[])}
+   * @return The lookup values
+   */
+  static Object[] values(Object key) {
+    if (key instanceof CacheKey) {
+      return ((CacheKey) key).values;
+    }
+    return new Object[] {key};
+  }
+
+  private static Object normalize(Object value) {
+    if (value instanceof BigDecimal) {
+      BigDecimal number = (BigDecimal) value;
+      return number.signum() == 0 ? BigDecimal.ZERO : number.stripTrailingZeros();
+    }
+    if (value instanceof Double && (Double) value == 0.0) {
+      return 0.0;
+    }
+    return value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CacheKey)) {
+      return false;
+    }
+    CacheKey other = (CacheKey) o;
+    return hash == other.hash && Arrays.deepEquals(values, other.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
@@ -20,11 +20,17 @@ package org.apache.hop.pipeline.transforms.databaselookup;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.cache.BoundedCache;
+import org.apache.hop.core.cache.ISharedCacheLoader;
+import org.apache.hop.core.cache.SharedCacheEntry;
+import org.apache.hop.core.cache.SharedCacheManager;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.RowSizeEstimator;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
@@ -36,19 +42,50 @@ import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.EngineMetric;
+import org.apache.hop.pipeline.engine.IEngineMetric;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transforms.databaselookup.readallcache.ReadAllCache;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /** Looks up values in a database using keys from input streams. */
 public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLookupData> {
 
   private static final Class<?> PKG = DatabaseLookupMeta.class; // For Translator
 
+  public static final IEngineMetric METRIC_CACHE_HITS =
+      new EngineMetric(
+          "cache_hits",
+          "Cache hits",
+          "The number of lookups answered by the cache, including keys known to be missing",
+          "110",
+          true);
+  public static final IEngineMetric METRIC_CACHE_MISSES =
+      new EngineMetric(
+          "cache_misses", "Cache misses", "The number of lookups not in the cache", "111", true);
+  public static final IEngineMetric METRIC_CACHE_EVICTIONS =
+      new EngineMetric(
+          "cache_evictions",
+          "Cache evictions",
+          "The number of rows removed from a full cache or because they expired",
+          "112",
+          true);
+  public static final IEngineMetric METRIC_CACHE_SIZE =
+      new EngineMetric("cache_size", "Cache rows", "The number of rows in the cache", "113", true);
+
+  private final ReentrantLock lookupLock = new ReentrantLock();
+  private final ReentrantLock cancelLock = new ReentrantLock();
+
   public DatabaseLookup(
       TransformMeta transformMeta,
       DatabaseLookupMeta meta,
@@ -67,56 +104,49 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
    * @throws HopException In case something goes wrong.
    */
   @VisibleForTesting
-  synchronized Object[] lookupValues(IRowMeta inputRowMeta, Object[] row) throws HopException {
-    Object[] outputRow = RowDataUtil.resizeArray(row, data.outputRowMeta.size());
-
-    Object[] lookupRow = new Object[data.lookupMeta.size()];
-    int lookupIndex = 0;
+  Object[] lookupValues(IRowMeta inputRowMeta, Object[] row) throws HopException {
+    // Not a monitor: a virtual thread waiting on the database in there would pin its carrier
+    //
+    lookupLock.lock();
+    try {
+      return lookupRowValues(inputRowMeta, row);
+    } finally {
+      lookupLock.unlock();
+    }
+  }
 
-    for (int i = 0; i < meta.getLookup().getKeyFields().size(); i++) {
-      if (data.keynrs[i] >= 0) {
-        IValueMeta input = inputRowMeta.getValueMeta(data.keynrs[i]);
-        IValueMeta value = data.lookupMeta.getValueMeta(lookupIndex);
-        lookupRow[lookupIndex] = row[data.keynrs[i]];
+  private Object[] lookupRowValues(IRowMeta inputRowMeta, Object[] row) throws HopException {
+    Object[] outputRow = RowDataUtil.resizeArray(row, data.outputRowMeta.size());
 
-        // Try to convert type if needed
-        if (input.getType() != value.getType()
-            || IValueMeta.STORAGE_TYPE_BINARY_STRING == input.getStorageType()) {
-          lookupRow[lookupIndex] = value.convertData(input, lookupRow[lookupIndex]);
-          value.setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
-        }
-        lookupIndex++;
-      }
-      if (data.keynrs2[i] >= 0) {
-        IValueMeta input = inputRowMeta.getValueMeta(data.keynrs2[i]);
-        IValueMeta value = data.lookupMeta.getValueMeta(lookupIndex);
-        lookupRow[lookupIndex] = row[data.keynrs2[i]];
-
-        // Try to convert type if needed
-        if (input.getType() != value.getType()
-            || IValueMeta.STORAGE_TYPE_BINARY_STRING == input.getStorageType()) {
-          lookupRow[lookupIndex] = value.convertData(input, lookupRow[lookupIndex]);
-          value.setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
-        }
-        lookupIndex++;
-      }
-    }
+    Object[] lookupRow = getLookupRow(inputRowMeta, row);
 
     Object[] add;
     boolean cacheNow = false;
     boolean cacheHit = false;
+    boolean batchHit = false;
 
     // First, check if we looked up before
     if (meta.isCached()) {
       add = data.cache.getRowFromCache(data.lookupMeta, lookupRow);
+      if (add == null && data.batchCacheHits != null) {
+        // The row was cached when the batch was looked up, it can be evicted since
+        //
+        add = data.batchCacheHits.get(CacheKey.of(lookupRow));
+      }
       if (add != null) {
         cacheHit = true;
+        data.cacheHits++;
+        if (add == DatabaseLookupData.ICache.NOT_FOUND) {
+          add = null;
+        }
+      } else {
+        data.cacheMisses++;
       }
     } else {
       add = null;
     }
 
-    if (add == null) {
+    if (add == null && !cacheHit) {
       if (!(meta.isCached() && meta.isLoadingAllDataInCache())
           || data.hasDBCondition) { // do not go to the
         // database when all rows
@@ -130,9 +160,37 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
                   + data.lookupMeta.getString(lookupRow));
         }
 
-        data.db.setValuesLookup(data.lookupMeta, lookupRow);
-        add = data.db.getLookup(meta.getLookup().isFailingOnMultipleResults());
-        cacheNow = true;
+        if (data.batchResults != null) {
+          // The rows of the whole batch were looked up at once
+          //
+          add = data.batchResults.get(CacheKey.of(lookupRow));
+          if (add == DatabaseLookupData.ICache.NOT_FOUND) {
+            add = null;
+            batchHit = true;
+          } else if (add != null) {
+            add = add.clone(); // the same key can be in the batch more than once
+            batchHit = true;
+          }
+        }
+        if (add == null && !batchHit) {
+          // Keys which the batch couldn't decide on are looked up on their own: the database can
+          // compare differently, ignoring case or trailing spaces for example
+          //
+          data.db.setValuesLookup(data.lookupMeta, lookupRow);
+          add = data.db.getLookup(meta.getLookup().isFailingOnMultipleResults());
+        }
+        cacheNow = add != null;
+
+        // Optionally remember that a key isn't in the table to avoid looking it up again
+        //
+        if (add == null
+            && meta.isCached()
+            && meta.isCachingNotFound()
+            && !meta.isLoadingAllDataInCache()
+            && data.allEquals) {
+          data.cache.storeRowInCache(
+              meta, data.lookupMeta, lookupRow, DatabaseLookupData.ICache.NOT_FOUND);
+        }
       }
     }
 
@@ -166,7 +224,10 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
                 + Arrays.toString(add));
       }
 
-      // Trim the fields if required
+      // Trim the fields if required, never in the cached row which can be shared
+      if (cacheHit && !data.trimIndexes.isEmpty()) {
+        add = add.clone();
+      }
       for (int i : data.trimIndexes) {
         IValueMeta expected = data.returnMeta.getValueMeta(i);
         add[i] =
@@ -184,8 +245,10 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
         // that should not be a problem.
         //
         int[] types = data.returnValueTypes;
+        IRowMeta returnedMeta =
+            batchHit ? data.db.getBatchLookupRowMeta() : data.db.getReturnRowMeta();
         for (int i = 0; i < types.length; i++) {
-          IValueMeta returned = data.db.getReturnRowMeta().getValueMeta(i);
+          IValueMeta returned = returnedMeta.getValueMeta(i);
           IValueMeta expected = data.returnMeta.getValueMeta(i);
 
           if (returned != null && types[i] > 0 && types[i] != returned.getType()) {
@@ -210,6 +273,49 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
     return outputRow;
   }
 
+  /**
+   * Get the values to look up from an input row, converted to the data types of the table.
+   *
+   * @param inputRowMeta The metadata of the input row
+   * @param row The input row
+   * @return The values to look up
+   * @throws HopException In case a value couldn't be converted
+   */
+  private Object[] getLookupRow(IRowMeta inputRowMeta, Object[] row) throws HopException {
+    Object[] lookupRow = new Object[data.lookupMeta.size()];
+    int lookupIndex = 0;
+
+    for (int i = 0; i < meta.getLookup().getKeyFields().size(); i++) {
+      if (data.keynrs[i] >= 0) {
+        IValueMeta input = inputRowMeta.getValueMeta(data.keynrs[i]);
+        IValueMeta value = data.lookupMeta.getValueMeta(lookupIndex);
+        lookupRow[lookupIndex] = row[data.keynrs[i]];
+
+        // Try to convert type if needed
+        if (input.getType() != value.getType()
+            || IValueMeta.STORAGE_TYPE_BINARY_STRING == input.getStorageType()) {
+          lookupRow[lookupIndex] = value.convertData(input, lookupRow[lookupIndex]);
+          value.setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
+        }
+        lookupIndex++;
+      }
+      if (data.keynrs2[i] >= 0) {
+        IValueMeta input = inputRowMeta.getValueMeta(data.keynrs2[i]);
+        IValueMeta value = data.lookupMeta.getValueMeta(lookupIndex);
+        lookupRow[lookupIndex] = row[data.keynrs2[i]];
+
+        // Try to convert type if needed
+        if (input.getType() != value.getType()
+            || IValueMeta.STORAGE_TYPE_BINARY_STRING == input.getStorageType()) {
+          lookupRow[lookupIndex] = value.convertData(input, lookupRow[lookupIndex]);
+          value.setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
+        }
+        lookupIndex++;
+      }
+    }
+    return lookupRow;
+  }
+
   // visible for testing purposes
   void determineFieldsTypesQueryingDb() throws HopException {
     List<KeyField> keyFields = meta.getLookup().getKeyFields();
@@ -324,6 +430,9 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
   public boolean processRow() throws HopException {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if (r == null) { // no more input to be expected...
+      if (data.batchRows != null && !data.batchRows.isEmpty() && !lookupBatchAndPutRows()) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -416,7 +525,7 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       }
 
       if (meta.isCached()) {
-        data.cache = DefaultCache.newCache(data, meta.getCacheSize());
+        data.cache = DefaultCache.newCache(data, meta);
       }
 
       determineFieldsTypesQueryingDb();
@@ -441,10 +550,225 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       // If the user selected to load all data into the cache at startup, that's what we do now...
       //
       if (meta.isCached() && meta.isLoadingAllDataInCache()) {
-        loadAllTableDataIntoTheCache();
+        if (meta.isSharingCache()) {
+          attachToSharedCache();
+        } else {
+          loadAllTableDataIntoTheCache();
+        }
+      }
+
+      // Look up the keys of many rows with a single query if we can
+      //
+      if (meta.getLookupBatchSize() > 1 && !(meta.isCached() && meta.isLoadingAllDataInCache())) {
+        if (isBatchLookupPossible()) {
+          data.db.setBatchLookup(
+              resolve(meta.getSchemaName()),
+              resolve(meta.getTableName()),
+              keyField,
+              returnField,
+              returnRename,
+              lookup.getOrderByClause(),
+              meta.getLookupBatchSize());
+          data.batchRows = new ArrayList<>(meta.getLookupBatchSize());
+          data.batchResults = new HashMap<>();
+          data.batchCacheHits = new HashMap<>();
+        } else {
+          logBasic(BaseMessages.getString(PKG, "DatabaseLookup.Log.BatchLookupNotPossible"));
+        }
+      }
+    }
+
+    if (data.batchRows != null) {
+      data.batchRows.add(r);
+      if (data.batchRows.size() < meta.getLookupBatchSize()) {
+        return true;
+      }
+      return lookupBatchAndPutRows();
+    }
+
+    return lookupAndPutRow(r);
+  }
+
+  /** A batch lookup can only compare all the keys with "=" */
+  private boolean isBatchLookupPossible() {
+    if (data.conditions == null || data.conditions.length == 0) {
+      return false;
+    }
+    for (int condition : data.conditions) {
+      if (condition != DatabaseLookupMeta.CONDITION_EQ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Look up the buffered rows with a single query and pass them on in their original order.
+   *
+   * @return false if the transform needs to stop because of an error
+   */
+  private boolean lookupBatchAndPutRows() throws HopException {
+    try {
+      try {
+        lookupBatch(getInputRowMeta(), data.batchRows);
+      } catch (HopException e) {
+        if (!getTransformMeta().isDoingErrorHandling()) {
+          logError(
+              BaseMessages.getString(PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing")
+                  + e.getMessage());
+          setErrors(1);
+          stopAll();
+          setOutputDone(); // signal end to receiver(s)
+          return false;
+        }
+        for (Object[] row : data.batchRows) {
+          putError(getInputRowMeta(), row, 1, e.getMessage(), null, "DBLOOKUPD001");
+        }
+        return true;
+      }
+
+      for (Object[] row : data.batchRows) {
+        if (!lookupAndPutRow(row)) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      data.batchRows.clear();
+      data.batchResults.clear();
+      data.batchCacheHits.clear();
+    }
+  }
+
+  /**
+   * Look up the keys of a batch of input rows which are not in the cache with a single query. The
+   * rows found are kept in {@link DatabaseLookupData#batchResults} by key, the cached rows in
+   * {@link DatabaseLookupData#batchCacheHits}.
+   *
+   * @param inputRowMeta The metadata of the input rows
+   * @param rows The input rows
+   * @throws HopException In case the lookup failed
+   */
+  @VisibleForTesting
+  void lookupBatch(IRowMeta inputRowMeta, List<Object[]> rows) throws HopException {
+    data.batchResults.clear();
+    data.batchCacheHits.clear();
+
+    // Every key is only looked up once
+    //
+    Map<Object, Object[]> keys = new LinkedHashMap<>();
+    for (Object[] row : rows) {
+      Object[] lookupRow = getLookupRow(inputRowMeta, row);
+      if (meta.isCached()) {
+        Object[] cached = data.cache.getRowFromCache(data.lookupMeta, lookupRow);
+        if (cached != null) {
+          // Keep it in case it's evicted while the found rows of the batch are cached
+          //
+          data.batchCacheHits.put(CacheKey.of(lookupRow), cached);
+          continue;
+        }
       }
+      keys.putIfAbsent(CacheKey.of(lookupRow), lookupRow);
+    }
+    if (keys.isEmpty()) {
+      return;
+    }
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG, "DatabaseLookup.Log.LookingUpBatch", keys.size(), rows.size()));
     }
 
+    List<Object[]> found = data.db.getBatchLookup(data.lookupMeta, new ArrayList<>(keys.values()));
+    IRowMeta foundMeta = data.db.getBatchLookupRowMeta();
+    int nrReturned = data.returnMeta.size();
+    List<Object[]> foundKeys = new ArrayList<>();
+    List<Object[]> foundValues = new ArrayList<>();
+    for (Object[] foundRow : found) {
+      // The key fields are returned after the return fields
+      //
+      Object[] keyValues = new Object[data.lookupMeta.size()];
+      for (int i = 0; i < keyValues.length; i++) {
+        IValueMeta keyMeta = data.lookupMeta.getValueMeta(i);
+        IValueMeta foundKeyMeta = foundMeta.getValueMeta(nrReturned + i);
+        keyValues[i] = foundRow[nrReturned + i];
+        if (keyMeta.getType() != foundKeyMeta.getType()) {
+          keyValues[i] = keyMeta.convertData(foundKeyMeta, keyValues[i]);
+        }
+      }
+      Object key = CacheKey.of(keyValues);
+      if (data.batchResults.containsKey(key)) {
+        if (meta.getLookup().isFailingOnMultipleResults()) {
+          throw new HopDatabaseException(
+              "Only 1 row was expected as a result of a lookup, and at least 2 were found!");
+        }
+        continue; // Like a single lookup we keep the first row in the requested order
+      }
+      Object[] foundValue = Arrays.copyOf(foundRow, nrReturned);
+      data.batchResults.put(key, foundValue);
+      foundKeys.add(keyValues);
+      foundValues.add(foundValue);
+    }
+
+    // Keys without a row with the very same values are matched the way the key fields compare,
+    // with their trimming and case sensitivity. The keys which still don't match are not in the
+    // table, unless a row only differs in case or trailing spaces: the database can compare
+    // those differently, with CHAR padding for example, so these keys are looked up on their own.
+    //
+    for (Map.Entry<Object, Object[]> entry : keys.entrySet()) {
+      if (data.batchResults.containsKey(entry.getKey())) {
+        continue;
+      }
+      Object[] match = null;
+      boolean ambiguous = false;
+      for (int f = 0; f < foundKeys.size() && match == null; f++) {
+        if (keysCompareEqual(entry.getValue(), foundKeys.get(f))) {
+          match = foundValues.get(f);
+        } else if (keysDifferInCaseOrPadding(entry.getValue(), foundKeys.get(f))) {
+          ambiguous = true;
+        }
+      }
+      if (match != null) {
+        data.batchResults.put(entry.getKey(), match);
+      } else if (!ambiguous) {
+        data.batchResults.put(entry.getKey(), DatabaseLookupData.ICache.NOT_FOUND);
+      }
+    }
+  }
+
+  private boolean keysCompareEqual(Object[] lookupRow, Object[] foundKey)
+      throws HopValueException {
+    for (int i = 0; i < lookupRow.length; i++) {
+      if (data.lookupMeta.getValueMeta(i).compare(lookupRow[i], foundKey[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean keysDifferInCaseOrPadding(Object[] lookupRow, Object[] foundKey)
+      throws HopValueException {
+    for (int i = 0; i < lookupRow.length; i++) {
+      if (data.lookupMeta.getValueMeta(i).compare(lookupRow[i], foundKey[i]) == 0) {
+        continue;
+      }
+      if (!(lookupRow[i] instanceof String) || !(foundKey[i] instanceof String)) {
+        return false;
+      }
+      String trimmed = Const.rtrim((String) lookupRow[i]);
+      if (!trimmed.equalsIgnoreCase(Const.rtrim((String) foundKey[i]))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Look up the values of one input row and pass the result on.
+   *
+   * @return false if the transform needs to stop because of an error
+   */
+  private boolean lookupAndPutRow(Object[] r) throws HopException {
     if (log.isRowLevel()) {
       logRowlevel(
           BaseMessages.getString(PKG, "DatabaseLookup.Log.GotRowFromPreviousTransform")
@@ -485,50 +809,113 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
     return true;
   }
 
-  private void loadAllTableDataIntoTheCache() throws HopException {
+  /**
+   * Attach to the data of this lookup in the shared cache. The first copy to get there loads all
+   * the table data, the other copies and later executions reuse it until it expires.
+   */
+  private void attachToSharedCache() throws HopException {
     DatabaseMeta dbMeta = getPipelineMeta().findDatabase(meta.getConnection(), variables);
 
-    Database db = getDatabase(dbMeta);
-    connectDatabase(db);
+    // The name describes the cached data completely: where it comes from and how it's indexed
+    //
+    String name =
+        DatabaseLookupMeta.class.getSimpleName()
+            + "|"
+            + dbMeta.getName()
+            + "|"
+            + dbMeta.getURL(this)
+            + "|"
+            + getLoadAllSql(dbMeta)
+            + "|"
+            + Arrays.toString(data.conditions);
+    long timeToLive = TimeUnit.SECONDS.toMillis(meta.getCacheTimeToLive());
+
+    data.sharedCache =
+        SharedCacheManager.getInstance()
+            .getOrLoad(
+                name,
+                timeToLive,
+                new ISharedCacheLoader<DatabaseLookupData.ICache>() {
+                  private long size;
+
+                  @Override
+                  public DatabaseLookupData.ICache load() throws HopException {
+                    size = loadAllTableDataIntoTheCache();
+                    return data.cache;
+                  }
+
+                  @Override
+                  public long estimateSize(DatabaseLookupData.ICache cache) {
+                    return size;
+                  }
+                });
+    data.cache = data.sharedCache.getValue();
+
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "DatabaseLookup.Log.AttachedToSharedCache",
+              Long.toString(data.sharedCache.getSize() / 1024)));
+    }
+  }
 
+  /** Build the query which reads the used fields of all the rows of the lookup table */
+  private String getLoadAllSql(DatabaseMeta dbMeta) {
     Lookup lookup = meta.getLookup();
 
-    try {
-      // We only want to get the used table fields...
-      //
-      String sql = "SELECT ";
-      List<KeyField> keyFields = lookup.getKeyFields();
+    // We only want to get the used table fields...
+    //
+    String sql = "SELECT ";
+    List<KeyField> keyFields = lookup.getKeyFields();
 
-      for (int i = 0; i < keyFields.size(); i++) {
-        KeyField keyField = keyFields.get(i);
+    for (int i = 0; i < keyFields.size(); i++) {
+      KeyField keyField = keyFields.get(i);
 
-        if (i > 0) {
-          sql += ", ";
-        }
-        sql += dbMeta.quoteField(keyField.getTableField());
+      if (i > 0) {
+        sql += ", ";
       }
+      sql += dbMeta.quoteField(keyField.getTableField());
+    }
 
-      // Also grab the return field...
-      //
-      List<ReturnValue> returnValues = lookup.getReturnValues();
-      for (int i = 0; i < returnValues.size(); i++) {
-        ReturnValue returnValue = returnValues.get(i);
-        sql += ", " + dbMeta.quoteField(returnValue.getTableField());
-      }
-      // The schema/table
-      //
-      sql +=
-          " FROM "
-              + dbMeta.getQuotedSchemaTableCombination(
-                  this, meta.getSchemaName(), meta.getTableName());
+    // Also grab the return field...
+    //
+    List<ReturnValue> returnValues = lookup.getReturnValues();
+    for (int i = 0; i < returnValues.size(); i++) {
+      ReturnValue returnValue = returnValues.get(i);
+      sql += ", " + dbMeta.quoteField(returnValue.getTableField());
+    }
+    // The schema/table
+    //
+    sql +=
+        " FROM "
+            + dbMeta.getQuotedSchemaTableCombination(
+                this, meta.getSchemaName(), meta.getTableName());
+
+    // order by?
+    if (StringUtils.isNotEmpty(lookup.getOrderByClause())) {
+      sql += " ORDER BY " + lookup.getOrderByClause();
+    }
+    return sql;
+  }
 
-      // order by?
-      if (StringUtils.isNotEmpty(lookup.getOrderByClause())) {
-        sql += " ORDER BY " + lookup.getOrderByClause();
-      }
+  /**
+   * Load all the table data into the cache.
+   *
+   * @return The estimated number of bytes the loaded rows take on the heap
+   */
+  private long loadAllTableDataIntoTheCache() throws HopException {
+    DatabaseMeta dbMeta = getPipelineMeta().findDatabase(meta.getConnection(), variables);
+
+    Database db = getDatabase(dbMeta);
+    connectDatabase(db);
+
+    try {
+      String sql = getLoadAllSql(dbMeta);
 
       // Now that we have the SQL constructed, let's store the rows...
       //
+      long size = 0;
       List<Object[]> rows = db.getRows(sql, 0);
       if (rows != null && !rows.isEmpty()) {
         if (data.allEquals) {
@@ -536,7 +923,12 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
         } else {
           putToReadOnlyCache(db, rows);
         }
+        IRowMeta rowMeta = db.getReturnRowMeta();
+        for (Object[] row : rows) {
+          size += RowSizeEstimator.estimateRowSize(rowMeta, row);
+        }
       }
+      return size;
     } catch (Exception e) {
       throw new HopException(e);
     } finally {
@@ -548,15 +940,16 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
 
   private void putToDefaultCache(Database db, List<Object[]> rows) {
     final int keysAmount = meta.getLookup().getKeyFields().size();
-    IRowMeta prototype = copyValueMetasFrom(db.getReturnRowMeta(), keysAmount);
+    IRowMeta keyMeta = copyValueMetasFrom(db.getReturnRowMeta(), keysAmount);
+
+    // Shared rows are read by many copies at the same time: keep them in a read-only map
+    //
+    Map<Object, Object[]> sharedRows = meta.isSharingCache() ? new HashMap<>() : null;
 
     // Copy the data into 2 parts: key and value...
     //
     for (Object[] row : rows) {
       int index = 0;
-      // not sure it is efficient to re-create the same on every row,
-      // but this was done earlier, so I'm keeping this behaviour
-      IRowMeta keyMeta = prototype.clone();
       Object[] keyData = new Object[keysAmount];
       for (int i = 0; i < keysAmount; i++) {
         keyData[i] = row[index++];
@@ -567,16 +960,23 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       }
       // Store the data...
       //
-      data.cache.storeRowInCache(meta, keyMeta, keyData, valueData);
+      if (sharedRows != null) {
+        sharedRows.put(CacheKey.of(keyData), valueData);
+      } else {
+        data.cache.storeRowInCache(meta, keyMeta, keyData, valueData);
+      }
       incrementLinesInput();
     }
+    if (sharedRows != null) {
+      data.cache = new SharedRowsCache(sharedRows);
+    }
   }
 
   private IRowMeta copyValueMetasFrom(IRowMeta source, int n) {
     RowMeta result = new RowMeta();
     for (int i = 0; i < n; i++) {
       // don't need cloning here,
-      // because value metas will be cloned during iterating through rows
+      // because the cache only uses the value metas to compare keys
       result.addValueMeta(source.getValueMeta(i));
     }
     return result;
@@ -607,18 +1007,46 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
     data.cache = cacheBuilder.build();
   }
 
+  @Override
+  public Map<IEngineMetric, Long> getComponentMetrics() {
+    DatabaseLookupData.ICache cache = data.cache;
+    if (!meta.isCached() || cache == null) {
+      return Collections.emptyMap();
+    }
+    Map<IEngineMetric, Long> metrics = new HashMap<>();
+    metrics.put(METRIC_CACHE_HITS, data.cacheHits);
+    metrics.put(METRIC_CACHE_MISSES, data.cacheMisses);
+    if (cache instanceof DefaultCache) {
+      BoundedCache<Object, Object[]> rows = ((DefaultCache) cache).getCache();
+      metrics.put(METRIC_CACHE_EVICTIONS, rows.getEvictions() + rows.getExpirations());
+      metrics.put(METRIC_CACHE_SIZE, (long) rows.size());
+    } else if (cache instanceof SharedRowsCache) {
+      metrics.put(METRIC_CACHE_SIZE, (long) ((SharedRowsCache) cache).size());
+    }
+    return metrics;
+  }
+
   /** Stop the running query */
   @Override
   public void stopRunning() throws HopException {
 
     if (data.db != null && !data.isCanceled) {
-      synchronized (data.db) {
+      cancelLock.lock();
+      try {
         data.db.cancelQuery();
+      } finally {
+        cancelLock.unlock();
       }
       data.isCanceled = true;
     }
   }
 
+  /** The lookups wait on the database */
+  @Override
+  public boolean isBlockingProcessRow() {
+    return true;
+  }
+
   @Override
   public boolean init() {
 
@@ -676,9 +1104,26 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       data.db.disconnect();
     }
 
+    if (data.sharedCache != null) {
+      data.sharedCache.recordLookups(data.cacheHits, data.cacheMisses);
+      if (log.isDetailed()) {
+        SharedCacheEntry<DatabaseLookupData.ICache> entry = data.sharedCache;
+        logDetailed(
+            BaseMessages.getString(
+                PKG,
+                "DatabaseLookup.Log.SharedCacheStatistics",
+                Long.toString(data.cacheHits),
+                Long.toString(data.cacheMisses),
+                String.format("%.1f", entry.getHitRatio() * 100),
+                Long.toString(entry.getNrAttached()),
+                Long.toString(entry.getSize() / 1024)));
+      }
+    }
+
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
     data.cache = null;
+    data.sharedCache = null;
     data.db = null;
 
     super.dispose();
@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.databaselookup;
 
+import org.apache.hop.core.cache.SharedCacheEntry;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
@@ -24,9 +25,13 @@ import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
 import java.util.List;
+import java.util.Map;
 
 public class DatabaseLookupData extends BaseTransformData implements ITransformData {
   public ICache cache;
+  public SharedCacheEntry<ICache> sharedCache;
+  public long cacheHits;
+  public long cacheMisses;
   public Database db;
 
   public Object[] nullif; // Not found: default values...
@@ -44,6 +49,9 @@ public class DatabaseLookupData extends BaseTransformData implements ITransformD
   public int[] returnValueTypes;
   public String[] returnTrimTypes;
   public List<Integer> trimIndexes;
+  public List<Object[]> batchRows; // Input rows waiting to be looked up in a batch
+  public Map<Object, Object[]> batchResults; // The rows found for the keys of the current batch
+  public Map<Object, Object[]> batchCacheHits; // The cached rows of the current batch
 
   public DatabaseLookupData() {
     super();
@@ -53,9 +61,12 @@ public class DatabaseLookupData extends BaseTransformData implements ITransformD
 
   /** ICache for {@code DatabaseLookup} transform. */
   public interface ICache {
+    /** The cached result of a lookup which didn't find a row in the database */
+    Object[] NOT_FOUND = new Object[0];
+
     /**
      * Returns the very first data row that matches all conditions or {@code null} if none has been
-     * found. Note, cache should keep the order in which elements were put into it.
+     * found. Returns {@link #NOT_FOUND} if the cache knows that the database has no matching row.
      *
      * @param lookupMeta meta object for dealing with {@code lookupRow}
      * @param lookupRow tuple containing values for comparison
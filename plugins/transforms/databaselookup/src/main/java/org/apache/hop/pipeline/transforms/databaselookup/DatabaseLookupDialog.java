@@ -43,6 +43,7 @@ import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.apache.hop.ui.pipeline.transform.ITableItemInsertListener;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CCombo;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
@@ -66,6 +67,20 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
   private Label wlCacheLoadAll;
   private Button wCacheLoadAll;
 
+  private Label wlCacheShared;
+  private Button wCacheShared;
+
+  private Label wlCacheTimeToLive;
+  private Label wlCacheNotFound;
+  private Button wCacheNotFound;
+  private Text wCacheTimeToLive;
+
+  private Label wlCacheEvictionPolicy;
+  private CCombo wCacheEvictionPolicy;
+
+  private Label wlLookupBatchSize;
+  private Text wLookupBatchSize;
+
   private Label wlCachesize;
   private Text wCachesize;
 
@@ -284,12 +299,126 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
           }
         });
 
+    // ICache : Share the loaded data?
+    wlCacheShared = new Label(shell, SWT.RIGHT);
+    wlCacheShared.setText(BaseMessages.getString(PKG, "DatabaseLookupDialog.CacheShared.Label"));
+    wlCacheShared.setToolTipText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.CacheShared.ToolTip"));
+    props.setLook(wlCacheShared);
+    FormData fdlCacheShared = new FormData();
+    fdlCacheShared.left = new FormAttachment(0, 0);
+    fdlCacheShared.right = new FormAttachment(middle, -margin);
+    fdlCacheShared.top = new FormAttachment(wCacheLoadAll, margin);
+    wlCacheShared.setLayoutData(fdlCacheShared);
+    wCacheShared = new Button(shell, SWT.CHECK);
+    props.setLook(wCacheShared);
+    FormData fdCacheShared = new FormData();
+    fdCacheShared.left = new FormAttachment(middle, 0);
+    fdCacheShared.top = new FormAttachment(wlCacheShared, 0, SWT.CENTER);
+    wCacheShared.setLayoutData(fdCacheShared);
+    wCacheShared.addSelectionListener(
+        new SelectionAdapter() {
+          @Override
+          public void widgetSelected(SelectionEvent e) {
+            input.setChanged();
+            enableFields();
+          }
+        });
+
+    // ICache : Time to live of the shared data
+    wlCacheTimeToLive = new Label(shell, SWT.RIGHT);
+    wlCacheTimeToLive.setText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.CacheTimeToLive.Label"));
+    props.setLook(wlCacheTimeToLive);
+    FormData fdlCacheTimeToLive = new FormData();
+    fdlCacheTimeToLive.left = new FormAttachment(0, 0);
+    fdlCacheTimeToLive.right = new FormAttachment(middle, -margin);
+    fdlCacheTimeToLive.top = new FormAttachment(wCacheShared, margin);
+    wlCacheTimeToLive.setLayoutData(fdlCacheTimeToLive);
+    wCacheTimeToLive = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wCacheTimeToLive);
+    wCacheTimeToLive.addModifyListener(lsMod);
+    FormData fdCacheTimeToLive = new FormData();
+    fdCacheTimeToLive.left = new FormAttachment(middle, 0);
+    fdCacheTimeToLive.right = new FormAttachment(100, 0);
+    fdCacheTimeToLive.top = new FormAttachment(wCacheShared, margin);
+    wCacheTimeToLive.setLayoutData(fdCacheTimeToLive);
+
+    // ICache : Which rows to remove when the cache is full
+    wlCacheEvictionPolicy = new Label(shell, SWT.RIGHT);
+    wlCacheEvictionPolicy.setText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.CacheEvictionPolicy.Label"));
+    wlCacheEvictionPolicy.setToolTipText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.CacheEvictionPolicy.ToolTip"));
+    props.setLook(wlCacheEvictionPolicy);
+    FormData fdlCacheEvictionPolicy = new FormData();
+    fdlCacheEvictionPolicy.left = new FormAttachment(0, 0);
+    fdlCacheEvictionPolicy.right = new FormAttachment(middle, -margin);
+    fdlCacheEvictionPolicy.top = new FormAttachment(wCacheTimeToLive, margin);
+    wlCacheEvictionPolicy.setLayoutData(fdlCacheEvictionPolicy);
+    wCacheEvictionPolicy = new CCombo(shell, SWT.SINGLE | SWT.READ_ONLY | SWT.BORDER);
+    wCacheEvictionPolicy.setItems(DatabaseLookupMeta.EvictionPolicy.getDescriptions());
+    props.setLook(wCacheEvictionPolicy);
+    wCacheEvictionPolicy.addModifyListener(lsMod);
+    FormData fdCacheEvictionPolicy = new FormData();
+    fdCacheEvictionPolicy.left = new FormAttachment(middle, 0);
+    fdCacheEvictionPolicy.right = new FormAttachment(100, 0);
+    fdCacheEvictionPolicy.top = new FormAttachment(wCacheTimeToLive, margin);
+    wCacheEvictionPolicy.setLayoutData(fdCacheEvictionPolicy);
+
+    // ICache : Also cache the keys which are not in the table?
+    wlCacheNotFound = new Label(shell, SWT.RIGHT);
+    wlCacheNotFound.setText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.CacheNotFound.Label"));
+    wlCacheNotFound.setToolTipText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.CacheNotFound.ToolTip"));
+    props.setLook(wlCacheNotFound);
+    FormData fdlCacheNotFound = new FormData();
+    fdlCacheNotFound.left = new FormAttachment(0, 0);
+    fdlCacheNotFound.right = new FormAttachment(middle, -margin);
+    fdlCacheNotFound.top = new FormAttachment(wCacheEvictionPolicy, margin);
+    wlCacheNotFound.setLayoutData(fdlCacheNotFound);
+    wCacheNotFound = new Button(shell, SWT.CHECK);
+    props.setLook(wCacheNotFound);
+    FormData fdCacheNotFound = new FormData();
+    fdCacheNotFound.left = new FormAttachment(middle, 0);
+    fdCacheNotFound.top = new FormAttachment(wlCacheNotFound, 0, SWT.CENTER);
+    wCacheNotFound.setLayoutData(fdCacheNotFound);
+    wCacheNotFound.addSelectionListener(
+        new SelectionAdapter() {
+          @Override
+          public void widgetSelected(SelectionEvent e) {
+            input.setChanged();
+          }
+        });
+
+    // Number of rows to look up with one query
+    wlLookupBatchSize = new Label(shell, SWT.RIGHT);
+    wlLookupBatchSize.setText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.LookupBatchSize.Label"));
+    wlLookupBatchSize.setToolTipText(
+        BaseMessages.getString(PKG, "DatabaseLookupDialog.LookupBatchSize.ToolTip"));
+    props.setLook(wlLookupBatchSize);
+    FormData fdlLookupBatchSize = new FormData();
+    fdlLookupBatchSize.left = new FormAttachment(0, 0);
+    fdlLookupBatchSize.right = new FormAttachment(middle, -margin);
+    fdlLookupBatchSize.top = new FormAttachment(wCacheNotFound, margin);
+    wlLookupBatchSize.setLayoutData(fdlLookupBatchSize);
+    wLookupBatchSize = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wLookupBatchSize);
+    wLookupBatchSize.addModifyListener(lsMod);
+    FormData fdLookupBatchSize = new FormData();
+    fdLookupBatchSize.left = new FormAttachment(middle, 0);
+    fdLookupBatchSize.right = new FormAttachment(100, 0);
+    fdLookupBatchSize.top = new FormAttachment(wCacheNotFound, margin);
+    wLookupBatchSize.setLayoutData(fdLookupBatchSize);
+
     Label wlKey = new Label(shell, SWT.NONE);
     wlKey.setText(BaseMessages.getString(PKG, "DatabaseLookupDialog.Keys.Label"));
     props.setLook(wlKey);
     FormData fdlKey = new FormData();
     fdlKey.left = new FormAttachment(0, 0);
-    fdlKey.top = new FormAttachment(wCacheLoadAll, margin);
+    fdlKey.top = new FormAttachment(wLookupBatchSize, margin);
     wlKey.setLayoutData(fdlKey);
 
     int nrKeyCols = 4;
@@ -594,6 +723,22 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     wlCachesize.setEnabled(wCache.getSelection() && !wCacheLoadAll.getSelection());
     wCacheLoadAll.setEnabled(wCache.getSelection());
     wlCacheLoadAll.setEnabled(wCache.getSelection());
+    boolean loadAll = wCache.getSelection() && wCacheLoadAll.getSelection();
+    wCacheShared.setEnabled(loadAll);
+    wlCacheShared.setEnabled(loadAll);
+    // The time to live applies to the shared data or to the individually cached rows
+    //
+    boolean timeToLive =
+        wCache.getSelection() && (!wCacheLoadAll.getSelection() || wCacheShared.getSelection());
+    wCacheTimeToLive.setEnabled(timeToLive);
+    wlCacheTimeToLive.setEnabled(timeToLive);
+    boolean bounded = wCache.getSelection() && !wCacheLoadAll.getSelection();
+    wCacheEvictionPolicy.setEnabled(bounded);
+    wlCacheEvictionPolicy.setEnabled(bounded);
+    wCacheNotFound.setEnabled(bounded);
+    wlCacheNotFound.setEnabled(bounded);
+    wLookupBatchSize.setEnabled(!loadAll);
+    wlLookupBatchSize.setEnabled(!loadAll);
     wFailMultiple.setEnabled(!wCache.getSelection());
     wlFailMultiple.setEnabled(!wCache.getSelection());
   }
@@ -605,6 +750,13 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     wCache.setSelection(input.isCached());
     wCachesize.setText("" + input.getCacheSize());
     wCacheLoadAll.setSelection(input.isLoadingAllDataInCache());
+    wCacheShared.setSelection(input.isSharingCache());
+    wCacheTimeToLive.setText("" + input.getCacheTimeToLive());
+    wCacheNotFound.setSelection(input.isCachingNotFound());
+    if (input.getCacheEvictionPolicy() != null) {
+      wCacheEvictionPolicy.setText(input.getCacheEvictionPolicy().getDescription());
+    }
+    wLookupBatchSize.setText("" + input.getLookupBatchSize());
 
     Lookup lookup = input.getLookup();
 
@@ -668,6 +820,13 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     input.setCached(wCache.getSelection());
     input.setCacheSize(Const.toInt(wCachesize.getText(), 0));
     input.setLoadingAllDataInCache(wCacheLoadAll.getSelection());
+    input.setSharingCache(wCacheShared.getSelection());
+    input.setCacheTimeToLive(Const.toInt(wCacheTimeToLive.getText(), 0));
+    input.setCachingNotFound(wCacheNotFound.getSelection());
+    input.setCacheEvictionPolicy(
+        DatabaseLookupMeta.EvictionPolicy.getPolicyFromDescription(
+            wCacheEvictionPolicy.getText()));
+    input.setLookupBatchSize(Const.toInt(wLookupBatchSize.getText(), 0));
 
     for (TableItem item : wKey.getNonEmptyItems()) {
       KeyField keyField = new KeyField();
@@ -23,6 +23,7 @@ import org.apache.hop.core.Const;
 import org.apache.hop.core.ICheckResult;
 import org.apache.hop.core.IProvidesModelerMeta;
 import org.apache.hop.core.annotations.Transform;
+import org.apache.hop.core.cache.CacheEvictionPolicy;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.exception.HopDatabaseException;
@@ -36,6 +37,7 @@ import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.metadata.api.HopMetadataProperty;
+import org.apache.hop.metadata.api.IEnumHasCode;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
 import org.apache.hop.pipeline.DatabaseImpact;
 import org.apache.hop.pipeline.PipelineMeta;
@@ -77,6 +79,73 @@ public class DatabaseLookupMeta extends BaseTransformMeta<DatabaseLookup, Databa
   public static final int CONDITION_IS_NULL = 8;
   public static final int CONDITION_IS_NOT_NULL = 9;
 
+  public enum EvictionPolicy implements IEnumHasCode {
+    LRU(
+        "LRU",
+        BaseMessages.getString(PKG, "DatabaseLookupMeta.EvictionPolicy.LRU"),
+        CacheEvictionPolicy.LRU),
+    TINY_LFU(
+        "TINY_LFU",
+        BaseMessages.getString(PKG, "DatabaseLookupMeta.EvictionPolicy.TinyLFU"),
+        CacheEvictionPolicy.TINY_LFU),
+    ;
+
+    private String code;
+    private String description;
+    private CacheEvictionPolicy policy;
+
+    EvictionPolicy(String code, String description, CacheEvictionPolicy policy) {
+      this.code = code;
+      this.description = description;
+      this.policy = policy;
+    }
+
+    public static final EvictionPolicy getPolicyFromDescription(String description) {
+      for (EvictionPolicy policy : values()) {
+        if (policy.description.equals(description)) {
+          return policy;
+        }
+      }
+      return LRU;
+    }
+
+    public static final String[] getDescriptions() {
+      String[] descriptions = new String[values().length];
+      for (int i = 0; i < values().length; i++) {
+        descriptions[i] = values()[i].description;
+      }
+      return descriptions;
+    }
+
+    /**
+     * Gets code
+     *
+     * @return value of code
+     */
+    @Override
+    public String getCode() {
+      return code;
+    }
+
+    /**
+     * Gets description
+     *
+     * @return value of description
+     */
+    public String getDescription() {
+      return description;
+    }
+
+    /**
+     * Gets policy
+     *
+     * @return The eviction policy of the cache
+     */
+    public CacheEvictionPolicy getPolicy() {
+      return policy;
+    }
+  }
+
   /** database connection */
   @HopMetadataProperty(injectionKeyDescription = "DatabaseLookupMeta.Injection.Connection")
   private String connection;
@@ -93,23 +162,69 @@ public class DatabaseLookupMeta extends BaseTransformMeta<DatabaseLookup, Databa
       injectionKeyDescription = "DatabaseLookupMeta.Injection.CacheSize")
   private int cacheSize;
 
+  /** The way rows are evicted from the cache when it's full */
+  @HopMetadataProperty(
+      key = "cache_eviction_policy",
+      storeWithCode = true,
+      injectionKeyDescription = "DatabaseLookupMeta.Injection.CacheEvictionPolicy")
+  private EvictionPolicy cacheEvictionPolicy;
+
   /** Flag to make it load all data into the cache at startup */
   @HopMetadataProperty(
       key = "cache_load_all",
       injectionKeyDescription = "DatabaseLookupMeta.Injection.CacheLoadAll")
   private boolean loadingAllDataInCache;
 
+  /** Share the data loaded in the cache with other copies and later executions of this lookup */
+  @HopMetadataProperty(
+      key = "cache_shared",
+      injectionKeyDescription = "DatabaseLookupMeta.Injection.CacheShared")
+  private boolean sharingCache;
+
+  /**
+   * The number of seconds after which cached rows are looked up again, 0 means never. When all data
+   * is loaded in a shared cache, the number of seconds after which all the data is loaded again.
+   */
+  @HopMetadataProperty(
+      key = "cache_time_to_live",
+      injectionKeyDescription = "DatabaseLookupMeta.Injection.CacheTimeToLive")
+  private int cacheTimeToLive;
+
+  /**
+   * Also cache the keys which are not found in the table so that they are not looked up again.
+   * Only used when the keys are looked up one at a time or in batches, not when all data is loaded.
+   */
+  @HopMetadataProperty(
+      key = "cache_not_found",
+      injectionKeyDescription = "DatabaseLookupMeta.Injection.CacheNotFound")
+  private boolean cachingNotFound;
+
+  /**
+   * The number of input rows to buffer and look up with a single query, 0 or 1 means every row is
+   * looked up on its own. Only used when all the key conditions are "=".
+   */
+  @HopMetadataProperty(
+      key = "lookup_batch_size",
+      injectionKeyDescription = "DatabaseLookupMeta.Injection.LookupBatchSize")
+  private int lookupBatchSize;
+
   @HopMetadataProperty(key = "lookup")
   private Lookup lookup;
 
   public DatabaseLookupMeta() {
+    cacheEvictionPolicy = EvictionPolicy.LRU;
     lookup = new Lookup();
   }
 
   public DatabaseLookupMeta(DatabaseLookupMeta m) {
     this.cached = m.cached;
     this.cacheSize = m.cacheSize;
+    this.cacheEvictionPolicy = m.cacheEvictionPolicy;
     this.loadingAllDataInCache = m.loadingAllDataInCache;
+    this.sharingCache = m.sharingCache;
+    this.cacheTimeToLive = m.cacheTimeToLive;
+    this.cachingNotFound = m.cachingNotFound;
+    this.lookupBatchSize = m.lookupBatchSize;
     this.lookup = new Lookup(m.lookup);
   }
 
@@ -542,6 +657,22 @@ public class DatabaseLookupMeta extends BaseTransformMeta<DatabaseLookup, Databa
     this.cacheSize = cacheSize;
   }
 
+  /**
+   * Gets cacheEvictionPolicy
+   *
+   * @return value of cacheEvictionPolicy
+   */
+  public EvictionPolicy getCacheEvictionPolicy() {
+    return cacheEvictionPolicy;
+  }
+
+  /**
+   * @param cacheEvictionPolicy The cacheEvictionPolicy to set
+   */
+  public void setCacheEvictionPolicy(EvictionPolicy cacheEvictionPolicy) {
+    this.cacheEvictionPolicy = cacheEvictionPolicy;
+  }
+
   /**
    * Gets loadingAllDataInCache
    *
@@ -558,6 +689,70 @@ public class DatabaseLookupMeta extends BaseTransformMeta<DatabaseLookup, Databa
     this.loadingAllDataInCache = loadingAllDataInCache;
   }
 
+  /**
+   * Gets sharingCache
+   *
+   * @return value of sharingCache
+   */
+  public boolean isSharingCache() {
+    return sharingCache;
+  }
+
+  /**
+   * @param sharingCache The sharingCache to set
+   */
+  public void setSharingCache(boolean sharingCache) {
+    this.sharingCache = sharingCache;
+  }
+
+  /**
+   * Gets cacheTimeToLive
+   *
+   * @return value of cacheTimeToLive in seconds
+   */
+  public int getCacheTimeToLive() {
+    return cacheTimeToLive;
+  }
+
+  /**
+   * @param cacheTimeToLive The cacheTimeToLive to set in seconds
+   */
+  public void setCacheTimeToLive(int cacheTimeToLive) {
+    this.cacheTimeToLive = cacheTimeToLive;
+  }
+
+  /**
+   * Gets cachingNotFound
+   *
+   * @return value of cachingNotFound
+   */
+  public boolean isCachingNotFound() {
+    return cachingNotFound;
+  }
+
+  /**
+   * @param cachingNotFound The cachingNotFound to set
+   */
+  public void setCachingNotFound(boolean cachingNotFound) {
+    this.cachingNotFound = cachingNotFound;
+  }
+
+  /**
+   * Gets lookupBatchSize
+   *
+   * @return value of lookupBatchSize
+   */
+  public int getLookupBatchSize() {
+    return lookupBatchSize;
+  }
+
+  /**
+   * @param lookupBatchSize The lookupBatchSize to set
+   */
+  public void setLookupBatchSize(int lookupBatchSize) {
+    this.lookupBatchSize = lookupBatchSize;
+  }
+
   /**
    * Gets lookup
    *
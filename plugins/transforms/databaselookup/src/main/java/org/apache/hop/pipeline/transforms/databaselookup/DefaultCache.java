@@ -17,32 +17,50 @@
 
 package org.apache.hop.pipeline.transforms.databaselookup;
 
-import org.apache.hop.core.RowMetaAndData;
-import org.apache.hop.core.TimedRow;
+import org.apache.hop.core.cache.BoundedCache;
+import org.apache.hop.core.cache.CacheEvictionPolicy;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 
-import java.util.*;
+import java.util.concurrent.TimeUnit;
 
-/** Old code, copied from {@linkplain DatabaseLookup} */
+/**
+ * The cache of the {@linkplain DatabaseLookup} transform which remembers the result of every
+ * lookup, including the lookups which didn't find a row. The cache is bounded to the cache size of
+ * the transform and evicts rows with the selected eviction policy. When all the data of the table
+ * is loaded in the cache it's never bounded and the rows never expire.
+ *
+ * <p>The cache belongs to a single transform copy, it's not thread-safe. Loaded data which is
+ * shared with other copies is kept in a {@link SharedRowsCache}.
+ */
 public class DefaultCache implements DatabaseLookupData.ICache {
 
   public static DefaultCache newCache(DatabaseLookupData data, int cacheSize) {
-    if (cacheSize > 0) {
-      cacheSize = (int) (cacheSize * 1.5);
-    } else {
-      cacheSize = 16;
+    return new DefaultCache(data, BoundedCache.create(CacheEvictionPolicy.LRU, cacheSize, 0));
+  }
+
+  public static DefaultCache newCache(DatabaseLookupData data, DatabaseLookupMeta meta) {
+    if (meta.isLoadingAllDataInCache()) {
+      // We can't look up rows again which were evicted or expired
+      //
+      return new DefaultCache(data, BoundedCache.create(CacheEvictionPolicy.LRU, 0, 0));
     }
-    return new DefaultCache(data, cacheSize);
+    return new DefaultCache(
+        data,
+        BoundedCache.create(
+            meta.getCacheEvictionPolicy().getPolicy(),
+            meta.getCacheSize(),
+            TimeUnit.SECONDS.toMillis(meta.getCacheTimeToLive())));
   }
 
   private final DatabaseLookupData data;
-  private final LinkedHashMap<RowMetaAndData, TimedRow> map;
+  private final BoundedCache<Object, Object[]> cache;
+  private IRowMeta keyMeta;
 
-  DefaultCache(DatabaseLookupData data, int capacity) {
+  DefaultCache(DatabaseLookupData data, BoundedCache<Object, Object[]> cache) {
     this.data = data;
-    map = new LinkedHashMap<>(capacity);
+    this.cache = cache;
   }
 
   @Override
@@ -50,136 +68,108 @@ public class DefaultCache implements DatabaseLookupData.ICache {
     if (data.allEquals) {
       // only do the map lookup when all equals otherwise conditions >, <, <> will give wrong
       // results
-      TimedRow timedRow = map.get(new RowMetaAndData(data.lookupMeta, lookupRow));
-      if (timedRow != null) {
-        return timedRow.getRow();
-      }
-    } else { // special handling of conditions <,>, <> etc.
-      if (!data.hasDBCondition) { // e.g. LIKE not handled by this routine, yet
-        // TODO: find an alternative way to look up the data based on the condition.
-        // Not all conditions are "=" so we are going to have to evaluate row by row
-        // A sorted list or index might be a good solution here...
-        //
-        for (RowMetaAndData key : map.keySet()) {
-          // Now verify that the key is matching our conditions...
-          //
-          boolean match = true;
-          int lookupIndex = 0;
-          for (int i = 0; i < data.conditions.length && match; i++) {
-            IValueMeta cmpMeta = lookupMeta.getValueMeta(lookupIndex);
-            Object cmpData = lookupRow[lookupIndex];
-            IValueMeta keyMeta = key.getValueMeta(i);
-            Object keyData = key.getData()[i];
+      return cache.get(CacheKey.of(lookupRow));
+    }
+    if (data.hasDBCondition || keyMeta == null) { // e.g. LIKE not handled by this routine, yet
+      return null;
+    }
 
-            switch (data.conditions[i]) {
-              case DatabaseLookupMeta.CONDITION_EQ:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) == 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_NE:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) != 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_LT:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) > 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_LE:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) >= 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_GT:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) < 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_GE:
-                match = (cmpMeta.compare(cmpData, keyMeta, keyData) <= 0);
-                break;
-              case DatabaseLookupMeta.CONDITION_IS_NULL:
-                match = keyMeta.isNull(keyData);
-                break;
-              case DatabaseLookupMeta.CONDITION_IS_NOT_NULL:
-                match = !keyMeta.isNull(keyData);
-                break;
-              case DatabaseLookupMeta.CONDITION_BETWEEN:
-                // Between key >= cmp && key <= cmp2
-                IValueMeta cmpMeta2 = lookupMeta.getValueMeta(lookupIndex + 1);
-                Object cmpData2 = lookupRow[lookupIndex + 1];
-                match = (keyMeta.compare(keyData, cmpMeta, cmpData) >= 0);
-                if (match) {
-                  match = (keyMeta.compare(keyData, cmpMeta2, cmpData2) <= 0);
-                }
-                lookupIndex++;
-                break;
-                // TODO: add LIKE operator (think of changing the hasDBCondition logic then)
-              default:
-                match = false;
-                data.hasDBCondition =
-                    true; // avoid looping in here the next time, also safety when a new condition
-                // will be introduced
-                break;
+    // Not all conditions are "=" so we are going to have to evaluate row by row
+    //
+    Object[][] result = new Object[1][];
+    HopException[] exception = new HopException[1];
+    cache.forEach(
+        (key, row) -> {
+          if (result[0] == null && exception[0] == null && row != NOT_FOUND) {
+            try {
+              if (matches(lookupMeta, lookupRow, CacheKey.values(key))) {
+                result[0] = row;
+              }
+            } catch (HopException e) {
+              exception[0] = e;
             }
-            lookupIndex++;
           }
+        });
+    if (exception[0] != null) {
+      throw exception[0];
+    }
+    return result[0];
+  }
+
+  /** Verify that the key of a cached row is matching our conditions */
+  private boolean matches(IRowMeta lookupMeta, Object[] lookupRow, Object[] keyValues)
+      throws HopException {
+    boolean match = true;
+    int lookupIndex = 0;
+    for (int i = 0; i < data.conditions.length && match; i++) {
+      IValueMeta cmpMeta = lookupMeta.getValueMeta(lookupIndex);
+      Object cmpData = lookupRow[lookupIndex];
+      IValueMeta keyValueMeta = keyMeta.getValueMeta(i);
+      Object keyData = keyValues[i];
+
+      switch (data.conditions[i]) {
+        case DatabaseLookupMeta.CONDITION_EQ:
+          match = (cmpMeta.compare(cmpData, keyValueMeta, keyData) == 0);
+          break;
+        case DatabaseLookupMeta.CONDITION_NE:
+          match = (cmpMeta.compare(cmpData, keyValueMeta, keyData) != 0);
+          break;
+        case DatabaseLookupMeta.CONDITION_LT:
+          match = (cmpMeta.compare(cmpData, keyValueMeta, keyData) > 0);
+          break;
+        case DatabaseLookupMeta.CONDITION_LE:
+          match = (cmpMeta.compare(cmpData, keyValueMeta, keyData) >= 0);
+          break;
+        case DatabaseLookupMeta.CONDITION_GT:
+          match = (cmpMeta.compare(cmpData, keyValueMeta, keyData) < 0);
+          break;
+        case DatabaseLookupMeta.CONDITION_GE:
+          match = (cmpMeta.compare(cmpData, keyValueMeta, keyData) <= 0);
+          break;
+        case DatabaseLookupMeta.CONDITION_IS_NULL:
+          match = keyValueMeta.isNull(keyData);
+          break;
+        case DatabaseLookupMeta.CONDITION_IS_NOT_NULL:
+          match = !keyValueMeta.isNull(keyData);
+          break;
+        case DatabaseLookupMeta.CONDITION_BETWEEN:
+          // Between key >= cmp && key <= cmp2
+          IValueMeta cmpMeta2 = lookupMeta.getValueMeta(lookupIndex + 1);
+          Object cmpData2 = lookupRow[lookupIndex + 1];
+          match = (keyValueMeta.compare(keyData, cmpMeta, cmpData) >= 0);
           if (match) {
-            TimedRow timedRow = map.get(key);
-            if (timedRow != null) {
-              return timedRow.getRow();
-            }
+            match = (keyValueMeta.compare(keyData, cmpMeta2, cmpData2) <= 0);
           }
-        }
+          lookupIndex++;
+          break;
+          // TODO: add LIKE operator (think of changing the hasDBCondition logic then)
+        default:
+          match = false;
+          data.hasDBCondition =
+              true; // avoid looping in here the next time, also safety when a new condition
+          // will be introduced
+          break;
       }
+      lookupIndex++;
     }
-    return null;
+    return match;
   }
 
   @Override
   public void storeRowInCache(
       DatabaseLookupMeta meta, IRowMeta lookupMeta, Object[] lookupRow, Object[] add) {
-    RowMetaAndData rowMetaAndData = new RowMetaAndData(lookupMeta, lookupRow);
-    //  2009-02-01 XXX: I want to write a test case to prove this point before checking
-    // in.
-    // /* Don't insert a row with a duplicate key into the cache. It doesn't seem
-    // * to serve a useful purpose and can potentially cause the transform to return
-    // * different values over the life of the pipeline (if the source DB rows change)
-    // * Additionally, if using the load all data feature, re-inserting would reverse the order
-    // * specified in the transform.
-    // */
-    map.put(rowMetaAndData, new TimedRow(add));
-
-    // See if we have to limit the cache_size.
-    // Sample 10% of the rows in the cache.
-    // Remove everything below the second lowest date.
-    // That should on average remove more than 10% of the entries
-    // It's not exact science, but it will be faster than the old algorithm
-
-    // 2009-02-01: If you had previously set a cache size and then turned on load all,
-    // this
-    // method would throw out entries if the previous cache size wasn't big enough.
-    if (!meta.isLoadingAllDataInCache()
-        && meta.getCacheSize() > 0
-        && map.size() > meta.getCacheSize()) {
-      List<RowMetaAndData> keys = new ArrayList<>(map.keySet());
-      List<Date> samples = new ArrayList<>();
-      int incr = keys.size() / 10;
-      if (incr == 0) {
-        incr = 1;
-      }
-      for (int k = 0; k < keys.size(); k += incr) {
-        RowMetaAndData key = keys.get(k);
-        TimedRow timedRow = map.get(key);
-        samples.add(timedRow.getLogDate());
-      }
-
-      Collections.sort(samples);
-
-      if (samples.size() > 1) {
-        Date smallest = samples.get(1);
-
-        // Everything below the smallest date goes away...
-        for (RowMetaAndData key : keys) {
-          TimedRow timedRow = map.get(key);
-
-          if (timedRow.getLogDate().compareTo(smallest) < 0) {
-            map.remove(key);
-          }
-        }
-      }
+    if (keyMeta == null) {
+      keyMeta = lookupMeta;
     }
+    cache.put(CacheKey.of(lookupRow), add);
+  }
+
+  /**
+   * Gets the cache holding the rows
+   *
+   * @return The cache with its hit, miss and eviction counters
+   */
+  public BoundedCache<Object, Object[]> getCache() {
+    return cache;
   }
 }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup;
+
+import org.apache.hop.core.row.IRowMeta;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * All the rows of the lookup table by key, loaded once and shared by all the copies and executions
+ * of the {@linkplain DatabaseLookup} transforms which look up the same data. Only used when all
+ * the key conditions are "=". The rows are never changed after loading and reading them doesn't
+ * keep any state, so all the copies can read them at the same time.
+ */
+public class SharedRowsCache implements DatabaseLookupData.ICache {
+
+  private final Map<Object, Object[]> rows;
+
+  /**
+   * Create a cache of the given rows
+   *
+   * @param rows The rows of the lookup table by key, see {@link CacheKey#of(Object[])}
+   */
+  SharedRowsCache(Map<Object, Object[]> rows) {
+    this.rows = Collections.unmodifiableMap(new HashMap<>(rows));
+  }
+
+  @Override
+  public Object[] getRowFromCache(IRowMeta lookupMeta, Object[] lookupRow) {
+    return rows.get(CacheKey.of(lookupRow));
+  }
+
+  @Override
+  public void storeRowInCache(
+      DatabaseLookupMeta meta, IRowMeta lookupMeta, Object[] lookupRow, Object[] add) {
+    throw new UnsupportedOperationException("This cache is read-only");
+  }
+
+  /**
+   * Gets the number of rows
+   *
+   * @return The number of rows in the cache
+   */
+  public int size() {
+    return rows.size();
+  }
+}
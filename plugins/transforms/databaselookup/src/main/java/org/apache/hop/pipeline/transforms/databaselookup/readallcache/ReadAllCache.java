@@ -36,8 +36,6 @@ import java.util.PriorityQueue;
  */
 public class ReadAllCache implements DatabaseLookupData.ICache {
 
-  private final DatabaseLookupData transformData;
-
   private final Object[][] keys;
   private final IRowMeta keysMeta;
 
@@ -49,9 +47,12 @@ public class ReadAllCache implements DatabaseLookupData.ICache {
   // such structure was chosen not to introduce separate data-container class
   private final int[][] otherConditions;
 
+  // a copy of the transform data flag: the cache can be shared by several transform copies
+  private volatile boolean hasDBCondition;
+
   ReadAllCache(
       DatabaseLookupData transformData, Object[][] keys, IRowMeta keysMeta, Object[][] data) {
-    this.transformData = transformData;
+    this.hasDBCondition = transformData.hasDBCondition;
     this.keys = keys;
     this.keysMeta = keysMeta;
     this.data = data;
@@ -117,7 +118,7 @@ public class ReadAllCache implements DatabaseLookupData.ICache {
 
   @Override
   public Object[] getRowFromCache(IRowMeta lookupMeta, Object[] lookupRow) throws HopException {
-    if (transformData.hasDBCondition) {
+    if (hasDBCondition) {
       // actually, there was no sense in executing SELECT from db in this case,
       // should be reported as improvement
       return null;
@@ -177,7 +178,7 @@ public class ReadAllCache implements DatabaseLookupData.ICache {
           // if not BETWEEN, than it is LIKE (or some new operator)
           // for now, LIKE is not supported here
           matches = false;
-          transformData.hasDBCondition = true;
+          hasDBCondition = true;
         }
       }
       if (matches) {
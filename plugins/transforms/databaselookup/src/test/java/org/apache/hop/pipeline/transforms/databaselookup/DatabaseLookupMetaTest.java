@@ -174,6 +174,11 @@ public class DatabaseLookupMetaTest {
     meta.setCached(true);
     meta.setCacheSize(123456);
     meta.setLoadingAllDataInCache(true);
+    meta.setSharingCache(true);
+    meta.setCacheTimeToLive(3600);
+    meta.setCachingNotFound(true);
+    meta.setCacheEvictionPolicy(DatabaseLookupMeta.EvictionPolicy.TINY_LFU);
+    meta.setLookupBatchSize(500);
     Lookup lookup = meta.getLookup();
     lookup.getKeyFields().add(new KeyField("aa", "gg", "ee", "cc"));
     lookup.getKeyFields().add(new KeyField("bb", "hh", "ff", "dd"));
@@ -209,6 +214,11 @@ public class DatabaseLookupMetaTest {
     assertEquals(meta.isCached(), meta2.isCached());
     assertEquals(meta.getCacheSize(), meta2.getCacheSize());
     assertEquals(meta.isLoadingAllDataInCache(), meta2.isLoadingAllDataInCache());
+    assertEquals(meta.isSharingCache(), meta2.isSharingCache());
+    assertEquals(meta.getCacheTimeToLive(), meta2.getCacheTimeToLive());
+    assertEquals(meta.isCachingNotFound(), meta2.isCachingNotFound());
+    assertEquals(meta.getCacheEvictionPolicy(), meta2.getCacheEvictionPolicy());
+    assertEquals(meta.getLookupBatchSize(), meta2.getLookupBatchSize());
 
     assertEquals(lookup.getKeyFields().size(), lookup2.getKeyFields().size());
     for (int i = 0; i < lookup.getKeyFields().size(); i++) {
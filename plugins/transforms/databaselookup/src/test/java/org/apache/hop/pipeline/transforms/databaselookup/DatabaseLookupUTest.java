@@ -19,6 +19,7 @@ package org.apache.hop.pipeline.transforms.databaselookup;
 
 import org.apache.hop.core.HopEnvironment;
 import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.cache.SharedCacheManager;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.database.NoneDatabaseMeta;
@@ -47,14 +48,18 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -100,6 +105,7 @@ public class DatabaseLookupUTest {
     when(rowSet.getRowWait(anyLong(), any(TimeUnit.class)))
         .thenReturn(new Object[0])
         .thenReturn(null);
+    when(rowSet.getRowImmediate()).thenReturn(new Object[0]).thenReturn(null);
     when(rowSet.getRowMeta()).thenReturn(inputRowMeta);
 
     Mockito.doReturn(rowSet)
@@ -327,6 +333,237 @@ public class DatabaseLookupUTest {
     assertArrayEquals(dataFromCache, add1);
   }
 
+  @Test
+  public void defaultCache_IsBounded_AndKeepsMissingKeys() throws Exception {
+    DatabaseLookupData data = new DatabaseLookupData();
+    data.allEquals = true;
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.setCached(true);
+    meta.setCacheSize(2);
+    DefaultCache cache = DefaultCache.newCache(data, meta);
+
+    RowMeta lookupMeta = new RowMeta();
+    lookupMeta.addValueMeta(new ValueMetaInteger("id"));
+    cache.storeRowInCache(meta, lookupMeta, new Object[] {1L}, new Object[] {"one"});
+    cache.storeRowInCache(
+        meta, lookupMeta, new Object[] {2L}, DatabaseLookupData.ICache.NOT_FOUND);
+
+    assertSame(
+        DatabaseLookupData.ICache.NOT_FOUND,
+        cache.getRowFromCache(lookupMeta, new Object[] {2L}));
+    assertArrayEquals(new Object[] {"one"}, cache.getRowFromCache(lookupMeta, new Object[] {1L}));
+
+    // Key 2 is the least recently used one
+    //
+    cache.storeRowInCache(meta, lookupMeta, new Object[] {3L}, new Object[] {"three"});
+    assertNull(cache.getRowFromCache(lookupMeta, new Object[] {2L}));
+    assertEquals(2, cache.getCache().size());
+    assertEquals(1, cache.getCache().getEvictions());
+  }
+
+  private static DatabaseLookupMeta createBatchLookupMeta() {
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.setLookupBatchSize(10);
+    meta.getLookup().getKeyFields().add(new KeyField("id", "", "=", "ID"));
+    meta.getLookup()
+        .getReturnValues()
+        .add(
+            new ReturnValue(
+                "NAME",
+                "name",
+                "",
+                "String",
+                ValueMetaString.getTrimTypeCode(IValueMeta.TRIM_TYPE_NONE)));
+    return meta;
+  }
+
+  /** The database returns the key fields after the returned fields, in any order */
+  private static Database createBatchDatabase(IValueMeta keyMeta, Object[]... found)
+      throws Exception {
+    Database db = mock(Database.class);
+    RowMeta foundMeta = new RowMeta();
+    foundMeta.addValueMeta(new ValueMetaString("NAME"));
+    foundMeta.addValueMeta(keyMeta);
+    when(db.getBatchLookupRowMeta()).thenReturn(foundMeta);
+    when(db.getReturnRowMeta()).thenReturn(foundMeta);
+    when(db.getBatchLookup(any(IRowMeta.class), anyList())).thenReturn(Arrays.asList(found));
+    return db;
+  }
+
+  private static DatabaseLookupData createBatchData(Database db, IRowMeta inputRowMeta) {
+    DatabaseLookupData data = new DatabaseLookupData();
+    data.db = db;
+    data.outputRowMeta = inputRowMeta.clone();
+    data.outputRowMeta.addValueMeta(new ValueMetaString("name"));
+    data.lookupMeta = inputRowMeta.clone();
+    data.returnMeta = new RowMeta();
+    data.returnMeta.addValueMeta(new ValueMetaString("name"));
+    data.keynrs = new int[] {0};
+    data.keynrs2 = new int[] {-1};
+    data.nullif = new Object[1];
+    data.returnValueTypes = new int[] {IValueMeta.TYPE_STRING};
+    data.trimIndexes = new ArrayList<>();
+    data.conditions = new int[] {DatabaseLookupMeta.CONDITION_EQ};
+    data.allEquals = true;
+    data.batchResults = new HashMap<>();
+    data.batchCacheHits = new HashMap<>();
+    return data;
+  }
+
+  @Test
+  public void looksUpBatchOnce_AndKeepsTheOrderOfTheRows() throws Exception {
+    DatabaseLookupMeta meta = createBatchLookupMeta();
+    Database db =
+        createBatchDatabase(
+            new ValueMetaInteger("ID"), new Object[] {"two", 2L}, new Object[] {"one", 1L});
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaInteger("id"));
+    DatabaseLookupData data = createBatchData(db, inputRowMeta);
+
+    DatabaseLookup lookup =
+        new DatabaseLookup(
+            mockHelper.transformMeta, meta, data, 0, mockHelper.pipelineMeta, mockHelper.pipeline);
+
+    List<Object[]> rows =
+        Arrays.asList(new Object[] {1L}, new Object[] {3L}, new Object[] {2L}, new Object[] {1L});
+    lookup.lookupBatch(inputRowMeta, rows);
+
+    verify(db, times(1)).getBatchLookup(any(IRowMeta.class), argThat(keys -> keys.size() == 3));
+    Object[][] expected = {{1L, "one"}, {3L, null}, {2L, "two"}, {1L, "one"}};
+    for (int i = 0; i < rows.size(); i++) {
+      Object[] outputRow = lookup.lookupValues(inputRowMeta, rows.get(i));
+      assertArrayEquals(expected[i], Arrays.copyOf(outputRow, data.outputRowMeta.size()));
+    }
+
+    // The key which wasn't found in the batch is not looked up again
+    //
+    verify(db, never()).getLookup(anyBoolean());
+  }
+
+  @Test
+  public void matchesBatchRowsTheWayTheKeysCompare() throws Exception {
+    DatabaseLookupMeta meta = createBatchLookupMeta();
+    Database db =
+        createBatchDatabase(new ValueMetaString("ID"), new Object[] {"one", "ABC"});
+    RowMeta inputRowMeta = new RowMeta();
+    ValueMetaString idMeta = new ValueMetaString("id");
+    idMeta.setCaseInsensitive(true);
+    inputRowMeta.addValueMeta(idMeta);
+    DatabaseLookupData data = createBatchData(db, inputRowMeta);
+
+    DatabaseLookup lookup =
+        new DatabaseLookup(
+            mockHelper.transformMeta, meta, data, 0, mockHelper.pipelineMeta, mockHelper.pipeline);
+
+    List<Object[]> rows = Arrays.asList(new Object[] {"abc"}, new Object[] {"xyz"});
+    lookup.lookupBatch(inputRowMeta, rows);
+
+    Object[][] expected = {{"abc", "one"}, {"xyz", null}};
+    for (int i = 0; i < rows.size(); i++) {
+      Object[] outputRow = lookup.lookupValues(inputRowMeta, rows.get(i));
+      assertArrayEquals(expected[i], Arrays.copyOf(outputRow, data.outputRowMeta.size()));
+    }
+    verify(db, never()).getLookup(anyBoolean());
+  }
+
+  @Test
+  public void looksUpBatchMissesOnTheirOwn_WhenTheDatabaseComparesDifferently() throws Exception {
+    DatabaseLookupMeta meta = createBatchLookupMeta();
+    meta.setCached(true);
+    Database db =
+        createBatchDatabase(new ValueMetaString("ID"), new Object[] {"one", "ABC"});
+    when(db.getLookup(anyBoolean())).thenReturn(new Object[] {"one"});
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaString("id"));
+    DatabaseLookupData data = createBatchData(db, inputRowMeta);
+    data.cache = DefaultCache.newCache(data, meta);
+
+    DatabaseLookup lookup =
+        new DatabaseLookup(
+            mockHelper.transformMeta, meta, data, 0, mockHelper.pipelineMeta, mockHelper.pipeline);
+
+    // A case insensitive database returns key "ABC" for "abc"
+    //
+    List<Object[]> rows = Arrays.asList(new Object[] {"abc"}, new Object[] {"xyz"});
+    lookup.lookupBatch(inputRowMeta, rows);
+    Object[] outputRow = lookup.lookupValues(inputRowMeta, rows.get(0));
+
+    assertArrayEquals(
+        new Object[] {"abc", "one"}, Arrays.copyOf(outputRow, data.outputRowMeta.size()));
+    verify(db).setValuesLookup(any(IRowMeta.class), aryEq(new Object[] {"abc"}));
+
+    // A key which doesn't resemble any of the found keys is not looked up on its own
+    //
+    when(db.getLookup(anyBoolean())).thenReturn(null);
+    lookup.lookupValues(inputRowMeta, rows.get(1));
+    verify(db, never()).setValuesLookup(any(IRowMeta.class), aryEq(new Object[] {"xyz"}));
+    assertArrayEquals(
+        new Object[] {"one"}, data.cache.getRowFromCache(data.lookupMeta, new Object[] {"abc"}));
+  }
+
+  @Test
+  public void usesCachedRowsOfTheBatch_WhenTheyAreEvicted() throws Exception {
+    DatabaseLookupMeta meta = createBatchLookupMeta();
+    meta.setCached(true);
+    meta.setCacheSize(1);
+    Database db = createBatchDatabase(new ValueMetaInteger("ID"), new Object[] {"two", 2L});
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaInteger("id"));
+    DatabaseLookupData data = createBatchData(db, inputRowMeta);
+    data.cache = DefaultCache.newCache(data, meta);
+    data.cache.storeRowInCache(meta, data.lookupMeta, new Object[] {1L}, new Object[] {"one"});
+
+    DatabaseLookup lookup =
+        new DatabaseLookup(
+            mockHelper.transformMeta, meta, data, 0, mockHelper.pipelineMeta, mockHelper.pipeline);
+
+    // Caching the row of key 2 evicts key 1 before its row is looked up
+    //
+    List<Object[]> rows = Arrays.asList(new Object[] {2L}, new Object[] {1L});
+    lookup.lookupBatch(inputRowMeta, rows);
+    verify(db).getBatchLookup(any(IRowMeta.class), argThat(keys -> keys.size() == 1));
+
+    Object[][] expected = {{2L, "two"}, {1L, "one"}};
+    for (int i = 0; i < rows.size(); i++) {
+      Object[] outputRow = lookup.lookupValues(inputRowMeta, rows.get(i));
+      assertArrayEquals(expected[i], Arrays.copyOf(outputRow, data.outputRowMeta.size()));
+    }
+    assertNull(data.cache.getRowFromCache(data.lookupMeta, new Object[] {1L}));
+    verify(db, never()).getLookup(anyBoolean());
+  }
+
+  @Test
+  public void cachesMissingKeys_OnlyWhenEnabled() throws Exception {
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaInteger("id"));
+    Object[] row = new Object[] {3L};
+
+    for (boolean cachingNotFound : new boolean[] {false, true}) {
+      DatabaseLookupMeta meta = createBatchLookupMeta();
+      meta.setLookupBatchSize(0);
+      meta.setCached(true);
+      meta.setCachingNotFound(cachingNotFound);
+      Database db = createBatchDatabase(new ValueMetaInteger("ID"));
+      DatabaseLookupData data = createBatchData(db, inputRowMeta);
+      data.batchResults = null;
+      data.batchCacheHits = null;
+      data.cache = DefaultCache.newCache(data, meta);
+
+      DatabaseLookup lookup =
+          new DatabaseLookup(
+              mockHelper.transformMeta,
+              meta,
+              data,
+              0,
+              mockHelper.pipelineMeta,
+              mockHelper.pipeline);
+      lookup.lookupValues(inputRowMeta, row);
+      lookup.lookupValues(inputRowMeta, row);
+
+      verify(db, times(cachingNotFound ? 1 : 2)).getLookup(anyBoolean());
+    }
+  }
+
   @Test
   public void createsReadOnlyCache_WhenReadAll_AndNotAllEquals() throws Exception {
     DatabaseLookupData data = getCreatedData(false);
@@ -402,6 +639,69 @@ public class DatabaseLookupUTest {
     return transform;
   }
 
+  @Test
+  public void sharesLoadedCache_BetweenTransforms() throws Exception {
+    SharedCacheManager.getInstance().invalidateAll();
+    Database db = mock(Database.class);
+    when(db.getRows(anyString(), anyInt()))
+        .thenReturn(Arrays.asList(new Object[] {1L, 10L}, new Object[] {2L, 20L}));
+
+    RowMeta returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta(new ValueMetaInteger());
+    returnRowMeta.addValueMeta(new ValueMetaInteger());
+    when(db.getReturnRowMeta()).thenReturn(returnRowMeta);
+
+    DatabaseLookupData first = getSharedCacheData(db);
+    DatabaseLookupData second = getSharedCacheData(db);
+
+    verify(db, times(1)).getRows(anyString(), anyInt());
+    assertThat(first.cache, is(instanceOf(SharedRowsCache.class)));
+    assertSame(first.cache, second.cache);
+    assertSame(first.sharedCache, second.sharedCache);
+    assertEquals(1, second.sharedCache.getNrAttached());
+    assertTrue(second.sharedCache.getSize() > 0);
+
+    second.lookupMeta = new RowMeta();
+    second.lookupMeta.addValueMeta(new ValueMetaInteger());
+    assertArrayEquals(
+        new Object[] {20L}, second.cache.getRowFromCache(second.lookupMeta, new Object[] {2L}));
+
+    SharedCacheManager.getInstance().invalidateAll();
+    getSharedCacheData(db);
+    verify(db, times(2)).getRows(anyString(), anyInt());
+    SharedCacheManager.getInstance().invalidateAll();
+  }
+
+  private DatabaseLookupData getSharedCacheData(Database db) throws Exception {
+    DatabaseLookupMeta meta = createTestMeta();
+    meta.setSharingCache(true);
+    meta.getLookup()
+        .getReturnValues()
+        .add(
+            new ReturnValue(
+                "value",
+                "value",
+                "",
+                "Integer",
+                ValueMetaString.getTrimTypeCode(IValueMeta.TRIM_TYPE_NONE)));
+    DatabaseLookupData data = new DatabaseLookupData();
+
+    // Every transform needs its own input row
+    //
+    TransformMockHelper<DatabaseLookupMeta, DatabaseLookupData> helper = createMockHelper();
+    DatabaseLookup transform = createSpiedTransform(db, helper, meta, data);
+    transform.init();
+
+    data.db = db;
+    data.keytypes = new int[] {IValueMeta.TYPE_INTEGER};
+    data.allEquals = true;
+    data.conditions = new int[] {DatabaseLookupMeta.CONDITION_EQ};
+
+    transform.processRow();
+    helper.cleanUp();
+    return data;
+  }
+
   @Test
   public void createsReadDefaultCache_AndUsesOnlyNeededFieldsFromMeta() throws Exception {
     Database db = mock(Database.class);
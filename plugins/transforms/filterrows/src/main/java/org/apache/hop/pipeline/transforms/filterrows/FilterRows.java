@@ -20,6 +20,7 @@ package org.apache.hop.pipeline.transforms.filterrows;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -46,17 +47,29 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
     super(transformMeta, meta, data, copyNr, pipelineMeta, pipeline);
   }
 
-  private synchronized boolean keepRow(IRowMeta rowMeta, Object[] row) throws HopException {
+  private synchronized void keepRows(RowBatch batch, boolean[] keep) throws HopException {
     try {
-      return meta.getCondition().evaluate(rowMeta, row);
+      meta.getCondition().evaluate(batch, keep);
     } catch (Exception e) {
       String message =
           BaseMessages.getString(
               PKG, "FilterRows.Exception.UnexpectedErrorFoundInEvaluationFuction");
       logError(message);
-      logError(
-          BaseMessages.getString(PKG, "FilterRows.Log.ErrorOccurredForRow")
-              + rowMeta.getString(row));
+
+      // Look for the row causing the problem
+      //
+      IRowMeta rowMeta = batch.getRowMeta();
+      for (int i = 0; i < batch.size(); i++) {
+        Object[] row = batch.getRow(i);
+        try {
+          meta.getCondition().evaluate(rowMeta, row);
+        } catch (Exception rowException) {
+          logError(
+              BaseMessages.getString(PKG, "FilterRows.Log.ErrorOccurredForRow")
+                  + rowMeta.getString(row));
+          break;
+        }
+      }
       logError(Const.getStackTracker(e));
       throw new HopException(message, e);
     }
@@ -65,14 +78,13 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
   @Override
   public boolean processRow() throws HopException {
 
-    boolean keep;
-
-    Object[] r = getRow(); // Get next usable row from input rowset(s)!
-    if (r == null) { // no more input to be expected...
+    RowBatch batch = getRowBatch(); // Get the next usable rows from input rowset(s)!
+    if (batch == null) { // no more input to be expected...
 
       setOutputDone();
       return false;
     }
+    int nrRowsRead = batch.size();
 
     if (first) {
       first = false;
@@ -123,38 +135,46 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
       }
     }
 
-    keep = keepRow(getInputRowMeta(), r); // Keep this row?
+    // Evaluate the condition for all the rows in the batch at once
+    //
+    if (data.keep == null || data.keep.length < batch.getCapacity()) {
+      data.keep = new boolean[batch.getCapacity()];
+    }
+    keepRows(batch, data.keep); // Keep these rows?
+
     if (!data.chosesTargetTransforms) {
-      if (keep) {
-        putRow(data.outputRowMeta, r); // copy row to output rowset(s)
-      }
+      batch.retain(data.keep);
+      putRowBatch(data.outputRowMeta, batch); // copy rows to output rowset(s)
     } else {
-      if (keep) {
-        if (data.trueRowSet != null) {
-          if (log.isRowLevel()) {
-            logRowlevel(
-                "Sending row to true  :"
-                    + data.trueTransformName
-                    + " : "
-                    + getInputRowMeta().getString(r));
+      for (int i = 0; i < batch.size(); i++) {
+        Object[] r = batch.getRow(i);
+        if (data.keep[i]) {
+          if (data.trueRowSet != null) {
+            if (log.isRowLevel()) {
+              logRowlevel(
+                  "Sending row to true  :"
+                      + data.trueTransformName
+                      + " : "
+                      + getInputRowMeta().getString(r));
+            }
+            putRowTo(data.outputRowMeta, r, data.trueRowSet);
           }
-          putRowTo(data.outputRowMeta, r, data.trueRowSet);
-        }
-      } else {
-        if (data.falseRowSet != null) {
-          if (log.isRowLevel()) {
-            logRowlevel(
-                "Sending row to false :"
-                    + data.falseTransformName
-                    + " : "
-                    + getInputRowMeta().getString(r));
+        } else {
+          if (data.falseRowSet != null) {
+            if (log.isRowLevel()) {
+              logRowlevel(
+                  "Sending row to false :"
+                      + data.falseTransformName
+                      + " : "
+                      + getInputRowMeta().getString(r));
+            }
+            putRowTo(data.outputRowMeta, r, data.falseRowSet);
           }
-          putRowTo(data.outputRowMeta, r, data.falseRowSet);
         }
       }
     }
 
-    if (checkFeedback(getLinesRead())) {
+    if (checkFeedback(getLinesRead(), nrRowsRead)) {
       if (log.isBasic()) {
         logBasic(BaseMessages.getString(PKG, "FilterRows.Log.LineNumber") + getLinesRead());
       }
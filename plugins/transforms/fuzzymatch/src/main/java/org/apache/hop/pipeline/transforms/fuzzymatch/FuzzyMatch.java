@@ -41,7 +41,9 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Performs a fuzzy match for each main stream field row An approximative match is done in a lookup
@@ -221,6 +223,9 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
           BaseMessages.getString(
               PKG, "FuzzyMatch.Log.ReadingMainStreamRow", getInputRowMeta().getString(keyRow)));
     }
+    if (data.index == null) {
+      buildIndex();
+    }
     Object[] retval = null;
     switch (meta.getAlgorithmType()) {
       case FuzzyMatchMeta.OPERATION_TYPE_LEVENSHTEIN:
@@ -246,19 +251,83 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
     return retval;
   }
 
+  /**
+   * Index the cached lookup values so that a main stream value is only compared with the lookup
+   * values which can match it. The lookup values keep the order in which they were read.
+   */
+  private void buildIndex() {
+    List<Object[]> rows = new ArrayList<>();
+    Iterator<Object[]> it = data.look.iterator();
+    while (it.hasNext()) {
+      rows.add(it.next());
+    }
+    String[] keys = new String[rows.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = (String) rows.get(i)[0];
+    }
+
+    switch (meta.getAlgorithmType()) {
+      case FuzzyMatchMeta.OPERATION_TYPE_LEVENSHTEIN:
+      case FuzzyMatchMeta.OPERATION_TYPE_DAMERAU_LEVENSHTEIN:
+        if (!meta.isCaseSensitive()) {
+          for (int i = 0; i < keys.length; i++) {
+            keys[i] = keys[i].toLowerCase();
+          }
+        }
+        data.index =
+            FuzzyMatchIndex.createDistance(
+                rows,
+                keys,
+                meta.getAlgorithmType() == FuzzyMatchMeta.OPERATION_TYPE_LEVENSHTEIN
+                    ? StringUtils::getLevenshteinDistance
+                    : Utils::getDamerauLevenshteinDistance,
+                data.maximalDistance);
+        break;
+      case FuzzyMatchMeta.OPERATION_TYPE_DOUBLE_METAPHONE:
+      case FuzzyMatchMeta.OPERATION_TYPE_METAPHONE:
+      case FuzzyMatchMeta.OPERATION_TYPE_SOUNDEX:
+      case FuzzyMatchMeta.OPERATION_TYPE_REFINED_SOUNDEX:
+        for (int i = 0; i < keys.length; i++) {
+          keys[i] = getEncodedMF(keys[i], meta.getAlgorithmType());
+        }
+        data.index = FuzzyMatchIndex.createExact(rows, keys);
+        break;
+      case FuzzyMatchMeta.OPERATION_TYPE_JARO:
+      case FuzzyMatchMeta.OPERATION_TYPE_JARO_WINKLER:
+        data.index =
+            FuzzyMatchIndex.createLength(
+                rows,
+                keys,
+                meta.getAlgorithmType() == FuzzyMatchMeta.OPERATION_TYPE_JARO_WINKLER,
+                data.minimalSimilarity);
+        break;
+      case FuzzyMatchMeta.OPERATION_TYPE_PAIR_SIMILARITY:
+        data.index = FuzzyMatchIndex.createLetterPairs(rows, keys, data.minimalSimilarity);
+        break;
+      default:
+        data.index = FuzzyMatchIndex.createScan(rows, keys);
+        break;
+    }
+
+    // The index keeps the rows, no need to keep them twice
+    //
+    data.look.clear();
+  }
+
   private Object[] doDistance(Object[] row) throws HopValueException {
     // Reserve room
     Object[] rowData = buildEmptyRow();
 
-    Iterator<Object[]> it = data.look.iterator();
-
     long distance = -1;
 
     String lookupvalue = getInputRowMeta().getString(row, data.indexOfMainField);
 
-    while (it.hasNext()) {
+    int[] candidates =
+        data.index.getCandidates(meta.isCaseSensitive() ? lookupvalue : lookupvalue.toLowerCase());
+    int nrCandidates = candidates == null ? data.index.size() : candidates.length;
+    for (int c = 0; c < nrCandidates; c++) {
       // Get cached row data
-      Object[] cachedData = it.next();
+      Object[] cachedData = data.index.getRow(candidates == null ? c : candidates[c]);
       // Key value is the first value
       String cacheValue = (String) cachedData[0];
 
@@ -321,20 +390,23 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
     // Reserve room
     Object[] rowData = buildEmptyRow();
 
-    Iterator<Object[]> it = data.look.iterator();
-
     Object o = row[data.indexOfMainField];
     String lookupvalue = (String) o;
 
     String lookupValueMF = getEncodedMF(lookupvalue, meta.getAlgorithmType());
 
-    while (it.hasNext()) {
+    // Only the lookup values with the same encoding
+    //
+    int[] candidates = data.index.getCandidates(lookupValueMF);
+    int nrCandidates = candidates == null ? data.index.size() : candidates.length;
+    for (int c = 0; c < nrCandidates; c++) {
+      int id = candidates == null ? c : candidates[c];
       // Get cached row data
-      Object[] cachedData = it.next();
+      Object[] cachedData = data.index.getRow(id);
       // Key value is the first value
       String cacheValue = (String) cachedData[0];
 
-      String cacheValueMF = getEncodedMF(cacheValue, meta.getAlgorithmType());
+      String cacheValueMF = data.index.getKey(id);
 
       if (lookupValueMF.equals(cacheValueMF)) {
 
@@ -385,8 +457,6 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
 
     // Reserve room
     Object[] rowData = buildEmptyRow();
-    // prepare to read from cache ...
-    Iterator<Object[]> it = data.look.iterator();
     double similarity = 0;
 
     // get current value from main stream
@@ -394,9 +464,12 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
 
     String lookupvalue = o == null ? "" : (String) o;
 
-    while (it.hasNext()) {
+    // prepare to read from cache ...
+    int[] candidates = data.index.getCandidates(lookupvalue);
+    int nrCandidates = candidates == null ? data.index.size() : candidates.length;
+    for (int c = 0; c < nrCandidates; c++) {
       // Get cached row data
-      Object[] cachedData = it.next();
+      Object[] cachedData = data.index.getRow(candidates == null ? c : candidates[c]);
       // Key value is the first value
       String cacheValue = (String) cachedData[0];
 
@@ -635,6 +708,7 @@ public class FuzzyMatch extends BaseTransform<FuzzyMatchMeta, FuzzyMatchData> {
   @Override
   public void dispose() {
     data.look.clear();
+    data.index = null;
     super.dispose();
   }
 }
@@ -23,14 +23,18 @@ import org.apache.hop.pipeline.transform.ITransformData;
 import org.apache.hop.pipeline.transform.stream.IStream;
 
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 public class FuzzyMatchData extends BaseTransformData implements ITransformData {
   public IRowMeta previousRowMeta;
   public IRowMeta outputRowMeta;
 
-  /** used to store values in used to look up things */
+  /** used to store values in used to look up things, in the order they were read */
   public HashSet<Object[]> look;
 
+  /** The lookup values, indexed to find the candidates for a match quickly */
+  public FuzzyMatchIndex index;
+
   public boolean readLookupValues;
 
   /** index of main stream field */
@@ -61,7 +65,7 @@ public class FuzzyMatchData extends BaseTransformData implements ITransformData
 
   public FuzzyMatchData() {
     super();
-    this.look = new HashSet<>();
+    this.look = new LinkedHashSet<>();
     this.indexOfMainField = -1;
     this.addValueFieldName = false;
     this.valueSeparator = "";
@@ -0,0 +1,434 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.fuzzymatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Finds the lookup values which can match a main stream value without comparing the value with
+ * every lookup value. The index only prunes the values which can't possibly match for the given
+ * thresholds: the exact metric is still calculated for every candidate.
+ *
+ * <p>The candidates are always returned in the order the lookup values were read so that the
+ * first closest match (or the list of matches) is the same as with a scan over all values.
+ *
+ * <ul>
+ *   <li>Edit distances are indexed in a BK-tree, which uses the triangle inequality to only visit
+ *       the values within the maximum distance.
+ *   <li>Phonetic algorithms look up the lookup values with the same encoding.
+ *   <li>Jaro and Jaro-Winkler only consider the values with a length which allows a similarity of
+ *       at least the minimum.
+ *   <li>Letter pair similarity uses an inverted index of the letter pairs with a count filter.
+ * </ul>
+ */
+public class FuzzyMatchIndex {
+
+  /** Scores which are this close to the minimum are never pruned because of rounding errors */
+  private static final double EPSILON = 1e-9;
+
+  private final Object[][] rows;
+  private final String[] keys;
+
+  private BkNode root;
+  private ToIntBiFunction<String, String> distanceFunction;
+  private int maximalDistance;
+
+  private Map<String, int[]> idsByKey;
+
+  private int[][] idsByLength;
+  private boolean winkler;
+
+  private Map<String, int[][]> pairPostings;
+  private int[] nrPairs;
+  private int[] idsWithoutPairs;
+  private int[] common;
+
+  private double minimalSimilarity;
+
+  private FuzzyMatchIndex(List<Object[]> rows, String[] keys) {
+    this.rows = rows.toArray(new Object[0][]);
+    this.keys = keys;
+  }
+
+  /**
+   * Create an index which doesn't prune anything: every lookup value is a candidate.
+   *
+   * @param rows The cached lookup rows in the order they were read
+   * @param keys The lookup values
+   * @return The index
+   */
+  public static FuzzyMatchIndex createScan(List<Object[]> rows, String[] keys) {
+    return new FuzzyMatchIndex(rows, keys);
+  }
+
+  /**
+   * Create an index on an edit distance. The distance needs to be a metric: symmetric and
+   * respecting the triangle inequality.
+   *
+   * @param rows The cached lookup rows in the order they were read
+   * @param keys The lookup values to calculate the distance on
+   * @param distanceFunction The edit distance
+   * @param maximalDistance The maximum distance of a match
+   * @return The index
+   */
+  public static FuzzyMatchIndex createDistance(
+      List<Object[]> rows,
+      String[] keys,
+      ToIntBiFunction<String, String> distanceFunction,
+      int maximalDistance) {
+    FuzzyMatchIndex index = new FuzzyMatchIndex(rows, keys);
+    index.distanceFunction = distanceFunction;
+    index.maximalDistance = maximalDistance;
+    for (int id = 0; id < keys.length; id++) {
+      index.addToTree(id);
+    }
+    return index;
+  }
+
+  /**
+   * Create an index on exactly equal keys, for example a phonetic encoding.
+   *
+   * @param rows The cached lookup rows in the order they were read
+   * @param keys The encoded lookup values
+   * @return The index
+   */
+  public static FuzzyMatchIndex createExact(List<Object[]> rows, String[] keys) {
+    FuzzyMatchIndex index = new FuzzyMatchIndex(rows, keys);
+    Map<String, List<Integer>> lists = new HashMap<>();
+    for (int id = 0; id < keys.length; id++) {
+      lists.computeIfAbsent(keys[id], k -> new ArrayList<>()).add(id);
+    }
+    index.idsByKey = new HashMap<>();
+    for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+      index.idsByKey.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    return index;
+  }
+
+  /**
+   * Create an index on the length of the lookup values for the Jaro or Jaro-Winkler similarity.
+   *
+   * @param rows The cached lookup rows in the order they were read
+   * @param keys The lookup values
+   * @param winkler true for Jaro-Winkler, false for Jaro
+   * @param minimalSimilarity The minimum similarity of a match
+   * @return The index
+   */
+  public static FuzzyMatchIndex createLength(
+      List<Object[]> rows, String[] keys, boolean winkler, double minimalSimilarity) {
+    FuzzyMatchIndex index = new FuzzyMatchIndex(rows, keys);
+    index.winkler = winkler;
+    index.minimalSimilarity = minimalSimilarity;
+    int maxLength = 0;
+    for (String key : keys) {
+      maxLength = Math.max(maxLength, key.length());
+    }
+    List<List<Integer>> lists = new ArrayList<>();
+    for (int length = 0; length <= maxLength; length++) {
+      lists.add(new ArrayList<>());
+    }
+    for (int id = 0; id < keys.length; id++) {
+      lists.get(keys[id].length()).add(id);
+    }
+    index.idsByLength = new int[maxLength + 1][];
+    for (int length = 0; length <= maxLength; length++) {
+      index.idsByLength[length] = toArray(lists.get(length));
+    }
+    return index;
+  }
+
+  /**
+   * Create an inverted index on the letter pairs of the lookup values for the letter pair
+   * similarity.
+   *
+   * @param rows The cached lookup rows in the order they were read
+   * @param keys The lookup values
+   * @param minimalSimilarity The minimum similarity of a match
+   * @return The index
+   */
+  public static FuzzyMatchIndex createLetterPairs(
+      List<Object[]> rows, String[] keys, double minimalSimilarity) {
+    FuzzyMatchIndex index = new FuzzyMatchIndex(rows, keys);
+    index.minimalSimilarity = minimalSimilarity;
+    index.nrPairs = new int[keys.length];
+    index.common = new int[keys.length];
+
+    Map<String, List<int[]>> postings = new HashMap<>();
+    List<Integer> withoutPairs = new ArrayList<>();
+    for (int id = 0; id < keys.length; id++) {
+      Map<String, Integer> counts = countLetterPairs(keys[id]);
+      if (counts.isEmpty()) {
+        withoutPairs.add(id);
+      }
+      for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+        postings
+            .computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+            .add(new int[] {id, entry.getValue()});
+        index.nrPairs[id] += entry.getValue();
+      }
+    }
+    index.pairPostings = new HashMap<>();
+    for (Map.Entry<String, List<int[]>> entry : postings.entrySet()) {
+      index.pairPostings.put(entry.getKey(), entry.getValue().toArray(new int[0][]));
+    }
+    index.idsWithoutPairs = toArray(withoutPairs);
+    return index;
+  }
+
+  /**
+   * Get the lookup values which can match the given value.
+   *
+   * @param key The main stream value, transformed like the lookup values of the index
+   * @return The ids of the candidate lookup values in ascending order or null if all the lookup
+   *     values are candidates
+   */
+  public int[] getCandidates(String key) {
+    if (root != null) {
+      return getTreeCandidates(key);
+    }
+    if (idsByKey != null) {
+      int[] ids = idsByKey.get(key);
+      return ids == null ? new int[0] : ids;
+    }
+    if (idsByLength != null) {
+      return getLengthCandidates(key.length());
+    }
+    if (pairPostings != null) {
+      return getLetterPairCandidates(key);
+    }
+    return null;
+  }
+
+  /**
+   * Gets the number of lookup values
+   *
+   * @return the number of lookup values
+   */
+  public int size() {
+    return rows.length;
+  }
+
+  /**
+   * Get a cached lookup row
+   *
+   * @param id The id of the lookup value
+   * @return The cached row
+   */
+  public Object[] getRow(int id) {
+    return rows[id];
+  }
+
+  /**
+   * Get the lookup value as it was indexed
+   *
+   * @param id The id of the lookup value
+   * @return The lookup value, lower case or encoded depending on the algorithm
+   */
+  public String getKey(int id) {
+    return keys[id];
+  }
+
+  private void addToTree(int id) {
+    String key = keys[id];
+    if (root == null) {
+      root = new BkNode(key, id);
+      return;
+    }
+    BkNode node = root;
+    while (true) {
+      int distance = distanceFunction.applyAsInt(node.key, key);
+      if (distance == 0 && node.key.equals(key)) {
+        node.addId(id);
+        return;
+      }
+      BkNode child = node.children.get(distance);
+      if (child == null) {
+        node.children.put(distance, new BkNode(key, id));
+        return;
+      }
+      node = child;
+    }
+  }
+
+  private int[] getTreeCandidates(String key) {
+    List<int[]> found = new ArrayList<>();
+    int nrFound = 0;
+    Deque<BkNode> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      BkNode node = stack.pop();
+      int distance = distanceFunction.applyAsInt(node.key, key);
+      if (distance <= maximalDistance) {
+        found.add(node.getIds());
+        nrFound += node.nrIds;
+      }
+      // The triangle inequality: only children at a distance from this node close to the
+      // distance between the key and this node can be within reach
+      //
+      for (Map.Entry<Integer, BkNode> entry : node.children.entrySet()) {
+        int childDistance = entry.getKey();
+        if (childDistance >= distance - maximalDistance
+            && childDistance <= distance + maximalDistance) {
+          stack.push(entry.getValue());
+        }
+      }
+    }
+    return sortedUnion(found, nrFound);
+  }
+
+  private int[] getLengthCandidates(int length) {
+    if (minimalSimilarity <= 0) {
+      return null;
+    }
+    List<int[]> found = new ArrayList<>();
+    int nrFound = 0;
+    for (int otherLength = 0; otherLength < idsByLength.length; otherLength++) {
+      if (getMaximalSimilarity(length, otherLength) >= minimalSimilarity - EPSILON) {
+        found.add(idsByLength[otherLength]);
+        nrFound += idsByLength[otherLength].length;
+      }
+    }
+    return sortedUnion(found, nrFound);
+  }
+
+  /**
+   * The highest Jaro (Winkler) similarity two strings with the given lengths can have: at most
+   * all the characters of the shortest string are in common.
+   */
+  private double getMaximalSimilarity(int length, int otherLength) {
+    if (length == 0 || otherLength == 0) {
+      // Don't bother, there are not many of these
+      //
+      return 1.0;
+    }
+    double inCommon = Math.min(length, otherLength);
+    double jaro = (inCommon / length + inCommon / otherLength + 1.0) / 3.0;
+    if (winkler) {
+      // At most 4 characters of common prefix, with a weight of 0.1
+      //
+      return jaro + 0.4 * (1.0 - jaro);
+    }
+    return jaro;
+  }
+
+  private int[] getLetterPairCandidates(String key) {
+    if (minimalSimilarity <= 0) {
+      return null;
+    }
+    Map<String, Integer> counts = countLetterPairs(key);
+    int keyPairs = 0;
+    for (int count : counts.values()) {
+      keyPairs += count;
+    }
+
+    // Count the letter pairs in common with every lookup value sharing at least one pair
+    //
+    List<Integer> touched = new ArrayList<>();
+    for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+      int[][] postings = pairPostings.get(entry.getKey());
+      if (postings == null) {
+        continue;
+      }
+      for (int[] posting : postings) {
+        int id = posting[0];
+        if (common[id] == 0) {
+          touched.add(id);
+        }
+        common[id] += Math.min(entry.getValue(), posting[1]);
+      }
+    }
+
+    // The lookup values without letter pairs are always candidates: they can be equal to the
+    // main stream value or have an undefined similarity.
+    //
+    int[] candidates = new int[touched.size() + idsWithoutPairs.length];
+    int nrCandidates = 0;
+    for (int id : touched) {
+      double similarity = (2.0 * common[id]) / (keyPairs + nrPairs[id]);
+      if (similarity >= minimalSimilarity - EPSILON) {
+        candidates[nrCandidates++] = id;
+      }
+      common[id] = 0;
+    }
+    for (int id : idsWithoutPairs) {
+      candidates[nrCandidates++] = id;
+    }
+    candidates = Arrays.copyOf(candidates, nrCandidates);
+    Arrays.sort(candidates);
+    return candidates;
+  }
+
+  private static Map<String, Integer> countLetterPairs(String value) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (String pair : LetterPairSimilarity.wordLetterPairs(value.toUpperCase())) {
+      counts.merge(pair, 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  private static int[] sortedUnion(List<int[]> lists, int size) {
+    int[] ids = new int[size];
+    int position = 0;
+    for (int[] list : lists) {
+      System.arraycopy(list, 0, ids, position, list.length);
+      position += list.length;
+    }
+    Arrays.sort(ids);
+    return ids;
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  /** A node of the BK-tree: a distinct lookup value and its children by distance */
+  private static final class BkNode {
+    private final String key;
+    private final Map<Integer, BkNode> children = new HashMap<>();
+    private int[] ids;
+    private int nrIds;
+
+    BkNode(String key, int id) {
+      this.key = key;
+      this.ids = new int[] {id};
+      this.nrIds = 1;
+    }
+
+    void addId(int id) {
+      if (nrIds == ids.length) {
+        ids = Arrays.copyOf(ids, nrIds * 2);
+      }
+      ids[nrIds++] = id;
+    }
+
+    int[] getIds() {
+      return nrIds == ids.length ? ids : Arrays.copyOf(ids, nrIds);
+    }
+  }
+}
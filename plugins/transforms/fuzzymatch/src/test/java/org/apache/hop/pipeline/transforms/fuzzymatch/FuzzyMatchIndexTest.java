@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.fuzzymatch;
+
+import com.wcohen.ss.Jaro;
+import com.wcohen.ss.JaroWinkler;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hop.core.util.Utils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToIntBiFunction;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FuzzyMatchIndexTest {
+  private static final int NR_VALUES = 2000;
+  private static final int NR_QUERIES = 200;
+
+  private final Random random = new Random(123);
+
+  @Test
+  public void testLevenshteinCandidatesContainAllMatches() {
+    assertDistanceCandidates(StringUtils::getLevenshteinDistance, 2);
+    assertDistanceCandidates(StringUtils::getLevenshteinDistance, 0);
+  }
+
+  @Test
+  public void testDamerauLevenshteinCandidatesContainAllMatches() {
+    assertDistanceCandidates(Utils::getDamerauLevenshteinDistance, 1);
+    assertDistanceCandidates(Utils::getDamerauLevenshteinDistance, 3);
+  }
+
+  @Test
+  public void testJaroCandidatesContainAllMatches() {
+    assertSimilarityCandidates(
+        (keys, min) -> FuzzyMatchIndex.createLength(rows(keys), keys, false, min),
+        (a, b) -> new Jaro().score(a, b),
+        0.8);
+  }
+
+  @Test
+  public void testJaroWinklerCandidatesContainAllMatches() {
+    assertSimilarityCandidates(
+        (keys, min) -> FuzzyMatchIndex.createLength(rows(keys), keys, true, min),
+        (a, b) -> new JaroWinkler().score(a, b),
+        0.85);
+  }
+
+  @Test
+  public void testLetterPairCandidatesContainAllMatches() {
+    assertSimilarityCandidates(
+        (keys, min) -> FuzzyMatchIndex.createLetterPairs(rows(keys), keys, min),
+        LetterPairSimilarity::getSimiliarity,
+        0.5);
+  }
+
+  @Test
+  public void testExactCandidates() {
+    String[] keys = {"A100", "B200", "A100", "C300"};
+    FuzzyMatchIndex index = FuzzyMatchIndex.createExact(rows(keys), keys);
+
+    assertArrayEquals(new int[] {0, 2}, index.getCandidates("A100"));
+    assertEquals(0, index.getCandidates("D400").length);
+    assertEquals("B200", index.getKey(1));
+    assertEquals("C300", index.getRow(3)[0]);
+  }
+
+  @Test
+  public void testNoMinimumSimilarityReturnsAllValues() {
+    String[] keys = {"abc", "xyz"};
+    assertNull(FuzzyMatchIndex.createLength(rows(keys), keys, true, 0).getCandidates("q"));
+    assertNull(FuzzyMatchIndex.createLetterPairs(rows(keys), keys, 0).getCandidates("q"));
+    assertNull(FuzzyMatchIndex.createScan(rows(keys), keys).getCandidates("q"));
+  }
+
+  private void assertDistanceCandidates(
+      ToIntBiFunction<String, String> distanceFunction, int maximalDistance) {
+    String[] keys = randomValues(NR_VALUES);
+    FuzzyMatchIndex index =
+        FuzzyMatchIndex.createDistance(rows(keys), keys, distanceFunction, maximalDistance);
+
+    for (String query : randomValues(NR_QUERIES)) {
+      List<Integer> expected = new ArrayList<>();
+      for (int id = 0; id < keys.length; id++) {
+        if (distanceFunction.applyAsInt(keys[id], query) <= maximalDistance) {
+          expected.add(id);
+        }
+      }
+      assertEquals(expected, toList(index.getCandidates(query)));
+    }
+  }
+
+  private interface IndexFactory {
+    FuzzyMatchIndex create(String[] keys, double minimalSimilarity);
+  }
+
+  private void assertSimilarityCandidates(
+      IndexFactory factory, ToDoubleBiFunction<String, String> similarity, double minimum) {
+    String[] keys = randomValues(NR_VALUES);
+    FuzzyMatchIndex index = factory.create(keys, minimum);
+
+    long nrCandidates = 0;
+    for (String query : randomValues(NR_QUERIES)) {
+      int[] candidates = index.getCandidates(query);
+      List<Integer> candidateList = toList(candidates);
+      for (int i = 1; i < candidates.length; i++) {
+        assertTrue(candidates[i - 1] < candidates[i]);
+      }
+      for (int id = 0; id < keys.length; id++) {
+        if (similarity.applyAsDouble(keys[id], query) >= minimum) {
+          assertTrue(keys[id] + " ~ " + query, candidateList.contains(id));
+        }
+      }
+      nrCandidates += candidates.length;
+    }
+
+    // The index needs to prune at least some of the values
+    //
+    assertTrue(nrCandidates < (long) NR_QUERIES * NR_VALUES);
+  }
+
+  /** Short values over a small alphabet so that there are many near matches */
+  private String[] randomValues(int count) {
+    String[] values = new String[count];
+    for (int i = 0; i < count; i++) {
+      int length = random.nextInt(9);
+      StringBuilder value = new StringBuilder();
+      for (int c = 0; c < length; c++) {
+        value.append(random.nextInt(10) == 0 ? ' ' : (char) ('a' + random.nextInt(5)));
+      }
+      values[i] = value.toString();
+    }
+    return values;
+  }
+
+  private static List<Object[]> rows(String[] keys) {
+    List<Object[]> rows = new ArrayList<>();
+    for (String key : keys) {
+      rows.add(new Object[] {key});
+    }
+    return rows;
+  }
+
+  private static List<Integer> toList(int[] ids) {
+    List<Integer> list = new ArrayList<>();
+    for (int id : ids) {
+      list.add(id);
+    }
+    return list;
+  }
+}
@@ -73,6 +73,16 @@ public class Aggregation implements Cloneable {
 
   public static final int TYPE_GROUP_CONCAT_DISTINCT = 22;
 
+  public static final int TYPE_GROUP_COUNT_DISTINCT_APPROX = 23;
+
+  public static final int TYPE_GROUP_DISTINCT_SKETCH = 24;
+
+  public static final int TYPE_GROUP_MEDIAN_APPROX = 25;
+
+  public static final int TYPE_GROUP_PERCENTILE_APPROX = 26;
+
+  public static final int TYPE_GROUP_QUANTILE_SKETCH = 27;
+
   public static final String[]
       typeGroupLabel = /* WARNING: DO NOT TRANSLATE THIS. WE ARE SERIOUS, DON'T TRANSLATE! */ {
     "-",
@@ -98,6 +108,11 @@ public class Aggregation implements Cloneable {
     "PERCENTILE_NEAREST_RANK",
     "CONCAT_STRING_CRLF",
     "CONCAT_DISTINCT",
+    "COUNT_DISTINCT_APPROX",
+    "DISTINCT_SKETCH",
+    "MEDIAN_APPROX",
+    "PERCENTILE_APPROX",
+    "QUANTILE_SKETCH",
   };
 
   public static final String[] typeGroupLongDesc = {
@@ -123,7 +138,12 @@ public class Aggregation implements Cloneable {
     BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.STANDARD_DEVIATION_SAMPLE"),
     BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.PERCENTILE_NEAREST_RANK"),
     BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.CONCAT_STRING_CRLF"),
-    BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.CONCAT_DISTINCT")
+    BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.CONCAT_DISTINCT"),
+    BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.COUNT_DISTINCT_APPROX"),
+    BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.DISTINCT_SKETCH"),
+    BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.MEDIAN_APPROX"),
+    BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.PERCENTILE_APPROX"),
+    BaseMessages.getString(PKG, "GroupByMeta.TypeGroupLongDesc.QUANTILE_SKETCH")
   };
 
   @HopMetadataProperty(
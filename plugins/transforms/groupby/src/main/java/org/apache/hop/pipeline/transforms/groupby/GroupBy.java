@@ -24,8 +24,12 @@ import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopPluginException;
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.MemoryManager;
+import org.apache.hop.core.memory.RowSizeEstimator;
 import org.apache.hop.core.row.*;
 import org.apache.hop.core.row.value.*;
+import org.apache.hop.core.sketch.HyperLogLog;
+import org.apache.hop.core.sketch.QuantileSketch;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.vfs.HopVfs;
 import org.apache.hop.i18n.BaseMessages;
@@ -71,6 +75,22 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
       allNullsAreZero = getVariableBoolean(Const.HOP_AGGREGATION_ALL_NULLS_ARE_ZERO, false);      
       minNullIsValued = getVariableBoolean(Const.HOP_AGGREGATION_MIN_NULL_IS_VALUED, false);
+      data.hllPrecision =
+          Math.max(
+              HyperLogLog.MIN_PRECISION,
+              Math.min(
+                  HyperLogLog.MAX_PRECISION,
+                  Const.toInt(
+                      getVariable(Const.HOP_AGGREGATION_HLL_PRECISION),
+                      HyperLogLog.DEFAULT_PRECISION)));
+      data.quantileSketchK =
+          Math.max(
+              QuantileSketch.MIN_K,
+              Math.min(
+                  QuantileSketch.MAX_K,
+                  Const.toInt(
+                      getVariable(Const.HOP_AGGREGATION_QUANTILE_SKETCH_K),
+                      QuantileSketch.DEFAULT_K)));
       
       // What is the output looking like?
       //
@@ -159,6 +179,11 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       // Initialize the group metadata
       //
       initGroupMeta(data.inputRowMeta);
+
+      // Sums, averages, minimum and maximum of integers and numbers are kept in primitives
+      //
+      data.accumulatorTypes = getAccumulatorTypes();
+      data.numeric = new NumericAccumulator(meta.getAggregations().size());
     }
 
     if (first || data.newBatch) {
@@ -396,6 +421,30 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
       Object subj = row[data.subjectnrs[i]];
       IValueMeta subjMeta = data.inputRowMeta.getValueMeta(data.subjectnrs[i]);
+
+      int accumulatorType =
+          data.accumulatorTypes == null ? NumericAccumulator.TYPE_NONE : data.accumulatorTypes[i];
+      if (accumulatorType != NumericAccumulator.TYPE_NONE) {
+        switch (aggregation.getType()) {
+          case Aggregation.TYPE_GROUP_AVERAGE:
+            if (!subjMeta.isNull(subj)) {
+              data.numeric.sum(i, accumulatorType, subjMeta, subj);
+              data.counts[i]++;
+            }
+            break;
+          case Aggregation.TYPE_GROUP_MIN:
+            data.numeric.min(i, accumulatorType, subjMeta, subj);
+            break;
+          case Aggregation.TYPE_GROUP_MAX:
+            data.numeric.max(i, accumulatorType, subjMeta, subj);
+            break;
+          default:
+            data.numeric.sum(i, accumulatorType, subjMeta, subj);
+            break;
+        }
+        continue;
+      }
+
       Object value = data.agg[i];
       IValueMeta valueMeta = data.aggMeta.getValueMeta(i);
 
@@ -451,6 +500,15 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
             }
           }
           break;
+        case Aggregation.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+        case Aggregation.TYPE_GROUP_DISTINCT_SKETCH:
+          ((HyperLogLog) value).update(subjMeta, subj);
+          break;
+        case Aggregation.TYPE_GROUP_MEDIAN_APPROX:
+        case Aggregation.TYPE_GROUP_PERCENTILE_APPROX:
+        case Aggregation.TYPE_GROUP_QUANTILE_SKETCH:
+          ((QuantileSketch) value).update(subjMeta, subj);
+          break;
         case Aggregation.TYPE_GROUP_COUNT_ALL:
           if (!subjMeta.isNull(subj)) {
             data.counts[i]++;
@@ -561,6 +619,9 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
     data.distinctObjs = null;
     data.agg = new Object[data.subjectnrs.length];
     data.mean = new double[data.subjectnrs.length]; // sets all doubles to 0.0
+    if (data.numeric != null) {
+      data.numeric.clear();
+    }
     data.aggMeta = new RowMeta();
 
     for (int i = 0; i < data.subjectnrs.length; i++) {
@@ -596,6 +657,23 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
         case Aggregation.TYPE_GROUP_STANDARD_DEVIATION_SAMPLE:
           vMeta = new ValueMetaNumber(fieldName);
           break;
+        case Aggregation.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+          vMeta = new ValueMetaInteger(fieldName);
+          v = new HyperLogLog(data.hllPrecision);
+          break;
+        case Aggregation.TYPE_GROUP_DISTINCT_SKETCH:
+          vMeta = new ValueMetaBinary(fieldName);
+          v = new HyperLogLog(data.hllPrecision);
+          break;
+        case Aggregation.TYPE_GROUP_MEDIAN_APPROX:
+        case Aggregation.TYPE_GROUP_PERCENTILE_APPROX:
+          vMeta = new ValueMetaNumber(fieldName);
+          v = new QuantileSketch(data.quantileSketchK);
+          break;
+        case Aggregation.TYPE_GROUP_QUANTILE_SKETCH:
+          vMeta = new ValueMetaBinary(fieldName);
+          v = new QuantileSketch(data.quantileSketchK);
+          break;
         case Aggregation.TYPE_GROUP_COUNT_DISTINCT:
         case Aggregation.TYPE_GROUP_COUNT_ANY:
         case Aggregation.TYPE_GROUP_COUNT_ALL:
@@ -633,9 +711,18 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       if ((subjMeta != null)
           && (aggType != Aggregation.TYPE_GROUP_COUNT_ALL
               && aggType != Aggregation.TYPE_GROUP_COUNT_DISTINCT
-              && aggType != Aggregation.TYPE_GROUP_COUNT_ANY)) {
+              && aggType != Aggregation.TYPE_GROUP_COUNT_ANY
+              && aggType != Aggregation.TYPE_GROUP_COUNT_DISTINCT_APPROX
+              && aggType != Aggregation.TYPE_GROUP_DISTINCT_SKETCH
+              && aggType != Aggregation.TYPE_GROUP_QUANTILE_SKETCH)) {
         vMeta.setLength(subjMeta.getLength(), subjMeta.getPrecision());
       }
+      if (data.accumulatorTypes != null
+          && data.accumulatorTypes[i] != NumericAccumulator.TYPE_NONE) {
+        // The accumulated values are never lazily converted
+        //
+        vMeta.setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
+      }
       data.agg[i] = v;
       data.aggMeta.addValueMeta(vMeta);
     }
@@ -651,6 +738,30 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
     }
   }
 
+  /**
+   * Determine which aggregations are kept in primitive values, based on the type of the subject.
+   * Minimum values are only kept in primitives when null values are ignored.
+   */
+  private int[] getAccumulatorTypes() {
+    int[] accumulatorTypes = new int[data.subjectnrs.length];
+    for (int i = 0; i < data.subjectnrs.length; i++) {
+      int aggType = meta.getAggregations().get(i).getType();
+      if (data.subjectnrs[i] < 0
+          || (aggType == Aggregation.TYPE_GROUP_MIN && minNullIsValued)
+          || (aggType != Aggregation.TYPE_GROUP_SUM
+              && aggType != Aggregation.TYPE_GROUP_AVERAGE
+              && aggType != Aggregation.TYPE_GROUP_MIN
+              && aggType != Aggregation.TYPE_GROUP_MAX)) {
+        accumulatorTypes[i] = NumericAccumulator.TYPE_NONE;
+      } else {
+        accumulatorTypes[i] =
+            NumericAccumulator.getAccumulatorType(
+                data.inputRowMeta.getValueMeta(data.subjectnrs[i]));
+      }
+    }
+    return accumulatorTypes;
+  }
+
   private Object[] buildResult(Object[] r) throws HopValueException {
     Object[] result = null;
     if (r != null || meta.isAlwaysGivingBackOneRow()) {
@@ -693,6 +804,18 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       Object ag = data.agg[i];
       int aggType = aggregation.getType();
       String fieldName = aggregation.getField();
+
+      int accumulatorType =
+          data.accumulatorTypes == null ? NumericAccumulator.TYPE_NONE : data.accumulatorTypes[i];
+      if (accumulatorType != NumericAccumulator.TYPE_NONE) {
+        if (aggType == Aggregation.TYPE_GROUP_AVERAGE) {
+          ag = data.numeric.getAverage(i, accumulatorType, data.counts[i]);
+        } else {
+          ag = data.numeric.getValue(i, accumulatorType);
+        }
+        aggType = Aggregation.TYPE_GROUP_NONE; // nothing left to calculate
+      }
+
       switch (aggType) {
         case Aggregation.TYPE_GROUP_SUM:
           break;
@@ -737,6 +860,31 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
           break;
         case Aggregation.TYPE_GROUP_COUNT_DISTINCT:
           break;
+        case Aggregation.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+          {
+            // Like the exact count, no values at all gives null
+            //
+            long estimate = ((HyperLogLog) ag).estimate();
+            ag = estimate == 0 ? null : Long.valueOf(estimate);
+            break;
+          }
+        case Aggregation.TYPE_GROUP_DISTINCT_SKETCH:
+          ag = ((HyperLogLog) ag).toBytes();
+          break;
+        case Aggregation.TYPE_GROUP_MEDIAN_APPROX:
+        case Aggregation.TYPE_GROUP_PERCENTILE_APPROX:
+          {
+            double fraction = 0.5;
+            if (aggType == Aggregation.TYPE_GROUP_PERCENTILE_APPROX) {
+              fraction = Double.parseDouble(aggregation.getValue()) / 100;
+            }
+            double quantile = ((QuantileSketch) ag).getQuantile(fraction);
+            ag = Double.isNaN(quantile) ? null : Double.valueOf(quantile);
+            break;
+          }
+        case Aggregation.TYPE_GROUP_QUANTILE_SKETCH:
+          ag = ((QuantileSketch) ag).toBytes();
+          break;
         case Aggregation.TYPE_GROUP_MIN:
           break;
         case Aggregation.TYPE_GROUP_MAX:
@@ -794,7 +942,21 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
   // Method is defined as package-protected in order to be accessible by unit tests
   void addToBuffer(Object[] row) throws HopFileException {
     data.bufferList.add(row);
-    if (data.bufferList.size() > 5000 && data.rowsOnFile == 0) {
+
+    // Keep the rows of the group in memory as long as they fit in the memory budget of this
+    // transform. Once we run out, move the buffered rows to a temporary file.
+    //
+    long rowSize = RowSizeEstimator.estimateRowSize(data.inputRowMeta, row);
+    if (data.memoryBudget == null || data.memoryBudget.reserve(rowSize)) {
+      data.bufferBytes += rowSize;
+      return;
+    }
+
+    if (data.dosToTempFile == null) {
+      // Remove the temporary file of a previous group
+      //
+      deleteTempFile();
+
       String pathToTmp = resolve(getMeta().getDirectory());
       try {
         File ioFile = new File(pathToTmp);
@@ -804,18 +966,44 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
         }
         data.tempFile = File.createTempFile(getMeta().getPrefix(), ".tmp", new File(pathToTmp));
         data.fosToTempFile = new FileOutputStream(data.tempFile);
-        data.dosToTempFile = new DataOutputStream(data.fosToTempFile);
+        data.dosToTempFile = new DataOutputStream(new BufferedOutputStream(data.fosToTempFile));
         data.firstRead = true;
       } catch (IOException e) {
         throw new HopFileException(
             BaseMessages.getString(PKG, "GroupBy.Exception.UnableToCreateTemporaryFile"), e);
       }
-      // OK, save the oldest rows to disk!
-      Object[] oldest = data.bufferList.get(0);
-      data.inputRowMeta.writeData(data.dosToTempFile, oldest);
-      data.bufferList.remove(0);
+      data.tempFileCodec = new RowCodec(data.inputRowMeta, true);
+      data.tempFileCodec.writeHeader(data.dosToTempFile);
+    }
+
+    // OK, save the buffered rows to disk!
+    for (Object[] bufferedRow : data.bufferList) {
+      data.tempFileCodec.writeRow(data.dosToTempFile, bufferedRow);
       data.rowsOnFile++;
     }
+    data.bufferList.clear();
+    releaseBuffer();
+  }
+
+  /** Give the memory of the buffered rows back to the memory budget */
+  private void releaseBuffer() {
+    if (data.memoryBudget != null) {
+      data.memoryBudget.releaseAll();
+    }
+    data.bufferBytes = 0;
+  }
+
+  private void deleteTempFile() {
+    if (data.tempFile != null) {
+      boolean tempFileDeleted = data.tempFile.delete();
+
+      if (!tempFileDeleted && log.isDetailed()) {
+        log.logDetailed(
+            BaseMessages.getString(
+                PKG, "GroupBy.Exception.UnableToDeleteTemporaryFile", data.tempFile.getPath()));
+      }
+      data.tempFile = null;
+    }
   }
 
   // Method is defined as public in order to be accessible by unit tests
@@ -830,20 +1018,25 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       if (data.firstRead) {
         // Open the inputstream first...
         try {
+          if (data.dosToTempFile != null) {
+            data.dosToTempFile.flush();
+          }
           data.fisToTmpFile = new FileInputStream(data.tempFile);
-          data.disToTmpFile = new DataInputStream(data.fisToTmpFile);
+          data.disToTmpFile = new DataInputStream(new BufferedInputStream(data.fisToTmpFile));
           data.firstRead = false;
         } catch (IOException e) {
           throw new HopFileException(
               BaseMessages.getString(PKG, "GroupBy.Exception.UnableToReadBackRowFromTemporaryFile"),
               e);
         }
+        data.tempFileCodec = new RowCodec(data.inputRowMeta);
+        data.tempFileCodec.readHeader(data.disToTmpFile);
       }
 
       // Read one row from the file!
       Object[] row;
       try {
-        row = data.inputRowMeta.readData(data.disToTmpFile);
+        row = data.tempFileCodec.readRow(data.disToTmpFile);
       } catch (SocketTimeoutException e) {
         throw new HopFileException(e); // Shouldn't happen on files
       }
@@ -851,12 +1044,15 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
       return row;
     } else {
-      if (data.bufferList.size() > 0) {
-        Object[] row = data.bufferList.get(0);
-        data.bufferList.remove(0);
-        return row;
+      if (data.bufferIndex < data.bufferList.size()) {
+        return data.bufferList.get(data.bufferIndex++);
       } else {
-        return null; // Nothing left!
+        // Nothing left! Clear the buffer for the next group
+        //
+        data.bufferList.clear();
+        data.bufferIndex = 0;
+        releaseBuffer();
+        return null;
       }
     }
   }
@@ -906,6 +1102,12 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
       data.rowsOnFile = 0;
 
+      // The rows of a group are kept in memory within the budget we get from the memory manager
+      //
+      if (meta.isPassAllRows()) {
+        data.memoryBudget = MemoryManager.getInstance().createBudget(getTransformName(), 0);
+      }
+
       return true;
     }
     return false;
@@ -922,13 +1124,11 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
         log.logError(e.getLocalizedMessage());
       }
 
-      boolean tempFileDeleted = data.tempFile.delete();
-
-      if (!tempFileDeleted && log.isDetailed()) {
-        log.logDetailed(
-            BaseMessages.getString(
-                PKG, "GroupBy.Exception.UnableToDeleteTemporaryFile", data.tempFile.getPath()));
-      }
+      deleteTempFile();
+    }
+    if (data.memoryBudget != null) {
+      data.memoryBudget.close();
+      data.memoryBudget = null;
     }
 
     super.dispose();
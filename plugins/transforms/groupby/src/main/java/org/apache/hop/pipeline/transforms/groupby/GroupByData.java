@@ -17,8 +17,13 @@
 
 package org.apache.hop.pipeline.transforms.groupby;
 
+import org.apache.hop.core.memory.MemoryBudget;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.NumericAccumulator;
+import org.apache.hop.core.row.RowCodec;
+import org.apache.hop.core.sketch.HyperLogLog;
+import org.apache.hop.core.sketch.QuantileSketch;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
@@ -49,12 +54,22 @@ public class GroupByData extends BaseTransformData implements ITransformData {
 
   public ArrayList<Object[]> bufferList;
 
+  /** The index of the next row to read from the buffer */
+  public int bufferIndex;
+
+  /** The memory budget for the buffered rows and the estimated size of the buffered rows */
+  public MemoryBudget memoryBudget;
+
+  public long bufferBytes;
+
   public File tempFile;
 
   public FileOutputStream fosToTempFile;
 
   public DataOutputStream dosToTempFile;
 
+  public RowCodec tempFileCodec;
+
   public int rowsOnFile;
 
   public boolean firstRead;
@@ -86,11 +101,23 @@ public class GroupByData extends BaseTransformData implements ITransformData {
 
   public double[] mean;
 
+  /** The primitive state of the numeric aggregations and how each aggregation is accumulated */
+  public NumericAccumulator numeric;
+
+  public int[] accumulatorTypes;
+
+  /** The accuracy of the sketches used by the approximate aggregations */
+  public int hllPrecision;
+
+  public int quantileSketchK;
+
   public boolean newBatch;
 
   public GroupByData() {
     super();
 
     previous = null;
+    hllPrecision = HyperLogLog.DEFAULT_PRECISION;
+    quantileSketchK = QuantileSketch.DEFAULT_K;
   }
 }
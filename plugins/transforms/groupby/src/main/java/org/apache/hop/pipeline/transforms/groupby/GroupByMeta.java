@@ -267,6 +267,7 @@ public class GroupByMeta extends BaseTransformMeta<GroupBy, GroupByData> {
           case Aggregation.TYPE_GROUP_COUNT_DISTINCT:
           case Aggregation.TYPE_GROUP_COUNT_ANY:
           case Aggregation.TYPE_GROUP_COUNT_ALL:
+          case Aggregation.TYPE_GROUP_COUNT_DISTINCT_APPROX:
             valueType = IValueMeta.TYPE_INTEGER;
             break;
           case Aggregation.TYPE_GROUP_CONCAT_COMMA:
@@ -277,8 +278,14 @@ public class GroupByMeta extends BaseTransformMeta<GroupBy, GroupByData> {
           case Aggregation.TYPE_GROUP_STANDARD_DEVIATION_SAMPLE:
           case Aggregation.TYPE_GROUP_PERCENTILE:
           case Aggregation.TYPE_GROUP_PERCENTILE_NEAREST_RANK:
+          case Aggregation.TYPE_GROUP_MEDIAN_APPROX:
+          case Aggregation.TYPE_GROUP_PERCENTILE_APPROX:
             valueType = IValueMeta.TYPE_NUMBER;
             break;
+          case Aggregation.TYPE_GROUP_DISTINCT_SKETCH:
+          case Aggregation.TYPE_GROUP_QUANTILE_SKETCH:
+            valueType = IValueMeta.TYPE_BINARY;
+            break;
           case Aggregation.TYPE_GROUP_CONCAT_STRING:
           case Aggregation.TYPE_GROUP_CONCAT_STRING_CRLF:
           case Aggregation.TYPE_GROUP_CONCAT_DISTINCT:
@@ -297,6 +304,7 @@ public class GroupByMeta extends BaseTransformMeta<GroupBy, GroupByData> {
           length = -1;
         } else if (aggregationType == Aggregation.TYPE_GROUP_COUNT_ALL
             || aggregationType == Aggregation.TYPE_GROUP_COUNT_DISTINCT
+            || aggregationType == Aggregation.TYPE_GROUP_COUNT_DISTINCT_APPROX
             || aggregationType == Aggregation.TYPE_GROUP_COUNT_ANY) {
           length = IValueMeta.DEFAULT_INTEGER_LENGTH;
           precision = 0;
@@ -0,0 +1,519 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.memory.MemoryManager;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowDataUtil;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.stream.IStream;
+import org.apache.hop.pipeline.transforms.hashjoin.HashJoinMeta.JoinType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Join the rows of 2 streams on key fields without sorting them first. All the rows of the second
+ * (right) stream are read into a hash table, then the rows of the first (left) stream look up
+ * their matches one by one.
+ *
+ * <p>The memory for the rows of the right stream is reserved in the JVM-wide memory pool, up to
+ * the configured maximum. When it can't be reserved, both streams are split over a number of
+ * partitions in temporary files on the hash of their keys (grace hash join). The partitions are
+ * then joined one by one, which only needs to keep the rows of one partition of the right stream
+ * in memory. A partition which still doesn't fit is split again on another hash of the keys.
+ *
+ * <p>Every copy of this transform only joins the rows it receives. To run multiple copies both
+ * input streams need to be partitioned on the join keys with the same partition schema.
+ */
+public class HashJoin extends BaseTransform<HashJoinMeta, HashJoinData> {
+  private static final Class<?> PKG = HashJoinMeta.class; // For Translator
+
+  /** The number of times a partition is split again before we give up and exceed the memory */
+  private static final int MAX_REPARTITION_LEVEL = 4;
+
+  public HashJoin(
+      TransformMeta transformMeta,
+      HashJoinMeta meta,
+      HashJoinData data,
+      int copyNr,
+      PipelineMeta pipelineMeta,
+      Pipeline pipeline) {
+    super(transformMeta, meta, data, copyNr, pipelineMeta, pipeline);
+  }
+
+  @Override
+  public boolean processRow() throws HopException {
+    Object[] one;
+
+    if (first) {
+      first = false;
+
+      // Find the RowSet to read from
+      //
+      List<IStream> infoStreams = meta.getTransformIOMeta().getInfoStreams();
+      data.oneRowSet = findRowSet(infoStreams.get(0));
+      data.twoRowSet = findRowSet(infoStreams.get(1));
+
+      one = getRowFrom(data.oneRowSet);
+      if (one != null) {
+        data.oneMeta = data.oneRowSet.getRowMeta();
+      } else {
+        data.oneMeta =
+            getPipelineMeta().getTransformFields(this, infoStreams.get(0).getTransformName());
+      }
+
+      Object[] two = getRowFrom(data.twoRowSet);
+      if (two != null) {
+        data.twoMeta = data.twoRowSet.getRowMeta();
+      } else {
+        data.twoMeta =
+            getPipelineMeta().getTransformFields(this, infoStreams.get(1).getTransformName());
+      }
+
+      // just for speed: oneMeta+twoMeta
+      //
+      data.outputRowMeta = new RowMeta();
+      data.outputRowMeta.mergeRowMeta(data.oneMeta.clone());
+      data.outputRowMeta.mergeRowMeta(data.twoMeta.clone());
+
+      data.keyNrs1 = getKeyNrs(data.oneMeta, meta.getKeyFields1());
+      data.keyNrs2 = getKeyNrs(data.twoMeta, meta.getKeyFields2());
+      if (data.keyNrs1.length != data.keyNrs2.length) {
+        throw new HopTransformException(
+            BaseMessages.getString(PKG, "HashJoin.Exception.KeysMismatch"));
+      }
+
+      // The keys of the left stream are converted to the data type of the keys on the right
+      //
+      data.keyMetas1 = getKeyMetas(data.oneMeta, data.keyNrs1);
+      data.keyMetas2 = getKeyMetas(data.twoMeta, data.keyNrs2);
+      data.convertKeys = new boolean[data.keyNrs1.length];
+      for (int i = 0; i < data.convertKeys.length; i++) {
+        data.convertKeys[i] = data.keyMetas1[i].getType() != data.keyMetas2[i].getType();
+      }
+
+      readRightRows(two);
+    } else {
+      one = getRowFrom(data.oneRowSet);
+    }
+
+    if (one == null) {
+      finishJoin();
+      setOutputDone();
+      return false;
+    }
+
+    if (data.spilling) {
+      HashJoinKey key = getKey(one, data.keyNrs1, data.oneMeta, true);
+      data.leftFiles[key.getPartition(data.nrPartitions)].write(one);
+    } else {
+      joinLeftRow(one);
+    }
+
+    if (checkFeedback(getLinesRead()) && log.isBasic()) {
+      logBasic(BaseMessages.getString(PKG, "HashJoin.Log.LineNumber") + getLinesRead());
+    }
+
+    return true;
+  }
+
+  private IRowSet findRowSet(IStream stream) throws HopException {
+    IRowSet rowSet = findInputRowSet(stream.getTransformName());
+    if (rowSet == null) {
+      throw new HopException(
+          BaseMessages.getString(
+              PKG, "HashJoin.Exception.UnableToFindSpecifiedTransform", stream.getTransformName()));
+    }
+    return rowSet;
+  }
+
+  private int[] getKeyNrs(IRowMeta rowMeta, List<String> keyFields) throws HopTransformException {
+    int[] keyNrs = new int[keyFields.size()];
+    for (int i = 0; i < keyNrs.length; i++) {
+      keyNrs[i] = rowMeta.indexOfValue(keyFields.get(i));
+      if (keyNrs[i] < 0) {
+        String message =
+            BaseMessages.getString(
+                PKG, "HashJoin.Exception.UnableToFindFieldInReferenceStream", keyFields.get(i));
+        logError(message);
+        throw new HopTransformException(message);
+      }
+    }
+    return keyNrs;
+  }
+
+  private IValueMeta[] getKeyMetas(IRowMeta rowMeta, int[] keyNrs) {
+    IValueMeta[] keyMetas = new IValueMeta[keyNrs.length];
+    for (int i = 0; i < keyNrs.length; i++) {
+      keyMetas[i] = rowMeta.getValueMeta(keyNrs[i]).clone();
+      keyMetas[i].setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
+    }
+    return keyMetas;
+  }
+
+  /**
+   * Read all the rows of the right stream into the hash table. When the memory for the table can't
+   * be reserved we switch to partitioning the rows to temporary files.
+   */
+  private void readRightRows(Object[] two) throws HopException {
+    data.table = new HashJoinTable(data.twoMeta);
+    while (two != null && !isStopped()) {
+      HashJoinKey key = getKey(two, data.keyNrs2, data.twoMeta, false);
+      if (data.spilling) {
+        data.rightFiles[key.getPartition(data.nrPartitions)].write(two);
+      } else {
+        if (!addToTable(key, two)) {
+          startSpilling();
+        }
+      }
+      two = getRowFrom(data.twoRowSet);
+    }
+
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "HashJoin.Log.RightRowsRead",
+              Long.toString(getLinesRead()),
+              Boolean.toString(data.spilling)));
+    }
+  }
+
+  /** Move the rows in the hash table to the partition files of the right stream */
+  private void startSpilling() throws HopException {
+    if (log.isBasic()) {
+      logBasic(
+          BaseMessages.getString(
+              PKG,
+              "HashJoin.Log.StartSpilling",
+              Long.toString(data.table.getNrRows()),
+              Integer.toString(data.nrPartitions),
+              data.spillDirectory));
+    }
+    data.spilling = true;
+    data.leftFiles = new HashJoinSpillFile[data.nrPartitions];
+    data.rightFiles = new HashJoinSpillFile[data.nrPartitions];
+    for (int p = 0; p < data.nrPartitions; p++) {
+      data.leftFiles[p] =
+          new HashJoinSpillFile(
+              data.oneMeta, data.spillDirectory, "hashjoin-left", data.compressFiles);
+      data.rightFiles[p] =
+          new HashJoinSpillFile(
+              data.twoMeta, data.spillDirectory, "hashjoin-right", data.compressFiles);
+    }
+
+    spillTable(data.rightFiles, 0);
+  }
+
+  /**
+   * Add a row of the right stream to the hash table and reserve the memory it takes.
+   *
+   * @return false if the memory could not be reserved: the row is added, but the rows in the table
+   *     should be moved to disk
+   */
+  private boolean addToTable(HashJoinKey key, Object[] row) {
+    long size = data.table.getEstimatedSize();
+    data.table.add(key, row);
+    return data.memoryBudget.reserve(data.table.getEstimatedSize() - size);
+  }
+
+  /** Move the rows of the hash table to partition files and release their memory */
+  private void spillTable(HashJoinSpillFile[] files, int level) throws HopException {
+    for (Map.Entry<HashJoinKey, HashJoinTable.Group> entry : data.table.getGroups().entrySet()) {
+      HashJoinSpillFile file = files[entry.getKey().getPartition(files.length, level)];
+      for (Object[] row : entry.getValue().getRows()) {
+        file.write(row);
+      }
+    }
+    clearTable();
+  }
+
+  private void clearTable() {
+    data.table.clear();
+    data.memoryBudget.releaseAll();
+  }
+
+  /**
+   * Calculate the join key of a row.
+   *
+   * @param row The row
+   * @param keyNrs The indexes of the key fields
+   * @param rowMeta The metadata of the row
+   * @param left true if the row comes from the left stream
+   * @return The key
+   * @throws HopException In case a key value of the left stream can't be converted
+   */
+  private HashJoinKey getKey(Object[] row, int[] keyNrs, IRowMeta rowMeta, boolean left)
+      throws HopException {
+    Object[] values = new Object[keyNrs.length];
+    for (int i = 0; i < keyNrs.length; i++) {
+      Object value = rowMeta.getValueMeta(keyNrs[i]).convertToNormalStorageType(row[keyNrs[i]]);
+      if (left && data.convertKeys[i]) {
+        value = data.keyMetas2[i].convertData(data.keyMetas1[i], value);
+      }
+      values[i] = value;
+    }
+    return new HashJoinKey(values);
+  }
+
+  /** Pass on a row of the left stream combined with its matches in the hash table */
+  private void joinLeftRow(Object[] one) throws HopException {
+    HashJoinTable.Group group = data.table.get(getKey(one, data.keyNrs1, data.oneMeta, true));
+    if (group != null) {
+      group.setMatched();
+      for (Object[] two : group.getRows()) {
+        putRow(data.outputRowMeta, combineRows(one, two));
+      }
+    } else if (meta.getJoinType().isKeepingUnmatchedLeftRows()) {
+      putRow(data.outputRowMeta, combineRows(one, null));
+    }
+  }
+
+  /** Pass on the rows of the right stream in the hash table which didn't match any row */
+  private void putUnmatchedRightRows() throws HopException {
+    if (!meta.getJoinType().isKeepingUnmatchedRightRows()) {
+      return;
+    }
+    for (HashJoinTable.Group group : data.table.getGroups().values()) {
+      if (!group.isMatched()) {
+        for (Object[] two : group.getRows()) {
+          putRow(data.outputRowMeta, combineRows(null, two));
+        }
+      }
+    }
+  }
+
+  private Object[] combineRows(Object[] one, Object[] two) {
+    Object[] outputRowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
+    int oneSize = data.oneMeta.size();
+    if (one != null) {
+      System.arraycopy(one, 0, outputRowData, 0, Math.min(one.length, oneSize));
+    }
+    if (two != null) {
+      System.arraycopy(two, 0, outputRowData, oneSize, Math.min(two.length, data.twoMeta.size()));
+    }
+    return outputRowData;
+  }
+
+  /** All the rows of the left stream are read: join the partitions if we spilled to disk. */
+  private void finishJoin() throws HopException {
+    if (!data.spilling) {
+      putUnmatchedRightRows();
+      clearTable();
+      return;
+    }
+
+    for (int p = 0; p < data.nrPartitions && !isStopped(); p++) {
+      joinPartition(Integer.toString(p), data.rightFiles[p], data.leftFiles[p], 1);
+
+      deleteQuietly(data.rightFiles[p]);
+      deleteQuietly(data.leftFiles[p]);
+      data.rightFiles[p] = null;
+      data.leftFiles[p] = null;
+    }
+    clearTable();
+  }
+
+  /**
+   * Join the rows of one partition of both streams. When the rows of the right stream don't fit in
+   * memory, the partition is split again on another hash of the keys and the parts are joined one
+   * by one.
+   *
+   * @param name The name of the partition, for logging
+   * @param rightFile The rows of the right stream in the partition
+   * @param leftFile The rows of the left stream in the partition
+   * @param level The level to split the partition at if it doesn't fit in memory
+   */
+  private void joinPartition(
+      String name, HashJoinSpillFile rightFile, HashJoinSpillFile leftFile, int level)
+      throws HopException {
+    clearTable();
+    boolean fits = true;
+    rightFile.startReading();
+    Object[] two = rightFile.read();
+    while (two != null && !isStopped()) {
+      if (!addToTable(getKey(two, data.keyNrs2, data.twoMeta, false), two) && fits) {
+        fits = false;
+
+        // The rows of a single key can't be split over partitions
+        //
+        if (level <= MAX_REPARTITION_LEVEL && data.table.getGroups().size() > 1) {
+          repartition(name, rightFile, leftFile, level);
+          return;
+        }
+      }
+      two = rightFile.read();
+    }
+    if (!fits && log.isBasic()) {
+      logBasic(
+          BaseMessages.getString(
+              PKG,
+              "HashJoin.Log.PartitionTooLarge",
+              name,
+              Long.toString(data.table.getNrRows())));
+    }
+
+    leftFile.startReading();
+    Object[] one = leftFile.read();
+    while (one != null && !isStopped()) {
+      joinLeftRow(one);
+      one = leftFile.read();
+    }
+    putUnmatchedRightRows();
+    clearTable();
+  }
+
+  /**
+   * Split a partition which doesn't fit in memory: the rows in the hash table and the rest of the
+   * rows of both streams are moved to new partition files, which are then joined one by one.
+   */
+  private void repartition(
+      String name, HashJoinSpillFile rightFile, HashJoinSpillFile leftFile, int level)
+      throws HopException {
+    // Split at least in two, also when the streams were not partitioned at first
+    //
+    int nrPartitions = Math.max(2, data.nrPartitions);
+    if (log.isBasic()) {
+      logBasic(
+          BaseMessages.getString(
+              PKG,
+              "HashJoin.Log.Repartition",
+              name,
+              Long.toString(data.table.getNrRows()),
+              Integer.toString(nrPartitions)));
+    }
+    data.nrRepartitions++;
+    HashJoinSpillFile[] rightFiles = new HashJoinSpillFile[nrPartitions];
+    HashJoinSpillFile[] leftFiles = new HashJoinSpillFile[nrPartitions];
+    try {
+      for (int p = 0; p < nrPartitions; p++) {
+        rightFiles[p] =
+            new HashJoinSpillFile(
+                data.twoMeta, data.spillDirectory, "hashjoin-right", data.compressFiles);
+        leftFiles[p] =
+            new HashJoinSpillFile(
+                data.oneMeta, data.spillDirectory, "hashjoin-left", data.compressFiles);
+      }
+      spillTable(rightFiles, level);
+      Object[] two = rightFile.read();
+      while (two != null && !isStopped()) {
+        HashJoinKey key = getKey(two, data.keyNrs2, data.twoMeta, false);
+        rightFiles[key.getPartition(nrPartitions, level)].write(two);
+        two = rightFile.read();
+      }
+      leftFile.startReading();
+      Object[] one = leftFile.read();
+      while (one != null && !isStopped()) {
+        HashJoinKey key = getKey(one, data.keyNrs1, data.oneMeta, true);
+        leftFiles[key.getPartition(nrPartitions, level)].write(one);
+        one = leftFile.read();
+      }
+
+      for (int p = 0; p < nrPartitions && !isStopped(); p++) {
+        joinPartition(name + "." + p, rightFiles[p], leftFiles[p], level + 1);
+        deleteQuietly(rightFiles[p]);
+        deleteQuietly(leftFiles[p]);
+        rightFiles[p] = null;
+        leftFiles[p] = null;
+      }
+    } finally {
+      for (int p = 0; p < nrPartitions; p++) {
+        deleteQuietly(rightFiles[p]);
+        deleteQuietly(leftFiles[p]);
+      }
+    }
+  }
+
+  private void deleteQuietly(HashJoinSpillFile file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      file.delete();
+    } catch (Exception e) {
+      logError(e.getLocalizedMessage(), e);
+    }
+  }
+
+  @Override
+  public boolean init() {
+    if (super.init()) {
+      List<IStream> infoStreams = meta.getTransformIOMeta().getInfoStreams();
+      if (infoStreams.get(0).getTransformMeta() == null
+          || infoStreams.get(1).getTransformMeta() == null) {
+        logError(BaseMessages.getString(PKG, "HashJoin.Log.BothStreamsNeeded"));
+        return false;
+      }
+
+      long defaultMaxMemory = Const.toLong(HashJoinMeta.DEFAULT_MAX_MEMORY, 0);
+      data.maxMemory = Const.toLong(resolve(meta.getMaxMemory()), defaultMaxMemory) * 1024L * 1024L;
+      data.nrPartitions =
+          Math.max(
+              1,
+              Const.toInt(
+                  resolve(meta.getSpillPartitions()),
+                  Const.toInt(HashJoinMeta.DEFAULT_SPILL_PARTITIONS, 1)));
+      data.spillDirectory = resolve(meta.getSpillDirectory());
+      data.compressFiles = meta.isCompressingSpillFiles();
+
+      // The maximum memory limits the memory taken from the pool shared by all transforms
+      //
+      data.memoryBudget =
+          MemoryManager.getInstance().createBudget(getTransformName(), data.maxMemory);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void dispose() {
+    // Remove the partition files we didn't get to, for example when the pipeline was stopped
+    //
+    if (data.leftFiles != null) {
+      for (HashJoinSpillFile file : data.leftFiles) {
+        deleteQuietly(file);
+      }
+      data.leftFiles = null;
+    }
+    if (data.rightFiles != null) {
+      for (HashJoinSpillFile file : data.rightFiles) {
+        deleteQuietly(file);
+      }
+      data.rightFiles = null;
+    }
+    if (data.table != null) {
+      data.table.clear();
+    }
+    if (data.memoryBudget != null) {
+      data.memoryBudget.close();
+      data.memoryBudget = null;
+    }
+    super.dispose();
+  }
+}
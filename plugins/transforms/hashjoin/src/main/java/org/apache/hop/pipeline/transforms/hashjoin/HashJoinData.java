@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.memory.MemoryBudget;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.pipeline.transform.BaseTransformData;
+import org.apache.hop.pipeline.transform.ITransformData;
+
+public class HashJoinData extends BaseTransformData implements ITransformData {
+  public IRowSet oneRowSet;
+  public IRowSet twoRowSet;
+  public IRowMeta oneMeta;
+  public IRowMeta twoMeta;
+  public IRowMeta outputRowMeta; // just for speed: oneMeta+twoMeta
+
+  public int[] keyNrs1;
+  public int[] keyNrs2;
+
+  /** The metadata of the key values of both streams, with normal storage */
+  public IValueMeta[] keyMetas1;
+
+  public IValueMeta[] keyMetas2;
+
+  /** True for the keys of the left stream which need to be converted to the type on the right */
+  public boolean[] convertKeys;
+
+  /** The rows of the right stream, or of the partition of the right stream being joined */
+  public HashJoinTable table;
+
+  public long maxMemory;
+
+  /** The memory for the rows in the hash table, taken from the JVM-wide memory pool */
+  public MemoryBudget memoryBudget;
+
+  public String spillDirectory;
+  public int nrPartitions;
+  public boolean compressFiles;
+
+  /** True if the rows don't fit in memory and are partitioned to temporary files */
+  public boolean spilling;
+
+  public HashJoinSpillFile[] leftFiles;
+  public HashJoinSpillFile[] rightFiles;
+
+  /** The number of partitions which were split again because they didn't fit in memory */
+  public int nrRepartitions;
+
+  /** Default initializer */
+  public HashJoinData() {
+    super();
+    spilling = false;
+  }
+}
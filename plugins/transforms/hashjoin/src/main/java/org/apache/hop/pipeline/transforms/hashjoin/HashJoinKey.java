@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The key values of a row, normalized so that equal values of the same data type have the same
+ * hash code: big numbers are compared without trailing zeros, -0.0 is the same as 0.0 and binary
+ * values are compared by content. Null values are equal to each other, like in the Merge join
+ * transform.
+ */
+final class HashJoinKey {
+  private final Object[] values;
+  private final int hashCode;
+
+  HashJoinKey(Object[] values) {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = normalize(values[i]);
+    }
+    this.values = values;
+    this.hashCode = Arrays.hashCode(values);
+  }
+
+  private static Object normalize(Object value) {
+    if (value instanceof BigDecimal) {
+      BigDecimal bigDecimal = (BigDecimal) value;
+      return bigDecimal.signum() == 0 ? BigDecimal.ZERO : bigDecimal.stripTrailingZeros();
+    }
+    if (value instanceof Double && ((Double) value) == 0.0) {
+      return 0.0;
+    }
+    if (value instanceof byte[]) {
+      return ByteBuffer.wrap((byte[]) value);
+    }
+    return value;
+  }
+
+  /**
+   * Spread the bits of the hash code to pick the spill partition of the key. The hash table of a
+   * partition uses the lower bits of the hash code so we use the higher bits of the product here:
+   * otherwise all keys of a partition would end up in the same few buckets.
+   *
+   * @param nrPartitions The number of partitions
+   * @return The partition of this key
+   */
+  int getPartition(int nrPartitions) {
+    long spread = (hashCode * 0x9E3779B97F4A7C15L) >>> 32;
+    return (int) (spread % nrPartitions);
+  }
+
+  /**
+   * Pick the partition of this key when a partition which doesn't fit in memory is split again.
+   * Every level mixes the hash code with another seed, otherwise all the keys of the partition
+   * would end up in the same partition again.
+   *
+   * @param nrPartitions The number of partitions
+   * @param level The number of times the partition was split before, 0 for the first partitioning
+   * @return The partition of this key
+   */
+  int getPartition(int nrPartitions, int level) {
+    if (level == 0) {
+      return getPartition(nrPartitions);
+    }
+    long x = hashCode ^ (level * 0xC2B2AE3D27D4EB4FL);
+    x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+    x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    x ^= x >>> 33;
+    return (int) ((x >>> 32) % nrPartitions);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof HashJoinKey)) {
+      return false;
+    }
+    HashJoinKey other = (HashJoinKey) o;
+    return hashCode == other.hashCode && Arrays.equals(values, other.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
@@ -0,0 +1,474 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.CheckResult;
+import org.apache.hop.core.Const;
+import org.apache.hop.core.ICheckResult;
+import org.apache.hop.core.annotations.Transform;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.util.Utils;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.metadata.api.HopMetadataProperty;
+import org.apache.hop.metadata.api.IEnumHasCode;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.PipelineMeta.PipelineType;
+import org.apache.hop.pipeline.transform.BaseTransformMeta;
+import org.apache.hop.pipeline.transform.ITransformIOMeta;
+import org.apache.hop.pipeline.transform.TransformIOMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.stream.IStream;
+import org.apache.hop.pipeline.transform.stream.IStream.StreamType;
+import org.apache.hop.pipeline.transform.stream.Stream;
+import org.apache.hop.pipeline.transform.stream.StreamIcon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Transform(
+    id = "HashJoin",
+    image = "hashjoin.svg",
+    name = "i18n::HashJoin.Name",
+    description = "i18n::HashJoin.Description",
+    categoryDescription = "i18n:org.apache.hop.pipeline.transform:BaseTransform.Category.Joins",
+    keywords = "i18n::HashJoinMeta.keyword",
+    documentationUrl = "/pipeline/transforms/hashjoin.html")
+public class HashJoinMeta extends BaseTransformMeta<HashJoin, HashJoinData> {
+  private static final Class<?> PKG = HashJoinMeta.class; // For Translator
+
+  public enum JoinType implements IEnumHasCode {
+    INNER("INNER", BaseMessages.getString(PKG, "HashJoinMeta.JoinType.Inner"), false, false),
+    LEFT_OUTER(
+        "LEFT OUTER", BaseMessages.getString(PKG, "HashJoinMeta.JoinType.LeftOuter"), true, false),
+    RIGHT_OUTER(
+        "RIGHT OUTER",
+        BaseMessages.getString(PKG, "HashJoinMeta.JoinType.RightOuter"),
+        false,
+        true),
+    FULL_OUTER(
+        "FULL OUTER", BaseMessages.getString(PKG, "HashJoinMeta.JoinType.FullOuter"), true, true),
+    ;
+
+    private String code;
+    private String description;
+    private boolean keepingUnmatchedLeftRows;
+    private boolean keepingUnmatchedRightRows;
+
+    JoinType(
+        String code,
+        String description,
+        boolean keepingUnmatchedLeftRows,
+        boolean keepingUnmatchedRightRows) {
+      this.code = code;
+      this.description = description;
+      this.keepingUnmatchedLeftRows = keepingUnmatchedLeftRows;
+      this.keepingUnmatchedRightRows = keepingUnmatchedRightRows;
+    }
+
+    public static final JoinType getJoinTypeFromDescription(String description) {
+      for (JoinType joinType : values()) {
+        if (joinType.description.equals(description)) {
+          return joinType;
+        }
+      }
+      return INNER;
+    }
+
+    public static final String[] getDescriptions() {
+      String[] descriptions = new String[values().length];
+      for (int i = 0; i < descriptions.length; i++) {
+        descriptions[i] = values()[i].getDescription();
+      }
+      return descriptions;
+    }
+
+    /**
+     * Gets code
+     *
+     * @return value of code
+     */
+    @Override
+    public String getCode() {
+      return code;
+    }
+
+    /**
+     * Gets description
+     *
+     * @return value of description
+     */
+    public String getDescription() {
+      return description;
+    }
+
+    /** @return true if the rows of the left stream without a match are passed on */
+    public boolean isKeepingUnmatchedLeftRows() {
+      return keepingUnmatchedLeftRows;
+    }
+
+    /** @return true if the rows of the right stream without a match are passed on */
+    public boolean isKeepingUnmatchedRightRows() {
+      return keepingUnmatchedRightRows;
+    }
+  }
+
+  @HopMetadataProperty(
+      key = "join_type",
+      storeWithCode = true,
+      injectionKey = "JOIN_TYPE",
+      injectionKeyDescription = "HashJoin.Injection.JOIN_TYPE")
+  private JoinType joinType;
+
+  @HopMetadataProperty(
+      key = "transform1",
+      injectionKey = "LEFT_TRANSFORM",
+      injectionKeyDescription = "HashJoin.Injection.LEFT_TRANSFORM")
+  private String leftTransformName;
+
+  @HopMetadataProperty(
+      key = "transform2",
+      injectionKey = "RIGHT_TRANSFORM",
+      injectionKeyDescription = "HashJoin.Injection.RIGHT_TRANSFORM")
+  private String rightTransformName;
+
+  @HopMetadataProperty(
+      groupKey = "keys_1",
+      key = "key",
+      injectionGroupKey = "KEY_FIELDS1",
+      injectionGroupDescription = "HashJoin.Injection.KEY_FIELDS1",
+      injectionKey = "KEY_FIELD1",
+      injectionKeyDescription = "HashJoin.Injection.KEY_FIELD1")
+  private List<String> keyFields1;
+
+  @HopMetadataProperty(
+      groupKey = "keys_2",
+      key = "key",
+      injectionGroupKey = "KEY_FIELDS2",
+      injectionGroupDescription = "HashJoin.Injection.KEY_FIELDS2",
+      injectionKey = "KEY_FIELD2",
+      injectionKeyDescription = "HashJoin.Injection.KEY_FIELD2")
+  private List<String> keyFields2;
+
+  /** The memory the rows of the right stream can use before they're spilled to disk, in MB */
+  @HopMetadataProperty(
+      key = "max_memory",
+      injectionKey = "MAX_MEMORY",
+      injectionKeyDescription = "HashJoin.Injection.MAX_MEMORY")
+  private String maxMemory;
+
+  /** The directory to write the spill files to */
+  @HopMetadataProperty(
+      key = "spill_directory",
+      injectionKey = "SPILL_DIRECTORY",
+      injectionKeyDescription = "HashJoin.Injection.SPILL_DIRECTORY")
+  private String spillDirectory;
+
+  /** The number of partitions both streams are split into when spilling */
+  @HopMetadataProperty(
+      key = "spill_partitions",
+      injectionKey = "SPILL_PARTITIONS",
+      injectionKeyDescription = "HashJoin.Injection.SPILL_PARTITIONS")
+  private String spillPartitions;
+
+  @HopMetadataProperty(
+      key = "compress_spill_files",
+      injectionKey = "COMPRESS_SPILL_FILES",
+      injectionKeyDescription = "HashJoin.Injection.COMPRESS_SPILL_FILES")
+  private boolean compressingSpillFiles;
+
+  public static final String DEFAULT_MAX_MEMORY = "256";
+  public static final String DEFAULT_SPILL_PARTITIONS = "32";
+
+  @Override
+  public boolean excludeFromRowLayoutVerification() {
+    return true;
+  }
+
+  public HashJoinMeta() {
+    joinType = JoinType.INNER;
+    keyFields1 = new ArrayList<>();
+    keyFields2 = new ArrayList<>();
+    maxMemory = DEFAULT_MAX_MEMORY;
+    spillDirectory = "${java.io.tmpdir}";
+    spillPartitions = DEFAULT_SPILL_PARTITIONS;
+  }
+
+  public HashJoinMeta(HashJoinMeta m) {
+    this.joinType = m.joinType;
+    this.leftTransformName = m.leftTransformName;
+    this.rightTransformName = m.rightTransformName;
+    this.keyFields1 = new ArrayList<>(m.keyFields1);
+    this.keyFields2 = new ArrayList<>(m.keyFields2);
+    this.maxMemory = m.maxMemory;
+    this.spillDirectory = m.spillDirectory;
+    this.spillPartitions = m.spillPartitions;
+    this.compressingSpillFiles = m.compressingSpillFiles;
+  }
+
+  @Override
+  public HashJoinMeta clone() {
+    return new HashJoinMeta(this);
+  }
+
+  @Override
+  public void searchInfoAndTargetTransforms(List<TransformMeta> transforms) {
+    List<IStream> infoStreams = getTransformIOMeta().getInfoStreams();
+    infoStreams.get(0).setTransformMeta(TransformMeta.findTransform(transforms, leftTransformName));
+    infoStreams
+        .get(1)
+        .setTransformMeta(TransformMeta.findTransform(transforms, rightTransformName));
+  }
+
+  @Override
+  public void check(
+      List<ICheckResult> remarks,
+      PipelineMeta pipelineMeta,
+      TransformMeta transformMeta,
+      IRowMeta prev,
+      String[] input,
+      String[] output,
+      IRowMeta info,
+      IVariables variables,
+      IHopMetadataProvider metadataProvider) {
+    CheckResult cr;
+    if (keyFields1.isEmpty() || keyFields1.size() != keyFields2.size()) {
+      cr =
+          new CheckResult(
+              ICheckResult.TYPE_RESULT_ERROR,
+              BaseMessages.getString(PKG, "HashJoinMeta.CheckResult.KeysMismatch"),
+              transformMeta);
+    } else {
+      cr =
+          new CheckResult(
+              ICheckResult.TYPE_RESULT_OK,
+              BaseMessages.getString(PKG, "HashJoinMeta.CheckResult.KeysOk"),
+              transformMeta);
+    }
+    remarks.add(cr);
+
+    // Every copy only joins the rows it receives: the rows with the same key need to end up in
+    // the same copy.
+    //
+    if (Const.toInt(variables.resolve(transformMeta.getCopiesString()), 1) > 1
+        && !transformMeta.isPartitioned()) {
+      remarks.add(
+          new CheckResult(
+              ICheckResult.TYPE_RESULT_WARNING,
+              BaseMessages.getString(PKG, "HashJoinMeta.CheckResult.CopiesNotPartitioned"),
+              transformMeta));
+    }
+  }
+
+  @Override
+  public void getFields(
+      IRowMeta r,
+      String name,
+      IRowMeta[] info,
+      TransformMeta nextTransform,
+      IVariables variables,
+      IHopMetadataProvider metadataProvider)
+      throws HopTransformException {
+    // We don't have any input fields here in "r" as they are all info fields.
+    // So we just merge in the info fields.
+    //
+    if (info != null) {
+      for (int i = 0; i < info.length; i++) {
+        if (info[i] != null) {
+          r.mergeRowMeta(info[i], name);
+        }
+      }
+    }
+
+    for (int i = 0; i < r.size(); i++) {
+      IValueMeta vmi = r.getValueMeta(i);
+      if (vmi != null && Utils.isEmpty(vmi.getName())) {
+        vmi.setOrigin(name);
+      }
+    }
+  }
+
+  /** Returns the Input/Output metadata for this transform: the 2 streams to join. */
+  @Override
+  public ITransformIOMeta getTransformIOMeta() {
+    ITransformIOMeta ioMeta = super.getTransformIOMeta(false);
+    if (ioMeta == null) {
+
+      ioMeta = new TransformIOMeta(true, true, false, false, false, false);
+
+      ioMeta.addStream(
+          new Stream(
+              StreamType.INFO,
+              null,
+              BaseMessages.getString(PKG, "HashJoinMeta.InfoStream.FirstStream.Description"),
+              StreamIcon.INFO,
+              null));
+      ioMeta.addStream(
+          new Stream(
+              StreamType.INFO,
+              null,
+              BaseMessages.getString(PKG, "HashJoinMeta.InfoStream.SecondStream.Description"),
+              StreamIcon.INFO,
+              null));
+      setTransformIOMeta(ioMeta);
+    }
+
+    return ioMeta;
+  }
+
+  @Override
+  public void resetTransformIoMeta() {
+    // Don't reset!
+  }
+
+  @Override
+  public PipelineType[] getSupportedPipelineTypes() {
+    return new PipelineType[] {
+      PipelineType.Normal,
+    };
+  }
+
+  /**
+   * Gets joinType
+   *
+   * @return value of joinType
+   */
+  public JoinType getJoinType() {
+    return joinType;
+  }
+
+  /** @param joinType The joinType to set */
+  public void setJoinType(JoinType joinType) {
+    this.joinType = joinType;
+  }
+
+  /**
+   * Gets leftTransformName
+   *
+   * @return value of leftTransformName
+   */
+  public String getLeftTransformName() {
+    return leftTransformName;
+  }
+
+  /** @param leftTransformName The leftTransformName to set */
+  public void setLeftTransformName(String leftTransformName) {
+    this.leftTransformName = leftTransformName;
+  }
+
+  /**
+   * Gets rightTransformName
+   *
+   * @return value of rightTransformName
+   */
+  public String getRightTransformName() {
+    return rightTransformName;
+  }
+
+  /** @param rightTransformName The rightTransformName to set */
+  public void setRightTransformName(String rightTransformName) {
+    this.rightTransformName = rightTransformName;
+  }
+
+  /**
+   * Gets keyFields1
+   *
+   * @return value of keyFields1
+   */
+  public List<String> getKeyFields1() {
+    return keyFields1;
+  }
+
+  /** @param keyFields1 The keyFields1 to set */
+  public void setKeyFields1(List<String> keyFields1) {
+    this.keyFields1 = keyFields1;
+  }
+
+  /**
+   * Gets keyFields2
+   *
+   * @return value of keyFields2
+   */
+  public List<String> getKeyFields2() {
+    return keyFields2;
+  }
+
+  /** @param keyFields2 The keyFields2 to set */
+  public void setKeyFields2(List<String> keyFields2) {
+    this.keyFields2 = keyFields2;
+  }
+
+  /**
+   * Gets maxMemory
+   *
+   * @return value of maxMemory in MB
+   */
+  public String getMaxMemory() {
+    return maxMemory;
+  }
+
+  /** @param maxMemory The maxMemory to set in MB */
+  public void setMaxMemory(String maxMemory) {
+    this.maxMemory = maxMemory;
+  }
+
+  /**
+   * Gets spillDirectory
+   *
+   * @return value of spillDirectory
+   */
+  public String getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  /** @param spillDirectory The spillDirectory to set */
+  public void setSpillDirectory(String spillDirectory) {
+    this.spillDirectory = spillDirectory;
+  }
+
+  /**
+   * Gets spillPartitions
+   *
+   * @return value of spillPartitions
+   */
+  public String getSpillPartitions() {
+    return spillPartitions;
+  }
+
+  /** @param spillPartitions The spillPartitions to set */
+  public void setSpillPartitions(String spillPartitions) {
+    this.spillPartitions = spillPartitions;
+  }
+
+  /**
+   * Gets compressingSpillFiles
+   *
+   * @return value of compressingSpillFiles
+   */
+  public boolean isCompressingSpillFiles() {
+    return compressingSpillFiles;
+  }
+
+  /** @param compressingSpillFiles The compressingSpillFiles to set */
+  public void setCompressingSpillFiles(boolean compressingSpillFiles) {
+    this.compressingSpillFiles = compressingSpillFiles;
+  }
+}
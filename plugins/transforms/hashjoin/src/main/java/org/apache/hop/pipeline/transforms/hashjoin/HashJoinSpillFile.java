@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.exception.HopEofException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowCodec;
+import org.apache.hop.core.vfs.HopVfs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A temporary file holding the rows of one partition of one of the streams to join. The rows are
+ * first all written, then read back once.
+ */
+class HashJoinSpillFile {
+  private static final int BUFFER_SIZE = 65536;
+
+  private final IRowMeta rowMeta;
+  private final boolean compressed;
+  private final FileObject fileObject;
+
+  private RowCodec codec;
+  private DataOutputStream outputStream;
+  private DataInputStream inputStream;
+  private long nrRows;
+
+  /**
+   * Create a new temporary file to write rows to.
+   *
+   * @param rowMeta The metadata of the rows
+   * @param directory The directory to create the file in
+   * @param prefix The prefix of the file name
+   * @param compressed true if the file needs to be compressed
+   * @throws HopException In case the file can't be created
+   */
+  HashJoinSpillFile(IRowMeta rowMeta, String directory, String prefix, boolean compressed)
+      throws HopException {
+    this.rowMeta = rowMeta;
+    this.compressed = compressed;
+    try {
+      fileObject = HopVfs.createTempFile(prefix, ".tmp", directory);
+      OutputStream os = HopVfs.getOutputStream(fileObject, false);
+      if (compressed) {
+        outputStream =
+            new DataOutputStream(
+                new GZIPOutputStream(new BufferedOutputStream(os, BUFFER_SIZE), BUFFER_SIZE));
+      } else {
+        outputStream = new DataOutputStream(new BufferedOutputStream(os, BUFFER_SIZE));
+      }
+      codec = new RowCodec(rowMeta, true);
+      codec.writeHeader(outputStream);
+    } catch (HopException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new HopException("Error creating temporary hash join file", e);
+    }
+  }
+
+  /**
+   * Write a row to the file.
+   *
+   * @param row The row to write
+   * @throws HopException In case of an I/O error
+   */
+  void write(Object[] row) throws HopException {
+    codec.writeRow(outputStream, row);
+    nrRows++;
+  }
+
+  /**
+   * Stop writing and open the file to read the rows back.
+   *
+   * @throws HopException In case of an I/O error
+   */
+  void startReading() throws HopException {
+    try {
+      outputStream.close();
+      outputStream = null;
+
+      InputStream is = HopVfs.getInputStream(fileObject);
+      if (compressed) {
+        is = new GZIPInputStream(is, BUFFER_SIZE);
+      }
+      inputStream = new DataInputStream(new BufferedInputStream(is, BUFFER_SIZE));
+      codec = new RowCodec(rowMeta);
+      codec.readHeader(inputStream);
+    } catch (HopException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new HopException("Error reading temporary hash join file", e);
+    }
+  }
+
+  /**
+   * Read the next row from the file.
+   *
+   * @return The next row or null if all the rows were read
+   * @throws HopException In case of an I/O error
+   */
+  Object[] read() throws HopException {
+    try {
+      return codec.readRow(inputStream);
+    } catch (HopEofException e) {
+      return null;
+    } catch (HopException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new HopException("Error reading temporary hash join file", e);
+    }
+  }
+
+  /**
+   * Gets nrRows
+   *
+   * @return the number of rows written to the file
+   */
+  long getNrRows() {
+    return nrRows;
+  }
+
+  /**
+   * Close the file and delete it.
+   *
+   * @throws IOException In case the file can't be closed or deleted
+   */
+  void delete() throws IOException {
+    try {
+      if (outputStream != null) {
+        outputStream.close();
+        outputStream = null;
+      }
+      if (inputStream != null) {
+        inputStream.close();
+        inputStream = null;
+      }
+    } finally {
+      fileObject.delete();
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.memory.RowSizeEstimator;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of the build (right) stream grouped by join key. Every group remembers if it matched a
+ * row of the probe (left) stream so that the unmatched rows can be passed on in an outer join.
+ */
+class HashJoinTable {
+
+  /** The estimated overhead of a group and its entry in the hash map, in bytes */
+  private static final long GROUP_OVERHEAD = 96L;
+
+  /** The estimated overhead of an extra row in a group, in bytes */
+  private static final long ROW_OVERHEAD = 8L;
+
+  static final class Group {
+    private final List<Object[]> rows = new ArrayList<>(1);
+    private boolean matched;
+
+    /**
+     * Gets rows
+     *
+     * @return value of rows
+     */
+    List<Object[]> getRows() {
+      return rows;
+    }
+
+    /**
+     * Gets matched
+     *
+     * @return value of matched
+     */
+    boolean isMatched() {
+      return matched;
+    }
+
+    /** Remember that a row of the probe stream matched this group */
+    void setMatched() {
+      this.matched = true;
+    }
+  }
+
+  private final IRowMeta rowMeta;
+  private final Map<HashJoinKey, Group> groups;
+  private long nrRows;
+  private long estimatedSize;
+
+  /** @param rowMeta The metadata of the rows of the build stream */
+  HashJoinTable(IRowMeta rowMeta) {
+    this.rowMeta = rowMeta;
+    this.groups = new HashMap<>();
+  }
+
+  /**
+   * Add a row of the build stream to the table.
+   *
+   * @param key The join key of the row
+   * @param row The row
+   */
+  void add(HashJoinKey key, Object[] row) {
+    Group group = groups.get(key);
+    if (group == null) {
+      group = new Group();
+      groups.put(key, group);
+      estimatedSize += GROUP_OVERHEAD;
+    } else {
+      estimatedSize += ROW_OVERHEAD;
+    }
+    group.rows.add(row);
+    estimatedSize += RowSizeEstimator.estimateRowSize(rowMeta, row);
+    nrRows++;
+  }
+
+  /**
+   * Look up the rows of the build stream with the given key.
+   *
+   * @param key The join key of a row of the probe stream
+   * @return The group of matching rows or null if there are none
+   */
+  Group get(HashJoinKey key) {
+    return groups.get(key);
+  }
+
+  /**
+   * Gets groups
+   *
+   * @return value of groups
+   */
+  Map<HashJoinKey, Group> getGroups() {
+    return groups;
+  }
+
+  /**
+   * Gets nrRows
+   *
+   * @return value of nrRows
+   */
+  long getNrRows() {
+    return nrRows;
+  }
+
+  /**
+   * Gets estimatedSize
+   *
+   * @return the estimated memory used by the rows in the table, in bytes
+   */
+  long getEstimatedSize() {
+    return estimatedSize;
+  }
+
+  void clear() {
+    groups.clear();
+    nrRows = 0;
+    estimatedSize = 0;
+  }
+}
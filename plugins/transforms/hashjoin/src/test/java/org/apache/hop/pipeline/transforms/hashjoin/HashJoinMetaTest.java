@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.RowMetaBuilder;
+import org.apache.hop.core.xml.XmlHandler;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.transform.stream.IStream;
+import org.apache.hop.pipeline.transforms.hashjoin.HashJoinMeta.JoinType;
+import org.apache.hop.pipeline.transforms.loadsave.LoadSaveTester;
+import org.apache.hop.pipeline.transforms.loadsave.validator.EnumLoadSaveValidator;
+import org.apache.hop.pipeline.transforms.loadsave.validator.IFieldLoadSaveValidator;
+import org.apache.hop.pipeline.transforms.loadsave.validator.ListLoadSaveValidator;
+import org.apache.hop.pipeline.transforms.loadsave.validator.StringLoadSaveValidator;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+public class HashJoinMetaTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Test
+  public void testSerialization() throws HopException {
+    List<String> attributes =
+        Arrays.asList(
+            "joinType",
+            "keyFields1",
+            "keyFields2",
+            "leftTransformName",
+            "rightTransformName",
+            "maxMemory",
+            "spillDirectory",
+            "spillPartitions",
+            "compressingSpillFiles");
+
+    Map<String, IFieldLoadSaveValidator<?>> attrValidatorMap = new HashMap<>();
+    attrValidatorMap.put("joinType", new EnumLoadSaveValidator<>(JoinType.FULL_OUTER));
+    attrValidatorMap.put(
+        "keyFields1", new ListLoadSaveValidator<String>(new StringLoadSaveValidator()) {});
+    attrValidatorMap.put(
+        "keyFields2", new ListLoadSaveValidator<String>(new StringLoadSaveValidator()) {});
+
+    LoadSaveTester loadSaveTester =
+        new LoadSaveTester(
+            HashJoinMeta.class,
+            attributes,
+            new HashMap<>(),
+            new HashMap<>(),
+            attrValidatorMap,
+            new HashMap<>());
+    loadSaveTester.testSerialization();
+  }
+
+  @Test
+  public void cloneTest() throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setKeyFields1(Arrays.asList("kf1-1", "kf1-2"));
+    meta.setKeyFields2(Arrays.asList("kf2-1", "kf2-2"));
+    meta.setJoinType(JoinType.LEFT_OUTER);
+    meta.setMaxMemory("100");
+    meta.setSpillPartitions("16");
+    meta.setCompressingSpillFiles(true);
+    HashJoinMeta aClone = meta.clone();
+    assertNotSame(aClone, meta);
+    assertEquals(meta.getKeyFields1(), aClone.getKeyFields1());
+    assertNotSame(meta.getKeyFields1(), aClone.getKeyFields1());
+    assertEquals(meta.getKeyFields2(), aClone.getKeyFields2());
+    assertEquals(meta.getJoinType(), aClone.getJoinType());
+    assertEquals(meta.getMaxMemory(), aClone.getMaxMemory());
+    assertEquals(meta.getSpillDirectory(), aClone.getSpillDirectory());
+    assertEquals(meta.getSpillPartitions(), aClone.getSpillPartitions());
+    assertEquals(meta.isCompressingSpillFiles(), aClone.isCompressingSpillFiles());
+
+    assertNotNull(aClone.getTransformIOMeta());
+    assertNotSame(meta.getTransformIOMeta(), aClone.getTransformIOMeta());
+    List<IStream> infoStreams = meta.getTransformIOMeta().getInfoStreams();
+    List<IStream> cloneInfoStreams = aClone.getTransformIOMeta().getInfoStreams();
+    assertEquals(infoStreams.size(), cloneInfoStreams.size());
+  }
+
+  @Test
+  public void testXmlRoundTrip() throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setKeyFields1(Arrays.asList("id1"));
+    meta.setKeyFields2(Arrays.asList("id2"));
+    meta.setLeftTransformName("Left");
+    meta.setRightTransformName("Right");
+    meta.setJoinType(JoinType.RIGHT_OUTER);
+
+    HashJoinMeta meta2 = new HashJoinMeta();
+    meta2.loadXml(XmlHandler.wrapLoadXmlString(meta.getXml()), null);
+
+    assertEquals(meta.getKeyFields1(), meta2.getKeyFields1());
+    assertEquals(meta.getKeyFields2(), meta2.getKeyFields2());
+    assertEquals(JoinType.RIGHT_OUTER, meta2.getJoinType());
+    assertEquals(meta.getLeftTransformName(), meta2.getLeftTransformName());
+    assertEquals(meta.getRightTransformName(), meta2.getRightTransformName());
+    assertEquals(HashJoinMeta.DEFAULT_MAX_MEMORY, meta2.getMaxMemory());
+  }
+
+  @Test
+  public void testGetFields() throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    IRowMeta rowMeta = new RowMeta();
+    IRowMeta[] infos = {
+      new RowMetaBuilder().addInteger("id1").addString("value").build(),
+      new RowMetaBuilder().addInteger("id2").addString("value").build(),
+    };
+
+    meta.getFields(rowMeta, "name", infos, null, null, null);
+
+    assertEquals(4, rowMeta.size());
+    assertEquals("value_1", rowMeta.getValueMeta(3).getName());
+  }
+}
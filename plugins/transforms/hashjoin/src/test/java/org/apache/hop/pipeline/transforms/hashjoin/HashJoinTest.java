@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.hashjoin;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.QueueRowSet;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.stream.IStream;
+import org.apache.hop.pipeline.transforms.hashjoin.HashJoinMeta.JoinType;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class HashJoinTest {
+  private static final int NR_ROWS = 5000;
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private TransformMockHelper<HashJoinMeta, HashJoinData> transformMockHelper;
+
+  private HashJoinData data;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  @Before
+  public void setup() {
+    transformMockHelper =
+        new TransformMockHelper<>("Hash join", HashJoinMeta.class, HashJoinData.class);
+    when(transformMockHelper.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(transformMockHelper.iLogChannel);
+    when(transformMockHelper.pipeline.isRunning()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    transformMockHelper.cleanUp();
+  }
+
+  @Test
+  public void testJoinInMemory() throws Exception {
+    for (JoinType joinType : JoinType.values()) {
+      assertJoin(joinType, "0", false);
+    }
+  }
+
+  @Test
+  public void testJoinSpilling() throws Exception {
+    for (JoinType joinType : JoinType.values()) {
+      assertJoin(joinType, "1", false);
+    }
+    assertJoin(JoinType.FULL_OUTER, "1", true);
+  }
+
+  @Test
+  public void testJoinSplitsPartitionsWhichDontFit() throws Exception {
+    for (JoinType joinType : JoinType.values()) {
+      assertJoin(joinType, "1", false, "1");
+    }
+    assertTrue(data.nrRepartitions > 0);
+  }
+
+  @Test
+  public void testJoinConvertsKeysAndMatchesNulls() throws Exception {
+    IRowMeta leftMeta = new RowMeta();
+    leftMeta.addValueMeta(new ValueMetaInteger("id"));
+    leftMeta.addValueMeta(new ValueMetaString("left"));
+    List<Object[]> left =
+        Arrays.asList(new Object[] {1L, "a"}, new Object[] {2L, "b"}, new Object[] {null, "c"});
+
+    IRowMeta rightMeta = new RowMeta();
+    rightMeta.addValueMeta(new ValueMetaNumber("id"));
+    rightMeta.addValueMeta(new ValueMetaString("right"));
+    List<Object[]> right =
+        Arrays.asList(
+            new Object[] {1.0, "x"}, new Object[] {1.0, "y"}, new Object[] {null, "z"});
+
+    List<Object[]> rows =
+        join(JoinType.INNER, "0", false, "8", leftMeta, left, rightMeta, right);
+
+    assertEquals(
+        Arrays.asList("[1, a, 1.0, x]", "[1, a, 1.0, y]", "[null, c, null, z]"), toStrings(rows));
+  }
+
+  private void assertJoin(JoinType joinType, String maxMemory, boolean compress)
+      throws Exception {
+    assertJoin(joinType, maxMemory, compress, "8");
+  }
+
+  private void assertJoin(
+      JoinType joinType, String maxMemory, boolean compress, String nrPartitions)
+      throws Exception {
+    IRowMeta leftMeta = new RowMeta();
+    leftMeta.addValueMeta(new ValueMetaInteger("id"));
+    leftMeta.addValueMeta(new ValueMetaString("left"));
+    IRowMeta rightMeta = new RowMeta();
+    rightMeta.addValueMeta(new ValueMetaInteger("id"));
+    rightMeta.addValueMeta(new ValueMetaString("right"));
+
+    // The keys overlap partially and occur multiple times on both sides
+    //
+    Random random = new Random(42);
+    List<Object[]> left = new ArrayList<>();
+    for (int i = 0; i < NR_ROWS; i++) {
+      long id = random.nextInt(2000);
+      left.add(new Object[] {id, name("left", i)});
+    }
+    List<Object[]> right = new ArrayList<>();
+    for (int i = 0; i < NR_ROWS; i++) {
+      long id = 1000 + random.nextInt(2000);
+      right.add(new Object[] {id, name("right", i)});
+    }
+
+    List<Object[]> rows =
+        join(joinType, maxMemory, compress, nrPartitions, leftMeta, left, rightMeta, right);
+
+    assertEquals(toStrings(nestedLoopJoin(joinType, left, right)), toStrings(rows));
+    assertEquals(!"0".equals(maxMemory), data.spilling);
+  }
+
+  private List<Object[]> join(
+      JoinType joinType,
+      String maxMemory,
+      boolean compress,
+      String nrPartitions,
+      IRowMeta leftMeta,
+      List<Object[]> leftRows,
+      IRowMeta rightMeta,
+      List<Object[]> rightRows)
+      throws Exception {
+    HashJoinMeta meta = new HashJoinMeta();
+    meta.setJoinType(joinType);
+    meta.setKeyFields1(Collections.singletonList("id"));
+    meta.setKeyFields2(Collections.singletonList("id"));
+    meta.setMaxMemory(maxMemory);
+    meta.setSpillDirectory(tempFolder.getRoot().getAbsolutePath());
+    meta.setSpillPartitions(nrPartitions);
+    meta.setCompressingSpillFiles(compress);
+    List<IStream> infoStreams = meta.getTransformIOMeta().getInfoStreams();
+    infoStreams.get(0).setTransformMeta(new TransformMeta("left", null));
+    infoStreams.get(1).setTransformMeta(new TransformMeta("right", null));
+
+    IRowSet left = new QueueRowSet();
+    for (Object[] row : leftRows) {
+      left.putRow(leftMeta, row);
+    }
+    left.setDone();
+    IRowSet right = new QueueRowSet();
+    for (Object[] row : rightRows) {
+      right.putRow(rightMeta, row);
+    }
+    right.setDone();
+    IRowSet output = new QueueRowSet();
+
+    data = new HashJoinData();
+    HashJoin transform =
+        new HashJoin(
+            transformMockHelper.transformMeta,
+            meta,
+            data,
+            0,
+            transformMockHelper.pipelineMeta,
+            transformMockHelper.pipeline) {
+          @Override
+          public IRowSet findInputRowSet(String sourceTransformName) {
+            return "left".equals(sourceTransformName) ? left : right;
+          }
+        };
+    transform.init();
+    transform.setInputRowSets(new ArrayList<>(Arrays.asList(left, right)));
+    transform.setOutputRowSets(new ArrayList<>(Collections.singletonList(output)));
+    while (transform.processRow()) {
+      // Keep on joining
+    }
+    transform.dispose();
+
+    // All temporary files are cleaned up
+    //
+    String[] files = tempFolder.getRoot().list();
+    assertEquals(0, files == null ? 0 : files.length);
+
+    List<Object[]> rows = new ArrayList<>();
+    Object[] row = output.getRowImmediate();
+    while (row != null) {
+      rows.add(row);
+      row = output.getRowImmediate();
+    }
+    assertNull(output.getRowImmediate());
+    return rows;
+  }
+
+  private static List<Object[]> nestedLoopJoin(
+      JoinType joinType, List<Object[]> left, List<Object[]> right) {
+    List<Object[]> rows = new ArrayList<>();
+    boolean[] rightMatched = new boolean[right.size()];
+    for (Object[] one : left) {
+      boolean matched = false;
+      for (int r = 0; r < right.size(); r++) {
+        Object[] two = right.get(r);
+        if (one[0].equals(two[0])) {
+          rows.add(new Object[] {one[0], one[1], two[0], two[1]});
+          matched = true;
+          rightMatched[r] = true;
+        }
+      }
+      if (!matched && joinType.isKeepingUnmatchedLeftRows()) {
+        rows.add(new Object[] {one[0], one[1], null, null});
+      }
+    }
+    for (int r = 0; r < right.size() && joinType.isKeepingUnmatchedRightRows(); r++) {
+      if (!rightMatched[r]) {
+        rows.add(new Object[] {null, null, right.get(r)[0], right.get(r)[1]});
+      }
+    }
+    return rows;
+  }
+
+  /** The rows as sorted strings: the order of the rows is different when spilling to disk */
+  private static List<String> toStrings(List<Object[]> rows) {
+    List<String> strings = new ArrayList<>();
+    for (Object[] row : rows) {
+      strings.add(Arrays.toString(Arrays.copyOf(row, 4)));
+    }
+    Collections.sort(strings);
+    return strings;
+  }
+
+  /** A name which is long enough to make the rows exceed a 1MB memory budget */
+  private static String name(String side, long id) {
+    return String.format("%s %-200d", side, id);
+  }
+}
@@ -17,11 +17,254 @@
 
 package org.apache.hop.pipeline.transforms.memgroupby;
 
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.NumericAccumulator;
+import org.apache.hop.core.row.RowCodec;
+import org.apache.hop.core.sketch.HyperLogLog;
+import org.apache.hop.core.sketch.QuantileSketch;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 public class Aggregate {
+
   public Object[] agg;
   public long[] counts;
   public Set<Object>[] distinctObjs;
   public double[] mean;
+
+  /** The primitive state of the numeric aggregations, null if there are none */
+  public NumericAccumulator numeric;
+
+  /**
+   * Write the aggregation state, for example to a temporary file. The aggregated values are written
+   * with the codec of the aggregate fields, the collections and sketches one by one.
+   *
+   * @param outputStream The stream to write to
+   * @param valueCodec The codec of the aggregate fields
+   * @param aggregateTypes The aggregation types, see {@link MemoryGroupByMeta}
+   * @param elementMetas The metadata of the elements of the distinct values, by aggregation
+   * @throws HopException In case a value can't be written
+   * @throws IOException In case of an I/O error
+   */
+  @SuppressWarnings("unchecked")
+  void write(
+      DataOutputStream outputStream,
+      RowCodec valueCodec,
+      int[] aggregateTypes,
+      IValueMeta[] elementMetas)
+      throws HopException, IOException {
+    Object[] values = new Object[agg.length];
+    for (int i = 0; i < agg.length; i++) {
+      if (agg[i] instanceof StringBuilder) {
+        values[i] = agg[i].toString();
+      } else if (isPlainValue(aggregateTypes[i])) {
+        values[i] = agg[i];
+      }
+    }
+    valueCodec.writeRow(outputStream, values);
+
+    writeLongs(outputStream, counts);
+    outputStream.writeBoolean(mean != null);
+    if (mean != null) {
+      outputStream.writeInt(mean.length);
+      for (double value : mean) {
+        outputStream.writeDouble(value);
+      }
+    }
+    outputStream.writeBoolean(numeric != null);
+    if (numeric != null) {
+      numeric.write(outputStream);
+    }
+
+    for (int i = 0; i < agg.length; i++) {
+      switch (aggregateTypes[i]) {
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+          List<Double> list = (List<Double>) agg[i];
+          outputStream.writeInt(list.size());
+          for (Double value : list) {
+            outputStream.writeDouble(value);
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH:
+          writeBytes(outputStream, ((HyperLogLog) agg[i]).toBytes());
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH:
+          writeBytes(outputStream, ((QuantileSketch) agg[i]).toBytes());
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+          writeSet(
+              outputStream,
+              distinctObjs == null ? null : distinctObjs[i],
+              elementMetas[i]);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_DISTINCT:
+          writeSet(outputStream, (Set<Object>) agg[i], elementMetas[i]);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Read an aggregation state written with {@link #write(DataOutputStream, RowCodec, int[],
+   * IValueMeta[])}.
+   *
+   * @param inputStream The stream to read from
+   * @param valueCodec The codec of the aggregate fields
+   * @param aggregateTypes The aggregation types, see {@link MemoryGroupByMeta}
+   * @param elementMetas The metadata of the elements of the distinct values, by aggregation
+   * @return The aggregation state
+   * @throws HopException In case a value can't be read
+   * @throws IOException In case of an I/O error
+   */
+  @SuppressWarnings("unchecked")
+  static Aggregate read(
+      DataInputStream inputStream,
+      RowCodec valueCodec,
+      int[] aggregateTypes,
+      IValueMeta[] elementMetas)
+      throws HopException, IOException {
+    Aggregate aggregate = new Aggregate();
+    Object[] values = valueCodec.readRow(inputStream);
+    aggregate.agg = new Object[aggregateTypes.length];
+
+    aggregate.counts = readLongs(inputStream);
+    if (inputStream.readBoolean()) {
+      aggregate.mean = new double[inputStream.readInt()];
+      for (int i = 0; i < aggregate.mean.length; i++) {
+        aggregate.mean[i] = inputStream.readDouble();
+      }
+    }
+    if (inputStream.readBoolean()) {
+      aggregate.numeric = NumericAccumulator.read(inputStream);
+    }
+
+    for (int i = 0; i < aggregateTypes.length; i++) {
+      switch (aggregateTypes[i]) {
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+          int size = inputStream.readInt();
+          List<Double> list = new ArrayList<>(size);
+          for (int j = 0; j < size; j++) {
+            list.add(inputStream.readDouble());
+          }
+          aggregate.agg[i] = list;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH:
+          aggregate.agg[i] = HyperLogLog.fromBytes(readBytes(inputStream));
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH:
+          aggregate.agg[i] = QuantileSketch.fromBytes(readBytes(inputStream));
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+          SortedSet<Object> distinct = readSet(inputStream, elementMetas[i]);
+          if (distinct != null) {
+            if (aggregate.distinctObjs == null) {
+              aggregate.distinctObjs = new Set[aggregateTypes.length];
+            }
+            aggregate.distinctObjs[i] = distinct;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_DISTINCT:
+          aggregate.agg[i] = readSet(inputStream, elementMetas[i]);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+          aggregate.agg[i] = new StringBuilder(values[i] == null ? "" : (String) values[i]);
+          break;
+        default:
+          aggregate.agg[i] = values[i];
+          break;
+      }
+    }
+    return aggregate;
+  }
+
+  /** The aggregations which keep their state in a value of the aggregate field */
+  private static boolean isPlainValue(int aggregateType) {
+    switch (aggregateType) {
+      case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+      case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+      case MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH:
+      case MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX:
+      case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX:
+      case MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH:
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_DISTINCT:
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  private static void writeLongs(DataOutputStream outputStream, long[] longs)
+      throws IOException {
+    outputStream.writeInt(longs.length);
+    for (long value : longs) {
+      outputStream.writeLong(value);
+    }
+  }
+
+  private static long[] readLongs(DataInputStream inputStream) throws IOException {
+    long[] longs = new long[inputStream.readInt()];
+    for (int i = 0; i < longs.length; i++) {
+      longs[i] = inputStream.readLong();
+    }
+    return longs;
+  }
+
+  private static void writeBytes(DataOutputStream outputStream, byte[] bytes)
+      throws IOException {
+    outputStream.writeInt(bytes.length);
+    outputStream.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInputStream inputStream) throws IOException {
+    byte[] bytes = new byte[inputStream.readInt()];
+    inputStream.readFully(bytes);
+    return bytes;
+  }
+
+  /** Write a set of values, -1 for no set */
+  private static void writeSet(
+      DataOutputStream outputStream, Set<Object> set, IValueMeta elementMeta)
+      throws HopException, IOException {
+    if (set == null) {
+      outputStream.writeInt(-1);
+      return;
+    }
+    outputStream.writeInt(set.size());
+    for (Object element : set) {
+      elementMeta.writeData(outputStream, element);
+    }
+  }
+
+  private static SortedSet<Object> readSet(DataInputStream inputStream, IValueMeta elementMeta)
+      throws HopException, IOException {
+    int size = inputStream.readInt();
+    if (size < 0) {
+      return null;
+    }
+    SortedSet<Object> set = new TreeSet<>();
+    for (int i = 0; i < size; i++) {
+      set.add(elementMeta.readData(inputStream));
+    }
+    return set;
+  }
 }
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.pipeline.transform.TransformScheduler;
+import org.apache.hop.pipeline.transforms.memgroupby.MemoryGroupByData.HashEntry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hand-over point between the copies of a Memory group by transform which aggregate in two
+ * phases. Every copy aggregates its share of the rows into partial groups. The copies other than
+ * the first one hand over their partial groups once their input is done. The first copy waits for
+ * them, merges all the partial groups and passes the final groups.
+ */
+class CopyMerge {
+
+  /** The partial aggregation state of one copy */
+  static class Partial {
+    private final IRowMeta inputRowMeta;
+    private final Map<HashEntry, Aggregate> groups;
+    private final Collection<SpilledPartition> partitions;
+
+    Partial(
+        IRowMeta inputRowMeta,
+        Map<HashEntry, Aggregate> groups,
+        Collection<SpilledPartition> partitions) {
+      this.inputRowMeta = inputRowMeta;
+      this.groups = groups;
+      this.partitions = partitions;
+    }
+
+    /**
+     * Gets inputRowMeta
+     *
+     * @return value of inputRowMeta
+     */
+    IRowMeta getInputRowMeta() {
+      return inputRowMeta;
+    }
+
+    /**
+     * Gets groups
+     *
+     * @return value of groups: the group data and aggregation state of the groups in memory
+     */
+    Map<HashEntry, Aggregate> getGroups() {
+      return groups;
+    }
+
+    /**
+     * Gets partitions
+     *
+     * @return value of partitions: the partitions of groups which were moved to disk
+     */
+    Collection<SpilledPartition> getPartitions() {
+      return partitions;
+    }
+  }
+
+  private final CountDownLatch latch;
+  private final Set<Integer> doneCopies;
+  private final List<Partial> partials;
+  private boolean closed;
+
+  /** @param nrCopies The number of copies of the transform */
+  CopyMerge(int nrCopies) {
+    this.latch = new CountDownLatch(nrCopies - 1);
+    this.doneCopies = new HashSet<>();
+    this.partials = new ArrayList<>();
+  }
+
+  /**
+   * Hand over the partial groups of a copy other than the first one. Once the first copy is done,
+   * the partitions on disk are removed right away.
+   *
+   * @param copyNr The copy handing over its groups
+   * @param partial The partial groups, null if the copy didn't receive any rows
+   */
+  synchronized void handOver(int copyNr, Partial partial) {
+    if (!doneCopies.add(copyNr)) {
+      return;
+    }
+    if (partial != null) {
+      if (closed) {
+        partial.getPartitions().forEach(SpilledPartition::delete);
+      } else {
+        partials.add(partial);
+      }
+    }
+    latch.countDown();
+  }
+
+  /**
+   * Wait until all the other copies handed over their groups. On a worker of the pool the pool
+   * runs the other copies on another worker in the meantime.
+   *
+   * @param timeout The maximum time to wait
+   * @param unit The unit of the timeout
+   * @return true if all copies are done, false if we timed out
+   * @throws InterruptedException In case we got interrupted while waiting
+   */
+  boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+    return TransformScheduler.await(latch, timeout, unit);
+  }
+
+  /**
+   * Take the partial groups handed over so far. Every partial is only handed out once.
+   *
+   * @return The partial groups of the other copies
+   */
+  synchronized List<Partial> takePartials() {
+    List<Partial> list = new ArrayList<>(partials);
+    partials.clear();
+    return list;
+  }
+
+  /** Remove the partitions on disk which were never merged */
+  synchronized void close() {
+    closed = true;
+    for (Partial partial : partials) {
+      partial.getPartitions().forEach(SpilledPartition::delete);
+    }
+    partials.clear();
+  }
+}
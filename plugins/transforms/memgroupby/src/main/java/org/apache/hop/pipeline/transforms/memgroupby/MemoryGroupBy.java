@@ -20,12 +20,18 @@ package org.apache.hop.pipeline.transforms.memgroupby;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.MemoryManager;
+import org.apache.hop.core.memory.RowSizeEstimator;
 import org.apache.hop.core.row.*;
 import org.apache.hop.core.row.value.ValueMetaBase;
+import org.apache.hop.core.row.value.ValueMetaBinary;
 import org.apache.hop.core.row.value.ValueMetaInteger;
 import org.apache.hop.core.row.value.ValueMetaNumber;
 import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.sketch.HyperLogLog;
+import org.apache.hop.core.sketch.QuantileSketch;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -34,12 +40,28 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transforms.memgroupby.MemoryGroupByData.HashEntry;
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /** Groups information based on aggregation rules. (sum, count, ...) */
 public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupByData> {
   private static final Class<?> PKG = MemoryGroupByMeta.class; // For Translator
 
+  /** After this many levels of partitioning we stop moving groups to disk */
+  private static final int MAX_LEVEL = 32 / MemoryGroupByData.PARTITION_BITS - 1;
+
+  /** The estimated overhead of a group in the hash map on top of the group and aggregate values */
+  private static final long GROUP_OVERHEAD = 160;
+
+  /** The estimated size of the primitive state of an aggregation */
+  private static final long NUMERIC_OVERHEAD = 32;
+
+  /** The estimated overhead of a value kept in a list or set of an aggregate */
+  private static final long COLLECTION_ENTRY_OVERHEAD = 48;
+
   private boolean allNullsAreZero = false;
   private boolean minNullIsValued = false;
 
@@ -58,8 +80,24 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
     Object[] r = getRow(); // get row!
 
+    // When aggregating in two phases, the other copies hand over their partial groups to the first
+    //
+    List<CopyMerge.Partial> partials = Collections.emptyList();
+    if (r == null && data.copyMerge != null) {
+      if (getCopyNr() > 0) {
+        handOverGroups();
+        setOutputDone();
+        return false;
+      }
+      partials = waitForCopies();
+      if (partials == null) {
+        setOutputDone();
+        return false;
+      }
+    }
+
     if (first) {
-      if ((r == null) && (!meta.isAlwaysGivingBackOneRow())) {
+      if ((r == null) && partials.isEmpty() && (!meta.isAlwaysGivingBackOneRow())) {
         setOutputDone();
         return false;
       }
@@ -68,10 +106,29 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       allNullsAreZero = ValueMetaBase.convertStringToBoolean(val);
       val = getVariable(Const.HOP_AGGREGATION_MIN_NULL_IS_VALUED, "N");
       minNullIsValued = ValueMetaBase.convertStringToBoolean(val);
+      data.hllPrecision =
+          Math.max(
+              HyperLogLog.MIN_PRECISION,
+              Math.min(
+                  HyperLogLog.MAX_PRECISION,
+                  Const.toInt(
+                      getVariable(Const.HOP_AGGREGATION_HLL_PRECISION),
+                      HyperLogLog.DEFAULT_PRECISION)));
+      data.quantileSketchK =
+          Math.max(
+              QuantileSketch.MIN_K,
+              Math.min(
+                  QuantileSketch.MAX_K,
+                  Const.toInt(
+                      getVariable(Const.HOP_AGGREGATION_QUANTILE_SKETCH_K),
+                      QuantileSketch.DEFAULT_K)));
 
       // What is the output looking like?
       //
       data.inputRowMeta = getInputRowMeta();
+      if (data.inputRowMeta == null && !partials.isEmpty()) {
+        data.inputRowMeta = partials.get(0).getInputRowMeta();
+      }
 
       // In case we have 0 input rows, we still want to send out a single row aggregate
       // However... the problem then is that we don't know the layout from receiving it from the
@@ -93,7 +150,7 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       data.groupnrs = new int[meta.getGroupField().length];
 
       // If the transform does not receive any rows, we can not lookup field position indexes
-      if (r != null) {
+      if (r != null || !partials.isEmpty()) {
         for (int i = 0; i < meta.getSubjectField().length; i++) {
           if (meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY) {
             data.subjectnrs[i] = 0;
@@ -133,6 +190,10 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       // Initialize the group metadata
       //
       initGroupMeta(data.inputRowMeta);
+
+      // Sums, averages, minimum and maximum of integers and numbers are kept in primitives
+      //
+      data.accumulatorTypes = getAccumulatorTypes();
     }
 
     if (first) {
@@ -150,6 +211,7 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     // Here is where we start to do the real work...
     //
     if (r == null) { // no more input to be expected... (or none received in the first place)
+      mergePartials(partials);
       handleLastOfGroup();
 
       setOutputDone();
@@ -173,29 +235,26 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
   }
 
   private void handleLastOfGroup() throws HopException {
+    data.hasOutput = false;
+
     // Dump the content of the map...
     //
-    for (HashEntry entry : data.map.keySet()) {
-      Aggregate aggregate = data.map.get(entry);
-      Object[] aggregateResult = getAggregateResult(aggregate);
+    outputGroups();
 
-      Object[] outputRowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
-      int index = 0;
-      for (int i = 0; i < data.groupMeta.size(); i++) {
-        outputRowData[index++] =
-            data.groupMeta.getValueMeta(i).convertToNormalStorageType(entry.getGroupData()[i]);
-      }
-      for (int i = 0; i < data.aggMeta.size(); i++) {
-        outputRowData[index++] =
-            data.aggMeta.getValueMeta(i).convertToNormalStorageType(aggregateResult[i]);
+    // Then aggregate the groups which were moved to disk, one partition at a time
+    //
+    if (data.memoryBudget != null) {
+      flushSpilledPartitions();
+      while (!data.pendingPartitions.isEmpty()) {
+        aggregateSpilledPartition(data.pendingPartitions.pop());
       }
-      putRow(data.outputRowMeta, outputRowData);
+      data.level = 0;
     }
 
     // What if we always need to give back one row?
     // This means we give back 0 for count all, count distinct, null for everything else
     //
-    if (data.map.isEmpty() && meta.isAlwaysGivingBackOneRow()) {
+    if (!data.hasOutput && meta.isAlwaysGivingBackOneRow()) {
       Object[] outputRowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
       int index = 0;
       for (int i = 0; i < data.groupMeta.size(); i++) {
@@ -204,7 +263,8 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       for (int i = 0; i < data.aggMeta.size(); i++) {
         if (meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL
             || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY
-            || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT) {
+            || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT
+            || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX) {
           outputRowData[index++] = Long.valueOf(0L);
         } else {
           outputRowData[index++] = null;
@@ -214,6 +274,447 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     }
   }
 
+  /**
+   * Hand over the partial groups of this copy to the first copy. The partitions of groups which
+   * were moved to disk are closed and handed over as well.
+   */
+  private void handOverGroups() throws HopException {
+    CopyMerge.Partial partial = null;
+    if (!first) {
+      if (data.memoryBudget != null) {
+        flushSpilledPartitions();
+        data.memoryBudget.releaseAll();
+        Arrays.fill(data.partitionBytes, 0L);
+      }
+      partial =
+          new CopyMerge.Partial(
+              data.inputRowMeta, data.map, new ArrayList<>(data.pendingPartitions));
+      data.map = new HashMap<>();
+      data.pendingPartitions.clear();
+    }
+    data.copyMerge.handOver(getCopyNr(), partial);
+  }
+
+  /**
+   * Wait until the other copies handed over their partial groups.
+   *
+   * @return The partial groups of the other copies or null if the pipeline was stopped
+   */
+  private List<CopyMerge.Partial> waitForCopies() throws HopException {
+    try {
+      while (!data.copyMerge.await(1, TimeUnit.SECONDS)) {
+        if (isStopped()) {
+          return null;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException(e);
+    }
+    List<CopyMerge.Partial> partials = data.copyMerge.takePartials();
+    if (log.isDetailed()) {
+      logDetailed(BaseMessages.getString(PKG, "MemoryGroupBy.Log.MergingCopies", partials.size()));
+    }
+    return partials;
+  }
+
+  /**
+   * Merge the partial groups of the other copies into the groups of this copy. Groups and rows
+   * which the other copies moved to disk are read back and aggregated here.
+   */
+  private void mergePartials(List<CopyMerge.Partial> partials) throws HopException {
+    for (CopyMerge.Partial partial : partials) {
+      for (Map.Entry<HashEntry, Aggregate> entry : partial.getGroups().entrySet()) {
+        addGroup(data.getHashEntry(entry.getKey().getGroupData()), entry.getValue());
+      }
+      partial.getGroups().clear();
+      for (SpilledPartition partition : partial.getPartitions()) {
+        readSpilledPartition(partition);
+      }
+    }
+  }
+
+  /** Pass the aggregate results of all the groups in memory and clear them */
+  private void outputGroups() throws HopException {
+    for (HashEntry entry : data.map.keySet()) {
+      Aggregate aggregate = data.map.get(entry);
+      Object[] aggregateResult = getAggregateResult(aggregate);
+
+      Object[] outputRowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
+      int index = 0;
+      for (int i = 0; i < data.groupMeta.size(); i++) {
+        outputRowData[index++] =
+            data.groupMeta.getValueMeta(i).convertToNormalStorageType(entry.getGroupData()[i]);
+      }
+      for (int i = 0; i < data.aggMeta.size(); i++) {
+        outputRowData[index++] =
+            data.aggMeta.getValueMeta(i).convertToNormalStorageType(aggregateResult[i]);
+      }
+      putRow(data.outputRowMeta, outputRowData);
+      data.hasOutput = true;
+    }
+
+    if (data.memoryBudget != null) {
+      data.map.clear();
+      data.memoryBudget.releaseAll();
+      Arrays.fill(data.partitionBytes, 0L);
+    }
+  }
+
+  /**
+   * Read back a partition which was moved to disk: first the aggregation state of the groups which
+   * were in memory at that time, then the rows which came in afterwards. The groups are divided
+   * over partitions by the next bits of their hash so they can be moved to disk again if needed.
+   */
+  private void aggregateSpilledPartition(SpilledPartition partition) throws HopException {
+    data.level = partition.getLevel() + 1;
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "MemoryGroupBy.Log.AggregatingSpilledPartition",
+              partition.getNrGroups(),
+              partition.getNrRows(),
+              partition.getLevel()));
+    }
+
+    readSpilledPartition(partition);
+
+    outputGroups();
+    flushSpilledPartitions();
+  }
+
+  /** Add the groups and rows of a partition on disk to the groups and remove the files */
+  private void readSpilledPartition(SpilledPartition partition) throws HopException {
+    try {
+      try (DataInputStream inputStream = partition.openGroups()) {
+        for (long i = 0; i < partition.getNrGroups(); i++) {
+          Object[] groupData = partition.readGroupData(inputStream);
+          Aggregate aggregate = partition.readAggregate(inputStream);
+          addGroup(data.getHashEntry(groupData), aggregate);
+        }
+      } catch (IOException e) {
+        throw new HopFileException(
+            BaseMessages.getString(PKG, "MemoryGroupBy.Exception.UnableToReadTemporaryFile"), e);
+      }
+
+      try (DataInputStream inputStream = partition.openRows()) {
+        for (long i = 0; i < partition.getNrRows(); i++) {
+          addToAggregate(partition.readRow(inputStream));
+        }
+      } catch (IOException e) {
+        throw new HopFileException(
+            BaseMessages.getString(PKG, "MemoryGroupBy.Exception.UnableToReadTemporaryFile"), e);
+      }
+    } finally {
+      partition.delete();
+    }
+  }
+
+  /**
+   * Add a group read back from disk or handed over by another copy. It goes back to disk if its
+   * partition is on disk. When the group is already in memory, the aggregation states are merged.
+   */
+  private void addGroup(HashEntry entry, Aggregate aggregate) throws HopException {
+    int partition = -1;
+    if (data.memoryBudget != null) {
+      partition = getPartition(entry);
+      if (data.spilledPartitions[partition] != null) {
+        data.spilledPartitions[partition].writeGroup(entry.getGroupData(), aggregate);
+        return;
+      }
+    }
+    Aggregate existing = data.map.get(entry);
+    if (existing == null) {
+      data.map.put(entry, aggregate);
+    } else {
+      mergeAggregate(existing, aggregate);
+    }
+    if (partition >= 0) {
+      reserveMemory(partition, estimateGroupSize(entry.getGroupData(), aggregate));
+    }
+  }
+
+  /**
+   * Merge the aggregation state of a group into the state of the same group, aggregated over other
+   * rows. The first and last values are taken from the state which is merged into.
+   *
+   * @param target The aggregation state to merge into
+   * @param source The aggregation state to merge
+   * @throws HopException In case the values can't be combined
+   */
+  @SuppressWarnings("unchecked")
+  void mergeAggregate(Aggregate target, Aggregate source) throws HopException {
+    for (int i = 0; i < data.subjectnrs.length; i++) {
+      int accumulatorType = getAccumulatorType(i);
+      if (accumulatorType != NumericAccumulator.TYPE_NONE) {
+        switch (meta.getAggregateType()[i]) {
+          case MemoryGroupByMeta.TYPE_GROUP_MIN:
+            target.numeric.mergeMin(i, accumulatorType, source.numeric, i);
+            break;
+          case MemoryGroupByMeta.TYPE_GROUP_MAX:
+            target.numeric.mergeMax(i, accumulatorType, source.numeric, i);
+            break;
+          default:
+            target.numeric.mergeSum(i, accumulatorType, source.numeric, i);
+            break;
+        }
+        target.counts[i] += source.counts[i];
+        continue;
+      }
+
+      Object value = target.agg[i];
+      Object other = source.agg[i];
+      IValueMeta valueMeta = data.aggMeta.getValueMeta(i);
+
+      switch (meta.getAggregateType()[i]) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+          target.agg[i] = ValueDataUtil.sum(valueMeta, value, valueMeta, other);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          target.agg[i] = ValueDataUtil.sum(valueMeta, value, valueMeta, other);
+          target.counts[i] += source.counts[i];
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+          ((List<Double>) value).addAll((List<Double>) other);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+          {
+            // Combine the mean and the sum of squared differences of both parts
+            //
+            long countA = target.counts[i];
+            long countB = source.counts[i];
+            if (countB == 0) {
+              break;
+            }
+            if (countA == 0) {
+              target.agg[i] = other;
+              target.mean[i] = source.mean[i];
+            } else {
+              double n = (double) countA + countB;
+              double delta = source.mean[i] - target.mean[i];
+              target.mean[i] += delta * countB / n;
+              target.agg[i] =
+                  (Double) value + (Double) other + delta * delta * countA * countB / n;
+            }
+            target.counts[i] = countA + countB;
+            break;
+          }
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+          if (source.distinctObjs != null && source.distinctObjs[i] != null) {
+            if (target.distinctObjs == null) {
+              target.distinctObjs = new Set[meta.getSubjectField().length];
+            }
+            if (target.distinctObjs[i] == null) {
+              target.distinctObjs[i] = source.distinctObjs[i];
+            } else {
+              target.distinctObjs[i].addAll(source.distinctObjs[i]);
+            }
+            target.counts[i] = target.distinctObjs[i].size();
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH:
+          ((HyperLogLog) value).merge((HyperLogLog) other);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH:
+          ((QuantileSketch) value).merge((QuantileSketch) other);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+          target.counts[i] += source.counts[i];
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          boolean otherIsNull = valueMeta.isNull(other);
+          boolean valueIsNull = valueMeta.isNull(value);
+          if (minNullIsValued || (!otherIsNull && !valueIsNull)) {
+            target.agg[i] = valueMeta.compare(other, value) < 0 ? other : value;
+          } else if (valueIsNull && !otherIsNull) {
+            target.agg[i] = other;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          if (valueMeta.compare(other, value) > 0) {
+            target.agg[i] = other;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_FIRST:
+          if (valueMeta.isNull(value) && !valueMeta.isNull(other)) {
+            target.agg[i] = other;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_LAST:
+          if (!valueMeta.isNull(other)) {
+            target.agg[i] = other;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
+          if (target.counts[i] == 0) {
+            target.agg[i] = other;
+            target.counts[i] = source.counts[i];
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
+          target.agg[i] = other;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+          {
+            StringBuilder sb = (StringBuilder) value;
+            StringBuilder otherSb = (StringBuilder) other;
+            if (otherSb.length() > 0) {
+              if (sb.length() > 0) {
+                if (meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA) {
+                  sb.append(", ");
+                } else if (!Utils.isEmpty(meta.getValueField()[i])) {
+                  sb.append(resolve(meta.getValueField()[i]));
+                }
+              }
+              sb.append(otherSb);
+            }
+            break;
+          }
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_DISTINCT:
+          ((SortedSet<Object>) value).addAll((SortedSet<Object>) other);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Calculate the partition of a group at the current level. We use different bits of the hash code
+   * at every level.
+   */
+  private int getPartition(HashEntry entry) {
+    int hash = entry.hashCode() * 0x9E3779B9; // spread the bits
+    return (hash >>> (data.level * MemoryGroupByData.PARTITION_BITS))
+        & (MemoryGroupByData.NR_PARTITIONS - 1);
+  }
+
+  private long estimateGroupSize(Object[] groupData, Aggregate aggregate) {
+    long size = GROUP_OVERHEAD + RowSizeEstimator.estimateRowSize(data.groupMeta, groupData);
+    if (aggregate.numeric != null) {
+      size += NUMERIC_OVERHEAD * aggregate.agg.length;
+    }
+    for (Object value : aggregate.agg) {
+      if (value instanceof Collection) {
+        for (Object element : (Collection<?>) value) {
+          size += COLLECTION_ENTRY_OVERHEAD + RowSizeEstimator.estimateValueSize(element);
+        }
+      } else if (value instanceof StringBuilder) {
+        size += COLLECTION_ENTRY_OVERHEAD + 2L * ((StringBuilder) value).length();
+      } else if (value instanceof HyperLogLog) {
+        size += COLLECTION_ENTRY_OVERHEAD + ((HyperLogLog) value).getSizeInBytes();
+      } else if (value instanceof QuantileSketch) {
+        size += COLLECTION_ENTRY_OVERHEAD + ((QuantileSketch) value).getSizeInBytes();
+      } else {
+        size += RowSizeEstimator.estimateValueSize(value);
+      }
+    }
+    if (aggregate.distinctObjs != null) {
+      for (Set<Object> distinctObjs : aggregate.distinctObjs) {
+        if (distinctObjs != null) {
+          for (Object element : distinctObjs) {
+            size += COLLECTION_ENTRY_OVERHEAD + RowSizeEstimator.estimateValueSize(element);
+          }
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Reserve memory for the groups in a partition. When the memory budget is exhausted, we move the
+   * largest partition in memory to disk until the memory fits in the budget.
+   */
+  private void reserveMemory(int partition, long bytes) throws HopException {
+    while (!data.memoryBudget.reserve(bytes)) {
+      int largest = -1;
+      for (int i = 0; i < MemoryGroupByData.NR_PARTITIONS; i++) {
+        if (data.spilledPartitions[i] == null
+            && data.partitionBytes[i] > 0
+            && (largest < 0 || data.partitionBytes[i] > data.partitionBytes[largest])) {
+          largest = i;
+        }
+      }
+      if (largest < 0 || data.level >= MAX_LEVEL) {
+        // Nothing left to move to disk, keep going over budget
+        //
+        break;
+      }
+      spillPartition(largest);
+      if (largest == partition) {
+        return;
+      }
+    }
+    data.partitionBytes[partition] += bytes;
+  }
+
+  /** Move all the groups of a partition to disk */
+  private void spillPartition(int partition) throws HopException {
+    SpilledPartition spilledPartition =
+        new SpilledPartition(
+            data.level, data, meta.getAggregateType(), createTempFile(), createTempFile());
+    data.spilledPartitions[partition] = spilledPartition;
+
+    int nrGroups = data.map.size();
+    Iterator<Map.Entry<HashEntry, Aggregate>> iterator = data.map.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<HashEntry, Aggregate> entry = iterator.next();
+      if (getPartition(entry.getKey()) == partition) {
+        spilledPartition.writeGroup(entry.getKey().getGroupData(), entry.getValue());
+        iterator.remove();
+      }
+    }
+
+    data.memoryBudget.release(data.partitionBytes[partition]);
+    data.partitionBytes[partition] = 0;
+
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "MemoryGroupBy.Log.SpillingPartition",
+              nrGroups,
+              spilledPartition.getNrGroups(),
+              partition));
+    }
+  }
+
+  /** Close the partitions moved to disk at the current level and queue them for aggregation */
+  private void flushSpilledPartitions() throws HopException {
+    for (int i = 0; i < MemoryGroupByData.NR_PARTITIONS; i++) {
+      SpilledPartition spilledPartition = data.spilledPartitions[i];
+      if (spilledPartition != null) {
+        spilledPartition.closeOutput();
+        data.pendingPartitions.push(spilledPartition);
+        data.spilledPartitions[i] = null;
+      }
+    }
+  }
+
+  private File createTempFile() throws HopFileException {
+    String directory = resolve(meta.getDirectory());
+    if (Utils.isEmpty(directory)) {
+      directory = System.getProperty("java.io.tmpdir");
+    }
+    String prefix = resolve(meta.getPrefix());
+    if (Utils.isEmpty(prefix)) {
+      prefix = "grp";
+    }
+    try {
+      return File.createTempFile(prefix, ".tmp", new File(directory));
+    } catch (IOException e) {
+      throw new HopFileException(
+          BaseMessages.getString(PKG, "MemoryGroupBy.Exception.UnableToWriteTemporaryFile"), e);
+    }
+  }
+
   /**
    * Used for junits in MemoryGroupByAggregationNullsTest
    *
@@ -229,6 +730,18 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     }
     HashEntry entry = data.getHashEntry(groupData);
 
+    // The rows of groups in a partition which was moved to disk are aggregated later on
+    //
+    int partition = -1;
+    if (data.memoryBudget != null) {
+      partition = getPartition(entry);
+      if (data.spilledPartitions[partition] != null) {
+        data.spilledPartitions[partition].writeRow(r);
+        return;
+      }
+    }
+
+    long usedMemory = 0;
     Aggregate aggregate = data.map.get(entry);
     if (aggregate == null) {
       // Create a new value...
@@ -239,11 +752,37 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       // Store it in the map!
       //
       data.map.put(entry, aggregate);
+      if (partition >= 0) {
+        usedMemory += estimateGroupSize(groupData, aggregate);
+      }
     }
 
     for (int i = 0; i < data.subjectnrs.length; i++) {
       Object subj = r[data.subjectnrs[i]];
       IValueMeta subjMeta = data.inputRowMeta.getValueMeta(data.subjectnrs[i]);
+
+      int accumulatorType = getAccumulatorType(i);
+      if (accumulatorType != NumericAccumulator.TYPE_NONE) {
+        switch (meta.getAggregateType()[i]) {
+          case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+            if (!subjMeta.isNull(subj)) {
+              aggregate.numeric.sum(i, accumulatorType, subjMeta, subj);
+              aggregate.counts[i]++;
+            }
+            break;
+          case MemoryGroupByMeta.TYPE_GROUP_MIN:
+            aggregate.numeric.min(i, accumulatorType, subjMeta, subj);
+            break;
+          case MemoryGroupByMeta.TYPE_GROUP_MAX:
+            aggregate.numeric.max(i, accumulatorType, subjMeta, subj);
+            break;
+          default:
+            aggregate.numeric.sum(i, accumulatorType, subjMeta, subj);
+            break;
+        }
+        continue;
+      }
+
       Object value = aggregate.agg[i];
       IValueMeta valueMeta = data.aggMeta.getValueMeta(i);
 
@@ -261,6 +800,7 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
         case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
           if (!subjMeta.isNull(subj)) {
             ((List<Double>) aggregate.agg[i]).add(subjMeta.getNumber(subj));
+            usedMemory += COLLECTION_ENTRY_OVERHEAD;
           }
           break;
         case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
@@ -296,12 +836,31 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
             if (obj instanceof byte[]) {
               obj = new String((byte[]) obj);
             }
-            if (!aggregate.distinctObjs[i].contains(obj)) {
-              aggregate.distinctObjs[i].add(obj);
+            if (aggregate.distinctObjs[i].add(obj)) {
+              usedMemory += COLLECTION_ENTRY_OVERHEAD + RowSizeEstimator.estimateValueSize(obj);
             }
           }
           aggregate.counts[i] = aggregate.distinctObjs[i].size();
           break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH:
+          {
+            HyperLogLog sketch = (HyperLogLog) value;
+            int sizeBefore = sketch.getSizeInBytes();
+            sketch.update(subjMeta, subj);
+            usedMemory += sketch.getSizeInBytes() - sizeBefore;
+            break;
+          }
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH:
+          {
+            QuantileSketch sketch = (QuantileSketch) value;
+            int sizeBefore = sketch.getSizeInBytes();
+            sketch.update(subjMeta, subj);
+            usedMemory += sketch.getSizeInBytes() - sizeBefore;
+            break;
+          }
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
           if (!subjMeta.isNull(subj)) {
             aggregate.counts[i]++;
@@ -351,7 +910,9 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
             if (sb.length() > 0) {
               sb.append(", ");
             }
+            int length = sb.length();
             sb.append(subjMeta.getString(subj));
+            usedMemory += 2L * (sb.length() - length);
           }
           break;
         case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
@@ -364,18 +925,27 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
             if (sb.length() > 0) {
               sb.append(separator);
             }
+            int length = sb.length();
             sb.append(subjMeta.getString(subj));
+            usedMemory += 2L * (sb.length() - length);
           }
           break;
         case MemoryGroupByMeta.TYPE_GROUP_CONCAT_DISTINCT:
           if (subj != null) {
             SortedSet<Object> set = (SortedSet<Object>) value;
-            set.add(subj);
+            if (set.add(subj)) {
+              usedMemory += COLLECTION_ENTRY_OVERHEAD + RowSizeEstimator.estimateValueSize(subj);
+            }
           }
+          break;
         default:
           break;
       }
     }
+
+    if (partition >= 0) {
+      reserveMemory(partition, usedMemory);
+    }
   }
 
   /**
@@ -398,6 +968,13 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       aggregate.distinctObjs = null;
       aggregate.agg = new Object[data.subjectnrs.length];
       aggregate.mean = new double[data.subjectnrs.length]; // sets all doubles to 0.0
+      aggregate.numeric = null;
+      for (int i = 0; i < data.subjectnrs.length; i++) {
+        if (getAccumulatorType(i) != NumericAccumulator.TYPE_NONE) {
+          aggregate.numeric = new NumericAccumulator(data.subjectnrs.length);
+          break;
+        }
+      }
     }
 
     for (int i = 0; i < data.subjectnrs.length; i++) {
@@ -413,6 +990,23 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
         case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
           vMeta = new ValueMetaNumber(meta.getAggregateField()[i]);
           break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+          vMeta = new ValueMetaInteger(meta.getAggregateField()[i]);
+          v = new HyperLogLog(data.hllPrecision);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH:
+          vMeta = new ValueMetaBinary(meta.getAggregateField()[i]);
+          v = new HyperLogLog(data.hllPrecision);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX:
+          vMeta = new ValueMetaNumber(meta.getAggregateField()[i]);
+          v = new QuantileSketch(data.quantileSketchK);
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH:
+          vMeta = new ValueMetaBinary(meta.getAggregateField()[i]);
+          v = new QuantileSketch(data.quantileSketchK);
+          break;
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
@@ -452,9 +1046,18 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
       if (meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL
           && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT
-          && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY) {
+          && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY
+          && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX
+          && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH
+          && meta.getAggregateType()[i] != MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH) {
         vMeta.setLength(subjMeta.getLength(), subjMeta.getPrecision());
       }
+      if (getAccumulatorType(i) != NumericAccumulator.TYPE_NONE) {
+        // The accumulated values are never lazily converted
+        //
+        vMeta.setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
+        v = null;
+      }
       if (aggregate == null) {
         data.aggMeta.addValueMeta(vMeta);
       } else {
@@ -463,6 +1066,36 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     }
   }
 
+  /**
+   * Determine which aggregations are kept in primitive values, based on the type of the subject.
+   * Minimum values are only kept in primitives when null values are ignored.
+   */
+  private int[] getAccumulatorTypes() {
+    int[] accumulatorTypes = new int[data.subjectnrs.length];
+    for (int i = 0; i < data.subjectnrs.length; i++) {
+      int aggType = meta.getAggregateType()[i];
+      if (data.subjectnrs[i] < 0
+          || (aggType == MemoryGroupByMeta.TYPE_GROUP_MIN && minNullIsValued)
+          || (aggType != MemoryGroupByMeta.TYPE_GROUP_SUM
+              && aggType != MemoryGroupByMeta.TYPE_GROUP_AVERAGE
+              && aggType != MemoryGroupByMeta.TYPE_GROUP_MIN
+              && aggType != MemoryGroupByMeta.TYPE_GROUP_MAX)) {
+        accumulatorTypes[i] = NumericAccumulator.TYPE_NONE;
+      } else {
+        accumulatorTypes[i] =
+            NumericAccumulator.getAccumulatorType(
+                data.inputRowMeta.getValueMeta(data.subjectnrs[i]));
+      }
+    }
+    return accumulatorTypes;
+  }
+
+  private int getAccumulatorType(int index) {
+    return data.accumulatorTypes == null
+        ? NumericAccumulator.TYPE_NONE
+        : data.accumulatorTypes[index];
+  }
+
   private void initGroupMeta(IRowMeta previousRowMeta) throws HopValueException {
     data.groupMeta = new RowMeta();
     data.entryMeta = new RowMeta();
@@ -491,7 +1124,19 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     if (data.subjectnrs != null) {
       for (int i = 0; i < data.subjectnrs.length; i++) {
         Object ag = aggregate.agg[i];
-        switch (meta.getAggregateType()[i]) {
+        int aggType = meta.getAggregateType()[i];
+
+        int accumulatorType = getAccumulatorType(i);
+        if (accumulatorType != NumericAccumulator.TYPE_NONE) {
+          if (aggType == MemoryGroupByMeta.TYPE_GROUP_AVERAGE) {
+            ag = aggregate.numeric.getAverage(i, accumulatorType, aggregate.counts[i]);
+          } else {
+            ag = aggregate.numeric.getValue(i, accumulatorType);
+          }
+          aggType = MemoryGroupByMeta.TYPE_GROUP_NONE; // nothing left to calculate
+        }
+
+        switch (aggType) {
           case MemoryGroupByMeta.TYPE_GROUP_SUM:
             break;
           case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
@@ -521,6 +1166,26 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
           case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
             ag = aggregate.counts[i];
             break;
+          case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX:
+            ag = ((HyperLogLog) ag).estimate();
+            break;
+          case MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH:
+            ag = ((HyperLogLog) ag).toBytes();
+            break;
+          case MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX:
+          case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX:
+            {
+              double fraction = 0.5;
+              if (aggType == MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX) {
+                fraction = Double.parseDouble(meta.getValueField()[i]) / 100;
+              }
+              double quantile = ((QuantileSketch) ag).getQuantile(fraction);
+              ag = Double.isNaN(quantile) ? null : Double.valueOf(quantile);
+              break;
+            }
+          case MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH:
+            ag = ((QuantileSketch) ag).toBytes();
+            break;
           case MemoryGroupByMeta.TYPE_GROUP_MIN:
             break;
           case MemoryGroupByMeta.TYPE_GROUP_MAX:
@@ -565,6 +1230,36 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
     if (super.init()) {
       data.map = new HashMap<>(5000);
+
+      // The groups are kept in memory within the budget we get from the memory manager.
+      // When they don't fit, partitions of groups are moved to disk.
+      //
+      long budget = Const.toLong(resolve(meta.getMemoryBudget()), 0L);
+      data.memoryBudget =
+          MemoryManager.getInstance().createBudget(getTransformName(), budget * 1024 * 1024);
+      data.partitionBytes = new long[MemoryGroupByData.NR_PARTITIONS];
+      data.spilledPartitions = new SpilledPartition[MemoryGroupByData.NR_PARTITIONS];
+      data.pendingPartitions = new ArrayDeque<>();
+      data.level = 0;
+
+      // When aggregating in two phases, the first copy merges the partial groups of all copies
+      //
+      if (meta.isMergeCopies()) {
+        if (getTransformMeta().isPartitioned()) {
+          logBasic(BaseMessages.getString(PKG, "MemoryGroupBy.Log.MergeCopiesIgnored"));
+        } else {
+          int nrCopies = getTransformMeta().getCopies(this);
+          if (nrCopies > 1) {
+            synchronized (getPipeline()) {
+              data.copyMerge =
+                  (CopyMerge)
+                      getPipeline()
+                          .getExtensionDataMap()
+                          .computeIfAbsent(getCopyMergeKey(), key -> new CopyMerge(nrCopies));
+            }
+          }
+        }
+      }
       return true;
     }
     return false;
@@ -572,10 +1267,49 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
   @Override
   public void dispose() {
+    // Remove the temporary files we might have left behind
+    //
+    if (data.spilledPartitions != null) {
+      for (SpilledPartition spilledPartition : data.spilledPartitions) {
+        if (spilledPartition != null) {
+          spilledPartition.delete();
+        }
+      }
+      data.spilledPartitions = null;
+    }
+    if (data.pendingPartitions != null) {
+      for (SpilledPartition spilledPartition : data.pendingPartitions) {
+        spilledPartition.delete();
+      }
+      data.pendingPartitions = null;
+    }
+    if (data.memoryBudget != null) {
+      data.memoryBudget.close();
+      data.memoryBudget = null;
+    }
+
+    // Never keep the first copy waiting for a copy which failed
+    //
+    if (data.copyMerge != null) {
+      if (getCopyNr() > 0) {
+        data.copyMerge.handOver(getCopyNr(), null);
+      } else {
+        data.copyMerge.close();
+        synchronized (getPipeline()) {
+          getPipeline().getExtensionDataMap().remove(getCopyMergeKey());
+        }
+      }
+      data.copyMerge = null;
+    }
+
     super.dispose();
     ((MemoryGroupByData) data).clear();
   }
 
+  private String getCopyMergeKey() {
+    return "MemoryGroupBy.merge." + getTransformName();
+  }
+
   @Override
   public void batchComplete() throws HopException {
     // Empty the hash table
@@ -18,16 +18,28 @@
 package org.apache.hop.pipeline.transforms.memgroupby;
 
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.MemoryBudget;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.NumericAccumulator;
+import org.apache.hop.core.sketch.HyperLogLog;
+import org.apache.hop.core.sketch.QuantileSketch;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
+import java.util.Deque;
 import java.util.HashMap;
 
 public class MemoryGroupByData extends BaseTransformData implements ITransformData {
+  /** The groups are divided over 2^PARTITION_BITS partitions when they don't fit in memory */
+  public static final int PARTITION_BITS = 4;
+
+  public static final int NR_PARTITIONS = 1 << PARTITION_BITS;
+
   public class HashEntry {
     private Object[] groupData;
+    private int hash;
+    private boolean hashCalculated;
 
     public HashEntry(Object[] groupData) {
       this.groupData = groupData;
@@ -48,11 +60,15 @@ public class MemoryGroupByData extends BaseTransformData implements ITransformDa
     }
 
     public int hashCode() {
-      try {
-        return groupMeta.hashCode(getHashValue());
-      } catch (HopValueException e) {
-        throw new RuntimeException(e);
+      if (!hashCalculated) {
+        try {
+          hash = groupMeta.hashCode(getHashValue());
+          hashCalculated = true;
+        } catch (HopValueException e) {
+          throw new RuntimeException(e);
+        }
       }
+      return hash;
     }
 
     private Object[] getHashValue() throws HopValueException {
@@ -89,8 +105,36 @@ public class MemoryGroupByData extends BaseTransformData implements ITransformDa
 
   public boolean newBatch;
 
+  /** How each aggregation is accumulated, see {@link NumericAccumulator} */
+  public int[] accumulatorTypes;
+
+  /** The accuracy of the sketches used by the approximate aggregations */
+  public int hllPrecision;
+
+  public int quantileSketchK;
+
+  /** The memory budget for the groups, null if the groups are never moved to disk */
+  public MemoryBudget memoryBudget;
+
+  /** The estimated memory used by the groups in memory, per partition */
+  public long[] partitionBytes;
+
+  /** The partitions which are moved to disk at the current level, null if kept in memory */
+  public SpilledPartition[] spilledPartitions;
+
+  /** The partitions on disk which still need to be aggregated */
+  public Deque<SpilledPartition> pendingPartitions;
+
+  /** The partitioning level: partitions on disk are split further by the next bits of the hash */
+  public int level;
+
+  /** The hand-over of partial groups between the copies, null if the copies aren't merged */
+  public CopyMerge copyMerge;
+
   public MemoryGroupByData() {
     super();
+    hllPrecision = HyperLogLog.DEFAULT_PRECISION;
+    quantileSketchK = QuantileSketch.DEFAULT_K;
   }
 
   public HashEntry getHashEntry(Object[] groupData) {
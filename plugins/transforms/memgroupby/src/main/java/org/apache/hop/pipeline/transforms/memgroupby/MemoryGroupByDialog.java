@@ -31,6 +31,7 @@ import org.apache.hop.ui.core.dialog.BaseDialog;
 import org.apache.hop.ui.core.dialog.ErrorDialog;
 import org.apache.hop.ui.core.widget.ColumnInfo;
 import org.apache.hop.ui.core.widget.TableView;
+import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ModifyListener;
@@ -54,6 +55,13 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
 
   private Button wAlwaysAddResult;
 
+  private TextVar wDirectory;
+
+  private TextVar wPrefix;
+
+  private TextVar wMemoryBudget;
+  private Button wMergeCopies;
+
   private final MemoryGroupByMeta input;
 
   private ColumnInfo[] ciKey;
@@ -139,12 +147,100 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     wAlwaysAddResult.setLayoutData(fdAlwaysAddResult);
     wAlwaysAddResult.addSelectionListener(lsSel);
 
+    // The temporary files for the groups which don't fit in memory
+    //
+    Label wlDirectory = new Label(shell, SWT.RIGHT);
+    wlDirectory.setText(BaseMessages.getString(PKG, "MemoryGroupByDialog.TempDirectory.Label"));
+    wlDirectory.setToolTipText(
+        BaseMessages.getString(PKG, "MemoryGroupByDialog.TempDirectory.ToolTip"));
+    props.setLook(wlDirectory);
+    FormData fdlDirectory = new FormData();
+    fdlDirectory.left = new FormAttachment(0, 0);
+    fdlDirectory.top = new FormAttachment(wAlwaysAddResult, margin);
+    fdlDirectory.right = new FormAttachment(middle, -margin);
+    wlDirectory.setLayoutData(fdlDirectory);
+    wDirectory = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wDirectory.setToolTipText(
+        BaseMessages.getString(PKG, "MemoryGroupByDialog.TempDirectory.ToolTip"));
+    props.setLook(wDirectory);
+    wDirectory.addModifyListener(lsMod);
+    FormData fdDirectory = new FormData();
+    fdDirectory.left = new FormAttachment(middle, 0);
+    fdDirectory.top = new FormAttachment(wAlwaysAddResult, margin);
+    fdDirectory.right = new FormAttachment(100, 0);
+    wDirectory.setLayoutData(fdDirectory);
+
+    Label wlPrefix = new Label(shell, SWT.RIGHT);
+    wlPrefix.setText(BaseMessages.getString(PKG, "MemoryGroupByDialog.FilePrefix.Label"));
+    wlPrefix.setToolTipText(BaseMessages.getString(PKG, "MemoryGroupByDialog.FilePrefix.ToolTip"));
+    props.setLook(wlPrefix);
+    FormData fdlPrefix = new FormData();
+    fdlPrefix.left = new FormAttachment(0, 0);
+    fdlPrefix.top = new FormAttachment(wDirectory, margin);
+    fdlPrefix.right = new FormAttachment(middle, -margin);
+    wlPrefix.setLayoutData(fdlPrefix);
+    wPrefix = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wPrefix.setToolTipText(BaseMessages.getString(PKG, "MemoryGroupByDialog.FilePrefix.ToolTip"));
+    props.setLook(wPrefix);
+    wPrefix.addModifyListener(lsMod);
+    FormData fdPrefix = new FormData();
+    fdPrefix.left = new FormAttachment(middle, 0);
+    fdPrefix.top = new FormAttachment(wDirectory, margin);
+    fdPrefix.right = new FormAttachment(100, 0);
+    wPrefix.setLayoutData(fdPrefix);
+
+    // The memory budget
+    //
+    Label wlMemoryBudget = new Label(shell, SWT.RIGHT);
+    wlMemoryBudget.setText(BaseMessages.getString(PKG, "MemoryGroupByDialog.MemoryBudget.Label"));
+    wlMemoryBudget.setToolTipText(
+        BaseMessages.getString(PKG, "MemoryGroupByDialog.MemoryBudget.ToolTip"));
+    props.setLook(wlMemoryBudget);
+    FormData fdlMemoryBudget = new FormData();
+    fdlMemoryBudget.left = new FormAttachment(0, 0);
+    fdlMemoryBudget.top = new FormAttachment(wPrefix, margin);
+    fdlMemoryBudget.right = new FormAttachment(middle, -margin);
+    wlMemoryBudget.setLayoutData(fdlMemoryBudget);
+    wMemoryBudget = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wMemoryBudget.setToolTipText(
+        BaseMessages.getString(PKG, "MemoryGroupByDialog.MemoryBudget.ToolTip"));
+    props.setLook(wMemoryBudget);
+    wMemoryBudget.addModifyListener(lsMod);
+    FormData fdMemoryBudget = new FormData();
+    fdMemoryBudget.left = new FormAttachment(middle, 0);
+    fdMemoryBudget.top = new FormAttachment(wPrefix, margin);
+    fdMemoryBudget.right = new FormAttachment(100, 0);
+    wMemoryBudget.setLayoutData(fdMemoryBudget);
+
+    // Merge the groups of all the copies?
+    //
+    Label wlMergeCopies = new Label(shell, SWT.RIGHT);
+    wlMergeCopies.setText(BaseMessages.getString(PKG, "MemoryGroupByDialog.MergeCopies.Label"));
+    wlMergeCopies.setToolTipText(
+        BaseMessages.getString(PKG, "MemoryGroupByDialog.MergeCopies.ToolTip"));
+    props.setLook(wlMergeCopies);
+    FormData fdlMergeCopies = new FormData();
+    fdlMergeCopies.left = new FormAttachment(0, 0);
+    fdlMergeCopies.top = new FormAttachment(wMemoryBudget, margin);
+    fdlMergeCopies.right = new FormAttachment(middle, -margin);
+    wlMergeCopies.setLayoutData(fdlMergeCopies);
+    wMergeCopies = new Button(shell, SWT.CHECK);
+    wMergeCopies.setToolTipText(
+        BaseMessages.getString(PKG, "MemoryGroupByDialog.MergeCopies.ToolTip"));
+    props.setLook(wMergeCopies);
+    FormData fdMergeCopies = new FormData();
+    fdMergeCopies.left = new FormAttachment(middle, 0);
+    fdMergeCopies.top = new FormAttachment(wlMergeCopies, 0, SWT.CENTER);
+    fdMergeCopies.right = new FormAttachment(100, 0);
+    wMergeCopies.setLayoutData(fdMergeCopies);
+    wMergeCopies.addSelectionListener(lsSel);
+
     Label wlGroup = new Label(shell, SWT.NONE);
     wlGroup.setText(BaseMessages.getString(PKG, "MemoryGroupByDialog.Group.Label"));
     props.setLook(wlGroup);
     FormData fdlGroup = new FormData();
     fdlGroup.left = new FormAttachment(0, 0);
-    fdlGroup.top = new FormAttachment(wlAlwaysAddResult, 2 * margin);
+    fdlGroup.top = new FormAttachment(wMergeCopies, 2 * margin);
     wlGroup.setLayoutData(fdlGroup);
 
     int nrKeyCols = 1;
@@ -311,6 +407,10 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     logDebug(BaseMessages.getString(PKG, "MemoryGroupByDialog.Log.GettingKeyInfo"));
 
     wAlwaysAddResult.setSelection(input.isAlwaysGivingBackOneRow());
+    wDirectory.setText(Const.NVL(input.getDirectory(), ""));
+    wPrefix.setText(Const.NVL(input.getPrefix(), ""));
+    wMemoryBudget.setText(Const.NVL(input.getMemoryBudget(), ""));
+    wMergeCopies.setSelection(input.isMergeCopies());
 
     if (input.getGroupField() != null) {
       for (int i = 0; i < input.getGroupField().length; i++) {
@@ -362,6 +462,10 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     int nrFields = wAgg.nrNonEmpty();
 
     input.setAlwaysGivingBackOneRow(wAlwaysAddResult.getSelection());
+    input.setDirectory(wDirectory.getText());
+    input.setPrefix(wPrefix.getText());
+    input.setMemoryBudget(wMemoryBudget.getText());
+    input.setMergeCopies(wMergeCopies.getSelection());
 
     input.allocate(sizegroup, nrFields);
 
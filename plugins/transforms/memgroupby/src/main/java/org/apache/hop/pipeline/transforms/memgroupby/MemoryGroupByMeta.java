@@ -94,6 +94,16 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
   
   public static final int TYPE_GROUP_CONCAT_DISTINCT = 17;
 
+  public static final int TYPE_GROUP_COUNT_DISTINCT_APPROX = 18;
+
+  public static final int TYPE_GROUP_DISTINCT_SKETCH = 19;
+
+  public static final int TYPE_GROUP_MEDIAN_APPROX = 20;
+
+  public static final int TYPE_GROUP_PERCENTILE_APPROX = 21;
+
+  public static final int TYPE_GROUP_QUANTILE_SKETCH = 22;
+
   public static final String[]
       typeGroupCode = /* WARNING: DO NOT TRANSLATE THIS. WE ARE SERIOUS, DON'T TRANSLATE! */ {
     "-",
@@ -114,6 +124,11 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
     "COUNT_DISTINCT",
     "COUNT_ANY",
     "CONCAT_DISTINCT",
+    "COUNT_DISTINCT_APPROX",
+    "DISTINCT_SKETCH",
+    "MEDIAN_APPROX",
+    "PERCENTILE_APPROX",
+    "QUANTILE_SKETCH",
   };
 
   public static final String[] typeGroupLongDesc = {
@@ -135,6 +150,11 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
     BaseMessages.getString(PKG, "MemoryGroupByMeta.TypeGroupLongDesc.COUNT_DISTINCT"),
     BaseMessages.getString(PKG, "MemoryGroupByMeta.TypeGroupLongDesc.COUNT_ANY"),
     BaseMessages.getString(PKG, "MemoryGroupByMeta.TypeGroupLongDesc.CONCAT_DISTINCT"),
+    BaseMessages.getString(PKG, "MemoryGroupByMeta.TypeGroupLongDesc.COUNT_DISTINCT_APPROX"),
+    BaseMessages.getString(PKG, "MemoryGroupByMeta.TypeGroupLongDesc.DISTINCT_SKETCH"),
+    BaseMessages.getString(PKG, "MemoryGroupByMeta.TypeGroupLongDesc.MEDIAN_APPROX"),
+    BaseMessages.getString(PKG, "MemoryGroupByMeta.TypeGroupLongDesc.PERCENTILE_APPROX"),
+    BaseMessages.getString(PKG, "MemoryGroupByMeta.TypeGroupLongDesc.QUANTILE_SKETCH"),
   };
 
   @Injection(name = "GROUPFIELD", group = "FIELDS")
@@ -161,6 +181,28 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
   /** Flag to indicate that we always give back one row. Defaults to true for existing pipelines. */
   private boolean alwaysGivingBackOneRow;
 
+  /** Directory to store the temp files of the groups which don't fit in memory */
+  @Injection(name = "TEMP_DIRECTORY")
+  private String directory;
+
+  /** Temp files prefix... */
+  @Injection(name = "TEMP_FILE_PREFIX")
+  private String prefix;
+
+  /**
+   * The memory budget in MB. When the groups don't fit in the budget, part of them are moved to
+   * temporary files and aggregated afterwards. When empty, a fair share of the memory pool is used.
+   */
+  @Injection(name = "MEMORY_BUDGET")
+  private String memoryBudget;
+
+  /**
+   * Flag to indicate that the partial groups of all the copies of this transform are merged into
+   * final groups by the first copy.
+   */
+  @Injection(name = "MERGE_COPIES")
+  private boolean mergeCopies;
+
   public MemoryGroupByMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -301,6 +343,11 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
       } else {
         alwaysGivingBackOneRow = "Y".equalsIgnoreCase(giveBackRow);
       }
+
+      directory = XmlHandler.getTagValue(transformNode, "directory");
+      prefix = XmlHandler.getTagValue(transformNode, "prefix");
+      memoryBudget = XmlHandler.getTagValue(transformNode, "memory_budget");
+      mergeCopies = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "merge_copies"));
     } catch (Exception e) {
       throw new HopXmlException(
           BaseMessages.getString(
@@ -343,6 +390,11 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
     int nrFields = 0;
 
     allocate(sizegroup, nrFields);
+
+    directory = "${java.io.tmpdir}";
+    prefix = "grp";
+    memoryBudget = null;
+    mergeCopies = false;
   }
 
   @Override
@@ -390,6 +442,7 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
           case TYPE_GROUP_COUNT_DISTINCT:
           case TYPE_GROUP_COUNT_ALL:
           case TYPE_GROUP_COUNT_ANY:
+          case TYPE_GROUP_COUNT_DISTINCT_APPROX:
             valueType = IValueMeta.TYPE_INTEGER;
             break;
           case TYPE_GROUP_SUM:
@@ -403,8 +456,14 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
           case TYPE_GROUP_MEDIAN:
           case TYPE_GROUP_PERCENTILE:
           case TYPE_GROUP_STANDARD_DEVIATION:
+          case TYPE_GROUP_MEDIAN_APPROX:
+          case TYPE_GROUP_PERCENTILE_APPROX:
             valueType = IValueMeta.TYPE_NUMBER;
             break;
+          case TYPE_GROUP_DISTINCT_SKETCH:
+          case TYPE_GROUP_QUANTILE_SKETCH:
+            valueType = IValueMeta.TYPE_BINARY;
+            break;
           case TYPE_GROUP_CONCAT_COMMA:
           case TYPE_GROUP_CONCAT_STRING:
           case TYPE_GROUP_CONCAT_DISTINCT:
@@ -460,6 +519,10 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
     StringBuilder retval = new StringBuilder(500);
 
     retval.append("      ").append(XmlHandler.addTagValue("give_back_row", alwaysGivingBackOneRow));
+    retval.append("      ").append(XmlHandler.addTagValue("directory", directory));
+    retval.append("      ").append(XmlHandler.addTagValue("prefix", prefix));
+    retval.append("      ").append(XmlHandler.addTagValue("memory_budget", memoryBudget));
+    retval.append("      ").append(XmlHandler.addTagValue("merge_copies", mergeCopies));
 
     retval.append("      <group>").append(Const.CR);
     for (int i = 0; i < groupField.length; i++) {
@@ -529,6 +592,62 @@ public class MemoryGroupByMeta extends BaseTransformMeta<MemoryGroupBy, MemoryGr
     this.alwaysGivingBackOneRow = alwaysGivingBackOneRow;
   }
 
+  /**
+   * @return Returns the directory.
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @param directory The directory to set.
+   */
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return Returns the prefix.
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * @param prefix The prefix to set.
+   */
+  public void setPrefix(String prefix) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * @return the memory budget in MB
+   */
+  public String getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * @param memoryBudget the memory budget in MB to set
+   */
+  public void setMemoryBudget(String memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * @return true if the partial groups of all the copies are merged into final groups
+   */
+  public boolean isMergeCopies() {
+    return mergeCopies;
+  }
+
+  /**
+   * @param mergeCopies true to merge the partial groups of all the copies into final groups
+   */
+  public void setMergeCopies(boolean mergeCopies) {
+    this.mergeCopies = mergeCopies;
+  }
+
   /**
    * If we use injection we can have different arrays lengths. We need synchronize them for
    * consistency behavior with UI
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowCodec;
+import org.apache.hop.core.row.value.ValueMetaString;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+/**
+ * A partition of the groups which didn't fit in memory. The aggregation state of the groups of the
+ * partition is written to one temporary file, the input rows for the partition which arrive later
+ * on are written to another one. Both are read back and aggregated once all the input is processed.
+ */
+class SpilledPartition {
+
+  private static final int BUFFER_SIZE = 50000;
+
+  /** The partitioning level at which this partition was moved to disk */
+  private final int level;
+
+  private final IRowMeta rowMeta;
+  private final IRowMeta groupMeta;
+  private final IRowMeta aggMeta;
+  private final int[] aggregateTypes;
+  private final IValueMeta[] elementMetas;
+  private final File groupsFile;
+  private final File rowsFile;
+
+  private DataOutputStream groupsOutput;
+  private DataOutputStream rowsOutput;
+  private RowCodec codec;
+  private RowCodec groupCodec;
+  private RowCodec aggregateCodec;
+
+  private long nrGroups;
+  private long nrRows;
+
+  /**
+   * Create a partition on disk for the groups of a copy of the transform.
+   *
+   * @param level The partitioning level
+   * @param data The data of the transform: the input, group and aggregate metadata
+   * @param aggregateTypes The aggregation types, see {@link MemoryGroupByMeta}
+   * @param groupsFile The file to write the aggregation states of the groups to
+   * @param rowsFile The file to write the input rows to
+   * @throws HopFileException In case a file can't be created
+   */
+  SpilledPartition(
+      int level, MemoryGroupByData data, int[] aggregateTypes, File groupsFile, File rowsFile)
+      throws HopFileException {
+    this.level = level;
+    this.rowMeta = data.inputRowMeta;
+    this.groupMeta = data.groupMeta;
+    this.aggMeta = data.aggMeta;
+    this.aggregateTypes = aggregateTypes;
+    this.elementMetas = getElementMetas(data, aggregateTypes);
+    this.groupsFile = groupsFile;
+    this.rowsFile = rowsFile;
+
+    try {
+      groupsOutput =
+          new DataOutputStream(
+              new BufferedOutputStream(new FileOutputStream(groupsFile), BUFFER_SIZE));
+      rowsOutput =
+          new DataOutputStream(
+              new BufferedOutputStream(new FileOutputStream(rowsFile), BUFFER_SIZE));
+    } catch (IOException e) {
+      delete();
+      throw new HopFileException("Unable to create temporary file", e);
+    }
+    codec = new RowCodec(rowMeta, true);
+    codec.writeHeader(rowsOutput);
+    groupCodec = new RowCodec(groupMeta, true);
+    groupCodec.writeHeader(groupsOutput);
+    aggregateCodec = new RowCodec(aggMeta);
+    aggregateCodec.writeHeader(groupsOutput);
+  }
+
+  /**
+   * The distinct values are kept in their normal storage type, binary values as strings. The
+   * concatenated distinct values are kept as they come in.
+   */
+  private static IValueMeta[] getElementMetas(MemoryGroupByData data, int[] aggregateTypes) {
+    IValueMeta[] elementMetas = new IValueMeta[aggregateTypes.length];
+    for (int i = 0; i < aggregateTypes.length; i++) {
+      if (data.subjectnrs[i] < 0) {
+        continue;
+      }
+      IValueMeta subjectMeta = data.inputRowMeta.getValueMeta(data.subjectnrs[i]);
+      if (aggregateTypes[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT) {
+        if (subjectMeta.getType() == IValueMeta.TYPE_BINARY) {
+          elementMetas[i] = new ValueMetaString(subjectMeta.getName());
+        } else {
+          elementMetas[i] = subjectMeta.clone();
+          elementMetas[i].setStorageType(IValueMeta.STORAGE_TYPE_NORMAL);
+        }
+      } else if (aggregateTypes[i] == MemoryGroupByMeta.TYPE_GROUP_CONCAT_DISTINCT) {
+        elementMetas[i] = subjectMeta;
+      }
+    }
+    return elementMetas;
+  }
+
+  /**
+   * Write the aggregation state of a group to disk.
+   *
+   * @param groupData The values of the group fields
+   * @param aggregate The aggregation state of the group
+   * @throws HopFileException In case of an I/O error
+   */
+  void writeGroup(Object[] groupData, Aggregate aggregate) throws HopException {
+    try {
+      groupCodec.writeRow(groupsOutput, groupData);
+      aggregate.write(groupsOutput, aggregateCodec, aggregateTypes, elementMetas);
+      nrGroups++;
+    } catch (IOException e) {
+      throw new HopFileException("Unable to write group to temporary file " + groupsFile, e);
+    }
+  }
+
+  /**
+   * Write an input row of one of the groups in this partition to disk.
+   *
+   * @param row The input row
+   * @throws HopFileException In case of an I/O error
+   */
+  void writeRow(Object[] row) throws HopFileException {
+    codec.writeRow(rowsOutput, row);
+    nrRows++;
+  }
+
+  /** Close the temporary files for writing */
+  void closeOutput() throws HopFileException {
+    try {
+      if (groupsOutput != null) {
+        groupsOutput.close();
+        groupsOutput = null;
+      }
+      if (rowsOutput != null) {
+        rowsOutput.close();
+        rowsOutput = null;
+      }
+    } catch (IOException e) {
+      throw new HopFileException("Unable to close temporary file", e);
+    }
+  }
+
+  /**
+   * Open the file with the aggregation states of the groups for reading.
+   *
+   * @return The stream to read the groups from with {@link #readGroupData(DataInputStream)} and
+   *     {@link #readAggregate(DataInputStream)}, in pairs.
+   * @throws HopFileException In case of an I/O error
+   */
+  DataInputStream openGroups() throws HopFileException {
+    try {
+      DataInputStream inputStream =
+          new DataInputStream(
+              new BufferedInputStream(new FileInputStream(groupsFile), BUFFER_SIZE));
+      groupCodec = new RowCodec(groupMeta);
+      groupCodec.readHeader(inputStream);
+      aggregateCodec = new RowCodec(aggMeta);
+      aggregateCodec.readHeader(inputStream);
+      return inputStream;
+    } catch (IOException e) {
+      throw new HopFileException("Unable to read temporary file " + groupsFile, e);
+    }
+  }
+
+  Object[] readGroupData(DataInputStream inputStream) throws HopFileException {
+    try {
+      Object[] row = groupCodec.readRow(inputStream);
+      Object[] groupData = new Object[groupMeta.size()];
+      System.arraycopy(row, 0, groupData, 0, groupData.length);
+      return groupData;
+    } catch (SocketTimeoutException e) {
+      throw new HopFileException(e); // Shouldn't happen on files
+    }
+  }
+
+  Aggregate readAggregate(DataInputStream inputStream) throws HopException {
+    try {
+      return Aggregate.read(inputStream, aggregateCodec, aggregateTypes, elementMetas);
+    } catch (IOException e) {
+      throw new HopFileException("Unable to read group from temporary file " + groupsFile, e);
+    }
+  }
+
+  /**
+   * Open the file with the input rows for reading.
+   *
+   * @return The stream to read the rows from with {@link #readRow(DataInputStream)}
+   * @throws HopFileException In case of an I/O error
+   */
+  DataInputStream openRows() throws HopFileException {
+    try {
+      DataInputStream inputStream =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(rowsFile), BUFFER_SIZE));
+      codec = new RowCodec(rowMeta);
+      codec.readHeader(inputStream);
+      return inputStream;
+    } catch (IOException e) {
+      throw new HopFileException("Unable to read temporary file " + rowsFile, e);
+    }
+  }
+
+  Object[] readRow(DataInputStream inputStream) throws HopFileException {
+    try {
+      return codec.readRow(inputStream);
+    } catch (SocketTimeoutException e) {
+      throw new HopFileException(e); // Shouldn't happen on files
+    }
+  }
+
+  /** Close and remove the temporary files */
+  void delete() {
+    try {
+      closeOutput();
+    } catch (HopFileException e) {
+      // Ignore, we're removing the files anyway
+    }
+    groupsFile.delete();
+    rowsFile.delete();
+  }
+
+  /**
+   * Gets level
+   *
+   * @return value of level
+   */
+  int getLevel() {
+    return level;
+  }
+
+  /**
+   * Gets nrGroups
+   *
+   * @return value of nrGroups
+   */
+  long getNrGroups() {
+    return nrGroups;
+  }
+
+  /**
+   * Gets nrRows
+   *
+   * @return value of nrRows
+   */
+  long getNrRows() {
+    return nrRows;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.plugins.PluginRegistry;
+import org.apache.hop.core.plugins.TransformPluginType;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineHopMeta;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.RowProducer;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.engines.local.LocalPipelineRunConfiguration;
+import org.apache.hop.pipeline.transform.ITransformMeta;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class MemoryGroupByCopiesTest {
+
+  private static final int NR_ROWS = 1000;
+  private static final int NR_GROUPS = 10;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  @Test(timeout = 60000)
+  public void testMergeMoreCopiesThanWorkers() throws Exception {
+    // The first copy waits for the other copies on the only worker of the pool
+    //
+    Pipeline pipeline = createPipeline(4, "1");
+    pipeline.prepareExecution();
+    RowProducer rowProducer = pipeline.addRowProducer("injector", 0);
+    Map<Long, Long> sums = new ConcurrentHashMap<>();
+    pipeline
+        .getTransform("output", 0)
+        .addRowListener(
+            new RowAdapter() {
+              @Override
+              public void rowReadEvent(IRowMeta rowMeta, Object[] row) {
+                sums.put((Long) row[0], (Long) row[1]);
+              }
+            });
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("key"));
+    rowMeta.addValueMeta(new ValueMetaInteger("value"));
+
+    pipeline.startThreads();
+    for (long i = 0; i < NR_ROWS; i++) {
+      rowProducer.putRow(rowMeta, new Object[] {i % NR_GROUPS, i});
+    }
+    rowProducer.finished();
+    pipeline.waitUntilFinished();
+
+    assertEquals(0, pipeline.getErrors());
+    assertEquals(NR_GROUPS, sums.size());
+    for (long group = 0; group < NR_GROUPS; group++) {
+      long expected = 0;
+      for (long i = group; i < NR_ROWS; i += NR_GROUPS) {
+        expected += i;
+      }
+      assertEquals(Long.valueOf(expected), sums.get(group));
+    }
+  }
+
+  private Pipeline createPipeline(int nrCopies, String poolSize) {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("Merge copies");
+
+    MemoryGroupByMeta groupByMeta = new MemoryGroupByMeta();
+    groupByMeta.setDefault();
+    groupByMeta.allocate(1, 1);
+    groupByMeta.getGroupField()[0] = "key";
+    groupByMeta.getAggregateField()[0] = "sum";
+    groupByMeta.getSubjectField()[0] = "value";
+    groupByMeta.getAggregateType()[0] = MemoryGroupByMeta.TYPE_GROUP_SUM;
+    groupByMeta.setMergeCopies(true);
+
+    TransformMeta injector = addTransform(pipelineMeta, "injector", new InjectorMeta());
+    TransformMeta groupBy = addTransform(pipelineMeta, "group by", groupByMeta);
+    groupBy.setCopies(nrCopies);
+    TransformMeta output = addTransform(pipelineMeta, "output", new DummyMeta());
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(injector, groupBy));
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(groupBy, output));
+
+    Pipeline pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    LocalPipelineRunConfiguration config =
+        (LocalPipelineRunConfiguration)
+            pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
+    config.setExecutionMode(LocalPipelineRunConfiguration.ExecutionMode.WorkerPool.name());
+    config.setWorkerPoolSize(poolSize);
+    return pipeline;
+  }
+
+  private static TransformMeta addTransform(
+      PipelineMeta pipelineMeta, String name, ITransformMeta meta) {
+    String pluginId = PluginRegistry.getInstance().getPluginId(TransformPluginType.class, meta);
+    TransformMeta transformMeta = new TransformMeta(pluginId, name, meta);
+    pipelineMeta.addTransform(transformMeta);
+    return transformMeta;
+  }
+}
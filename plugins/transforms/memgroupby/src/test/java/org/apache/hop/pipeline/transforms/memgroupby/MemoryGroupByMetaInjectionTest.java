@@ -38,5 +38,9 @@ public class MemoryGroupByMetaInjectionTest extends BaseMetadataInjectionTest<Me
     check("AGGREGATETYPE", () -> meta.getAggregateType()[0]);
     check("VALUEFIELD", () -> meta.getValueField()[0]);
     check("ALWAYSGIVINGBACKONEROW", () -> meta.isAlwaysGivingBackOneRow());
+    check("TEMP_DIRECTORY", () -> meta.getDirectory());
+    check("TEMP_FILE_PREFIX", () -> meta.getPrefix());
+    check("MEMORY_BUDGET", () -> meta.getMemoryBudget());
+    check("MERGE_COPIES", () -> meta.isMergeCopies());
   }
 }
@@ -56,7 +56,10 @@ public class MemoryGroupByMetaTest implements IInitializer<MemoryGroupByMeta> {
             "aggregateField",
             "subjectField",
             "aggregateType",
-            "valueField");
+            "valueField",
+            "directory",
+            "prefix",
+            "memoryBudget");
 
     IFieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
         new ArrayLoadSaveValidator<>(new StringLoadSaveValidator(), 5);
@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.QueueRowSet;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.memory.MemoryManager;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.sketch.HyperLogLog;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+public class MemoryGroupBySpillTest {
+
+  private static final int NR_ROWS = 10000;
+  private static final int NR_GROUPS = 3000;
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private TransformMockHelper<MemoryGroupByMeta, MemoryGroupByData> transformMockHelper;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  @Before
+  public void setup() {
+    transformMockHelper =
+        new TransformMockHelper<>(
+            "Memory group by", MemoryGroupByMeta.class, MemoryGroupByData.class);
+    when(transformMockHelper.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(transformMockHelper.iLogChannel);
+    when(transformMockHelper.pipeline.isRunning()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    transformMockHelper.cleanUp();
+  }
+
+  @Test
+  public void testAggregateInMemory() throws Exception {
+    assertGroups(aggregate(null));
+  }
+
+  @Test
+  public void testAggregateWithSpilledPartitions() throws Exception {
+    assertGroups(aggregate("1"));
+    assertEquals(0, MemoryManager.getInstance().getReserved());
+    assertEquals(0, MemoryManager.getInstance().getNrBudgets());
+  }
+
+  private Map<String, Object[]> aggregate(String memoryBudget) throws Exception {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate(1, 6);
+    meta.getGroupField()[0] = "key";
+    setAggregate(meta, 0, "sum", "value", MemoryGroupByMeta.TYPE_GROUP_SUM);
+    setAggregate(meta, 1, "count", "value", MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL);
+    setAggregate(meta, 2, "first", "value", MemoryGroupByMeta.TYPE_GROUP_FIRST);
+    setAggregate(meta, 3, "last", "value", MemoryGroupByMeta.TYPE_GROUP_LAST);
+    setAggregate(meta, 4, "min", "value", MemoryGroupByMeta.TYPE_GROUP_MIN);
+    setAggregate(meta, 5, "max", "value", MemoryGroupByMeta.TYPE_GROUP_MAX);
+    meta.setDirectory(tempFolder.getRoot().getAbsolutePath());
+    meta.setMemoryBudget(memoryBudget);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("key"));
+    rowMeta.addValueMeta(new ValueMetaInteger("value"));
+
+    // The value is the row number so that we can check the aggregates of every group
+    //
+    IRowSet input = new QueueRowSet();
+    Random random = new Random(42);
+    for (long i = 0; i < NR_ROWS; i++) {
+      int group = i < NR_GROUPS ? (int) i : random.nextInt(NR_GROUPS);
+      input.putRow(rowMeta, new Object[] {key(group), i});
+    }
+    input.setDone();
+
+    Map<String, Object[]> groups = new HashMap<>();
+    for (Object[] row : process(meta, input)) {
+      assertEquals(null, groups.put((String) row[0], row));
+    }
+    return groups;
+  }
+
+  @Test
+  public void testSpillCollectionsAndSketches() throws Exception {
+    Map<String, Object[]> inMemory = aggregateCollections(null);
+    Map<String, Object[]> spilled = aggregateCollections("1");
+    assertEquals(NR_GROUPS, spilled.size());
+    for (Map.Entry<String, Object[]> entry : inMemory.entrySet()) {
+      assertArrayEquals(entry.getKey(), entry.getValue(), spilled.get(entry.getKey()));
+    }
+    assertNoTemporaryFiles();
+  }
+
+  /** Aggregate with the aggregations which keep collections and sketches of values */
+  private Map<String, Object[]> aggregateCollections(String memoryBudget) throws Exception {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate(1, 7);
+    meta.getGroupField()[0] = "key";
+    setAggregate(meta, 0, "median", "value", MemoryGroupByMeta.TYPE_GROUP_MEDIAN);
+    setAggregate(meta, 1, "distinct", "value", MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT);
+    setAggregate(meta, 2, "concat", "name", MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA);
+    setAggregate(meta, 3, "names", "name", MemoryGroupByMeta.TYPE_GROUP_CONCAT_DISTINCT);
+    setAggregate(
+        meta, 4, "distinctApprox", "value", MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX);
+    setAggregate(meta, 5, "stddev", "value", MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION);
+    setAggregate(meta, 6, "average", "amount", MemoryGroupByMeta.TYPE_GROUP_AVERAGE);
+    meta.setDirectory(tempFolder.getRoot().getAbsolutePath());
+    meta.setMemoryBudget(memoryBudget);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("key"));
+    rowMeta.addValueMeta(new ValueMetaInteger("value"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaBigNumber("amount"));
+
+    IRowSet input = new QueueRowSet();
+    Random random = new Random(42);
+    for (long i = 0; i < NR_ROWS; i++) {
+      int group = i < NR_GROUPS ? (int) i : random.nextInt(NR_GROUPS);
+      input.putRow(
+          rowMeta,
+          new Object[] {key(group), i % 7, "name " + (i % 3), BigDecimal.valueOf(i, 2)});
+    }
+    input.setDone();
+
+    Map<String, Object[]> groups = new HashMap<>();
+    for (Object[] row : process(meta, input)) {
+      groups.put((String) row[0], row);
+    }
+    return groups;
+  }
+
+  @Test
+  public void testApproximateAggregations() throws Exception {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate(1, 6);
+    meta.getGroupField()[0] = "key";
+    setAggregate(meta, 0, "distinct", "value", MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT);
+    setAggregate(
+        meta, 1, "distinctApprox", "value", MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX);
+    setAggregate(meta, 2, "distinctSketch", "value", MemoryGroupByMeta.TYPE_GROUP_DISTINCT_SKETCH);
+    setAggregate(meta, 3, "medianApprox", "value", MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX);
+    setAggregate(meta, 4, "p90Approx", "value", MemoryGroupByMeta.TYPE_GROUP_PERCENTILE_APPROX);
+    meta.getValueField()[4] = "90";
+    setAggregate(meta, 5, "quantileSketch", "value", MemoryGroupByMeta.TYPE_GROUP_QUANTILE_SKETCH);
+    meta.setDirectory(tempFolder.getRoot().getAbsolutePath());
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("key"));
+    rowMeta.addValueMeta(new ValueMetaInteger("value"));
+
+    // Two groups with values 0..9999, every value twice
+    //
+    IRowSet input = new QueueRowSet();
+    for (long i = 0; i < 40000; i++) {
+      input.putRow(rowMeta, new Object[] {i % 2 == 0 ? "even" : "odd", (i / 2) % 10000});
+    }
+    input.setDone();
+
+    List<Object[]> rows = process(meta, input);
+    assertEquals(2, rows.size());
+    IRowMeta sketchMeta = new RowMeta();
+    sketchMeta.addValueMeta(new ValueMetaString("key"));
+    sketchMeta.addValueMeta(new ValueMetaBinary("distinctSketch"));
+    sketchMeta.addValueMeta(new ValueMetaBinary("quantileSketch"));
+    IRowSet sketches = new QueueRowSet();
+    for (Object[] row : rows) {
+      assertEquals(10000L, row[1]);
+      // The standard error is 1.6% by default, allow 4 times that
+      //
+      assertEquals(10000.0, (Long) row[2], 640.0);
+      assertEquals(row[2], HyperLogLog.fromBytes((byte[]) row[3]).estimate());
+      assertEquals(5000.0, (Double) row[4], 200.0);
+      assertEquals(9000.0, (Double) row[5], 200.0);
+      sketches.putRow(sketchMeta, new Object[] {"all", row[3], row[6]});
+    }
+    sketches.setDone();
+
+    // Merge the partial results of both groups
+    //
+    MemoryGroupByMeta mergeMeta = new MemoryGroupByMeta();
+    mergeMeta.setDefault();
+    mergeMeta.allocate(1, 2);
+    mergeMeta.getGroupField()[0] = "key";
+    setAggregate(
+        mergeMeta,
+        0,
+        "distinctApprox",
+        "distinctSketch",
+        MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT_APPROX);
+    setAggregate(
+        mergeMeta, 1, "medianApprox", "quantileSketch", MemoryGroupByMeta.TYPE_GROUP_MEDIAN_APPROX);
+    List<Object[]> merged = process(mergeMeta, sketches);
+    assertEquals(1, merged.size());
+
+    // Both groups have the same values, so the union has the same number of distinct values
+    //
+    assertEquals(rows.get(0)[2], merged.get(0)[1]);
+    assertEquals(5000.0, (Double) merged.get(0)[2], 200.0);
+  }
+
+  @Test
+  public void testMergeCopiesInMemory() throws Exception {
+    assertMergedCopies(mergeCopies(null));
+  }
+
+  @Test
+  public void testMergeCopiesWithSpilledPartitions() throws Exception {
+    assertMergedCopies(mergeCopies("1"));
+    assertEquals(0, MemoryManager.getInstance().getReserved());
+    assertEquals(0, MemoryManager.getInstance().getNrBudgets());
+  }
+
+  /** Aggregate the rows in two copies, the second copy receives every other row */
+  private Map<String, Object[]> mergeCopies(String memoryBudget) throws Exception {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate(1, 6);
+    meta.getGroupField()[0] = "key";
+    setAggregate(meta, 0, "sum", "value", MemoryGroupByMeta.TYPE_GROUP_SUM);
+    setAggregate(meta, 1, "count", "value", MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL);
+    setAggregate(meta, 2, "min", "value", MemoryGroupByMeta.TYPE_GROUP_MIN);
+    setAggregate(meta, 3, "max", "value", MemoryGroupByMeta.TYPE_GROUP_MAX);
+    setAggregate(meta, 4, "distinct", "value", MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT);
+    setAggregate(meta, 5, "stddev", "value", MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION);
+    meta.setDirectory(tempFolder.getRoot().getAbsolutePath());
+    meta.setMemoryBudget(memoryBudget);
+    meta.setMergeCopies(true);
+
+    when(transformMockHelper.transformMeta.getCopies(any())).thenReturn(2);
+    when(transformMockHelper.pipeline.getExtensionDataMap()).thenReturn(new HashMap<>());
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("key"));
+    rowMeta.addValueMeta(new ValueMetaInteger("value"));
+
+    IRowSet[] inputs = {new QueueRowSet(), new QueueRowSet()};
+    Random random = new Random(42);
+    for (long i = 0; i < NR_ROWS; i++) {
+      int group = i < NR_GROUPS ? (int) i : random.nextInt(NR_GROUPS);
+      inputs[(int) (i % 2)].putRow(rowMeta, new Object[] {key(group), i});
+    }
+    inputs[0].setDone();
+    inputs[1].setDone();
+
+    // The second copy hands over its groups to the first one which passes all the groups
+    //
+    IRowSet output = new QueueRowSet();
+    MemoryGroupBy second = createTransform(meta, 1, inputs[1], output);
+    MemoryGroupBy first = createTransform(meta, 0, inputs[0], output);
+    while (second.processRow()) {
+      // Keep on aggregating
+    }
+    second.dispose();
+    while (first.processRow()) {
+      // Keep on aggregating
+    }
+    first.dispose();
+    assertNoTemporaryFiles();
+
+    Map<String, Object[]> groups = new HashMap<>();
+    for (Object[] row : getRows(output)) {
+      assertEquals(null, groups.put((String) row[0], row));
+    }
+    return groups;
+  }
+
+  /** Calculate the expected aggregates by generating the same rows again */
+  private static void assertMergedCopies(Map<String, Object[]> groups) {
+    Map<String, List<Long>> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (long i = 0; i < NR_ROWS; i++) {
+      int group = i < NR_GROUPS ? (int) i : random.nextInt(NR_GROUPS);
+      expected.computeIfAbsent(key(group), k -> new ArrayList<>()).add(i);
+    }
+
+    assertEquals(expected.size(), groups.size());
+    for (Map.Entry<String, List<Long>> entry : expected.entrySet()) {
+      Object[] row = groups.get(entry.getKey());
+      List<Long> values = entry.getValue();
+      long sum = 0;
+      for (long value : values) {
+        sum += value;
+      }
+      double mean = (double) sum / values.size();
+      double squares = 0;
+      for (long value : values) {
+        squares += (value - mean) * (value - mean);
+      }
+      assertEquals(sum, row[1]);
+      assertEquals((long) values.size(), row[2]);
+      assertEquals(Collections.min(values), row[3]);
+      assertEquals(Collections.max(values), row[4]);
+      assertEquals((long) values.size(), row[5]);
+      assertEquals(Math.sqrt(squares / values.size()), (Double) row[6], 1e-6);
+    }
+  }
+
+  private List<Object[]> process(MemoryGroupByMeta meta, IRowSet input) throws Exception {
+    IRowSet output = new QueueRowSet();
+
+    MemoryGroupBy transform = createTransform(meta, 0, input, output);
+    while (transform.processRow()) {
+      // Keep on aggregating
+    }
+    transform.dispose();
+    assertNoTemporaryFiles();
+
+    return getRows(output);
+  }
+
+  private MemoryGroupBy createTransform(
+      MemoryGroupByMeta meta, int copyNr, IRowSet input, IRowSet output) {
+    MemoryGroupBy transform =
+        new MemoryGroupBy(
+            transformMockHelper.transformMeta,
+            meta,
+            new MemoryGroupByData(),
+            copyNr,
+            transformMockHelper.pipelineMeta,
+            transformMockHelper.pipeline);
+    transform.init();
+    transform.setInputRowSets(new ArrayList<>(Collections.singletonList(input)));
+    transform.setOutputRowSets(new ArrayList<>(Collections.singletonList(output)));
+    return transform;
+  }
+
+  /** All temporary files are cleaned up */
+  private void assertNoTemporaryFiles() {
+    String[] files = tempFolder.getRoot().list();
+    assertEquals(0, files == null ? 0 : files.length);
+  }
+
+  private static List<Object[]> getRows(IRowSet output) {
+    List<Object[]> rows = new ArrayList<>();
+    Object[] row = output.getRowImmediate();
+    while (row != null) {
+      rows.add(row);
+      row = output.getRowImmediate();
+    }
+    return rows;
+  }
+
+  private static void setAggregate(
+      MemoryGroupByMeta meta, int index, String name, String subject, int type) {
+    meta.getAggregateField()[index] = name;
+    meta.getSubjectField()[index] = subject;
+    meta.getAggregateType()[index] = type;
+  }
+
+  /** A key which is long enough to make the groups exceed a 1MB memory budget */
+  private static String key(int group) {
+    return String.format("key %-200d", group);
+  }
+
+  /** Calculate the expected aggregates by generating the same rows again */
+  private static void assertGroups(Map<String, Object[]> groups) {
+    Map<String, long[]> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (long i = 0; i < NR_ROWS; i++) {
+      int group = i < NR_GROUPS ? (int) i : random.nextInt(NR_GROUPS);
+      long[] aggregates =
+          expected.computeIfAbsent(key(group), k -> new long[] {0, 0, -1, -1, Long.MAX_VALUE, -1});
+      aggregates[0] += i;
+      aggregates[1]++;
+      if (aggregates[2] < 0) {
+        aggregates[2] = i;
+      }
+      aggregates[3] = i;
+      aggregates[4] = Math.min(aggregates[4], i);
+      aggregates[5] = Math.max(aggregates[5], i);
+    }
+
+    assertEquals(expected.size(), groups.size());
+    for (Map.Entry<String, long[]> entry : expected.entrySet()) {
+      Object[] row = groups.get(entry.getKey());
+      long[] aggregates = entry.getValue();
+      for (int i = 0; i < aggregates.length; i++) {
+        assertEquals(entry.getKey(), aggregates[i], ((Long) row[i + 1]).longValue());
+      }
+    }
+  }
+}
@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.pgbulkloader;
+
+import org.apache.hop.core.database.bulkload.BulkLoadBuffer;
+import org.apache.hop.core.database.bulkload.IBulkLoadEncoder;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Encodes rows in the binary format of the PostgreSQL <code>COPY ... FROM STDIN WITH BINARY</code>
+ * command. The values are written straight from their Hop data types, in the binary
+ * representation of the type of the target column.
+ *
+ * <p>Dates and timestamps without a time zone are written in the local time zone of the JVM, like
+ * the text format does.
+ */
+public class PGBinaryCopyEncoder implements IBulkLoadEncoder {
+
+  private static final byte[] SIGNATURE = {
+    'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0
+  };
+
+  /** The number of days between 1970-01-01 and 2000-01-01, the PostgreSQL epoch */
+  private static final long POSTGRES_EPOCH_DAYS = 10957L;
+
+  private static final long POSTGRES_EPOCH_SECONDS = POSTGRES_EPOCH_DAYS * 86400L;
+
+  private static final int NUMERIC_POSITIVE = 0x0000;
+  private static final int NUMERIC_NEGATIVE = 0x4000;
+
+  private static final int TYPE_INT2 = 1;
+  private static final int TYPE_INT4 = 2;
+  private static final int TYPE_INT8 = 3;
+  private static final int TYPE_FLOAT4 = 4;
+  private static final int TYPE_FLOAT8 = 5;
+  private static final int TYPE_NUMERIC = 6;
+  private static final int TYPE_BOOL = 7;
+  private static final int TYPE_DATE = 8;
+  private static final int TYPE_TIMESTAMP = 9;
+  private static final int TYPE_TIMESTAMPTZ = 10;
+  private static final int TYPE_BYTEA = 11;
+  private static final int TYPE_TEXT = 12;
+  private static final int TYPE_JSONB = 13;
+  private static final int TYPE_UUID = 14;
+
+  private final int[] fieldIndexes;
+  private final int[] columnTypes;
+  private final String[] columnNames;
+  private final Charset charset;
+  private final ZoneId zoneId;
+
+  /**
+   * @param fieldIndexes The indexes of the fields to write in the rows
+   * @param columnNames The names of the target columns, in the same order
+   * @param columnTypeNames The PostgreSQL type names of the target columns, in the same order
+   * @param charset The client encoding for strings
+   * @throws HopException In case the binary format isn't supported for a column type
+   */
+  public PGBinaryCopyEncoder(
+      int[] fieldIndexes, String[] columnNames, String[] columnTypeNames, Charset charset)
+      throws HopException {
+    this.fieldIndexes = fieldIndexes;
+    this.columnNames = columnNames;
+    this.charset = charset;
+    this.zoneId = ZoneId.systemDefault();
+    this.columnTypes = new int[fieldIndexes.length];
+    for (int i = 0; i < columnTypes.length; i++) {
+      columnTypes[i] = getColumnType(columnTypeNames[i]);
+      if (columnTypes[i] == 0) {
+        throw new HopException(
+            "The binary COPY format doesn't support type "
+                + columnTypeNames[i]
+                + " of column "
+                + columnNames[i]
+                + ", please use the text format");
+      }
+    }
+  }
+
+  private static int getColumnType(String typeName) {
+    if (typeName == null) {
+      return 0;
+    }
+    switch (typeName.toLowerCase()) {
+      case "int2":
+      case "smallserial":
+        return TYPE_INT2;
+      case "int4":
+      case "serial":
+        return TYPE_INT4;
+      case "int8":
+      case "bigserial":
+        return TYPE_INT8;
+      case "float4":
+        return TYPE_FLOAT4;
+      case "float8":
+        return TYPE_FLOAT8;
+      case "numeric":
+        return TYPE_NUMERIC;
+      case "bool":
+        return TYPE_BOOL;
+      case "date":
+        return TYPE_DATE;
+      case "timestamp":
+        return TYPE_TIMESTAMP;
+      case "timestamptz":
+        return TYPE_TIMESTAMPTZ;
+      case "bytea":
+        return TYPE_BYTEA;
+      case "text":
+      case "varchar":
+      case "bpchar":
+      case "name":
+      case "json":
+      case "xml":
+        return TYPE_TEXT;
+      case "jsonb":
+        return TYPE_JSONB;
+      case "uuid":
+        return TYPE_UUID;
+      default:
+        return 0;
+    }
+  }
+
+  @Override
+  public void writeHeader(BulkLoadBuffer buffer) {
+    buffer.write(SIGNATURE);
+    buffer.writeInt(0); // flags
+    buffer.writeInt(0); // header extension length
+  }
+
+  @Override
+  public void encodeRow(IRowMeta rowMeta, Object[] row, BulkLoadBuffer buffer)
+      throws HopException {
+    buffer.writeShort(fieldIndexes.length);
+    for (int i = 0; i < fieldIndexes.length; i++) {
+      int index = fieldIndexes[i];
+      IValueMeta valueMeta = rowMeta.getValueMeta(index);
+      Object valueData = row[index];
+      if (valueData == null) {
+        buffer.writeInt(-1);
+      } else {
+        encodeValue(i, valueMeta, valueData, buffer);
+      }
+    }
+  }
+
+  @Override
+  public void writeTrailer(BulkLoadBuffer buffer) {
+    buffer.writeShort(-1);
+  }
+
+  private void encodeValue(int i, IValueMeta valueMeta, Object valueData, BulkLoadBuffer buffer)
+      throws HopException {
+    switch (columnTypes[i]) {
+      case TYPE_INT2:
+        buffer.writeInt(2);
+        buffer.writeShort(
+            (int) getInteger(i, valueMeta, valueData, Short.MIN_VALUE, Short.MAX_VALUE));
+        break;
+      case TYPE_INT4:
+        buffer.writeInt(4);
+        buffer.writeInt(
+            (int) getInteger(i, valueMeta, valueData, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        break;
+      case TYPE_INT8:
+        buffer.writeInt(8);
+        buffer.writeLong(valueMeta.getInteger(valueData));
+        break;
+      case TYPE_FLOAT4:
+        buffer.writeInt(4);
+        buffer.writeInt(Float.floatToIntBits(valueMeta.getNumber(valueData).floatValue()));
+        break;
+      case TYPE_FLOAT8:
+        buffer.writeInt(8);
+        buffer.writeDouble(valueMeta.getNumber(valueData));
+        break;
+      case TYPE_NUMERIC:
+        writeNumeric(valueMeta.getBigNumber(valueData), buffer);
+        break;
+      case TYPE_BOOL:
+        buffer.writeInt(1);
+        buffer.write(Boolean.TRUE.equals(valueMeta.getBoolean(valueData)) ? 1 : 0);
+        break;
+      case TYPE_DATE:
+        long epochDay = getLocalDateTime(valueMeta.getDate(valueData)).toLocalDate().toEpochDay();
+        buffer.writeInt(4);
+        buffer.writeInt((int) (epochDay - POSTGRES_EPOCH_DAYS));
+        break;
+      case TYPE_TIMESTAMP:
+        LocalDateTime localDateTime = getLocalDateTime(valueMeta.getDate(valueData));
+        buffer.writeInt(8);
+        buffer.writeLong(
+            getMicros(localDateTime.toEpochSecond(ZoneOffset.UTC), localDateTime.getNano()));
+        break;
+      case TYPE_TIMESTAMPTZ:
+        Instant instant = getInstant(valueMeta.getDate(valueData));
+        buffer.writeInt(8);
+        buffer.writeLong(getMicros(instant.getEpochSecond(), instant.getNano()));
+        break;
+      case TYPE_BYTEA:
+        byte[] bytes = valueMeta.getBinary(valueData);
+        buffer.writeInt(bytes.length);
+        buffer.write(bytes);
+        break;
+      case TYPE_TEXT:
+        writeString(valueMeta.getString(valueData), buffer);
+        break;
+      case TYPE_JSONB:
+        int start = buffer.size();
+        buffer.writeInt(0);
+        buffer.write(1); // jsonb version
+        buffer.writeString(valueMeta.getString(valueData), charset);
+        buffer.setInt(start, buffer.size() - start - 4);
+        break;
+      case TYPE_UUID:
+        UUID uuid = UUID.fromString(valueMeta.getString(valueData));
+        buffer.writeInt(16);
+        buffer.writeLong(uuid.getMostSignificantBits());
+        buffer.writeLong(uuid.getLeastSignificantBits());
+        break;
+      default:
+        throw new HopException("Unexpected column type of column " + columnNames[i]);
+    }
+  }
+
+  private long getInteger(int i, IValueMeta valueMeta, Object valueData, long min, long max)
+      throws HopException {
+    long value = valueMeta.getInteger(valueData);
+    if (value < min || value > max) {
+      throw new HopException(
+          "Value "
+              + value
+              + " of field "
+              + valueMeta.getName()
+              + " is out of range for column "
+              + columnNames[i]);
+    }
+    return value;
+  }
+
+  private void writeString(String string, BulkLoadBuffer buffer) {
+    int start = buffer.size();
+    buffer.writeInt(0);
+    buffer.writeString(string, charset);
+    buffer.setInt(start, buffer.size() - start - 4);
+  }
+
+  private static Instant getInstant(Date date) {
+    // java.sql.Date doesn't support toInstant()
+    //
+    long seconds = Math.floorDiv(date.getTime(), 1000L);
+    int nanos;
+    if (date instanceof Timestamp) {
+      nanos = ((Timestamp) date).getNanos();
+    } else {
+      nanos = (int) Math.floorMod(date.getTime(), 1000L) * 1000000;
+    }
+    return Instant.ofEpochSecond(seconds, nanos);
+  }
+
+  private LocalDateTime getLocalDateTime(Date date) {
+    return LocalDateTime.ofInstant(getInstant(date), zoneId);
+  }
+
+  private static long getMicros(long epochSeconds, int nanos) {
+    return (epochSeconds - POSTGRES_EPOCH_SECONDS) * 1000000L + nanos / 1000;
+  }
+
+  /**
+   * Write a number in the binary numeric format: the digits in base 10000 with the weight of the
+   * first digit, the sign and the display scale.
+   */
+  static void writeNumeric(BigDecimal value, BulkLoadBuffer buffer) {
+    BigDecimal abs = value.abs();
+    int displayScale = Math.max(0, abs.scale());
+
+    // Align the scale to whole base 10000 digits
+    //
+    BigInteger unscaled = abs.unscaledValue();
+    int scale = abs.scale();
+    if (scale < 0) {
+      unscaled = unscaled.multiply(BigInteger.TEN.pow(-scale));
+      scale = 0;
+    } else if (scale % 4 != 0) {
+      unscaled = unscaled.multiply(BigInteger.TEN.pow(4 - scale % 4));
+      scale += 4 - scale % 4;
+    }
+
+    if (unscaled.signum() == 0) {
+      buffer.writeInt(8);
+      buffer.writeShort(0); // number of digits
+      buffer.writeShort(0); // weight
+      buffer.writeShort(NUMERIC_POSITIVE);
+      buffer.writeShort(displayScale);
+      return;
+    }
+
+    String decimals = unscaled.toString();
+    int nrGroups = (decimals.length() + 3) / 4;
+    short[] digits = new short[nrGroups];
+    int end = decimals.length();
+    for (int g = nrGroups - 1; g >= 0; g--) {
+      int begin = Math.max(0, end - 4);
+      digits[g] = Short.parseShort(decimals.substring(begin, end));
+      end = begin;
+    }
+    int weight = nrGroups - scale / 4 - 1;
+
+    // Trailing zero digits are not needed
+    //
+    int nrDigits = nrGroups;
+    while (nrDigits > 0 && digits[nrDigits - 1] == 0) {
+      nrDigits--;
+    }
+
+    buffer.writeInt(8 + nrDigits * 2);
+    buffer.writeShort(nrDigits);
+    buffer.writeShort(weight);
+    buffer.writeShort(value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE);
+    buffer.writeShort(displayScale);
+    for (int d = 0; d < nrDigits; d++) {
+      buffer.writeShort(digits[d]);
+    }
+  }
+}
@@ -29,10 +29,11 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
+import org.apache.hop.core.database.bulkload.BulkLoadStreamer;
+import org.apache.hop.core.database.bulkload.CsvBulkLoadEncoder;
+import org.apache.hop.core.database.bulkload.IBulkLoadEncoder;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.logging.ILoggingObject;
-import org.apache.hop.core.row.IRowMeta;
-import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -42,12 +43,13 @@ import org.apache.hop.pipeline.transform.TransformMeta;
 import org.postgresql.PGConnection;
 import org.postgresql.copy.PGCopyOutputStream;
 
-import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
 import java.util.List;
 
 /** Performs a bulk load to a postgres table. */
@@ -110,12 +112,16 @@ public class PGBulkLoader extends BaseTransform<PGBulkLoaderMeta, PGBulkLoaderDa
     contents.append(" FROM STDIN"); // FIFO file
 
     // The "FORMAT" clause
-    contents
-        .append(" WITH CSV DELIMITER AS '")
-        .append(resolve(meta.getDelimiter()))
-        .append("' QUOTE AS '")
-        .append(resolve(meta.getEnclosure()))
-        .append("'");
+    if (meta.isBinaryFormat()) {
+      contents.append(" WITH BINARY");
+    } else {
+      contents
+          .append(" WITH CSV DELIMITER AS '")
+          .append(resolve(meta.getDelimiter()))
+          .append("' QUOTE AS '")
+          .append(resolve(meta.getEnclosure()))
+          .append("'");
+    }
     contents.append(";").append(Const.CR);
 
     return contents.toString();
@@ -154,14 +160,99 @@ public class PGBulkLoader extends BaseTransform<PGBulkLoaderMeta, PGBulkLoaderDa
 
       processTruncate();
 
+      // Look up the column types before the COPY keeps the connection busy
+      //
+      IBulkLoadEncoder encoder = meta.isBinaryFormat() ? createBinaryEncoder() : createEncoder();
+
       logBasic("Launching command: " + copyCmd);
       pgCopyOut = new PGCopyOutputStream((PGConnection) data.db.getConnection(), copyCmd);
 
+      data.streamer =
+          new BulkLoadStreamer(
+              getTransformName(),
+              encoder,
+              Collections.singletonList(pgCopyOut),
+              PGBulkLoaderData.BUFFER_SIZE,
+              PGBulkLoaderData.BUFFER_COUNT);
+      data.streamer.start();
     } catch (Exception ex) {
       throw new HopException("Error while preparing the COPY " + copyCmd, ex);
     }
   }
 
+  /**
+   * Create the encoder writing the rows in the CSV format of the COPY command
+   *
+   * @return The encoder
+   */
+  @VisibleForTesting
+  CsvBulkLoadEncoder createEncoder() {
+    CsvBulkLoadEncoder encoder = new CsvBulkLoadEncoder(data.keynrs, clientEncoding);
+    encoder.setDelimiter(resolve(meta.getDelimiter()));
+    encoder.setEnclosure(resolve(meta.getEnclosure()));
+    encoder.setNewline(Const.CR);
+    for (int i = 0; i < data.dateFormatChoices.length; i++) {
+      switch (data.dateFormatChoices[i]) {
+          // Convert to a "YYYY-MM-DD" format
+          //
+        case PGBulkLoaderMeta.NR_DATE_MASK_DATE:
+          encoder.setDateFormat(i, data.dateMeta);
+          break;
+
+          // Convert to a "YYYY-MM-DD HH:MM:SS.mmm" format
+          //
+        case PGBulkLoaderMeta.NR_DATE_MASK_DATETIME:
+          encoder.setDateFormat(i, data.dateTimeMeta);
+          break;
+
+          // Pass the data along in the format chosen by the user OR in binary format...
+          //
+        default:
+          encoder.setDateFormat(i, null);
+          break;
+      }
+    }
+    return encoder;
+  }
+
+  /**
+   * Create the encoder writing the rows in the binary format of the COPY command. The values are
+   * encoded according to the types of the target columns.
+   *
+   * @return The encoder
+   * @throws HopException In case the column types can't be determined or are not supported
+   */
+  PGBinaryCopyEncoder createBinaryEncoder() throws HopException {
+    DatabaseMeta dm = meta.getDatabaseMeta();
+    String tableName =
+        dm.getQuotedSchemaTableCombination(this, meta.getSchemaName(), meta.getTableName());
+    List<PGBulkLoaderMappingMeta> mapping = meta.getMappings();
+
+    String[] columnNames = new String[mapping.size()];
+    StringBuilder sql = new StringBuilder("SELECT ");
+    for (int i = 0; i < mapping.size(); i++) {
+      columnNames[i] = mapping.get(i).getFieldTable();
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(dm.quoteField(columnNames[i]));
+    }
+    sql.append(" FROM ").append(tableName).append(" WHERE 1=0");
+
+    String[] columnTypes = new String[mapping.size()];
+    try (Statement statement = data.db.getConnection().createStatement();
+        ResultSet rs = statement.executeQuery(sql.toString())) {
+      ResultSetMetaData metaData = rs.getMetaData();
+      for (int i = 0; i < columnTypes.length; i++) {
+        columnTypes[i] = metaData.getColumnTypeName(i + 1);
+      }
+    } catch (SQLException e) {
+      throw new HopException("Error getting the column types of table " + tableName, e);
+    }
+
+    return new PGBinaryCopyEncoder(data.keynrs, columnNames, columnTypes, clientEncoding);
+  }
+
   @VisibleForTesting
   Database getDatabase(ILoggingObject parentObject, PGBulkLoaderMeta pgBulkLoaderMeta) {
     DatabaseMeta dbMeta = pgBulkLoaderMeta.getDatabaseMeta();
@@ -215,6 +306,16 @@ public class PGBulkLoader extends BaseTransform<PGBulkLoaderMeta, PGBulkLoaderDa
         // Close the output stream...
         // will be null if no records (empty stream)
         if (data != null && pgCopyOut != null) {
+          data.streamer.finish();
+          if (log.isDetailed()) {
+            logDetailed(
+                "Streamed "
+                    + data.streamer.getRowsWritten()
+                    + " rows ("
+                    + data.streamer.getBytesWritten()
+                    + " bytes) to the COPY command");
+          }
+          data.streamer = null;
           pgCopyOut.flush();
           pgCopyOut.endCopy();
           pgCopyOut.close();
@@ -243,7 +344,11 @@ public class PGBulkLoader extends BaseTransform<PGBulkLoaderMeta, PGBulkLoaderDa
         //
       }
 
-      writeRowToPostgres(getInputRowMeta(), r);
+      try {
+        data.streamer.writeRow(getInputRowMeta(), r);
+      } catch (Exception e) {
+        throw new HopException("Error serializing rows of data to the COPY command", e);
+      }
 
       putRow(getInputRowMeta(), r);
       incrementLinesOutput();
@@ -258,169 +363,15 @@ public class PGBulkLoader extends BaseTransform<PGBulkLoaderMeta, PGBulkLoaderDa
     }
   }
 
-  private void writeRowToPostgres(IRowMeta rowMeta, Object[] r) throws HopException {
-
-    try {
-      // So, we have this output stream to which we can write CSV data to.
-      // Basically, what we need to do is write the binary data (from strings to it as part of this
-      // proof of concept)
-      //
-      // Let's assume the data is in the correct format here too.
-      //
-      for (int i = 0; i < data.keynrs.length; i++) {
-        if (i > 0) {
-          // Write a separator
-          //
-          pgCopyOut.write(data.separator);
-        }
-
-        int index = data.keynrs[i];
-        IValueMeta valueMeta = rowMeta.getValueMeta(index);
-        Object valueData = r[index];
-
-        if (valueData != null) {
-          switch (valueMeta.getType()) {
-            case IValueMeta.TYPE_STRING:
-              pgCopyOut.write(data.quote);
-
-              // No longer dump the bytes for a Lazy Conversion
-              // We need to escape the quote characters in every string
-              String quoteStr = new String(data.quote);
-              String escapedString =
-                  valueMeta.getString(valueData).replace(quoteStr, quoteStr + quoteStr);
-              pgCopyOut.write(escapedString.getBytes(clientEncoding));
-
-              pgCopyOut.write(data.quote);
-              break;
-            case IValueMeta.TYPE_INTEGER:
-              if (valueMeta.isStorageBinaryString()) {
-                pgCopyOut.write((byte[]) valueData);
-              } else {
-                pgCopyOut.write(
-                    Long.toString(valueMeta.getInteger(valueData)).getBytes(clientEncoding));
-              }
-              break;
-            case IValueMeta.TYPE_DATE:
-              // Format the date in the right format.
-              //
-              switch (data.dateFormatChoices[i]) {
-                  // Pass the data along in the format chosen by the user OR in binary format...
-                  //
-                case PGBulkLoaderMeta.NR_DATE_MASK_PASS_THROUGH:
-                  if (valueMeta.isStorageBinaryString()) {
-                    pgCopyOut.write((byte[]) valueData);
-                  } else {
-                    String dateString = valueMeta.getString(valueData);
-                    if (dateString != null) {
-                      pgCopyOut.write(dateString.getBytes(clientEncoding));
-                    }
-                  }
-                  break;
-
-                  // Convert to a "YYYY-MM-DD" format
-                  //
-                case PGBulkLoaderMeta.NR_DATE_MASK_DATE:
-                  String dateString = data.dateMeta.getString(valueMeta.getDate(valueData));
-                  if (dateString != null) {
-                    pgCopyOut.write(dateString.getBytes(clientEncoding));
-                  }
-                  break;
-
-                  // Convert to a "YYYY-MM-DD HH:MM:SS.mmm" format
-                  //
-                case PGBulkLoaderMeta.NR_DATE_MASK_DATETIME:
-                  String dateTimeString = data.dateTimeMeta.getString(valueMeta.getDate(valueData));
-                  if (dateTimeString != null) {
-                    pgCopyOut.write(dateTimeString.getBytes(clientEncoding));
-                  }
-                  break;
-
-                default:
-                  throw new HopException(
-                      "PGBulkLoader doesn't know how to handle date (neither passthrough, nor date or datetime for field "
-                          + valueMeta.getName());
-              }
-              break;
-            case IValueMeta.TYPE_TIMESTAMP:
-              // Format the date in the right format.
-              //
-              switch (data.dateFormatChoices[i]) {
-                  // Pass the data along in the format chosen by the user OR in binary format...
-                  //
-                case PGBulkLoaderMeta.NR_DATE_MASK_PASS_THROUGH:
-                  if (valueMeta.isStorageBinaryString()) {
-                    pgCopyOut.write((byte[]) valueData);
-                  } else {
-                    String dateString = valueMeta.getString(valueData);
-                    if (dateString != null) {
-                      pgCopyOut.write(dateString.getBytes(clientEncoding));
-                    }
-                  }
-                  break;
-
-                  // Convert to a "YYYY-MM-DD" format
-                  //
-                case PGBulkLoaderMeta.NR_DATE_MASK_DATE:
-                  String dateString = data.dateMeta.getString(valueMeta.getDate(valueData));
-                  if (dateString != null) {
-                    pgCopyOut.write(dateString.getBytes(clientEncoding));
-                  }
-                  break;
-
-                  // Convert to a "YYYY-MM-DD HH:MM:SS.mmm" format
-                  //
-                case PGBulkLoaderMeta.NR_DATE_MASK_DATETIME:
-                  String dateTimeString = data.dateTimeMeta.getString(valueMeta.getDate(valueData));
-                  if (dateTimeString != null) {
-                    pgCopyOut.write(dateTimeString.getBytes(clientEncoding));
-                  }
-                  break;
-
-                default:
-                  throw new HopException(
-                      "PGBulkLoader doesn't know how to handle timestamp (neither passthrough, nor date or datetime for field "
-                          + valueMeta.getName());
-              }
-              break;
-            case IValueMeta.TYPE_BOOLEAN:
-              if (valueMeta.isStorageBinaryString()) {
-                pgCopyOut.write((byte[]) valueData);
-              } else {
-                pgCopyOut.write(
-                    Double.toString(valueMeta.getNumber(valueData)).getBytes(clientEncoding));
-              }
-              break;
-            case IValueMeta.TYPE_NUMBER:
-              if (valueMeta.isStorageBinaryString()) {
-                pgCopyOut.write((byte[]) valueData);
-              } else {
-                pgCopyOut.write(
-                    Double.toString(valueMeta.getNumber(valueData)).getBytes(clientEncoding));
-              }
-              break;
-            case IValueMeta.TYPE_BIGNUMBER:
-              if (valueMeta.isStorageBinaryString()) {
-                pgCopyOut.write((byte[]) valueData);
-              } else {
-                BigDecimal big = valueMeta.getBigNumber(valueData);
-                if (big != null) {
-                  pgCopyOut.write(big.toString().getBytes(clientEncoding));
-                }
-              }
-              break;
-            default:
-              throw new HopException(
-                  "PGBulkLoader doesn't handle the type " + valueMeta.getTypeDesc());
-          }
-        }
-      }
-
-      // Now write a newline
-      //
-      pgCopyOut.write(data.newline);
-    } catch (Exception e) {
-      throw new HopException("Error serializing rows of data to the COPY command", e);
+  @Override
+  public void dispose() {
+    // Stop the channel thread after an error
+    //
+    if (data.streamer != null) {
+      data.streamer.abort();
+      data.streamer = null;
     }
+    super.dispose();
   }
 
   protected void verifyDatabaseConnection() throws HopException {
@@ -434,9 +385,6 @@ public class PGBulkLoader extends BaseTransform<PGBulkLoaderMeta, PGBulkLoaderDa
   @Override
   public boolean init() {
 
-    String enclosure = resolve(meta.getEnclosure());
-    String separator = resolve(meta.getDelimiter());
-
     if (super.init()) {
 
       // Confirming Database Connection is defined.
@@ -447,18 +395,6 @@ public class PGBulkLoader extends BaseTransform<PGBulkLoaderMeta, PGBulkLoaderDa
         return false;
       }
 
-      if (enclosure != null) {
-        data.quote = enclosure.getBytes();
-      } else {
-        data.quote = new byte[] {};
-      }
-      if (separator != null) {
-        data.separator = separator.getBytes();
-      } else {
-        data.separator = new byte[] {};
-      }
-      data.newline = Const.CR.getBytes();
-
       data.dateFormatChoices = new int[meta.getMappings().size()];
       for (int i = 0; i < data.dateFormatChoices.length; i++) {
         if (Utils.isEmpty(meta.getMappings().get(i).getDateMask())) {
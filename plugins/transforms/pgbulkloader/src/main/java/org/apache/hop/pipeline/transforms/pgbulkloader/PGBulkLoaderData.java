@@ -18,6 +18,7 @@
 package org.apache.hop.pipeline.transforms.pgbulkloader;
 
 import org.apache.hop.core.database.Database;
+import org.apache.hop.core.database.bulkload.BulkLoadStreamer;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.value.ValueMetaDate;
 import org.apache.hop.core.util.StreamLogger;
@@ -29,6 +30,12 @@ import java.io.OutputStream;
 
 /** Stores data for the GPBulkLoader transform. */
 public class PGBulkLoaderData extends BaseTransformData implements ITransformData {
+  /** The number of bytes collected before they are sent to the COPY command */
+  public static final int BUFFER_SIZE = 64 * 1024;
+
+  /** The number of buffers, encoding continues while a buffer is sent */
+  public static final int BUFFER_COUNT = 4;
+
   public Database db;
 
   public int[] keynrs; // nr of keylookup -value in row...
@@ -41,10 +48,6 @@ public class PGBulkLoaderData extends BaseTransformData implements ITransformDat
 
   public OutputStream pgOutputStream;
 
-  public byte[] quote;
-  public byte[] separator;
-  public byte[] newline;
-
   public PGConnection pgdb;
 
   public int[] dateFormatChoices;
@@ -52,6 +55,9 @@ public class PGBulkLoaderData extends BaseTransformData implements ITransformDat
   public IValueMeta dateMeta;
   public IValueMeta dateTimeMeta;
 
+  /** Encodes the rows and streams them to the COPY command */
+  public BulkLoadStreamer streamer;
+
   /** Default constructor. */
   public PGBulkLoaderData() {
     super();
@@ -77,6 +77,7 @@ public class PGBulkLoaderDialog extends BaseTransformDialog implements ITransfor
   private TextVar wDbNameOverride;
 
   private Button wStopOnError;
+  private Button wBinaryFormat;
 
   private final PGBulkLoaderMeta input;
 
@@ -306,6 +307,36 @@ public class PGBulkLoaderDialog extends BaseTransformDialog implements ITransfor
           }
         });
 
+    // Binary format line
+    Label wlBinaryFormat = new Label(shell, SWT.RIGHT);
+    wlBinaryFormat.setText(BaseMessages.getString(PKG, "PGBulkLoaderDialog.BinaryFormat.Label"));
+    wlBinaryFormat.setToolTipText(
+        BaseMessages.getString(PKG, "PGBulkLoaderDialog.BinaryFormat.Tooltip"));
+    props.setLook(wlBinaryFormat);
+    FormData fdlBinaryFormat = new FormData();
+    fdlBinaryFormat.left = new FormAttachment(0, 0);
+    fdlBinaryFormat.top = new FormAttachment(wStopOnError, margin);
+    fdlBinaryFormat.right = new FormAttachment(middle, -margin);
+    wlBinaryFormat.setLayoutData(fdlBinaryFormat);
+    wBinaryFormat = new Button(shell, SWT.CHECK);
+    wBinaryFormat.setToolTipText(
+        BaseMessages.getString(PKG, "PGBulkLoaderDialog.BinaryFormat.Tooltip"));
+    props.setLook(wBinaryFormat);
+    FormData fdBinaryFormat = new FormData();
+    fdBinaryFormat.left = new FormAttachment(middle, 0);
+    fdBinaryFormat.top = new FormAttachment(wlBinaryFormat, 0, SWT.CENTER);
+    fdBinaryFormat.right = new FormAttachment(100, 0);
+    wBinaryFormat.setLayoutData(fdBinaryFormat);
+
+    wBinaryFormat.addSelectionListener(
+        new SelectionAdapter() {
+          @Override
+          public void widgetSelected(SelectionEvent e) {
+            input.setChanged();
+            enableFormatFields();
+          }
+        });
+
     // THE BUTTONS
     wOk = new Button(shell, SWT.PUSH);
     wOk.setText(BaseMessages.getString(PKG, "System.Button.OK"));
@@ -321,7 +352,7 @@ public class PGBulkLoaderDialog extends BaseTransformDialog implements ITransfor
     props.setLook(wlReturn);
     FormData fdlReturn = new FormData();
     fdlReturn.left = new FormAttachment(0, 0);
-    fdlReturn.top = new FormAttachment(wStopOnError, margin);
+    fdlReturn.top = new FormAttachment(wBinaryFormat, margin);
     wlReturn.setLayoutData(fdlReturn);
 
     int upInsCols = 3;
@@ -432,6 +463,13 @@ public class PGBulkLoaderDialog extends BaseTransformDialog implements ITransfor
     return transformName;
   }
 
+  /** The enclosure and delimiter are only used by the CSV format */
+  private void enableFormatFields() {
+    boolean csv = !wBinaryFormat.getSelection();
+    wEnclosure.setEnabled(csv);
+    wDelimiter.setEnabled(csv);
+  }
+
   /** Copy information from the meta-data input to the dialog fields. */
   public void getData() {
     logDebug(BaseMessages.getString(PKG, "PGBulkLoaderDialog.Log.GettingKeyInfo"));
@@ -479,6 +517,8 @@ public class PGBulkLoaderDialog extends BaseTransformDialog implements ITransfor
       wEnclosure.setText(input.getEnclosure());
     }
     wStopOnError.setSelection(input.isStopOnError());
+    wBinaryFormat.setSelection(input.isBinaryFormat());
+    enableFormatFields();
     if (input.getDbNameOverride() != null) {
       wDbNameOverride.setText(input.getDbNameOverride());
     }
@@ -703,6 +743,7 @@ public class PGBulkLoaderDialog extends BaseTransformDialog implements ITransfor
     inf.setDelimiter(wDelimiter.getText());
     inf.setEnclosure(wEnclosure.getText());
     inf.setStopOnError(wStopOnError.getSelection());
+    inf.setBinaryFormat(wBinaryFormat.getSelection());
 
     /*
      * /* Set the loadaction
@@ -108,6 +108,12 @@ public class PGBulkLoaderMeta extends BaseTransformMeta<PGBulkLoader, PGBulkLoad
       injectionKeyDescription = "PGBulkLoader.Injection.StopOnError.Label")
   private boolean stopOnError;
 
+  /** Use the binary COPY format instead of CSV */
+  @HopMetadataProperty(
+      key = "binary_format",
+      injectionKeyDescription = "PGBulkLoader.Injection.BinaryFormat.Label")
+  private boolean binaryFormat;
+
   /*
    * Do not translate following values!!! They are will end up in the workflow export.
    */
@@ -138,6 +144,7 @@ public class PGBulkLoaderMeta extends BaseTransformMeta<PGBulkLoader, PGBulkLoad
     delimiter = ";";
     enclosure = "\"";
     stopOnError = false;
+    binaryFormat = false;
     mappings = new ArrayList<>();
   }
 
@@ -516,6 +523,20 @@ public class PGBulkLoaderMeta extends BaseTransformMeta<PGBulkLoader, PGBulkLoad
     this.stopOnError = value;
   }
 
+  /**
+   * Gets binaryFormat
+   *
+   * @return value of binaryFormat
+   */
+  public boolean isBinaryFormat() {
+    return binaryFormat;
+  }
+
+  /** @param binaryFormat The binaryFormat to set */
+  public void setBinaryFormat(boolean binaryFormat) {
+    this.binaryFormat = binaryFormat;
+  }
+
   /** @return Returns the database. */
   @Override
   public DatabaseMeta getDatabaseMeta() {
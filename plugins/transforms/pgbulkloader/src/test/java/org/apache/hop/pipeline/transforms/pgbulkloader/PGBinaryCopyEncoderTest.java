@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.pgbulkloader;
+
+import org.apache.hop.core.HopClientEnvironment;
+import org.apache.hop.core.database.bulkload.BulkLoadBuffer;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PGBinaryCopyEncoderTest {
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopClientEnvironment.init();
+  }
+
+  @Test
+  public void testHeaderAndTrailer() throws Exception {
+    PGBinaryCopyEncoder encoder =
+        new PGBinaryCopyEncoder(
+            new int[] {0}, new String[] {"id"}, new String[] {"int8"}, StandardCharsets.UTF_8);
+    BulkLoadBuffer buffer = new BulkLoadBuffer(32);
+    encoder.writeHeader(buffer);
+    encoder.writeTrailer(buffer);
+
+    ByteBuffer expected = ByteBuffer.allocate(21);
+    expected.put("PGCOPY\n".getBytes(StandardCharsets.US_ASCII));
+    expected.put(new byte[] {(byte) 0xFF, '\r', '\n', 0});
+    expected.putInt(0).putInt(0).putShort((short) -1);
+    assertArrayEquals(expected.array(), buffer.toByteArray());
+  }
+
+  @Test
+  public void testEncodeRow() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaInteger("small"));
+    rowMeta.addValueMeta(new ValueMetaNumber("amount"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("flag"));
+    rowMeta.addValueMeta(new ValueMetaDate("day"));
+    rowMeta.addValueMeta(new ValueMetaTimestamp("stamp"));
+    rowMeta.addValueMeta(new ValueMetaString("missing"));
+
+    PGBinaryCopyEncoder encoder =
+        new PGBinaryCopyEncoder(
+            new int[] {0, 1, 2, 3, 4, 5, 6, 7},
+            new String[] {"id", "small", "amount", "name", "flag", "day", "stamp", "missing"},
+            new String[] {
+              "int8", "int4", "float8", "varchar", "bool", "date", "timestamp", "text"
+            },
+            StandardCharsets.UTF_8);
+
+    ZoneId zone = ZoneId.systemDefault();
+    Date day = Date.from(LocalDate.of(2000, 1, 3).atStartOfDay(zone).toInstant());
+    Timestamp stamp = Timestamp.valueOf(LocalDateTime.of(2000, 1, 1, 0, 0, 1, 500000000));
+
+    BulkLoadBuffer buffer = new BulkLoadBuffer(16);
+    encoder.encodeRow(
+        rowMeta, new Object[] {42L, -7L, 1.5, "héllo", true, day, stamp, null}, buffer);
+
+    byte[] name = "héllo".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer expected = ByteBuffer.allocate(2 + 12 + 8 + 12 + 4 + name.length + 5 + 8 + 12 + 4);
+    expected.putShort((short) 8);
+    expected.putInt(8).putLong(42L);
+    expected.putInt(4).putInt(-7);
+    expected.putInt(8).putDouble(1.5);
+    expected.putInt(name.length).put(name);
+    expected.putInt(1).put((byte) 1);
+    expected.putInt(4).putInt(2);
+    expected.putInt(8).putLong(1500000L);
+    expected.putInt(-1);
+    assertArrayEquals(expected.array(), buffer.toByteArray());
+  }
+
+  @Test
+  public void testEncodeNumeric() {
+    assertNumeric("0", 0, 0x0000, 0);
+    assertNumeric("12345.678", 1, 0x0000, 3, 1, 2345, 6780);
+    assertNumeric("-0.0001", -1, 0x4000, 4, 1);
+    assertNumeric("1E+8", 2, 0x0000, 0, 1);
+    assertNumeric("10000.50", 1, 0x0000, 2, 1, 0, 5000);
+  }
+
+  private static void assertNumeric(String value, int weight, int sign, int scale, int... digits) {
+    BulkLoadBuffer buffer = new BulkLoadBuffer(16);
+    PGBinaryCopyEncoder.writeNumeric(new BigDecimal(value), buffer);
+
+    ByteBuffer expected = ByteBuffer.allocate(12 + digits.length * 2);
+    expected.putInt(8 + digits.length * 2);
+    expected.putShort((short) digits.length);
+    expected.putShort((short) weight);
+    expected.putShort((short) sign);
+    expected.putShort((short) scale);
+    for (int digit : digits) {
+      expected.putShort((short) digit);
+    }
+    assertArrayEquals(value, expected.array(), buffer.toByteArray());
+  }
+
+  @Test
+  public void testValueOutOfRange() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    PGBinaryCopyEncoder encoder =
+        new PGBinaryCopyEncoder(
+            new int[] {0}, new String[] {"id"}, new String[] {"int2"}, StandardCharsets.UTF_8);
+    try {
+      encoder.encodeRow(rowMeta, new Object[] {100000L}, new BulkLoadBuffer(16));
+      fail("The value doesn't fit in a smallint");
+    } catch (HopException e) {
+      assertTrue(e.getMessage().contains("out of range"));
+    }
+  }
+
+  @Test
+  public void testUnsupportedColumnType() {
+    try {
+      new PGBinaryCopyEncoder(
+          new int[] {0}, new String[] {"shape"}, new String[] {"polygon"}, StandardCharsets.UTF_8);
+      fail("The polygon type isn't supported");
+    } catch (HopException e) {
+      assertTrue(e.getMessage().contains("polygon"));
+    }
+  }
+
+  @Test
+  public void testBigNumberToNumeric() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaBigNumber("amount"));
+    PGBinaryCopyEncoder encoder =
+        new PGBinaryCopyEncoder(
+            new int[] {0},
+            new String[] {"amount"},
+            new String[] {"numeric"},
+            StandardCharsets.UTF_8);
+    BulkLoadBuffer buffer = new BulkLoadBuffer(16);
+    encoder.encodeRow(rowMeta, new Object[] {new BigDecimal("2.5")}, buffer);
+
+    // field count, length, ndigits, weight, sign, dscale, digits
+    ByteBuffer expected = ByteBuffer.allocate(2 + 4 + 8 + 4);
+    expected.putShort((short) 1).putInt(12);
+    expected.putShort((short) 2).putShort((short) 0).putShort((short) 0).putShort((short) 1);
+    expected.putShort((short) 2).putShort((short) 5000);
+    assertEquals(expected.capacity(), buffer.size());
+    assertArrayEquals(expected.array(), buffer.toByteArray());
+  }
+}
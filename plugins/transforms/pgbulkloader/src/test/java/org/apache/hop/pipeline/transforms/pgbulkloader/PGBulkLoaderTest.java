@@ -17,21 +17,30 @@
 
 package org.apache.hop.pipeline.transforms.pgbulkloader;
 
+import org.apache.hop.core.Const;
 import org.apache.hop.core.HopClientEnvironment;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.database.DatabaseMetaPlugin;
 import org.apache.hop.core.database.DatabasePluginType;
+import org.apache.hop.core.database.bulkload.BulkLoadBuffer;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopXmlException;
 import org.apache.hop.core.logging.ILoggingObject;
 import org.apache.hop.core.plugins.PluginRegistry;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
 import org.apache.hop.databases.postgresql.PostgreSqlDatabaseMeta;
 import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
 import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
 import org.junit.*;
 
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Date;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
@@ -191,6 +200,34 @@ public class PGBulkLoaderTest {
     }
   }
 
+  @Test
+  public void testCreateEncoder() throws Exception {
+    doReturn(";").when(transformMockHelper.iTransformMeta).getDelimiter();
+    doReturn("'").when(transformMockHelper.iTransformMeta).getEnclosure();
+    PGBulkLoaderData data = transformMockHelper.iTransformData;
+    data.keynrs = new int[] {0, 1, 2};
+    data.dateFormatChoices =
+        new int[] {
+          PGBulkLoaderMeta.NR_DATE_MASK_PASS_THROUGH,
+          PGBulkLoaderMeta.NR_DATE_MASK_PASS_THROUGH,
+          PGBulkLoaderMeta.NR_DATE_MASK_DATE
+        };
+    data.dateMeta = new PGBulkLoaderData().dateMeta;
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaDate("date"));
+    Date date = data.dateMeta.getDateFormat().parse("2022-08-01");
+
+    BulkLoadBuffer buffer = new BulkLoadBuffer(64);
+    pgBulkLoader.createEncoder().encodeRow(rowMeta, new Object[] {"it's", 42L, date}, buffer);
+
+    assertEquals(
+        "'it''s';42;2022-08-01" + Const.CR,
+        new String(buffer.toByteArray(), Charset.defaultCharset()));
+  }
+
   private static PGBulkLoaderMeta getPgBulkLoaderMock(String DbNameOverride)
       throws HopXmlException {
     PGBulkLoaderMeta pgBulkLoaderMetaMock = mock(PGBulkLoaderMeta.class);
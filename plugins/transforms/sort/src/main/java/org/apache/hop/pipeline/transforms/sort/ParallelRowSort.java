@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A stable merge sort of rows which sorts partitions of the rows in parallel on a fork/join pool
+ * and then merges them.
+ */
+final class ParallelRowSort {
+
+  /** We don't split up the rows in partitions smaller than this */
+  private static final int MIN_PARTITION_SIZE = 8192;
+
+  private ParallelRowSort() {}
+
+  /**
+   * Sort the given rows using the threads of the given pool.
+   *
+   * @param rows The rows to sort
+   * @param comparator The comparator to sort with, it needs to be thread-safe
+   * @param pool The pool to sort with
+   */
+  static void sort(List<Object[]> rows, Comparator<Object[]> comparator, ForkJoinPool pool) {
+    int size = rows.size();
+    int partitionSize = Math.max(MIN_PARTITION_SIZE, size / (pool.getParallelism() * 4));
+    if (size <= partitionSize) {
+      rows.sort(comparator);
+      return;
+    }
+
+    Object[][] array = rows.toArray(new Object[size][]);
+    pool.invoke(
+        new SortTask(array, new Object[size][], 0, size, partitionSize, comparator));
+
+    ListIterator<Object[]> iterator = rows.listIterator();
+    for (Object[] row : array) {
+      iterator.next();
+      iterator.set(row);
+    }
+  }
+
+  private static class SortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Object[][] array;
+    private final Object[][] work;
+    private final int from;
+    private final int to;
+    private final int partitionSize;
+    private final transient Comparator<Object[]> comparator;
+
+    SortTask(
+        Object[][] array,
+        Object[][] work,
+        int from,
+        int to,
+        int partitionSize,
+        Comparator<Object[]> comparator) {
+      this.array = array;
+      this.work = work;
+      this.from = from;
+      this.to = to;
+      this.partitionSize = partitionSize;
+      this.comparator = comparator;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= partitionSize) {
+        Arrays.sort(array, from, to, comparator);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(
+          new SortTask(array, work, from, middle, partitionSize, comparator),
+          new SortTask(array, work, middle, to, partitionSize, comparator));
+      merge(middle);
+    }
+
+    /** Merge the sorted halves [from, middle) and [middle, to) back into the array */
+    private void merge(int middle) {
+      if (comparator.compare(array[middle - 1], array[middle]) <= 0) {
+        return; // already in order
+      }
+      System.arraycopy(array, from, work, from, middle - from);
+      int left = from;
+      int right = middle;
+      int target = from;
+      while (left < middle && right < to) {
+        if (comparator.compare(array[right], work[left]) < 0) {
+          array[target++] = array[right++];
+        } else {
+          array[target++] = work[left++];
+        }
+      }
+      System.arraycopy(work, left, array, target, middle - left);
+    }
+  }
+}
@@ -24,8 +24,11 @@ import org.apache.hop.core.Const;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.MemoryManager;
+import org.apache.hop.core.memory.RowSizeEstimator;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowCodec;
 import org.apache.hop.core.vfs.HopVfs;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -34,12 +37,14 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
 import java.io.*;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPOutputStream;
 
 /** Sort the rows in the input-streams based on certain criteria */
@@ -69,6 +74,26 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     // Save row
     data.buffer.add(r);
 
+    // With a memory budget we keep rows in memory as long as they fit in the budget
+    //
+    if (data.memoryBudget != null) {
+      long rowSize = RowSizeEstimator.estimateRowSize(rowMeta, r);
+      if (reserveMemory(rowSize)) {
+        data.bufferBytes += rowSize;
+      } else {
+        if (log.isDebug()) {
+          logDebug(
+              BaseMessages.getString(
+                  PKG,
+                  "SortRows.Debug.MemoryBudgetExhausted",
+                  data.memoryBudget.getUsed(),
+                  data.buffer.size()));
+        }
+        sortExternalRows();
+      }
+      return;
+    }
+
     // Check the free memory every 1000 rows...
     //
     data.freeCounter++;
@@ -114,161 +139,232 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
       return;
     }
 
-    // First sort the rows in buffer[]
-    quickSort(data.buffer);
+    List<Object[]> rows = data.buffer;
+    if (data.spillExecutor == null) {
+      // Sort the rows in the buffer and write them to disk...
+      data.files.add(writeSortedRun(rows));
+      rows.clear();
+      releaseMemory(data.bufferBytes);
+      data.bufferBytes = 0;
+    } else {
+      // Sort and write the rows in the background while we collect the next ones.
+      // We only allow one buffer to be written at a time to keep memory usage in check.
+      //
+      waitForSpill();
+      data.spillBytes = data.bufferBytes;
+      data.bufferBytes = 0;
+      data.buffer = new ArrayList<>(rows.size());
+      data.spillFuture = data.spillExecutor.submit(() -> writeSortedRun(rows));
+    }
+
+    if (data.sortSize < 0 && rows.size() > data.minSortSize) {
+      data.minSortSize = rows.size(); // if we did it once, we can do
+      // it again.
 
-    // Then write them to disk...
-    DataOutputStream dos;
-    GZIPOutputStream gzos;
-    int p;
+      // Memory usage goes up over time, even with garbage collection
+      // We need pointers, file handles, etc.
+      // As such, we're going to lower the min sort size a bit
+      //
+      data.minSortSize = (int) Math.round(data.minSortSize * 0.90);
+    }
 
+    // How much memory do we have left?
+    //
+    data.freeMemoryPct = Const.getPercentageFreeMemory();
+    data.freeCounter = 0;
+    if (data.sortSize <= 0 && log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(PKG, "SortRows.Detailed.AvailableMemory", data.freeMemoryPct));
+    }
+
+    data.getBufferIndex = 0;
+  }
+
+  /** Wait until the rows which are written in the background are on disk. */
+  private void waitForSpill() throws HopException {
+    if (data.spillFuture == null) {
+      return;
+    }
     try {
-      FileObject fileObject =
-          HopVfs.createTempFile(meta.getPrefix(), ".tmp", resolve(meta.getDirectory()));
-
-      data.files.add(fileObject); // Remember the files!
-      OutputStream outputStream = HopVfs.getOutputStream(fileObject, false);
-      if (data.compressFiles) {
-        gzos = new GZIPOutputStream(new BufferedOutputStream(outputStream));
-        dos = new DataOutputStream(gzos);
-      } else {
-        dos = new DataOutputStream(new BufferedOutputStream(outputStream, 500000));
-        gzos = null;
-      }
+      data.files.add(data.spillFuture.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException("Interrupted while writing a temporary sort file", e);
+    } catch (ExecutionException e) {
+      throw new HopException("Error writing a temporary sort file", e.getCause());
+    } finally {
+      data.spillFuture = null;
+      releaseMemory(data.spillBytes);
+      data.spillBytes = 0;
+    }
+  }
 
-      // Just write the data, nothing else
-      List<Integer> duplicates = new ArrayList<>();
-      Object[] previousRow = null;
-      if (meta.isOnlyPassingUniqueRows()) {
-        int index = 0;
-        while (index < data.buffer.size()) {
-          Object[] row = data.buffer.get(index);
-          if (previousRow != null) {
-            int result = data.outputRowMeta.compare(row, previousRow, data.fieldnrs);
-            if (result == 0) {
-              duplicates.add(index);
-              if (log.isRowLevel()) {
-                logRowlevel(
-                    BaseMessages.getString(
-                        PKG,
-                        "SortRows.RowLevel.DuplicateRowRemoved",
-                        data.outputRowMeta.getString(row)));
-              }
-            }
-          }
-          index++;
-          previousRow = row;
-        }
-      }
+  /**
+   * Reserve memory for a row in the buffer. If we're out of budget but rows written in the
+   * background are on disk by now, that memory is released first.
+   */
+  private boolean reserveMemory(long rowSize) throws HopException {
+    if (data.memoryBudget.reserve(rowSize)) {
+      return true;
+    }
+    if (data.spillFuture != null && data.spillFuture.isDone()) {
+      waitForSpill();
+      return data.memoryBudget.reserve(rowSize);
+    }
+    return false;
+  }
 
-      // How many records do we have left?
-      data.bufferSizes.add(data.buffer.size() - duplicates.size());
+  private void releaseMemory(long bytes) {
+    if (data.memoryBudget != null) {
+      data.memoryBudget.release(bytes);
+    }
+  }
 
-      int duplicatesIndex = 0;
-      for (p = 0; p < data.buffer.size(); p++) {
-        boolean skip = false;
-        if (duplicatesIndex < duplicates.size() && p == duplicates.get(duplicatesIndex)) {
-          skip = true;
-          duplicatesIndex++;
-        }
-        if (!skip) {
-          data.outputRowMeta.writeData(dos, data.buffer.get(p));
-        }
-      }
+  /**
+   * Sort the given rows and write them to a new temporary file. Only the final row metadata, the
+   * comparator and the options of the transform are used so that this can run in the background.
+   */
+  private FileObject writeSortedRun(List<Object[]> rows) throws HopException {
+    quickSort(rows);
 
-      if (data.sortSize < 0 && data.buffer.size() > data.minSortSize) {
-        data.minSortSize = data.buffer.size(); // if we did it once, we can do
-        // it again.
+    FileObject fileObject = createTempFile();
+    try (DataOutputStream dos = openTempFile(fileObject)) {
+      RowCodec codec = new RowCodec(data.outputRowMeta, true);
+      codec.writeHeader(dos);
 
-        // Memory usage goes up over time, even with garbage collection
-        // We need pointers, file handles, etc.
-        // As such, we're going to lower the min sort size a bit
+      Object[] previousRow = null;
+      for (Object[] row : rows) {
+        // Don't write duplicate rows if we only pass unique rows
         //
-        data.minSortSize = (int) Math.round(data.minSortSize * 0.90);
+        if (meta.isOnlyPassingUniqueRows()
+            && previousRow != null
+            && data.outputRowMeta.compare(row, previousRow, data.fieldnrs) == 0) {
+          if (log.isRowLevel()) {
+            logRowlevel(
+                BaseMessages.getString(
+                    PKG,
+                    "SortRows.RowLevel.DuplicateRowRemoved",
+                    data.outputRowMeta.getString(row)));
+          }
+          continue;
+        }
+        codec.writeRow(dos, row);
+        previousRow = row;
       }
+    } catch (Exception e) {
+      deleteQuietly(fileObject);
+      throw new HopException("Error processing temp-file!", e);
+    }
+    return fileObject;
+  }
 
-      // Clear the list
-      data.buffer.clear();
+  private FileObject createTempFile() throws HopException {
+    try {
+      return HopVfs.createTempFile(meta.getPrefix(), ".tmp", resolve(meta.getDirectory()));
+    } catch (Exception e) {
+      throw new HopException("Error creating temp-file!", e);
+    }
+  }
 
-      // Close temp-file
-      dos.close(); // close data stream
-      if (gzos != null) {
-        gzos.close(); // close gzip stream
-      }
-      outputStream.close(); // close file stream
+  private DataOutputStream openTempFile(FileObject fileObject) throws IOException, HopException {
+    OutputStream outputStream = HopVfs.getOutputStream(fileObject, false);
+    if (data.compressFiles) {
+      return new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(outputStream)));
+    } else {
+      return new DataOutputStream(new BufferedOutputStream(outputStream, 500000));
+    }
+  }
 
-      // How much memory do we have left?
-      //
-      data.freeMemoryPct = Const.getPercentageFreeMemory();
-      data.freeCounter = 0;
-      if (data.sortSize <= 0 && log.isDetailed()) {
+  private void deleteQuietly(FileObject fileObject) {
+    try {
+      fileObject.delete();
+    } catch (FileSystemException e) {
+      logError(e.getLocalizedMessage(), e);
+    }
+  }
+
+  /**
+   * As long as there are more temporary files than we can merge at once, merge groups of files
+   * into larger ones. The groups are merged in parallel if we have multiple sort threads.
+   */
+  private void mergeTempFiles() throws HopException {
+    while (data.files.size() > data.mergeFanIn && !isStopped()) {
+      if (log.isDetailed()) {
         logDetailed(
-            BaseMessages.getString(PKG, "SortRows.Detailed.AvailableMemory", data.freeMemoryPct));
+            BaseMessages.getString(
+                PKG, "SortRows.Detailed.MergePass", data.files.size(), data.mergeFanIn));
+      }
+      List<List<FileObject>> groups = new ArrayList<>();
+      for (int i = 0; i < data.files.size(); i += data.mergeFanIn) {
+        groups.add(
+            new ArrayList<>(
+                data.files.subList(i, Math.min(i + data.mergeFanIn, data.files.size()))));
       }
 
-    } catch (Exception e) {
-      throw new HopException("Error processing temp-file!", e);
+      List<FileObject> merged = new ArrayList<>();
+      if (data.sortPool == null) {
+        for (List<FileObject> group : groups) {
+          merged.add(mergeGroup(group));
+        }
+      } else {
+        List<Future<FileObject>> futures = new ArrayList<>();
+        for (List<FileObject> group : groups) {
+          futures.add(data.sortPool.submit(() -> mergeGroup(group)));
+        }
+        try {
+          for (Future<FileObject> future : futures) {
+            merged.add(future.get());
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new HopException("Interrupted while merging temporary sort files", e);
+        } catch (ExecutionException e) {
+          throw new HopException("Error merging temporary sort files", e.getCause());
+        }
+      }
+      data.files = merged;
     }
-
-    data.getBufferIndex = 0;
   }
 
-  private DataInputStream getDataInputStream(GZIPInputStream gzipInputStream) {
-    DataInputStream result = new DataInputStream(gzipInputStream);
-    data.gzis.add(gzipInputStream);
-    return result;
+  /** Merge a group of sorted temporary files into a single new one and delete the group */
+  private FileObject mergeGroup(List<FileObject> group) throws HopException {
+    if (group.size() == 1) {
+      return group.get(0);
+    }
+    FileObject fileObject = createTempFile();
+    try (SortRunMerger merger =
+            new SortRunMerger(group, data.outputRowMeta, data.rowComparator, data.compressFiles);
+        DataOutputStream dos = openTempFile(fileObject)) {
+      RowCodec codec = new RowCodec(data.outputRowMeta, true);
+      codec.writeHeader(dos);
+      Object[] row = merger.next();
+      while (row != null && !isStopped()) {
+        codec.writeRow(dos, row);
+        row = merger.next();
+      }
+    } catch (Exception e) {
+      deleteQuietly(fileObject);
+      throw new HopException("Error merging temporary sort files", e);
+    }
+    return fileObject;
   }
 
   // get sorted rows from available files in iterative manner.
   // that means call to this method will continue to return rows
   // till all temp files will not be read to the end.
-  Object[] getBuffer() throws HopValueException {
+  Object[] getBuffer() throws HopException {
     Object[] retval;
 
     // Open all files at once and read one row from each file...
-    if (CollectionUtils.isNotEmpty(data.files) && (data.dis.isEmpty() || data.fis.isEmpty())) {
+    if (CollectionUtils.isNotEmpty(data.files) && data.merger == null) {
+      mergeTempFiles();
+
       if (log.isBasic()) {
         logBasic(BaseMessages.getString(PKG, "SortRows.Basic.OpeningTempFiles", data.files.size()));
       }
-
-      try {
-        for (int f = 0; f < data.files.size() && !isStopped(); f++) {
-          FileObject fileObject = data.files.get(f);
-          String filename = HopVfs.getFilename(fileObject);
-          if (log.isDetailed()) {
-            logDetailed(BaseMessages.getString(PKG, "SortRows.Detailed.OpeningTempFile", filename));
-          }
-          InputStream fi = HopVfs.getInputStream(fileObject);
-          DataInputStream di;
-          data.fis.add(fi);
-          if (data.compressFiles) {
-            di = getDataInputStream(new GZIPInputStream(new BufferedInputStream(fi)));
-          } else {
-            di = new DataInputStream(new BufferedInputStream(fi, 50000));
-          }
-          data.dis.add(di);
-
-          // How long is the buffer?
-          int buffersize = data.bufferSizes.get(f);
-
-          if (log.isDetailed()) {
-            logDetailed(
-                BaseMessages.getString(
-                    PKG, "SortRows.Detailed.FromFileExpectingRows", filename, buffersize));
-          }
-
-          if (buffersize > 0) {
-            Object[] row = data.outputRowMeta.readData(di);
-            data.rowbuffer.add(row); // new row from input stream
-            data.tempRows.add(new RowTempFile(row, f));
-          }
-        }
-
-        // Sort the data row buffer
-        Collections.sort(data.tempRows, data.comparator);
-      } catch (Exception e) {
-        logError(BaseMessages.getString(PKG, "SortRows.Error.ErrorReadingBackTempFiles"), e);
-      }
+      data.merger =
+          new SortRunMerger(
+              data.files, data.outputRowMeta, data.rowComparator, data.compressFiles);
     }
 
     if (data.files.isEmpty()) {
@@ -281,79 +377,13 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
         retval = null;
       }
     } else {
-      // read from disk processing
-
-      if (data.rowbuffer.isEmpty()) {
-        retval = null;
-      } else {
-        // We now have "filenr" rows waiting: which one is the smallest?
-        //
-        if (log.isRowLevel()) {
-          for (int i = 0; i < data.rowbuffer.size() && !isStopped(); i++) {
-            Object[] b = data.rowbuffer.get(i);
-            logRowlevel(
-                BaseMessages.getString(
-                    PKG, "SortRows.RowLevel.PrintRow", i, data.outputRowMeta.getString(b)));
-          }
-        }
-
-        RowTempFile rowTempFile = data.tempRows.remove(0);
-        retval = rowTempFile.row;
-        int smallest = rowTempFile.fileNumber;
-
-        // now get another Row for position smallest
-
-        FileObject file = data.files.get(smallest);
-        DataInputStream di = data.dis.get(smallest);
-        InputStream fi = data.fis.get(smallest);
-
-        try {
-          Object[] row2 = data.outputRowMeta.readData(di);
-          RowTempFile extra = new RowTempFile(row2, smallest);
-
-          int index = Collections.binarySearch(data.tempRows, extra, data.comparator);
-          if (index < 0) {
-            data.tempRows.add(index * (-1) - 1, extra);
-          } else {
-            data.tempRows.add(index, extra);
-          }
-        } catch (HopFileException fe) { // empty file or EOF mostly
-          GZIPInputStream gzfi = (data.compressFiles) ? data.gzis.get(smallest) : null;
-          try {
-            di.close();
-            fi.close();
-            if (gzfi != null) {
-              gzfi.close();
-            }
-            file.delete();
-          } catch (IOException e) {
-            logError(
-                BaseMessages.getString(
-                    PKG, "SortRows.Error.UnableToCloseFile", smallest, file.toString()));
-            setErrors(1);
-            stopAll();
-            return null;
-          }
-
-          data.files.remove(smallest);
-          data.dis.remove(smallest);
-          data.fis.remove(smallest);
-
-          if (gzfi != null) {
-            data.gzis.remove(smallest);
-          }
-
-          // Also update all file numbers in in data.tempRows if they are larger
-          // than smallest.
-          //
-          for (RowTempFile rtf : data.tempRows) {
-            if (rtf.fileNumber > smallest) {
-              rtf.fileNumber--;
-            }
-          }
-        } catch (SocketTimeoutException e) {
-          throw new HopValueException(e); // should never happen on local files
-        }
+      // read from disk processing: the merger gives us the smallest row of all files
+      //
+      retval = data.merger.next();
+      if (retval == null) {
+        data.merger.close();
+        data.merger = null;
+        data.files.clear();
       }
     }
     return retval;
@@ -407,7 +437,6 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
       // Metadata
       data.outputRowMeta = inputRowMeta.clone();
       meta.getFields(data.outputRowMeta, getTransformName(), null, null, this, metadataProvider);
-      data.comparator = new RowTemapFileComparator(data.outputRowMeta, data.fieldnrs);
 
       for (int i = 0; i < fieldNames.length; i++) {
         data.fieldnrs[i] = inputRowMeta.indexOfValue(fieldNames[i]);
@@ -546,7 +575,14 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
 
     data.sortSize = Const.toInt(resolve(meta.getSortSize()), -1);
     data.freeMemoryPctLimit = Const.toInt(meta.getFreeMemoryLimit(), -1);
-    if (data.sortSize <= 0 && data.freeMemoryPctLimit <= 0) {
+
+    // An explicit memory budget replaces the sort size and free memory limit
+    //
+    long memoryBudget = Const.toLong(resolve(meta.getMemoryBudget()), -1L);
+    if (memoryBudget > 0) {
+      data.memoryBudget =
+          MemoryManager.getInstance().createBudget(getTransformName(), memoryBudget * 1024 * 1024);
+    } else if (data.sortSize <= 0 && data.freeMemoryPctLimit <= 0) {
       // Prefer the memory limit as it should never fail
       //
       data.freeMemoryPctLimit = 25;
@@ -556,23 +592,44 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     //
     data.buffer = new ArrayList<>(5000);
 
-    // Buffer for reading from disk
-    //
-    data.rowbuffer = new ArrayList<>(5000);
-
     data.compressFiles =
         getVariableBoolean(meta.getCompressFilesVariable(), meta.getCompressFiles());
 
-    data.tempRows = new ArrayList<>();
-
     data.minSortSize = 5000;
 
+    // Multi-threaded sorting: sort and merge on a pool of threads, write to disk in the background
+    //
+    data.sortThreads = Math.max(1, Const.toInt(resolve(meta.getSortThreads()), 1));
+    data.mergeFanIn = Math.max(2, Const.toInt(resolve(meta.getMergeFanIn()), 128));
+    if (data.sortThreads > 1) {
+      data.sortPool = new ForkJoinPool(data.sortThreads);
+      data.spillExecutor =
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, getTransformName() + " - temp file writer");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+
     return true;
   }
 
   @Override
   public void dispose() {
     clearBuffers();
+    if (data.spillExecutor != null) {
+      data.spillExecutor.shutdownNow();
+      data.spillExecutor = null;
+    }
+    if (data.sortPool != null) {
+      data.sortPool.shutdownNow();
+      data.sortPool = null;
+    }
+    if (data.memoryBudget != null) {
+      data.memoryBudget.close();
+      data.memoryBudget = null;
+    }
     super.dispose();
   }
 
@@ -581,20 +638,26 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     // Clean out the sort buffer
     data.buffer.clear();
     data.getBufferIndex = 0;
-    data.rowbuffer.clear();
 
-    // close any open DataInputStream objects
-    if (CollectionUtils.isNotEmpty(data.dis)) {
-      for (DataInputStream dis : data.dis) {
-        BaseTransform.closeQuietly(dis);
+    // Wait for a temp file which is still being written, so we can remove it as well
+    if (data.spillFuture != null) {
+      try {
+        waitForSpill();
+      } catch (HopException e) {
+        logError(e.getLocalizedMessage(), e);
       }
     }
-    // close any open InputStream objects
-    if (CollectionUtils.isNotEmpty(data.fis)) {
-      for (InputStream is : data.fis) {
-        BaseTransform.closeQuietly(is);
-      }
+    if (data.memoryBudget != null) {
+      data.memoryBudget.releaseAll();
+    }
+    data.bufferBytes = 0;
+
+    // close any open temp files
+    if (data.merger != null) {
+      data.merger.close();
+      data.merger = null;
     }
+
     // remove temp files
     for (int f = 0; f < data.files.size(); f++) {
       FileObject fileToDelete = data.files.get(f);
@@ -606,12 +669,17 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
         logError(e.getLocalizedMessage(), e);
       }
     }
+    data.files.clear();
   }
 
   /** Sort the entire vector, if it is not empty. */
   void quickSort(List<Object[]> elements) {
     if (CollectionUtils.isNotEmpty(elements)) {
-      Collections.sort(elements, data.rowComparator);
+      if (data.sortPool != null) {
+        ParallelRowSort.sort(elements, data.rowComparator, data.sortPool);
+      } else {
+        Collections.sort(elements, data.rowComparator);
+      }
 
       long nrConversions = 0L;
       for (IValueMeta valueMeta : data.outputRowMeta.getValueMetaList()) {
@@ -652,9 +720,10 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
   }
 
   private void preSortBeforeFlush() throws HopException {
-    if (data.files.size() > 0) {
+    if (data.files.size() > 0 || data.spillFuture != null) {
       // dump to dist and then read from disk
       sortExternalRows();
+      waitForSpill();
     } else {
       // sort in memory
       quickSort(data.buffer);
@@ -678,43 +747,32 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     }
   }
 
-  private class SortRowsComparator {
-    protected IRowMeta rowMeta;
-    protected int[] fieldNrs;
+  /**
+   * Compares rows on the sort keys. The value metadata of the keys is looked up once so that the
+   * comparator can be used by multiple sort threads without contending on the row metadata lock.
+   */
+  private class RowObjectArrayComparator implements Comparator<Object[]> {
+    private final IValueMeta[] keyMetas;
+    private final int[] fieldNrs;
 
-    SortRowsComparator(IRowMeta rowMeta, int[] fieldNrs) {
-      this.rowMeta = rowMeta;
+    RowObjectArrayComparator(IRowMeta rowMeta, int[] fieldNrs) {
       this.fieldNrs = fieldNrs;
-    }
-  }
-
-  private class RowTemapFileComparator extends SortRowsComparator
-      implements Comparator<RowTempFile> {
-    RowTemapFileComparator(IRowMeta rowMeta, int[] fieldNrs) {
-      super(rowMeta, fieldNrs);
-    }
-
-    @Override
-    public int compare(RowTempFile o1, RowTempFile o2) {
-      try {
-        return rowMeta.compare(o1.row, o2.row, fieldNrs);
-      } catch (HopValueException e) {
-        logError("Error comparing rows: " + e.toString());
-        return 0;
+      this.keyMetas = new IValueMeta[fieldNrs.length];
+      for (int i = 0; i < fieldNrs.length; i++) {
+        keyMetas[i] = rowMeta.getValueMeta(fieldNrs[i]);
       }
     }
-  }
-
-  private class RowObjectArrayComparator extends SortRowsComparator
-      implements Comparator<Object[]> {
-    RowObjectArrayComparator(IRowMeta rowMeta, int[] fieldNrs) {
-      super(rowMeta, fieldNrs);
-    }
 
     @Override
     public int compare(Object[] o1, Object[] o2) {
       try {
-        return rowMeta.compare(o1, o2, fieldNrs);
+        for (int i = 0; i < fieldNrs.length; i++) {
+          int cmp = keyMetas[i].compare(o1[fieldNrs[i]], o2[fieldNrs[i]]);
+          if (cmp != 0) {
+            return cmp;
+          }
+        }
+        return 0;
       } catch (HopValueException e) {
         logError("Error comparing rows: " + e.toString());
         return 0;
@@ -18,30 +18,25 @@
 package org.apache.hop.pipeline.transforms.sort;
 
 import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.memory.MemoryBudget;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
-import java.io.DataInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class SortRowsData extends BaseTransformData implements ITransformData {
   public List<FileObject> files;
   public List<Object[]> buffer;
   public int getBufferIndex;
 
-  public List<InputStream> fis;
-  public List<GZIPInputStream> gzis;
-  public List<DataInputStream> dis;
-  public List<Object[]> rowbuffer;
-  public List<Integer> bufferSizes;
-
-  // To store rows and file references
-  public List<RowTempFile> tempRows;
+  // Merges the sorted temp files
+  public SortRunMerger merger;
 
   public int[] fieldnrs; // the corresponding field numbers
   public FileObject fil;
@@ -51,13 +46,19 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
-    Comparator<RowTempFile> comparator;
   Comparator<Object[]> rowComparator;
 
   public int freeCounter;
   public int freeMemoryPct;
   public int minSortSize;
   public int freeMemoryPctLimit;
+
+  /*
+   * Memory budget: the estimated size of the rows in the buffer and of the rows being written
+   */
+  public MemoryBudget memoryBudget;
+  public long bufferBytes;
+  public long spillBytes;
   public int memoryReporting;
 
   /*
@@ -67,14 +68,19 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
   public int[] groupnrs;
   public boolean newBatch;
 
+  /*
+   * Multi-threaded sorting
+   */
+  public int sortThreads;
+  public int mergeFanIn;
+  public ForkJoinPool sortPool;
+  public ExecutorService spillExecutor;
+  public Future<FileObject> spillFuture;
+
   public SortRowsData() {
     super();
 
     files = new ArrayList<>();
-    fis = new ArrayList<>();
-    gzis = new ArrayList<>();
-    dis = new ArrayList<>();
-    bufferSizes = new ArrayList<>();
 
     previous = null; // Heroic
   }
@@ -60,10 +60,16 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
 
   private TextVar wFreeMemory;
 
+  private TextVar wMemoryBudget;
+
   private CheckBoxVar wCompress;
 
   private Button wUniqueRows;
 
+  private TextVar wSortThreads;
+
+  private TextVar wMergeFanIn;
+
   private TableView wFields;
 
   private final SortRowsMeta input;
@@ -207,6 +213,28 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     fdFreeMemory.right = new FormAttachment(100, 0);
     wFreeMemory.setLayoutData(fdFreeMemory);
 
+    // Memory budget
+    Label wlMemoryBudget = new Label(shell, SWT.RIGHT);
+    wlMemoryBudget.setText(BaseMessages.getString(PKG, "SortRowsDialog.MemoryBudget.Label"));
+    wlMemoryBudget.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.MemoryBudget.ToolTip"));
+    props.setLook(wlMemoryBudget);
+    FormData fdlMemoryBudget = new FormData();
+    fdlMemoryBudget.left = new FormAttachment(0, 0);
+    fdlMemoryBudget.right = new FormAttachment(middle, -margin);
+    fdlMemoryBudget.top = new FormAttachment(wFreeMemory, margin * 2);
+    wlMemoryBudget.setLayoutData(fdlMemoryBudget);
+    wMemoryBudget = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wMemoryBudget.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.MemoryBudget.ToolTip"));
+    props.setLook(wMemoryBudget);
+    wMemoryBudget.addModifyListener(lsMod);
+    FormData fdMemoryBudget = new FormData();
+    fdMemoryBudget.left = new FormAttachment(middle, 0);
+    fdMemoryBudget.top = new FormAttachment(wFreeMemory, margin * 2);
+    fdMemoryBudget.right = new FormAttachment(100, 0);
+    wMemoryBudget.setLayoutData(fdMemoryBudget);
+
     // Using compression for temporary files?
     Label wlCompress = new Label(shell, SWT.RIGHT);
     wlCompress.setText(BaseMessages.getString(PKG, "SortRowsDialog.Compress.Label"));
@@ -214,7 +242,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     FormData fdlCompress = new FormData();
     fdlCompress.left = new FormAttachment(0, 0);
     fdlCompress.right = new FormAttachment(middle, -margin);
-    fdlCompress.top = new FormAttachment(wFreeMemory, margin * 2);
+    fdlCompress.top = new FormAttachment(wMemoryBudget, margin * 2);
     wlCompress.setLayoutData(fdlCompress);
     wCompress = new CheckBoxVar(variables, shell, SWT.CHECK, "");
     props.setLook(wCompress);
@@ -252,6 +280,48 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     wUniqueRows.setLayoutData(fdUniqueRows);
     wUniqueRows.addSelectionListener(new ComponentSelectionListener(input));
 
+    // The number of threads to sort with
+    Label wlSortThreads = new Label(shell, SWT.RIGHT);
+    wlSortThreads.setText(BaseMessages.getString(PKG, "SortRowsDialog.SortThreads.Label"));
+    wlSortThreads.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.SortThreads.ToolTip"));
+    props.setLook(wlSortThreads);
+    FormData fdlSortThreads = new FormData();
+    fdlSortThreads.left = new FormAttachment(0, 0);
+    fdlSortThreads.right = new FormAttachment(middle, -margin);
+    fdlSortThreads.top = new FormAttachment(wUniqueRows, margin * 2);
+    wlSortThreads.setLayoutData(fdlSortThreads);
+    wSortThreads = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wSortThreads.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.SortThreads.ToolTip"));
+    props.setLook(wSortThreads);
+    wSortThreads.addModifyListener(lsMod);
+    FormData fdSortThreads = new FormData();
+    fdSortThreads.left = new FormAttachment(middle, 0);
+    fdSortThreads.top = new FormAttachment(wUniqueRows, margin * 2);
+    fdSortThreads.right = new FormAttachment(100, 0);
+    wSortThreads.setLayoutData(fdSortThreads);
+
+    // The maximum number of files to merge at once
+    Label wlMergeFanIn = new Label(shell, SWT.RIGHT);
+    wlMergeFanIn.setText(BaseMessages.getString(PKG, "SortRowsDialog.MergeFanIn.Label"));
+    wlMergeFanIn.setToolTipText(BaseMessages.getString(PKG, "SortRowsDialog.MergeFanIn.ToolTip"));
+    props.setLook(wlMergeFanIn);
+    FormData fdlMergeFanIn = new FormData();
+    fdlMergeFanIn.left = new FormAttachment(0, 0);
+    fdlMergeFanIn.right = new FormAttachment(middle, -margin);
+    fdlMergeFanIn.top = new FormAttachment(wSortThreads, margin * 2);
+    wlMergeFanIn.setLayoutData(fdlMergeFanIn);
+    wMergeFanIn = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wMergeFanIn.setToolTipText(BaseMessages.getString(PKG, "SortRowsDialog.MergeFanIn.ToolTip"));
+    props.setLook(wMergeFanIn);
+    wMergeFanIn.addModifyListener(lsMod);
+    FormData fdMergeFanIn = new FormData();
+    fdMergeFanIn.left = new FormAttachment(middle, 0);
+    fdMergeFanIn.top = new FormAttachment(wSortThreads, margin * 2);
+    fdMergeFanIn.right = new FormAttachment(100, 0);
+    wMergeFanIn.setLayoutData(fdMergeFanIn);
+
     wOk = new Button(shell, SWT.PUSH);
     wOk.setText(BaseMessages.getString(PKG, "System.Button.OK"));
     wOk.addListener(SWT.Selection, e -> ok());
@@ -269,7 +339,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     props.setLook(wlFields);
     FormData fdlFields = new FormData();
     fdlFields.left = new FormAttachment(0, 0);
-    fdlFields.top = new FormAttachment(wUniqueRows, margin);
+    fdlFields.top = new FormAttachment(wMergeFanIn, margin);
     wlFields.setLayoutData(fdlFields);
 
     final int FieldsRows = input.getFieldName().length;
@@ -404,9 +474,12 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     }
     wSortSize.setText(Const.NVL(input.getSortSize(), ""));
     wFreeMemory.setText(Const.NVL(input.getFreeMemoryLimit(), ""));
+    wMemoryBudget.setText(Const.NVL(input.getMemoryBudget(), ""));
     wCompress.setSelection(input.getCompressFiles());
     wCompress.setVariableName(input.getCompressFilesVariable());
     wUniqueRows.setSelection(input.isOnlyPassingUniqueRows());
+    wSortThreads.setText(Const.NVL(input.getSortThreads(), ""));
+    wMergeFanIn.setText(Const.NVL(input.getMergeFanIn(), ""));
 
     Table table = wFields.table;
     if (input.getFieldName().length > 0) {
@@ -468,10 +541,13 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     input.setDirectory(wSortDir.getText());
     input.setSortSize(wSortSize.getText());
     input.setFreeMemoryLimit(wFreeMemory.getText());
+    input.setMemoryBudget(wMemoryBudget.getText());
     log.logDetailed("Sort rows", "Compression is set to " + wCompress.getSelection());
     input.setCompressFiles(wCompress.getSelection());
     input.setCompressFilesVariable(wCompress.getVariableName());
     input.setOnlyPassingUniqueRows(wUniqueRows.getSelection());
+    input.setSortThreads(wSortThreads.getText());
+    input.setMergeFanIn(wMergeFanIn.getText());
 
     int nrFields = wFields.nrNonEmpty();
 
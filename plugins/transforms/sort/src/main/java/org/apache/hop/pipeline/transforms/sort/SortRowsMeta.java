@@ -102,6 +102,13 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
   @Injection(name = "FREE_MEMORY_TRESHOLD")
   private String freeMemoryLimit;
 
+  /**
+   * The memory budget in MB. When set, rows are kept in memory as long as the estimated size of the
+   * rows fits in the budget. The sort size and free memory limit are not used in that case.
+   */
+  @Injection(name = "MEMORY_BUDGET")
+  private String memoryBudget;
+
   /** only pass unique rows to the output stream(s) */
   @Injection(name = "ONLY_PASS_UNIQUE_ROWS")
   private boolean onlyPassingUniqueRows;
@@ -116,6 +123,17 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
   /** The variable to use to set the compressFiles option boolean */
   private String compressFilesVariable;
 
+  /**
+   * The number of threads used to sort the rows in memory and to write and merge the temporary
+   * files. One thread means that everything is done in the transform thread itself.
+   */
+  @Injection(name = "SORT_THREADS")
+  private String sortThreads;
+
+  /** The maximum number of temporary files to merge at once, more files are merged in passes */
+  @Injection(name = "MERGE_FAN_IN")
+  private String mergeFanIn;
+
   public SortRowsMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -199,8 +217,11 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
       prefix = XmlHandler.getTagValue(transformNode, "prefix");
       sortSize = XmlHandler.getTagValue(transformNode, "sort_size");
       freeMemoryLimit = XmlHandler.getTagValue(transformNode, "free_memory");
+      memoryBudget = XmlHandler.getTagValue(transformNode, "memory_budget");
       compressFiles = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "compress"));
       compressFilesVariable = XmlHandler.getTagValue(transformNode, "compress_variable");
+      sortThreads = XmlHandler.getTagValue(transformNode, "sort_threads");
+      mergeFanIn = XmlHandler.getTagValue(transformNode, "merge_fan_in");
       onlyPassingUniqueRows =
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "unique_rows"));
 
@@ -237,9 +258,12 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
     prefix = "out";
     sortSize = "1000000";
     freeMemoryLimit = null;
+    memoryBudget = null;
     compressFiles = false;
     compressFilesVariable = null;
     onlyPassingUniqueRows = false;
+    sortThreads = "1";
+    mergeFanIn = "128";
 
     int nrFields = 0;
 
@@ -261,10 +285,13 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
     retval.append("      ").append(XmlHandler.addTagValue("prefix", prefix));
     retval.append("      ").append(XmlHandler.addTagValue("sort_size", sortSize));
     retval.append("      ").append(XmlHandler.addTagValue("free_memory", freeMemoryLimit));
+    retval.append("      ").append(XmlHandler.addTagValue("memory_budget", memoryBudget));
     retval.append("      ").append(XmlHandler.addTagValue("compress", compressFiles));
     retval
         .append("      ")
         .append(XmlHandler.addTagValue("compress_variable", compressFilesVariable));
+    retval.append("      ").append(XmlHandler.addTagValue("sort_threads", sortThreads));
+    retval.append("      ").append(XmlHandler.addTagValue("merge_fan_in", mergeFanIn));
     retval.append("      ").append(XmlHandler.addTagValue("unique_rows", onlyPassingUniqueRows));
 
     retval.append("    <fields>").append(Const.CR);
@@ -504,6 +531,26 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
     this.compressFilesVariable = compressFilesVariable;
   }
 
+  /** @return the number of threads to sort and merge with */
+  public String getSortThreads() {
+    return sortThreads;
+  }
+
+  /** @param sortThreads the number of threads to sort and merge with */
+  public void setSortThreads(String sortThreads) {
+    this.sortThreads = sortThreads;
+  }
+
+  /** @return the maximum number of temporary files to merge at once */
+  public String getMergeFanIn() {
+    return mergeFanIn;
+  }
+
+  /** @param mergeFanIn the maximum number of temporary files to merge at once */
+  public void setMergeFanIn(String mergeFanIn) {
+    this.mergeFanIn = mergeFanIn;
+  }
+
   /** @return the caseSensitive */
   public boolean[] getCaseSensitive() {
     return caseSensitive;
@@ -544,6 +591,16 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData> impl
     this.freeMemoryLimit = freeMemoryLimit;
   }
 
+  /** @return the memory budget in MB */
+  public String getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /** @param memoryBudget the memory budget in MB to set */
+  public void setMemoryBudget(String memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
   /** @return the preSortedField */
   public boolean[] getPreSortedField() {
     return preSortedField;
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.exception.HopEofException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowCodec;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.hop.pipeline.transform.BaseTransform;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Merges a number of sorted temporary files into a single sorted stream of rows.
+ *
+ * <p>The current row of every file is kept in a binary min-heap, so getting the next row costs a
+ * logarithmic number of comparisons in the number of files. Rows which compare equal are returned
+ * in the order of the files. Files are closed and deleted as soon as they are read completely.
+ */
+class SortRunMerger implements AutoCloseable {
+
+  private static final int BUFFER_SIZE = 50000;
+
+  private final List<FileObject> files;
+  private final Comparator<Object[]> comparator;
+
+  private final InputStream[] inputStreams;
+  private final DataInputStream[] dataInputStreams;
+  private final RowCodec[] codecs;
+
+  /** The current row of each file */
+  private final Object[][] rows;
+
+  /** The heap of file indexes, ordered by their current row */
+  private final int[] heap;
+
+  private int heapSize;
+
+  /**
+   * Open the given files and read the first row of each of them.
+   *
+   * @param files The sorted temporary files to merge
+   * @param rowMeta The metadata of the rows in the files
+   * @param comparator The comparator the rows in the files are sorted with
+   * @param compressed true if the files are GZIP compressed
+   * @throws HopException In case a file can't be opened or read
+   */
+  SortRunMerger(
+      List<FileObject> files, IRowMeta rowMeta, Comparator<Object[]> comparator, boolean compressed)
+      throws HopException {
+    this.files = files;
+    this.comparator = comparator;
+
+    int nrFiles = files.size();
+    inputStreams = new InputStream[nrFiles];
+    dataInputStreams = new DataInputStream[nrFiles];
+    codecs = new RowCodec[nrFiles];
+    rows = new Object[nrFiles][];
+    heap = new int[nrFiles];
+
+    try {
+      for (int f = 0; f < nrFiles; f++) {
+        InputStream inputStream = HopVfs.getInputStream(files.get(f));
+        inputStreams[f] = inputStream;
+        if (compressed) {
+          inputStream = new GZIPInputStream(inputStream, BUFFER_SIZE);
+        }
+        dataInputStreams[f] =
+            new DataInputStream(new BufferedInputStream(inputStream, BUFFER_SIZE));
+        codecs[f] = new RowCodec(rowMeta);
+        codecs[f].readHeader(dataInputStreams[f]);
+
+        if (readRow(f)) {
+          heap[heapSize++] = f;
+        }
+      }
+    } catch (HopException e) {
+      close();
+      throw e;
+    } catch (Exception e) {
+      close();
+      throw new HopException("Error opening temporary sort files", e);
+    }
+
+    for (int i = heapSize / 2 - 1; i >= 0; i--) {
+      siftDown(i);
+    }
+  }
+
+  /**
+   * Get the next row in sort order.
+   *
+   * @return the next row or null if all files are read completely
+   * @throws HopException In case of an error reading a file
+   */
+  Object[] next() throws HopException {
+    if (heapSize == 0) {
+      return null;
+    }
+    int f = heap[0];
+    Object[] row = rows[f];
+
+    // Replace the top of the heap with the next row of the same file
+    //
+    if (!readRow(f)) {
+      heap[0] = heap[--heapSize];
+    }
+    if (heapSize > 0) {
+      siftDown(0);
+    }
+    return row;
+  }
+
+  /** Read the next row of a file, close and delete the file when there are no more rows */
+  private boolean readRow(int f) throws HopException {
+    try {
+      rows[f] = codecs[f].readRow(dataInputStreams[f]);
+      return true;
+    } catch (HopEofException e) {
+      rows[f] = null;
+      closeFile(f);
+      return false;
+    } catch (HopException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new HopException("Error reading temporary sort file " + files.get(f), e);
+    }
+  }
+
+  private void siftDown(int index) {
+    int f = heap[index];
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+        child++;
+      }
+      if (!less(heap[child], f)) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = f;
+  }
+
+  private boolean less(int f1, int f2) {
+    int cmp = comparator.compare(rows[f1], rows[f2]);
+    return cmp < 0 || (cmp == 0 && f1 < f2);
+  }
+
+  private void closeFile(int f) {
+    if (dataInputStreams[f] != null) {
+      BaseTransform.closeQuietly(dataInputStreams[f]);
+      dataInputStreams[f] = null;
+    }
+    if (inputStreams[f] != null) {
+      BaseTransform.closeQuietly(inputStreams[f]);
+      inputStreams[f] = null;
+    }
+    try {
+      files.get(f).delete();
+    } catch (Exception e) {
+      // Ignore, we'll try again when the transform is disposed
+    }
+  }
+
+  /** Close and delete all the files, also the ones which are not read completely */
+  @Override
+  public void close() {
+    for (int f = 0; f < files.size(); f++) {
+      closeFile(f);
+    }
+    heapSize = 0;
+  }
+}
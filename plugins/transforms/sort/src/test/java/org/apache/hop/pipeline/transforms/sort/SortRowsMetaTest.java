@@ -43,9 +43,12 @@ public class SortRowsMetaTest {
             "Prefix",
             "SortSize",
             "FreeMemoryLimit",
+            "MemoryBudget",
             "CompressFiles",
             "CompressFilesVariable",
             "OnlyPassingUniqueRows",
+            "SortThreads",
+            "MergeFanIn",
             "FieldName",
             "Ascending",
             "CaseSensitive",
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.QueueRowSet;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.memory.MemoryManager;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+public class SortRowsTest {
+
+  private static final int NR_ROWS = 10000;
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private TransformMockHelper<SortRowsMeta, SortRowsData> transformMockHelper;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  @Before
+  public void setup() {
+    transformMockHelper =
+        new TransformMockHelper<>("Sort rows", SortRowsMeta.class, SortRowsData.class);
+    when(transformMockHelper.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(transformMockHelper.iLogChannel);
+    when(transformMockHelper.pipeline.isRunning()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    transformMockHelper.cleanUp();
+  }
+
+  @Test
+  public void testSortInMemory() throws Exception {
+    assertSorted(sort("1000000", "1", "128", false, false), NR_ROWS);
+  }
+
+  @Test
+  public void testSortInMemoryMultiThreaded() throws Exception {
+    assertSorted(sort("1000000", "4", "128", false, false), NR_ROWS);
+  }
+
+  @Test
+  public void testExternalSort() throws Exception {
+    assertSorted(sort("500", "1", "128", false, false), NR_ROWS);
+  }
+
+  @Test
+  public void testExternalSortMultiThreaded() throws Exception {
+    assertSorted(sort("500", "4", "128", true, false), NR_ROWS);
+  }
+
+  @Test
+  public void testExternalSortMultiPassMerge() throws Exception {
+    assertSorted(sort("500", "1", "3", false, false), NR_ROWS);
+    assertSorted(sort("500", "4", "4", true, false), NR_ROWS);
+  }
+
+  @Test
+  public void testExternalSortUniqueRows() throws Exception {
+    List<Object[]> rows = sort("500", "4", "3", false, true);
+    assertSorted(rows, 1000);
+  }
+
+  @Test
+  public void testExternalSortMemoryBudget() throws Exception {
+    assertSorted(sort("1000000", "1", "128", false, false, "1"), NR_ROWS);
+    assertSorted(sort("1000000", "4", "2", false, false, "1"), NR_ROWS);
+    assertEquals(0, MemoryManager.getInstance().getReserved());
+    assertEquals(0, MemoryManager.getInstance().getNrBudgets());
+  }
+
+  private List<Object[]> sort(
+      String sortSize, String sortThreads, String mergeFanIn, boolean compress, boolean unique)
+      throws Exception {
+    return sort(sortSize, sortThreads, mergeFanIn, compress, unique, null);
+  }
+
+  private List<Object[]> sort(
+      String sortSize,
+      String sortThreads,
+      String mergeFanIn,
+      boolean compress,
+      boolean unique,
+      String memoryBudget)
+      throws Exception {
+    SortRowsMeta meta = new SortRowsMeta();
+    meta.setDefault();
+    meta.allocate(1);
+    meta.getFieldName()[0] = "id";
+    meta.getAscending()[0] = true;
+    meta.getCaseSensitive()[0] = true;
+    meta.setDirectory(tempFolder.getRoot().getAbsolutePath());
+    meta.setSortSize(sortSize);
+    meta.setSortThreads(sortThreads);
+    meta.setMergeFanIn(mergeFanIn);
+    meta.setCompressFiles(compress);
+    meta.setOnlyPassingUniqueRows(unique);
+    meta.setMemoryBudget(memoryBudget);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+
+    IRowSet input = new QueueRowSet();
+    Random random = new Random(42);
+    for (int i = 0; i < NR_ROWS; i++) {
+      long id = unique ? random.nextInt(1000) : random.nextLong();
+      input.putRow(rowMeta, new Object[] {id, name(id)});
+    }
+    // Make sure every key occurs at least once when passing unique rows
+    //
+    for (long id = 0; unique && id < 1000; id++) {
+      input.putRow(rowMeta, new Object[] {id, name(id)});
+    }
+    input.setDone();
+    IRowSet output = new QueueRowSet();
+
+    SortRows transform =
+        new SortRows(
+            transformMockHelper.transformMeta,
+            meta,
+            new SortRowsData(),
+            0,
+            transformMockHelper.pipelineMeta,
+            transformMockHelper.pipeline);
+    transform.init();
+    transform.setInputRowSets(new ArrayList<>(Collections.singletonList(input)));
+    transform.setOutputRowSets(new ArrayList<>(Collections.singletonList(output)));
+    while (transform.processRow()) {
+      // Keep on sorting
+    }
+    transform.dispose();
+
+    // All temporary files are cleaned up
+    //
+    String[] files = tempFolder.getRoot().list();
+    assertEquals(0, files == null ? 0 : files.length);
+
+    List<Object[]> rows = new ArrayList<>();
+    Object[] row = output.getRowImmediate();
+    while (row != null) {
+      rows.add(row);
+      row = output.getRowImmediate();
+    }
+    assertNull(output.getRowImmediate());
+    return rows;
+  }
+
+  /** A name which is long enough to make the rows exceed a 1MB memory budget */
+  private static String name(long id) {
+    return String.format("name %-100d", id);
+  }
+
+  private static void assertSorted(List<Object[]> rows, int expectedSize) {
+    assertEquals(expectedSize, rows.size());
+    for (int i = 1; i < rows.size(); i++) {
+      long previous = (Long) rows.get(i - 1)[0];
+      long current = (Long) rows.get(i)[0];
+      assertTrue(previous <= current);
+      assertEquals(name(current), rows.get(i)[1]);
+    }
+  }
+}
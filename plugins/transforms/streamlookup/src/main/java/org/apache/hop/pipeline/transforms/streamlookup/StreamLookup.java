@@ -23,6 +23,7 @@ import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.hash.ByteArrayHashIndex;
+import org.apache.hop.core.hash.OffHeapHashIndex;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
@@ -35,6 +36,7 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.text.DateFormat;
 import java.util.Collections;
@@ -296,7 +298,7 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
 
   private void addToCache(
       IRowMeta keyMeta, Object[] keyData, IRowMeta valueMeta, Object[] valueData)
-      throws HopValueException {
+      throws HopException {
     if (meta.isMemoryPreservationActive()) {
       if (meta.isUsingSortedList()) {
         KeyValue keyValue = new KeyValue(keyData, valueData);
@@ -325,6 +327,14 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
           Long key = keyMeta.getInteger(keyData, 0);
           Long value = valueMeta.getInteger(valueData, 0);
           data.longIndex.put(key, value);
+        } else if (meta.isUsingOffHeapIndex()) {
+          if (data.offHeapIndex == null) {
+            String directory = resolve(meta.getOffHeapDirectory());
+            data.offHeapIndex =
+                new OffHeapHashIndex(Utils.isEmpty(directory) ? null : new File(directory));
+          }
+          data.offHeapIndex.put(
+              RowMeta.extractData(keyMeta, keyData), RowMeta.extractData(valueMeta, valueData));
         } else {
           if (data.hashIndex == null) {
             data.hashIndex = new ByteArrayHashIndex(keyMeta);
@@ -360,6 +370,14 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
           return new Object[] {
             value,
           };
+        } else if (meta.isUsingOffHeapIndex()) {
+          // Only the return fields are stored so we only deserialize those
+          //
+          byte[] value = data.offHeapIndex.get(RowMeta.extractData(keyMeta, keyData));
+          if (value == null) {
+            return null;
+          }
+          return RowMeta.getRow(data.cacheValueMeta, value);
         } else {
           try {
             byte[] value = data.hashIndex.get(RowMeta.extractData(keyMeta, keyData));
@@ -499,6 +517,10 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     data.list = null;
     data.hashIndex = null;
     data.longIndex = null;
+    if (data.offHeapIndex != null) {
+      data.offHeapIndex.close();
+      data.offHeapIndex = null;
+    }
 
     super.dispose();
   }
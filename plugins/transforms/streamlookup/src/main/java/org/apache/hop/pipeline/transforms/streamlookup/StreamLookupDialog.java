@@ -33,6 +33,7 @@ import org.apache.hop.ui.core.dialog.BaseDialog;
 import org.apache.hop.ui.core.dialog.ErrorDialog;
 import org.apache.hop.ui.core.widget.ColumnInfo;
 import org.apache.hop.ui.core.widget.TableView;
+import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CCombo;
@@ -63,6 +64,10 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
 
   private Button wIntegerPair;
 
+  private Button wOffHeapIndex;
+
+  private TextVar wOffHeapDirectory;
+
   private final StreamLookupMeta input;
 
   private ColumnInfo[] ciKey;
@@ -210,12 +215,61 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     fdKey.bottom = new FormAttachment(wlKey, (int) (props.getZoomFactor() * 120));
     wKey.setLayoutData(fdKey);
 
+    Label wlOffHeapDirectory = new Label(shell, SWT.RIGHT);
+    wlOffHeapDirectory.setText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapDirectory.Label"));
+    wlOffHeapDirectory.setToolTipText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapDirectory.ToolTip"));
+    props.setLook(wlOffHeapDirectory);
+    FormData fdlOffHeapDirectory = new FormData();
+    fdlOffHeapDirectory.left = new FormAttachment(0, 0);
+    fdlOffHeapDirectory.bottom = new FormAttachment(wOk, -2 * margin);
+    fdlOffHeapDirectory.right = new FormAttachment(middle, -margin);
+    wlOffHeapDirectory.setLayoutData(fdlOffHeapDirectory);
+    wOffHeapDirectory = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wOffHeapDirectory.setToolTipText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapDirectory.ToolTip"));
+    wOffHeapDirectory.setEnabled(false);
+    props.setLook(wOffHeapDirectory);
+    wOffHeapDirectory.addModifyListener(lsMod);
+    FormData fdOffHeapDirectory = new FormData();
+    fdOffHeapDirectory.left = new FormAttachment(middle, 0);
+    fdOffHeapDirectory.top = new FormAttachment(wlOffHeapDirectory, 0, SWT.CENTER);
+    fdOffHeapDirectory.right = new FormAttachment(100, 0);
+    wOffHeapDirectory.setLayoutData(fdOffHeapDirectory);
+
+    Label wlOffHeapIndex = new Label(shell, SWT.RIGHT);
+    wlOffHeapIndex.setText(BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapIndex.Label"));
+    wlOffHeapIndex.setToolTipText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapIndex.ToolTip"));
+    props.setLook(wlOffHeapIndex);
+    FormData fdlOffHeapIndex = new FormData();
+    fdlOffHeapIndex.left = new FormAttachment(0, 0);
+    fdlOffHeapIndex.bottom = new FormAttachment(wOffHeapDirectory, -margin);
+    fdlOffHeapIndex.right = new FormAttachment(middle, -margin);
+    wlOffHeapIndex.setLayoutData(fdlOffHeapIndex);
+    wOffHeapIndex = new Button(shell, SWT.RADIO);
+    wOffHeapIndex.setEnabled(false);
+    props.setLook(wOffHeapIndex);
+    FormData fdOffHeapIndex = new FormData();
+    fdOffHeapIndex.left = new FormAttachment(middle, 0);
+    fdOffHeapIndex.top = new FormAttachment(wlOffHeapIndex, 0, SWT.CENTER);
+    fdOffHeapIndex.right = new FormAttachment(100, 0);
+    wOffHeapIndex.setLayoutData(fdOffHeapIndex);
+    wOffHeapIndex.addSelectionListener(
+        new SelectionAdapter() {
+          @Override
+          public void widgetSelected(SelectionEvent e) {
+            input.setChanged();
+          }
+        });
+
     Label wlSortedList = new Label(shell, SWT.RIGHT);
     wlSortedList.setText(BaseMessages.getString(PKG, "StreamLookupDialog.SortedList.Label"));
     props.setLook(wlSortedList);
     FormData fdlSortedList = new FormData();
     fdlSortedList.left = new FormAttachment(0, 0);
-    fdlSortedList.bottom = new FormAttachment(wOk, -2 * margin);
+    fdlSortedList.bottom = new FormAttachment(wlOffHeapIndex, -margin);
     fdlSortedList.right = new FormAttachment(middle, -margin);
     wlSortedList.setLayoutData(fdlSortedList);
     wSortedList = new Button(shell, SWT.RADIO);
@@ -288,6 +342,8 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
           boolean selection = wPreserveMemory.getSelection();
           wSortedList.setEnabled(selection);
           wIntegerPair.setEnabled(selection);
+          wOffHeapIndex.setEnabled(selection);
+          wOffHeapDirectory.setEnabled(selection);
         });
 
     // THE UPDATE/INSERT TABLE
@@ -474,12 +530,16 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     if (isPreserveMemory) {
       wSortedList.setEnabled(true);
       wIntegerPair.setEnabled(true);
+      wOffHeapIndex.setEnabled(true);
+      wOffHeapDirectory.setEnabled(true);
     }
     // usually this is sorted list or integer pair
     // for backward compatibility they can be set both
     // but user will be forced to choose only one option later.
     wSortedList.setSelection(input.isUsingSortedList());
     wIntegerPair.setSelection(input.isUsingIntegerPair());
+    wOffHeapIndex.setSelection(input.isUsingOffHeapIndex());
+    wOffHeapDirectory.setText(Const.NVL(input.getOffHeapDirectory(), ""));
 
     wKey.setRowNums();
     wKey.optWidth(true);
@@ -507,6 +567,8 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     input.setMemoryPreservationActive(wPreserveMemory.getSelection());
     input.setUsingSortedList(wSortedList.getSelection());
     input.setUsingIntegerPair(wIntegerPair.getSelection());
+    input.setUsingOffHeapIndex(wOffHeapIndex.getSelection());
+    input.setOffHeapDirectory(wOffHeapDirectory.getText());
 
     if (log.isDebug()) {
       logDebug(BaseMessages.getString(PKG, "StreamLookupDialog.Log.FoundKeys", nrkeys + ""));
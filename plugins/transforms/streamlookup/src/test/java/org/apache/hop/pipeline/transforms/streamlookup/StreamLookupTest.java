@@ -126,8 +126,8 @@ public class StreamLookupTest {
     return dataRowSet;
   }
 
-  private StreamLookupMeta mockProcessRowMeta(boolean memoryPreservationActive)
-      throws HopTransformException {
+  private StreamLookupMeta mockProcessRowMeta(
+      boolean memoryPreservationActive, boolean usingOffHeapIndex) throws HopTransformException {
     StreamLookupMeta meta = smh.iTransformMeta;
 
     TransformMeta lookupTransformMeta =
@@ -145,6 +145,7 @@ public class StreamLookupTest {
     doReturn(memoryPreservationActive).when(meta).isMemoryPreservationActive();
     doReturn(false).when(meta).isUsingSortedList();
     doReturn(false).when(meta).isUsingIntegerPair();
+    doReturn(usingOffHeapIndex).when(meta).isUsingOffHeapIndex();
     doReturn(new int[] {-1}).when(meta).getValueDefaultType();
     doReturn(new String[] {""}).when(meta).getValueDefault();
     doReturn(new String[] {"Value"}).when(meta).getValueName();
@@ -165,6 +166,15 @@ public class StreamLookupTest {
   private void doTest(
       boolean memoryPreservationActive, boolean binaryLookupStream, boolean binaryDataStream)
       throws HopException {
+    doTest(memoryPreservationActive, false, binaryLookupStream, binaryDataStream);
+  }
+
+  private void doTest(
+      boolean memoryPreservationActive,
+      boolean usingOffHeapIndex,
+      boolean binaryLookupStream,
+      boolean binaryDataStream)
+      throws HopException {
     StreamLookup transform =
         new StreamLookup(
             smh.transformMeta,
@@ -178,7 +188,7 @@ public class StreamLookupTest {
     transform.addRowSetToInputRowSets(mockDataRowSet(binaryDataStream));
     transform.addRowSetToOutputRowSets(new QueueRowSet());
 
-    StreamLookupMeta meta = mockProcessRowMeta(memoryPreservationActive);
+    StreamLookupMeta meta = mockProcessRowMeta(memoryPreservationActive, usingOffHeapIndex);
     StreamLookupData data = new StreamLookupData();
     data.readLookupValues = true;
 
@@ -207,6 +217,7 @@ public class StreamLookupTest {
     }
 
     assertEquals("Incorrect output row number", 2, rowNumber);
+    transform.dispose();
   }
 
   @Test
@@ -252,4 +263,14 @@ public class StreamLookupTest {
   public void testMemoryPreservationWithBinaryStreams() throws HopException {
     doTest(true, false, true);
   }
+
+  @Test
+  public void testOffHeapIndexWithNormalStreams() throws HopException {
+    doTest(true, true, false, false);
+  }
+
+  @Test
+  public void testOffHeapIndexWithBinaryStreams() throws HopException {
+    doTest(true, true, true, true);
+  }
 }
@@ -21,7 +21,6 @@ import org.apache.hop.core.Const;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.database.Database;
-import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
@@ -32,11 +31,27 @@ import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.EngineMetric;
+import org.apache.hop.pipeline.engine.IEngineMetric;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.tableinput.TableInputMeta.SplitMethod;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /** Reads information from a database table by using freehand SQL */
 public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
@@ -91,6 +106,10 @@ public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
 
   @Override
   public boolean processRow() throws HopException {
+    if (data.readers != null) {
+      return passReaderRow();
+    }
+
     if (first) { // we just got started
 
       Object[] parameters;
@@ -139,6 +158,12 @@ public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
         return false; // stop immediately, nothing to do here.
       }
 
+      int parallelReads = getParallelReads();
+      if (parallelReads > 0 && getTransformMeta().getCopies(this) * parallelReads > 1) {
+        startReaders(parametersMeta, parameters, parallelReads);
+        return true;
+      }
+
       boolean success = doQuery(parametersMeta, parameters);
       if (!success) {
         return false;
@@ -226,12 +251,7 @@ public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
     boolean success = true;
 
     // Open the query with the optional parameters received from the source transforms.
-    String sql = null;
-    if (meta.isVariableReplacementActive()) {
-      sql = resolve(meta.getSql());
-    } else {
-      sql = meta.getSql();
-    }
+    String sql = getSql();
 
     if (log.isDetailed()) {
       logDetailed("SQL query : " + sql);
@@ -270,11 +290,439 @@ public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
     return success;
   }
 
+  private String getSql() {
+    if (meta.isVariableReplacementActive()) {
+      return resolve(meta.getSql());
+    }
+    return meta.getSql();
+  }
+
+  /**
+   * Get the number of parts this copy of the transform reads in parallel, each over a separate
+   * connection. The query is split in this number of parts for every copy.
+   *
+   * @return the number of parallel reads or 0 if the query isn't split
+   */
+  private int getParallelReads() {
+    if (meta.getSplitMethod() == null || meta.getSplitMethod() == SplitMethod.NONE) {
+      return 0;
+    }
+    if (meta.isExecuteEachInputRow()) {
+      logBasic(BaseMessages.getString(PKG, "TableInput.Log.SplitEachRow"));
+      return 0;
+    }
+    if (Const.toInt(resolve(meta.getRowLimit()), 0) > 0) {
+      // Every part would read up to the limit, read the query over a single connection instead
+      //
+      logBasic(BaseMessages.getString(PKG, "TableInput.Log.SplitRowLimit"));
+      return 0;
+    }
+    int parallelReads = Math.max(1, Const.toInt(resolve(meta.getParallelReads()), 1));
+    if (parallelReads > 1 && !Utils.isEmpty(data.db.getConnectionGroup())) {
+      // All the transforms share one connection, we can only read one part at a time
+      //
+      logBasic(
+          BaseMessages.getString(
+              PKG,
+              "TableInput.Log.ParallelReadsUniqueConnections",
+              Integer.toString(parallelReads)));
+      return 1;
+    }
+    return parallelReads;
+  }
+
+  /**
+   * Split the query in parts on the split field and start reading the parts of this copy. The
+   * first reader uses the connection of the transform, the others open their own.
+   */
+  private void startReaders(IRowMeta parametersMeta, Object[] parameters, int parallelReads)
+      throws HopException {
+    String sql = getSql().trim();
+    while (sql.endsWith(";")) {
+      sql = sql.substring(0, sql.length() - 1).trim();
+    }
+    String field = data.databaseMeta.quoteField(resolve(meta.getSplitField()));
+    int parts = getTransformMeta().getCopies(this) * parallelReads;
+    int firstPart = getCopy() * parallelReads;
+
+    String hash = null;
+    if (meta.getSplitMethod() == SplitMethod.HASH) {
+      hash = data.databaseMeta.getSqlHashExpression(field);
+      if (hash == null) {
+        // The database has no hash function, the value itself is used as the hash
+        //
+        checkHashSplitField(field, sql, parametersMeta, parameters);
+        hash = field;
+      }
+    }
+
+    IValueMeta boundaryMeta = null;
+    Object[] boundaries = null;
+    if (meta.getSplitMethod() == SplitMethod.RANGE) {
+      String rangeSql =
+          "SELECT MIN("
+              + field
+              + "), MAX("
+              + field
+              + ") FROM ("
+              + Const.CR
+              + sql
+              + Const.CR
+              + ") hop_split";
+      ResultSet rs = openQuery(rangeSql, parametersMeta, parameters);
+      try {
+        Object[] range = data.db.getRow(rs);
+        IValueMeta rangeMeta = data.db.getReturnRowMeta().getValueMeta(0);
+        if (range != null && range[0] != null && range[1] != null) {
+          boundaryMeta = rangeMeta.clone();
+          boundaries = getRangeBoundaries(field, rangeMeta, range[0], range[1], parts);
+        }
+      } finally {
+        data.db.closeQuery(rs);
+      }
+    }
+
+    data.readerRows = new ArrayBlockingQueue<>(Const.ROWS_IN_ROWSET);
+    data.readers = new ArrayList<>();
+    for (int i = 0; i < parallelReads; i++) {
+      int part = firstPart + i;
+
+      IRowMeta partParametersMeta = parametersMeta.clone();
+      Object[] partParameters = parameters;
+      List<String> conditions = new ArrayList<>();
+      if (meta.getSplitMethod() == SplitMethod.HASH) {
+        conditions.add(
+            data.databaseMeta.getSqlModulo("ABS(" + hash + ")", Integer.toString(parts))
+                + " = "
+                + part);
+      } else if (boundaries != null) {
+        if (part > 0) {
+          conditions.add(field + " >= ?");
+          partParametersMeta.addValueMeta(renameValueMeta(boundaryMeta, "split_lower"));
+          partParameters =
+              RowDataUtil.addValueData(
+                  partParameters, partParametersMeta.size() - 1, boundaries[part]);
+        }
+        if (part < parts - 1) {
+          conditions.add(field + " < ?");
+          partParametersMeta.addValueMeta(renameValueMeta(boundaryMeta, "split_upper"));
+          partParameters =
+              RowDataUtil.addValueData(
+                  partParameters, partParametersMeta.size() - 1, boundaries[part + 1]);
+        }
+      } else if (part > 0) {
+        // There are no values to split on, the first part reads everything
+        //
+        continue;
+      }
+
+      String partSql = sql;
+      if (!conditions.isEmpty()) {
+        String condition = String.join(" AND ", conditions);
+        if (part == 0) {
+          // Rows without a value in the split field are read with the first part
+          //
+          condition = "(" + condition + ") OR " + field + " IS NULL";
+        }
+        partSql = "SELECT * FROM (" + Const.CR + sql + Const.CR + ") hop_split WHERE " + condition;
+      }
+
+      Database db = i == 0 ? data.db : connect();
+      data.readers.add(
+          new TableInputReader(
+              i + 1,
+              log,
+              db,
+              partSql,
+              partParametersMeta.isEmpty() ? null : partParametersMeta,
+              partParametersMeta.isEmpty() ? null : partParameters,
+              data.readerRows));
+    }
+
+    if (log.isBasic()) {
+      logBasic(
+          BaseMessages.getString(
+              PKG,
+              "TableInput.Log.ParallelReads",
+              Integer.toString(data.readers.size()),
+              Integer.toString(parts),
+              meta.getSplitMethod().getDescription(),
+              resolve(meta.getSplitField())));
+    }
+
+    data.activeReaders = data.readers.size();
+    if (data.readers.isEmpty()) {
+      return;
+    }
+    data.readerService =
+        Executors.newFixedThreadPool(
+            data.readers.size(),
+            runnable -> {
+              Thread thread = new Thread(runnable, getTransformName() + " - table reader");
+              thread.setDaemon(true);
+              return thread;
+            });
+    for (TableInputReader reader : data.readers) {
+      data.readerService.submit(reader);
+    }
+  }
+
+  /**
+   * Without a hash function the split field is used as the hash, only integers have a modulo on
+   * all databases.
+   */
+  private void checkHashSplitField(
+      String field, String sql, IRowMeta parametersMeta, Object[] parameters)
+      throws HopException {
+    String fieldSql = "SELECT " + field + " FROM (" + Const.CR + sql + Const.CR + ") hop_split";
+    IRowMeta fieldMeta =
+        data.db.getQueryFields(fieldSql, !parametersMeta.isEmpty(), parametersMeta, parameters);
+    if (fieldMeta == null || fieldMeta.isEmpty()) {
+      return;
+    }
+    IValueMeta valueMeta = fieldMeta.getValueMeta(0);
+    if (valueMeta.getType() != IValueMeta.TYPE_INTEGER) {
+      throw new HopException(
+          BaseMessages.getString(
+              PKG,
+              "TableInput.Exception.HashSplitType",
+              resolve(meta.getSplitField()),
+              valueMeta.getTypeDesc(),
+              data.databaseMeta.getPluginName()));
+    }
+  }
+
+  private ResultSet openQuery(String sql, IRowMeta parametersMeta, Object[] parameters)
+      throws HopDatabaseException {
+    if (log.isDetailed()) {
+      logDetailed("SQL query : " + sql);
+    }
+    ResultSet rs;
+    if (parametersMeta.isEmpty()) {
+      rs = data.db.openQuery(sql, null, null, ResultSet.FETCH_FORWARD, false);
+    } else {
+      rs = data.db.openQuery(sql, parametersMeta, parameters, ResultSet.FETCH_FORWARD, false);
+    }
+    if (rs == null) {
+      throw new HopDatabaseException("Couldn't open Query [" + sql + "]");
+    }
+    return rs;
+  }
+
+  private static IValueMeta renameValueMeta(IValueMeta valueMeta, String name) {
+    IValueMeta renamed = valueMeta.clone();
+    renamed.setName(name);
+    return renamed;
+  }
+
+  /**
+   * Divide the range of values of the split field in equal parts. Rows with a value in [
+   * boundaries[k], boundaries[k+1] ) belong to part k, the first and last part are open ended.
+   *
+   * @return the boundaries, the lower boundary of part k is at index k
+   */
+  static Object[] getRangeBoundaries(
+      String field, IValueMeta valueMeta, Object min, Object max, int parts) throws HopException {
+    Object[] boundaries = new Object[parts + 1];
+    switch (valueMeta.getType()) {
+      case IValueMeta.TYPE_INTEGER:
+        {
+          long low = valueMeta.getInteger(min);
+          long high = valueMeta.getInteger(max);
+          for (int k = 1; k < parts; k++) {
+            boundaries[k] = getBoundary(low, high, k, parts);
+          }
+          break;
+        }
+      case IValueMeta.TYPE_DATE:
+      case IValueMeta.TYPE_TIMESTAMP:
+        {
+          long low = valueMeta.getDate(min).getTime();
+          long high = valueMeta.getDate(max).getTime();
+          for (int k = 1; k < parts; k++) {
+            long boundary = getBoundary(low, high, k, parts);
+            boundaries[k] =
+                valueMeta.getType() == IValueMeta.TYPE_TIMESTAMP
+                    ? new Timestamp(boundary)
+                    : new Date(boundary);
+          }
+          break;
+        }
+      case IValueMeta.TYPE_NUMBER:
+      case IValueMeta.TYPE_BIGNUMBER:
+        {
+          BigDecimal low = valueMeta.getBigNumber(min);
+          BigDecimal size = valueMeta.getBigNumber(max).subtract(low);
+          for (int k = 1; k < parts; k++) {
+            BigDecimal boundary =
+                low.add(
+                    size.multiply(BigDecimal.valueOf(k))
+                        .divide(BigDecimal.valueOf(parts), MathContext.DECIMAL128));
+            boundaries[k] =
+                valueMeta.getType() == IValueMeta.TYPE_NUMBER ? boundary.doubleValue() : boundary;
+          }
+          break;
+        }
+      default:
+        throw new HopException(
+            BaseMessages.getString(
+                PKG, "TableInput.Exception.RangeSplitType", field, valueMeta.getTypeDesc()));
+    }
+    return boundaries;
+  }
+
+  /** @return low + (high - low + 1) * k / parts without overflowing */
+  static long getBoundary(long low, long high, int k, int parts) {
+    BigInteger size =
+        BigInteger.valueOf(high).subtract(BigInteger.valueOf(low)).add(BigInteger.ONE);
+    return BigInteger.valueOf(low)
+        .add(size.multiply(BigInteger.valueOf(k)).divide(BigInteger.valueOf(parts)))
+        .longValue();
+  }
+
+  /**
+   * Pass on the next row read by the readers.
+   *
+   * @return false when all the readers are done or the transform is stopped
+   */
+  private boolean passReaderRow() throws HopException {
+    Object[] row = null;
+    while (row == null) {
+      if (data.activeReaders == 0) {
+        setOutputDone();
+        return false;
+      }
+      if (isStopped()) {
+        return false;
+      }
+      try {
+        row = data.readerRows.poll(100, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      if (row == TableInputReader.END_OF_ROWS) {
+        data.activeReaders--;
+        for (TableInputReader reader : data.readers) {
+          if (reader.getError() != null) {
+            throw new HopException(
+                BaseMessages.getString(
+                    PKG, "TableInput.Exception.ReaderFailed", Integer.toString(reader.getNumber())),
+                reader.getError());
+          }
+        }
+        row = null;
+      }
+    }
+
+    if (data.rowMeta == null) {
+      data.rowMeta = getReaderRowMeta();
+    }
+    incrementLinesInput();
+    putRow(data.rowMeta, row);
+
+    if (checkFeedback(getLinesInput())) {
+      if (log.isBasic()) {
+        logBasic("linenr " + getLinesInput());
+      }
+    }
+    return true;
+  }
+
+  /** All readers read the same fields, take them from the first one which opened its query */
+  private IRowMeta getReaderRowMeta() {
+    for (TableInputReader reader : data.readers) {
+      IRowMeta rowMeta = reader.getRowMeta();
+      if (rowMeta != null) {
+        rowMeta = rowMeta.clone();
+        for (IValueMeta valueMeta : rowMeta.getValueMetaList()) {
+          valueMeta.setOrigin(getTransformName());
+        }
+        return rowMeta;
+      }
+    }
+    return null;
+  }
+
+  private void stopReaders() {
+    for (TableInputReader reader : data.readers) {
+      if (!reader.isFinished()) {
+        try {
+          reader.stop();
+        } catch (HopException e) {
+          logError("Unable to cancel the query of reader #" + reader.getNumber(), e);
+        }
+      }
+    }
+    if (data.readerService != null) {
+      data.readerService.shutdownNow();
+      try {
+        // Let the readers finish their database calls before we close the connections
+        //
+        if (!data.readerService.awaitTermination(1, TimeUnit.MINUTES)) {
+          logError("The reader connections didn't stop in time");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    for (TableInputReader reader : data.readers) {
+      if (log.isBasic()) {
+        logBasic(
+            BaseMessages.getString(
+                PKG,
+                "TableInput.Log.ReaderThroughput",
+                Integer.toString(reader.getNumber()),
+                Long.toString(reader.getRowsRead()),
+                Long.toString(reader.getRowsPerSecond())));
+      }
+      if (reader.getDb() != data.db) {
+        reader.getDb().disconnect();
+      }
+    }
+    data.readers = null;
+    data.readerService = null;
+    data.readerRows = null;
+  }
+
+  @Override
+  public Map<IEngineMetric, Long> getComponentMetrics() {
+    List<TableInputReader> readers = data.readers;
+    if (readers == null) {
+      return Collections.emptyMap();
+    }
+    Map<IEngineMetric, Long> metrics = new HashMap<>();
+    for (TableInputReader reader : readers) {
+      int nr = reader.getNumber();
+      metrics.put(
+          new EngineMetric(
+              "reader_" + nr + "_rows",
+              "Reader " + nr + " rows",
+              "The number of rows read by reader connection #" + nr,
+              EngineMetric.getNumberedDisplayPriority("12", nr),
+              true),
+          reader.getRowsRead());
+      metrics.put(
+          new EngineMetric(
+              "reader_" + nr + "_rows_per_second",
+              "Reader " + nr + " rows/s",
+              "The number of rows read per second by reader connection #" + nr,
+              EngineMetric.getNumberedDisplayPriority("13", nr),
+              true),
+          reader.getRowsPerSecond());
+    }
+    return metrics;
+  }
+
   @Override
   public void dispose() {
     if (log.isBasic()) {
       logBasic("Finished reading query, closing connection.");
     }
+    if (data.readers != null) {
+      stopReaders();
+    }
     try {
       closePreviousQuery();
     } catch (HopException e) {
@@ -300,12 +748,26 @@ public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
 
     setStopped(true);
 
+    List<TableInputReader> readers = data.readers;
+    if (readers != null) {
+      for (TableInputReader reader : readers) {
+        reader.stop();
+      }
+      data.isCanceled = true;
+    }
+
     if (data.db != null && data.db.getConnection() != null && !data.isCanceled) {
       data.db.cancelQuery();
       data.isCanceled = true;
     }
   }
 
+  /** Reading the query waits on the database */
+  @Override
+  public boolean isBlockingProcessRow() {
+    return true;
+  }
+
   @Override
   public boolean init() {
 
@@ -322,6 +784,12 @@ public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
         logError(BaseMessages.getString(PKG, "TableInput.Exception.DatabaseConnectionsIsNeeded"));
         passed = false;
       }
+      if (meta.getSplitMethod() != null
+          && meta.getSplitMethod() != SplitMethod.NONE
+          && Utils.isEmpty(meta.getSplitField())) {
+        logError(BaseMessages.getString(PKG, "TableInput.Exception.SplitFieldIsNeeded"));
+        passed = false;
+      }
       if (!passed) {
         return false;
       }
@@ -332,16 +800,10 @@ public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
         data.infoStream.setSubject(meta.getLookup());
       }
 
-      DatabaseMeta databaseMeta = getPipelineMeta().findDatabase(meta.getConnection(), variables);
-
-      data.db = new Database(this, this, databaseMeta);
-      data.db.setQueryLimit(Const.toInt(resolve(meta.getRowLimit()), 0));
+      data.databaseMeta = getPipelineMeta().findDatabase(meta.getConnection(), variables);
 
       try {
-        data.db.connect();
-        if (databaseMeta.isRequiringTransactionsOnQueries()) {
-          data.db.setCommit(100); // needed for PGSQL it seems...
-        }
+        data.db = connect();
         if (log.isDetailed()) {
           logDetailed("Connected to database...");
         }
@@ -357,6 +819,16 @@ public class TableInput extends BaseTransform<TableInputMeta, TableInputData> {
     return false;
   }
 
+  Database connect() throws HopException {
+    Database db = new Database(this, this, data.databaseMeta);
+    db.setQueryLimit(Const.toInt(resolve(meta.getRowLimit()), 0));
+    db.connect();
+    if (data.databaseMeta.isRequiringTransactionsOnQueries()) {
+      db.setCommit(100); // needed for PGSQL it seems...
+    }
+    return db;
+  }
+
   public boolean isWaitingForData() {
     return true;
   }
@@ -19,12 +19,16 @@ package org.apache.hop.pipeline.transforms.tableinput;
 
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.database.Database;
+import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 import org.apache.hop.pipeline.transform.stream.IStream;
 
 import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 
 public class TableInputData extends BaseTransformData implements ITransformData {
   public Object[] nextrow;
@@ -36,6 +40,18 @@ public class TableInputData extends BaseTransformData implements ITransformData
   public IRowSet rowSet;
   public boolean isCanceled;
   public IStream infoStream;
+  public DatabaseMeta databaseMeta;
+
+  /** The readers of the parallel read mode, null when the query is read by the transform */
+  public List<TableInputReader> readers;
+
+  public ExecutorService readerService;
+
+  /** The rows read by the readers, waiting to be passed on */
+  public BlockingQueue<Object[]> readerRows;
+
+  /** The number of readers which didn't finish yet */
+  public int activeReaders;
 
   public TableInputData() {
     super();
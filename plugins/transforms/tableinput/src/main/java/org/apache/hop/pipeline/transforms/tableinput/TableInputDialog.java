@@ -69,6 +69,14 @@ public class TableInputDialog extends BaseTransformDialog implements ITransformD
 
   private Button wVariables;
 
+  private CCombo wSplitMethod;
+
+  private Label wlSplitField;
+  private TextVar wSplitField;
+
+  private Label wlParallelReads;
+  private TextVar wParallelReads;
+
   private final TableInputMeta input;
 
   private Label wlPosition;
@@ -136,6 +144,70 @@ public class TableInputDialog extends BaseTransformDialog implements ITransformD
 
     setButtonPositions(new Button[] {wOk, wPreview, wCancel}, margin, null);
 
+    // The number of parts to read in parallel
+    //
+    wlParallelReads = new Label(shell, SWT.RIGHT);
+    wlParallelReads.setText(BaseMessages.getString(PKG, "TableInputDialog.ParallelReads"));
+    wlParallelReads.setToolTipText(
+        BaseMessages.getString(PKG, "TableInputDialog.ParallelReads.Tooltip"));
+    props.setLook(wlParallelReads);
+    FormData fdlParallelReads = new FormData();
+    fdlParallelReads.left = new FormAttachment(0, 0);
+    fdlParallelReads.right = new FormAttachment(middle, -margin);
+    fdlParallelReads.bottom = new FormAttachment(wOk, -2 * margin);
+    wlParallelReads.setLayoutData(fdlParallelReads);
+    wParallelReads = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wParallelReads.setToolTipText(
+        BaseMessages.getString(PKG, "TableInputDialog.ParallelReads.Tooltip"));
+    props.setLook(wParallelReads);
+    wParallelReads.addModifyListener(lsMod);
+    FormData fdParallelReads = new FormData();
+    fdParallelReads.left = new FormAttachment(middle, 0);
+    fdParallelReads.right = new FormAttachment(100, 0);
+    fdParallelReads.bottom = new FormAttachment(wlParallelReads, 0, SWT.CENTER);
+    wParallelReads.setLayoutData(fdParallelReads);
+
+    // The field to split the query on
+    //
+    wlSplitField = new Label(shell, SWT.RIGHT);
+    wlSplitField.setText(BaseMessages.getString(PKG, "TableInputDialog.SplitField"));
+    props.setLook(wlSplitField);
+    FormData fdlSplitField = new FormData();
+    fdlSplitField.left = new FormAttachment(0, 0);
+    fdlSplitField.right = new FormAttachment(middle, -margin);
+    fdlSplitField.bottom = new FormAttachment(wlParallelReads, -margin);
+    wlSplitField.setLayoutData(fdlSplitField);
+    wSplitField = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wSplitField);
+    wSplitField.addModifyListener(lsMod);
+    FormData fdSplitField = new FormData();
+    fdSplitField.left = new FormAttachment(middle, 0);
+    fdSplitField.right = new FormAttachment(100, 0);
+    fdSplitField.bottom = new FormAttachment(wlSplitField, 0, SWT.CENTER);
+    wSplitField.setLayoutData(fdSplitField);
+
+    // The way to split the query in parts
+    //
+    Label wlSplitMethod = new Label(shell, SWT.RIGHT);
+    wlSplitMethod.setText(BaseMessages.getString(PKG, "TableInputDialog.SplitMethod"));
+    wlSplitMethod.setToolTipText(
+        BaseMessages.getString(PKG, "TableInputDialog.SplitMethod.Tooltip"));
+    props.setLook(wlSplitMethod);
+    FormData fdlSplitMethod = new FormData();
+    fdlSplitMethod.left = new FormAttachment(0, 0);
+    fdlSplitMethod.right = new FormAttachment(middle, -margin);
+    fdlSplitMethod.bottom = new FormAttachment(wlSplitField, -margin);
+    wlSplitMethod.setLayoutData(fdlSplitMethod);
+    wSplitMethod = new CCombo(shell, SWT.SINGLE | SWT.READ_ONLY | SWT.BORDER);
+    wSplitMethod.setItems(TableInputMeta.SplitMethod.getDescriptions());
+    props.setLook(wSplitMethod);
+    wSplitMethod.addModifyListener(lsMod);
+    FormData fdSplitMethod = new FormData();
+    fdSplitMethod.left = new FormAttachment(middle, 0);
+    fdSplitMethod.right = new FormAttachment(100, 0);
+    fdSplitMethod.bottom = new FormAttachment(wlSplitMethod, 0, SWT.CENTER);
+    wSplitMethod.setLayoutData(fdSplitMethod);
+
     // Limit input ...
     Label wlLimit = new Label(shell, SWT.RIGHT);
     wlLimit.setText(BaseMessages.getString(PKG, "TableInputDialog.LimitSize"));
@@ -143,7 +215,7 @@ public class TableInputDialog extends BaseTransformDialog implements ITransformD
     FormData fdlLimit = new FormData();
     fdlLimit.left = new FormAttachment(0, 0);
     fdlLimit.right = new FormAttachment(middle, -margin);
-    fdlLimit.bottom = new FormAttachment(wOk, -2 * margin);
+    fdlLimit.bottom = new FormAttachment(wlSplitMethod, -margin);
     wlLimit.setLayoutData(fdlLimit);
     wLimit = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
     props.setLook(wLimit);
@@ -321,6 +393,8 @@ public class TableInputDialog extends BaseTransformDialog implements ITransformD
     wbTable.addListener(SWT.Selection, e -> getSql());
     wDataFrom.addListener(SWT.Selection, e -> setFlags());
     wDataFrom.addListener(SWT.FocusOut, e -> setFlags());
+    wSplitMethod.addListener(SWT.Selection, e -> setFlags());
+    wEachRow.addListener(SWT.Selection, e -> setFlags());
 
     getData();
     input.setChanged(changed);
@@ -358,6 +432,13 @@ public class TableInputDialog extends BaseTransformDialog implements ITransformD
     wDataFrom.setText(Const.NVL(input.getLookup(), ""));
     wEachRow.setSelection(input.isExecuteEachInputRow());
     wVariables.setSelection(input.isVariableReplacementActive());
+    TableInputMeta.SplitMethod splitMethod = input.getSplitMethod();
+    if (splitMethod == null) {
+      splitMethod = TableInputMeta.SplitMethod.NONE;
+    }
+    wSplitMethod.setText(splitMethod.getDescription());
+    wSplitField.setText(Const.NVL(input.getSplitField(), ""));
+    wParallelReads.setText(Const.NVL(input.getParallelReads(), ""));
 
     setSqlToolTip();
     setFlags();
@@ -385,6 +466,10 @@ public class TableInputDialog extends BaseTransformDialog implements ITransformD
     meta.setExecuteEachInputRow(wEachRow.getSelection());
     meta.setVariableReplacementActive(wVariables.getSelection());
     meta.setLookup(wDataFrom.getText());
+    meta.setSplitMethod(
+        TableInputMeta.SplitMethod.getMethodFromDescription(wSplitMethod.getText()));
+    meta.setSplitField(wSplitField.getText());
+    meta.setParallelReads(wParallelReads.getText());
     
     // Force recreate TransformIOMeta and update info stream
     meta.resetTransformIoMeta();
@@ -511,6 +596,17 @@ public class TableInputDialog extends BaseTransformDialog implements ITransformD
       // The preview button...
       wPreview.setEnabled(true);
     }
+
+    // The query isn't split when it's executed for each row
+    //
+    boolean split =
+        !wEachRow.getSelection()
+            && TableInputMeta.SplitMethod.getMethodFromDescription(wSplitMethod.getText())
+                != TableInputMeta.SplitMethod.NONE;
+    wlSplitField.setEnabled(split);
+    wSplitField.setEnabled(split);
+    wlParallelReads.setEnabled(split);
+    wParallelReads.setEnabled(split);
   }
 
   /**
@@ -35,6 +35,7 @@ import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.metadata.api.HopMetadataProperty;
+import org.apache.hop.metadata.api.IEnumHasCode;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
 import org.apache.hop.pipeline.DatabaseImpact;
 import org.apache.hop.pipeline.PipelineMeta;
@@ -63,6 +64,58 @@ public class TableInputMeta extends BaseTransformMeta<TableInput, TableInputData
 
   private static final Class<?> PKG = TableInputMeta.class; // For Translator
 
+  /** The ways to split the query in parts which are read in parallel */
+  public enum SplitMethod implements IEnumHasCode {
+    NONE("NONE", BaseMessages.getString(PKG, "TableInputMeta.SplitMethod.None")),
+    RANGE("RANGE", BaseMessages.getString(PKG, "TableInputMeta.SplitMethod.Range")),
+    HASH("HASH", BaseMessages.getString(PKG, "TableInputMeta.SplitMethod.Hash")),
+    ;
+
+    private String code;
+    private String description;
+
+    SplitMethod(String code, String description) {
+      this.code = code;
+      this.description = description;
+    }
+
+    public static final SplitMethod getMethodFromDescription(String description) {
+      for (SplitMethod method : values()) {
+        if (method.description.equals(description)) {
+          return method;
+        }
+      }
+      return NONE;
+    }
+
+    public static final String[] getDescriptions() {
+      String[] descriptions = new String[values().length];
+      for (int i = 0; i < values().length; i++) {
+        descriptions[i] = values()[i].description;
+      }
+      return descriptions;
+    }
+
+    /**
+     * Gets code
+     *
+     * @return value of code
+     */
+    @Override
+    public String getCode() {
+      return code;
+    }
+
+    /**
+     * Gets description
+     *
+     * @return value of description
+     */
+    public String getDescription() {
+      return description;
+    }
+  }
+
   @HopMetadataProperty(key = "sql", injectionKey = "SQL")
   private String sql;
 
@@ -81,8 +134,21 @@ public class TableInputMeta extends BaseTransformMeta<TableInput, TableInputData
 
   @HopMetadataProperty private String lookup;
 
+  /** The way the query is split in parts which are read in parallel */
+  @HopMetadataProperty(key = "split_method", storeWithCode = true, injectionKey = "SPLIT_METHOD")
+  private SplitMethod splitMethod;
+
+  /** The field of the query to split on */
+  @HopMetadataProperty(key = "split_field", injectionKey = "SPLIT_FIELD")
+  private String splitField;
+
+  /** The number of parts every copy of the transform reads in parallel, each over a connection */
+  @HopMetadataProperty(key = "parallel_reads", injectionKey = "PARALLEL_READS")
+  private String parallelReads;
+
   public TableInputMeta() {
     super();
+    splitMethod = SplitMethod.NONE;
   }
 
   /** @return Returns true if the transform should be run per row */
@@ -131,6 +197,48 @@ public class TableInputMeta extends BaseTransformMeta<TableInput, TableInputData
     this.lookup = lookup;
   }
 
+  /**
+   * Gets splitMethod
+   *
+   * @return value of splitMethod
+   */
+  public SplitMethod getSplitMethod() {
+    return splitMethod;
+  }
+
+  /** @param splitMethod The splitMethod to set */
+  public void setSplitMethod(SplitMethod splitMethod) {
+    this.splitMethod = splitMethod;
+  }
+
+  /**
+   * Gets splitField
+   *
+   * @return value of splitField
+   */
+  public String getSplitField() {
+    return splitField;
+  }
+
+  /** @param splitField The splitField to set */
+  public void setSplitField(String splitField) {
+    this.splitField = splitField;
+  }
+
+  /**
+   * Gets parallelReads
+   *
+   * @return value of parallelReads
+   */
+  public String getParallelReads() {
+    return parallelReads;
+  }
+
+  /** @param parallelReads The parallelReads to set */
+  public void setParallelReads(String parallelReads) {
+    this.parallelReads = parallelReads;
+  }
+
   @Override
   public Object clone() {
     TableInputMeta retval = (TableInputMeta) super.clone();
@@ -141,6 +249,8 @@ public class TableInputMeta extends BaseTransformMeta<TableInput, TableInputData
   public void setDefault() {
     sql = "SELECT <values> FROM <table name> WHERE <conditions>";
     rowLimit = "0";
+    splitMethod = SplitMethod.NONE;
+    parallelReads = "1";
   }
 
   @Override
@@ -319,6 +429,33 @@ public class TableInputMeta extends BaseTransformMeta<TableInput, TableInputData
       remarks.add(cr);
     }
 
+    if (splitMethod != null && splitMethod != SplitMethod.NONE) {
+      if (Utils.isEmpty(splitField)) {
+        cr =
+            new CheckResult(
+                ICheckResult.TYPE_RESULT_ERROR,
+                BaseMessages.getString(PKG, "TableInputMeta.CheckResult.SplitFieldMissing"),
+                transformMeta);
+        remarks.add(cr);
+      }
+      if (executeEachInputRow) {
+        cr =
+            new CheckResult(
+                ICheckResult.TYPE_RESULT_WARNING,
+                BaseMessages.getString(PKG, "TableInputMeta.CheckResult.SplitEachRow"),
+                transformMeta);
+        remarks.add(cr);
+      }
+      if (Const.toInt(variables.resolve(rowLimit), 0) > 0) {
+        cr =
+            new CheckResult(
+                ICheckResult.TYPE_RESULT_WARNING,
+                BaseMessages.getString(PKG, "TableInputMeta.CheckResult.SplitRowLimit"),
+                transformMeta);
+        remarks.add(cr);
+      }
+    }
+
     // See if we have an informative transform...
     IStream infoStream = getTransformIOMeta().getInfoStreams().get(0);
     if (!Utils.isEmpty(infoStream.getTransformName())) {
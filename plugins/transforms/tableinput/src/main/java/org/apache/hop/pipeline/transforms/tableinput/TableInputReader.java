@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.tableinput;
+
+import org.apache.hop.core.database.Database;
+import org.apache.hop.core.exception.HopDatabaseException;
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.sql.ResultSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads one part of a split query over its own connection and hands the rows to the Table Input
+ * transform. In the parallel read mode a few of these readers fill the same queue of rows which
+ * the transform passes on.
+ *
+ * <p>A reader always ends by putting {@link #END_OF_ROWS} in the queue, unless it was stopped.
+ */
+public class TableInputReader implements Runnable {
+
+  /** Marks the end of the rows of a reader in the queue */
+  public static final Object[] END_OF_ROWS = new Object[0];
+
+  private final int number;
+  private final ILogChannel log;
+  private final Database db;
+  private final String sql;
+  private final IRowMeta parametersMeta;
+  private final Object[] parameters;
+  private final BlockingQueue<Object[]> rows;
+
+  private volatile boolean stopped;
+  private volatile IRowMeta rowMeta;
+  private volatile Exception error;
+
+  private final AtomicLong rowsRead;
+  private volatile long startNanos;
+  private volatile long endNanos;
+
+  /**
+   * @param number The number of the reader, starting at 1
+   * @param log The log channel to use
+   * @param db The connected database, not used by anyone else while reading
+   * @param sql The query reading this part
+   * @param parametersMeta The layout of the query parameters or null if there are none
+   * @param parameters The query parameters or null if there are none
+   * @param rows The queue to put the rows in
+   */
+  public TableInputReader(
+      int number,
+      ILogChannel log,
+      Database db,
+      String sql,
+      IRowMeta parametersMeta,
+      Object[] parameters,
+      BlockingQueue<Object[]> rows) {
+    this.number = number;
+    this.log = log;
+    this.db = db;
+    this.sql = sql;
+    this.parametersMeta = parametersMeta;
+    this.parameters = parameters;
+    this.rows = rows;
+    this.rowsRead = new AtomicLong();
+  }
+
+  @Override
+  public void run() {
+    startNanos = System.nanoTime();
+    ResultSet rs = null;
+    try {
+      if (log.isDetailed()) {
+        log.logDetailed("Reader #" + number + " SQL query : " + sql);
+      }
+      rs = db.openQuery(sql, parametersMeta, parameters, ResultSet.FETCH_FORWARD, false);
+      rowMeta = db.getReturnRowMeta();
+
+      Object[] row = db.getRow(rs);
+      while (row != null && put(row)) {
+        rowsRead.incrementAndGet();
+        row = db.getRow(rs);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      // Reading fails after the query was canceled, that's expected
+      //
+      if (!stopped) {
+        error = e;
+      }
+    } finally {
+      try {
+        if (rs != null) {
+          db.closeQuery(rs);
+        }
+      } catch (HopDatabaseException e) {
+        if (error == null && !stopped) {
+          error = e;
+        }
+      }
+      endNanos = System.nanoTime();
+      try {
+        put(END_OF_ROWS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Put a row in the queue, waiting for room as long as we're not stopped.
+   *
+   * @return false if the reader was stopped before the row could be queued
+   */
+  private boolean put(Object[] row) throws InterruptedException {
+    while (!stopped) {
+      if (rows.offer(row, 100, TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Stop reading and cancel the running query.
+   *
+   * @throws HopDatabaseException In case the query can't be canceled
+   */
+  public void stop() throws HopDatabaseException {
+    stopped = true;
+    if (db.getConnection() != null) {
+      db.cancelQuery();
+    }
+  }
+
+  /**
+   * Gets number
+   *
+   * @return value of number
+   */
+  public int getNumber() {
+    return number;
+  }
+
+  /**
+   * Gets db
+   *
+   * @return value of db
+   */
+  public Database getDb() {
+    return db;
+  }
+
+  /**
+   * Gets rowMeta
+   *
+   * @return The layout of the rows read or null if the query isn't open yet
+   */
+  public IRowMeta getRowMeta() {
+    return rowMeta;
+  }
+
+  /** @return true if the reader is done reading, successfully or not */
+  public boolean isFinished() {
+    return endNanos != 0;
+  }
+
+  /**
+   * Gets error
+   *
+   * @return The error which stopped the reader or null if everything went fine
+   */
+  public Exception getError() {
+    return error;
+  }
+
+  /**
+   * Gets rowsRead
+   *
+   * @return The number of rows handed to the transform
+   */
+  public long getRowsRead() {
+    return rowsRead.get();
+  }
+
+  /** @return The number of rows read per second, 0 if the reader didn't start yet */
+  public long getRowsPerSecond() {
+    long start = startNanos;
+    if (start == 0) {
+      return 0;
+    }
+    long end = endNanos == 0 ? System.nanoTime() : endNanos;
+    long nanos = end - start;
+    if (nanos <= 0) {
+      return 0;
+    }
+    return (long) (rowsRead.get() * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+  }
+}
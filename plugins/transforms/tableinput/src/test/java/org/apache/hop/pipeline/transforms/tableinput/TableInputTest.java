@@ -0,0 +1,386 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.tableinput;
+
+import org.apache.hop.core.database.Database;
+import org.apache.hop.core.database.DatabaseMeta;
+import org.apache.hop.core.exception.HopDatabaseException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.stream.IStream;
+import org.apache.hop.pipeline.transforms.tableinput.TableInputMeta.SplitMethod;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class TableInputTest {
+
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  private static final String SQL = "SELECT * FROM customers";
+  private static final String RANGE_SQL = "SELECT MIN(";
+  private static final String PART_SQL = "SELECT * FROM (";
+  private static final String WHERE = " hop_split WHERE ";
+
+  private TransformMeta transformMeta;
+  private TableInputMeta meta;
+  private DatabaseMeta databaseMeta;
+  private Object[] range;
+
+  private TableInputData data;
+  private Database db;
+  private Database readerDb;
+
+  @Before
+  public void setUp() throws Exception {
+    databaseMeta = mock(DatabaseMeta.class);
+    doAnswer(invocation -> invocation.getArgument(0)).when(databaseMeta).quoteField(anyString());
+    doAnswer(
+            invocation ->
+                "MOD(" + invocation.getArgument(0) + ", " + invocation.getArgument(1) + ")")
+        .when(databaseMeta)
+        .getSqlModulo(anyString(), anyString());
+
+    meta = mock(TableInputMeta.class);
+    doReturn(SQL).when(meta).getSql();
+    doReturn("0").when(meta).getRowLimit();
+    doReturn(SplitMethod.RANGE).when(meta).getSplitMethod();
+    doReturn("id").when(meta).getSplitField();
+    doReturn("1").when(meta).getParallelReads();
+
+    transformMeta = mock(TransformMeta.class);
+    doReturn("transform").when(transformMeta).getName();
+    doReturn(meta).when(transformMeta).getTransform();
+
+    range = new Object[] {1L, 100L};
+  }
+
+  private Database createDatabase() throws Exception {
+    Database database = mock(Database.class);
+    ResultSet rangeResultSet = mock(ResultSet.class);
+    doReturn(rangeResultSet)
+        .when(database)
+        .openQuery(startsWith(RANGE_SQL), any(), any(), anyInt(), anyBoolean());
+    doReturn(range).when(database).getRow(rangeResultSet);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("min"));
+    rowMeta.addValueMeta(new ValueMetaInteger("max"));
+    doReturn(rowMeta).when(database).getReturnRowMeta();
+    return database;
+  }
+
+  /** Create copy copyNr of the transform, with fresh connections for the copy */
+  private TableInput createTableInput(int copyNr, int copies) throws Exception {
+    db = createDatabase();
+    readerDb = createDatabase();
+    data = new TableInputData();
+    data.db = db;
+    data.databaseMeta = databaseMeta;
+    data.infoStream = mock(IStream.class);
+
+    doReturn(copies).when(transformMeta).getCopies(any());
+    PipelineMeta pipelineMeta = mock(PipelineMeta.class);
+    doReturn(transformMeta).when(pipelineMeta).findTransform(anyString());
+
+    TableInput tableInput =
+        spy(
+            new TableInput(
+                transformMeta, meta, data, copyNr, pipelineMeta, spy(new LocalPipelineEngine())));
+    doReturn(transformMeta).when(tableInput).getTransformMeta();
+    doNothing().when(tableInput).putRow(any(), any());
+    doReturn(readerDb).when(tableInput).connect();
+    return tableInput;
+  }
+
+  private static void readAll(TableInput tableInput) throws Exception {
+    try {
+      int calls = 0;
+      while (tableInput.processRow()) {
+        assertTrue("The readers should finish", ++calls < 1000);
+      }
+    } finally {
+      tableInput.dispose();
+    }
+  }
+
+  /** @return the conditions of the part queries read over the connection */
+  private static List<String> getPartConditions(Database database) throws Exception {
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    verify(database, atLeast(0)).openQuery(sql.capture(), any(), any(), anyInt(), anyBoolean());
+    List<String> conditions = new ArrayList<>();
+    for (String query : sql.getAllValues()) {
+      if (query.startsWith(PART_SQL)) {
+        conditions.add(query.substring(query.indexOf(WHERE) + WHERE.length()));
+      } else if (!query.startsWith(RANGE_SQL)) {
+        conditions.add(query);
+      }
+    }
+    return conditions;
+  }
+
+  /** @return the parameters of the part query read over the connection */
+  private static Object[] getPartParameters(Database database) throws Exception {
+    ArgumentCaptor<IRowMeta> parametersMeta = ArgumentCaptor.forClass(IRowMeta.class);
+    ArgumentCaptor<Object[]> parameters = ArgumentCaptor.forClass(Object[].class);
+    verify(database)
+        .openQuery(
+            startsWith(PART_SQL),
+            parametersMeta.capture(),
+            parameters.capture(),
+            anyInt(),
+            anyBoolean());
+    return Arrays.copyOf(parameters.getValue(), parametersMeta.getValue().size());
+  }
+
+  @Test
+  public void testGetBoundary() {
+    assertEquals(25L, TableInput.getBoundary(0L, 99L, 1, 4));
+    assertEquals(75L, TableInput.getBoundary(0L, 99L, 3, 4));
+    assertEquals(-5L, TableInput.getBoundary(-10L, -1L, 1, 2));
+
+    // The size of the full range of longs doesn't fit in a long
+    //
+    assertEquals(0L, TableInput.getBoundary(Long.MIN_VALUE, Long.MAX_VALUE, 1, 2));
+    assertEquals(
+        Long.MIN_VALUE / 2, TableInput.getBoundary(Long.MIN_VALUE, Long.MAX_VALUE, 1, 4));
+    assertEquals(
+        Long.MAX_VALUE / 2 + 1, TableInput.getBoundary(Long.MIN_VALUE, Long.MAX_VALUE, 3, 4));
+  }
+
+  @Test
+  public void testRangeBoundariesInteger() throws Exception {
+    Object[] boundaries =
+        TableInput.getRangeBoundaries("id", new ValueMetaInteger("id"), 0L, 99L, 4);
+
+    assertArrayEquals(new Object[] {null, 25L, 50L, 75L, null}, boundaries);
+  }
+
+  @Test
+  public void testRangeBoundariesDate() throws Exception {
+    Object[] boundaries =
+        TableInput.getRangeBoundaries(
+            "created", new ValueMetaDate("created"), new Date(0L), new Date(3999L), 4);
+
+    assertArrayEquals(
+        new Object[] {null, new Date(1000L), new Date(2000L), new Date(3000L), null}, boundaries);
+    assertEquals(Date.class, boundaries[1].getClass());
+
+    boundaries =
+        TableInput.getRangeBoundaries(
+            "created",
+            new ValueMetaTimestamp("created"),
+            new Timestamp(0L),
+            new Timestamp(3999L),
+            4);
+    assertEquals(new Timestamp(2000L), boundaries[2]);
+    assertEquals(Timestamp.class, boundaries[2].getClass());
+  }
+
+  @Test
+  public void testRangeBoundariesNumber() throws Exception {
+    Object[] boundaries =
+        TableInput.getRangeBoundaries("amount", new ValueMetaNumber("amount"), 0.0, 1.0, 4);
+
+    assertArrayEquals(new Object[] {null, 0.25, 0.5, 0.75, null}, boundaries);
+
+    boundaries =
+        TableInput.getRangeBoundaries(
+            "amount",
+            new ValueMetaBigNumber("amount"),
+            new BigDecimal("10"),
+            new BigDecimal("20"),
+            4);
+    assertEquals(0, new BigDecimal("12.5").compareTo((BigDecimal) boundaries[1]));
+    assertEquals(0, new BigDecimal("15").compareTo((BigDecimal) boundaries[2]));
+    assertEquals(0, new BigDecimal("17.5").compareTo((BigDecimal) boundaries[3]));
+  }
+
+  @Test(expected = HopException.class)
+  public void testRangeBoundariesString() throws Exception {
+    TableInput.getRangeBoundaries("name", new ValueMetaString("name"), "a", "z", 2);
+  }
+
+  @Test
+  public void testRangePartsPerCopy() throws Exception {
+    // Every copy reads one of the 3 parts of 1..100: [1, 34), [34, 67) and [67, 100]
+    //
+    TableInput tableInput = createTableInput(0, 3);
+    readAll(tableInput);
+    assertEquals(Collections.singletonList("(id < ?) OR id IS NULL"), getPartConditions(db));
+    assertArrayEquals(new Object[] {34L}, getPartParameters(db));
+
+    tableInput = createTableInput(1, 3);
+    readAll(tableInput);
+    assertEquals(Collections.singletonList("id >= ? AND id < ?"), getPartConditions(db));
+    assertArrayEquals(new Object[] {34L, 67L}, getPartParameters(db));
+
+    tableInput = createTableInput(2, 3);
+    readAll(tableInput);
+    assertEquals(Collections.singletonList("id >= ?"), getPartConditions(db));
+    assertArrayEquals(new Object[] {67L}, getPartParameters(db));
+
+    verify(readerDb, never()).connect();
+  }
+
+  @Test
+  public void testHashPartsPerCopy() throws Exception {
+    doReturn(SplitMethod.HASH).when(meta).getSplitMethod();
+    doReturn("2").when(meta).getParallelReads();
+
+    // 2 copies with 2 parallel reads each read 4 parts
+    //
+    TableInput tableInput = createTableInput(0, 2);
+    readAll(tableInput);
+    assertEquals(
+        Collections.singletonList("(MOD(ABS(id), 4) = 0) OR id IS NULL"), getPartConditions(db));
+    assertEquals(Collections.singletonList("MOD(ABS(id), 4) = 1"), getPartConditions(readerDb));
+    verify(readerDb).disconnect();
+
+    tableInput = createTableInput(1, 2);
+    readAll(tableInput);
+    assertEquals(Collections.singletonList("MOD(ABS(id), 4) = 2"), getPartConditions(db));
+    assertEquals(Collections.singletonList("MOD(ABS(id), 4) = 3"), getPartConditions(readerDb));
+    verify(db, never()).openQuery(startsWith(RANGE_SQL), any(), any(), anyInt(), anyBoolean());
+  }
+
+  @Test
+  public void testHashExpression() throws Exception {
+    doReturn(SplitMethod.HASH).when(meta).getSplitMethod();
+    doReturn("HASH(id)").when(databaseMeta).getSqlHashExpression("id");
+
+    TableInput tableInput = createTableInput(1, 2);
+    readAll(tableInput);
+
+    assertEquals(Collections.singletonList("MOD(ABS(HASH(id)), 2) = 1"), getPartConditions(db));
+    verify(db, never()).getQueryFields(anyString(), anyBoolean(), any(), any());
+  }
+
+  @Test
+  public void testHashWithoutHashExpressionNeedsInteger() throws Exception {
+    doReturn(SplitMethod.HASH).when(meta).getSplitMethod();
+    TableInput tableInput = createTableInput(0, 2);
+    IRowMeta fieldMeta = new RowMeta();
+    fieldMeta.addValueMeta(new ValueMetaString("id"));
+    doReturn(fieldMeta)
+        .when(db)
+        .getQueryFields(startsWith("SELECT id FROM ("), eq(false), any(), any());
+
+    try {
+      tableInput.processRow();
+      fail("Splitting on the value of a string should be refused");
+    } catch (HopException e) {
+      // Expected
+    } finally {
+      tableInput.dispose();
+    }
+    assertNull(data.readers);
+    verify(db, never()).openQuery(anyString(), any(), any(), anyInt(), anyBoolean());
+  }
+
+  @Test
+  public void testRangeWithoutValues() throws Exception {
+    range = new Object[] {null, null};
+
+    // There's nothing to split on, the first copy reads the whole query
+    //
+    TableInput tableInput = createTableInput(0, 2);
+    readAll(tableInput);
+    assertEquals(Collections.singletonList(SQL), getPartConditions(db));
+
+    tableInput = createTableInput(1, 2);
+    assertTrue(tableInput.processRow());
+    assertTrue(data.readers.isEmpty());
+    assertFalse(tableInput.processRow());
+    tableInput.dispose();
+    assertEquals(Collections.emptyList(), getPartConditions(db));
+  }
+
+  @Test
+  public void testReaderErrorIsThrown() throws Exception {
+    TableInput tableInput = createTableInput(0, 2);
+    HopDatabaseException error = new HopDatabaseException("connection reset");
+    doThrow(error).when(db).openQuery(startsWith(PART_SQL), any(), any(), anyInt(), anyBoolean());
+
+    try {
+      readAll(tableInput);
+      fail("The error of the reader should be thrown by the transform");
+    } catch (HopException e) {
+      assertSame(error, e.getCause());
+    }
+  }
+
+  @Test
+  public void testNoSplitWithRowLimit() throws Exception {
+    doReturn("10").when(meta).getRowLimit();
+    TableInput tableInput = createTableInput(0, 2);
+    doReturn(mock(ResultSet.class))
+        .when(db)
+        .openQuery(eq(SQL), isNull(), isNull(), anyInt(), anyBoolean());
+
+    readAll(tableInput);
+
+    assertNull(data.readers);
+    assertEquals(Arrays.asList(SQL), getPartConditions(db));
+  }
+}
@@ -21,6 +21,7 @@ import org.apache.hop.core.Const;
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.IDatabase;
+import org.apache.hop.core.database.MultiRowInsert;
 import org.apache.hop.core.exception.HopDatabaseBatchException;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
@@ -33,14 +34,26 @@ import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.EngineMetric;
+import org.apache.hop.pipeline.engine.IEngineMetric;
 import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /** Writes rows to a database table. */
 public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData> {
@@ -65,6 +78,15 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
       if (first && meta.isTruncateTable() && !meta.isOnlyWhenHaveRows()) {
         truncateTable();
       }
+      if (data.writers != null) {
+        try {
+          flushBatches();
+        } catch (HopException e) {
+          logError("Because of an error, this transform can't continue: ", e);
+          setErrors(1);
+          stopAll();
+        }
+      }
       return false;
     }
 
@@ -111,13 +133,27 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
           }
         }
       }
+
+      // Too many fields can make it impossible to insert more than one row per statement
+      //
+      if (data.useMultiRowInsert && data.db.getMultiRowInsertSize(data.insertRowMeta) == 0) {
+        data.useMultiRowInsert = false;
+      }
     }
 
     try {
-      Object[] outputRowData = writeToTable(getInputRowMeta(), r);
-      if (outputRowData != null) {
-        putRow(data.outputRowMeta, outputRowData); // in case we want it go further...
-        incrementLinesOutput();
+      if (data.writers != null) {
+        // The writer connections insert the rows in the background
+        //
+        writeToBatch(getInputRowMeta(), r);
+      } else if (data.useMultiRowInsert) {
+        writeToMultiRowInsert(getInputRowMeta(), r);
+      } else {
+        Object[] outputRowData = writeToTable(getInputRowMeta(), r);
+        if (outputRowData != null) {
+          putRow(data.outputRowMeta, outputRowData); // in case we want it go further...
+          incrementLinesOutput();
+        }
       }
 
       if (checkFeedback(getLinesRead()) && log.isBasic()) {
@@ -144,11 +180,8 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
     }
 
     PreparedStatement insertStatement = null;
-    Object[] insertRowData;
     Object[] outputRowData = r;
 
-    String tableName = null;
-
     boolean sendToErrorRow = false;
     String errorMessage = null;
     boolean rowIsSafe = false;
@@ -157,77 +190,8 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
     boolean batchProblem = false;
     Object generatedKey = null;
 
-    if (meta.isTableNameInField()) {
-      // Cache the position of the table name field
-      if (data.indexOfTableNameField < 0) {
-        String realTablename = resolve(meta.getTableNameField());
-        data.indexOfTableNameField = rowMeta.indexOfValue(realTablename);
-        if (data.indexOfTableNameField < 0) {
-          String message = "Unable to find table name field [" + realTablename + "] in input row";
-          logError(message);
-          throw new HopTransformException(message);
-        }
-        if (!meta.isTableNameInTable() && !meta.isSpecifyFields()) {
-          data.insertRowMeta.removeValueMeta(data.indexOfTableNameField);
-        }
-      }
-      tableName = rowMeta.getString(r, data.indexOfTableNameField);
-      if (!meta.isTableNameInTable() && !meta.isSpecifyFields()) {
-        // If the name of the table should not be inserted itself, remove the table name
-        // from the input row data as well. This forcibly creates a copy of r
-        //
-        insertRowData = RowDataUtil.removeItem(rowMeta.cloneRow(r), data.indexOfTableNameField);
-      } else {
-        insertRowData = r;
-      }
-    } else if (meta.isPartitioningEnabled()
-        && (meta.isPartitioningDaily() || meta.isPartitioningMonthly())
-        && (meta.getPartitioningField() != null && meta.getPartitioningField().length() > 0)) {
-      // Initialize some stuff!
-      if (data.indexOfPartitioningField < 0) {
-        data.indexOfPartitioningField = rowMeta.indexOfValue(resolve(meta.getPartitioningField()));
-        if (data.indexOfPartitioningField < 0) {
-          throw new HopTransformException(
-              "Unable to find field [" + meta.getPartitioningField() + "] in the input row!");
-        }
-
-        if (Boolean.TRUE.equals(meta.isPartitioningDaily())) {
-          data.dateFormater = new SimpleDateFormat("yyyyMMdd");
-        } else {
-          data.dateFormater = new SimpleDateFormat("yyyyMM");
-        }
-      }
-
-      IValueMeta partitioningValue = rowMeta.getValueMeta(data.indexOfPartitioningField);
-      if (!partitioningValue.isDate() || r[data.indexOfPartitioningField] == null) {
-        throw new HopTransformException(
-            "Sorry, the partitioning field needs to contain a data value and can't be empty!");
-      }
-
-      Object partitioningValueData = rowMeta.getDate(r, data.indexOfPartitioningField);
-      tableName =
-          resolve(meta.getTableName())
-              + "_"
-              + data.dateFormater.format((Date) partitioningValueData);
-      insertRowData = r;
-    } else {
-      tableName = data.tableName;
-      insertRowData = r;
-    }
-
-    if (meta.isSpecifyFields()) {
-      //
-      // The values to insert are those in the fields sections
-      //
-      insertRowData = new Object[data.valuenrs.length];
-      for (int idx = 0; idx < data.valuenrs.length; idx++) {
-        insertRowData[idx] = r[data.valuenrs[idx]];
-      }
-    }
-
-    if (Utils.isEmpty(tableName)) {
-      throw new HopTransformException("The tablename is not defined (empty)");
-    }
+    String tableName = getTableName(rowMeta, r);
+    Object[] insertRowData = getInsertRowData(rowMeta, r);
 
     insertStatement = data.preparedStatements.get(tableName);
     if (insertStatement == null) {
@@ -427,6 +391,266 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
     return outputRowData;
   }
 
+  /**
+   * Insert a row with a multi-row insert statement. The rows are passed on after the commit which
+   * makes them safe.
+   *
+   * @param rowMeta The layout of the input row
+   * @param r The input row
+   * @throws HopException In case the rows can't be inserted
+   */
+  protected void writeToMultiRowInsert(IRowMeta rowMeta, Object[] r) throws HopException {
+    String tableName = getTableName(rowMeta, r);
+    Object[] insertRowData = getInsertRowData(rowMeta, r);
+
+    MultiRowInsert multiRowInsert = data.multiRowInserts.get(tableName);
+    if (multiRowInsert == null) {
+      multiRowInsert =
+          data.db.createMultiRowInsert(
+              resolve(meta.getSchemaName()), tableName, data.insertRowMeta);
+      if (log.isDetailed()) {
+        logDetailed(
+            "Inserting "
+                + multiRowInsert.getRowsPerStatement()
+                + " rows per statement into table "
+                + tableName);
+      }
+      data.multiRowInserts.put(tableName, multiRowInsert);
+    }
+
+    try {
+      multiRowInsert.addRow(insertRowData);
+    } catch (HopDatabaseException e) {
+      data.db.rollback();
+      throw new HopException("Error inserting rows into table [" + tableName + "]", e);
+    }
+    if (isRowLevel()) {
+      logRowlevel("Buffered row: " + data.insertRowMeta.getString(insertRowData));
+    }
+    data.batchBuffer.add(r);
+
+    data.multiRowCounter++;
+    if (data.multiRowCounter >= data.commitSize) {
+      commitMultiRowInserts();
+    }
+  }
+
+  /** Insert the rows left in the multi-row inserts, commit and pass on the inserted rows. */
+  private void commitMultiRowInserts() throws HopException {
+    try {
+      for (MultiRowInsert multiRowInsert : data.multiRowInserts.values()) {
+        multiRowInsert.flush();
+      }
+    } catch (HopDatabaseException e) {
+      data.db.rollback();
+      throw new HopException("Error inserting rows into table", e);
+    }
+    data.db.commit();
+    data.multiRowCounter = 0;
+
+    for (Object[] row : data.batchBuffer) {
+      putRow(data.outputRowMeta, row);
+      incrementLinesOutput();
+    }
+    data.batchBuffer.clear();
+  }
+
+  /**
+   * Add a row to the current batch. A full batch is handed to the next free writer connection while
+   * we continue to fill the next one.
+   *
+   * @param rowMeta The layout of the input row
+   * @param r The input row
+   * @throws HopException In case the row can't be added or a previous batch failed
+   */
+  protected void writeToBatch(IRowMeta rowMeta, Object[] r) throws HopException {
+    String tableName = getTableName(rowMeta, r);
+    Object[] insertRowData = getInsertRowData(rowMeta, r);
+    if (isRowLevel()) {
+      logRowlevel("Batched row: " + data.insertRowMeta.getString(insertRowData));
+    }
+
+    data.batch.add(tableName, insertRowData, r);
+    if (data.batch.size() >= data.commitSize) {
+      submitBatch();
+    }
+
+    // Pass on the rows of the batches which are committed, in the order we received them
+    //
+    while (!data.pendingBatches.isEmpty() && data.pendingBatches.peekFirst().isDone()) {
+      passBatch(data.pendingBatches.pollFirst());
+    }
+  }
+
+  private void submitBatch() throws HopException {
+    final TableOutputBatch batch = data.batch;
+    final IRowMeta insertRowMeta = data.insertRowMeta;
+    data.batch = new TableOutputBatch(data.commitSize);
+
+    data.pendingBatches.addLast(
+        data.writerService.submit(
+            () -> {
+              // There are as many threads as there are writers so we never wait here
+              //
+              TableOutputWriter writer = data.idleWriters.take();
+              try {
+                writer.write(insertRowMeta, batch);
+              } finally {
+                data.idleWriters.put(writer);
+              }
+              return batch;
+            }));
+
+    // Every writer works on one batch while the next one is waiting for it.
+    // Beyond that we wait for the oldest batch to limit the number of rows in memory.
+    //
+    while (data.pendingBatches.size() > 2 * data.writers.size()) {
+      passBatch(data.pendingBatches.pollFirst());
+    }
+  }
+
+  /**
+   * Wait for a batch to be written and pass on its rows, or the error rows.
+   *
+   * @param future The batch being written
+   * @throws HopException In case the batch couldn't be written
+   */
+  private void passBatch(Future<TableOutputBatch> future) throws HopException {
+    TableOutputBatch batch;
+    try {
+      batch = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException("Interrupted while waiting for a batch of rows to be written", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof HopException) {
+        throw (HopException) e.getCause();
+      }
+      throw new HopException("Unexpected error writing a batch of rows", e.getCause());
+    }
+
+    for (TableOutputBatch.Item item : batch.getItems()) {
+      if (item.isError()) {
+        putError(
+            data.outputRowMeta,
+            item.getOutputRow(),
+            1L,
+            item.getErrorDescription(),
+            null,
+            item.getErrorCode());
+      } else {
+        putRow(data.outputRowMeta, item.getOutputRow());
+        incrementLinesOutput();
+      }
+    }
+  }
+
+  /**
+   * Hand the last rows to a writer and wait until all the batches are written.
+   *
+   * @throws HopException In case a batch couldn't be written
+   */
+  protected void flushBatches() throws HopException {
+    if (!data.batch.isEmpty()) {
+      submitBatch();
+    }
+    while (!data.pendingBatches.isEmpty()) {
+      passBatch(data.pendingBatches.pollFirst());
+    }
+  }
+
+  /**
+   * Determine the name of the table to insert a row into.
+   *
+   * @param rowMeta The layout of the input row
+   * @param r The input row
+   * @return The table name
+   * @throws HopException In case the table name can't be determined
+   */
+  private String getTableName(IRowMeta rowMeta, Object[] r) throws HopException {
+    String tableName;
+    if (meta.isTableNameInField()) {
+      // Cache the position of the table name field
+      if (data.indexOfTableNameField < 0) {
+        String realTablename = resolve(meta.getTableNameField());
+        data.indexOfTableNameField = rowMeta.indexOfValue(realTablename);
+        if (data.indexOfTableNameField < 0) {
+          String message = "Unable to find table name field [" + realTablename + "] in input row";
+          logError(message);
+          throw new HopTransformException(message);
+        }
+        if (!meta.isTableNameInTable() && !meta.isSpecifyFields()) {
+          data.insertRowMeta.removeValueMeta(data.indexOfTableNameField);
+        }
+      }
+      tableName = rowMeta.getString(r, data.indexOfTableNameField);
+    } else if (meta.isPartitioningEnabled()
+        && (meta.isPartitioningDaily() || meta.isPartitioningMonthly())
+        && (meta.getPartitioningField() != null && meta.getPartitioningField().length() > 0)) {
+      // Initialize some stuff!
+      if (data.indexOfPartitioningField < 0) {
+        data.indexOfPartitioningField = rowMeta.indexOfValue(resolve(meta.getPartitioningField()));
+        if (data.indexOfPartitioningField < 0) {
+          throw new HopTransformException(
+              "Unable to find field [" + meta.getPartitioningField() + "] in the input row!");
+        }
+
+        if (Boolean.TRUE.equals(meta.isPartitioningDaily())) {
+          data.dateFormater = new SimpleDateFormat("yyyyMMdd");
+        } else {
+          data.dateFormater = new SimpleDateFormat("yyyyMM");
+        }
+      }
+
+      IValueMeta partitioningValue = rowMeta.getValueMeta(data.indexOfPartitioningField);
+      if (!partitioningValue.isDate() || r[data.indexOfPartitioningField] == null) {
+        throw new HopTransformException(
+            "Sorry, the partitioning field needs to contain a data value and can't be empty!");
+      }
+
+      Object partitioningValueData = rowMeta.getDate(r, data.indexOfPartitioningField);
+      tableName =
+          resolve(meta.getTableName())
+              + "_"
+              + data.dateFormater.format((Date) partitioningValueData);
+    } else {
+      tableName = data.tableName;
+    }
+
+    if (Utils.isEmpty(tableName)) {
+      throw new HopTransformException("The tablename is not defined (empty)");
+    }
+    return tableName;
+  }
+
+  /**
+   * Get the values to insert from an input row.
+   *
+   * @param rowMeta The layout of the input row
+   * @param r The input row
+   * @return The values to insert
+   * @throws HopException In case the input row can't be copied
+   */
+  private Object[] getInsertRowData(IRowMeta rowMeta, Object[] r) throws HopException {
+    if (meta.isSpecifyFields()) {
+      //
+      // The values to insert are those in the fields sections
+      //
+      Object[] insertRowData = new Object[data.valuenrs.length];
+      for (int idx = 0; idx < data.valuenrs.length; idx++) {
+        insertRowData[idx] = r[data.valuenrs[idx]];
+      }
+      return insertRowData;
+    }
+    if (meta.isTableNameInField() && !meta.isTableNameInTable()) {
+      // If the name of the table should not be inserted itself, remove the table name
+      // from the input row data as well. This forcibly creates a copy of r
+      //
+      return RowDataUtil.removeItem(rowMeta.cloneRow(r), data.indexOfTableNameField);
+    }
+    return r;
+  }
+
   @Override
   public boolean isRowLevel() {
     return log.isRowLevel();
@@ -469,6 +693,12 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
     data.batchBuffer.clear();
   }
 
+  /** The inserts and commits wait on the database */
+  @Override
+  public boolean isBlockingProcessRow() {
+    return true;
+  }
+
   @Override
   public boolean init() {
 
@@ -541,6 +771,21 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
         }
         data.db.setCommit(data.commitSize);
 
+        // Insert many rows with one statement if the database type supports it.
+        // We can't tell which row of a statement failed so we don't do this with error handling.
+        //
+        data.useMultiRowInsert =
+            data.batchMode
+                && meta.isUseMultiRowInsert()
+                && !getTransformMeta().isDoingErrorHandling()
+                && !meta.isIgnoreErrors()
+                && dbInterface.getMaxMultiRowInsertRows() > 1;
+
+        int writerConnections = Const.toInt(resolve(meta.getWriterConnections()), 0);
+        if (writerConnections > 0 && canUseWriters(writerConnections)) {
+          startWriters(writerConnections);
+        }
+
         if (!meta.isPartitioningEnabled() && !meta.isTableNameInField()) {
           data.tableName = resolve(meta.getTableName());
         }
@@ -555,12 +800,145 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
     return false;
   }
 
+  /**
+   * See if the rows can be written by separate connections. We can't do this when the rows have
+   * to be written by this transform one at a time or in one transaction.
+   */
+  private boolean canUseWriters(int writerConnections) {
+    String reason = null;
+    if (data.commitSize == Integer.MAX_VALUE) {
+      reason = "TableOutput.Log.WriterConnections.CommitSize";
+    } else if (meta.isReturningGeneratedKeys()) {
+      reason = "TableOutput.Log.WriterConnections.GeneratedKeys";
+    } else if (data.useSafePoints) {
+      reason = "TableOutput.Log.WriterConnections.SavePoints";
+    } else if (!Utils.isEmpty(data.db.getConnectionGroup())) {
+      reason = "TableOutput.Log.WriterConnections.UniqueConnections";
+    }
+    if (reason != null) {
+      logBasic(
+          BaseMessages.getString(
+              PKG,
+              "TableOutput.Log.WritingInTransform",
+              Integer.toString(writerConnections),
+              BaseMessages.getString(PKG, reason)));
+      return false;
+    }
+    return true;
+  }
+
+  private void startWriters(int writerConnections) throws HopException {
+    data.writers = new ArrayList<>(writerConnections);
+    for (int i = 1; i <= writerConnections; i++) {
+      Database writerDb = new Database(this, this, data.databaseMeta);
+      writerDb.connect();
+      writerDb.setCommit(data.commitSize);
+      data.writers.add(
+          new TableOutputWriter(
+              i,
+              log,
+              writerDb,
+              resolve(meta.getSchemaName()),
+              data.batchMode,
+              meta.isUseMultiRowInsert(),
+              getTransformMeta().isDoingErrorHandling(),
+              meta.isIgnoreErrors()));
+    }
+    data.idleWriters = new ArrayBlockingQueue<>(writerConnections, false, data.writers);
+    data.writerService =
+        Executors.newFixedThreadPool(
+            writerConnections,
+            runnable -> {
+              Thread thread = new Thread(runnable, getTransformName() + " - table writer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    data.batch = new TableOutputBatch(data.commitSize);
+    data.pendingBatches = new ArrayDeque<>();
+  }
+
+  private void stopWriters() {
+    if (data.writerService != null) {
+      // Only interrupt the writers and drop the waiting batches when the transform is stopped or
+      // failed, otherwise a running commit is allowed to finish
+      //
+      if (isStopped() || getErrors() > 0) {
+        data.writerService.shutdownNow();
+      } else {
+        data.writerService.shutdown();
+      }
+      try {
+        // Let the writers finish their database calls before we close the connections
+        //
+        if (!data.writerService.awaitTermination(1, TimeUnit.MINUTES)) {
+          logError("The writer connections didn't stop in time");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    for (TableOutputWriter writer : data.writers) {
+      if (log.isBasic()) {
+        logBasic(
+            BaseMessages.getString(
+                PKG,
+                "TableOutput.Log.WriterThroughput",
+                Integer.toString(writer.getNumber()),
+                Long.toString(writer.getRowsWritten()),
+                Long.toString(writer.getBatchesWritten()),
+                Long.toString(writer.getRowsPerSecond())));
+      }
+      writer.close(getErrors() > 0);
+    }
+    data.writers = null;
+    data.idleWriters = null;
+    data.writerService = null;
+    data.batch = null;
+    data.pendingBatches = null;
+  }
+
+  @Override
+  public Map<IEngineMetric, Long> getComponentMetrics() {
+    List<TableOutputWriter> writers = data.writers;
+    if (writers == null) {
+      return Collections.emptyMap();
+    }
+    Map<IEngineMetric, Long> metrics = new HashMap<>();
+    for (TableOutputWriter writer : writers) {
+      int nr = writer.getNumber();
+      metrics.put(
+          new EngineMetric(
+              "writer_" + nr + "_rows",
+              "Writer " + nr + " rows",
+              "The number of rows written and committed by writer connection #" + nr,
+              EngineMetric.getNumberedDisplayPriority("12", nr),
+              true),
+          writer.getRowsWritten());
+      metrics.put(
+          new EngineMetric(
+              "writer_" + nr + "_rows_per_second",
+              "Writer " + nr + " rows/s",
+              "The number of rows written per second by writer connection #" + nr,
+              EngineMetric.getNumberedDisplayPriority("13", nr),
+              true),
+          writer.getRowsPerSecond());
+    }
+    return metrics;
+  }
+
   void truncateTable() throws HopDatabaseException {
     if (!meta.isPartitioningEnabled() && !meta.isTableNameInField()) {
       // Only the first one truncates in a non-partitioned transform copy
       //
       if (meta.isTruncateTable() && ((getCopy() == 0) || !Utils.isEmpty(getPartitionId()))) {
         data.db.truncateTable(resolve(meta.getSchemaName()), resolve(meta.getTableName()));
+
+        // The writer connections can't insert rows while the truncate holds a lock on the table
+        //
+        if (data.writers != null) {
+          data.db.commit();
+        }
       }
     }
   }
@@ -568,10 +946,15 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
   @Override
   public void dispose() {
 
+    if (data.writers != null) {
+      stopWriters();
+    }
+
     if (data.db != null) {
       try {
         emptyAndCommitBatchBuffers(true);
       } finally {
+        closeMultiRowInserts();
         data.db.disconnect();
         // Free data structures to enable GC
         data.db = null;
@@ -590,11 +973,35 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
   //
   @Override
   public void batchComplete() throws HopException {
+    if (data.writers != null) {
+      flushBatches();
+    }
     emptyAndCommitBatchBuffers(false);
   }
 
+  private void closeMultiRowInserts() {
+    for (MultiRowInsert multiRowInsert : data.multiRowInserts.values()) {
+      try {
+        multiRowInsert.close();
+      } catch (HopDatabaseException e) {
+        logError("Error closing multi-row insert statement", e);
+      }
+    }
+    data.multiRowInserts.clear();
+  }
+
   private void emptyAndCommitBatchBuffers(boolean dispose) {
     try {
+      if (data.multiRowCounter > 0) {
+        if (getErrors() == 0) {
+          commitMultiRowInserts();
+        } else {
+          // The buffered rows are rolled back below, don't pass them on
+          //
+          data.batchBuffer.clear();
+          data.multiRowCounter = 0;
+        }
+      }
       for (String schemaTable : data.preparedStatements.keySet()) {
         // Get a commit counter per prepared statement to keep track of separate tables, etc.
         //
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.tableoutput;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of rows which is written and committed in one go by a {@link TableOutputWriter}. After
+ * writing, every row of the batch is either passed on or carries the description of its error.
+ */
+public class TableOutputBatch {
+
+  /** A row to insert into a table */
+  public static class Item {
+    private final String tableName;
+    private final Object[] insertRow;
+    private final Object[] outputRow;
+    private String errorDescription;
+    private String errorCode;
+
+    public Item(String tableName, Object[] insertRow, Object[] outputRow) {
+      this.tableName = tableName;
+      this.insertRow = insertRow;
+      this.outputRow = outputRow;
+    }
+
+    /**
+     * Gets tableName
+     *
+     * @return value of tableName
+     */
+    public String getTableName() {
+      return tableName;
+    }
+
+    /**
+     * Gets insertRow
+     *
+     * @return value of insertRow
+     */
+    public Object[] getInsertRow() {
+      return insertRow;
+    }
+
+    /**
+     * Gets outputRow
+     *
+     * @return value of outputRow
+     */
+    public Object[] getOutputRow() {
+      return outputRow;
+    }
+
+    /**
+     * Gets errorDescription
+     *
+     * @return value of errorDescription, null if the row was written
+     */
+    public String getErrorDescription() {
+      return errorDescription;
+    }
+
+    /**
+     * Gets errorCode
+     *
+     * @return value of errorCode
+     */
+    public String getErrorCode() {
+      return errorCode;
+    }
+
+    /**
+     * Flag this row as an error row
+     *
+     * @param errorDescription The description of the error
+     * @param errorCode The error code
+     */
+    public void setError(String errorDescription, String errorCode) {
+      this.errorDescription = errorDescription;
+      this.errorCode = errorCode;
+    }
+
+    /**
+     * @return true if the row couldn't be written
+     */
+    public boolean isError() {
+      return errorDescription != null;
+    }
+  }
+
+  private final List<Item> items;
+
+  public TableOutputBatch(int capacity) {
+    items = new ArrayList<>(capacity);
+  }
+
+  /**
+   * Add a row to the batch
+   *
+   * @param tableName The name of the table to insert into
+   * @param insertRow The values to insert
+   * @param outputRow The row to pass on once it is written
+   */
+  public void add(String tableName, Object[] insertRow, Object[] outputRow) {
+    items.add(new Item(tableName, insertRow, outputRow));
+  }
+
+  public int size() {
+    return items.size();
+  }
+
+  public boolean isEmpty() {
+    return items.isEmpty();
+  }
+
+  /**
+   * Gets items
+   *
+   * @return value of items
+   */
+  public List<Item> getItems() {
+    return items;
+  }
+}
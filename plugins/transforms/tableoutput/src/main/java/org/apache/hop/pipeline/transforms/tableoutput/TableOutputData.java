@@ -19,6 +19,7 @@ package org.apache.hop.pipeline.transforms.tableoutput;
 
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
+import org.apache.hop.core.database.MultiRowInsert;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
@@ -27,6 +28,9 @@ import java.sql.PreparedStatement;
 import java.sql.Savepoint;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /** Storage class for table output transform. */
 public class TableOutputData extends BaseTransformData implements ITransformData {
@@ -65,6 +69,29 @@ public class TableOutputData extends BaseTransformData implements ITransformData
 
   public int commitSize;
 
+  /** Insert many rows with one statement instead of using JDBC batches */
+  public boolean useMultiRowInsert;
+
+  /** The multi-row inserts per table name */
+  public Map<String, MultiRowInsert> multiRowInserts;
+
+  /** The number of rows added to the multi-row inserts since the last commit */
+  public int multiRowCounter;
+
+  /** The writers of the asynchronous mode, null when the rows are written by the transform */
+  public List<TableOutputWriter> writers;
+
+  /** The writers which are not busy writing a batch */
+  public BlockingQueue<TableOutputWriter> idleWriters;
+
+  public ExecutorService writerService;
+
+  /** The batch of rows being filled */
+  public TableOutputBatch batch;
+
+  /** The batches handed to the writers, in the order of the input rows */
+  public Deque<Future<TableOutputBatch>> pendingBatches;
+
   public TableOutputData() {
     super();
 
@@ -79,6 +106,7 @@ public class TableOutputData extends BaseTransformData implements ITransformData
 
     batchBuffer = new ArrayList<>();
     commitCounterMap = new HashMap<>();
+    multiRowInserts = new HashMap<>();
 
     releaseSavepoint = true;
   }
@@ -81,6 +81,12 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
   private Label wlBatch;
   private Button wBatch;
 
+  private Label wlMultiRowInsert;
+  private Button wMultiRowInsert;
+
+  private Label wlWriterConnections;
+  private TextVar wWriterConnections;
+
   private Button wUsePart;
 
   private Label wlPartField;
@@ -526,13 +532,55 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
           }
         });
 
+    // Multi-row insert statements
+    wlMultiRowInsert = new Label(wMainComp, SWT.RIGHT);
+    wlMultiRowInsert.setText(
+        BaseMessages.getString(PKG, "TableOutputDialog.MultiRowInsert.Label"));
+    wlMultiRowInsert.setToolTipText(
+        BaseMessages.getString(PKG, "TableOutputDialog.MultiRowInsert.Tooltip"));
+    props.setLook(wlMultiRowInsert);
+    FormData fdlMultiRowInsert = new FormData();
+    fdlMultiRowInsert.left = new FormAttachment(0, 0);
+    fdlMultiRowInsert.top = new FormAttachment(wBatch, margin);
+    fdlMultiRowInsert.right = new FormAttachment(middle, -margin);
+    wlMultiRowInsert.setLayoutData(fdlMultiRowInsert);
+    wMultiRowInsert = new Button(wMainComp, SWT.CHECK);
+    props.setLook(wMultiRowInsert);
+    FormData fdMultiRowInsert = new FormData();
+    fdMultiRowInsert.left = new FormAttachment(middle, 0);
+    fdMultiRowInsert.top = new FormAttachment(wlMultiRowInsert, 0, SWT.CENTER);
+    fdMultiRowInsert.right = new FormAttachment(100, 0);
+    wMultiRowInsert.setLayoutData(fdMultiRowInsert);
+    wMultiRowInsert.addSelectionListener(lsSelMod);
+
+    // Writer connections
+    wlWriterConnections = new Label(wMainComp, SWT.RIGHT);
+    wlWriterConnections.setText(
+        BaseMessages.getString(PKG, "TableOutputDialog.WriterConnections.Label"));
+    props.setLook(wlWriterConnections);
+    FormData fdlWriterConnections = new FormData();
+    fdlWriterConnections.left = new FormAttachment(0, 0);
+    fdlWriterConnections.top = new FormAttachment(wMultiRowInsert, margin);
+    fdlWriterConnections.right = new FormAttachment(middle, -margin);
+    wlWriterConnections.setLayoutData(fdlWriterConnections);
+    wWriterConnections = new TextVar(variables, wMainComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wWriterConnections.setToolTipText(
+        BaseMessages.getString(PKG, "TableOutputDialog.WriterConnections.Tooltip"));
+    props.setLook(wWriterConnections);
+    FormData fdWriterConnections = new FormData();
+    fdWriterConnections.left = new FormAttachment(middle, 0);
+    fdWriterConnections.top = new FormAttachment(wlWriterConnections, 0, SWT.CENTER);
+    fdWriterConnections.right = new FormAttachment(100, 0);
+    wWriterConnections.setLayoutData(fdWriterConnections);
+    wWriterConnections.addModifyListener(lsMod);
+
     // NameInField
     Label wlNameInField = new Label(wMainComp, SWT.RIGHT);
     wlNameInField.setText(BaseMessages.getString(PKG, "TableOutputDialog.NameInField.Label"));
     props.setLook(wlNameInField);
     FormData fdlNameInField = new FormData();
     fdlNameInField.left = new FormAttachment(0, 0);
-    fdlNameInField.top = new FormAttachment(wBatch, margin * 5);
+    fdlNameInField.top = new FormAttachment(wWriterConnections, margin * 5);
     fdlNameInField.right = new FormAttachment(middle, -margin);
     wlNameInField.setLayoutData(fdlNameInField);
     wNameInField = new Button(wMainComp, SWT.CHECK);
@@ -1201,6 +1249,12 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
 
     wlBatch.setEnabled(enableBatch);
     wBatch.setEnabled(enableBatch);
+    wlMultiRowInsert.setEnabled(useBatch);
+    wMultiRowInsert.setEnabled(useBatch);
+
+    // The writer connections can't return the generated keys
+    wlWriterConnections.setEnabled(!returnKeys);
+    wWriterConnections.setEnabled(!returnKeys);
 
     boolean specifyFields = wSpecifyFields.getSelection();
     wFields.setEnabled(specifyFields);
@@ -1246,8 +1300,10 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
     wOnlyWhenHaveRows.setSelection(input.isOnlyWhenHaveRows());
     wIgnore.setSelection(input.isIgnoreErrors());
     wBatch.setSelection(input.isUseBatchUpdate());
+    wMultiRowInsert.setSelection(input.isUseMultiRowInsert());
 
     wCommit.setText(input.getCommitSize());
+    wWriterConnections.setText(Const.NVL(input.getWriterConnections(), ""));
 
     wUsePart.setSelection(input.isPartitioningEnabled());
     wPartDaily.setSelection(input.isPartitioningDaily());
@@ -1302,6 +1358,8 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
     info.setOnlyWhenHaveRows(wOnlyWhenHaveRows.getSelection());
     info.setIgnoreErrors(wIgnore.getSelection());
     info.setUseBatchUpdate(wBatch.getSelection());
+    info.setUseMultiRowInsert(wMultiRowInsert.getSelection());
+    info.setWriterConnections(wWriterConnections.getText());
     info.setPartitioningEnabled(wUsePart.getSelection());
     info.setPartitioningField(wPartField.getText());
     info.setPartitioningDaily(wPartDaily.getSelection());
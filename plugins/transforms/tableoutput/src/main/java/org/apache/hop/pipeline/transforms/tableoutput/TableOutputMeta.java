@@ -106,6 +106,20 @@ public class TableOutputMeta extends BaseTransformMeta<TableOutput, TableOutputD
       injectionKeyDescription = "TableOutputMeta.Injection.UseBatch.Field")
   private boolean useBatchUpdate;
 
+  /** Insert many rows with one statement when batching, if the database type supports it */
+  @HopMetadataProperty(
+      key = "use_multi_row_insert",
+      injectionKey = "USE_MULTI_ROW_INSERT",
+      defaultBoolean = true,
+      injectionKeyDescription = "TableOutputMeta.Injection.UseMultiRowInsert.Field")
+  private boolean useMultiRowInsert;
+
+  @HopMetadataProperty(
+      key = "writer_connections",
+      injectionKey = "WRITER_CONNECTIONS",
+      injectionKeyDescription = "TableOutputMeta.Injection.WriterConnections.Field")
+  private String writerConnections;
+
   @HopMetadataProperty(
       key = "partitioning_enabled",
       injectionKey = "PARTITION_OVER_TABLES",
@@ -329,7 +343,9 @@ public class TableOutputMeta extends BaseTransformMeta<TableOutput, TableOutputD
   public TableOutputMeta() {
     super(); // allocate BaseTransformMeta
     useBatchUpdate = true;
+    useMultiRowInsert = true;
     commitSize = "1000";
+    writerConnections = "0";
 
     fields = new ArrayList<>();
   }
@@ -455,10 +471,44 @@ public class TableOutputMeta extends BaseTransformMeta<TableOutput, TableOutputD
     return useBatchUpdate;
   }
 
+  /**
+   * Gets useMultiRowInsert
+   *
+   * @return true if many rows are inserted with one statement when using batch updates
+   */
+  public boolean isUseMultiRowInsert() {
+    return useMultiRowInsert;
+  }
+
+  /**
+   * @param useMultiRowInsert The useMultiRowInsert flag to set
+   */
+  public void setUseMultiRowInsert(boolean useMultiRowInsert) {
+    this.useMultiRowInsert = useMultiRowInsert;
+  }
+
+  /**
+   * Gets the number of extra connections writing batches of rows in the background, 0 means that
+   * the transform writes the rows itself.
+   *
+   * @return value of writerConnections
+   */
+  public String getWriterConnections() {
+    return writerConnections;
+  }
+
+  /**
+   * @param writerConnections The writerConnections to set
+   */
+  public void setWriterConnections(String writerConnections) {
+    this.writerConnections = writerConnections;
+  }
+
   @Override
   public void setDefault() {
     tableName = "";
     commitSize = "1000";
+    writerConnections = "0";
 
     partitioningEnabled = false;
     partitioningDaily = false;
@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.tableoutput;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.database.Database;
+import org.apache.hop.core.database.MultiRowInsert;
+import org.apache.hop.core.exception.HopDatabaseBatchException;
+import org.apache.hop.core.exception.HopDatabaseException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes batches of rows to the database over its own connection with its own prepared statements
+ * and commit cycle. In the asynchronous mode of the Table Output transform a few of these writers
+ * work in parallel while the transform prepares the next batch.
+ *
+ * <p>A writer is only used by one thread at a time. The counters can be read from any thread.
+ */
+public class TableOutputWriter {
+
+  private final int number;
+  private final ILogChannel log;
+  private final Database db;
+  private final String schemaName;
+  private final boolean batchMode;
+  private final boolean multiRowInsert;
+  private final boolean errorHandling;
+  private final boolean ignoreErrors;
+
+  private final Map<String, PreparedStatement> preparedStatements;
+  private final Map<String, MultiRowInsert> multiRowInserts;
+  private int warnings;
+
+  private final AtomicLong rowsWritten;
+  private final AtomicLong batchesWritten;
+  private final AtomicLong writeNanos;
+
+  /**
+   * @param number The number of the writer, starting at 1
+   * @param log The log channel to use
+   * @param db The connected database, not shared with anyone else
+   * @param schemaName The schema of the tables to write to
+   * @param batchMode Use batch updates if the database supports them
+   * @param multiRowInsert Insert many rows with one statement in batch mode, if the database
+   *     supports it
+   * @param errorHandling Flag rows which can't be written as error rows instead of failing
+   * @param ignoreErrors Ignore rows which can't be written
+   */
+  public TableOutputWriter(
+      int number,
+      ILogChannel log,
+      Database db,
+      String schemaName,
+      boolean batchMode,
+      boolean multiRowInsert,
+      boolean errorHandling,
+      boolean ignoreErrors) {
+    this.number = number;
+    this.log = log;
+    this.db = db;
+    this.schemaName = schemaName;
+    this.batchMode = batchMode;
+    this.multiRowInsert = multiRowInsert;
+    this.errorHandling = errorHandling;
+    this.ignoreErrors = ignoreErrors;
+    this.preparedStatements = new HashMap<>();
+    this.multiRowInserts = new HashMap<>();
+    this.rowsWritten = new AtomicLong();
+    this.batchesWritten = new AtomicLong();
+    this.writeNanos = new AtomicLong();
+  }
+
+  /**
+   * Insert all the rows of a batch and commit. Rows which can't be inserted are flagged as errors
+   * in the batch when error handling is enabled.
+   *
+   * @param insertRowMeta The layout of the rows to insert
+   * @param batch The batch of rows to write
+   * @throws HopException In case the rows can't be written, the work of this batch is rolled back
+   */
+  public void write(IRowMeta insertRowMeta, TableOutputBatch batch) throws HopException {
+    long start = System.nanoTime();
+
+    // Every table has its own prepared statement.
+    // Normally this is only one table, unless the table name is in a field or partitioned by date.
+    //
+    Map<String, List<TableOutputBatch.Item>> tableItems = new LinkedHashMap<>();
+    for (TableOutputBatch.Item item : batch.getItems()) {
+      tableItems.computeIfAbsent(item.getTableName(), k -> new ArrayList<>()).add(item);
+    }
+    for (Map.Entry<String, List<TableOutputBatch.Item>> entry : tableItems.entrySet()) {
+      writeRows(insertRowMeta, entry.getKey(), entry.getValue());
+    }
+    db.commit();
+
+    long written = batch.getItems().stream().filter(item -> !item.isError()).count();
+    rowsWritten.addAndGet(written);
+    batchesWritten.incrementAndGet();
+    writeNanos.addAndGet(System.nanoTime() - start);
+  }
+
+  private void writeRows(IRowMeta insertRowMeta, String tableName, List<TableOutputBatch.Item> items)
+      throws HopException {
+    MultiRowInsert multiRowInsert = getMultiRowInsert(insertRowMeta, tableName);
+    if (multiRowInsert != null) {
+      writeMultiRows(multiRowInsert, tableName, items);
+      return;
+    }
+
+    PreparedStatement insertStatement = getPreparedStatement(insertRowMeta, tableName);
+    boolean useBatch = db.getUseBatchInsert(batchMode);
+
+    List<TableOutputBatch.Item> batched = new ArrayList<>(items.size());
+    for (TableOutputBatch.Item item : items) {
+      try {
+        db.setValues(insertRowMeta, item.getInsertRow(), insertStatement);
+        db.insertRow(insertStatement, batchMode, false);
+        batched.add(item);
+      } catch (HopDatabaseException e) {
+        handleRowError(insertRowMeta, tableName, item, e);
+      }
+    }
+
+    if (useBatch && !batched.isEmpty()) {
+      try {
+        insertStatement.executeBatch();
+        insertStatement.clearBatch();
+      } catch (SQLException e) {
+        handleBatchError(
+            tableName,
+            insertStatement,
+            batched,
+            Database.createHopDatabaseBatchException("Error updating batch", e));
+      }
+    }
+  }
+
+  /**
+   * Insert the rows with multi-row insert statements. Since a statement inserts all its rows or
+   * none, we can't flag or ignore the rows which failed.
+   */
+  private void writeMultiRows(
+      MultiRowInsert multiRowInsert, String tableName, List<TableOutputBatch.Item> items)
+      throws HopException {
+    try {
+      for (TableOutputBatch.Item item : items) {
+        multiRowInsert.addRow(item.getInsertRow());
+      }
+      multiRowInsert.flush();
+    } catch (HopDatabaseException e) {
+      multiRowInsert.clear();
+      db.rollback();
+      throw new HopException("Error inserting rows into table [" + tableName + "]", e);
+    }
+  }
+
+  /**
+   * Get the multi-row insert of a table.
+   *
+   * @return The multi-row insert or null if the rows have to be inserted one by one
+   */
+  private MultiRowInsert getMultiRowInsert(IRowMeta insertRowMeta, String tableName) {
+    if (!batchMode || !multiRowInsert || errorHandling || ignoreErrors) {
+      return null;
+    }
+    if (!multiRowInserts.containsKey(tableName)) {
+      MultiRowInsert multiRowInsert =
+          db.createMultiRowInsert(schemaName, tableName, insertRowMeta);
+      if (multiRowInsert != null && log.isDetailed()) {
+        log.logDetailed(
+            "Writer #"
+                + number
+                + " inserts "
+                + multiRowInsert.getRowsPerStatement()
+                + " rows per statement into table "
+                + tableName);
+      }
+      multiRowInserts.put(tableName, multiRowInsert);
+    }
+    return multiRowInserts.get(tableName);
+  }
+
+  private PreparedStatement getPreparedStatement(IRowMeta insertRowMeta, String tableName)
+      throws HopDatabaseException {
+    PreparedStatement insertStatement = preparedStatements.get(tableName);
+    if (insertStatement == null) {
+      String sql = db.getInsertStatement(schemaName, tableName, insertRowMeta);
+      if (log.isDetailed()) {
+        log.logDetailed("Prepared statement for writer #" + number + " : " + sql);
+      }
+      insertStatement = db.prepareSql(sql);
+      preparedStatements.put(tableName, insertStatement);
+    }
+    return insertStatement;
+  }
+
+  private void handleRowError(
+      IRowMeta insertRowMeta,
+      String tableName,
+      TableOutputBatch.Item item,
+      HopDatabaseException e)
+      throws HopException {
+    if (errorHandling) {
+      item.setError(e.toString(), "TOP001");
+    } else if (ignoreErrors) {
+      if (warnings < 20) {
+        log.logBasic(
+            "WARNING: Couldn't insert row into table: "
+                + insertRowMeta.getString(item.getInsertRow())
+                + Const.CR
+                + e.getMessage());
+      } else if (warnings == 20) {
+        log.logBasic(
+            "FINAL WARNING (no more then 20 displayed): Couldn't insert row into table: "
+                + insertRowMeta.getString(item.getInsertRow())
+                + Const.CR
+                + e.getMessage());
+      }
+      warnings++;
+    } else {
+      db.rollback();
+      throw new HopException(
+          "Error inserting row into table ["
+              + tableName
+              + "] with values: "
+              + insertRowMeta.getString(item.getInsertRow()),
+          e);
+    }
+  }
+
+  private void handleBatchError(
+      String tableName,
+      PreparedStatement insertStatement,
+      List<TableOutputBatch.Item> batched,
+      HopDatabaseBatchException be)
+      throws HopException {
+    db.clearBatch(insertStatement);
+
+    if (!errorHandling) {
+      db.rollback();
+      StringBuilder msg =
+          new StringBuilder("Error batch inserting rows into table [" + tableName + "].");
+      msg.append(Const.CR);
+      msg.append("Errors encountered (first 10):").append(Const.CR);
+      for (int x = 0; x < be.getExceptionsList().size() && x < 10; x++) {
+        Exception exception = be.getExceptionsList().get(x);
+        if (exception.getMessage() != null) {
+          msg.append(exception.getMessage()).append(Const.CR);
+        }
+      }
+      throw new HopException(msg.toString(), be);
+    }
+
+    // Flag the rows which failed. If we don't have update counts, it probably means the database
+    // doesn't support it. In this case all the rows of the batch are error rows.
+    //
+    int[] updateCounts = be.getUpdateCounts();
+    List<Exception> exceptionsList = be.getExceptionsList();
+    int errNr = 0;
+    for (int i = 0; i < batched.size(); i++) {
+      if (updateCounts == null) {
+        batched.get(i).setError(be.toString(), "TOP0003");
+      } else if (i >= updateCounts.length || updateCounts[i] <= 0) {
+        String message = be.toString();
+        if (errNr < exceptionsList.size()) {
+          message = exceptionsList.get(errNr++).toString();
+        }
+        batched.get(i).setError(message, "TOP0002");
+      }
+    }
+  }
+
+  /**
+   * Close the prepared statements and the connection of this writer.
+   *
+   * @param rollback Roll back the uncommitted work first
+   */
+  public void close(boolean rollback) {
+    try {
+      if (rollback) {
+        db.rollback();
+      }
+    } catch (HopDatabaseException e) {
+      log.logError("Unexpected error rolling back the connection of writer #" + number, e);
+    } finally {
+      for (PreparedStatement insertStatement : preparedStatements.values()) {
+        try {
+          insertStatement.close();
+        } catch (SQLException e) {
+          log.logError("Error closing statement of writer #" + number, e);
+        }
+      }
+      preparedStatements.clear();
+      for (MultiRowInsert multiRowInsert : multiRowInserts.values()) {
+        if (multiRowInsert != null) {
+          try {
+            multiRowInsert.close();
+          } catch (HopDatabaseException e) {
+            log.logError("Error closing multi-row insert of writer #" + number, e);
+          }
+        }
+      }
+      multiRowInserts.clear();
+      db.disconnect();
+    }
+  }
+
+  /**
+   * Gets number
+   *
+   * @return value of number
+   */
+  public int getNumber() {
+    return number;
+  }
+
+  /**
+   * Gets the number of rows written and committed by this writer
+   *
+   * @return value of rowsWritten
+   */
+  public long getRowsWritten() {
+    return rowsWritten.get();
+  }
+
+  /**
+   * Gets the number of batches written and committed by this writer
+   *
+   * @return value of batchesWritten
+   */
+  public long getBatchesWritten() {
+    return batchesWritten.get();
+  }
+
+  /**
+   * Gets the time this writer spent writing and committing batches
+   *
+   * @return the time in milliseconds
+   */
+  public long getWriteTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(writeNanos.get());
+  }
+
+  /**
+   * Gets the throughput of this writer while it was writing
+   *
+   * @return the number of rows written per second of write time
+   */
+  public long getRowsPerSecond() {
+    long nanos = writeNanos.get();
+    if (nanos <= 0) {
+      return 0L;
+    }
+    return (long) (rowsWritten.get() * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+  }
+
+  /**
+   * Gets db
+   *
+   * @return value of db
+   */
+  public Database getDb() {
+    return db;
+  }
+}
@@ -105,6 +105,8 @@ public class TableOutputMetaTest {
     tableOutputMeta.setDefault();
     assertEquals("", tableOutputMeta.getTableName());
     assertEquals("1000", tableOutputMeta.getCommitSize());
+    assertEquals("0", tableOutputMeta.getWriterConnections());
+    assertTrue(tableOutputMeta.isUseMultiRowInsert());
     assertFalse(tableOutputMeta.isPartitioningEnabled());
     assertTrue(tableOutputMeta.isPartitioningMonthly());
     assertEquals("", tableOutputMeta.getPartitioningField());
@@ -20,8 +20,12 @@ package org.apache.hop.pipeline.transforms.tableoutput;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.database.IDatabase;
+import org.apache.hop.core.database.MultiRowInsert;
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
@@ -31,8 +35,18 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -179,6 +193,89 @@ public class TableOutputTest {
     verify(tableOutputSpy, never()).truncateTable();
   }
 
+  @Test
+  public void testWriteToBatch_passesRowsInOrder() throws Exception {
+    PreparedStatement statement = mock(PreparedStatement.class);
+    doReturn(statement).when(db).prepareSql(any());
+    doReturn(true).when(db).getUseBatchInsert(true);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    tableOutputData.insertRowMeta = rowMeta;
+    tableOutputData.outputRowMeta = rowMeta;
+    tableOutputData.commitSize = 3;
+    tableOutputData.writers = new ArrayList<>();
+    for (int i = 1; i <= 2; i++) {
+      tableOutputData.writers.add(
+          new TableOutputWriter(i, mock(ILogChannel.class), db, null, true, true, false, false));
+    }
+    tableOutputData.idleWriters = new ArrayBlockingQueue<>(2, false, tableOutputData.writers);
+    tableOutputData.writerService = Executors.newFixedThreadPool(2);
+    tableOutputData.batch = new TableOutputBatch(3);
+    tableOutputData.pendingBatches = new ArrayDeque<>();
+
+    List<Object> passed = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(
+            invocation -> {
+              passed.add(((Object[]) invocation.getArgument(1))[0]);
+              return null;
+            })
+        .when(tableOutputSpy)
+        .putRow(any(IRowMeta.class), any(Object[].class));
+
+    try {
+      for (long id = 0; id < 10; id++) {
+        tableOutputSpy.writeToBatch(rowMeta, new Object[] {id});
+      }
+      tableOutputSpy.flushBatches();
+    } finally {
+      tableOutputData.writerService.shutdownNow();
+    }
+
+    assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), passed);
+    assertTrue(tableOutputData.pendingBatches.isEmpty());
+    assertEquals(
+        10L,
+        tableOutputData.writers.get(0).getRowsWritten()
+            + tableOutputData.writers.get(1).getRowsWritten());
+    verify(statement, times(4)).executeBatch();
+    verify(db, times(4)).commit();
+  }
+
+  @Test
+  public void testWriteToMultiRowInsert_passesRowsAfterCommit() throws Exception {
+    MultiRowInsert multiRowInsert = mock(MultiRowInsert.class);
+    doReturn(multiRowInsert).when(db).createMultiRowInsert(any(), eq("sas"), any());
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    tableOutputData.insertRowMeta = rowMeta;
+    tableOutputData.outputRowMeta = rowMeta;
+    tableOutputData.commitSize = 3;
+    tableOutputData.multiRowInserts = new HashMap<>();
+    tableOutputData.batchBuffer = new ArrayList<>();
+
+    List<Object> passed = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              passed.add(((Object[]) invocation.getArgument(1))[0]);
+              return null;
+            })
+        .when(tableOutputSpy)
+        .putRow(any(IRowMeta.class), any(Object[].class));
+
+    for (long id = 0; id < 7; id++) {
+      tableOutputSpy.writeToMultiRowInsert(rowMeta, new Object[] {id});
+    }
+
+    assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L), passed);
+    assertEquals(1, tableOutputData.batchBuffer.size());
+    verify(db, times(1)).createMultiRowInsert(any(), eq("sas"), any());
+    verify(multiRowInsert, times(7)).addRow(any());
+    verify(multiRowInsert, times(2)).flush();
+    verify(db, times(2)).commit();
+  }
+
   @Test
   public void testInit_unsupportedConnection() {
 
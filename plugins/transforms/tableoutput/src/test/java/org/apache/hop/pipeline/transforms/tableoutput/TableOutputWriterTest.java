@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.tableoutput;
+
+import org.apache.hop.core.database.Database;
+import org.apache.hop.core.database.MultiRowInsert;
+import org.apache.hop.core.exception.HopDatabaseException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TableOutputWriterTest {
+
+  private Database db;
+  private PreparedStatement statement1;
+  private PreparedStatement statement2;
+  private IRowMeta insertRowMeta;
+
+  @Before
+  public void setUp() throws Exception {
+    db = mock(Database.class);
+    statement1 = mock(PreparedStatement.class);
+    statement2 = mock(PreparedStatement.class);
+    doReturn("insert1").when(db).getInsertStatement(any(), eq("table1"), any());
+    doReturn("insert2").when(db).getInsertStatement(any(), eq("table2"), any());
+    doReturn(statement1).when(db).prepareSql("insert1");
+    doReturn(statement2).when(db).prepareSql("insert2");
+    doReturn(true).when(db).getUseBatchInsert(true);
+
+    insertRowMeta = new RowMeta();
+    insertRowMeta.addValueMeta(new ValueMetaInteger("id"));
+  }
+
+  private TableOutputWriter createWriter(boolean errorHandling) {
+    return new TableOutputWriter(
+        1, mock(ILogChannel.class), db, "schema", true, true, errorHandling, false);
+  }
+
+  private TableOutputBatch createBatch(String... tableNames) {
+    TableOutputBatch batch = new TableOutputBatch(tableNames.length);
+    for (int i = 0; i < tableNames.length; i++) {
+      Object[] row = new Object[] {(long) i};
+      batch.add(tableNames[i], row, row);
+    }
+    return batch;
+  }
+
+  @Test
+  public void testWriteBatchPerTable() throws Exception {
+    TableOutputWriter writer = createWriter(false);
+
+    writer.write(insertRowMeta, createBatch("table1", "table2", "table1"));
+    writer.write(insertRowMeta, createBatch("table1"));
+
+    // The statements are prepared once and every batch is committed once
+    //
+    verify(db, times(1)).prepareSql("insert1");
+    verify(db, times(1)).prepareSql("insert2");
+    verify(db, times(4)).insertRow(any(PreparedStatement.class), eq(true), eq(false));
+    verify(statement1, times(2)).executeBatch();
+    verify(statement2, times(1)).executeBatch();
+    verify(db, times(2)).commit();
+
+    assertEquals(4L, writer.getRowsWritten());
+    assertEquals(2L, writer.getBatchesWritten());
+
+    writer.close(false);
+    verify(statement1).close();
+    verify(statement2).close();
+    verify(db).disconnect();
+  }
+
+  @Test
+  public void testMultiRowInsertCanBeDisabled() throws Exception {
+    doReturn(mock(MultiRowInsert.class))
+        .when(db)
+        .createMultiRowInsert(anyString(), anyString(), any(IRowMeta.class));
+    TableOutputWriter writer =
+        new TableOutputWriter(1, mock(ILogChannel.class), db, "schema", true, false, false, false);
+
+    writer.write(insertRowMeta, createBatch("table1", "table1"));
+
+    verify(db, never()).createMultiRowInsert(anyString(), anyString(), any(IRowMeta.class));
+    verify(db, times(2)).insertRow(any(PreparedStatement.class), eq(true), eq(false));
+    verify(statement1).executeBatch();
+  }
+
+  @Test
+  public void testBatchErrorFlagsFailedRows() throws Exception {
+    doThrow(
+            new BatchUpdateException(
+                "duplicate key", new int[] {1, Statement.EXECUTE_FAILED, 1}, null))
+        .when(statement1)
+        .executeBatch();
+    TableOutputWriter writer = createWriter(true);
+
+    TableOutputBatch batch = createBatch("table1", "table1", "table1");
+    writer.write(insertRowMeta, batch);
+
+    assertFalse(batch.getItems().get(0).isError());
+    assertTrue(batch.getItems().get(1).isError());
+    assertEquals("TOP0002", batch.getItems().get(1).getErrorCode());
+    assertFalse(batch.getItems().get(2).isError());
+    assertEquals(2L, writer.getRowsWritten());
+
+    verify(db).clearBatch(statement1);
+    verify(db).commit();
+    verify(db, never()).rollback();
+  }
+
+  @Test
+  public void testBatchErrorWithoutErrorHandling() throws Exception {
+    doThrow(new BatchUpdateException("duplicate key", new int[] {1, Statement.EXECUTE_FAILED}))
+        .when(statement1)
+        .executeBatch();
+    TableOutputWriter writer = createWriter(false);
+
+    try {
+      writer.write(insertRowMeta, createBatch("table1", "table1"));
+      fail("The batch error should be thrown");
+    } catch (HopException e) {
+      // Expected
+    }
+    verify(db).rollback();
+    verify(db, never()).commit();
+    assertEquals(0L, writer.getRowsWritten());
+  }
+
+  @Test
+  public void testRowErrorWithoutBatchUpdates() throws Exception {
+    doReturn(false).when(db).getUseBatchInsert(anyBoolean());
+    doThrow(new HopDatabaseException("constraint violated"))
+        .doReturn(false)
+        .when(db)
+        .insertRow(any(PreparedStatement.class), anyBoolean(), anyBoolean());
+    TableOutputWriter writer = createWriter(true);
+
+    TableOutputBatch batch = createBatch("table1", "table1");
+    writer.write(insertRowMeta, batch);
+
+    assertEquals("TOP001", batch.getItems().get(0).getErrorCode());
+    assertNull(batch.getItems().get(1).getErrorDescription());
+    verify(statement1, never()).executeBatch();
+    verify(db).commit();
+    verify(db, never()).prepareSql(anyString(), anyBoolean());
+  }
+}
@@ -83,6 +83,7 @@ public class DatabaseMetaEditor extends MetadataEditor<DatabaseMeta> {
   private Button wForceUppercase;
   private Button wPreserveCase;
   private TextVar wPreferredSchema;
+  private TextVar wFetchSize;
   private TextVar wSqlStatements;
 
   private TableView wOptions;
@@ -211,6 +212,7 @@ public class DatabaseMetaEditor extends MetadataEditor<DatabaseMeta> {
     wForceUppercase.addListener(SWT.Selection, modifyListener);
     wPreserveCase.addListener(SWT.Selection, modifyListener);
     wPreferredSchema.addListener(SWT.Modify, modifyListener);
+    wFetchSize.addListener(SWT.Modify, modifyListener);
     wSqlStatements.addListener(SWT.Modify, modifyListener);
     wOptions.addListener(SWT.Modify, modifyListener);
   }
@@ -599,6 +601,26 @@ public class DatabaseMetaEditor extends MetadataEditor<DatabaseMeta> {
     wPreferredSchema.setLayoutData(fdPreferredSchema);
     lastControl = wPreferredSchema;
 
+    // The number of rows to fetch per round trip
+    //
+    Label wlFetchSize = new Label(wAdvancedComp, SWT.RIGHT);
+    props.setLook(wlFetchSize);
+    wlFetchSize.setText(BaseMessages.getString(PKG, "DatabaseDialog.label.FetchSize"));
+    FormData fdlFetchSize = new FormData();
+    fdlFetchSize.top = new FormAttachment(lastControl, margin);
+    fdlFetchSize.left = new FormAttachment(0, 0); // First one in the left top corner
+    fdlFetchSize.right = new FormAttachment(middle, 0);
+    wlFetchSize.setLayoutData(fdlFetchSize);
+    wFetchSize =
+        new TextVar(manager.getVariables(), wAdvancedComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wFetchSize);
+    FormData fdFetchSize = new FormData();
+    fdFetchSize.top = new FormAttachment(wlFetchSize, 0, SWT.CENTER);
+    fdFetchSize.left = new FormAttachment(middle, margin); // To the right of the label
+    fdFetchSize.right = new FormAttachment(100, 0);
+    wFetchSize.setLayoutData(fdFetchSize);
+    lastControl = wFetchSize;
+
     // SQL Statements to run after connecting
     //
     Label wlSqlStatements = new Label(wAdvancedComp, SWT.LEFT);
@@ -771,6 +793,7 @@ public class DatabaseMetaEditor extends MetadataEditor<DatabaseMeta> {
     wForceUppercase.setSelection(databaseMeta.isForcingIdentifiersToUpperCase());
     wPreserveCase.setSelection(databaseMeta.preserveReservedCase());
     wPreferredSchema.setText(Const.NVL(databaseMeta.getPreferredSchemaName(), ""));
+    wFetchSize.setText(Const.NVL(databaseMeta.getFetchSize(), ""));
     wSqlStatements.setText(Const.NVL(databaseMeta.getConnectSql(), ""));
 
     wOptions.clearAll(false);
@@ -812,6 +835,7 @@ public class DatabaseMetaEditor extends MetadataEditor<DatabaseMeta> {
     meta.setForcingIdentifiersToUpperCase(wForceUppercase.getSelection());
     meta.setPreserveReservedCase(wPreserveCase.getSelection());
     meta.setPreferredSchemaName(wPreferredSchema.getText());
+    meta.setFetchSize(wFetchSize.getText());
     meta.setConnectSql(wSqlStatements.getText());
 
     meta.getExtraOptions().clear();